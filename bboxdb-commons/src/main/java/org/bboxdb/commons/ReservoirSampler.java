@@ -0,0 +1,111 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.commons;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class ReservoirSampler<T> {
+
+	/**
+	 * The maximal amount of samples
+	 */
+	private final int capacity;
+	
+	/**
+	 * The samples
+	 */
+	private final List<T> samples;
+	
+	/**
+	 * The amount of seen elements
+	 */
+	private long seenElements = 0;
+	
+	/**
+	 * The random generator
+	 */
+	private final Random random;
+	
+	public ReservoirSampler(final int capacity) {
+		this(capacity, new Random());
+	}
+	
+	public ReservoirSampler(final int capacity, final Random random) {
+		if(capacity <= 0) {
+			throw new IllegalArgumentException("Capacity has to be > 0: " + capacity);
+		}
+		
+		this.capacity = capacity;
+		this.random = random;
+		this.samples = new ArrayList<>(capacity);
+	}
+	
+	/**
+	 * Offer the next element of the stream to the sampler. Each seen 
+	 * element is contained in the samples with the same probability.
+	 * 
+	 * @param element
+	 */
+	public void add(final T element) {
+		seenElements++;
+		
+		if(samples.size() < capacity) {
+			samples.add(element);
+			return;
+		}
+		
+		final long position = (long) (random.nextDouble() * seenElements);
+		
+		if(position < capacity) {
+			samples.set((int) position, element);
+		}
+	}
+	
+	/**
+	 * Get the samples
+	 * @return
+	 */
+	public List<T> getSamples() {
+		return Collections.unmodifiableList(samples);
+	}
+	
+	/**
+	 * Get the amount of seen elements
+	 * @return
+	 */
+	public long getSeenElements() {
+		return seenElements;
+	}
+	
+	/**
+	 * Get the capacity
+	 * @return
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	@Override
+	public String toString() {
+		return "ReservoirSampler [capacity=" + capacity + ", samples=" + samples.size() 
+			+ ", seenElements=" + seenElements + "]";
+	}
+}
@@ -19,11 +19,11 @@ package org.bboxdb.commons;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PriorityQueue;
 
 /**
  * This class merges a set with sorted iterators and returns a sorted 
@@ -48,9 +48,7 @@ public class SortedIteratorMerger<E> implements Iterable<E> {
 			}
 			
 			// Any new values left?
-			return iteratorElementMap.values()
-					.stream()
-					.anyMatch(e -> Objects.nonNull(e));
+			return ! iteratorHeap.isEmpty();
 		}
 
 		@Override
@@ -61,22 +59,22 @@ public class SortedIteratorMerger<E> implements Iterable<E> {
 				return unconsumedDuplicates.remove(0);
 			}
 			
-			final E lowestElement = iteratorElementMap
-					.values()
-					.stream()
-					.filter(e -> Objects.nonNull(e))
-					.min(elementComparator)
-					.orElse(null);
+			if(iteratorHeap.isEmpty()) {
+				throw new NoSuchElementException("All iterators are exhausted");
+			}
 			
-			assert (lowestElement != null);
+			final E lowestElement = iteratorHeap.peek().getElement();
 			
-			for(final Iterator<E> iteratorToCheck : iteratorElementMap.keySet()) {
-				E element = iteratorElementMap.get(iteratorToCheck);
+			// Move all elements that belong to the current key from the iterators 
+			// to the result list. The iterator entries are re-added to the heap
+			// with their next element, so the duplicates of one iterator are 
+			// consumed in one pass.
+			while(belongsElementToCurrentKey(lowestElement, iteratorHeap.peek())) {
+				final IteratorHead head = iteratorHeap.poll();
+				unconsumedDuplicates.add(head.getElement());
 				
-				// Move the searched element from the iterator list to the result list
-				while(belongsElementToCurrentKey(lowestElement, element)) {	
-					unconsumedDuplicates.add(element);
-					element = refreshIterator(iteratorToCheck);
+				if(head.advance()) {
+					iteratorHeap.add(head);
 				}
 			}
 			
@@ -84,34 +82,76 @@ public class SortedIteratorMerger<E> implements Iterable<E> {
 			duplicateResolver.removeDuplicates(unconsumedDuplicates);
 			assert (! unconsumedDuplicates.isEmpty());
 			
-			
 			return unconsumedDuplicates.remove(0);				
 		}
 
 		/**
 		 * Belongs the given element to the current key
 		 * @param lowestElement
-		 * @param element
+		 * @param head
 		 * @return
 		 */
-		protected boolean belongsElementToCurrentKey(final E lowestElement, final E element) {
-			if(element == null) {
+		protected boolean belongsElementToCurrentKey(final E lowestElement, final IteratorHead head) {
+			if(head == null) {
 				return false;
 			}
 					
-			if(elementComparator.compare(element, lowestElement) == 0) {
+			if(elementComparator.compare(head.getElement(), lowestElement) == 0) {
 				return true;
 			}
 			
 			return false;
 		}
 	}
+	
+	/**
+	 * An iterator together with the last fetched element
+	 */
+	private final class IteratorHead {
+		
+		/**
+		 * The iterator
+		 */
+		private final Iterator<E> iterator;
+		
+		/**
+		 * The position of the iterator in the iterator list
+		 */
+		private final int iteratorNumber;
+		
+		/**
+		 * The last fetched element
+		 */
+		private E element;
+
+		public IteratorHead(final Iterator<E> iterator, final int iteratorNumber) {
+			this.iterator = iterator;
+			this.iteratorNumber = iteratorNumber;
+		}
+		
+		/**
+		 * Fetch the next element of the iterator
+		 * @return false if the iterator is exhausted
+		 */
+		public boolean advance() {
+			element = refreshIterator(iterator);
+			return element != null;
+		}
+
+		public E getElement() {
+			return element;
+		}
+		
+		public int getIteratorNumber() {
+			return iteratorNumber;
+		}
+	}
 
 	/**
-	 * The iterator map, contains all iterators and the
-	 * last fetched element
+	 * The heap with the iterators, ordered by the last fetched element. 
+	 * Exhausted iterators are removed from the heap.
 	 */
-	protected final Map<Iterator<E>, E> iteratorElementMap;
+	protected final PriorityQueue<IteratorHead> iteratorHeap;
 	
 	/**
 	 * The element comparator
@@ -136,30 +176,43 @@ public class SortedIteratorMerger<E> implements Iterable<E> {
 		this.duplicateResolver = Objects.requireNonNull(duplicateResolver);
 		Objects.requireNonNull(iteratorList);
 
-		iteratorElementMap = new HashMap<>();
+		// Elements with the same key are returned in the order of the iterator list
+		final Comparator<IteratorHead> headComparator = (h1, h2) -> {
+			final int result = elementComparator.compare(h1.getElement(), h2.getElement());
+			
+			if(result != 0) {
+				return result;
+			}
+			
+			return Integer.compare(h1.getIteratorNumber(), h2.getIteratorNumber());
+		};
 		
-		for(final Iterator<E> iterator : iteratorList) {
-			iteratorElementMap.put(iterator, null);
-			refreshIterator(iterator);
+		iteratorHeap = new PriorityQueue<>(Math.max(1, iteratorList.size()), headComparator);
+		
+		for(int i = 0; i < iteratorList.size(); i++) {
+			final IteratorHead head = new IteratorHead(iteratorList.get(i), i);
+			
+			if(head.advance()) {
+				iteratorHeap.add(head);
+			}
 		}		
 	}
 	
 	/**
-	 * Refresh the specified iterator
+	 * Refresh the specified iterator. A null value returned by the 
+	 * iterator is handled like an exhausted iterator.
+	 * 
 	 * @param iterator
 	 */
 	protected E refreshIterator(final Iterator<E> iterator) {
 		
 		if(! iterator.hasNext()) {
-			iteratorElementMap.put(iterator, null);
 			return null;
 		}
 		
 		final E element = iterator.next();
 		readElements++;
 		
-		iteratorElementMap.put(iterator, element);
-		
 		return element;
 	}
 
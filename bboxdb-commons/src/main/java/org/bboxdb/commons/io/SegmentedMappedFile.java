@@ -0,0 +1,266 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.commons.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read only memory mapped file, which can be larger than 2 GB. The file is 
+ * mapped in several segments, all positions are absolute long values. Reads 
+ * that cross a segment border are assembled from both segments.
+ * 
+ * All read methods work on absolute positions and don't change the state of 
+ * the mapped buffers. Primitive values that are located in one segment are 
+ * read without allocating a buffer view.
+ */
+public class SegmentedMappedFile implements Closeable {
+
+	/**
+	 * The mapped segments
+	 */
+	private final MappedByteBuffer[] segments;
+	
+	/**
+	 * The size of one segment
+	 */
+	private final long segmentSize;
+	
+	/**
+	 * The size of the file
+	 */
+	private final long size;
+	
+	/**
+	 * The default segment size (1 GB)
+	 */
+	public final static long DEFAULT_SEGMENT_SIZE = 1L << 30;
+
+	public SegmentedMappedFile(final FileChannel fileChannel) throws IOException {
+		this(fileChannel, DEFAULT_SEGMENT_SIZE);
+	}
+	
+	public SegmentedMappedFile(final FileChannel fileChannel, final long segmentSize) throws IOException {
+		
+		if(segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+		}
+		
+		this.segmentSize = segmentSize;
+		this.size = fileChannel.size();
+		
+		final int numberOfSegments = (int) ((size + segmentSize - 1) / segmentSize);
+		this.segments = new MappedByteBuffer[numberOfSegments];
+		
+		for(int i = 0; i < numberOfSegments; i++) {
+			final long start = i * segmentSize;
+			final long length = Math.min(segmentSize, size - start);
+			segments[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, start, length);
+			segments[i].order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		}
+	}
+	
+	/**
+	 * Get the size of the mapped file
+	 * @return
+	 */
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * Get the number of segments
+	 * @return
+	 */
+	public int getNumberOfSegments() {
+		return segments.length;
+	}
+	
+	/**
+	 * Read one byte
+	 * @param position
+	 * @return
+	 */
+	public byte get(final long position) {
+		checkRange(position, 1);
+		final int segment = (int) (position / segmentSize);
+		final int offset = (int) (position % segmentSize);
+		return segments[segment].get(offset);
+	}
+	
+	/**
+	 * Read a short value
+	 * @param position
+	 * @return
+	 */
+	public short getShort(final long position) {
+		checkRange(position, DataEncoderHelper.SHORT_BYTES);
+		final int segment = (int) (position / segmentSize);
+		final int offset = (int) (position % segmentSize);
+		
+		if(offset + DataEncoderHelper.SHORT_BYTES <= segments[segment].capacity()) {
+			return segments[segment].getShort(offset);
+		}
+		
+		final ByteBuffer buffer = slice(position, DataEncoderHelper.SHORT_BYTES);
+		return buffer.getShort(buffer.position());
+	}
+	
+	/**
+	 * Read a int value
+	 * @param position
+	 * @return
+	 */
+	public int getInt(final long position) {
+		checkRange(position, DataEncoderHelper.INT_BYTES);
+		final int segment = (int) (position / segmentSize);
+		final int offset = (int) (position % segmentSize);
+		
+		if(offset + DataEncoderHelper.INT_BYTES <= segments[segment].capacity()) {
+			return segments[segment].getInt(offset);
+		}
+		
+		final ByteBuffer buffer = slice(position, DataEncoderHelper.INT_BYTES);
+		return buffer.getInt(buffer.position());
+	}
+	
+	/**
+	 * Read a long value
+	 * @param position
+	 * @return
+	 */
+	public long getLong(final long position) {
+		checkRange(position, DataEncoderHelper.LONG_BYTES);
+		final int segment = (int) (position / segmentSize);
+		final int offset = (int) (position % segmentSize);
+		
+		if(offset + DataEncoderHelper.LONG_BYTES <= segments[segment].capacity()) {
+			return segments[segment].getLong(offset);
+		}
+		
+		final ByteBuffer buffer = slice(position, DataEncoderHelper.LONG_BYTES);
+		return buffer.getLong(buffer.position());
+	}
+	
+	/**
+	 * Read a double value
+	 * @param position
+	 * @return
+	 */
+	public double getDouble(final long position) {
+		checkRange(position, DataEncoderHelper.DOUBLE_BYTES);
+		final int segment = (int) (position / segmentSize);
+		final int offset = (int) (position % segmentSize);
+		
+		if(offset + DataEncoderHelper.DOUBLE_BYTES <= segments[segment].capacity()) {
+			return segments[segment].getDouble(offset);
+		}
+		
+		final ByteBuffer buffer = slice(position, DataEncoderHelper.DOUBLE_BYTES);
+		return buffer.getDouble(buffer.position());
+	}
+	
+	/**
+	 * Copy bytes into the given array
+	 * @param position
+	 * @param destination
+	 * @param offset
+	 * @param length
+	 */
+	public void get(final long position, final byte[] destination, final int offset, final int length) {
+		checkRange(position, length);
+		
+		long currentPosition = position;
+		int copied = 0;
+		
+		while(copied < length) {
+			final int segment = (int) (currentPosition / segmentSize);
+			final int segmentOffset = (int) (currentPosition % segmentSize);
+			final int bytesToCopy = Math.min(length - copied, segments[segment].capacity() - segmentOffset);
+			
+			final ByteBuffer view = segments[segment].duplicate();
+			view.position(segmentOffset);
+			view.get(destination, offset + copied, bytesToCopy);
+			
+			copied = copied + bytesToCopy;
+			currentPosition = currentPosition + bytesToCopy;
+		}
+	}
+	
+	/**
+	 * Get a buffer for the given region. If the region is located in one segment, 
+	 * a view on the mapped memory is returned. Otherwise, the bytes are copied. 
+	 * 
+	 * The returned buffer uses the application byte order, the position of the 
+	 * buffer is the start of the region.
+	 * 
+	 * @param position
+	 * @param length
+	 * @return
+	 */
+	public ByteBuffer slice(final long position, final int length) {
+		checkRange(position, length);
+		
+		if(length == 0) {
+			return ByteBuffer.allocate(0).order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		}
+
+		final int segment = (int) (position / segmentSize);
+		final int offset = (int) (position % segmentSize);
+		
+		if(offset + length <= segments[segment].capacity()) {
+			final ByteBuffer view = segments[segment].duplicate();
+			view.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+			view.limit(offset + length);
+			view.position(offset);
+			return view;
+		}
+		
+		final byte[] bytes = new byte[length];
+		get(position, bytes, 0, length);
+		final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		buffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		return buffer;
+	}
+
+	/**
+	 * Check the given region
+	 * @param position
+	 * @param length
+	 */
+	private void checkRange(final long position, final int length) {
+		if(position < 0 || length < 0 || position + length > size) {
+			throw new IndexOutOfBoundsException("Unable to read " + length + " bytes at position " 
+					+ position + " (size " + size + ")");
+		}
+	}
+
+	/**
+	 * Unmap the memory
+	 */
+	@Override
+	public void close() {
+		for(int i = 0; i < segments.length; i++) {
+			UnsafeMemoryHelper.unmapMemory(segments[i]);
+			segments[i] = null;
+		}
+	}
+}
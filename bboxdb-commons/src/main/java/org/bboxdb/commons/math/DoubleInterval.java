@@ -176,6 +176,22 @@ public class DoubleInterval implements Comparable<DoubleInterval> {
 	 * @return
 	 */
 	public boolean overlapsWith(final double number, final boolean numberIncluded) {
+		return overlapsWith(begin, end, beginIncluded, endIncluded, number, numberIncluded);
+	}
+	
+	/**
+	 * Is the number covered by the given interval? (allocation free version)
+	 * @param begin
+	 * @param end
+	 * @param beginIncluded
+	 * @param endIncluded
+	 * @param number
+	 * @param numberIncluded
+	 * @return
+	 */
+	public static boolean overlapsWith(final double begin, final double end, 
+			final boolean beginIncluded, final boolean endIncluded, 
+			final double number, final boolean numberIncluded) {
 		
 		boolean betweenBeginAndEnd = (number >= begin && number <= end);
 		
@@ -243,24 +259,42 @@ public class DoubleInterval implements Comparable<DoubleInterval> {
 	 * @return
 	 */
 	public boolean isOverlappingWith(final DoubleInterval otherInterval) {
+		return isOverlapping(begin, end, beginIncluded, endIncluded, 
+				otherInterval.begin, otherInterval.end, 
+				otherInterval.beginIncluded, otherInterval.endIncluded);
+	}
+	
+	/**
+	 * Does the first interval overlap with the second interval? (allocation free version
+	 * of isOverlappingWith, see the cases above)
+	 * 
+	 * @return
+	 */
+	public static boolean isOverlapping(final double begin1, final double end1, 
+			final boolean beginIncluded1, final boolean endIncluded1, 
+			final double begin2, final double end2, 
+			final boolean beginIncluded2, final boolean endIncluded2) {
 		
 		// Case 1 and 6
-		if(overlapsWith(otherInterval.getBegin(), otherInterval.isBeginIncluded())) {
+		if(overlapsWith(begin1, end1, beginIncluded1, endIncluded1, begin2, beginIncluded2)) {
 			return true;
 		}
 		
 		// Case 2 and 6
-		if(overlapsWith(otherInterval.getEnd(), otherInterval.isEndIncluded())) {
+		if(overlapsWith(begin1, end1, beginIncluded1, endIncluded1, end2, endIncluded2)) {
 			return true;
 		}
 		
 		// Case 3 and 4
-		if(otherInterval.overlapsWith(begin, beginIncluded)) {
+		if(overlapsWith(begin2, end2, beginIncluded2, endIncluded2, begin1, beginIncluded1)) {
 			return true;
 		}
 		
 		// Case 5:
-		if(otherInterval.equals(this)) {
+		if(Double.doubleToLongBits(begin1) == Double.doubleToLongBits(begin2) 
+				&& Double.doubleToLongBits(end1) == Double.doubleToLongBits(end2)
+				&& beginIncluded1 == beginIncluded2 
+				&& endIncluded1 == endIncluded2) {
 			return true;
 		}
 
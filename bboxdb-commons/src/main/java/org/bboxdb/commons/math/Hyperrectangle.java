@@ -17,6 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.commons.math;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -28,6 +29,13 @@ import org.bboxdb.commons.io.DataEncoderHelper;
 
 public class Hyperrectangle implements Comparable<Hyperrectangle> {
 
+	/**
+	 * Shared point included arrays for closed boxes (all points included), indexed by
+	 * the array length. The arrays are never modified after the construction.
+	 * (needs to be initialized before FULL_SPACE)
+	 */
+	private final static boolean[][] CLOSED_POINT_INCLUDED = createClosedPointIncluded(16);
+
 	/**
 	 * This special bounding box covers every space completely
 	 */
@@ -53,6 +61,11 @@ public class Hyperrectangle implements Comparable<Hyperrectangle> {
 	 */
 	private final boolean[] pointIncluded;
 
+	/**
+	 * Are all points included
+	 */
+	private final boolean closed;
+
 	/**
 	 * Create from Double
 	 * @param args
@@ -62,12 +75,12 @@ public class Hyperrectangle implements Comparable<Hyperrectangle> {
 		assert(args.length % 2 == 0) : "Even number of arguments expected";
 
 		this.boundingBox = new double[args.length];
-		this.pointIncluded = new boolean[args.length];
+		this.pointIncluded = getClosedPointIncluded(args.length);
+		this.closed = true;
 
 		for(int i = 0; i < args.length; i++) {
 
 			boundingBox[i] = args[i];
-			pointIncluded[i] = true;
 
 			if(i % 2 == 1 && boundingBox[i - 1] > boundingBox[i]) {
 				throw new IllegalArgumentException(boundingBox[i - 1]  +
@@ -87,11 +100,8 @@ public class Hyperrectangle implements Comparable<Hyperrectangle> {
 		}
 
 		this.boundingBox = values;
-		this.pointIncluded = new boolean[values.length];
-
-		for(int i = 0; i < values.length; i++) {
-			pointIncluded[i] = true;
-		}
+		this.pointIncluded = getClosedPointIncluded(values.length);
+		this.closed = true;
 	}
 
 	/**
@@ -106,6 +116,45 @@ public class Hyperrectangle implements Comparable<Hyperrectangle> {
 		this.pointIncluded = new boolean[elements];
 
 		intervalsToArray(values);
+
+		boolean allPointsIncluded = true;
+
+		for(int i = 0; i < elements; i++) {
+			allPointsIncluded = allPointsIncluded && pointIncluded[i];
+		}
+
+		this.closed = allPointsIncluded;
+	}
+
+	/**
+	 * Create the shared point included arrays for closed boxes
+	 * @param maxLength
+	 * @return
+	 */
+	private static boolean[][] createClosedPointIncluded(final int maxLength) {
+		final boolean[][] result = new boolean[maxLength + 1][];
+
+		for(int length = 0; length <= maxLength; length++) {
+			result[length] = new boolean[length];
+			Arrays.fill(result[length], true);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get a point included array for a closed box
+	 * @param length
+	 * @return
+	 */
+	private static boolean[] getClosedPointIncluded(final int length) {
+		if(length < CLOSED_POINT_INCLUDED.length) {
+			return CLOSED_POINT_INCLUDED[length];
+		}
+
+		final boolean[] result = new boolean[length];
+		Arrays.fill(result, true);
+		return result;
 	}
 
 	/**
@@ -253,23 +302,82 @@ public class Hyperrectangle implements Comparable<Hyperrectangle> {
 			return true;
 		}
 
-		// Both boxes are equal (Case 5)
-		if(equals(otherBoundingBox)) {
-			return true;
-		}
-
 		// Dimensions are not equal
 		if(otherBoundingBox.getDimension() != getDimension()) {
 			return false;
 		}
 
+		// Both boxes are closed
+		if(closed && otherBoundingBox.closed) {
+			return intersects(boundingBox, 0, otherBoundingBox.boundingBox, 0, getDimension());
+		}
+
+		final double[] otherBox = otherBoundingBox.boundingBox;
+		final boolean[] otherPointIncluded = otherBoundingBox.pointIncluded;
+
 		// Check the overlapping in each dimension d
 		for(int d = 0; d < getDimension(); d++) {
+			final int low = 2 * d;
+			final int high = 2 * d + 1;
 
-			final DoubleInterval ourInterval = getIntervalForDimension(d);
-			final DoubleInterval otherInterval = otherBoundingBox.getIntervalForDimension(d);
+			final boolean overlapping = DoubleInterval.isOverlapping(
+					boundingBox[low], boundingBox[high], pointIncluded[low], pointIncluded[high],
+					otherBox[low], otherBox[high], otherPointIncluded[low], otherPointIncluded[high]);
 
-			if(! ourInterval.isOverlappingWith(otherInterval)) {
+			if(! overlapping) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tests if two closed boxes, which are stored as flat arrays
+	 * (low and high coordinate for each dimension), share some space
+	 *
+	 * @param box1
+	 * @param offset1 - the position of the first coordinate of box 1
+	 * @param box2
+	 * @param offset2 - the position of the first coordinate of box 2
+	 * @param dimension
+	 * @return
+	 */
+	public static boolean intersects(final double[] box1, final int offset1,
+			final double[] box2, final int offset2, final int dimension) {
+
+		for(int d = 0; d < dimension; d++) {
+			final int position1 = offset1 + 2 * d;
+			final int position2 = offset2 + 2 * d;
+
+			if(box1[position1] > box2[position2 + 1] || box2[position2] > box1[position1 + 1]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Tests if two closed boxes, which are stored as flat double values
+	 * (low and high coordinate for each dimension), share some space.
+	 * Uses absolute reads and does not change the position of the buffers.
+	 *
+	 * @param box1
+	 * @param offset1 - the index of the first coordinate of box 1
+	 * @param box2
+	 * @param offset2 - the index of the first coordinate of box 2
+	 * @param dimension
+	 * @return
+	 */
+	public static boolean intersects(final DoubleBuffer box1, final int offset1,
+			final DoubleBuffer box2, final int offset2, final int dimension) {
+
+		for(int d = 0; d < dimension; d++) {
+			final int position1 = offset1 + 2 * d;
+			final int position2 = offset2 + 2 * d;
+
+			if(box1.get(position1) > box2.get(position2 + 1) || box2.get(position2) > box1.get(position1 + 1)) {
 				return false;
 			}
 		}
@@ -602,11 +710,19 @@ public class Hyperrectangle implements Comparable<Hyperrectangle> {
 			return boundingBoxes.get(0);
 		}
 
-		final int dimensions = boundingBoxes.get(0).getDimension();
+		// Boxes without a dimension (e.g., the full space) are ignored
+		final int dimensions = boundingBoxes.stream()
+				.mapToInt(b -> b.getDimension())
+				.max()
+				.getAsInt();
+
+		if(dimensions == 0) {
+			return Hyperrectangle.FULL_SPACE;
+		}
 
 		if(enableChecks) {
 			final Optional<Hyperrectangle> result = boundingBoxes.stream()
-					.filter(b -> b.getDimension() != dimensions)
+					.filter(b -> b.getDimension() != 0 && b.getDimension() != dimensions)
 					.findAny();
 
 			if(result.isPresent()) {
@@ -628,7 +744,7 @@ public class Hyperrectangle implements Comparable<Hyperrectangle> {
 
 			for(final Hyperrectangle currentBox : boundingBoxes) {
 
-				if(currentBox == FULL_SPACE) {
+				if(currentBox.getDimension() == 0) {
 					continue;
 				}
 
@@ -753,6 +869,25 @@ public class Hyperrectangle implements Comparable<Hyperrectangle> {
 
 		throwExceptionIfDimensionNotMatch(otherBox);
 
+		// Both boxes are closed, the intersection is closed
+		if(closed && otherBox.closed) {
+			final double[] intersection = new double[boundingBox.length];
+
+			for(int d = 0; d < getDimension(); d++) {
+				final double low = Math.max(boundingBox[2 * d], otherBox.boundingBox[2 * d]);
+				final double high = Math.min(boundingBox[2 * d + 1], otherBox.boundingBox[2 * d + 1]);
+
+				if(low > high) {
+					return FULL_SPACE;
+				}
+
+				intersection[2 * d] = low;
+				intersection[2 * d + 1] = high;
+			}
+
+			return new Hyperrectangle(intersection);
+		}
+
 		final List<DoubleInterval> intervalList = new ArrayList<DoubleInterval>();
 
 		// Process dimensions
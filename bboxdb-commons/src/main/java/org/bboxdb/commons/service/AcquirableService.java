@@ -33,28 +33,38 @@ public class AcquirableService extends ServiceState implements AcquirableResourc
 		this.usageCounter = new AtomicInteger(0);
 	}
 
+	/**
+	 * Acquire the resource. The counter is incremented before the state is checked,
+	 * so a concurrent shutdown waits for this usage or the acquire fails. No lock is
+	 * taken on this path.
+	 */
 	@Override
 	public boolean acquire() {
 		
+		usageCounter.incrementAndGet();
+		
 		if(! isInRunningState()) {
+			release();
 			return false;
 		}
 		
-		synchronized (usageCounter) {
-			usageCounter.incrementAndGet();
-			usageCounter.notifyAll();
-		}
-		
 		return true;
 	}
 
+	/**
+	 * Release the resource. Waiting threads are only notified when the 
+	 * resource becomes unused.
+	 */
 	@Override
 	public void release() {
-		assert (usageCounter.get() > 0) : "Usage counter is 0";
+		final int usages = usageCounter.decrementAndGet();
 		
-		synchronized (usageCounter) {
-			usageCounter.decrementAndGet();
-			usageCounter.notifyAll();
+		assert (usages >= 0) : "Usage counter is negative";
+		
+		if(usages == 0) {
+			synchronized (usageCounter) {
+				usageCounter.notifyAll();
+			}
 		}
 	}
 	
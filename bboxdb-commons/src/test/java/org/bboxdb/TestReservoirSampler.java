@@ -0,0 +1,71 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb;
+
+import java.util.Random;
+
+import org.bboxdb.commons.ReservoirSampler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestReservoirSampler {
+
+	/**
+	 * Test a stream smaller than the capacity
+	 */
+	@Test(timeout=60000)
+	public void testSmallStream() {
+		final ReservoirSampler<Integer> sampler = new ReservoirSampler<>(10);
+		
+		for(int i = 0; i < 5; i++) {
+			sampler.add(i);
+		}
+		
+		Assert.assertEquals(5, sampler.getSamples().size());
+		Assert.assertEquals(5, sampler.getSeenElements());
+		Assert.assertEquals(10, sampler.getCapacity());
+		Assert.assertTrue(sampler.toString().length() > 10);
+	}
+	
+	/**
+	 * Test the sample distribution of a large stream
+	 */
+	@Test(timeout=60000)
+	public void testLargeStream() {
+		final ReservoirSampler<Integer> sampler = new ReservoirSampler<>(1000, new Random(42));
+		
+		for(int i = 0; i < 100000; i++) {
+			sampler.add(i);
+		}
+		
+		Assert.assertEquals(1000, sampler.getSamples().size());
+		Assert.assertEquals(100000, sampler.getSeenElements());
+		
+		// The samples are spread over the whole stream
+		final long samplesInFirstHalf = sampler.getSamples().stream().filter(i -> i < 50000).count();
+		Assert.assertEquals(500, samplesInFirstHalf, 100);
+	}
+	
+	/**
+	 * Test an invalid capacity
+	 */
+	@Test(timeout=60000, expected=IllegalArgumentException.class)
+	public void testInvalidCapacity() {
+		new ReservoirSampler<>(0);
+	}
+}
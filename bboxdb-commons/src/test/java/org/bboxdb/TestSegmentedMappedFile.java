@@ -0,0 +1,157 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.commons.io.SegmentedMappedFile;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSegmentedMappedFile {
+	
+	/**
+	 * The file for the tests
+	 */
+	private File file;
+	
+	/**
+	 * The number of long values in the file
+	 */
+	private final static int VALUES = 1000;
+
+	@Before
+	public void before() throws IOException {
+		file = File.createTempFile("segmented", ".bin");
+		
+		try(final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			// Move all long values one byte, so that some values cross segment borders
+			randomAccessFile.write(42);
+			
+			for(long i = 0; i < VALUES; i++) {
+				randomAccessFile.write(DataEncoderHelper.longToByteBuffer(i).array());
+			}
+		}
+	}
+	
+	@After
+	public void after() {
+		file.delete();
+	}
+	
+	@Test(timeout=60000)
+	public void testSingleSegment() throws IOException {
+		try(
+				final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+				final SegmentedMappedFile memory = new SegmentedMappedFile(randomAccessFile.getChannel());
+			) {
+			
+			Assert.assertEquals(1, memory.getNumberOfSegments());
+			Assert.assertEquals(file.length(), memory.size());
+			checkContent(memory);
+		}
+	}
+	
+	@Test(timeout=60000)
+	public void testMultipleSegments() throws IOException {
+		try(
+				final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+				final SegmentedMappedFile memory = new SegmentedMappedFile(randomAccessFile.getChannel(), 100);
+			) {
+			
+			Assert.assertEquals(81, memory.getNumberOfSegments());
+			Assert.assertEquals(file.length(), memory.size());
+			checkContent(memory);
+			
+			// Slice across a segment border
+			final ByteBuffer buffer = memory.slice(97, 8 * DataEncoderHelper.LONG_BYTES);
+			for(long i = 12; i < 20; i++) {
+				Assert.assertEquals(i, buffer.getLong());
+			}
+		}
+	}
+	
+	@Test(timeout=60000)
+	public void testReadDouble() throws IOException {
+		final File doubleFile = File.createTempFile("segmented", ".bin");
+		doubleFile.deleteOnExit();
+		
+		try(final RandomAccessFile randomAccessFile = new RandomAccessFile(doubleFile, "rw")) {
+			randomAccessFile.write(42);
+			
+			for(int i = 0; i < VALUES; i++) {
+				randomAccessFile.write(DataEncoderHelper.doubleToByteBuffer(i * 1.5).array());
+			}
+		}
+		
+		try(
+				final RandomAccessFile randomAccessFile = new RandomAccessFile(doubleFile, "r");
+				final SegmentedMappedFile memory = new SegmentedMappedFile(randomAccessFile.getChannel(), 100);
+			) {
+			
+			for(int i = 0; i < VALUES; i++) {
+				final long position = 1 + i * DataEncoderHelper.DOUBLE_BYTES;
+				Assert.assertEquals(i * 1.5, memory.getDouble(position), 0.0001);
+			}
+		}
+		
+		doubleFile.delete();
+	}
+	
+	@Test(timeout=60000, expected=IndexOutOfBoundsException.class)
+	public void testReadBehindEnd() throws IOException {
+		try(
+				final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+				final SegmentedMappedFile memory = new SegmentedMappedFile(randomAccessFile.getChannel(), 100);
+			) {
+			
+			memory.getLong(memory.size() - 4);
+		}
+	}
+	
+	@Test(timeout=60000, expected=IllegalArgumentException.class)
+	public void testInvalidSegmentSize() throws IOException {
+		try(final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			new SegmentedMappedFile(randomAccessFile.getChannel(), 0);
+		}
+	}
+
+	/**
+	 * Check the content of the file
+	 * @param memory
+	 */
+	private void checkContent(final SegmentedMappedFile memory) {
+		Assert.assertEquals(42, memory.get(0));
+		
+		for(long i = 0; i < VALUES; i++) {
+			final long position = 1 + i * DataEncoderHelper.LONG_BYTES;
+			Assert.assertEquals(i, memory.getLong(position));
+			Assert.assertEquals(i, memory.slice(position, DataEncoderHelper.LONG_BYTES).getLong());
+		}
+		
+		final byte[] bytes = new byte[(int) memory.size()];
+		memory.get(0, bytes, 0, bytes.length);
+		Assert.assertEquals(42, bytes[0]);
+	}
+}
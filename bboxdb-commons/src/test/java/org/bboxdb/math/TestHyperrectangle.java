@@ -17,6 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.math;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -340,6 +341,19 @@ public class TestHyperrectangle {
 		Assert.assertEquals(Hyperrectangle.FULL_SPACE, resultBox2);
 	}
 
+	/**
+	 * Test merge on array with the full space in front
+	 */
+	@Test(timeout=60000)
+	public void testMergeBoxes5() {
+		final Hyperrectangle boundingBox1 = new Hyperrectangle(1d, 2d, 1d, 1d);
+		final Hyperrectangle boundingBox2 = new Hyperrectangle(1d, 1.1d, 1d, 4d);
+		final Hyperrectangle resultBox = Hyperrectangle.getCoveringBox(
+				new ArrayList<>(Arrays.asList(Hyperrectangle.FULL_SPACE, boundingBox1, boundingBox2)));
+
+		Assert.assertArrayEquals(new double[] {1d, 2d, 1d, 4f}, resultBox.toDoubleArray(), EQUALS_DELTA);
+	}
+
 	/**
 	 * Test the comparable interface of the bounding box
 	 */
@@ -688,4 +702,47 @@ public class TestHyperrectangle {
 		Assert.assertEquals(new Hyperrectangle(-20.0d, 30.0d, -250d, 250d, -320.0d, 230.0d), bb3.enlargeByFactor(5));
 	}
 
+
+	/**
+	 * Test the intersection of flat box arrays
+	 */
+	@Test(timeout=60000)
+	public void testFlatArrayIntersects() {
+		// Two boxes in one array
+		final double[] boxes = {0, 10, 0, 10, 10, 20, 5, 6};
+		final double[] otherBoxes = {11, 12, 5, 6};
+
+		Assert.assertTrue(Hyperrectangle.intersects(boxes, 0, boxes, 4, 2));
+		Assert.assertFalse(Hyperrectangle.intersects(boxes, 0, otherBoxes, 0, 2));
+		Assert.assertTrue(Hyperrectangle.intersects(boxes, 4, otherBoxes, 0, 2));
+
+		final DoubleBuffer buffer1 = DoubleBuffer.wrap(boxes);
+		final DoubleBuffer buffer2 = DoubleBuffer.wrap(otherBoxes);
+		Assert.assertTrue(Hyperrectangle.intersects(buffer1, 0, buffer1, 4, 2));
+		Assert.assertFalse(Hyperrectangle.intersects(buffer1, 0, buffer2, 0, 2));
+		Assert.assertTrue(Hyperrectangle.intersects(buffer1, 4, buffer2, 0, 2));
+		Assert.assertEquals(0, buffer1.position());
+	}
+
+	/**
+	 * Test the intersection of open and closed boxes
+	 */
+	@Test(timeout=60000)
+	public void testIntersectsOpenAndClosed() {
+		final Hyperrectangle closedBox = new Hyperrectangle(0d, 1d, 0d, 1d);
+		final Hyperrectangle touchingBox = new Hyperrectangle(1d, 2d, 0d, 1d);
+		final Hyperrectangle openBox = new Hyperrectangle(Arrays.asList(
+				new DoubleInterval(1, 2, false, true), new DoubleInterval(0, 1)));
+
+		Assert.assertTrue(closedBox.intersects(touchingBox));
+		Assert.assertTrue(touchingBox.intersects(closedBox));
+		Assert.assertFalse(closedBox.intersects(openBox));
+		Assert.assertFalse(openBox.intersects(closedBox));
+		Assert.assertTrue(openBox.intersects(openBox));
+		Assert.assertTrue(openBox.intersects(touchingBox));
+
+		Assert.assertEquals(new Hyperrectangle(1d, 1d, 0d, 1d), closedBox.getIntersection(touchingBox));
+		Assert.assertEquals(Hyperrectangle.FULL_SPACE, closedBox.getIntersection(new Hyperrectangle(2d, 3d, 0d, 1d)));
+	}
+
 }
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.experiments.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bboxdb.commons.math.DoubleInterval;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure the time and the allocation per operation of the hyperrectangle 
+ * intersection, covering and decoding methods.
+ * 
+ * The benchmark is only compiled with the jmh profile (mvn -P jmh package). The 
+ * main method runs the benchmark with the GC profiler, the allocation per operation 
+ * is reported as gc.alloc.rate.norm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HyperrectangleBenchmark {
+
+	/**
+	 * The amount of boxes
+	 */
+	public final static int BOXES = 1024;
+	
+	/**
+	 * The amount of boxes for the covering box of a list
+	 */
+	public final static int COVERING_BOXES = 100_000;
+	
+	/**
+	 * The boxes (closed)
+	 */
+	private Hyperrectangle[] boxes;
+	
+	/**
+	 * The boxes with a open begin in the first dimension
+	 */
+	private Hyperrectangle[] openBoxes;
+	
+	/**
+	 * The boxes as one flat array
+	 */
+	private double[] flatBoxes;
+	
+	/**
+	 * The boxes as byte arrays
+	 */
+	private byte[][] encodedBoxes;
+	
+	/**
+	 * The boxes for the covering box
+	 */
+	private List<Hyperrectangle> coveringBoxes;
+	
+	/**
+	 * The current box
+	 */
+	private int position;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		boxes = new Hyperrectangle[BOXES];
+		openBoxes = new Hyperrectangle[BOXES];
+		flatBoxes = new double[BOXES * 6];
+		encodedBoxes = new byte[BOXES][];
+		
+		for(int i = 0; i < BOXES; i++) {
+			final Hyperrectangle box = createRandomBox();
+			boxes[i] = box;
+			encodedBoxes[i] = box.toByteArray();
+			System.arraycopy(box.toDoubleArray(), 0, flatBoxes, i * 6, 6);
+			
+			final List<DoubleInterval> intervals = new ArrayList<>();
+			intervals.add(new DoubleInterval(box.getCoordinateLow(0), box.getCoordinateHigh(0), false, true));
+			intervals.add(box.getIntervalForDimension(1));
+			intervals.add(box.getIntervalForDimension(2));
+			openBoxes[i] = new Hyperrectangle(intervals);
+		}
+		
+		coveringBoxes = new ArrayList<>(COVERING_BOXES);
+		
+		for(int i = 0; i < COVERING_BOXES; i++) {
+			coveringBoxes.add(createRandomBox());
+		}
+	}
+	
+	/**
+	 * Create a random 3 dimensional box
+	 * @return
+	 */
+	private static Hyperrectangle createRandomBox() {
+		final double d1 = ThreadLocalRandom.current().nextDouble();
+		final double d2 = ThreadLocalRandom.current().nextDouble();
+		final double d3 = ThreadLocalRandom.current().nextDouble();
+		
+		return new Hyperrectangle(d1, d1 + 0.1, d2, d2 + 0.1, d3, d3 + 0.1);
+	}
+	
+	/**
+	 * Get the next box position
+	 * @return
+	 */
+	private int nextPosition() {
+		position = (position + 1) & (BOXES - 1);
+		return position;
+	}
+
+	/**
+	 * Intersect two closed boxes
+	 */
+	@Benchmark
+	public boolean intersects() {
+		final int box = nextPosition();
+		return boxes[box].intersects(boxes[(box + 1) & (BOXES - 1)]);
+	}
+	
+	/**
+	 * Intersect a closed and a open box (interval based comparison)
+	 */
+	@Benchmark
+	public boolean intersectsOpen() {
+		final int box = nextPosition();
+		return boxes[box].intersects(openBoxes[(box + 1) & (BOXES - 1)]);
+	}
+	
+	/**
+	 * Intersect two boxes in the flat array
+	 */
+	@Benchmark
+	public boolean intersectsFlatArray() {
+		final int box = nextPosition();
+		return Hyperrectangle.intersects(flatBoxes, box * 6, flatBoxes, ((box + 1) & (BOXES - 1)) * 6, 3);
+	}
+	
+	/**
+	 * Calculate the intersection of two boxes
+	 */
+	@Benchmark
+	public Hyperrectangle getIntersection() {
+		final int box = nextPosition();
+		return boxes[box].getIntersection(boxes[(box + 1) & (BOXES - 1)]);
+	}
+	
+	/**
+	 * Calculate the covering box of two boxes
+	 */
+	@Benchmark
+	public Hyperrectangle getCoveringBox() {
+		final int box = nextPosition();
+		return Hyperrectangle.getCoveringBox(boxes[box], boxes[(box + 1) & (BOXES - 1)]);
+	}
+	
+	/**
+	 * Calculate the covering box of a list of boxes
+	 */
+	@Benchmark
+	public Hyperrectangle getCoveringBoxList() {
+		return Hyperrectangle.getCoveringBox(coveringBoxes);
+	}
+	
+	/**
+	 * Decode a box and intersect it (the tuple decoding path)
+	 */
+	@Benchmark
+	public void decodeAndIntersect(final Blackhole blackhole) {
+		final int box = nextPosition();
+		final Hyperrectangle decodedBox = Hyperrectangle.fromByteArray(encodedBoxes[box]);
+		blackhole.consume(decodedBox.intersects(boxes[(box + 1) & (BOXES - 1)]));
+	}
+
+	/**
+	 * Main * Main * Main
+	 * @throws RunnerException 
+	 */
+	public static void main(final String[] args) throws RunnerException {
+		final Options options = new OptionsBuilder()
+				.include(HyperrectangleBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build();
+		
+		new Runner(options).run();
+	}
+}
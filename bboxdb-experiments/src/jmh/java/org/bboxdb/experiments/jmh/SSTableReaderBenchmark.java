@@ -0,0 +1,197 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.experiments.jmh;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.bboxdb.commons.io.FileUtil;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableCreator;
+import org.bboxdb.storage.sstable.SSTableHelper;
+import org.bboxdb.storage.sstable.SSTableWriter;
+import org.bboxdb.storage.sstable.reader.SSTableFacade;
+import org.bboxdb.storage.sstable.reader.SSTableKeyIndexReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measure the throughput of concurrent point and region reads on one SSTable.
+ * 
+ * The benchmark is only compiled with the jmh profile (mvn -P jmh package). The 
+ * main method runs the benchmark with 1 to 32 reader threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SSTableReaderBenchmark {
+
+	/**
+	 * The amount of tuples in the SSTable
+	 */
+	public final static int TUPLES = 100000;
+	
+	/**
+	 * The size of the grid for the bounding boxes of the tuples
+	 */
+	public final static int GRID_SIZE = 1000;
+	
+	/**
+	 * The thread counts to measure
+	 */
+	public final static int[] THREADS = {1, 2, 4, 8, 16, 32};
+	
+	/**
+	 * The name of the table
+	 */
+	private final static TupleStoreName TABLE_NAME = new TupleStoreName("benchmark_sstablereader");
+	
+	/**
+	 * The storage directory
+	 */
+	private File storageDirectory;
+	
+	/**
+	 * The SSTable
+	 */
+	private SSTableFacade facade;
+	
+	/**
+	 * The key index reader
+	 */
+	private SSTableKeyIndexReader keyIndexReader;
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		storageDirectory = Files.createTempDirectory("bboxdb-benchmark").toFile();
+		final String directory = storageDirectory.getAbsolutePath();
+		new File(SSTableHelper.getSSTableDir(directory, TABLE_NAME)).mkdirs();
+		
+		final List<Tuple> tuples = new ArrayList<>(TUPLES);
+		final byte[] data = new byte[100];
+		
+		for(int i = 0; i < TUPLES; i++) {
+			final double x = i % GRID_SIZE;
+			final double y = i / GRID_SIZE;
+			final Hyperrectangle boundingBox = new Hyperrectangle(x, x + 0.5, y, y + 0.5);
+			tuples.add(new Tuple(getKey(i), boundingBox, data));
+		}
+		
+		final SSTableWriter writer = new SSTableWriter(directory, TABLE_NAME, 1, TUPLES, 
+				SSTableCreator.MEMTABLE);
+		
+		writer.open();
+		writer.addTuples(tuples);
+		writer.close();
+		
+		facade = new SSTableFacade(directory, TABLE_NAME, 1, 0);
+		facade.init();
+		facade.acquire();
+		keyIndexReader = facade.getSsTableKeyIndexReader();
+	}
+	
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		facade.release();
+		facade.shutdown();
+		FileUtil.deleteRecursive(storageDirectory.toPath());
+	}
+
+	/**
+	 * Read a random tuple via the position in the key index
+	 */
+	@Benchmark
+	public void readTupleAtPosition(final Blackhole blackhole) throws Exception {
+		final int entry = ThreadLocalRandom.current().nextInt(TUPLES);
+		blackhole.consume(keyIndexReader.getTupleForIndexEntry(entry));
+	}
+	
+	/**
+	 * Read a random tuple by key (binary search on the key index)
+	 */
+	@Benchmark
+	public void readTupleByKey(final Blackhole blackhole) throws Exception {
+		final int tuple = ThreadLocalRandom.current().nextInt(TUPLES);
+		blackhole.consume(facade.get(getKey(tuple)));
+	}
+	
+	/**
+	 * Perform a small range query on the hot region of the table
+	 */
+	@Benchmark
+	public void readRegion(final Blackhole blackhole) {
+		final double x = ThreadLocalRandom.current().nextInt(10);
+		final double y = ThreadLocalRandom.current().nextInt(10);
+		final Hyperrectangle queryBox = new Hyperrectangle(x, x + 5, y, y + 5);
+		
+		final Iterator<Tuple> iterator = facade.getAllTuplesInBoundingBox(queryBox);
+		
+		while(iterator.hasNext()) {
+			blackhole.consume(iterator.next());
+		}
+	}
+	
+	/**
+	 * Get the key for the tuple number (keys are ordered)
+	 * @param tuple
+	 * @return
+	 */
+	private static String getKey(final int tuple) {
+		return String.format("key%08d", tuple);
+	}
+
+	/**
+	 * Main * Main * Main
+	 * @throws RunnerException 
+	 */
+	public static void main(final String[] args) throws RunnerException {
+		for(final int threads : THREADS) {
+			final Options options = new OptionsBuilder()
+					.include(SSTableReaderBenchmark.class.getSimpleName())
+					.threads(threads)
+					.build();
+			
+			new Runner(options).run();
+		}
+	}
+}
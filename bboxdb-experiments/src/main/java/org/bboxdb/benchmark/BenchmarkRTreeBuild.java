@@ -0,0 +1,177 @@
+package org.bboxdb.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeDirectoryNode;
+import org.bboxdb.storage.sstable.spatialindex.rtree.STRTreeBuilder;
+
+import com.google.common.base.Stopwatch;
+
+public class BenchmarkRTreeBuild {
+
+	/**
+	 * The amount of index entries
+	 */
+	private final static int ENTRIES = 500_000;
+
+	/**
+	 * The amount of queries per tree
+	 */
+	private final static int QUERIES = 1_000;
+
+	/**
+	 * The amount of iterations per builder
+	 */
+	private final static int ITERATIONS = 10;
+
+	public static void main(String[] args) {
+		final List<SpatialIndexEntry> entries = new ArrayList<>();
+
+		for(int i = 0; i < ENTRIES; i++) {
+			final double d1 = ThreadLocalRandom.current().nextDouble(0, 1000);
+			final double d2 = ThreadLocalRandom.current().nextDouble(0, 1000);
+
+			final Hyperrectangle hyperrectangle = new Hyperrectangle(d1, d1 + 1.0, d2, d2 + 1.0);
+			entries.add(new SpatialIndexEntry(hyperrectangle, i));
+		}
+
+		final List<Hyperrectangle> queries = new ArrayList<>();
+
+		for(int i = 0; i < QUERIES; i++) {
+			final double d1 = ThreadLocalRandom.current().nextDouble(0, 1000);
+			final double d2 = ThreadLocalRandom.current().nextDouble(0, 1000);
+			queries.add(new Hyperrectangle(d1, d1 + 10.0, d2, d2 + 10.0));
+		}
+
+		runBenchmark("RTreeBuilder", () -> new RTreeBuilder(), entries, queries);
+		runBenchmark("STRTreeBuilder", () -> new STRTreeBuilder(), entries, queries);
+	}
+
+	/**
+	 * Build the tree several times and print the build time, the node overlap
+	 * and the visited nodes per query
+	 *
+	 * @param name
+	 * @param builderSupplier
+	 * @param entries
+	 * @param queries
+	 */
+	private static void runBenchmark(final String name, final Supplier<RTreeBuilder> builderSupplier,
+			final List<SpatialIndexEntry> entries, final List<Hyperrectangle> queries) {
+
+		final List<Long> elapsedBenchmarks = new ArrayList<>();
+		RTreeBuilder builder = null;
+
+		for(int iter = 0; iter < ITERATIONS; iter++) {
+			final Stopwatch watch = Stopwatch.createStarted();
+
+			builder = builderSupplier.get();
+			builder.bulkInsert(entries);
+
+			// The packed builder creates the tree on first access
+			builder.getRootNode();
+
+			final long elapsed = watch.elapsed(TimeUnit.MILLISECONDS);
+			elapsedBenchmarks.add(elapsed);
+
+			System.out.format("%s: Iteartion %d, Elapsed: %d%n", name, iter, elapsed);
+		}
+
+		final long max = elapsedBenchmarks.stream().mapToLong(l -> l).max().orElse(0);
+		final long min = elapsedBenchmarks.stream().mapToLong(l -> l).min().orElse(0);
+		final double avg = elapsedBenchmarks.stream().mapToLong(l -> l).average().orElse(0);
+
+		System.out.format("%s: Build time Max %d, Min %d, Avg %f%n", name, max, min, avg);
+
+		final RTreeDirectoryNode rootNode = builder.getRootNode();
+		System.out.format("%s: Nodes %d, Overlap %f%n", name, countNodes(rootNode), calculateOverlap(rootNode));
+
+		final long visitedNodes = queries.stream()
+				.mapToLong(q -> countVisitedNodes(rootNode, q))
+				.sum();
+
+		System.out.format("%s: Visited nodes per query %f%n", name, (double) visitedNodes / queries.size());
+	}
+
+	/**
+	 * Count the nodes of the tree
+	 * @param rootNode
+	 * @return
+	 */
+	private static long countNodes(final RTreeDirectoryNode rootNode) {
+		long nodes = 0;
+		final Deque<RTreeDirectoryNode> nodesToProcess = new ArrayDeque<>();
+		nodesToProcess.push(rootNode);
+
+		while(! nodesToProcess.isEmpty()) {
+			final RTreeDirectoryNode node = nodesToProcess.pop();
+			nodes++;
+			node.getDirectoryNodeChilds().forEach(n -> nodesToProcess.push(n));
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Calculate the summed up volume of the pairwise intersections of sibling nodes
+	 * @param rootNode
+	 * @return
+	 */
+	private static double calculateOverlap(final RTreeDirectoryNode rootNode) {
+		double overlap = 0;
+		final Deque<RTreeDirectoryNode> nodesToProcess = new ArrayDeque<>();
+		nodesToProcess.push(rootNode);
+
+		while(! nodesToProcess.isEmpty()) {
+			final RTreeDirectoryNode node = nodesToProcess.pop();
+			final List<RTreeDirectoryNode> childs = node.getDirectoryNodeChilds();
+
+			for(int i = 0; i < childs.size(); i++) {
+				for(int j = i + 1; j < childs.size(); j++) {
+					final Hyperrectangle intersection = childs.get(i).getBoundingBox()
+							.getIntersection(childs.get(j).getBoundingBox());
+
+					if(intersection.getDimension() > 0) {
+						overlap += intersection.getVolume();
+					}
+				}
+			}
+
+			childs.forEach(n -> nodesToProcess.push(n));
+		}
+
+		return overlap;
+	}
+
+	/**
+	 * Count the nodes that are read to answer the query
+	 * @param rootNode
+	 * @param query
+	 * @return
+	 */
+	private static long countVisitedNodes(final RTreeDirectoryNode rootNode, final Hyperrectangle query) {
+		long nodes = 0;
+		final Deque<RTreeDirectoryNode> nodesToProcess = new ArrayDeque<>();
+		nodesToProcess.push(rootNode);
+
+		while(! nodesToProcess.isEmpty()) {
+			final RTreeDirectoryNode node = nodesToProcess.pop();
+			nodes++;
+
+			node.getDirectoryNodeChilds().stream()
+				.filter(n -> n.getBoundingBox().intersects(query))
+				.forEach(n -> nodesToProcess.push(n));
+		}
+
+		return nodes;
+	}
+}
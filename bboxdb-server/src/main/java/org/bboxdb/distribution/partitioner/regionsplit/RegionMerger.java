@@ -156,7 +156,7 @@ public class RegionMerger {
 			final TupleRedistributor tupleRedistributor 
 				= new TupleRedistributor(registry, tupleStoreName);
 
-			tupleRedistributor.registerRegion(destination);
+			tupleRedistributor.registerRegionForSSTableTransfer(destination, false);
 
 			for(final DistributionRegion childRegion : source) {
 				mergeDataFromChildRegion(destination, tupleStoreName, tupleRedistributor, childRegion);					
@@ -192,7 +192,9 @@ public class RegionMerger {
 			final RangeQueryExecutor rangeQueryExecutor = new RangeQueryExecutor(tupleStoreName, 
 					region.getConveringBox(), tupleConsumer, registry, ExecutionPolicy.ALL);
 
+			tupleRedistributor.beginTupleStore(0);
 			rangeQueryExecutor.performDataRead();
+			tupleRedistributor.endTupleStore();
 			
 		} catch (InterruptedException e) {
 			Thread.currentThread().interrupt();
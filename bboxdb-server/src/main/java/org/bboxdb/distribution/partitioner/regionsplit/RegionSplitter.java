@@ -32,7 +32,6 @@ import org.bboxdb.distribution.zookeeper.DistributionRegionAdapter;
 import org.bboxdb.distribution.zookeeper.ZookeeperClientFactory;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.storage.StorageManagerException;
-import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreAquirer;
@@ -259,7 +258,7 @@ public class RegionSplitter {
 		final TupleRedistributor tupleRedistributor = new TupleRedistributor(registry, ssTableName);
 		
 		for(final DistributionRegion childRegion : destination) {
-			tupleRedistributor.registerRegion(childRegion);
+			tupleRedistributor.registerRegionForSSTableTransfer(childRegion, true);
 		}
 		
 		return tupleRedistributor;
@@ -302,15 +301,12 @@ public class RegionSplitter {
 	 * Spread the tuple storage
 	 * @param tupleRedistributor
 	 * @param storage
-	 * @param distributeSuccessfully
-	 * @return
 	 * @throws Exception 
 	 */
 	private void spreadStorage(final TupleRedistributor tupleRedistributor,
 			final ReadOnlyTupleStore storage) throws Exception {
 		
-		for(final Tuple tuple : storage) {
-			tupleRedistributor.redistributeTuple(tuple);
-		}		
+		// The sorted iterator is used, so the tuples can be written directly into SSTables
+		tupleRedistributor.redistributeTupleStore(storage);
 	}
-}
+}
\ No newline at end of file
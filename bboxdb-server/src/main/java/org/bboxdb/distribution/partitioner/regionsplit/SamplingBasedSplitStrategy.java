@@ -17,9 +17,8 @@
  *******************************************************************************/
 package org.bboxdb.distribution.partitioner.regionsplit;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 
 import org.bboxdb.commons.MathUtil;
 import org.bboxdb.commons.math.Hyperrectangle;
@@ -49,20 +48,24 @@ public class SamplingBasedSplitStrategy implements SplitpointStrategy {
 	public double getSplitPoint(final int splitDimension, final Hyperrectangle coveringBox) 
 			throws StorageManagerException {
 		
-		final List<Double> pointSamples = preprocessSamples(splitDimension, coveringBox);
+		final double[] pointSamples = preprocessSamples(splitDimension, coveringBox);
 		
-		if(pointSamples.isEmpty()) {
+		if(pointSamples.length == 0) {
 			throw new StorageManagerException("Unable to determine split point, samples list is empty");
 		}
 		
 		// Sort points
-		pointSamples.sort((i1, i2) -> Double.compare(i1,i2));
+		Arrays.sort(pointSamples);
 		
-		// Calculate point
-		final int midpoint = pointSamples.size() / 2;
-		final double splitPosition = pointSamples.get(midpoint);
+		// Calculate point, the rank of the median of n uniform samples has 
+		// a standard error of about 1 / (2 * sqrt(n))
+		final int midpoint = pointSamples.length / 2;
+		final double splitPosition = pointSamples[midpoint];
 		final double splitPositonRound = MathUtil.round(splitPosition, 5);
 		
+		logger.info("Split point {} has an expected rank error of {}", splitPositonRound, 
+				MathUtil.round(0.5 / Math.sqrt(pointSamples.length), 5));
+		
 		return splitPositonRound;
 	}
 
@@ -72,29 +75,31 @@ public class SamplingBasedSplitStrategy implements SplitpointStrategy {
 	 * @param coveringBox
 	 * @return
 	 */
-	private List<Double> preprocessSamples(final int splitDimension, final Hyperrectangle coveringBox) {
+	private double[] preprocessSamples(final int splitDimension, final Hyperrectangle coveringBox) {
 		
-		final List<Double> pointSamples = new ArrayList<>();
+		final double[] pointSamples = new double[samples.size() * 2];
+		int elements = 0;
 		
+		final DoubleInterval groupInterval = coveringBox.getIntervalForDimension(splitDimension);
+
 		for(final Hyperrectangle sampleBox : samples) {
 			// Add the begin and end pos to the lists, if the begin / end is in the 
 			// covering box
 			final DoubleInterval tupleInterval = sampleBox.getIntervalForDimension(splitDimension);
-			final DoubleInterval groupInterval = coveringBox.getIntervalForDimension(splitDimension);
 			
 			if(groupInterval.isPointIncluded(tupleInterval.getBegin())) {
-				pointSamples.add(tupleInterval.getBegin());
+				pointSamples[elements++] = tupleInterval.getBegin();
 			}
 			
 			if(groupInterval.isPointIncluded(tupleInterval.getEnd())) {
-				pointSamples.add(tupleInterval.getEnd());
+				pointSamples[elements++] = tupleInterval.getEnd();
 			}
 		}
 		
 		logger.info("Samples list has a size of {}, usable elements {}", 
-				samples.size(), pointSamples.size());
+				samples.size(), elements);
 		
-		return pointSamples;
+		return Arrays.copyOf(pointSamples, elements);
 	}
 
 }
@@ -19,12 +19,12 @@ package org.bboxdb.distribution.partitioner.regionsplit;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.region.DistributionRegion;
 import org.bboxdb.storage.StorageManagerException;
-import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
@@ -91,45 +91,57 @@ public class SamplingHelper {
 	}
 
 	/**
-	 * Process the facades for the table and create samples
+	 * Process the tuple stores of the table and create samples. The samples are 
+	 * read from the samples of the tuple stores (stored in the metadata of the SSTables). 
+	 * The tuple stores are sampled with different rates, so the samples are thinned to 
+	 * the lowest rate to get a uniform sample of all tuples.
+	 * 
 	 * @param storages
-	 * @param splitDimension 
-	 * @param boundingBox 
-	 * @param floatIntervals 
 	 * @return 
 	 * @throws StorageManagerException 
 	 */
 	private static List<Hyperrectangle> processTupleStores(final List<ReadOnlyTupleStore> storages) 
 			throws StorageManagerException {
 		
-		final int samplesPerStorage = 100;
-		final List<Hyperrectangle> samples = new ArrayList<>();
-		
-		logger.debug("Fetching {} samples per storage", samplesPerStorage);
+		final List<List<Hyperrectangle>> samplesPerStorage = new ArrayList<>();
+		final List<Long> tuplesPerStorage = new ArrayList<>();
+		double sampleRate = 1.0;
 		
 		for(final ReadOnlyTupleStore storage : storages) {
 			if(! storage.acquire() ) {
 				continue;
 			}
 			
-			final long numberOfTuples = storage.getNumberOfTuples();
-			final int sampleOffset = Math.max(10, (int) (numberOfTuples / samplesPerStorage));
-			
-			for (long position = 0; position < numberOfTuples; position = position + sampleOffset) {
-				final Tuple tuple = storage.getTupleAtPosition(position);							
-				final Hyperrectangle tupleBoundingBox = tuple.getBoundingBox();
-			
-				// Ignore tuples with an empty box (e.g. deleted tuples)
-				if(tupleBoundingBox == null || tupleBoundingBox.equals(Hyperrectangle.FULL_SPACE)) {
+			try {
+				final long numberOfTuples = storage.getNumberOfTuples();
+				final List<Hyperrectangle> storageSamples = storage.getBoundingBoxSamples();
+				
+				if(numberOfTuples == 0 || storageSamples.isEmpty()) {
 					continue;
 				}
 				
-				samples.add(tupleBoundingBox);
+				samplesPerStorage.add(storageSamples);
+				tuplesPerStorage.add(numberOfTuples);
+				sampleRate = Math.min(sampleRate, (double) storageSamples.size() / (double) numberOfTuples);
+			} finally {
+				storage.release();
 			}
-	
-			storage.release();
 		}
 		
+		final List<Hyperrectangle> samples = new ArrayList<>();
+		
+		for(int i = 0; i < samplesPerStorage.size(); i++) {
+			final List<Hyperrectangle> storageSamples = new ArrayList<>(samplesPerStorage.get(i));
+			final int samplesToUse = (int) Math.max(1, Math.round(sampleRate * tuplesPerStorage.get(i)));
+			
+			// A random subset of a uniform sample is a uniform sample
+			Collections.shuffle(storageSamples);
+			samples.addAll(storageSamples.subList(0, Math.min(samplesToUse, storageSamples.size())));
+		}
+		
+		logger.debug("Got {} samples from {} storages (sample rate {})", 
+				samples.size(), samplesPerStorage.size(), sampleRate);
+		
 		return samples;
 	}
 }
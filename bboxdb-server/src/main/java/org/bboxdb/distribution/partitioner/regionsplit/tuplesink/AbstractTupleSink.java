@@ -46,6 +46,23 @@ public abstract class AbstractTupleSink {
 		return sinkedTuples;
 	}
 	
+	/**
+	 * A new tuple store is processed by the sink
+	 * @param estimatedTuples
+	 * @throws StorageManagerException
+	 */
+	public void beginTupleStore(final long estimatedTuples) throws StorageManagerException {
+		// Default: Nothing to do
+	}
+	
+	/**
+	 * All tuples of the tuple store are processed by the sink
+	 * @throws StorageManagerException
+	 */
+	public void endTupleStore() throws StorageManagerException {
+		// Default: Nothing to do
+	}
+	
 	/**
 	 * Process the given tuple
 	 * @param tuple
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.distribution.partitioner.regionsplit.tuplesink;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.bboxdb.commons.RejectedException;
+import org.bboxdb.commons.io.FileUtil;
+import org.bboxdb.network.client.BBoxDBConnection;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableCreator;
+import org.bboxdb.storage.sstable.SSTableHelper;
+import org.bboxdb.storage.sstable.SSTableWriter;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.transfer.SSTableTransferHelper;
+import org.bboxdb.storage.sstable.transfer.SSTableTransferSender;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SSTableTransferTupleSink extends AbstractTupleSink {
+	
+	/**
+	 * The destination table
+	 */
+	private final TupleStoreName destinationTable;
+	
+	/**
+	 * The local tuple store manager (if the data is also stored locally)
+	 */
+	private final Optional<TupleStoreManager> localStorageManager;
+	
+	/**
+	 * The connections to the remote systems
+	 */
+	private final List<BBoxDBConnection> connections;
+	
+	/**
+	 * The base directory for the written SSTables
+	 */
+	private final String basedir;
+	
+	/**
+	 * Is the input sorted by key
+	 */
+	private final boolean sortedInput;
+	
+	/**
+	 * The max amount of buffered tuples for unsorted input
+	 */
+	private final int maxBufferedTuples;
+	
+	/**
+	 * The buffered tuples (unsorted input)
+	 */
+	private final List<Tuple> bufferedTuples;
+	
+	/**
+	 * The estimated amount of tuples of the current tuple store
+	 */
+	private long estimatedTuples;
+	
+	/**
+	 * The compression of the written SSTables
+	 */
+	private final SSTableCompression compression;
+	
+	/**
+	 * The active SSTable writer (sorted input)
+	 */
+	private SSTableWriter sstableWriter;
+	
+	/**
+	 * The last written tuple (sorted input)
+	 */
+	private Tuple lastTuple;
+	
+	/**
+	 * The amount of transferred SSTables
+	 */
+	private long transferredTables;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(SSTableTransferTupleSink.class);
+
+	public SSTableTransferTupleSink(final TupleStoreName tablename, final TupleStoreName destinationTable,
+			final Optional<TupleStoreManager> localStorageManager, final List<BBoxDBConnection> connections, 
+			final String basedir, final boolean sortedInput, final int maxBufferedTuples,
+			final SSTableCompression compression) {
+		
+		super(tablename);
+		this.destinationTable = destinationTable;
+		this.localStorageManager = localStorageManager;
+		this.connections = connections;
+		this.basedir = basedir;
+		this.sortedInput = sortedInput;
+		this.maxBufferedTuples = maxBufferedTuples;
+		this.compression = compression;
+		this.bufferedTuples = new ArrayList<>();
+		this.transferredTables = 0;
+	}
+	
+	@Override
+	public void beginTupleStore(final long estimatedTuples) throws StorageManagerException {
+		this.estimatedTuples = estimatedTuples;
+	}
+
+	@Override
+	public void sinkTuple(final Tuple tuple) throws StorageManagerException {
+		sinkedTuples++;
+		
+		if(! sortedInput) {
+			bufferedTuples.add(tuple);
+			
+			if(bufferedTuples.size() >= maxBufferedTuples) {
+				writeBufferedTuples();
+			}
+			
+			return;
+		}
+		
+		// The SSTable requires sorted keys, start a new table if the order is violated.
+		// The versions of a key can be returned in any order by the sorted iterators.
+		if(lastTuple != null && tuple.getKey().compareTo(lastTuple.getKey()) < 0) {
+			logger.warn("Got unsorted tuple {} after {}, starting a new SSTable", 
+					tuple.getKey(), lastTuple.getKey());
+			finishSSTable();
+		}
+		
+		if(sstableWriter == null) {
+			sstableWriter = openSSTable(Math.max(1, estimatedTuples));
+		}
+		
+		sstableWriter.addTuple(tuple);
+		lastTuple = tuple;
+	}
+	
+	@Override
+	public void endTupleStore() throws StorageManagerException {
+		if(sortedInput) {
+			finishSSTable();
+		} else {
+			writeBufferedTuples();
+		}
+	}
+	
+	/**
+	 * Write the buffered tuples into a new SSTable
+	 * @throws StorageManagerException
+	 */
+	private void writeBufferedTuples() throws StorageManagerException {
+		if(bufferedTuples.isEmpty()) {
+			return;
+		}
+		
+		Collections.sort(bufferedTuples);
+		
+		sstableWriter = openSSTable(bufferedTuples.size());
+		sstableWriter.addTuples(bufferedTuples);
+		bufferedTuples.clear();
+
+		finishSSTable();
+	}
+	
+	/**
+	 * Open a new SSTable in a new transfer directory
+	 * @param estimatedNumberOfTuples
+	 * @return
+	 * @throws StorageManagerException
+	 */
+	private SSTableWriter openSSTable(final long estimatedNumberOfTuples) throws StorageManagerException {
+		final String transferDir = SSTableHelper.getTransferDir(basedir, UUID.randomUUID().toString());
+		final File sstableDir = new File(SSTableHelper.getSSTableDir(transferDir, destinationTable));
+		
+		if(! sstableDir.mkdirs()) {
+			throw new StorageManagerException("Unable to create directory: " + sstableDir);
+		}
+		
+		final SSTableWriter writer = new SSTableWriter(transferDir, destinationTable, 
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER, estimatedNumberOfTuples, 
+				SSTableCreator.TRANSFER, compression);
+		
+		writer.open();
+		
+		return writer;
+	}
+	
+	/**
+	 * Close the active SSTable, send it to all remote systems and adopt it locally
+	 * @throws StorageManagerException
+	 */
+	private void finishSSTable() throws StorageManagerException {
+		if(sstableWriter == null) {
+			return;
+		}
+		
+		final String transferDir = sstableWriter.getDirectory();
+		
+		try {
+			sstableWriter.close();
+			
+			for(final BBoxDBConnection connection : connections) {
+				final SSTableTransferSender sender = new SSTableTransferSender(connection);
+				sender.transfer(destinationTable, transferDir, SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+			}
+			
+			// Adopting moves the files, so it has to be the last step
+			if(localStorageManager.isPresent()) {
+				localStorageManager.get().adoptSSTable(transferDir, SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+			}
+			
+			transferredTables++;
+		} catch (RejectedException e) {
+			throw new StorageManagerException(e);
+		} finally {
+			sstableWriter = null;
+			lastTuple = null;
+			FileUtil.deleteRecursive(Paths.get(transferDir));
+		}
+	}
+	
+	/**
+	 * Get the amount of transferred SSTables
+	 * @return
+	 */
+	public long getTransferredTables() {
+		return transferredTables;
+	}
+}
@@ -18,11 +18,14 @@
 package org.bboxdb.distribution.partitioner.regionsplit.tuplesink;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 
 import org.bboxdb.distribution.membership.BBoxDBInstance;
 import org.bboxdb.distribution.membership.MembershipConnectionService;
@@ -35,6 +38,7 @@ import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.bboxdb.storage.util.TupleHelper;
@@ -145,6 +149,63 @@ public class TupleRedistributor {
 		registerRegion(distributionRegion, sinks);
 	}
 
+	/**
+	 * Register a new region for distribution. The tuples are written into new SSTables, 
+	 * which are transferred as whole files to the systems of the region.
+	 * 
+	 * @param distributionRegion
+	 * @param sortedInput - are the tuples sorted by key
+	 * @throws StorageManagerException
+	 */
+	public void registerRegionForSSTableTransfer(final DistributionRegion distributionRegion, 
+			final boolean sortedInput) throws StorageManagerException {
+		
+		final Collection<BBoxDBInstance> instances = distributionRegion.getSystems();
+
+		final MembershipConnectionService membershipConnectionService 	
+			= MembershipConnectionService.getInstance();
+				
+		final BBoxDBInstance localInstance = ZookeeperClientFactory.getLocalInstanceName();
+		
+		final TupleStoreName destinationTable = tupleStoreName.cloneWithDifferntRegionId(
+				distributionRegion.getRegionId());
+		
+		final List<BBoxDBConnection> connections = new ArrayList<>();
+		Optional<TupleStoreManager> localStorageManager = Optional.empty();
+		
+		final TupleStoreAdapter tupleStoreAdapter = ZookeeperClientFactory
+				.getZookeeperClient().getTupleStoreAdapter();
+		
+		final TupleStoreConfiguration config = readTuplestoreConfig(destinationTable, tupleStoreAdapter);
+		
+		for(final BBoxDBInstance instance : instances) {
+			if(instance.socketAddressEquals(localInstance)) {
+				localStorageManager = Optional.of(
+						tupleStoreManagerRegistry.createTableIfNotExist(destinationTable, config));
+				
+				logger.info("Transfer SSTables to local table {}", destinationTable.getFullname());
+			} else {
+				final BBoxDBConnection connection = membershipConnectionService.getConnectionForInstance(instance);
+				
+				if(connection == null) {
+					throw new StorageManagerException("No connection for instance: " + instance);
+				}
+				
+				connections.add(connection);
+				logger.info("Transfer SSTables to remote system {}", instance.getInetSocketAddress());
+			}
+		}
+		
+		final String basedir = tupleStoreManagerRegistry.getLocationLowestUtilizedDataLocation();
+		final int maxBufferedTuples = tupleStoreManagerRegistry.getConfiguration().getMemtableEntriesMax();
+		
+		final SSTableTransferTupleSink tupleSink = new SSTableTransferTupleSink(tupleStoreName, 
+				destinationTable, localStorageManager, connections, basedir, sortedInput, maxBufferedTuples,
+				config.getCompression());
+		
+		registerRegion(distributionRegion, Arrays.asList(tupleSink));
+	}
+
 	/**
 	 * Read the given table configuration
 	 * 
@@ -191,6 +252,53 @@ public class TupleRedistributor {
 		}
 	}
 
+	/**
+	 * A new tuple store is redistributed
+	 * @param estimatedTuples
+	 * @throws StorageManagerException
+	 */
+	public void beginTupleStore(final long estimatedTuples) throws StorageManagerException {
+		for(final List<AbstractTupleSink> sinks : regionMap.values()) {
+			for(final AbstractTupleSink tupleSink : sinks) {
+				tupleSink.beginTupleStore(estimatedTuples);
+			}
+		}
+	}
+	
+	/**
+	 * All tuples of the tuple store are redistributed
+	 * @throws StorageManagerException
+	 */
+	public void endTupleStore() throws StorageManagerException {
+		for(final List<AbstractTupleSink> sinks : regionMap.values()) {
+			for(final AbstractTupleSink tupleSink : sinks) {
+				tupleSink.endTupleStore();
+			}
+		}
+	}
+
+	/**
+	 * Redistribute all tuples of the tuple store. The tuples are read
+	 * with the key sorted iterator, the insert order of a memtable is 
+	 * not sorted.
+	 * 
+	 * @param tupleStore
+	 * @throws StorageManagerException
+	 */
+	public void redistributeTupleStore(final ReadOnlyTupleStore tupleStore) 
+			throws StorageManagerException {
+		
+		beginTupleStore(tupleStore.getNumberOfTuples());
+		
+		final Iterator<Tuple> iterator = tupleStore.getSortedIterator();
+		
+		while(iterator.hasNext()) {
+			redistributeTuple(iterator.next());
+		}
+		
+		endTupleStore();
+	}
+
 	/**
 	 * Check if a tuple belongs to the given region
 	 * 
@@ -157,6 +157,46 @@ public class DistributionRegion {
 		return result;
 	}
 
+	/**
+	 * Get this and all children matching the predicate that are intersecting 
+	 * the bounding box. The space of a child region is always covered by the 
+	 * space of the parent region, so subtrees that are not intersecting the 
+	 * bounding box are skipped.
+	 * 
+	 * @param boundingBox
+	 * @param predicate
+	 * @return
+	 */
+	public List<DistributionRegion> getThisAndChildRegions(final Hyperrectangle boundingBox, 
+			final Predicate<DistributionRegion> predicate) {
+		
+		final List<DistributionRegion> result = new ArrayList<>();
+		collectIntersectingRegions(boundingBox, predicate, result);
+		return result;
+	}
+	
+	/**
+	 * Collect the regions intersecting the bounding box and matching the predicate
+	 * @param boundingBox
+	 * @param predicate
+	 * @param result
+	 */
+	private void collectIntersectingRegions(final Hyperrectangle boundingBox, 
+			final Predicate<DistributionRegion> predicate, final List<DistributionRegion> result) {
+		
+		if(! converingBox.intersects(boundingBox)) {
+			return;
+		}
+		
+		if(predicate.test(this)) {
+			result.add(this);
+		}
+		
+		for(final DistributionRegion child : children.values()) {
+			child.collectIntersectingRegions(boundingBox, predicate, result);
+		}
+	}
+
 	/**
 	 * Set the children to state active
 	 */
@@ -18,12 +18,12 @@
 package org.bboxdb.distribution.region;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.function.Predicate;
@@ -40,9 +40,9 @@ import com.google.common.base.Stopwatch;
 public class DistributionRegionIdMapper {
 
 	/**
-	 * The mappings
+	 * The current mappings (immutable, replaced on every change)
 	 */
-	private final Map<Long, Hyperrectangle> regions;
+	private volatile DistributionRegionIdSnapshot snapshot;
 	
 	/**
 	 * The distribution group name
@@ -61,19 +61,25 @@ public class DistributionRegionIdMapper {
 
 	public DistributionRegionIdMapper(final String distributionGroup) {		
 		this.distributionGroup = distributionGroup;
-		this.regions = new ConcurrentHashMap<>();
+		this.snapshot = DistributionRegionIdSnapshot.EMPTY;
 		this.MUTEX = new Object();
 	}
 	
+	/**
+	 * Get the current snapshot of the mappings. The snapshot is immutable, 
+	 * so multiple lookups on it see the same version of the mappings.
+	 * 
+	 * @return
+	 */
+	public DistributionRegionIdSnapshot getSnapshot() {
+		return snapshot;
+	}
+	
 	/**
 	 * Search the region ids that are overlapped by the bounding box
 	 */
 	public Set<Long> getRegionIdsForRegion(final Hyperrectangle region) {
-		return regions.entrySet()
-			.stream()
-			.filter(e -> e.getValue().intersects(region))
-			.map(e -> e.getKey())
-			.collect(Collectors.toSet());
+		return snapshot.getRegionIdsForRegion(region);
 	}
 	
 	/**
@@ -81,7 +87,7 @@ public class DistributionRegionIdMapper {
 	 * @return
 	 */
 	public Set<Long> getAllRegionIds() {
-		return new HashSet<>(regions.keySet());
+		return new HashSet<>(snapshot.getAllRegionIds());
 	}
 	
 	/**
@@ -90,13 +96,7 @@ public class DistributionRegionIdMapper {
 	 * @return
 	 */
 	public Optional<Hyperrectangle> getSpaceForRegionId(final long regionId) {
-		final Hyperrectangle rectangle = regions.get(regionId);
-		
-		if(rectangle == null) {
-			return Optional.empty();
-		}
-		
-		return Optional.of(rectangle);
+		return snapshot.getSpaceForRegionId(regionId);
 	}
 	
 	/**
@@ -168,23 +168,11 @@ public class DistributionRegionIdMapper {
 	 * @param boundingBox
 	 */
 	public boolean addMapping(final long regionId, final Hyperrectangle boundingBox) {
-				
-		if(regions.containsKey(regionId)) {
-			logger.debug("Mapping for region {} / {} already exists, ignoring", 
-					regionId, distributionGroup);
-			
-			return false;
-		}
 		
-		logger.info("Add local mapping for: {} / {}", regionId, distributionGroup);
+		final Map<Long, Hyperrectangle> addedRegions = new HashMap<>();
+		addedRegions.put(regionId, boundingBox);
 		
-		regions.put(regionId, boundingBox);
-			
-		synchronized (MUTEX) {
-			MUTEX.notifyAll();
-		}
-		
-		return true;
+		return updateMappings(addedRegions, new HashSet<>());
 	}
 	
 	/**
@@ -193,18 +181,55 @@ public class DistributionRegionIdMapper {
 	 */
 	public boolean removeMapping(final long regionId) {
 		
-		final boolean removed = regions.containsKey(regionId);
-		regions.remove(regionId);
+		final Set<Long> removedRegions = new HashSet<>();
+		removedRegions.add(regionId);
 		
-		if(removed) {
-			logger.info("Mapping for region id {} / {} removed", regionId, distributionGroup);
-		}
+		return updateMappings(new HashMap<>(), removedRegions);
+	}
+	
+	/**
+	 * Add and remove multiple mappings at once. A new snapshot is only
+	 * published if something has changed.
+	 * 
+	 * @param addedRegions
+	 * @param removedRegions
+	 * @return
+	 */
+	public boolean updateMappings(final Map<Long, Hyperrectangle> addedRegions, 
+			final Set<Long> removedRegions) {
 		
-		synchronized (MUTEX) {	
-			MUTEX.notifyAll();			
+		synchronized (MUTEX) {
+			final DistributionRegionIdSnapshot currentSnapshot = snapshot;
+			
+			final Map<Long, Hyperrectangle> newRegions = new HashMap<>();
+			final Set<Long> oldRegions = new HashSet<>();
+
+			for(final Map.Entry<Long, Hyperrectangle> entry : addedRegions.entrySet()) {
+				if(currentSnapshot.containsRegionId(entry.getKey())) {
+					logger.debug("Mapping for region {} / {} already exists, ignoring", 
+							entry.getKey(), distributionGroup);
+				} else {
+					logger.info("Add local mapping for: {} / {}", entry.getKey(), distributionGroup);
+					newRegions.put(entry.getKey(), entry.getValue());
+				}
+			}
+			
+			for(final long regionId : removedRegions) {
+				if(currentSnapshot.containsRegionId(regionId)) {
+					logger.info("Mapping for region id {} / {} removed", regionId, distributionGroup);
+					oldRegions.add(regionId);
+				}
+			}
+			
+			if(newRegions.isEmpty() && oldRegions.isEmpty()) {
+				return false;
+			}
+			
+			snapshot = currentSnapshot.applyChanges(newRegions, oldRegions);
+			MUTEX.notifyAll();
 		}
 		
-		return removed;
+		return true;
 	}
 	
 	/**
@@ -213,9 +238,8 @@ public class DistributionRegionIdMapper {
 	public void clear() {
 		logger.info("Clear all local mappings in {}", distributionGroup);
 		
-		regions.clear();
-		
 		synchronized (MUTEX) {
+			snapshot = snapshot.applyChanges(new HashMap<>(), snapshot.getAllRegionIds());
 			MUTEX.notifyAll();
 		}
 	}
@@ -0,0 +1,279 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.distribution.region;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.STRTreeBuilder;
+
+/**
+ * An immutable snapshot of the region ids and their spaces. 
+ * 
+ * The spaces are indexed by a packed STR tree. The tree is shared between 
+ * the snapshots, the changes since the tree was built are kept in a small 
+ * delta (added and removed regions). The tree is only rebuilt when the 
+ * delta becomes larger than a fraction of the indexed regions.
+ */
+public class DistributionRegionIdSnapshot {
+
+	/**
+	 * The version of the snapshot
+	 */
+	private final long version;
+
+	/**
+	 * The region spaces
+	 */
+	private final Map<Long, Hyperrectangle> regions;
+
+	/**
+	 * The packed index (null if no region is indexed)
+	 */
+	private final STRTreeBuilder index;
+
+	/**
+	 * The number of regions in the index
+	 */
+	private final int indexedRegions;
+
+	/**
+	 * The regions that are added or changed since the index was built
+	 */
+	private final Map<Long, Hyperrectangle> addedRegions;
+
+	/**
+	 * The indexed regions that are removed or changed since the index was built
+	 */
+	private final Set<Long> removedRegions;
+
+	/**
+	 * The regions without a dimension (they intersect everything)
+	 */
+	private final Set<Long> unboundedRegions;
+
+	/**
+	 * The max amount of entries per index node
+	 */
+	private final static int MAX_NODE_SIZE = 32;
+
+	/**
+	 * The index is rebuilt when the delta exceeds 1 / REBUILD_FACTOR of the indexed regions
+	 */
+	private final static int REBUILD_FACTOR = 8;
+
+	/**
+	 * The empty snapshot
+	 */
+	public final static DistributionRegionIdSnapshot EMPTY
+		= new DistributionRegionIdSnapshot(0, new HashMap<>());
+
+	private DistributionRegionIdSnapshot(final long version, final Map<Long, Hyperrectangle> regions) {
+		this.version = version;
+		this.regions = Collections.unmodifiableMap(regions);
+		this.unboundedRegions = new HashSet<>();
+		this.addedRegions = Collections.emptyMap();
+		this.removedRegions = Collections.emptySet();
+
+		final List<SpatialIndexEntry> entries = new ArrayList<>(regions.size());
+
+		for(final Map.Entry<Long, Hyperrectangle> entry : regions.entrySet()) {
+			if(entry.getValue().getDimension() == 0) {
+				unboundedRegions.add(entry.getKey());
+			} else {
+				entries.add(new SpatialIndexEntry(entry.getValue(), entry.getKey()));
+			}
+		}
+
+		this.indexedRegions = entries.size();
+		this.index = buildIndex(entries);
+	}
+
+	private DistributionRegionIdSnapshot(final DistributionRegionIdSnapshot baseSnapshot, 
+			final Map<Long, Hyperrectangle> regions, final Map<Long, Hyperrectangle> addedRegions, 
+			final Set<Long> removedRegions, final Set<Long> unboundedRegions) {
+		
+		this.version = baseSnapshot.version + 1;
+		this.regions = Collections.unmodifiableMap(regions);
+		this.index = baseSnapshot.index;
+		this.indexedRegions = baseSnapshot.indexedRegions;
+		this.addedRegions = Collections.unmodifiableMap(addedRegions);
+		this.removedRegions = Collections.unmodifiableSet(removedRegions);
+		this.unboundedRegions = unboundedRegions;
+	}
+
+	/**
+	 * Build the index bottom up. The entries are packed into nodes with 
+	 * the Sort-Tile-Recursive algorithm.
+	 *
+	 * @param entries
+	 * @return
+	 */
+	private static STRTreeBuilder buildIndex(final List<SpatialIndexEntry> entries) {
+
+		if(entries.isEmpty()) {
+			return null;
+		}
+
+		final STRTreeBuilder strTreeBuilder = new STRTreeBuilder(MAX_NODE_SIZE);
+		entries.forEach(e -> strTreeBuilder.insert(e));
+
+		// Build the tree before the snapshot is published
+		strTreeBuilder.getRootNode();
+
+		return strTreeBuilder;
+	}
+
+	/**
+	 * Get the version of the snapshot
+	 * @return
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Get all region ids
+	 * @return
+	 */
+	public Set<Long> getAllRegionIds() {
+		return regions.keySet();
+	}
+
+	/**
+	 * Get the space for the region
+	 * @param regionId
+	 * @return
+	 */
+	public Optional<Hyperrectangle> getSpaceForRegionId(final long regionId) {
+		return Optional.ofNullable(regions.get(regionId));
+	}
+
+	/**
+	 * Is the region contained in the snapshot
+	 * @param regionId
+	 * @return
+	 */
+	public boolean containsRegionId(final long regionId) {
+		return regions.containsKey(regionId);
+	}
+
+	/**
+	 * Search the region ids that are overlapped by the bounding box
+	 * @param boundingBox
+	 * @return
+	 */
+	public Set<Long> getRegionIdsForRegion(final Hyperrectangle boundingBox) {
+
+		if(boundingBox.getDimension() == 0) {
+			return new HashSet<>(regions.keySet());
+		}
+
+		final Set<Long> result = new HashSet<>(unboundedRegions);
+
+		if(index != null) {
+			for(final SpatialIndexEntry entry : index.getEntriesForRegion(boundingBox)) {
+				if(! removedRegions.contains(entry.getValue())) {
+					result.add(entry.getValue());
+				}
+			}
+		}
+
+		for(final Map.Entry<Long, Hyperrectangle> entry : addedRegions.entrySet()) {
+			if(entry.getValue().intersects(boundingBox)) {
+				result.add(entry.getKey());
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Get the number of regions
+	 * @return
+	 */
+	public int size() {
+		return regions.size();
+	}
+
+	/**
+	 * Create a new snapshot with the given changes applied. The changes are 
+	 * added to the delta of the snapshot, the index is rebuilt when the delta
+	 * becomes too large.
+	 * 
+	 * @param changedRegions
+	 * @param deletedRegions
+	 * @return
+	 */
+	public DistributionRegionIdSnapshot applyChanges(final Map<Long, Hyperrectangle> changedRegions,
+			final Set<Long> deletedRegions) {
+
+		final Map<Long, Hyperrectangle> newRegions = new HashMap<>(regions);
+		newRegions.keySet().removeAll(deletedRegions);
+		newRegions.putAll(changedRegions);
+
+		final Map<Long, Hyperrectangle> newAddedRegions = new HashMap<>(addedRegions);
+		final Set<Long> newRemovedRegions = new HashSet<>(removedRegions);
+		final Set<Long> newUnboundedRegions = new HashSet<>(unboundedRegions);
+		
+		final Set<Long> changedRegionIds = new HashSet<>(deletedRegions);
+		changedRegionIds.addAll(changedRegions.keySet());
+
+		// The old version of the region is stored in the index, the delta or the unbounded regions
+		for(final long regionId : changedRegionIds) {
+			if(! regions.containsKey(regionId)) {
+				continue;
+			}
+			
+			if(newAddedRegions.remove(regionId) == null && ! newUnboundedRegions.remove(regionId)) {
+				newRemovedRegions.add(regionId);
+			}
+		}
+
+		for(final Map.Entry<Long, Hyperrectangle> entry : changedRegions.entrySet()) {
+			if(entry.getValue().getDimension() == 0) {
+				newUnboundedRegions.add(entry.getKey());
+			} else {
+				newAddedRegions.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		final int deltaSize = newAddedRegions.size() + newRemovedRegions.size();
+
+		if(deltaSize > Math.max(MAX_NODE_SIZE, indexedRegions / REBUILD_FACTOR)) {
+			return new DistributionRegionIdSnapshot(version + 1, newRegions);
+		}
+
+		return new DistributionRegionIdSnapshot(this, newRegions, newAddedRegions, 
+				newRemovedRegions, newUnboundedRegions);
+	}
+
+	@Override
+	public String toString() {
+		return "DistributionRegionIdSnapshot [version=" + version + ", regions=" + regions.size() 
+			+ ", delta=" + (addedRegions.size() + removedRegions.size()) + "]";
+	}
+}
@@ -390,6 +390,7 @@ public class DistributionRegionSyncer implements Watcher {
 		final List<DistributionRegion> allChildren = rootNode.getThisAndChildRegions();
 
 		final Set<Long> allExistingMappings = new HashSet<>(distributionRegionMapper.getAllRegionIds());
+		final Map<Long, Hyperrectangle> newMappings = new HashMap<>();
 
 		for(final DistributionRegion region : allChildren) {
 			final long regionId = region.getRegionId();
@@ -402,15 +403,15 @@ public class DistributionRegionSyncer implements Watcher {
 			if(DistributionRegionHelper.STATES_WRITE.contains(region.getState())) {
 				// Add the mapping to the nameprefix mapper
 				if(! allExistingMappings.contains(regionId)) {
-					distributionRegionMapper.addMapping(regionId, region.getConveringBox());
+					newMappings.put(regionId, region.getConveringBox());
 				}
 
 				allExistingMappings.remove(regionId);
 			}
 		}
 
-		// Remove all active but not seen mappings
-		allExistingMappings.forEach(m -> distributionRegionMapper.removeMapping(m));
+		// Publish all changes as one new snapshot, remove all active but not seen mappings
+		distributionRegionMapper.updateMappings(newMappings, allExistingMappings);
 	}
 
 	/**
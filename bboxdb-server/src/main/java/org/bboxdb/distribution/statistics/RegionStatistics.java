@@ -0,0 +1,97 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.distribution.statistics;
+
+public class RegionStatistics {
+	
+	/**
+	 * The size of the region in MB
+	 */
+	private final long sizeInMb;
+	
+	/**
+	 * The amount of tuples in the region
+	 */
+	private final long tuples;
+
+	public RegionStatistics(final long sizeInMb, final long tuples) {
+		this.sizeInMb = sizeInMb;
+		this.tuples = tuples;
+	}
+	
+	/**
+	 * Is the difference to the other statistics above the threshold, the size 
+	 * is compared in MB, the tuples are compared relative
+	 * 
+	 * @param other
+	 * @param tupleThreshold
+	 * @return
+	 */
+	public boolean isChangedSignificantly(final RegionStatistics other, final double tupleThreshold) {
+		
+		if(sizeInMb != other.sizeInMb) {
+			return true;
+		}
+		
+		final long tupleDifference = Math.abs(tuples - other.tuples);
+		
+		if(tupleDifference == 0) {
+			return false;
+		}
+		
+		return tupleDifference >= Math.max(1, other.tuples) * tupleThreshold;
+	}
+
+	public long getSizeInMb() {
+		return sizeInMb;
+	}
+
+	public long getTuples() {
+		return tuples;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int) (sizeInMb ^ (sizeInMb >>> 32));
+		result = prime * result + (int) (tuples ^ (tuples >>> 32));
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		RegionStatistics other = (RegionStatistics) obj;
+		if (sizeInMb != other.sizeInMb)
+			return false;
+		if (tuples != other.tuples)
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "RegionStatistics [sizeInMb=" + sizeInMb + ", tuples=" + tuples + "]";
+	}
+}
@@ -0,0 +1,344 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.distribution.statistics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.bboxdb.distribution.membership.BBoxDBInstance;
+import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.distribution.zookeeper.DistributionRegionAdapter;
+import org.bboxdb.distribution.zookeeper.ZookeeperException;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.tuplestore.manager.DistributionRegionEntity;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+
+public class RegionStatisticsTracker implements Consumer<TupleStoreName> {
+
+	/**
+	 * The storage registry
+	 */
+	private final TupleStoreManagerRegistry storageRegistry;
+
+	/**
+	 * The distribution region adapter
+	 */
+	private final DistributionRegionAdapter regionAdapter;
+
+	/**
+	 * The regions with changed tuple stores
+	 */
+	private final Set<DistributionRegionEntity> dirtyRegions;
+
+	/**
+	 * The last published statistics
+	 */
+	private final Map<DistributionRegionEntity, RegionStatistics> publishedStatistics;
+
+	/**
+	 * The relative change of the tuples that triggers a new publication
+	 */
+	public final static double TUPLE_CHANGE_THRESHOLD = 0.05;
+
+	/**
+	 * The max amount of regions that are written in one zookeeper multi operation
+	 */
+	public final static int MAX_REGIONS_PER_BATCH = 250;
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(RegionStatisticsTracker.class);
+
+	public RegionStatisticsTracker(final TupleStoreManagerRegistry storageRegistry, 
+			final DistributionRegionAdapter regionAdapter) {
+		
+		this.storageRegistry = storageRegistry;
+		this.regionAdapter = regionAdapter;
+		this.dirtyRegions = ConcurrentHashMap.newKeySet();
+		this.publishedStatistics = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * A tuple store is changed (flushed, compacted, created or deleted)
+	 */
+	@Override
+	public void accept(final TupleStoreName tupleStoreName) {
+		if(! tupleStoreName.isDistributedTable()) {
+			return;
+		}
+
+		final DistributionRegionEntity entity = new DistributionRegionEntity(
+				tupleStoreName.getDistributionGroup(), tupleStoreName.getRegionId().getAsLong());
+		
+		dirtyRegions.add(entity);
+	}
+
+	/**
+	 * Mark all local stored regions as changed
+	 */
+	public void markAllLocalRegionsAsDirty() {
+		for(final TupleStoreName tupleStoreName : storageRegistry.getAllTables()) {
+			accept(tupleStoreName);
+		}
+	}
+	
+	/**
+	 * Mark all regions of the group without published statistics as changed
+	 * @param distributionGroup
+	 * @param regionIds
+	 */
+	public void markUnpublishedRegionsAsDirty(final String distributionGroup, 
+			final Set<Long> regionIds) {
+		
+		for(final long regionId : regionIds) {
+			final DistributionRegionEntity entity = new DistributionRegionEntity(distributionGroup, regionId);
+			
+			if(! publishedStatistics.containsKey(entity)) {
+				dirtyRegions.add(entity);
+			}
+		}
+	}
+	
+	/**
+	 * Get the changed regions of the distribution group
+	 * @param distributionGroup
+	 * @return
+	 */
+	public Set<Long> getDirtyRegions(final String distributionGroup) {
+		return dirtyRegions.stream()
+				.filter(e -> e.getDistributionGroupName().equals(distributionGroup))
+				.map(e -> e.getRegionId())
+				.collect(Collectors.toSet());
+	}
+	
+	/**
+	 * Calculate the statistics of the changed regions of the group and publish the 
+	 * statistics that are changed significantly
+	 * 
+	 * @param distributionGroup
+	 * @param rootRegion
+	 * @param instance
+	 * @return the amount of published regions
+	 * @throws StorageManagerException 
+	 * @throws ZookeeperException 
+	 */
+	public int publishChangedRegions(final String distributionGroup, 
+			final DistributionRegion rootRegion, final BBoxDBInstance instance) 
+					throws StorageManagerException, ZookeeperException {
+		
+		final Set<Long> regionIds = getDirtyRegions(distributionGroup);
+		
+		if(regionIds.isEmpty()) {
+			return 0;
+		}
+		
+		final Map<Long, DistributionRegion> regions = new HashMap<>();
+		
+		if(rootRegion != null) {
+			for(final DistributionRegion region : rootRegion.getThisAndChildRegions()) {
+				if(regionIds.contains(region.getRegionId())) {
+					regions.put(region.getRegionId(), region);
+				}
+			}
+		}
+		
+		// Clear the flags before the calculation, changes during the calculation mark the regions again
+		for(final long regionId : regionIds) {
+			dirtyRegions.remove(new DistributionRegionEntity(distributionGroup, regionId));
+		}
+		
+		try {
+			return publishRegions(distributionGroup, regionIds, regions, instance);
+		} catch (ZookeeperException | StorageManagerException e) {
+			// Retry the regions on the next run
+			for(final long regionId : regionIds) {
+				dirtyRegions.add(new DistributionRegionEntity(distributionGroup, regionId));
+			}
+			throw e;
+		}
+	}
+	
+	/**
+	 * Publish the statistics of the given regions
+	 * 
+	 * @param distributionGroup
+	 * @param regionIds
+	 * @param regions
+	 * @param instance
+	 * @return
+	 * @throws StorageManagerException
+	 * @throws ZookeeperException
+	 */
+	private int publishRegions(final String distributionGroup, final Set<Long> regionIds, 
+			final Map<Long, DistributionRegion> regions, final BBoxDBInstance instance) 
+					throws StorageManagerException, ZookeeperException {
+		
+		final Map<DistributionRegion, RegionStatistics> newRegions = new HashMap<>();
+		final Map<DistributionRegion, RegionStatistics> changedRegions = new HashMap<>();
+
+		for(final long regionId : regionIds) {
+			final DistributionRegionEntity entity = new DistributionRegionEntity(distributionGroup, regionId);
+
+			final DistributionRegion region = regions.get(regionId);
+			
+			if(region == null) {
+				logger.debug("Region {} / {} is not longer known, skipping statistics", 
+						distributionGroup, regionId);
+				publishedStatistics.remove(entity);
+				continue;
+			}
+			
+			final RegionStatistics statistics = calculateStatistics(distributionGroup, regionId);
+			final RegionStatistics lastStatistics = publishedStatistics.get(entity);
+			
+			if(lastStatistics == null) {
+				newRegions.put(region, statistics);
+			} else if(statistics.isChangedSignificantly(lastStatistics, TUPLE_CHANGE_THRESHOLD)) {
+				changedRegions.put(region, statistics);
+			}
+		}
+		
+		// The first update of a region creates the zookeeper nodes
+		for(final Entry<DistributionRegion, RegionStatistics> entry : newRegions.entrySet()) {
+			publishSingleRegion(distributionGroup, entry.getKey(), entry.getValue(), instance);
+		}
+		
+		publishBatch(distributionGroup, changedRegions, instance);
+		
+		return newRegions.size() + changedRegions.size();
+	}
+
+	/**
+	 * Publish the statistics in batches, fall back to single updates on error
+	 * 
+	 * @param distributionGroup
+	 * @param changedRegions
+	 * @param instance
+	 * @throws ZookeeperException
+	 */
+	private void publishBatch(final String distributionGroup, 
+			final Map<DistributionRegion, RegionStatistics> changedRegions,
+			final BBoxDBInstance instance) throws ZookeeperException {
+		
+		final List<DistributionRegion> regions = new ArrayList<>(changedRegions.keySet());
+		
+		for(final List<DistributionRegion> batch : Lists.partition(regions, MAX_REGIONS_PER_BATCH)) {
+			final Map<DistributionRegion, RegionStatistics> batchStatistics = new HashMap<>();
+			
+			for(final DistributionRegion region : batch) {
+				batchStatistics.put(region, changedRegions.get(region));
+			}
+			
+			try {
+				regionAdapter.updateRegionStatistics(batchStatistics, instance);
+				
+				for(final Entry<DistributionRegion, RegionStatistics> entry : batchStatistics.entrySet()) {
+					final DistributionRegionEntity entity = new DistributionRegionEntity(distributionGroup, 
+							entry.getKey().getRegionId());
+					publishedStatistics.put(entity, entry.getValue());
+				}
+			} catch (ZookeeperException e) {
+				logger.warn("Batch update of {} region statistics failed, updating regions one by one", 
+						batch.size());
+				
+				for(final Entry<DistributionRegion, RegionStatistics> entry : batchStatistics.entrySet()) {
+					publishSingleRegion(distributionGroup, entry.getKey(), entry.getValue(), instance);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Publish the statistics of a single region
+	 * 
+	 * @param distributionGroup
+	 * @param region
+	 * @param statistics
+	 * @param instance
+	 * @throws ZookeeperException
+	 */
+	private void publishSingleRegion(final String distributionGroup, final DistributionRegion region, 
+			final RegionStatistics statistics, final BBoxDBInstance instance) throws ZookeeperException {
+		
+		final DistributionRegionEntity entity = new DistributionRegionEntity(distributionGroup, 
+				region.getRegionId());
+
+		logger.debug("Updating region statistics: {} / {}. Size in MB: {} / Tuples: {}", 
+				distributionGroup, region.getRegionId(), statistics.getSizeInMb(), statistics.getTuples());
+		
+		regionAdapter.updateRegionStatistics(region, instance, statistics.getSizeInMb(), 
+				statistics.getTuples());
+		
+		publishedStatistics.put(entity, statistics);
+	}
+
+	/**
+	 * Calculate the statistics of the region
+	 * 
+	 * @param distributionGroup
+	 * @param regionId
+	 * @return
+	 * @throws StorageManagerException
+	 */
+	private RegionStatistics calculateStatistics(final String distributionGroup, final long regionId) 
+			throws StorageManagerException {
+		
+		final long totalSize = TupleStoreUtil.getSizeOfDistributionGroupAndRegionId(storageRegistry, 
+				distributionGroup, regionId);
+		
+		final long totalTuples = TupleStoreUtil.getTuplesInDistributionGroupAndRegionId(storageRegistry, 
+				distributionGroup, regionId);
+		
+		return new RegionStatistics(totalSize / (1024 * 1024), totalTuples);
+	}
+	
+	/**
+	 * Forget the published statistics of the distribution groups that are not longer known
+	 * @param knownGroups
+	 */
+	public void retainDistributionGroups(final List<String> knownGroups) {
+		final Set<String> groups = new HashSet<>(knownGroups);
+		publishedStatistics.keySet().removeIf(e -> ! groups.contains(e.getDistributionGroupName()));
+		dirtyRegions.removeIf(e -> ! groups.contains(e.getDistributionGroupName()));
+	}
+	
+	/**
+	 * Get the last published statistics
+	 * @param distributionGroup
+	 * @param regionId
+	 * @return
+	 */
+	public RegionStatistics getPublishedStatistics(final String distributionGroup, final long regionId) {
+		return publishedStatistics.get(new DistributionRegionEntity(distributionGroup, regionId));
+	}
+}
@@ -17,28 +17,23 @@
  *******************************************************************************/
 package org.bboxdb.distribution.statistics;
 
-import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.bboxdb.commons.concurrent.ExceptionSafeRunnable;
-import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.membership.BBoxDBInstance;
 import org.bboxdb.distribution.membership.ZookeeperBBoxDBInstanceAdapter;
 import org.bboxdb.distribution.partitioner.SpacePartitioner;
 import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
-import org.bboxdb.distribution.region.DistributionRegion;
-import org.bboxdb.distribution.region.DistributionRegionHelper;
-import org.bboxdb.distribution.region.DistributionRegionIdMapper;
+import org.bboxdb.distribution.region.DistributionRegionIdSnapshot;
 import org.bboxdb.distribution.zookeeper.DistributionGroupAdapter;
 import org.bboxdb.distribution.zookeeper.DistributionRegionAdapter;
 import org.bboxdb.distribution.zookeeper.ZookeeperClient;
 import org.bboxdb.distribution.zookeeper.ZookeeperClientFactory;
 import org.bboxdb.distribution.zookeeper.ZookeeperException;
-import org.bboxdb.misc.BBoxDBException;
-import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
-import org.bboxdb.storage.tuplestore.manager.TupleStoreUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,23 +55,36 @@ public class StatisticsUpdateRunnable extends ExceptionSafeRunnable {
 	private final DistributionGroupAdapter groupAdapter;
 	
 	/**
-	 * The distribution region adapter
+	 * The region statistics tracker
 	 */
-	private final DistributionRegionAdapter regionAdapter;
+	private final RegionStatisticsTracker statisticsTracker;
+	
+	/**
+	 * The last seen version of the region id mapping per distribution group
+	 */
+	private final Map<String, Long> mappingVersions;
 	
 	public StatisticsUpdateRunnable(final TupleStoreManagerRegistry storageRegistry) {
 		this.storageRegistry = storageRegistry;
 		this.groupAdapter = ZookeeperClientFactory.getZookeeperClient().getDistributionGroupAdapter();
-		this.regionAdapter = ZookeeperClientFactory.getZookeeperClient().getDistributionRegionAdapter();
+		
+		final DistributionRegionAdapter regionAdapter 
+			= ZookeeperClientFactory.getZookeeperClient().getDistributionRegionAdapter();
+		
+		this.statisticsTracker = new RegionStatisticsTracker(storageRegistry, regionAdapter);
+		this.mappingVersions = new HashMap<>();
 	}
 	
 	@Override
 	protected void beginHook() {
 		logger.info("Starting statistics update thread");
+		storageRegistry.registerStorageChangedCallback(statisticsTracker);
+		statisticsTracker.markAllLocalRegionsAsDirty();
 	}
 	
 	@Override
 	protected void endHook() {
+		storageRegistry.removeStorageChangedCallback(statisticsTracker);
 		logger.info("Statistics update thread is done");
 	}
 
@@ -121,24 +129,37 @@ public class StatisticsUpdateRunnable extends ExceptionSafeRunnable {
 	}
 	
 	/**
-	 * Update the statistics of the region
+	 * Update the statistics of the changed regions
 	 */
 	private void updateRegionStatistics() {
 		
 		try {
+			final BBoxDBInstance instance = ZookeeperClientFactory.getLocalInstanceName();
 			final List<String> allDistributionGroups = groupAdapter.getDistributionGroups();
+			statisticsTracker.retainDistributionGroups(allDistributionGroups);
+			mappingVersions.keySet().retainAll(allDistributionGroups);
+			
 			for(final String distributionGroup : allDistributionGroups) {
 				
 				final SpacePartitioner spacePartitioner = SpacePartitionerCache
 						.getInstance().getSpacePartitionerForGroupName(distributionGroup);
 				
-				final DistributionRegionIdMapper regionIdMapper = spacePartitioner.getDistributionRegionIdMapper();
+				final DistributionRegionIdSnapshot snapshot 
+					= spacePartitioner.getDistributionRegionIdMapper().getSnapshot();
 				
-				final Collection<Long> allIds = regionIdMapper.getRegionIdsForRegion(Hyperrectangle.FULL_SPACE);
+				// New local regions need an initial statistics entry
+				final Long lastVersion = mappingVersions.put(distributionGroup, snapshot.getVersion());
 				
-				for(final long id : allIds) {
-					updateRegionStatistics(distributionGroup, id);
+				if(lastVersion == null || lastVersion != snapshot.getVersion()) {
+					statisticsTracker.markUnpublishedRegionsAsDirty(distributionGroup, 
+							snapshot.getAllRegionIds());
 				}
+				
+				final int publishedRegions = statisticsTracker.publishChangedRegions(distributionGroup, 
+						spacePartitioner.getRootNode(), instance);
+				
+				logger.debug("Published the statistics of {} regions of {}", publishedRegions, 
+						distributionGroup);
 			}
 
 		} catch (Exception e) {
@@ -150,39 +171,4 @@ public class StatisticsUpdateRunnable extends ExceptionSafeRunnable {
 			logger.error("Got exception while updating statistics", e);
 		}
 	}
-
-	/**
-	 * Update region statistics
-	 * 
-	 * @param distributionGroup
-	 * @param regionId
-	 * @throws ZookeeperException 
-	 * @throws StorageManagerException 
-	 * @throws InterruptedException 
-	 */
-	private void updateRegionStatistics(final String distributionGroup, final long regionId) 
-			throws BBoxDBException, ZookeeperException, StorageManagerException, InterruptedException {
-		
-		final SpacePartitioner spacePartitioner = SpacePartitionerCache.getInstance()
-				.getSpacePartitionerForGroupName(distributionGroup);
-		
-		final DistributionRegion distributionRegion = spacePartitioner.getRootNode();
-
-		final DistributionRegion regionToSplit = DistributionRegionHelper.getDistributionRegionForNamePrefix(
-				distributionRegion, regionId);
-				
-		final long totalSize = TupleStoreUtil.getSizeOfDistributionGroupAndRegionId(storageRegistry, 
-				distributionGroup, regionId);
-		
-		final long totalTuples = TupleStoreUtil.getTuplesInDistributionGroupAndRegionId(storageRegistry, 
-				distributionGroup, regionId);
-		
-		final long totalSizeInMb = totalSize / (1024 * 1024);
-		
-		logger.debug("Updating region statistics: {} / {}. Size in MB: {} / Tuples: {}", 
-				distributionGroup, regionId, totalSizeInMb, totalTuples);
-										
-		regionAdapter.updateRegionStatistics(regionToSplit, ZookeeperClientFactory.getLocalInstanceName(), 
-				totalSizeInMb, totalTuples);
-	}
 }
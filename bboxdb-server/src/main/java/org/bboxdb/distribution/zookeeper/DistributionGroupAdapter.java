@@ -36,6 +36,7 @@ import org.bboxdb.distribution.region.DistributionRegionIdMapper;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.storage.entity.DistributionGroupConfiguration;
 import org.bboxdb.storage.entity.DistributionGroupHelper;
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -146,6 +147,9 @@ public class DistributionGroupAdapter {
 		zookeeperClient.createPersistentNode(path + "/" + ZookeeperNodeNames.NAME_REPLICATION, 
 				Short.toString(configuration.getReplicationFactor()).getBytes());
 		
+		zookeeperClient.createPersistentNode(path + "/" + ZookeeperNodeNames.NAME_WRITE_CONSISTENCY, 
+				configuration.getWriteConsistencyLevel().getStringValue().getBytes());
+		
 		setRegionSizeForDistributionGroup(distributionGroup, configuration.getMaximumRegionSizeInMB(), 
 				configuration.getMinimumRegionSizeInMB());
 		
@@ -342,6 +346,12 @@ public class DistributionGroupAdapter {
 		final String sizeStringMax = zookeeperClient.readPathAndReturnString(regionMaxSizePath);
 		final int maxRegionSize =  MathUtil.tryParseInt(sizeStringMax, () -> "Unable to parse: " + sizeStringMax);
 
+		// Groups created by older versions don't have a consistency node
+		final String writeConsistencyPath = path + "/" + ZookeeperNodeNames.NAME_WRITE_CONSISTENCY;
+		final WriteConsistencyLevel writeConsistencyLevel = zookeeperClient.exists(writeConsistencyPath) 
+				? WriteConsistencyLevel.fromString(zookeeperClient.readPathAndReturnString(writeConsistencyPath))
+				: WriteConsistencyLevel.ALL;
+
 		final DistributionGroupConfiguration configuration = new DistributionGroupConfiguration();
 		configuration.setPlacementStrategyConfig(placementConfig);
 		configuration.setPlacementStrategy(placementStrategy);
@@ -351,6 +361,7 @@ public class DistributionGroupAdapter {
 		configuration.setMaximumRegionSizeInMB(maxRegionSize);
 		configuration.setMinimumRegionSizeInMB(minRegionSize);
 		configuration.setDimensions(dimensions);
+		configuration.setWriteConsistencyLevel(writeConsistencyLevel);
 		
 		return configuration;
 	}
@@ -32,6 +32,7 @@ import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.membership.BBoxDBInstance;
 import org.bboxdb.distribution.partitioner.DistributionRegionState;
 import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.distribution.statistics.RegionStatistics;
 import org.bboxdb.misc.BBoxDBException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -481,8 +482,7 @@ public class DistributionRegionAdapter {
 		
 		logger.debug("Update region statistics for {} / {}", region.getDistributionGroupName(), system);
 	
-		final String path = getZookeeperPathForDistributionRegion(region) 
-				+ "/" + ZookeeperNodeNames.NAME_STATISTICS + "/" + system.getStringValue();
+		final String path = getStatisticsPath(region, system);
 		
 		zookeeperClient.createDirectoryStructureRecursive(path);
 		
@@ -492,7 +492,51 @@ public class DistributionRegionAdapter {
 		final String tuplePath = path + "/" + ZookeeperNodeNames.NAME_STATISTICS_TOTAL_TUPLES;
 		zookeeperClient.replacePersistentNode(tuplePath, Long.toString(tuple).getBytes());
 	}
+
 	
+	/**
+	 * Update the statistics of the regions in one multi operation. The statistics 
+	 * nodes of the regions have to exist.
+	 * 
+	 * @param statistics
+	 * @param system
+	 * @throws ZookeeperException
+	 */
+	public void updateRegionStatistics(final Map<DistributionRegion, RegionStatistics> statistics, 
+			final BBoxDBInstance system) throws ZookeeperException {
+		
+		if(system == null) {
+			throw new IllegalArgumentException("Unable to add system with value null");
+		}
+		
+		logger.debug("Update region statistics for {} regions / {}", statistics.size(), system);
+		
+		final Map<String, byte[]> values = new HashMap<>();
+		
+		for(final Map.Entry<DistributionRegion, RegionStatistics> entry : statistics.entrySet()) {
+			final String path = getStatisticsPath(entry.getKey(), system);
+			final RegionStatistics regionStatistics = entry.getValue();
+			
+			final String sizePath = path + "/" + ZookeeperNodeNames.NAME_STATISTICS_TOTAL_SIZE;
+			values.put(sizePath, Long.toString(regionStatistics.getSizeInMb()).getBytes());
+			
+			final String tuplePath = path + "/" + ZookeeperNodeNames.NAME_STATISTICS_TOTAL_TUPLES;
+			values.put(tuplePath, Long.toString(regionStatistics.getTuples()).getBytes());
+		}
+		
+		zookeeperClient.setDataMulti(values);
+	}
+
+	/**
+	 * Get the statistics path of the region for the system
+	 * @param region
+	 * @param system
+	 * @return
+	 */
+	private String getStatisticsPath(final DistributionRegion region, final BBoxDBInstance system) {
+		return getZookeeperPathForDistributionRegion(region) 
+				+ "/" + ZookeeperNodeNames.NAME_STATISTICS + "/" + system.getStringValue();
+	}	
 	/**
 	 * Get the statistics for a given region
 	 * @param region
@@ -23,6 +23,9 @@ import java.util.List;
 import org.apache.zookeeper.Watcher;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.compact.MergeStrategyType;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +55,26 @@ public class TupleStoreAdapter {
 	 * The duplicate ttl
 	 */
 	public static final String ZOOKEEPER_DUPLICATES_TTL = "duplicate_ttl";
+	
+	/**
+	 * The WAL sync policy
+	 */
+	public static final String ZOOKEEPER_WAL_SYNC_POLICY = "wal_sync_policy";
+	
+	/**
+	 * The WAL sync interval
+	 */
+	public static final String ZOOKEEPER_WAL_SYNC_INTERVAL = "wal_sync_interval";
+	
+	/**
+	 * The merge strategy
+	 */
+	public static final String ZOOKEEPER_MERGE_STRATEGY = "merge_strategy";
+	
+	/**
+	 * The compression
+	 */
+	public static final String ZOOKEEPER_COMPRESSION = "compression";
 
 	/**
 	 * The zookeeper client
@@ -108,6 +131,22 @@ public class TupleStoreAdapter {
 		zookeeperClient.createPersistentNode(getDuplicateVersionsPath(tupleStoreName), 
 				versionsString.getBytes());
 		
+		final String walSyncPolicy = tupleStoreConfiguration.getWalSyncPolicy().name();
+		zookeeperClient.createPersistentNode(getWalSyncPolicyPath(tupleStoreName), 
+				walSyncPolicy.getBytes());
+		
+		final String walSyncInterval = Long.toString(tupleStoreConfiguration.getWalSyncInterval());
+		zookeeperClient.createPersistentNode(getWalSyncIntervalPath(tupleStoreName), 
+				walSyncInterval.getBytes());
+		
+		final String mergeStrategy = tupleStoreConfiguration.getMergeStrategy().name();
+		zookeeperClient.createPersistentNode(getMergeStrategyPath(tupleStoreName), 
+				mergeStrategy.getBytes());
+		
+		final String compression = tupleStoreConfiguration.getCompression().name();
+		zookeeperClient.createPersistentNode(getCompressionPath(tupleStoreName), 
+				compression.getBytes());
+		
 		NodeMutationHelper.markNodeMutationAsComplete(zookeeperClient, tablePath);
 		
 		final String allTablesPath = getAllTablesPath(tupleStoreName.getDistributionGroup());
@@ -216,7 +255,34 @@ public class TupleStoreAdapter {
 			
 			final Integer duplicateVersionsInteger = Integer.parseInt(duplicateVersions);
 			tupleStoreConfiguration.setVersions(duplicateVersionsInteger);
-		} catch (ZookeeperNotFoundException | NumberFormatException e) {
+			
+			// Tables created by older versions have no WAL settings
+			final String walSyncPolicyPath = getWalSyncPolicyPath(tupleStoreName);
+			if(zookeeperClient.exists(walSyncPolicyPath)) {
+				final String walSyncPolicy = zookeeperClient.readPathAndReturnString(walSyncPolicyPath);
+				tupleStoreConfiguration.setWalSyncPolicy(WriteAheadLogSyncPolicy.valueOf(walSyncPolicy));
+			}
+			
+			final String walSyncIntervalPath = getWalSyncIntervalPath(tupleStoreName);
+			if(zookeeperClient.exists(walSyncIntervalPath)) {
+				final String walSyncInterval = zookeeperClient.readPathAndReturnString(walSyncIntervalPath);
+				tupleStoreConfiguration.setWalSyncInterval(Long.parseLong(walSyncInterval));
+			}
+			
+			// Tables created by older versions have no merge strategy
+			final String mergeStrategyPath = getMergeStrategyPath(tupleStoreName);
+			if(zookeeperClient.exists(mergeStrategyPath)) {
+				final String mergeStrategy = zookeeperClient.readPathAndReturnString(mergeStrategyPath);
+				tupleStoreConfiguration.setMergeStrategy(MergeStrategyType.valueOf(mergeStrategy));
+			}
+			
+			// Tables created by older versions have no compression
+			final String compressionPath = getCompressionPath(tupleStoreName);
+			if(zookeeperClient.exists(compressionPath)) {
+				final String compression = zookeeperClient.readPathAndReturnString(compressionPath);
+				tupleStoreConfiguration.setCompression(SSTableCompression.valueOf(compression));
+			}
+		} catch (ZookeeperNotFoundException | IllegalArgumentException e) {
 			throw new ZookeeperException(e);
 		}
 		
@@ -256,6 +322,46 @@ public class TupleStoreAdapter {
 		return tablePath + "/" + ZOOKEEPER_DUPLICATES_VERSIONS;
 	}
 
+	/**
+	 * The WAL sync policy path
+	 * @param tupleStoreName
+	 * @return
+	 */
+	private String getWalSyncPolicyPath(final TupleStoreName tupleStoreName) {
+		final String tablePath = getTablePath(tupleStoreName);
+		return tablePath + "/" + ZOOKEEPER_WAL_SYNC_POLICY;
+	}
+
+	/**
+	 * The WAL sync interval path
+	 * @param tupleStoreName
+	 * @return
+	 */
+	private String getWalSyncIntervalPath(final TupleStoreName tupleStoreName) {
+		final String tablePath = getTablePath(tupleStoreName);
+		return tablePath + "/" + ZOOKEEPER_WAL_SYNC_INTERVAL;
+	}
+
+	/**
+	 * The merge strategy path
+	 * @param tupleStoreName
+	 * @return
+	 */
+	private String getMergeStrategyPath(final TupleStoreName tupleStoreName) {
+		final String tablePath = getTablePath(tupleStoreName);
+		return tablePath + "/" + ZOOKEEPER_MERGE_STRATEGY;
+	}
+
+	/**
+	 * The compression path
+	 * @param tupleStoreName
+	 * @return
+	 */
+	private String getCompressionPath(final TupleStoreName tupleStoreName) {
+		final String tablePath = getTablePath(tupleStoreName);
+		return tablePath + "/" + ZOOKEEPER_COMPRESSION;
+	}
+
 	/**
 	 * The duplicates TTL path
 	 * @param tupleStoreName
@@ -19,6 +19,7 @@ package org.bboxdb.distribution.zookeeper;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +28,7 @@ import java.util.stream.Collectors;
 import org.apache.zookeeper.CreateMode;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.Code;
+import org.apache.zookeeper.Op;
 import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
 import org.apache.zookeeper.ZooDefs;
@@ -250,6 +252,33 @@ public class ZookeeperClient implements BBoxDBService, AcquirableResource {
 		}
 	}
 
+	/**
+	 * Write the given data to zookeeper in one multi operation. The 
+	 * nodes have to exist, otherwise no data is written.
+	 *
+	 * @param values
+	 * @throws ZookeeperException
+	 */
+	public void setDataMulti(final Map<String, byte[]> values) throws ZookeeperException {
+
+		if(values.isEmpty()) {
+			return;
+		}
+
+		final List<Op> operations = values.entrySet().stream()
+				.map(e -> Op.setData(e.getKey(), e.getValue(), -1))
+				.collect(Collectors.toList());
+
+		try {
+			zookeeper.multi(operations);
+		} catch (KeeperException e) {
+			throw new ZookeeperException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ZookeeperException(e);
+		}
+	}
+
 	/**
 	 * Read the data and the stat from the given path
 	 *
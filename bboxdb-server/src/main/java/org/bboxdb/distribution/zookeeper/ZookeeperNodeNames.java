@@ -124,6 +124,11 @@ public class ZookeeperNodeNames {
 	 */
 	public static final String NAME_MIN_REGION_SIZE = "minregionsize";
 	
+	/**
+	 * Name of the write consistency level node
+	 */
+	public static final String NAME_WRITE_CONSISTENCY = "writeconsistency";
+	
 	/**
 	 * The tables node name
 	 */
@@ -48,11 +48,26 @@ public class BBoxDBConfiguration {
 	 */
 	private int memtableFlushThreadsPerStorage = 2;
 	
+	/**
+	 * Number of compact threads per storage
+	 */
+	private int compactThreadsPerStorage = 2;
+	
+	/**
+	 * The max IO rate of the compact threads per storage in bytes per second (0 = unlimited)
+	 */
+	private long compactRateLimit = 0;
+	
 	/**
 	 * The classname of the spatial index builder
 	 */
 	private String storageSpatialIndexBuilder = "org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder";
 	
+	/**
+	 * The classname of the spatial index builder for SSTables
+	 */
+	private String storageSSTableSpatialIndexBuilder = "org.bboxdb.storage.sstable.spatialindex.rtree.STRTreeBuilder";
+	
 	/**
 	 * The classname of the spatial index reader
 	 */
@@ -74,9 +89,14 @@ public class BBoxDBConfiguration {
 	private int networkListenPort = 50505;
 
 	/**
-	 *  The amount of threads to handle client connections
+	 *  The amount of threads to handle the requests of all client connections
 	 */
-	private int networkConnectionThreads = 25;
+	private int networkConnectionThreads = 100;
+	
+	/**
+	 * The number of threads to evaluate the continuous queries
+	 */
+	private int continuousQueryThreads = 4;
 	
 	/**
 	 * The name of the cluster
@@ -98,6 +118,11 @@ public class BBoxDBConfiguration {
 	 */
 	private int sstableKeyCacheEntries = 1000;
 	
+	/**
+	 * The size of the cache for decompressed SSTable blocks in bytes
+	 */
+	private long sstableBlockCacheSize = 64 * 1024 * 1024;
+	
 	/**
 	 * The port where the performance counter will be exposed
 	 */
@@ -148,6 +173,14 @@ public class BBoxDBConfiguration {
 		this.networkConnectionThreads = networkConnectionThreads;
 	}
 
+	public int getContinuousQueryThreads() {
+		return continuousQueryThreads;
+	}
+
+	public void setContinuousQueryThreads(final int continuousQueryThreads) {
+		this.continuousQueryThreads = continuousQueryThreads;
+	}
+
 	public String getClustername() {
 		return clustername;
 	}
@@ -196,6 +229,22 @@ public class BBoxDBConfiguration {
 		this.memtableFlushThreadsPerStorage = memtableFlushThreadsPerStorage;
 	}
 
+	public int getCompactThreadsPerStorage() {
+		return compactThreadsPerStorage;
+	}
+
+	public void setCompactThreadsPerStorage(final int compactThreadsPerStorage) {
+		this.compactThreadsPerStorage = compactThreadsPerStorage;
+	}
+
+	public long getCompactRateLimit() {
+		return compactRateLimit;
+	}
+
+	public void setCompactRateLimit(final long compactRateLimit) {
+		this.compactRateLimit = compactRateLimit;
+	}
+
 	public String getStorageSpatialIndexBuilder() {
 		return storageSpatialIndexBuilder;
 	}
@@ -204,6 +253,14 @@ public class BBoxDBConfiguration {
 		this.storageSpatialIndexBuilder = storageSpatialIndexBuilder;
 	}
 
+	public String getStorageSSTableSpatialIndexBuilder() {
+		return storageSSTableSpatialIndexBuilder;
+	}
+
+	public void setStorageSSTableSpatialIndexBuilder(final String storageSSTableSpatialIndexBuilder) {
+		this.storageSSTableSpatialIndexBuilder = storageSSTableSpatialIndexBuilder;
+	}
+
 	public String getStorageSpatialIndexReader() {
 		return storageSpatialIndexReader;
 	}
@@ -220,6 +277,14 @@ public class BBoxDBConfiguration {
 		this.sstableKeyCacheEntries = sstableKeyCacheEntries;
 	}
 
+	public long getSstableBlockCacheSize() {
+		return sstableBlockCacheSize;
+	}
+
+	public void setSstableBlockCacheSize(final long sstableBlockCacheSize) {
+		this.sstableBlockCacheSize = sstableBlockCacheSize;
+	}
+
 	public int getPerformanceCounterPort() {
 		return performanceCounterPort;
 	}
@@ -94,6 +94,21 @@ public class NetworkConst {
 	 */
 	public static final short REQUEST_TYPE_CANCEL_QUERY = 0x13;
 	
+	/**
+	 * Request type insert tuples (batch)
+	 */
+	public static final short REQUEST_TYPE_INSERT_TUPLES = 0x14;
+	
+	/**
+	 * Request type transfer sstable
+	 */
+	public static final short REQUEST_TYPE_TRANSFER_SSTABLE = 0x15;
+	
+	/**
+	 * Request type adopt transferred sstables
+	 */
+	public static final short REQUEST_TYPE_ADOPT_SSTABLES = 0x16;
+	
 	/**
 	 * Query type key
 	 */
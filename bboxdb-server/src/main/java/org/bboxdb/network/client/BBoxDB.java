@@ -19,6 +19,7 @@ package org.bboxdb.network.client;
 
 import java.io.Closeable;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.BBoxDBException;
@@ -69,6 +70,14 @@ public interface BBoxDB extends Closeable {
 	 * @return
 	 */
 	public EmptyResultFuture insertTuple(final String table, final Tuple tuple) throws BBoxDBException;
+	
+	/**
+	 * Insert a batch of tuples into the given table
+	 * @param table
+	 * @param tuples
+	 * @return
+	 */
+	public EmptyResultFuture insertTuples(final String table, final List<Tuple> tuples) throws BBoxDBException;
 
 	/**
 	 * Lock tuple
@@ -230,4 +239,77 @@ public interface BBoxDB extends Closeable {
 	 */
 	public void setTuplesPerPage(final short tuplesPerPage);
 
+	/**
+	 * Insert a new tuple into the given table (non-blocking version). 
+	 * 
+	 * The returned future is completed by the thread that reads the server 
+	 * responses, so dependent actions that are not executed asynchronously 
+	 * must not block. A failed operation completes the future exceptionally.
+	 * 
+	 * @param table
+	 * @param tuple
+	 * @return
+	 */
+	public default CompletableFuture<EmptyResultFuture> insertTupleAsync(final String table, 
+			final Tuple tuple) {
+		
+		return BBoxDBClientHelper.executeAsync(() -> insertTuple(table, tuple));
+	}
+
+	/**
+	 * Insert a batch of tuples into the given table (non-blocking version)
+	 * @param table
+	 * @param tuples
+	 * @return
+	 */
+	public default CompletableFuture<EmptyResultFuture> insertTuplesAsync(final String table, 
+			final List<Tuple> tuples) {
+		
+		return BBoxDBClientHelper.executeAsync(() -> insertTuples(table, tuples));
+	}
+
+	/**
+	 * Delete the given key from a table (non-blocking version)
+	 * @param table
+	 * @param key
+	 * @return
+	 */
+	public default CompletableFuture<EmptyResultFuture> deleteTupleAsync(final String table, 
+			final String key) {
+		
+		return BBoxDBClientHelper.executeAsync(() -> deleteTuple(table, key));
+	}
+
+	/**
+	 * Query the given table for a specific key (non-blocking version). 
+	 * 
+	 * The future is completed when the first page of each result is received. 
+	 * Iterating over a paged result requests the next pages and blocks, so it 
+	 * has to be done in a asynchronous action (e.g., thenAcceptAsync). 
+	 * 
+	 * @param table
+	 * @param key
+	 * @return
+	 */
+	public default CompletableFuture<TupleListFuture> queryKeyAsync(final String table, 
+			final String key) {
+		
+		return BBoxDBClientHelper.executeAsync(() -> queryKey(table, key));
+	}
+
+	/**
+	 * Execute a hyperrectangle query on the given table (non-blocking version)
+	 * @param table - The table to query
+	 * @param boundingBox - The bounding box to query
+	 * @param filtername - The custom filter to apply
+	 * @param customValue - The custom value for the filter 
+	 * @return
+	 */
+	public default CompletableFuture<TupleListFuture> queryRectangleAsync(final String table, 
+			final Hyperrectangle boundingBox, final String filterName, final byte[] customValue) {
+		
+		return BBoxDBClientHelper.executeAsync(() -> queryRectangle(table, boundingBox, 
+				filterName, customValue));
+	}
+
 }
\ No newline at end of file
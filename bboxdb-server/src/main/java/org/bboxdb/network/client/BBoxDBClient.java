@@ -39,6 +39,8 @@ import org.bboxdb.network.client.future.client.TupleListFuture;
 import org.bboxdb.network.client.future.network.NetworkOperationFuture;
 import org.bboxdb.network.client.future.network.NetworkOperationFutureImpl;
 import org.bboxdb.network.packages.NetworkRequestPackage;
+import org.bboxdb.network.packages.request.AdoptSSTablesOperation;
+import org.bboxdb.network.packages.request.AdoptSSTablesRequest;
 import org.bboxdb.network.packages.request.CancelRequest;
 import org.bboxdb.network.packages.request.CreateDistributionGroupRequest;
 import org.bboxdb.network.packages.request.CreateTableRequest;
@@ -46,6 +48,7 @@ import org.bboxdb.network.packages.request.DeleteDistributionGroupRequest;
 import org.bboxdb.network.packages.request.DeleteTableRequest;
 import org.bboxdb.network.packages.request.InsertOption;
 import org.bboxdb.network.packages.request.InsertTupleRequest;
+import org.bboxdb.network.packages.request.InsertTuplesRequest;
 import org.bboxdb.network.packages.request.KeepAliveRequest;
 import org.bboxdb.network.packages.request.LockTupleRequest;
 import org.bboxdb.network.packages.request.NextPageRequest;
@@ -56,6 +59,7 @@ import org.bboxdb.network.packages.request.QueryInsertTimeRequest;
 import org.bboxdb.network.packages.request.QueryJoinRequest;
 import org.bboxdb.network.packages.request.QueryKeyRequest;
 import org.bboxdb.network.packages.request.QueryVersionTimeRequest;
+import org.bboxdb.network.packages.request.TransferSSTableRequest;
 import org.bboxdb.network.query.ContinuousQueryPlan;
 import org.bboxdb.network.routing.RoutingHeader;
 import org.bboxdb.storage.entity.DeletedTuple;
@@ -63,8 +67,11 @@ import org.bboxdb.storage.entity.DistributionGroupConfiguration;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableFileType;
 import org.bboxdb.storage.sstable.duplicateresolver.DoNothingDuplicateResolver;
+import org.bboxdb.storage.sstable.transfer.SSTableTransfer;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.bboxdb.storage.util.TupleHelper;
 
 public class BBoxDBClient implements BBoxDB {
 
@@ -83,6 +90,11 @@ public class BBoxDBClient implements BBoxDB {
 	 */
 	private short tuplesPerPage;
 
+	/**
+	 * The amount of pages that are requested ahead (the credit of a query)
+	 */
+	private int prefetchPages;
+
 	/**
 	 * The tuple store manager registry (used for gossip)
 	 */
@@ -92,6 +104,7 @@ public class BBoxDBClient implements BBoxDB {
 		this.connection = Objects.requireNonNull(connection);
 		this.pagingEnabled = true;
 		this.tuplesPerPage = 50;
+		this.prefetchPages = 4;
 	}
 
 	/* (non-Javadoc)
@@ -166,6 +179,23 @@ public class BBoxDBClient implements BBoxDB {
 		return new EmptyResultFuture(future);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.bboxdb.network.client.BBoxDB#insertTuples(java.lang.String, java.util.List)
+	 */
+	@Override
+	public EmptyResultFuture insertTuples(final String table, final List<Tuple> tuples) throws BBoxDBException {
+
+		final Hyperrectangle boundingBox = TupleHelper.getCoveringBox(tuples);
+		
+		final RoutingHeader routingHeader = RoutingHeaderHelper.getRoutingHeaderForLocalSystemWriteNE(
+				table, boundingBox, false, connection.getServerAddress());
+		
+		final Supplier<List<NetworkOperationFuture>> future = 
+				getInsertTuplesFuture(table, tuples, routingHeader, EnumSet.noneOf(InsertOption.class));
+
+		return new EmptyResultFuture(future);
+	}
+
 	@Override
 	public EmptyResultFuture lockTuple(final String table, final Tuple tuple,
 			final boolean deleteOnTimeout) throws BBoxDBException {
@@ -224,6 +254,102 @@ public class BBoxDBClient implements BBoxDB {
 		return () -> Arrays.asList(new NetworkOperationFutureImpl(connection, packageSupplier));
 	}
 
+	/**
+	 * @param table
+	 * @param tuples
+	 * @param routingHeader
+	 * @param insertOptions
+	 * @return
+	 */
+	public Supplier<List<NetworkOperationFuture>> getInsertTuplesFuture(final String table, 
+			final List<Tuple> tuples, final RoutingHeader routingHeader, 
+			final EnumSet<InsertOption> insertOptions) {
+
+		final Supplier<NetworkRequestPackage> packageSupplier = () -> {
+			final TupleStoreName ssTableName = new TupleStoreName(table);
+			final short sequenceNumber = connection.getNextSequenceNumber();
+
+			return new InsertTuplesRequest(sequenceNumber, routingHeader, ssTableName, tuples, insertOptions);
+		};
+
+		return () -> Arrays.asList(new NetworkOperationFutureImpl(connection, packageSupplier));
+	}
+
+	/**
+	 * Transfer a chunk of a SSTable file. The message of the future contains the 
+	 * amount of bytes of the file that are received by the server.
+	 * 
+	 * @param table
+	 * @param transferId
+	 * @param fileType
+	 * @param offset
+	 * @param fileLength
+	 * @param checksum
+	 * @param data
+	 * @return
+	 */
+	public EmptyResultFuture transferSSTableChunk(final TupleStoreName table, final String transferId, 
+			final SSTableFileType fileType, final long offset, final long fileLength, 
+			final long checksum, final byte[] data) {
+		
+		final NetworkOperationFuture future = new NetworkOperationFutureImpl(connection, () -> {
+			final short sequenceNumber = connection.getNextSequenceNumber();
+			return TransferSSTableRequest.createChunkRequest(sequenceNumber, table, transferId, 
+					fileType, offset, fileLength, checksum, data);
+		});
+		
+		return new EmptyResultFuture(() -> Arrays.asList(future), FutureRetryPolicy.RETRY_POLICY_NONE);
+	}
+	
+	/**
+	 * Commit a SSTable transfer
+	 * 
+	 * @param table
+	 * @param transferId
+	 * @return
+	 */
+	public EmptyResultFuture commitSSTableTransfer(final TupleStoreName table, final String transferId) {
+		
+		final NetworkOperationFuture future = new NetworkOperationFutureImpl(connection, () -> {
+			final short sequenceNumber = connection.getNextSequenceNumber();
+			return TransferSSTableRequest.createCommitRequest(sequenceNumber, table, transferId);
+		});
+		
+		return new EmptyResultFuture(() -> Arrays.asList(future));
+	}
+
+	/**
+	 * Adopt the transferred SSTables. The server adopts either all or none of 
+	 * the SSTables.
+	 * 
+	 * @param transfers
+	 * @return
+	 */
+	public EmptyResultFuture adoptSSTables(final List<SSTableTransfer> transfers) {
+		return adoptSSTables(AdoptSSTablesOperation.COMMIT, transfers);
+	}
+	
+	/**
+	 * Execute the operation on the transferred SSTables. The SSTables of 
+	 * several systems are adopted by preparing the transfers on all systems 
+	 * before they are committed. The transfers are aborted or the adopted 
+	 * SSTables are rolled back when one of the systems fails.
+	 * 
+	 * @param operation
+	 * @param transfers
+	 * @return
+	 */
+	public EmptyResultFuture adoptSSTables(final AdoptSSTablesOperation operation, 
+			final List<SSTableTransfer> transfers) {
+		
+		final NetworkOperationFuture future = new NetworkOperationFutureImpl(connection, () -> {
+			final short sequenceNumber = connection.getNextSequenceNumber();
+			return new AdoptSSTablesRequest(sequenceNumber, operation, transfers);
+		});
+		
+		return new EmptyResultFuture(() -> Arrays.asList(future));
+	}
+
 	/* (non-Javadoc)
 	 * @see org.bboxdb.network.client.BBoxDB#deleteTuple(java.lang.String, java.lang.String)
 	 */
@@ -698,6 +824,29 @@ public class BBoxDBClient implements BBoxDB {
 		this.tuplesPerPage = tuplesPerPage;
 	}
 
+	/**
+	 * Get the amount of pages that are requested ahead
+	 * @return
+	 */
+	public int getPrefetchPages() {
+		return prefetchPages;
+	}
+
+	/**
+	 * Set the amount of pages that are requested ahead. The pages are 
+	 * requested before the current page is consumed, so the result is
+	 * transferred without waiting a round-trip per page.
+	 * 
+	 * @param prefetchPages
+	 */
+	public void setPrefetchPages(final int prefetchPages) {
+		if(prefetchPages < 1) {
+			throw new IllegalArgumentException("At least one page has to be requested: " + prefetchPages);
+		}
+		
+		this.prefetchPages = prefetchPages;
+	}
+
 	@Override
 	public boolean connect() {
 		return connection.connect();
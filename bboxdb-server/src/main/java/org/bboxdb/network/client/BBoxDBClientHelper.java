@@ -17,9 +17,12 @@
  *******************************************************************************/
 package org.bboxdb.network.client;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.client.future.client.AbstractListFuture;
 import org.bboxdb.network.client.future.client.EmptyResultFuture;
+import org.bboxdb.network.client.future.client.OperationFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -30,6 +33,39 @@ public class BBoxDBClientHelper {
 	 */
 	private final static Logger logger = LoggerFactory.getLogger(BBoxDBClientHelper.class);
 
+	/**
+	 * A client operation that returns a operation future
+	 */
+	@FunctionalInterface
+	public interface ClientOperation<T extends OperationFuture> {
+		public T execute() throws BBoxDBException;
+	}
+
+	/**
+	 * Execute the operation and return a completable future that is completed 
+	 * with the operation future as soon as the operation is done
+	 * 
+	 * @param operation
+	 * @return
+	 */
+	public static <T extends OperationFuture> CompletableFuture<T> executeAsync(
+			final ClientOperation<T> operation) {
+
+		try {
+			final T future = operation.execute();
+
+			if(future == null) {
+				throw new BBoxDBException("Operation returned no future");
+			}
+
+			return future.getCompletableFuture().thenApply(v -> future);
+		} catch (BBoxDBException e) {
+			final CompletableFuture<T> failedFuture = new CompletableFuture<>();
+			failedFuture.completeExceptionally(e);
+			return failedFuture;
+		}
+	}
+
 	/**
 	 * Cancel a complete query
 	 * @param future
@@ -46,6 +46,7 @@ import org.bboxdb.network.client.future.client.JoinedTupleListFuture;
 import org.bboxdb.network.client.future.client.TupleListFuture;
 import org.bboxdb.network.client.future.network.NetworkOperationFuture;
 import org.bboxdb.network.client.tools.AbtractClusterFutureBuilder;
+import org.bboxdb.network.client.tools.BatchInsertFutureBuilder;
 import org.bboxdb.network.client.tools.ClusterOperationType;
 import org.bboxdb.network.packages.request.InsertOption;
 import org.bboxdb.network.query.ContinuousQueryPlan;
@@ -195,6 +196,16 @@ public class BBoxDBCluster implements BBoxDB {
 		return executeInsert(table, tuple, bbox, EnumSet.noneOf(InsertOption.class));
 	}
 	
+	@Override
+	public EmptyResultFuture insertTuples(final String table, final List<Tuple> tuples) 
+			throws BBoxDBException {
+		
+		final BatchInsertFutureBuilder builder = new BatchInsertFutureBuilder(table, tuples, 
+				EnumSet.noneOf(InsertOption.class));
+		
+		return new EmptyResultFuture(builder.getSupplier());
+	}
+	
 	/**
 	 * Execute a tuple insert
 	 * @param table
@@ -207,7 +218,7 @@ public class BBoxDBCluster implements BBoxDB {
 			final Hyperrectangle boundingBox, final EnumSet<InsertOption> insertOptions) throws BBoxDBException {
 		
 		final AbtractClusterFutureBuilder builder = new AbtractClusterFutureBuilder(
-				ClusterOperationType.WRITE_TO_NODES, table, boundingBox) {
+				ClusterOperationType.WRITE_TO_NODES_COORDINATED, table, boundingBox) {
 
 			@Override
 			protected Supplier<List<NetworkOperationFuture>> buildFuture(final BBoxDBConnection connection,
@@ -240,7 +251,7 @@ public class BBoxDBCluster implements BBoxDB {
 		final DeletedTuple tuple = new DeletedTuple(key, timestamp);
 
 		final AbtractClusterFutureBuilder builder = new AbtractClusterFutureBuilder(
-				ClusterOperationType.WRITE_TO_NODES, table, Hyperrectangle.FULL_SPACE) {
+				ClusterOperationType.WRITE_TO_NODES_COORDINATED, table, Hyperrectangle.FULL_SPACE) {
 
 			@Override
 			protected Supplier<List<NetworkOperationFuture>> buildFuture(final BBoxDBConnection connection,
@@ -17,6 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.network.client.future.client;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -104,4 +105,15 @@ public interface OperationFuture {
 	 */
 	public int getNeededExecutions();
 
+	/**
+	 * Get a completable future that is completed when the operation is done. A 
+	 * failed operation completes the future exceptionally with a BBoxDBException.
+	 * 
+	 * The future is completed by the thread that reads the server responses, so 
+	 * dependent actions that are not executed asynchronously must not block.
+	 * 
+	 * @return
+	 */
+	public CompletableFuture<Void> getCompletableFuture();
+
 }
\ No newline at end of file
@@ -18,6 +18,7 @@
 package org.bboxdb.network.client.future.client;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -26,6 +27,7 @@ import java.util.concurrent.TimeoutException;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.client.BBoxDBClient;
 import org.bboxdb.network.client.BBoxDBConnection;
 import org.bboxdb.network.client.future.network.NetworkOperationFuture;
@@ -52,13 +54,18 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 	/**
 	 * The default retry policy
 	 */
-	private FutureRetryPolicy retryPolicy;
+	private volatile FutureRetryPolicy retryPolicy;
 
 	/**
 	 * The ready latch
 	 */
 	protected final CountDownLatch readyLatch = new CountDownLatch(1);
 
+	/**
+	 * The completable future, completed together with the ready latch
+	 */
+	protected final CompletableFuture<Void> completableFuture = new CompletableFuture<>();
+
 	/**
 	 * The retry counter
 	 * 
@@ -124,9 +131,36 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 
 		if (allDone) {
 			readyLatch.countDown();
+			completeCompletableFuture();
+		}
+	}
+
+	/**
+	 * Complete the completable future, the future is only completed once
+	 */
+	private void completeCompletableFuture() {
+		if (completableFuture.isDone()) {
+			return;
+		}
+
+		if (isFailed()) {
+			completableFuture.completeExceptionally(
+					new BBoxDBException("Operation has failed: " + getAllMessages()));
+		} else {
+			completableFuture.complete(null);
 		}
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.bboxdb.network.client.future.OperationFuture#getCompletableFuture()
+	 */
+	@Override
+	public CompletableFuture<Void> getCompletableFuture() {
+		return completableFuture;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -362,6 +396,11 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 				return;
 			}
 			
+			if(retryPolicy == FutureRetryPolicy.RETRY_POLICY_NONE) {
+				finishFailedFuture(future);
+				return;
+			}
+			
 			cancelOldFuture(future);
 			future.execute();
 		};
@@ -395,6 +434,14 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 				return;
 			}
 			
+			if(retryPolicy == FutureRetryPolicy.RETRY_POLICY_NONE) {
+				synchronized (this) {
+					globalRetryCounter--;
+				}
+				finishFailedFuture(future);
+				return;
+			}
+			
 			cancelAllFutures();
 			execute();
 		};
@@ -407,6 +454,18 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 		return true;
 	}
 
+	/**
+	 * The retry policy might be changed after the failed future was received
+	 * (e.g., the policy is set after the request is sent). The future is 
+	 * finished as failed in this case.
+	 * 
+	 * @param future
+	 */
+	private void finishFailedFuture(final NetworkOperationFuture future) {
+		future.setFailedState();
+		future.fireCompleteEvent();
+	}
+
 	/**
 	 * Get the number of needed executions
 	 * 
@@ -17,12 +17,17 @@
  *******************************************************************************/
 package org.bboxdb.network.client.future.client.helper;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 
 import org.bboxdb.network.client.BBoxDBClient;
 import org.bboxdb.network.client.BBoxDBConnection;
@@ -33,6 +38,8 @@ import org.bboxdb.storage.util.EntityDuplicateTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 public abstract class AbstractTheadedListFutureIterator<T extends PagedTransferableEntity> implements CloseableIterator<T>{
 
 	/**
@@ -74,9 +81,14 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 	protected final AbstractListFuture<T> abstractLisFuture;
 
 	/**
-	 * The executor pool
+	 * The executor pool, shared by all iterators of the client
+	 */
+	protected final static ExecutorService executor;
+
+	/**
+	 * The running producers of this iterator
 	 */
-	protected final ExecutorService executor = Executors.newCachedThreadPool();
+	protected final List<Future<?>> producers = new ArrayList<>();
 
 	/**
 	 * The tuple duplicate remover
@@ -88,6 +100,14 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 	 */
 	private final static Logger logger = LoggerFactory.getLogger(ThreadedTupleListFutureIterator.class);
 
+	static {
+		final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+				.setNameFormat("Result producer thread %d")
+				.setDaemon(true)
+				.build();
+
+		executor = Executors.newCachedThreadPool(threadFactory);
+	}
 
 	public AbstractTheadedListFutureIterator(final AbstractListFuture<T> abstractListFuture) {
 		this.abstractLisFuture = abstractListFuture;
@@ -154,26 +174,38 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 				final short queryRequestId = abstractLisFuture.getRequestId(resultId);
 				final BBoxDBClient bbBoxDBClient = bboxdbConnection.getBboxDBClient();
 
-				AbstractListFuture<T> nextPage = null;
-				do {
-					 nextPage = (AbstractListFuture<T>) bbBoxDBClient.getNextPage(queryRequestId);
+				// The requested but not consumed pages, the server produces these pages
+				// while the current page is transferred
+				final int prefetchPages = bbBoxDBClient.getPrefetchPages();
+				final Deque<AbstractListFuture<T>> requestedPages = new ArrayDeque<>();
+
+				while(true) {
+					while(requestedPages.size() < prefetchPages) {
+						requestedPages.add((AbstractListFuture<T>) bbBoxDBClient.getNextPage(queryRequestId));
+					}
+
+					final AbstractListFuture<T> nextPage = requestedPages.remove();
 
-					 nextPage.waitForCompletion();
+					nextPage.waitForCompletion();
 
-					 if(nextPage.isFailed()) {
-						 logger.error("Requesting next page failed! Query result is incomplete: {}", nextPage.getAllMessages());
-						 return;
-					 }
+					if(nextPage.isFailed()) {
+						logger.error("Requesting next page failed! Query result is incomplete: {}", nextPage.getAllMessages());
+						return;
+					}
 
-					 // Query is send to one server, so the number of
-					 // result objects should be 1
-					 if(nextPage.getNumberOfResultObjets() != 1) {
-						 logger.error("Got a non expected number of result objects {}", nextPage.getNumberOfResultObjets());
-					 }
+					// Query is send to one server, so the number of
+					// result objects should be 1
+					if(nextPage.getNumberOfResultObjets() != 1) {
+						logger.error("Got a non expected number of result objects {}", nextPage.getNumberOfResultObjets());
+					}
 
-					 addTupleListToQueue(nextPage.get(0));
+					addTupleListToQueue(nextPage.get(0));
 
-				} while(! nextPage.isCompleteResult(0));
+					// The remaining requested pages are answered as empty pages by the server
+					if(nextPage.isCompleteResult(0)) {
+						return;
+					}
+				}
 			}
 
 			/**
@@ -200,7 +232,9 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 			}
 		};
 
-		executor.submit(producer);
+		synchronized (producers) {
+			producers.add(executor.submit(producer));
+		}
 	}
 
 	@Override
@@ -255,7 +289,12 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 	@Override
 	public void close() throws Exception {
 		logger.trace("Close called on iterator");
-		executor.shutdown();
+
+		// Stop the producers that are waiting for free space in the queue
+		synchronized (producers) {
+			producers.forEach(p -> p.cancel(true));
+			producers.clear();
+		}
 	}
 
 	@Override
@@ -19,6 +19,7 @@ package org.bboxdb.network.client.tools;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -78,6 +79,8 @@ public abstract class AbtractClusterFutureBuilder {
 		
 		if(clusterOperationType == ClusterOperationType.READ_FROM_NODES_HA_IF_REPLICATED) {
 			return getReplicatedSupplier();
+		} else if(clusterOperationType == ClusterOperationType.WRITE_TO_NODES_COORDINATED) {
+			return getCoordinatedSupplier();
 		} else {
 			return getUnreplicatedSupplier();
 		}
@@ -171,6 +174,51 @@ public abstract class AbtractClusterFutureBuilder {
 		return supplier;
 	}
 	
+	/**
+	 * Get the coordinated supplier
+	 * The operation is sent to one node, which forwards it to all other 
+	 * nodes in parallel and answers according to the write consistency 
+	 * level of the distribution group
+	 * 
+	 * @return
+	 */
+	private Supplier<List<NetworkOperationFuture>> getCoordinatedSupplier() {
+		final Supplier<List<NetworkOperationFuture>> supplier = () -> {
+			
+			final List<RoutingHop> hops = RoutingHopHelper.getRoutingHopsForWrite(distributionRegion, boundingBox);
+			
+			if(hops.isEmpty()) {
+				logger.error("Got empty hop list by bbox {} read {}", boundingBox, clusterOperationType);
+				return new ArrayList<>();
+			}
+			
+			// Use the first reachable node as coordinator
+			for(int i = 0; i < hops.size(); i++) {
+				final BBoxDBInstance instance = hops.get(i).getDistributedInstance();
+				
+				final BBoxDBConnection connection
+					= membershipConnectionService.getConnectionForInstance(instance);
+				
+				if(connection == null) {
+					logger.debug("Skipping connection for {}", instance.getInetSocketAddress());
+					continue;
+				}
+				
+				final List<RoutingHop> routingList = new ArrayList<>(hops);
+				Collections.swap(routingList, 0, i);
+				
+				final RoutingHeader routingHeader = new RoutingHeader((short) 0, routingList);
+
+				return buildFuture(connection, routingHeader).get();
+			}
+			
+			// No node is reachable
+			return getUnreplicatedSupplier().get();
+		};
+		
+		return supplier;
+	}
+	
 	/**
 	 * Build the future
 	 * @param routingHeader 
@@ -189,6 +237,7 @@ public abstract class AbtractClusterFutureBuilder {
 			case READ_FROM_NODES:
 				return RoutingHopHelper.getRoutingHopsForRead(distributionRegion, boundingBox);
 			case WRITE_TO_NODES:
+			case WRITE_TO_NODES_COORDINATED:
 				return RoutingHopHelper.getRoutingHopsForWrite(distributionRegion, boundingBox);
 			default:
 				throw new IllegalArgumentException("Unknown type: " + clusterOperationType);
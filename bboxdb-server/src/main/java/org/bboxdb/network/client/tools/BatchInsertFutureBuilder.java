@@ -0,0 +1,231 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.client.tools;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.bboxdb.distribution.membership.BBoxDBInstance;
+import org.bboxdb.distribution.membership.MembershipConnectionService;
+import org.bboxdb.distribution.partitioner.SpacePartitionerHelper;
+import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.client.BBoxDBConnection;
+import org.bboxdb.network.client.future.network.NetworkOperationFuture;
+import org.bboxdb.network.packages.request.InsertOption;
+import org.bboxdb.network.routing.RoutingHeader;
+import org.bboxdb.network.routing.RoutingHop;
+import org.bboxdb.network.routing.RoutingHopHelper;
+import org.bboxdb.storage.entity.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class BatchInsertFutureBuilder {
+	
+	/**
+	 * The table
+	 */
+	private final String table;
+	
+	/**
+	 * The tuples to insert
+	 */
+	private final List<Tuple> tuples;
+	
+	/**
+	 * The insert options
+	 */
+	private final EnumSet<InsertOption> insertOptions;
+	
+	/**
+	 * The distribution region
+	 */
+	private final DistributionRegion distributionRegion;
+	
+	/**
+	 * The membership connection service
+	 */
+	private final MembershipConnectionService membershipConnectionService;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(BatchInsertFutureBuilder.class);
+
+	public BatchInsertFutureBuilder(final String table, final List<Tuple> tuples, 
+			final EnumSet<InsertOption> insertOptions) throws BBoxDBException {
+		
+		this.table = table;
+		this.tuples = tuples;
+		this.insertOptions = insertOptions;
+		this.distributionRegion = SpacePartitionerHelper.getRootNode(table);
+		this.membershipConnectionService = MembershipConnectionService.getInstance();
+	}
+	
+	/**
+	 * Get the supplier. The tuples are grouped by the nodes that need to store 
+	 * them and one insert package is sent per group. The package is sent to one 
+	 * node of the group, which forwards it to the other nodes.
+	 * 
+	 * @return
+	 */
+	public Supplier<List<NetworkOperationFuture>> getSupplier() {
+		
+		final Supplier<List<NetworkOperationFuture>> supplier = () -> {
+			
+			final List<NetworkOperationFuture> futures = new ArrayList<>();
+			
+			final Map<String, BatchGroup> groups = groupTuplesByHops();
+			
+			for(final BatchGroup group : groups.values()) {
+				final List<RoutingHop> hops = new ArrayList<>(group.hops.values());
+				futures.addAll(buildFuture(hops, group.tuples));
+			}
+			
+			return futures;
+		};
+		
+		return supplier;
+	}
+	
+	/**
+	 * Group the tuples by the nodes that need to store them
+	 * @return
+	 */
+	private Map<String, BatchGroup> groupTuplesByHops() {
+		final Map<String, BatchGroup> groups = new HashMap<>();
+
+		for(final Tuple tuple : tuples) {
+			final List<RoutingHop> hops = RoutingHopHelper.getRoutingHopsForWrite(
+					distributionRegion, tuple.getBoundingBox());
+			
+			if(hops.isEmpty()) {
+				logger.error("Got empty hop list by bbox {}", tuple.getBoundingBox());
+				continue;
+			}
+			
+			final String groupKey = hops.stream()
+					.map(h -> h.getDistributedInstance().getStringValue())
+					.sorted()
+					.collect(Collectors.joining(RoutingHeader.SEPARATOR_CHAR_HOST));
+			
+			final BatchGroup group = groups.computeIfAbsent(groupKey, (k) -> new BatchGroup());
+			group.tuples.add(tuple);
+			
+			// Merge the regions of the hops
+			for(final RoutingHop hop : hops) {
+				final BBoxDBInstance instance = hop.getDistributedInstance();
+				
+				final RoutingHop groupHop = group.hops.computeIfAbsent(instance.getInetSocketAddress(), 
+						(i) -> new RoutingHop(instance, new ArrayList<>()));
+				
+				hop.getDistributionRegions().stream()
+					.filter(r -> ! groupHop.getDistributionRegions().contains(r))
+					.forEach(r -> groupHop.addRegion(r));
+			}
+		}
+		
+		return groups;
+	}
+
+	/**
+	 * Build the future for one group, the first reachable node is the coordinator.
+	 * When no node of the group is reachable, the future of the group fails.
+	 * 
+	 * @param hops
+	 * @param groupTuples
+	 * @return
+	 */
+	private List<NetworkOperationFuture> buildFuture(final List<RoutingHop> hops, 
+			final List<Tuple> groupTuples) {
+		
+		for(int i = 0; i < hops.size(); i++) {
+			final BBoxDBInstance instance = hops.get(i).getDistributedInstance();
+			
+			final BBoxDBConnection connection 
+				= membershipConnectionService.getConnectionForInstance(instance);
+			
+			if(connection == null) {
+				logger.debug("Skipping connection for {}", instance.getInetSocketAddress());
+				continue;
+			}
+			
+			final List<RoutingHop> routingList = new ArrayList<>(hops);
+			Collections.swap(routingList, 0, i);
+			
+			final RoutingHeader routingHeader = new RoutingHeader((short) 0, routingList);
+			
+			return connection.getBboxDBClient()
+					.getInsertTuplesFuture(table, groupTuples, routingHeader, insertOptions).get();
+		}
+		
+		return buildFailedFuture(hops, groupTuples);
+	}
+	
+	/**
+	 * Build the future for a group without a reachable node. The future is 
+	 * bound to a connection that is not connected, so it fails on execution.
+	 * 
+	 * @param hops
+	 * @param groupTuples
+	 * @return
+	 */
+	private List<NetworkOperationFuture> buildFailedFuture(final List<RoutingHop> hops, 
+			final List<Tuple> groupTuples) {
+		
+		final String instances = hops.stream()
+				.map(h -> h.getDistributedInstance().getStringValue())
+				.collect(Collectors.joining(RoutingHeader.SEPARATOR_CHAR_HOST));
+		
+		logger.error("No connection to any of the nodes {}, unable to insert {} tuples", 
+				instances, groupTuples.size());
+		
+		final BBoxDBInstance instance = hops.get(0).getDistributedInstance();
+		final BBoxDBConnection connection = new BBoxDBConnection(instance.getInetSocketAddress());
+		final RoutingHeader routingHeader = new RoutingHeader((short) 0, hops);
+		
+		final List<NetworkOperationFuture> futures = connection.getBboxDBClient()
+				.getInsertTuplesFuture(table, groupTuples, routingHeader, insertOptions).get();
+		
+		futures.forEach(f -> f.setMessage("No connection to any of the nodes " + instances));
+		
+		return futures;
+	}
+	
+	private static class BatchGroup {
+		
+		/**
+		 * The tuples of the group
+		 */
+		private final List<Tuple> tuples = new ArrayList<>();
+		
+		/**
+		 * The hops of the group
+		 */
+		private final Map<InetSocketAddress, RoutingHop> hops = new TreeMap<>(
+				(a1, a2) -> a1.toString().compareTo(a2.toString()));
+	}
+}
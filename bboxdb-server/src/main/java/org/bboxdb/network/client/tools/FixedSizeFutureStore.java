@@ -92,7 +92,10 @@ public class FixedSizeFutureStore {
 	/**
 	 * Put a new future into the store
 	 *
-	 * This method might block when to much futures are unfinished
+	 * This method might block when to much futures are unfinished. The future 
+	 * is removed from the store by its completion callback, so no polling is 
+	 * needed. The failed future callbacks are executed by the thread that 
+	 * completes the future and must not block.
 	 */
 	public boolean put(final OperationFuture futureToAdd) {
 		
@@ -103,28 +106,25 @@ public class FixedSizeFutureStore {
 		final long futureId = futureCounter.getAndIncrement();
 		pendingFutureMap.put(futureToAdd, futureId);
 		
-		checkAndCleanupRunningFuture();
+		futureToAdd.getCompletableFuture().whenComplete((r, e) -> handleCompletedFuture(futureToAdd));
+		
+		waitForPendingFutures();
 		
 		return true;
 	}
 
 	/**
-	 * Check and cleanup running futures
+	 * Wait until enough pending futures are complete
 	 */
-	private void checkAndCleanupRunningFuture() {
+	private void waitForPendingFutures() {
 		if (pendingFutureMap.size() <= maxPendingFutures) {
 			return;
 		}
 
-		// Reduce futures
-		while (isCleanupNeeded()) {
-
-			removeCompleteFutures();
-
-			// Still to much futures? Wait some time
-			if (isCleanupNeeded()) {
+		synchronized (this) {
+			while (isCleanupNeeded()) {
 				try {
-					Thread.sleep(10);
+					wait();
 				} catch (InterruptedException e) {
 					Thread.currentThread().interrupt();
 					return;
@@ -144,41 +144,57 @@ public class FixedSizeFutureStore {
 			.filter(f -> f.isDone())
 			.collect(Collectors.toList());
 		
-		// Handle failed futures
-		doneFutures.stream()
-				.filter(f -> f.isFailed())
-				.forEach(f -> handleFailedFuture(f));
+		doneFutures.forEach(f -> handleCompletedFuture(f));
+	}
+
+	/**
+	 * Handle a completed future, write the statistics and remove the future
+	 * from the store
+	 * 
+	 * @param future
+	 */
+	private synchronized void handleCompletedFuture(final OperationFuture future) {
+		final Long futureNumber = pendingFutureMap.remove(future);
+
+		// Future is already handled
+		if(futureNumber == null) {
+			return;
+		}
+
+		try {
+			if(future.isFailed()) {
+				handleFailedFuture(future);
+			}
 
-		writeStatisticsAndRemoveFuturesFromMap(doneFutures);
+			writeStatistics(future, futureNumber);
+		} finally {
+			notifyAll();
+		}
 	}
 
 	/**
 	 * Write performance statistics
-	 * @param doneFutures
+	 * @param future
+	 * @param futureNumber
 	 */
-	private void writeStatisticsAndRemoveFuturesFromMap(final List<OperationFuture> doneFutures) {
+	private void writeStatistics(final OperationFuture future, final long futureNumber) {
 
-		for(final OperationFuture future : doneFutures) {
-			final Long futureNumberLong = pendingFutureMap.remove(future);
-			
-			final long futureNumber = futureNumberLong != null ? futureNumberLong : -1;
-			
-			final long completionTime = future.getCompletionTime(TimeUnit.MILLISECONDS);
-			final int executions = future.getNeededExecutions();
+		if(statisticsWriter == null) {
+			return;
+		}
 
-			if(statisticsWriter != null) {
-				final String outputValue = String.format("%d\t%d\t%d\t%d%n", 
-						stopwatch.elapsed(TimeUnit.MICROSECONDS), 
-						futureNumber, completionTime, executions);
+		final long completionTime = future.getCompletionTime(TimeUnit.MILLISECONDS);
+		final int executions = future.getNeededExecutions();
 
-				try {
-					statisticsWriter.write(outputValue);
-				} catch (IOException e) {
-					logger.error("Got IO exception while writing statistics", e);
-				}
-			}
-		}
+		final String outputValue = String.format("%d\t%d\t%d\t%d%n", 
+				stopwatch.elapsed(TimeUnit.MICROSECONDS), 
+				futureNumber, completionTime, executions);
 
+		try {
+			statisticsWriter.write(outputValue);
+		} catch (IOException e) {
+			logger.error("Got IO exception while writing statistics", e);
+		}
 	}
 
 	/**
@@ -225,15 +241,10 @@ public class FixedSizeFutureStore {
 	 * @throws InterruptedException
 	 *
 	 */
-	public void waitForCompletion() throws InterruptedException {
+	public synchronized void waitForCompletion() throws InterruptedException {
 
 		while(! pendingFutureMap.isEmpty()) {
-
-			for(final OperationFuture future : pendingFutureMap.keySet()) {
-				future.waitForCompletion();
-			}
-
-			removeCompleteFutures();
+			wait();
 		}
 	}
 
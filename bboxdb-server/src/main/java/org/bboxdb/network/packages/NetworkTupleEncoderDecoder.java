@@ -19,6 +19,7 @@ package org.bboxdb.network.packages;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 
 import org.bboxdb.commons.math.Hyperrectangle;
@@ -103,4 +104,56 @@ public class NetworkTupleEncoderDecoder {
 		
 		return bos.toByteArray();
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Write the tuple without the table onto the output stream
+	 * @param tuple
+	 * @param outputStream
+	 * @throws IOException
+	 */
+	public static void encodeTuple(final Tuple tuple, final OutputStream outputStream) throws IOException {
+		final byte[] keyBytes = tuple.getKey().getBytes();
+		final byte[] bboxBytes = tuple.getBoundingBoxBytes();
+		
+		final ByteBuffer bb = ByteBuffer.allocate(18);
+		bb.order(Const.APPLICATION_BYTE_ORDER);
+		bb.putShort((short) keyBytes.length);
+		bb.putInt(bboxBytes.length);
+		bb.putInt(tuple.getDataBytes().length);
+		bb.putLong(tuple.getVersionTimestamp());
+
+		outputStream.write(bb.array());
+		outputStream.write(keyBytes);
+		outputStream.write(bboxBytes);
+		outputStream.write(tuple.getDataBytes());
+	}
+	
+	/**
+	 * Read a tuple that was written by encodeTuple
+	 * @param encodedPackage
+	 * @return
+	 */
+	public static Tuple decodeTuple(final ByteBuffer encodedPackage) {
+		final short keyLength = encodedPackage.getShort();
+		final int bBoxLength = encodedPackage.getInt();
+		final int dataLength = encodedPackage.getInt();
+		final long timestamp = encodedPackage.getLong();
+		
+		final byte[] keyBytes = new byte[keyLength];
+		encodedPackage.get(keyBytes, 0, keyBytes.length);
+		final String key = new String(keyBytes);
+		
+		final byte[] boxBytes = new byte[bBoxLength];
+		encodedPackage.get(boxBytes, 0, boxBytes.length);
+
+		final byte[] dataBytes = new byte[dataLength];
+		encodedPackage.get(dataBytes, 0, dataBytes.length);
+		
+		if(TupleHelper.isDeletedTuple(boxBytes, dataBytes)) {
+			return new DeletedTuple(key, timestamp);
+		} 
+		
+		final Hyperrectangle boundingBox = Hyperrectangle.fromByteArray(boxBytes);
+		return new Tuple(key, boundingBox, dataBytes, timestamp);
+	}
+}
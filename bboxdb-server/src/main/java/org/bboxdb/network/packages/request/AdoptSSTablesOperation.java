@@ -0,0 +1,66 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.packages.request;
+
+public enum AdoptSSTablesOperation {
+	
+	/**
+	 * Check that all transfers are complete and can be adopted
+	 */
+	PREPARE((byte) 0),
+	
+	/**
+	 * Adopt the transferred SSTables
+	 */
+	COMMIT((byte) 1),
+	
+	/**
+	 * Delete the transfers that are not adopted
+	 */
+	ABORT((byte) 2),
+	
+	/**
+	 * Remove the adopted SSTables of the transfers
+	 */
+	ROLLBACK((byte) 3);
+	
+	private final byte operationValue;
+	
+	AdoptSSTablesOperation(final byte operationValue) {
+		this.operationValue = operationValue;
+	}
+	
+	public byte getOperationValue() {
+		return operationValue;
+	}
+	
+	/**
+	 * Get the operation for the given value
+	 * @param operationValue
+	 * @return the operation or null
+	 */
+	public static AdoptSSTablesOperation fromOperationValue(final byte operationValue) {
+		for(final AdoptSSTablesOperation operation : values()) {
+			if(operation.operationValue == operationValue) {
+				return operation;
+			}
+		}
+		
+		return null;
+	}
+}
@@ -0,0 +1,207 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.packages.request;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bboxdb.misc.Const;
+import org.bboxdb.network.NetworkConst;
+import org.bboxdb.network.NetworkPackageDecoder;
+import org.bboxdb.network.packages.NetworkRequestPackage;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.transfer.SSTableTransfer;
+
+public class AdoptSSTablesRequest extends NetworkRequestPackage {
+	
+	/**
+	 * The operation for the transfers
+	 */
+	private final AdoptSSTablesOperation operation;
+	
+	/**
+	 * The transfers to adopt
+	 */
+	private final List<SSTableTransfer> transfers;
+
+	public AdoptSSTablesRequest(final short sequenceNumber, final List<SSTableTransfer> transfers) {
+		this(sequenceNumber, AdoptSSTablesOperation.COMMIT, transfers);
+	}
+	
+	public AdoptSSTablesRequest(final short sequenceNumber, final AdoptSSTablesOperation operation, 
+			final List<SSTableTransfer> transfers) {
+		
+		super(sequenceNumber);
+		this.operation = operation;
+		this.transfers = transfers;
+	}
+	
+	@Override
+	public long writeToOutputStream(final OutputStream outputStream) throws PackageEncodeException {
+
+		try {
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			
+			for(final SSTableTransfer transfer : transfers) {
+				final byte[] tableBytes = transfer.getTable().getFullname().getBytes();
+				final byte[] transferIdBytes = transfer.getTransferId().getBytes();
+				
+				final ByteBuffer bb = ByteBuffer.allocate(4);
+				bb.order(Const.APPLICATION_BYTE_ORDER);
+				bb.putShort((short) tableBytes.length);
+				bb.putShort((short) transferIdBytes.length);
+				
+				bos.write(bb.array());
+				bos.write(tableBytes);
+				bos.write(transferIdBytes);
+			}
+			
+			bos.close();
+			
+			final ByteBuffer bb = ByteBuffer.allocate(5);
+			bb.order(Const.APPLICATION_BYTE_ORDER);
+			bb.put(operation.getOperationValue());
+			bb.putInt(transfers.size());
+			
+			final byte[] transferBytes = bos.toByteArray();
+
+			// Body length
+			final long bodyLength = bb.capacity() + transferBytes.length;
+			
+			final long headerLength = appendRequestPackageHeader(bodyLength, outputStream);
+
+			// Write body
+			outputStream.write(bb.array());
+			outputStream.write(transferBytes);
+			
+			return headerLength + bodyLength;
+		} catch (IOException e) {
+			throw new PackageEncodeException("Got exception while converting package into bytes", e);
+		}
+	}
+	
+	/**
+	 * Decode the encoded package into a object
+	 * 
+	 * @param encodedPackage
+	 * @return
+	 * @throws PackageEncodeException 
+	 */
+	public static AdoptSSTablesRequest decodeTuple(final ByteBuffer encodedPackage) 
+			throws PackageEncodeException {
+		
+		final short sequenceNumber = NetworkPackageDecoder.getRequestIDFromRequestPackage(encodedPackage);
+		
+		final boolean decodeResult = NetworkPackageDecoder.validateRequestPackageHeader(encodedPackage, 
+				NetworkConst.REQUEST_TYPE_ADOPT_SSTABLES);
+		
+		if(decodeResult == false) {
+			throw new PackageEncodeException("Unable to decode package");
+		}
+		
+		final AdoptSSTablesOperation operation 
+			= AdoptSSTablesOperation.fromOperationValue(encodedPackage.get());
+		
+		if(operation == null) {
+			throw new PackageEncodeException("Unknown adopt operation");
+		}
+		
+		final int numberOfTransfers = encodedPackage.getInt();
+		final List<SSTableTransfer> transfers = new ArrayList<>(numberOfTransfers);
+		
+		for(int i = 0; i < numberOfTransfers; i++) {
+			final short tableLength = encodedPackage.getShort();
+			final short transferIdLength = encodedPackage.getShort();
+			
+			final byte[] tableBytes = new byte[tableLength];
+			encodedPackage.get(tableBytes, 0, tableBytes.length);
+			final TupleStoreName table = new TupleStoreName(new String(tableBytes));
+			
+			final byte[] transferIdBytes = new byte[transferIdLength];
+			encodedPackage.get(transferIdBytes, 0, transferIdBytes.length);
+			final String transferId = new String(transferIdBytes);
+			
+			transfers.add(new SSTableTransfer(table, transferId));
+		}
+		
+		if(encodedPackage.remaining() != 0) {
+			throw new PackageEncodeException("Some bytes are left after decoding: " + encodedPackage.remaining());
+		}
+		
+		return new AdoptSSTablesRequest(sequenceNumber, operation, transfers);
+	}
+
+	@Override
+	public byte getPackageType() {
+		return NetworkConst.REQUEST_TYPE_ADOPT_SSTABLES;
+	}
+
+	/**
+	 * Get the operation for the transfers
+	 * @return
+	 */
+	public AdoptSSTablesOperation getOperation() {
+		return operation;
+	}
+
+	/**
+	 * Get the transfers to adopt
+	 * @return
+	 */
+	public List<SSTableTransfer> getTransfers() {
+		return transfers;
+	}
+
+	@Override
+	public String toString() {
+		return "AdoptSSTablesRequest [operation=" + operation + ", transfers=" + transfers + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((operation == null) ? 0 : operation.hashCode());
+		result = prime * result + ((transfers == null) ? 0 : transfers.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		AdoptSSTablesRequest other = (AdoptSSTablesRequest) obj;
+		if (operation != other.operation)
+			return false;
+		if (transfers == null) {
+			if (other.transfers != null)
+				return false;
+		} else if (!transfers.equals(other.transfers))
+			return false;
+		return true;
+	}
+}
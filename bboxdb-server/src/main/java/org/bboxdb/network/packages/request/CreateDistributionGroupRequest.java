@@ -28,6 +28,7 @@ import org.bboxdb.network.packages.NetworkRequestPackage;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.storage.entity.DistributionGroupConfiguration;
 import org.bboxdb.storage.entity.DistributionGroupConfigurationBuilder;
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
 
 public class CreateDistributionGroupRequest extends NetworkRequestPackage {
 	
@@ -61,7 +62,7 @@ public class CreateDistributionGroupRequest extends NetworkRequestPackage {
 			final byte[] spacePartitionierBytes = distributionGroupConfiguration.getSpacePartitioner().getBytes();
 			final byte[] spacePartitionierConfigBytes = distributionGroupConfiguration.getSpacePartitionerConfig().getBytes();
 
-			final ByteBuffer bb = ByteBuffer.allocate(28);
+			final ByteBuffer bb = ByteBuffer.allocate(30);
 			bb.order(Const.APPLICATION_BYTE_ORDER);
 			bb.putInt(distributionGroupConfiguration.getDimensions());
 			bb.putShort(distributionGroupConfiguration.getReplicationFactor());
@@ -72,6 +73,8 @@ public class CreateDistributionGroupRequest extends NetworkRequestPackage {
 			bb.putInt((int) spacePartitionierConfigBytes.length);
 			bb.putInt(distributionGroupConfiguration.getMaximumRegionSizeInMB());
 			bb.putInt(distributionGroupConfiguration.getMinimumRegionSizeInMB());
+			bb.put(distributionGroupConfiguration.getWriteConsistencyLevel().getByteValue());
+			bb.put(NetworkConst.UNUSED_BYTE);
 
 			// Body length
 			final long bodyLength = bb.capacity() + groupBytes.length 
@@ -120,6 +123,10 @@ public class CreateDistributionGroupRequest extends NetworkRequestPackage {
 		final int spacePartitionerConfigLength = encodedPackage.getInt();
 		final int maximumRegionSize = encodedPackage.getInt();
 		final int minimumRegionSize = encodedPackage.getInt();
+		final byte writeConsistencyLevel = encodedPackage.get();
+		
+		// Unused
+		encodedPackage.get();
 		
 		// Distribution group
 		final byte[] groupBytes = new byte[groupLength];
@@ -156,6 +163,7 @@ public class CreateDistributionGroupRequest extends NetworkRequestPackage {
 				.withMaximumRegionSizeInMB(maximumRegionSize)
 				.withMinimumRegionSizeInMB(minimumRegionSize)
 				.withReplicationFactor(replicationFactor)
+				.withWriteConsistencyLevel(WriteConsistencyLevel.fromByte(writeConsistencyLevel))
 				.build();
 				
 		return new CreateDistributionGroupRequest(sequenceNumber, distributionGroup, configuration);
@@ -27,6 +27,9 @@ import org.bboxdb.network.packages.NetworkRequestPackage;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.compact.MergeStrategyType;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 
 public class CreateTableRequest extends NetworkRequestPackage {
 	
@@ -53,7 +56,7 @@ public class CreateTableRequest extends NetworkRequestPackage {
 
 		try {
 			final byte[] tableBytes = table.getFullnameBytes();
-			final ByteBuffer bb = ByteBuffer.allocate(20);
+			final ByteBuffer bb = ByteBuffer.allocate(30);
 			bb.putShort((short) tableBytes.length);
 			
 			if(ssTableConfiguration.isAllowDuplicates()) {
@@ -62,12 +65,21 @@ public class CreateTableRequest extends NetworkRequestPackage {
 				bb.put((byte) 0x00);
 			}
 			
-			// Unused
-			bb.put((byte) 0x00);
+			// WAL sync policy
+			bb.put((byte) ssTableConfiguration.getWalSyncPolicy().ordinal());
+			
+			// Merge strategy
+			bb.put((byte) ssTableConfiguration.getMergeStrategy().ordinal());
+			
+			// Compression
+			bb.put((byte) ssTableConfiguration.getCompression().ordinal());
 			
 			// TTL
 			bb.putLong(ssTableConfiguration.getTTL());
 			
+			// WAL sync interval
+			bb.putLong(ssTableConfiguration.getWalSyncInterval());
+			
 			// Versions
 			bb.putInt(ssTableConfiguration.getVersions());
 
@@ -122,12 +134,39 @@ public class CreateTableRequest extends NetworkRequestPackage {
 			allowDuplicates = true;
 		}
 		
-		//Unused
-		encodedPackage.get();
+		// WAL sync policy
+		final byte walSyncPolicyOrdinal = encodedPackage.get();
+		
+		if(walSyncPolicyOrdinal < 0 || walSyncPolicyOrdinal >= WriteAheadLogSyncPolicy.values().length) {
+			throw new PackageEncodeException("Unknown WAL sync policy: " + walSyncPolicyOrdinal);
+		}
+		
+		final WriteAheadLogSyncPolicy walSyncPolicy = WriteAheadLogSyncPolicy.values()[walSyncPolicyOrdinal];
+		
+		// Merge strategy
+		final byte mergeStrategyOrdinal = encodedPackage.get();
+		
+		if(mergeStrategyOrdinal < 0 || mergeStrategyOrdinal >= MergeStrategyType.values().length) {
+			throw new PackageEncodeException("Unknown merge strategy: " + mergeStrategyOrdinal);
+		}
+		
+		final MergeStrategyType mergeStrategy = MergeStrategyType.values()[mergeStrategyOrdinal];
+		
+		// Compression
+		final byte compressionOrdinal = encodedPackage.get();
+		
+		if(compressionOrdinal < 0 || compressionOrdinal >= SSTableCompression.values().length) {
+			throw new PackageEncodeException("Unknown compression: " + compressionOrdinal);
+		}
+		
+		final SSTableCompression compression = SSTableCompression.values()[compressionOrdinal];
 		
 		// TTL
 		final long ttl = encodedPackage.getLong();
 		
+		// WAL sync interval
+		final long walSyncInterval = encodedPackage.getLong();
+		
 		// Versions
 		final int versions = encodedPackage.getInt();
 		
@@ -158,6 +197,10 @@ public class CreateTableRequest extends NetworkRequestPackage {
 		tupleStoreConfiguration.setVersions(versions);
 		tupleStoreConfiguration.setSpatialIndexReader(spatialIndexReader);
 		tupleStoreConfiguration.setSpatialIndexWriter(spatialIndexWriter);
+		tupleStoreConfiguration.setWalSyncPolicy(walSyncPolicy);
+		tupleStoreConfiguration.setWalSyncInterval(walSyncInterval);
+		tupleStoreConfiguration.setMergeStrategy(mergeStrategy);
+		tupleStoreConfiguration.setCompression(compression);
 		
 		if(encodedPackage.remaining() != 0) {
 			throw new PackageEncodeException("Some bytes are left after decoding: " + encodedPackage.remaining());
@@ -0,0 +1,357 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.packages.request;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.bboxdb.misc.Const;
+import org.bboxdb.network.NetworkConst;
+import org.bboxdb.network.NetworkPackageDecoder;
+import org.bboxdb.network.packages.NetworkRequestPackage;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableFileType;
+
+public class TransferSSTableRequest extends NetworkRequestPackage {
+	
+	/**
+	 * The destination table
+	 */
+	private final TupleStoreName table;
+	
+	/**
+	 * The id of the transfer
+	 */
+	private final String transferId;
+	
+	/**
+	 * The type of the transferred file
+	 */
+	private final SSTableFileType fileType;
+	
+	/**
+	 * Commit the transfer (all files are transferred)
+	 */
+	private final boolean commit;
+	
+	/**
+	 * The offset of the data in the file
+	 */
+	private final long offset;
+	
+	/**
+	 * The total length of the file
+	 */
+	private final long fileLength;
+	
+	/**
+	 * The CRC32 checksum of the whole file
+	 */
+	private final long checksum;
+	
+	/**
+	 * The data
+	 */
+	private final byte[] data;
+	
+	/**
+	 * The flag for a commit package
+	 */
+	private final static byte FLAG_COMMIT = 0x01;
+
+	public TransferSSTableRequest(final short sequenceNumber, final TupleStoreName table, 
+			final String transferId, final SSTableFileType fileType, final boolean commit, 
+			final long offset, final long fileLength, final long checksum, final byte[] data) {
+		
+		super(sequenceNumber);
+		
+		this.table = table;
+		this.transferId = transferId;
+		this.fileType = fileType;
+		this.commit = commit;
+		this.offset = offset;
+		this.fileLength = fileLength;
+		this.checksum = checksum;
+		this.data = data;
+	}
+	
+	/**
+	 * Create a package with a chunk of a file
+	 * 
+	 * @param sequenceNumber
+	 * @param table
+	 * @param transferId
+	 * @param fileType
+	 * @param offset
+	 * @param fileLength
+	 * @param checksum
+	 * @param data
+	 * @return
+	 */
+	public static TransferSSTableRequest createChunkRequest(final short sequenceNumber, 
+			final TupleStoreName table, final String transferId, final SSTableFileType fileType, 
+			final long offset, final long fileLength, final long checksum, final byte[] data) {
+		
+		return new TransferSSTableRequest(sequenceNumber, table, transferId, fileType, false, 
+				offset, fileLength, checksum, data);
+	}
+	
+	/**
+	 * Create a package that commits the transfer
+	 * 
+	 * @param sequenceNumber
+	 * @param table
+	 * @param transferId
+	 * @return
+	 */
+	public static TransferSSTableRequest createCommitRequest(final short sequenceNumber, 
+			final TupleStoreName table, final String transferId) {
+		
+		return new TransferSSTableRequest(sequenceNumber, table, transferId, SSTableFileType.SSTABLE, 
+				true, 0, 0, 0, new byte[0]);
+	}
+	
+	@Override
+	public long writeToOutputStream(final OutputStream outputStream) throws PackageEncodeException {
+
+		try {
+			final byte[] tableBytes = table.getFullname().getBytes();
+			final byte[] transferIdBytes = transferId.getBytes();
+			
+			final ByteBuffer bb = ByteBuffer.allocate(36);
+			bb.order(Const.APPLICATION_BYTE_ORDER);
+			bb.putShort((short) tableBytes.length);
+			bb.putShort((short) transferIdBytes.length);
+			bb.put(fileType.getByteValue());
+			bb.put(commit ? FLAG_COMMIT : 0);
+			
+			// Unused
+			bb.putShort((short) 0);
+			
+			bb.putLong(offset);
+			bb.putLong(fileLength);
+			bb.putLong(checksum);
+			bb.putInt(data.length);
+
+			// Body length
+			final long bodyLength = bb.capacity() + tableBytes.length 
+					+ transferIdBytes.length + data.length;
+			
+			final long headerLength = appendRequestPackageHeader(bodyLength, outputStream);
+
+			// Write body
+			outputStream.write(bb.array());
+			outputStream.write(tableBytes);
+			outputStream.write(transferIdBytes);
+			outputStream.write(data);
+			
+			return headerLength + bodyLength;
+		} catch (IOException e) {
+			throw new PackageEncodeException("Got exception while converting package into bytes", e);
+		}
+	}
+	
+	/**
+	 * Decode the encoded package into a object
+	 * 
+	 * @param encodedPackage
+	 * @return
+	 * @throws PackageEncodeException 
+	 */
+	public static TransferSSTableRequest decodeTuple(final ByteBuffer encodedPackage) 
+			throws PackageEncodeException {
+		
+		final short sequenceNumber = NetworkPackageDecoder.getRequestIDFromRequestPackage(encodedPackage);
+		
+		final boolean decodeResult = NetworkPackageDecoder.validateRequestPackageHeader(encodedPackage, 
+				NetworkConst.REQUEST_TYPE_TRANSFER_SSTABLE);
+		
+		if(decodeResult == false) {
+			throw new PackageEncodeException("Unable to decode package");
+		}
+		
+		final short tableLength = encodedPackage.getShort();
+		final short transferIdLength = encodedPackage.getShort();
+		final byte fileTypeByte = encodedPackage.get();
+		final byte flags = encodedPackage.get();
+		
+		// Unused
+		encodedPackage.getShort();
+		
+		final long offset = encodedPackage.getLong();
+		final long fileLength = encodedPackage.getLong();
+		final long checksum = encodedPackage.getLong();
+		final int dataLength = encodedPackage.getInt();
+		
+		final byte[] tableBytes = new byte[tableLength];
+		encodedPackage.get(tableBytes, 0, tableBytes.length);
+		final TupleStoreName table = new TupleStoreName(new String(tableBytes));
+		
+		final byte[] transferIdBytes = new byte[transferIdLength];
+		encodedPackage.get(transferIdBytes, 0, transferIdBytes.length);
+		final String transferId = new String(transferIdBytes);
+		
+		final byte[] data = new byte[dataLength];
+		encodedPackage.get(data, 0, data.length);
+		
+		if(encodedPackage.remaining() != 0) {
+			throw new PackageEncodeException("Some bytes are left after decoding: " + encodedPackage.remaining());
+		}
+		
+		final SSTableFileType fileType;
+		
+		try {
+			fileType = SSTableFileType.fromByte(fileTypeByte);
+		} catch (IllegalArgumentException e) {
+			throw new PackageEncodeException("Unable to decode package", e);
+		}
+		
+		final boolean commit = (flags & FLAG_COMMIT) == FLAG_COMMIT;
+		
+		return new TransferSSTableRequest(sequenceNumber, table, transferId, fileType, commit, 
+				offset, fileLength, checksum, data);
+	}
+
+	@Override
+	public byte getPackageType() {
+		return NetworkConst.REQUEST_TYPE_TRANSFER_SSTABLE;
+	}
+
+	/**
+	 * Get the destination table
+	 * @return
+	 */
+	public TupleStoreName getTable() {
+		return table;
+	}
+	
+	/**
+	 * Get the id of the transfer
+	 * @return
+	 */
+	public String getTransferId() {
+		return transferId;
+	}
+	
+	/**
+	 * Get the file type
+	 * @return
+	 */
+	public SSTableFileType getFileType() {
+		return fileType;
+	}
+	
+	/**
+	 * Is this a commit package
+	 * @return
+	 */
+	public boolean isCommit() {
+		return commit;
+	}
+	
+	/**
+	 * Get the offset of the data
+	 * @return
+	 */
+	public long getOffset() {
+		return offset;
+	}
+	
+	/**
+	 * Get the total length of the file
+	 * @return
+	 */
+	public long getFileLength() {
+		return fileLength;
+	}
+	
+	/**
+	 * Get the checksum of the file
+	 * @return
+	 */
+	public long getChecksum() {
+		return checksum;
+	}
+	
+	/**
+	 * Get the data
+	 * @return
+	 */
+	public byte[] getData() {
+		return data;
+	}
+
+	@Override
+	public String toString() {
+		return "TransferSSTableRequest [table=" + table + ", transferId=" + transferId + ", fileType=" 
+				+ fileType + ", commit=" + commit + ", offset=" + offset + ", fileLength=" + fileLength 
+				+ ", checksum=" + checksum + ", data=" + data.length + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + (int) (checksum ^ (checksum >>> 32));
+		result = prime * result + (commit ? 1231 : 1237);
+		result = prime * result + Arrays.hashCode(data);
+		result = prime * result + (int) (fileLength ^ (fileLength >>> 32));
+		result = prime * result + ((fileType == null) ? 0 : fileType.hashCode());
+		result = prime * result + (int) (offset ^ (offset >>> 32));
+		result = prime * result + ((table == null) ? 0 : table.hashCode());
+		result = prime * result + ((transferId == null) ? 0 : transferId.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		TransferSSTableRequest other = (TransferSSTableRequest) obj;
+		if (checksum != other.checksum)
+			return false;
+		if (commit != other.commit)
+			return false;
+		if (!Arrays.equals(data, other.data))
+			return false;
+		if (fileLength != other.fileLength)
+			return false;
+		if (fileType != other.fileType)
+			return false;
+		if (offset != other.offset)
+			return false;
+		if (table == null) {
+			if (other.table != null)
+				return false;
+		} else if (!table.equals(other.table))
+			return false;
+		if (transferId == null) {
+			if (other.transferId != null)
+				return false;
+		} else if (!transferId.equals(other.transferId))
+			return false;
+		return true;
+	}
+}
@@ -49,4 +49,25 @@ public interface UserDefinedFilter {
 		throw new UnsupportedOperationException("The filterTuple method is not implemented");
 	}
 	
+	/**
+	 * Init the filter with the custom data of the query. The method is called 
+	 * once before the filter is used, so the filter can precompute state 
+	 * (e.g., a parsed geometry) from the custom data.
+	 * 
+	 * @param customData - custom data to execute the operation
+	 */
+	public default void init(final byte[] customData) {
+		// Default: No state to precompute
+	}
+	
+	/**
+	 * Is the filter thread safe? A thread safe filter instance is shared 
+	 * between all queries with the same custom data. Otherwise, a new instance 
+	 * is created for each query.
+	 * 
+	 * @return true or false
+	 */
+	public default boolean isThreadSafe() {
+		return false;
+	}
 }
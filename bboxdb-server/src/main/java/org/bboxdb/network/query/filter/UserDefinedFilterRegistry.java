@@ -0,0 +1,199 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.query.filter;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * The registry loads each user defined filter class only once. Thread safe 
+ * filters are initialized once per custom data and shared between queries. 
+ * Other filters get a new instance for each call of getFilter.
+ */
+public class UserDefinedFilterRegistry {
+	
+	/**
+	 * The loaded filter classes
+	 */
+	private final Map<String, Class<? extends UserDefinedFilter>> filterClasses;
+	
+	/**
+	 * The initialized thread safe filter instances
+	 */
+	private final Cache<FilterKey, UserDefinedFilter> sharedFilters;
+	
+	/**
+	 * The max number of cached filter instances
+	 */
+	private final static int MAX_CACHED_FILTERS = 1024;
+	
+	/**
+	 * The instance
+	 */
+	private static UserDefinedFilterRegistry instance;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(UserDefinedFilterRegistry.class);
+
+	private UserDefinedFilterRegistry() {
+		this.filterClasses = new ConcurrentHashMap<>();
+		this.sharedFilters = CacheBuilder.newBuilder()
+				.maximumSize(MAX_CACHED_FILTERS)
+				.build();
+	}
+	
+	public synchronized static UserDefinedFilterRegistry getInstance() {
+		if(instance == null) {
+			instance = new UserDefinedFilterRegistry();
+		}
+		
+		return instance;
+	}
+	
+	/**
+	 * Get a initialized filter for the given class and custom data
+	 * 
+	 * @param filterClassName
+	 * @param customData
+	 * @return
+	 * @throws IllegalArgumentException - if the filter can not be loaded
+	 */
+	public UserDefinedFilter getFilter(final String filterClassName, final byte[] customData) {
+		
+		final FilterKey filterKey = new FilterKey(filterClassName, customData);
+		final UserDefinedFilter sharedFilter = sharedFilters.getIfPresent(filterKey);
+		
+		if(sharedFilter != null) {
+			return sharedFilter;
+		}
+		
+		final UserDefinedFilter filter = createFilterInstance(filterClassName);
+		filter.init(customData);
+		
+		if(! filter.isThreadSafe()) {
+			return filter;
+		}
+		
+		final UserDefinedFilter existingFilter = sharedFilters.asMap().putIfAbsent(filterKey, filter);
+		
+		if(existingFilter != null) {
+			return existingFilter;
+		}
+		
+		return filter;
+	}
+	
+	/**
+	 * Create a new instance of the filter
+	 * @param filterClassName
+	 * @return
+	 */
+	private UserDefinedFilter createFilterInstance(final String filterClassName) {
+		final Class<? extends UserDefinedFilter> filterClass 
+			= filterClasses.computeIfAbsent(filterClassName, (n) -> loadFilterClass(n));
+		
+		try {
+			return filterClass.newInstance();
+		} catch (InstantiationException | IllegalAccessException e) {
+			throw new IllegalArgumentException("Unable to instance user defined filter: " 
+					+ filterClassName, e);
+		}
+	}
+
+	/**
+	 * Load the filter class
+	 * @param filterClassName
+	 * @return
+	 */
+	private Class<? extends UserDefinedFilter> loadFilterClass(final String filterClassName) {
+		try {
+			logger.debug("Loading user defined filter {}", filterClassName);
+			final Class<?> filterClass = Class.forName(filterClassName);
+			return filterClass.asSubclass(UserDefinedFilter.class);
+		} catch (ClassNotFoundException | ClassCastException e) {
+			throw new IllegalArgumentException("Unable to load user defined filter: " 
+					+ filterClassName, e);
+		} 
+	}
+	
+	/**
+	 * Remove all cached filters
+	 */
+	public void clear() {
+		filterClasses.clear();
+		sharedFilters.invalidateAll();
+	}
+	
+	/**
+	 * The key of a initialized filter
+	 */
+	private static class FilterKey {
+		
+		/**
+		 * The class name
+		 */
+		private final String filterClassName;
+		
+		/**
+		 * The custom data
+		 */
+		private final byte[] customData;
+
+		public FilterKey(final String filterClassName, final byte[] customData) {
+			this.filterClassName = filterClassName;
+			this.customData = customData;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + Arrays.hashCode(customData);
+			result = prime * result + ((filterClassName == null) ? 0 : filterClassName.hashCode());
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			FilterKey other = (FilterKey) obj;
+			if (!Arrays.equals(customData, other.customData))
+				return false;
+			if (filterClassName == null) {
+				if (other.filterClassName != null)
+					return false;
+			} else if (!filterClassName.equals(other.filterClassName))
+				return false;
+			return true;
+		}
+	}
+}
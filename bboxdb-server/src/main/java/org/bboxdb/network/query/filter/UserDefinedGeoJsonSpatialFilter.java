@@ -17,8 +17,15 @@
  *******************************************************************************/
 package org.bboxdb.network.query.filter;
 
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bboxdb.storage.entity.EntityIdentifier;
 import org.bboxdb.storage.entity.Tuple;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.esri.core.geometry.MapOGCStructure;
 import com.esri.core.geometry.Operator;
@@ -29,7 +36,89 @@ import com.esri.core.geometry.ogc.OGCGeometry;
 
 public class UserDefinedGeoJsonSpatialFilter implements UserDefinedFilter {
 	
+	/**
+	 * The custom data of the parsed geometry and string
+	 */
+	private byte[] customData = null;
+	
+	/**
+	 * The geometry of the custom data
+	 */
 	private OGCGeometry customGeomety = null;
+	
+	/**
+	 * The custom data as string
+	 */
+	private String customDataString = null;
+	
+	/**
+	 * The geometries of the recently used tuples of the first and the second 
+	 * table, identified by key and version. A join candidate is tested against 
+	 * many tuples, so the geometry is parsed only once.
+	 */
+	private final Map<EntityIdentifier, OGCGeometry> geometryCache1;
+	
+	private final Map<EntityIdentifier, OGCGeometry> geometryCache2;
+	
+	/**
+	 * The max number of cached geometries
+	 */
+	private final static int MAX_CACHED_GEOMETRIES = 1024;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(UserDefinedGeoJsonSpatialFilter.class);
+	
+	public UserDefinedGeoJsonSpatialFilter() {
+		this.geometryCache1 = createGeometryCache();
+		this.geometryCache2 = createGeometryCache();
+	}
+	
+	/**
+	 * Create a LRU cache for the tuple geometries
+	 * @return
+	 */
+	private static Map<EntityIdentifier, OGCGeometry> createGeometryCache() {
+		return new LinkedHashMap<EntityIdentifier, OGCGeometry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = -2549347618536224178L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<EntityIdentifier, OGCGeometry> eldest) {
+				return size() > MAX_CACHED_GEOMETRIES;
+			}
+		};
+	}
+	
+	/**
+	 * The custom data of a filter query is a geometry, the custom data of a join 
+	 * query is a text. The geometry is parsed once for all tuples of the query.
+	 */
+	@Override
+	public void init(final byte[] customData) {
+		if(customData == null || customData.length == 0) {
+			return;
+		}
+		
+		parseCustomData(customData);
+	}
+	
+	/**
+	 * Parse the string and the geometry of the custom data
+	 * @param customData
+	 */
+	private void parseCustomData(final byte[] customData) {
+		this.customData = customData;
+		customDataString = new String(customData);
+		customGeomety = null;
+		
+		try {
+			customGeomety = geoJoinToGeomety(customDataString);
+		} catch(RuntimeException e) {
+			logger.debug("Custom data is not a geometry: {}", customDataString);
+		}
+	}
 
 	/**
 	 * Perform a real filter based on the geometry of the data
@@ -37,10 +126,13 @@ public class UserDefinedGeoJsonSpatialFilter implements UserDefinedFilter {
 	@Override
 	public boolean filterTuple(final Tuple tuple, final byte[] customData) {
 		
-		// Cache the custom geometry between method calls
+		// The filter was not initialized with this custom data
+		if(! Arrays.equals(this.customData, customData)) {
+			parseCustomData(customData);
+		}
+		
 		if(customGeomety == null) {
-			final String customString = new String(customData);
-			customGeomety = geoJoinToGeomety(customString);
+			throw new IllegalArgumentException("Custom data is not a geometry: " + customDataString);
 		}
 		
 		final String geoJsonString = new String(tuple.getDataBytes());
@@ -55,24 +147,52 @@ public class UserDefinedGeoJsonSpatialFilter implements UserDefinedFilter {
 	@Override
 	public boolean filterJoinCandidate(final Tuple tuple1, final Tuple tuple2, final byte[] customData) {
 		
-		final String geoJsonString1 = new String(tuple1.getDataBytes());
-		final String geoJsonString2 = new String(tuple2.getDataBytes());
-
 		// Full text search on string (if provided)
-		if(customData != null) {
-			final String customDataString = new String(customData);
+		if(customData != null && customData.length > 0) {
+			
+			if(! Arrays.equals(this.customData, customData)) {
+				parseCustomData(customData);
+			}
+			
+			final String geoJsonString1 = new String(tuple1.getDataBytes());
+			final String geoJsonString2 = new String(tuple2.getDataBytes());
+			
 			if(! geoJsonString1.contains(customDataString) && 
 					! geoJsonString2.contains(customDataString)) {
 				return false;
 			}
 		}
 		
-		final OGCGeometry geometry1 = extractGeometry(geoJsonString1);
-		final OGCGeometry geometry2 = extractGeometry(geoJsonString2);
+		// The first and the second tuple of a candidate are always read from 
+		// the same table of the query, so the identifier is unique per cache
+		final OGCGeometry geometry1 = getGeometryForTuple(tuple1, geometryCache1);
+		final OGCGeometry geometry2 = getGeometryForTuple(tuple2, geometryCache2);
 
 	    return geometry1.intersects(geometry2);
 	}
 	
+	/**
+	 * Get the geometry of the tuple, use the cached geometry if possible
+	 * @param tuple
+	 * @param geometryCache
+	 * @return
+	 */
+	private OGCGeometry getGeometryForTuple(final Tuple tuple, 
+			final Map<EntityIdentifier, OGCGeometry> geometryCache) {
+		
+		final EntityIdentifier cacheKey = tuple.getEntityIdentifier();
+		final OGCGeometry cachedGeometry = geometryCache.get(cacheKey);
+		
+		if(cachedGeometry != null) {
+			return cachedGeometry;
+		}
+		
+		final OGCGeometry geometry = extractGeometry(new String(tuple.getDataBytes()));
+		geometryCache.put(cacheKey, geometry);
+		
+		return geometry;
+	}
+	
 	/**
 	 * Extract the geometry from the tuple
 	 * @param tuple
@@ -106,5 +226,4 @@ public class UserDefinedGeoJsonSpatialFilter implements UserDefinedFilter {
 	    return OGCGeometry.createFromOGCStructure(structure.m_ogcStructure,
 	    		structure.m_spatialReference);
 	}
-
 }
@@ -22,6 +22,19 @@ import org.bboxdb.storage.entity.Tuple;
 public class UserDefinedStringFilter implements UserDefinedFilter {
 	
 	private String customDataString = null;
+	
+	@Override
+	public void init(final byte[] customData) {
+		if(customData != null) {
+			customDataString = new String(customData);
+		}
+	}
+	
+	@Override
+	public boolean isThreadSafe() {
+		// The custom data string is only set to the same value
+		return true;
+	}
 
 	@Override
 	public boolean filterTuple(final Tuple tuple, final byte[] customData) {
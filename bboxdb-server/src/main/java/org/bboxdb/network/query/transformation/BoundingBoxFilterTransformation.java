@@ -75,6 +75,12 @@ public class BoundingBoxFilterTransformation implements TupleTransformation {
 		return true;
 	}
 
+	@Override
+	public Hyperrectangle getInputRegion(final Hyperrectangle outputRegion) {
+		// The bounding box is not changed by the filter
+		return outputRegion;
+	}
+
 	@Override
 	public String getSerializedData() {
 		return hyperrectangle.toCompactString();
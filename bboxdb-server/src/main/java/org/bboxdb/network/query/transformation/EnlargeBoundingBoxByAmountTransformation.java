@@ -70,6 +70,17 @@ public class EnlargeBoundingBoxByAmountTransformation implements TupleTransforma
 		return true;
 	}
 
+	@Override
+	public Hyperrectangle getInputRegion(final Hyperrectangle outputRegion) {
+		
+		if(outputRegion.getDimension() == 0 || amount < 0) {
+			return Hyperrectangle.FULL_SPACE;
+		}
+		
+		// A enlarged box intersects the region, if the box intersects the enlarged region
+		return outputRegion.enlargeByAmount(amount);
+	}
+
 	@Override
 	public String getSerializedData() {
 		return Double.toString(amount);
@@ -17,6 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.network.query.transformation;
 
+import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.network.query.entity.TupleAndBoundingBox;
 
 public class KeyFilterTransformation implements TupleTransformation {
@@ -70,6 +71,12 @@ public class KeyFilterTransformation implements TupleTransformation {
 		return true;
 	}
 
+	@Override
+	public Hyperrectangle getInputRegion(final Hyperrectangle outputRegion) {
+		// The bounding box is not changed by the filter
+		return outputRegion;
+	}
+
 	@Override
 	public String getSerializedData() {
 		return key;
@@ -17,6 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.network.query.transformation;
 
+import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.network.query.entity.TupleAndBoundingBox;
 
 public interface TupleTransformation {
@@ -33,4 +34,16 @@ public interface TupleTransformation {
 	 * @return
 	 */
 	public String getSerializedData();
+	
+	/**
+	 * Get the region of the input tuples, that can intersect the given region 
+	 * after the transformation is applied. Hyperrectangle.FULL_SPACE is returned, 
+	 * if the region can not be determined.
+	 * 
+	 * @param outputRegion
+	 * @return
+	 */
+	public default Hyperrectangle getInputRegion(final Hyperrectangle outputRegion) {
+		return Hyperrectangle.FULL_SPACE;
+	}
 }
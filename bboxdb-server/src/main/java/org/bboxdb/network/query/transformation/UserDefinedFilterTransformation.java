@@ -17,9 +17,11 @@
  *******************************************************************************/
 package org.bboxdb.network.query.transformation;
 
+import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.network.query.entity.TupleAndBoundingBox;
 import org.bboxdb.network.query.filter.UserDefinedFilter;
 import org.bboxdb.network.query.filter.UserDefinedFilterDefinition;
+import org.bboxdb.network.query.filter.UserDefinedFilterRegistry;
 
 public class UserDefinedFilterTransformation implements TupleTransformation {
 	
@@ -33,7 +35,7 @@ public class UserDefinedFilterTransformation implements TupleTransformation {
 	/**
 	 * The user defined filter cache
 	 */
-	private UserDefinedFilter filter = null;
+	private volatile UserDefinedFilter filter = null;
 	
 	public UserDefinedFilterTransformation(final UserDefinedFilterDefinition userDefinedFilterDefinition) {
 		this.userDefinedFilterDefinition = userDefinedFilterDefinition;
@@ -53,25 +55,49 @@ public class UserDefinedFilterTransformation implements TupleTransformation {
 	@Override
 	public TupleAndBoundingBox apply(final TupleAndBoundingBox input) {
 		
-		if(filter == null) {
-			try {
-				final Class<?> className = Class.forName(userDefinedFilterDefinition.getUserDefinedFilterClass());
-				filter = (UserDefinedFilter) className.newInstance();
-			} catch (Exception e) {
-				throw new IllegalArgumentException("Unable to instance user defined fitler", e);
-			} 
-		}
-		
 		final byte[] value = userDefinedFilterDefinition.getUserDefinedFilterValue().getBytes();
+
+		UserDefinedFilter filterInstance = filter;
+		
+		if(filterInstance == null) {
+			filterInstance = UserDefinedFilterRegistry.getInstance().getFilter(
+					userDefinedFilterDefinition.getUserDefinedFilterClass(), value);
+			filter = filterInstance;
+		}
 		
 		// Filter input
-		if(filter.filterTuple(input.getTuple(), value)) {
+		if(filterTuple(filterInstance, input, value)) {
 			return input;
 		}
 		
 		return null;
 	}
 
+	/**
+	 * Execute the filter, the transformation can be used by multiple threads
+	 * @param filterInstance
+	 * @param input
+	 * @param value
+	 * @return
+	 */
+	private boolean filterTuple(final UserDefinedFilter filterInstance, 
+			final TupleAndBoundingBox input, final byte[] value) {
+		
+		if(filterInstance.isThreadSafe()) {
+			return filterInstance.filterTuple(input.getTuple(), value);
+		}
+		
+		synchronized (filterInstance) {
+			return filterInstance.filterTuple(input.getTuple(), value);
+		}
+	}
+
+	@Override
+	public Hyperrectangle getInputRegion(final Hyperrectangle outputRegion) {
+		// The bounding box is not changed by the filter
+		return outputRegion;
+	}
+
 	@Override
 	public String getSerializedData() {
 		return userDefinedFilterDefinition.getUserDefinedFilterClass() 
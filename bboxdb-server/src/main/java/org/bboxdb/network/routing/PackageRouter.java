@@ -17,30 +17,57 @@
  *******************************************************************************/
 package org.bboxdb.network.routing;
 
-import java.util.concurrent.ExecutionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
-import org.bboxdb.commons.concurrent.ExceptionSafeRunnable;
+import org.bboxdb.distribution.DistributionGroupConfigurationCache;
 import org.bboxdb.distribution.membership.BBoxDBInstance;
 import org.bboxdb.distribution.membership.MembershipConnectionService;
 import org.bboxdb.distribution.zookeeper.ZookeeperClientFactory;
+import org.bboxdb.distribution.zookeeper.ZookeeperNotFoundException;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.client.BBoxDBClient;
 import org.bboxdb.network.client.BBoxDBConnection;
-import org.bboxdb.network.client.future.client.EmptyResultFuture;
+import org.bboxdb.network.client.future.network.NetworkOperationFuture;
+import org.bboxdb.network.packages.NetworkRequestPackage;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.request.InsertTupleRequest;
+import org.bboxdb.network.packages.request.InsertTuplesRequest;
 import org.bboxdb.network.packages.response.ErrorResponse;
 import org.bboxdb.network.packages.response.SuccessResponse;
 import org.bboxdb.network.server.ErrorMessages;
 import org.bboxdb.network.server.connection.ClientConnectionHandler;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 public class PackageRouter {
 	
+	/**
+	 * The routing timeout scheduler
+	 */
+	private final static ScheduledExecutorService timeoutScheduler;
+	
+	static {
+		final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+				.setNameFormat("Routing timeout thread %d")
+				.setDaemon(true)
+				.build();
+		
+		timeoutScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+	}
+	
 	/**
 	 * The thread pool
 	 */
@@ -69,73 +96,145 @@ public class PackageRouter {
 	}
 
 	/**
-	 * Perform the routing task async
+	 * Route the insert tuple package async
+	 * 
 	 * @param packageSequence
 	 * @param insertTupleRequest
-	 * @param boundingBox
 	 */
 	public void performInsertPackageRoutingAsync(final short packageSequence, 
 			final InsertTupleRequest insertTupleRequest) {
+		
+		performRoutingAsync(packageSequence, insertTupleRequest, insertTupleRequest.getTable(), 
+				(client, routingHeader) -> client.getInsertTupleFuture(
+						insertTupleRequest.getTable().getFullname(), 
+						insertTupleRequest.getTuple(), 
+						routingHeader,
+						insertTupleRequest.getInsertOptions()));
+	}
 	
-		final Runnable routeRunable = new ExceptionSafeRunnable()  {
+	/**
+	 * Route the insert tuples package async, the batch is forwarded as one package
+	 * 
+	 * @param packageSequence
+	 * @param insertTuplesRequest
+	 */
+	public void performInsertTuplesRoutingAsync(final short packageSequence, 
+			final InsertTuplesRequest insertTuplesRequest) {
+		
+		performRoutingAsync(packageSequence, insertTuplesRequest, insertTuplesRequest.getTable(), 
+				(client, routingHeader) -> client.getInsertTuplesFuture(
+						insertTuplesRequest.getTable().getFullname(), 
+						insertTuplesRequest.getTuples(), 
+						routingHeader,
+						insertTuplesRequest.getInsertOptions()));
+	}
 
-			@Override
-			protected void runThread() {
-				
-				boolean operationSuccess = true;
+	/**
+	 * Perform the routing task async. The package is sent to all remaining 
+	 * hops at once and the client is acknowledged as soon as the write 
+	 * consistency level of the distribution group is reached. No thread is 
+	 * blocked while the replicas are answering.
+	 * 
+	 * @param packageSequence
+	 * @param request
+	 * @param table
+	 * @param futureBuilder
+	 */
+	private void performRoutingAsync(final short packageSequence, final NetworkRequestPackage request,
+			final TupleStoreName table, final BiFunction<BBoxDBClient, RoutingHeader, 
+			Supplier<List<NetworkOperationFuture>>> futureBuilder) {
+	
+		final RoutingHeader routingHeader;
+		
+		try {
+			routingHeader = request.getRoutingHeader();
+		} catch (PackageEncodeException e) {
+			logger.error("Exception while routing package", e);
+			final ErrorResponse responsePackage = new ErrorResponse(packageSequence, ErrorMessages.ERROR_ROUTING_FAILED);
+			clientConnectionHandler.writeResultPackageNE(responsePackage);
+			return;
+		}
+		
+		assert (routingHeader.isRoutedPackage()) : "Tuple is not a routed package";
 
-				try {
-					final RoutingHeader routingHeader = insertTupleRequest.getRoutingHeader();
-					
-					assert (routingHeader.isRoutedPackage()) : "Tuple is not a routed package";
-					
-					if(! routingHeader.reachedFinalInstance()) {
-						routingHeader.dispatchToNextHop();				
-						operationSuccess = sendInsertPackage(insertTupleRequest);
-					}
-					
-				}  catch(InterruptedException e) {
-					logger.error("Exception while routing package", e);
-					Thread.currentThread().interrupt();
-					operationSuccess = false;
-				} catch (PackageEncodeException e) {
-					logger.error("Exception while routing package", e);
-					operationSuccess = false;
-				} 
-				
-				if(operationSuccess) {
-					final SuccessResponse responsePackage = new SuccessResponse(packageSequence);
-					clientConnectionHandler.writeResultPackageNE(responsePackage);
-				} else {
-					final ErrorResponse responsePackage = new ErrorResponse(packageSequence, ErrorMessages.ERROR_ROUTING_FAILED);
-					clientConnectionHandler.writeResultPackageNE(responsePackage);
-				}
-			}
-		};
+		if(routingHeader.reachedFinalInstance()) {
+			final SuccessResponse responsePackage = new SuccessResponse(packageSequence);
+			clientConnectionHandler.writeResultPackageNE(responsePackage);
+			return;
+		}
 		
-		// Submit the runnable to our pool
 		if(threadPool.isShutdown()) {
 			logger.warn("Thread pool is shutting down, don't route package: {}", packageSequence);
 			final ErrorResponse responsePackage = new ErrorResponse(packageSequence, ErrorMessages.ERROR_QUERY_SHUTDOWN);
 			clientConnectionHandler.writeResultPackageNE(responsePackage);
-		} else {
-			threadPool.submit(routeRunable);
+			return;
+		}
+		
+		final List<RoutingHop> routingList = routingHeader.getRoutingList();
+		final RoutingHop localHop = routingHeader.getRoutingHop();
+		final List<RoutingHop> replicaHops = new ArrayList<>(
+				routingList.subList(routingHeader.getHop(), routingList.size()));
+		
+		final WriteConsistencyLevel writeConsistencyLevel = getWriteConsistencyLevel(table);
+		
+		final WriteAcknowledgementTracker tracker = new WriteAcknowledgementTracker(
+				replicaHops, writeConsistencyLevel, 
+				() -> {
+					final SuccessResponse responsePackage = new SuccessResponse(packageSequence);
+					clientConnectionHandler.writeResultPackageNE(responsePackage);
+				}, 
+				() -> {
+					final ErrorResponse responsePackage = new ErrorResponse(packageSequence, ErrorMessages.ERROR_ROUTING_FAILED);
+					clientConnectionHandler.writeResultPackageNE(responsePackage);
+				});
+		
+		// The local instance has already stored the tuple
+		tracker.handleSuccess(localHop);
+		
+		for(final RoutingHop routingHop : replicaHops.subList(1, replicaHops.size())) {
+			sendPackage(routingHop, tracker, futureBuilder);
+		}
+		
+		if(! tracker.isCompleted()) {
+			timeoutScheduler.schedule(() -> {
+				if(! tracker.isCompleted()) {
+					logger.warn("Routing timeout for package {}: {}", packageSequence, tracker);
+					tracker.handleTimeout();
+				}
+			}, ROUTING_TIMEOUT_IN_SEC, TimeUnit.SECONDS);
 		}
 	}
 
 	/**
-	 * @param insertTupleRequest
+	 * Get the write consistency level for the table
+	 * @param table
 	 * @return
-	 * @throws InterruptedException
-	 * @throws PackageEncodeException 
-	 * @throws TimeoutException 
-	 * @throws ExecutionException
 	 */
-	protected boolean sendInsertPackage(final InsertTupleRequest insertTupleRequest) 
-			throws InterruptedException, PackageEncodeException {
+	private WriteConsistencyLevel getWriteConsistencyLevel(final TupleStoreName table) {
+		final String distributionGroup = table.getDistributionGroup();
+		
+		try {
+			return DistributionGroupConfigurationCache.getInstance()
+					.getDistributionGroupConfiguration(distributionGroup)
+					.getWriteConsistencyLevel();
+		} catch (ZookeeperNotFoundException e) {
+			logger.warn("Unable to read configuration for group {}, using consistency level {}", 
+					distributionGroup, WriteConsistencyLevel.ALL);
+			return WriteConsistencyLevel.ALL;
+		}
+	}
+
+	/**
+	 * Send the package to the given hop. The package is 
+	 * not routed further by the receiver.
+	 * 
+	 * @param routingHop
+	 * @param tracker
+	 * @param futureBuilder
+	 */
+	protected void sendPackage(final RoutingHop routingHop, final WriteAcknowledgementTracker tracker,
+			final BiFunction<BBoxDBClient, RoutingHeader, Supplier<List<NetworkOperationFuture>>> futureBuilder) {
 		
-		final RoutingHeader routingHeader = insertTupleRequest.getRoutingHeader();
-		final RoutingHop routingHop = routingHeader.getRoutingHop();
 		final BBoxDBInstance receiverInstance = routingHop.getDistributedInstance();
 				
 		final BBoxDBConnection connection = MembershipConnectionService
@@ -144,28 +243,29 @@ public class PackageRouter {
 		
 		if(connection == null) {
 			logger.error("Unable to get a connection to system: {}", receiverInstance);
-			return false;
+			tracker.handleFailure(routingHop);
+			return;
 		} 
+		
+		final RoutingHeader routingHeader = new RoutingHeader((short) 0, Arrays.asList(routingHop));
 				
 		final BBoxDBClient bboxDBClient = connection.getBboxDBClient();
-		final EmptyResultFuture insertFuture = bboxDBClient.insertTuple(
-				insertTupleRequest.getTable().getFullname(), 
-				insertTupleRequest.getTuple(), 
-				routingHeader,
-				insertTupleRequest.getInsertOptions());
+		final List<NetworkOperationFuture> futures = futureBuilder.apply(bboxDBClient, routingHeader).get();
 		
-		try {
-			insertFuture.waitForCompletion(ROUTING_TIMEOUT_IN_SEC, TimeUnit.SECONDS);
-		} catch (TimeoutException e) {
-			logger.warn("Routing timeout, retry routing: {}", connection);
-			return false;
+		for(final NetworkOperationFuture future : futures) {
+			future.setDoneCallback((f) -> {
+				if(f.isFailed()) {
+					logger.debug("Routing to {} failed: {}", receiverInstance, f.getMessage());
+					tracker.handleFailure(routingHop);
+				} else {
+					tracker.handleSuccess(routingHop);
+				}
+			});
+			
+			future.execute();
 		}
-		
-		final boolean operationSuccess = (! insertFuture.isFailed());
-		return operationSuccess;
 	}
 	
-	
 	/**
 	 * Ensure that the package is routed to the correct system
 	 * @param localHop
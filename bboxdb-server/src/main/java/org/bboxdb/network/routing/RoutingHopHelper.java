@@ -102,11 +102,9 @@ public class RoutingHopHelper {
 	public static List<DistributionRegion> getRegionsForPredicate(final DistributionRegion rootRegion,
 			final Hyperrectangle boundingBox, final Predicate<DistributionRegionState> statePredicate) {
 		
-		final Predicate<DistributionRegion> predicate = (d) -> {
-			return statePredicate.test(d.getState()) && d.getConveringBox().intersects(boundingBox);
-		};
+		final Predicate<DistributionRegion> predicate = (d) -> statePredicate.test(d.getState());
 
-		return rootRegion.getThisAndChildRegions(predicate);
+		return rootRegion.getThisAndChildRegions(boundingBox, predicate);
 	}
 
 	/**
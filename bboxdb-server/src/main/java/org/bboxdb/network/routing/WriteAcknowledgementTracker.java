@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.routing;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
+
+public class WriteAcknowledgementTracker {
+	
+	/**
+	 * The number of replicas per region
+	 */
+	private final Map<Long, Integer> replicas = new HashMap<>();
+	
+	/**
+	 * The number of required acknowledgements per region
+	 */
+	private final Map<Long, Integer> requiredAcknowledgements = new HashMap<>();
+	
+	/**
+	 * The received acknowledgements per region
+	 */
+	private final Map<Long, Integer> acknowledgements = new HashMap<>();
+	
+	/**
+	 * The failed replicas per region
+	 */
+	private final Map<Long, Integer> failures = new HashMap<>();
+	
+	/**
+	 * Is the result already reported
+	 */
+	private boolean completed = false;
+	
+	/**
+	 * Executed when enough replicas of all regions have acknowledged the write
+	 */
+	private final Runnable successCallback;
+	
+	/**
+	 * Executed when the required acknowledgements can not be reached
+	 */
+	private final Runnable failureCallback;
+
+	public WriteAcknowledgementTracker(final List<RoutingHop> hops, 
+			final WriteConsistencyLevel writeConsistencyLevel, 
+			final Runnable successCallback, final Runnable failureCallback) {
+		
+		this.successCallback = successCallback;
+		this.failureCallback = failureCallback;
+		
+		for(final RoutingHop hop : hops) {
+			for(final long regionId : hop.getDistributionRegions()) {
+				replicas.merge(regionId, 1, Integer::sum);
+			}
+		}
+		
+		for(final Map.Entry<Long, Integer> entry : replicas.entrySet()) {
+			final int required = writeConsistencyLevel.getRequiredAcknowledgements(entry.getValue());
+			requiredAcknowledgements.put(entry.getKey(), required);
+		}
+	}
+	
+	/**
+	 * The hop has acknowledged the write
+	 * @param hop
+	 */
+	public void handleSuccess(final RoutingHop hop) {
+		final Runnable callback;
+		
+		synchronized (this) {
+			for(final long regionId : hop.getDistributionRegions()) {
+				acknowledgements.merge(regionId, 1, Integer::sum);
+			}
+			
+			final boolean allRegionsAcknowledged = requiredAcknowledgements.entrySet().stream()
+					.allMatch(e -> acknowledgements.getOrDefault(e.getKey(), 0) >= e.getValue());
+			
+			callback = allRegionsAcknowledged ? complete(successCallback) : null;
+		}
+		
+		runCallback(callback);
+	}
+	
+	/**
+	 * The hop has failed to perform the write
+	 * @param hop
+	 */
+	public void handleFailure(final RoutingHop hop) {
+		final Runnable callback;
+		
+		synchronized (this) {
+			boolean unreachable = false;
+			
+			for(final long regionId : hop.getDistributionRegions()) {
+				final int failedReplicas = failures.merge(regionId, 1, Integer::sum);
+				final int availableReplicas = replicas.getOrDefault(regionId, 0) - failedReplicas;
+				
+				if(availableReplicas < requiredAcknowledgements.getOrDefault(regionId, 0)) {
+					unreachable = true;
+				}
+			}
+			
+			callback = unreachable ? complete(failureCallback) : null;
+		}
+		
+		runCallback(callback);
+	}
+	
+	/**
+	 * The replicas have not answered in time
+	 */
+	public void handleTimeout() {
+		final Runnable callback;
+		
+		synchronized (this) {
+			callback = complete(failureCallback);
+		}
+		
+		runCallback(callback);
+	}
+	
+	/**
+	 * Is the result of the write already reported
+	 * @return
+	 */
+	public synchronized boolean isCompleted() {
+		return completed;
+	}
+	
+	/**
+	 * Mark the write as completed
+	 * @param callback
+	 * @return the callback to run or null if the result was already reported
+	 */
+	private Runnable complete(final Runnable callback) {
+		if(completed) {
+			return null;
+		}
+		
+		completed = true;
+		return callback;
+	}
+	
+	/**
+	 * Run the callback outside of the lock
+	 * @param callback
+	 */
+	private void runCallback(final Runnable callback) {
+		if(callback != null) {
+			callback.run();
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "WriteAcknowledgementTracker [requiredAcknowledgements=" + requiredAcknowledgements
+				+ ", acknowledgements=" + acknowledgements + ", failures=" + failures 
+				+ ", completed=" + completed + "]";
+	}
+}
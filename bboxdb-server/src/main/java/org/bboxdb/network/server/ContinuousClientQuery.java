@@ -48,6 +48,7 @@ import org.bboxdb.network.query.ContinuousTableQueryPlan;
 import org.bboxdb.network.query.entity.TupleAndBoundingBox;
 import org.bboxdb.network.query.filter.UserDefinedFilter;
 import org.bboxdb.network.query.filter.UserDefinedFilterDefinition;
+import org.bboxdb.network.query.filter.UserDefinedFilterRegistry;
 import org.bboxdb.network.query.transformation.TupleTransformation;
 import org.bboxdb.network.server.connection.ClientConnectionHandler;
 import org.bboxdb.storage.StorageManagerException;
@@ -184,6 +185,9 @@ public class ContinuousClientQuery implements ClientQuery {
 		
 		final ContinuousTableQueryPlan tableQueryPlan = (ContinuousTableQueryPlan) queryPlan;
 		
+		// The filters are loaded only once per query
+		final Map<UserDefinedFilter, byte[]> filters = getUserDefinedFilter(tableQueryPlan);
+		
 		return (t) -> {
 			final List<TupleTransformation> transformations = tableQueryPlan.getStreamTransformation(); 
 			final TupleAndBoundingBox tuple = applyStreamTupleTransformations(transformations, t);
@@ -193,8 +197,6 @@ public class ContinuousClientQuery implements ClientQuery {
 				return;
 			}
 			
-			final Map<UserDefinedFilter, byte[]> filters = getUserDefinedFilter(tableQueryPlan);
-			
 			final Consumer<Tuple> tupleConsumer = (tupleToConsume) -> {
 				final List<TupleTransformation> tupleTransfor 
 					= tableQueryPlan.getTableTransformation(); 
@@ -257,8 +259,16 @@ public class ContinuousClientQuery implements ClientQuery {
 			final UserDefinedFilter operator = entry.getKey();
 			final byte[] value = entry.getValue();
 			
-			final boolean result 
-				= operator.filterJoinCandidate(t, transformedTuple.getTuple(), value);
+			final boolean result;
+			
+			// The callback can be executed by multiple threads
+			if(operator.isThreadSafe()) {
+				result = operator.filterJoinCandidate(t, transformedTuple.getTuple(), value);
+			} else {
+				synchronized (operator) {
+					result = operator.filterJoinCandidate(t, transformedTuple.getTuple(), value);
+				}
+			}
 			
 			if(! result) {
 				matches = false;
@@ -276,16 +286,13 @@ public class ContinuousClientQuery implements ClientQuery {
 			final ContinuousTableQueryPlan tableQueryPlan) {
 		
 		final Map<UserDefinedFilter, byte[]> operators = new HashMap<>();
+		final UserDefinedFilterRegistry filterRegistry = UserDefinedFilterRegistry.getInstance();
 		
 		for(final UserDefinedFilterDefinition filter : tableQueryPlan.getAfterJoinFilter()) {
-			try {
-				final Class<?> filterClass = Class.forName(filter.getUserDefinedFilterClass());
-				final UserDefinedFilter operator = 
-						(UserDefinedFilter) filterClass.newInstance();
-				operators.put(operator, filter.getUserDefinedFilterValue().getBytes());
-			} catch (ClassNotFoundException | InstantiationException | IllegalAccessException e) {
-				throw new IllegalArgumentException("Unable to find user defined filter class", e);
-			}
+			final byte[] value = filter.getUserDefinedFilterValue().getBytes();
+			final UserDefinedFilter operator = filterRegistry.getFilter(
+					filter.getUserDefinedFilterClass(), value);
+			operators.put(operator, value);
 		}
 		
 		return operators;
@@ -324,6 +331,37 @@ public class ContinuousClientQuery implements ClientQuery {
 		};
 	}
 
+	/**
+	 * Get the region of the inserted tuples that can produce a result for this 
+	 * query. The callback is only executed for tuples in this region.
+	 * 
+	 * @return
+	 */
+	private Hyperrectangle getInsertCallbackRegion() {
+		
+		// Negative results and joins need all tuples
+		if(! (queryPlan instanceof ContinuousConstQueryPlan) || ! queryPlan.isReportPositive()) {
+			return Hyperrectangle.FULL_SPACE;
+		}
+		
+		final ContinuousConstQueryPlan constQueryPlan = (ContinuousConstQueryPlan) queryPlan;
+		final List<TupleTransformation> transformations = constQueryPlan.getStreamTransformation();
+		
+		Hyperrectangle region = constQueryPlan.getCompareRectangle();
+		
+		// Calculate the region before the transformations are applied
+		for(int i = transformations.size() - 1; i >= 0; i--) {
+			
+			if(region.getDimension() == 0) {
+				return Hyperrectangle.FULL_SPACE;
+			}
+			
+			region = transformations.get(i).getInputRegion(region);
+		}
+		
+		return region;
+	}
+
 	/**
 	 * Apply the stream transformations
 	 * @param constQueryPlan
@@ -388,7 +426,7 @@ public class ContinuousClientQuery implements ClientQuery {
 
 			storageManager = QueryHelper.getTupleStoreManager(storageRegistry, tupleStoreName);
 
-			storageManager.registerInsertCallback(tupleInsertCallback);
+			storageManager.registerSpatialInsertCallback(getInsertCallbackRegion(), tupleInsertCallback);
 
 			// Remove tuple store insert listener on connection close
 			clientConnectionHandler.addConnectionClosedHandler((c) -> close());
@@ -467,7 +505,7 @@ public class ContinuousClientQuery implements ClientQuery {
 		logger.debug("Closing query {} (send {} result tuples)", querySequence, totalSendTuples);
 
 		if(storageManager != null) {
-			storageManager.removeInsertCallback(tupleInsertCallback);
+			storageManager.removeSpatialInsertCallback(tupleInsertCallback);
 		}
 
 		queryActive = false;
@@ -17,22 +17,32 @@
  *******************************************************************************/
 package org.bboxdb.network.server.connection;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.bboxdb.commons.CloseableHelper;
 import org.bboxdb.commons.concurrent.ExceptionSafeRunnable;
-import org.bboxdb.commons.concurrent.ExecutorUtil;
 import org.bboxdb.commons.service.ServiceState;
 import org.bboxdb.misc.Const;
 import org.bboxdb.network.NetworkConst;
@@ -43,6 +53,8 @@ import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.response.CompressionEnvelopeResponse;
 import org.bboxdb.network.packages.response.ErrorResponse;
 import org.bboxdb.network.packages.response.JoinedTupleResponse;
+import org.bboxdb.network.packages.response.MultipleTupleEndResponse;
+import org.bboxdb.network.packages.response.MultipleTupleStartResponse;
 import org.bboxdb.network.packages.response.TupleResponse;
 import org.bboxdb.network.routing.PackageRouter;
 import org.bboxdb.network.routing.RoutingHeader;
@@ -57,6 +69,7 @@ import org.bboxdb.network.server.connection.handler.query.HandleJoinQuery;
 import org.bboxdb.network.server.connection.handler.query.HandleKeyQuery;
 import org.bboxdb.network.server.connection.handler.query.HandleVersionTimeQuery;
 import org.bboxdb.network.server.connection.handler.query.QueryHandler;
+import org.bboxdb.network.server.connection.handler.request.AdoptSSTablesHandler;
 import org.bboxdb.network.server.connection.handler.request.CancelRequestHandler;
 import org.bboxdb.network.server.connection.handler.request.CompressionHandler;
 import org.bboxdb.network.server.connection.handler.request.CreateDistributionGroupHandler;
@@ -66,10 +79,12 @@ import org.bboxdb.network.server.connection.handler.request.DeleteTableHandler;
 import org.bboxdb.network.server.connection.handler.request.DisconnectHandler;
 import org.bboxdb.network.server.connection.handler.request.HandshakeHandler;
 import org.bboxdb.network.server.connection.handler.request.InsertTupleHandler;
+import org.bboxdb.network.server.connection.handler.request.InsertTuplesHandler;
 import org.bboxdb.network.server.connection.handler.request.KeepAliveHandler;
 import org.bboxdb.network.server.connection.handler.request.LockTupleHandler;
 import org.bboxdb.network.server.connection.handler.request.NextPageHandler;
 import org.bboxdb.network.server.connection.handler.request.RequestHandler;
+import org.bboxdb.network.server.connection.handler.request.TransferSSTableHandler;
 import org.bboxdb.network.server.connection.lock.LockHelper;
 import org.bboxdb.network.server.connection.lock.LockManager;
 import org.bboxdb.storage.entity.JoinedTuple;
@@ -77,11 +92,13 @@ import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.io.ByteStreams;
 
 import io.prometheus.client.Gauge;
 
-public class ClientConnectionHandler extends ExceptionSafeRunnable {
+public class ClientConnectionHandler {
 
 	/**
 	 * The client socket
@@ -89,14 +106,19 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	public final Socket clientSocket;
 
 	/**
-	 * The output stream of the socket
+	 * The socket channel
 	 */
-	private BufferedOutputStream outputStream;
+	private final SocketChannel socketChannel;
 
 	/**
-	 * The input stream of the socket
+	 * The connection dispatcher that owns the selector of the channel
 	 */
-	private InputStream inputStream;
+	private final ConnectionDispatcherRunable connectionDispatcher;
+
+	/**
+	 * The selection key of the channel
+	 */
+	private SelectionKey selectionKey;
 
 	/**
 	 * The connection state
@@ -115,9 +137,26 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	private final Map<Short, ClientQuery> activeQueries;
 
 	/**
-	 * The thread pool
+	 * The last requested page of the queries, the pages of a query are produced in
+	 * the order of the requests
+	 */
+	private final Map<Short, CompletableFuture<Void>> pageProducers;
+
+	/**
+	 * The recently finished queries, pages requested ahead for these
+	 * queries are answered with an empty page
+	 */
+	private final Cache<Short, Boolean> finishedQueries;
+
+	/**
+	 * The executor of this connection, the tasks are executed by the shared worker pool
 	 */
-	private final ExecutorService threadPool;
+	private final ConnectionExecutorService threadPool;
+
+	/**
+	 * The shared worker pool
+	 */
+	private final ExecutorService workerPool;
 
 	/**
 	 * The package router
@@ -130,7 +169,67 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	private final List<NetworkResponsePackage> pendingCompressionPackages;
 
 	/**
-	 * Number of pending requests
+	 * The header of the package that is currently read
+	 */
+	private final ByteBuffer packageHeader;
+
+	/**
+	 * The package that is currently read, null if the header is read
+	 */
+	private ByteBuffer currentPackage = null;
+
+	/**
+	 * The read but not processed packages
+	 */
+	private final Queue<ByteBuffer> pendingPackages;
+
+	/**
+	 * Is a worker processing the pending packages
+	 */
+	private final AtomicBoolean packageProcessingActive;
+
+	/**
+	 * The number of read but not processed packages
+	 */
+	private final AtomicInteger pendingPackagesCounter;
+
+	/**
+	 * Is reading from the socket suspended
+	 */
+	private volatile boolean readSuspended = false;
+
+	/**
+	 * Is the input of the channel closed by the client
+	 */
+	private volatile boolean inputClosed = false;
+
+	/**
+	 * The pending writes
+	 */
+	private final Deque<ByteBuffer> pendingWrites;
+
+	/**
+	 * The bytes of the pending writes
+	 */
+	private volatile long pendingWriteBytes = 0;
+
+	/**
+	 * Close the channel after all pending writes are done
+	 */
+	private boolean closeAfterWrite = false;
+
+	/**
+	 * Is the channel closed
+	 */
+	private volatile boolean channelClosed = false;
+
+	/**
+	 * Is the connection closed
+	 */
+	private final AtomicBoolean connectionClosed;
+
+	/**
+	 * Number of pending (read but not started) requests, reading is suspended if more requests are pending
 	 */
 	private final static int MAX_PENDING_REQUESTS = 25;
 
@@ -139,6 +238,23 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	 */
 	private final static int MAX_RUNNING_QUERIES = 25;
 
+	/**
+	 * Number of finished queries that are remembered
+	 */
+	private final static int MAX_FINISHED_QUERIES = 100;
+
+	/**
+	 * The max amount of unsent bytes, reading from the channel is suspended and the 
+	 * query producers are parked if more bytes are pending. So, the client can not 
+	 * send new requests until it has received the results.
+	 */
+	private final static long MAX_PENDING_WRITE_BYTES = 4 * 1024 * 1024;
+
+	/**
+	 * The size of the fixed package header (12 bytes) and the fixed part of the routing header (6 bytes)
+	 */
+	private final static int FIXED_HEADER_SIZE = 18;
+
 	/**
 	 * The request handlers
 	 */
@@ -149,11 +265,6 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	 */
 	private Map<Byte, QueryHandler> queryHandlerList;
 
-	/**
-	 * The connection maintenance thread
-	 */
-	private ConnectionMaintenanceRunnable maintenanceThread;
-
 	/**
 	 * The storage reference
 	 */
@@ -198,10 +309,13 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	private final static Logger logger = LoggerFactory.getLogger(ClientConnectionHandler.class);
 
 	public ClientConnectionHandler(final TupleStoreManagerRegistry storageRegistry,
-			final Socket clientSocket, final LockManager lockManager) {
+			final SocketChannel socketChannel, final LockManager lockManager, 
+			final ExecutorService workerPool, final ConnectionDispatcherRunable connectionDispatcher) {
 
 		// Client socket
-		this.clientSocket = clientSocket;
+		this.socketChannel = socketChannel;
+		this.clientSocket = socketChannel.socket();
+		this.connectionDispatcher = connectionDispatcher;
 
 		// The storage reference
 		this.storageRegistry = storageRegistry;
@@ -217,31 +331,32 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 
 		serviceState.dipatchToStarting();
 
-		try {
-			this.outputStream = new BufferedOutputStream(clientSocket.getOutputStream());
-			this.inputStream = new BufferedInputStream(clientSocket.getInputStream());
-		} catch (IOException e) {
-			this.inputStream = null;
-			this.outputStream = null;
-			serviceState.dispatchToFailed(e);
-			logger.error("Exception while creating IO stream", e);
-		}
-
 		// The active queries
-		this.activeQueries = new HashMap<>();
+		this.activeQueries = new ConcurrentHashMap<>();
+
+		// The page producers and the recently finished queries
+		this.pageProducers = new ConcurrentHashMap<>();
+		this.finishedQueries = CacheBuilder.newBuilder()
+				.maximumSize(MAX_FINISHED_QUERIES)
+				.build();
 
-		// Create a thread pool that blocks after submitting more than MAX_PENDING_REQUESTS
-		this.threadPool = ExecutorUtil.getBoundThreadPoolExecutor(25, MAX_PENDING_REQUESTS);
+		// The requests of the connection are executed by the shared worker pool
+		this.workerPool = workerPool;
+		this.threadPool = new ConnectionExecutorService(workerPool, () -> resumeReadingIfPossible());
 
 		// The package router
 		this.packageRouter = new PackageRouter(threadPool, this);
 
 		// The pending packages for compression
 		this.pendingCompressionPackages = new ArrayList<>();
-		this.maintenanceThread = new ConnectionMaintenanceRunnable(this);
 
-		final Thread thread = new Thread(maintenanceThread);
-		thread.start();
+		// The read and write state
+		this.packageHeader = ByteBuffer.allocate(FIXED_HEADER_SIZE);
+		this.pendingPackages = new ConcurrentLinkedQueue<>();
+		this.packageProcessingActive = new AtomicBoolean(false);
+		this.pendingPackagesCounter = new AtomicInteger(0);
+		this.pendingWrites = new ArrayDeque<>();
+		this.connectionClosed = new AtomicBoolean(false);
 
 		// Init the request handler map
 		initRequestHandlerMap();
@@ -250,6 +365,14 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		initQueryHandlerMap();
 	}
 
+	/**
+	 * Set the selection key of the channel
+	 * @param selectionKey
+	 */
+	public void setSelectionKey(final SelectionKey selectionKey) {
+		this.selectionKey = selectionKey;
+	}
+
 	/**
 	 * Read the next package header from the socket
 	 * @return The package header, wrapped in a ByteBuffer
@@ -282,7 +405,7 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		// are perfomed in one synchronized block otherwise
 		// we will create out of order packages
 		synchronized (pendingCompressionPackages) {
-			if(pendingCompressionPackages.isEmpty()) {
+			if(pendingCompressionPackages.isEmpty() || channelClosed) {
 				return;
 			}
 
@@ -344,7 +467,12 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	}
 
 	/**
-	 * Write a network package uncompressed
+	 * Write a network package uncompressed. The package is written directly to
+	 * the channel if no other writes are pending. Otherwise, the package is 
+	 * queued and written by the selector thread. The writer is never blocked, 
+	 * too many pending bytes suspend reading from the channel instead. The query 
+	 * producers wait in {@link #writeResultTuple} until the bytes are written.
+	 * 
 	 * @param responsePackage
 	 * @throws IOException
 	 * @throws PackageEncodeException
@@ -352,51 +480,421 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	private void writePackageToSocket(final NetworkResponsePackage responsePackage)
 			throws IOException, PackageEncodeException {
 
-		synchronized (outputStream) {
-			final long writtenBytes = responsePackage.writeToOutputStream(outputStream);
-			writtenBytesCounter.inc(writtenBytes);
-			outputStream.flush();
+		final ByteArrayOutputStream encodedPackage = new ByteArrayOutputStream();
+		final long writtenBytes = responsePackage.writeToOutputStream(encodedPackage);
+		final ByteBuffer buffer = ByteBuffer.wrap(encodedPackage.toByteArray());
+
+		synchronized (pendingWrites) {
+			if(channelClosed || closeAfterWrite) {
+				throw new IOException("Connection is closed: " + getConnectionName());
+			}
+
+			if(pendingWrites.isEmpty()) {
+				socketChannel.write(buffer);
+			}
+
+			// The selector thread writes the data and suspends reading 
+			// if too many bytes are pending
+			if(buffer.hasRemaining()) {
+				pendingWrites.add(buffer);
+				pendingWriteBytes += buffer.remaining();
+				connectionDispatcher.updateInterestOps(this);
+			}
 		}
+
+		writtenBytesCounter.inc(writtenBytes);
 	}
 
-	@Override
-	public void runThread() {
+	/**
+	 * Read the available data from the channel, called by the selector thread
+	 * @param readBuffer - the read buffer of the selector thread
+	 */
+	public void handleRead(final ByteBuffer readBuffer) {
 		try {
-			logger.debug("Handling new connection from: {}", clientSocket.getInetAddress());
+			readBuffer.clear();
+			final int readBytes = socketChannel.read(readBuffer);
+
+			// The client has closed the connection, process the pending packages first
+			if(readBytes < 0) {
+				inputClosed = true;
+
+				if(pendingPackagesCounter.get() == 0) {
+					handleChannelClosed(null);
+				} else {
+					updateInterestOps();
+				}
 
-			while(serviceState.isInRunningState() || serviceState.isInStartingState()) {
-				handleNextPackage(inputStream);
+				return;
 			}
 
-			// Flush all pending results to client
-			flushPendingCompressionPackages();
+			readBytesCounter.inc(readBytes);
+			readBuffer.flip();
 
-			// Connection is down
-			if(! serviceState.isInStoppingState()) {
-				serviceState.dispatchToStopping();
+			while(readBuffer.hasRemaining()) {
+				if(currentPackage == null) {
+					readPackageHeader(readBuffer);
+				} else {
+					transferBytes(readBuffer, currentPackage);
+
+					if(! currentPackage.hasRemaining()) {
+						pendingPackagesCounter.incrementAndGet();
+						pendingPackages.add(currentPackage);
+						currentPackage = null;
+					}
+				}
+			}
+
+			schedulePackageProcessing();
+			updateInterestOps();
+		} catch (IOException | PackageEncodeException e) {
+			handleChannelClosed(e);
+		}
+	}
+
+	/**
+	 * Read the package header and allocate the buffer for the package
+	 * @param readBuffer
+	 * @throws PackageEncodeException
+	 */
+	private void readPackageHeader(final ByteBuffer readBuffer) throws PackageEncodeException {
+		transferBytes(readBuffer, packageHeader);
+
+		if(packageHeader.hasRemaining()) {
+			return;
+		}
+
+		final byte routingType = packageHeader.get(12);
+
+		if(routingType != RoutingHeader.DIRECT_PACKAGE && routingType != RoutingHeader.ROUTED_PACKAGE) {
+			throw new PackageEncodeException("Invalid package routing type, unable to decode package "
+					+ "header: " + routingType);
+		}
+
+		final int routingListLength = packageHeader.getShort(16);
+		final long bodyLength = NetworkPackageDecoder.getBodyLengthFromRequestPackage(packageHeader);
+		final long packageLength = FIXED_HEADER_SIZE + routingListLength + bodyLength;
+
+		if(routingListLength < 0 || bodyLength < 0 || packageLength > Integer.MAX_VALUE) {
+			throw new PackageEncodeException("Invalid package length: " + packageLength);
+		}
+
+		currentPackage = ByteBuffer.allocate((int) packageLength);
+		currentPackage.put(packageHeader.array());
+		packageHeader.clear();
+
+		if(! currentPackage.hasRemaining()) {
+			pendingPackagesCounter.incrementAndGet();
+			pendingPackages.add(currentPackage);
+			currentPackage = null;
+		}
+	}
+
+	/**
+	 * Transfer the bytes from the source to the destination, as many as possible
+	 * @param source
+	 * @param destination
+	 */
+	private static void transferBytes(final ByteBuffer source, final ByteBuffer destination) {
+		final int bytes = Math.min(source.remaining(), destination.remaining());
+		final ByteBuffer slice = source.slice();
+		slice.limit(bytes);
+		destination.put(slice);
+		source.position(source.position() + bytes);
+	}
+
+	/**
+	 * Write the pending data to the channel, called by the selector thread
+	 */
+	public void handleWrite() {
+		try {
+			synchronized (pendingWrites) {
+				while(! pendingWrites.isEmpty()) {
+					final ByteBuffer buffer = pendingWrites.peek();
+					pendingWriteBytes -= socketChannel.write(buffer);
+
+					if(buffer.hasRemaining()) {
+						break;
+					}
+
+					pendingWrites.poll();
+				}
+
+				// Resume the parked query producers
+				if(! isWriteBacklogExceeded()) {
+					pendingWrites.notifyAll();
+				}
+
+				if(pendingWrites.isEmpty() && closeAfterWrite) {
+					closeChannel();
+					return;
+				}
+			}
+
+			schedulePackageProcessing();
+			updateInterestOps();
+		} catch (IOException e) {
+			handleChannelClosed(e);
+		}
+	}
+
+	/**
+	 * Update the interest operations of the channel, called by the selector thread
+	 */
+	public void updateInterestOps() {
+		if(selectionKey == null || ! selectionKey.isValid()) {
+			return;
+		}
+
+		readSuspended = isReadSuspensionNeeded();
+
+		int interestOps = 0;
+
+		if(! readSuspended && ! inputClosed) {
+			interestOps |= SelectionKey.OP_READ;
+		}
+
+		synchronized (pendingWrites) {
+			if(! pendingWrites.isEmpty()) {
+				interestOps |= SelectionKey.OP_WRITE;
 			}
+		}
 
-			serviceState.dispatchToTerminated();
+		try {
+			selectionKey.interestOps(interestOps);
+		} catch(CancelledKeyException e) {
+			logger.debug("Key of {} is already cancelled", getConnectionName());
+		}
+	}
 
-			logger.info("Closing connection to: {}", clientSocket.getInetAddress());
+	/**
+	 * Resume reading from the channel if it was suspended and the 
+	 * pending requests are processed
+	 */
+	private void resumeReadingIfPossible() {
+		if(readSuspended && ! isReadSuspensionNeeded()) {
+			connectionDispatcher.updateInterestOps(this);
+		}
+	}
+	
+	/**
+	 * Reading is suspended if too many requests are pending or the 
+	 * client does not receive the results fast enough
+	 * @return
+	 */
+	private boolean isReadSuspensionNeeded() {
+		if(pendingPackagesCounter.get() + threadPool.getQueuedTasks() >= MAX_PENDING_REQUESTS) {
+			return true;
+		}
+		
+		return isWriteBacklogExceeded();
+	}
+	
+	/**
+	 * Are more bytes pending than the client should receive at once
+	 * @return
+	 */
+	private boolean isWriteBacklogExceeded() {
+		return pendingWriteBytes > MAX_PENDING_WRITE_BYTES;
+	}
+
+	/**
+	 * Schedule the processing of the pending packages. The packages of one
+	 * connection are processed in order by one worker at a time.
+	 */
+	private void schedulePackageProcessing() {
+		if(pendingPackages.isEmpty()) {
+			return;
+		}
+		
+		// Continued by the selector thread when the pending bytes are written
+		if(isWriteBacklogExceeded()) {
+			return;
+		}
+
+		if(! packageProcessingActive.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			workerPool.execute(() -> processPendingPackages());
+		} catch(RejectedExecutionException e) {
+			packageProcessingActive.set(false);
+			logger.warn("Worker pool is shutting down, closing connection {}", getConnectionName());
+			closeConnection();
+		}
+	}
+
+	/**
+	 * Process the pending packages
+	 */
+	private void processPendingPackages() {
+		try {
+			ByteBuffer encodedPackage;
+
+			while(! isWriteBacklogExceeded() && (encodedPackage = pendingPackages.poll()) != null) {
+
+				// Drop the remaining packages of closed connections
+				if(serviceState.isInRunningState() || serviceState.isInStartingState()) {
+					handleEncodedPackage(encodedPackage);
+				}
+
+				pendingPackagesCounter.decrementAndGet();
+				resumeReadingIfPossible();
+
+				if(! serviceState.isInRunningState() && ! serviceState.isInStartingState()) {
+					closeConnection();
+				}
+			}
+		} finally {
+			packageProcessingActive.set(false);
+		}
+
+		if(inputClosed && pendingPackagesCounter.get() == 0) {
+			handleChannelClosed(null);
+			return;
+		}
+
+		// A new package might be added after the last poll
+		schedulePackageProcessing();
+	}
+
+	/**
+	 * Handle a completely read package
+	 * @param encodedPackage
+	 */
+	private void handleEncodedPackage(final ByteBuffer encodedPackage) {
+		try {
+			readPackagesTotal.inc();
+
+			final short packageSequence = NetworkPackageDecoder.getRequestIDFromRequestPackage(encodedPackage);
+			final short packageType = NetworkPackageDecoder.getPackageTypeFromRequest(encodedPackage);
+
+			if(serviceState.isInStartingState()) {
+				if(packageType != NetworkConst.REQUEST_TYPE_HELLO) {
+					final String errorMessage = "Connection is in handshake state but got package: " + packageType;
+					logger.error(errorMessage);
+					serviceState.dispatchToFailed(new IllegalStateException(errorMessage));
+					return;
+				}
+			}
+
+			final boolean readFurtherPackages = handleBufferedPackage(encodedPackage, packageSequence, packageType);
+
+			if(readFurtherPackages == false && serviceState.isInRunningState()) {
+				serviceState.dispatchToStopping();
+			}
 		} catch (IOException | PackageEncodeException e) {
-			// Ignore exception on closing sockets
-			if(serviceState.isInRunningState()) {
+			logger.error("Got an exception while handling package from {}, closing connection", 
+					getConnectionName(), e);
+			serviceState.dispatchToFailed(e);
+		} catch (RuntimeException e) {
+			logger.error("Got an exception while handling package from {}", getConnectionName(), e);
+		}
+	}
 
-				logger.error("Socket to {} closed unexpectly (state: {}), closing connection",
-						clientSocket.getInetAddress(), getConnectionState());
+	/**
+	 * The channel is closed or an IO error has occurred
+	 * @param e - the exception or null if the channel was closed by the client
+	 */
+	private void handleChannelClosed(final Exception e) {
+		// Ignore exception on closing sockets
+		if(serviceState.isInRunningState()) {
+			logger.error("Socket to {} closed unexpectly (state: {}), closing connection",
+					clientSocket.getInetAddress(), getConnectionState());
 
+			if(e != null) {
 				logger.debug("Socket exception", e);
 			}
 		}
 
+		closeConnectionImmediately();
+	}
+
+	/**
+	 * Close the channel
+	 */
+	private void closeChannel() {
+		synchronized (pendingWrites) {
+			channelClosed = true;
+			pendingWrites.clear();
+			pendingWriteBytes = 0;
+			pendingWrites.notifyAll();
+		}
+
+		CloseableHelper.closeWithoutException(socketChannel);
+		connectionDispatcher.removeConnection(this);
+	}
+
+	/**
+	 * Close the connection, the pending writes are sent to the client before 
+	 * the channel is closed
+	 */
+	public void closeConnection() {
+
+		if(! connectionClosed.compareAndSet(false, true)) {
+			return;
+		}
+
+		// Flush all pending results to client
+		flushPendingCompressionPackages();
+
+		if(serviceState.isInRunningState()) {
+			serviceState.dispatchToStopping();
+		}
+
+		if(! serviceState.isInFinishedState()) {
+			serviceState.forceDispatchToTerminated();
+		}
+
+		logger.info("Closing connection to: {}", clientSocket.getInetAddress());
+
 		getThreadPool().shutdown();
 
 		// Close active query iterators
 		getActiveQueries().values().forEach(i -> i.close());
 		getActiveQueries().clear();
 
-		CloseableHelper.closeWithoutException(clientSocket);
+		synchronized (pendingWrites) {
+			if(pendingWrites.isEmpty()) {
+				closeChannel();
+				return;
+			}
+
+			closeAfterWrite = true;
+			pendingWrites.notifyAll();
+		}
+
+		// Write the pending data and close the channel afterwards
+		connectionDispatcher.updateInterestOps(this);
+	}
+
+	/**
+	 * Close the connection and the channel without sending the pending writes
+	 */
+	public void closeConnectionImmediately() {
+		closeChannel();
+		closeConnection();
+	}
+
+	/**
+	 * Is the connection closed
+	 * @return
+	 */
+	public boolean isConnectionClosed() {
+		return connectionClosed.get();
+	}
+
+	/**
+	 * Perform the maintenance tasks of the connection, called by the maintenance thread
+	 */
+	public void performMaintenance() {
+		// Perform maintenance tasks for the queries
+		for(final ClientQuery query : activeQueries.values()) {
+			query.maintenanceCallback();
+		}
+
+		// Write all waiting for compression packages
+		flushPendingCompressionPackages();
 	}
 
 	/**
@@ -414,52 +912,26 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 
 		final ByteBuffer encodedPackage = ByteBuffer.allocate(packageLength);
 
-		try {
-			//System.out.println("Trying to read: " + bodyLength + " avail " + in.available());
-			encodedPackage.put(packageHeader.array());
-			ByteStreams.readFully(inputStream, encodedPackage.array(), encodedPackage.position(), bodyLength);
-			readBytesCounter.inc(packageLength);
-		} catch (IOException e) {
-			serviceState.dispatchToStopping();
-			throw e;
-		}
+		encodedPackage.put(packageHeader.array());
+		ByteStreams.readFully(inputStream, encodedPackage.array(), encodedPackage.position(), bodyLength);
 
 		return encodedPackage;
 	}
 
 	/**
-	 * Handle the next request package
+	 * Handle the next request package from a stream (e.g., the content of a compression envelope)
 	 * @throws IOException
 	 * @throws PackageEncodeException
 	 */
 	public void handleNextPackage(final InputStream inputStream) throws IOException, PackageEncodeException {
-		readPackagesTotal.inc();
-		
 		final ByteBuffer packageHeader = readNextPackageHeader(inputStream);
-
-		final short packageSequence = NetworkPackageDecoder.getRequestIDFromRequestPackage(packageHeader);
-		final short packageType = NetworkPackageDecoder.getPackageTypeFromRequest(packageHeader);
-
-		if(serviceState.isInStartingState()) {
-			if(packageType != NetworkConst.REQUEST_TYPE_HELLO) {
-				final String errorMessage = "Connection is in handshake state but got package: " + packageType;
-				logger.error(errorMessage);
-				serviceState.dispatchToFailed(new IllegalStateException(errorMessage));
-				return;
-			}
-		}
-
 		final ByteBuffer encodedPackage = readFullPackage(packageHeader, inputStream);
-
-		final boolean readFurtherPackages = handleBufferedPackage(encodedPackage, packageSequence, packageType);
-
-		if(readFurtherPackages == false) {
-			serviceState.dispatchToStopping();
-		}
+		handleEncodedPackage(encodedPackage);
 	}
 
 	/**
-	 * Send a new result tuple to the client
+	 * Send a new result tuple to the client, the query producer is parked 
+	 * while too many bytes are not yet written to the client
 	 * @param packageSequence
 	 * @param requestTable
 	 * @param tuple
@@ -469,6 +941,8 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	public void writeResultTuple(final short packageSequence, final JoinedTuple joinedTuple,
 			final boolean forceJoinedTupleResult) throws IOException, PackageEncodeException {
 
+		waitForWriteCapacity();
+
 		if(joinedTuple.getNumberOfTuples() > 1 || forceJoinedTupleResult) {
 			final JoinedTupleResponse responsePackage = new JoinedTupleResponse(
 					packageSequence, joinedTuple);
@@ -485,6 +959,24 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 
 	}
 
+	/**
+	 * Park the query producer until the selector thread has written the pending 
+	 * bytes. So, a query can not queue more results than the client receives.
+	 * @throws IOException
+	 */
+	private void waitForWriteCapacity() throws IOException {
+		synchronized (pendingWrites) {
+			while(isWriteBacklogExceeded() && ! channelClosed && ! closeAfterWrite) {
+				try {
+					pendingWrites.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the client", e);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Handle query package
 	 * @param bb
@@ -574,6 +1066,9 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_CREATE_TABLE, new CreateTableHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_DELETE_TABLE, new DeleteTableHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_INSERT_TUPLE, new InsertTupleHandler());
+		requestHandlers.put(NetworkConst.REQUEST_TYPE_INSERT_TUPLES, new InsertTuplesHandler());
+		requestHandlers.put(NetworkConst.REQUEST_TYPE_TRANSFER_SSTABLE, new TransferSSTableHandler());
+		requestHandlers.put(NetworkConst.REQUEST_TYPE_ADOPT_SSTABLES, new AdoptSSTablesHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_CREATE_DISTRIBUTION_GROUP, new CreateDistributionGroupHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_DELETE_DISTRIBUTION_GROUP, new DeleteDistributionGroupHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_KEEP_ALIVE, new KeepAliveHandler());
@@ -606,8 +1101,11 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	public void sendNextResultsForQuery(final short packageSequence, final short querySequence)
 			throws IOException, PackageEncodeException {
 
-		if(! getActiveQueries().containsKey(querySequence)) {
-			logger.error("Unable to resume query {} - package {} - not found", querySequence, packageSequence);
+		final boolean pipelinedRequest = pageProducers.containsKey(querySequence)
+				|| finishedQueries.getIfPresent(querySequence) != null;
+
+		if(! getActiveQueries().containsKey(querySequence) && ! pipelinedRequest) {
+			logger.error("Unable to resume query {} - package {} - not found", querySequence, packageSequence);
 			writeResultPackage(new ErrorResponse(packageSequence, ErrorMessages.ERROR_QUERY_NOT_FOUND));
 			return;
 		}
@@ -618,18 +1116,24 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 			protected void runThread() throws IOException, PackageEncodeException {
 				final ClientQuery clientQuery = getActiveQueries().get(querySequence);
 
+				// The page was requested ahead, but the query is already done
 				if(clientQuery == null) {
-					logger.error("Unable to resume query {}, not found", querySequence);
+					logger.debug("Query {} is done, sending empty page for package {}",
+							querySequence, packageSequence);
+					writeResultPackage(new MultipleTupleStartResponse(packageSequence));
+					writeResultPackage(new MultipleTupleEndResponse(packageSequence));
+					flushPendingCompressionPackages();
 					return;
 				}
 
 				clientQuery.fetchAndSendNextTuples(packageSequence);
 
 				if(clientQuery.isQueryDone()) {
-					logger.info("Query {} is done with {} tuples, removing iterator ",
+					logger.info("Query {} is done with {} tuples, removing iterator ",
 							querySequence,
 							clientQuery.getTotalSendTuples());
 					clientQuery.close();
+					markQueryAsFinished(querySequence);
 					getActiveQueries().remove(querySequence);
 				}
 			}
@@ -648,9 +1152,20 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		if(threadPool.isShutdown()) {
 			logger.warn("Thread pool is shutting down, don't execute query: {}", querySequence);
 			writeResultPackage(new ErrorResponse(packageSequence, ErrorMessages.ERROR_EXCEPTION));
-		} else {
-			getThreadPool().submit(queryRunable);
+			return;
 		}
+
+		// The pages of a query are produced one after another in the order of the requests,
+		// so the client can request the next pages before the current page is received
+		final CompletableFuture<Void> producer = pageProducers.compute(querySequence, (k, lastPage) -> {
+			final CompletableFuture<Void> previousPage = (lastPage == null)
+					? CompletableFuture.completedFuture(null) : lastPage;
+
+			return previousPage.thenRunAsync(queryRunable, getThreadPool());
+		});
+
+		// Remove the producer, when no further pages are requested
+		producer.whenComplete((r, e) -> pageProducers.remove(querySequence, producer));
 	}
 
 	/**
@@ -681,6 +1196,15 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		return activeQueries;
 	}
 
+	/**
+	 * Mark the query as finished, the pages that are requested ahead
+	 * for this query are answered with empty pages
+	 * @param querySequence
+	 */
+	public void markQueryAsFinished(final short querySequence) {
+		finishedQueries.put(querySequence, Boolean.TRUE);
+	}
+
 	public ExecutorService getThreadPool() {
 		return threadPool;
 	}
@@ -1,25 +1,38 @@
 /*******************************************************************************
  *
  *    Copyright (C) 2015-2020 the BBoxDB project
- *
+ *  
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
  *    You may obtain a copy of the License at
- *
+ *  
  *      http://www.apache.org/licenses/LICENSE-2.0
- *
+ *  
  *    Unless required by applicable law or agreed to in writing, software
  *    distributed under the License is distributed on an "AS IS" BASIS,
  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  *    See the License for the specific language governing permissions and
- *    limitations under the License.
- *
+ *    limitations under the License. 
+ *    
  *******************************************************************************/
 package org.bboxdb.network.server.connection;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 
 import org.bboxdb.commons.CloseableHelper;
@@ -30,15 +43,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The connection dispatcher
+ * The connection dispatcher. All connections are handled by one selector, the 
+ * requests are processed by the shared worker pool.
  *
  */
 public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 
 	/**
-	 * The server socket
+	 * The server socket channel
 	 */
-	private ServerSocket serverSocket;
+	private ServerSocketChannel serverSocketChannel;
+
+	/**
+	 * The selector
+	 */
+	private Selector selector;
 
 	/**
 	 * The listen port
@@ -46,9 +65,9 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 	private final int port;
 
 	/**
-	 * The thread pool for handling connections
+	 * The worker pool for handling requests
 	 */
-	private final ExecutorService threadPool;
+	private final ExecutorService workerPool;
 
 	/**
 	 * The storage registry
@@ -60,6 +79,41 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 	 */
 	private final LockManager lockManager;
 
+	/**
+	 * The open connections
+	 */
+	private final Set<ClientConnectionHandler> connections;
+
+	/**
+	 * The connections with changed interest operations
+	 */
+	private final Queue<ClientConnectionHandler> pendingInterestUpdates;
+
+	/**
+	 * The read buffer, reused for all reads of the selector thread
+	 */
+	private final ByteBuffer readBuffer;
+
+	/**
+	 * The size of the read buffer
+	 */
+	private final static int READ_BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The selection key of the server socket
+	 */
+	private SelectionKey acceptKey;
+
+	/**
+	 * The time when accepting new connections is resumed, 0 if accepting is not paused
+	 */
+	private long acceptResumeTime = 0;
+
+	/**
+	 * The time accepting is paused after an error (e.g., too many open files)
+	 */
+	private final static long ACCEPT_RETRY_DELAY_MS = 1000;
+
 	/**
 	 * Is a shutdown pending?
 	 */
@@ -71,14 +125,17 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 	final static Logger logger = LoggerFactory.getLogger(ConnectionDispatcherRunable.class);
 
 
-	public ConnectionDispatcherRunable(final int port, final ExecutorService threadPool,
+	public ConnectionDispatcherRunable(final int port, final ExecutorService workerPool,
 			final TupleStoreManagerRegistry storageRegistry, final LockManager lockManager) {
 
 		this.port = port;
-		this.threadPool = threadPool;
+		this.workerPool = workerPool;
 		this.storageRegistry = storageRegistry;
 		this.lockManager = lockManager;
 		this.shutdownPending = false;
+		this.connections = ConcurrentHashMap.newKeySet();
+		this.pendingInterestUpdates = new ConcurrentLinkedQueue<>();
+		this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
 	}
 
 	@Override
@@ -94,12 +151,23 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 	@Override
 	public void runThread() {
 		try {
-			serverSocket = new ServerSocket(port);
-			serverSocket.setReuseAddress(true);
+			selector = Selector.open();
+			serverSocketChannel = ServerSocketChannel.open();
+			serverSocketChannel.socket().setReuseAddress(true);
+			serverSocketChannel.bind(new InetSocketAddress(port));
+			serverSocketChannel.configureBlocking(false);
+			acceptKey = serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
 
 			while(isThreadActive()) {
-				final Socket clientSocket = serverSocket.accept();
-				handleConnection(clientSocket);
+				if(acceptResumeTime == 0) {
+					selector.select();
+				} else {
+					selector.select(Math.max(1, acceptResumeTime - System.currentTimeMillis()));
+				}
+				
+				resumeAcceptIfNeeded();
+				handlePendingInterestUpdates();
+				handleSelectedKeys();
 			}
 
 		} catch(IOException e) {
@@ -111,6 +179,54 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 
 		} finally {
 			closeSocketNE();
+			closeAllConnections();
+			CloseableHelper.closeWithoutException(selector);
+		}
+	}
+
+	/**
+	 * Handle the selected keys
+	 */
+	private void handleSelectedKeys() {
+		final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+
+		while(iterator.hasNext()) {
+			final SelectionKey key = iterator.next();
+			iterator.remove();
+
+			try {
+				if(! key.isValid()) {
+					continue;
+				}
+
+				if(key.isAcceptable()) {
+					handleAcceptNE();
+					continue;
+				}
+
+				final ClientConnectionHandler connection = (ClientConnectionHandler) key.attachment();
+
+				if(key.isWritable()) {
+					connection.handleWrite();
+				}
+
+				if(key.isValid() && key.isReadable()) {
+					connection.handleRead(readBuffer);
+				}
+			} catch(CancelledKeyException e) {
+				logger.debug("Key was cancelled", e);
+			}
+		}
+	}
+
+	/**
+	 * Update the interest operations of the connections
+	 */
+	private void handlePendingInterestUpdates() {
+		ClientConnectionHandler connection;
+
+		while((connection = pendingInterestUpdates.poll()) != null) {
+			connection.updateInterestOps();
 		}
 	}
 
@@ -124,7 +240,7 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 			return false;
 		}
 
-		if(serverSocket == null) {
+		if(serverSocketChannel == null) {
 			return false;
 		}
 
@@ -141,19 +257,107 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 	public void closeSocketNE() {
 		logger.info("Close server socket on port: {}", port);
 		shutdownPending = true;
-		CloseableHelper.closeWithoutException(serverSocket);
+		CloseableHelper.closeWithoutException(serverSocketChannel);
+
+		if(selector != null) {
+			selector.wakeup();
+		}
 	}
 
 	/**
-	 * Dispatch the connection to the thread pool
-	 * @param clientSocket
+	 * Close all open connections
 	 */
-	private void handleConnection(final Socket clientSocket) {
-		logger.debug("Got new connection from: {}", clientSocket.getInetAddress());
+	private void closeAllConnections() {
+		for(final ClientConnectionHandler connection : new ArrayList<>(connections)) {
+			connection.closeConnectionImmediately();
+		}
+	}
 
-		final ClientConnectionHandler task = new ClientConnectionHandler(storageRegistry,
-				clientSocket, lockManager);
+	/**
+	 * Accept the new connection. A failed accept (e.g., too many open files) 
+	 * pauses accepting for a while, the open connections are not affected.
+	 */
+	private void handleAcceptNE() {
+		SocketChannel socketChannel = null;
+		
+		try {
+			socketChannel = serverSocketChannel.accept();
+			
+			if(socketChannel == null) {
+				return;
+			}
+			
+			registerConnection(socketChannel);
+		} catch(IOException e) {
+			logger.error("Unable to accept new connection, pausing accept for {} ms", 
+					ACCEPT_RETRY_DELAY_MS, e);
+			
+			CloseableHelper.closeWithoutException(socketChannel);
+			acceptKey.interestOps(0);
+			acceptResumeTime = System.currentTimeMillis() + ACCEPT_RETRY_DELAY_MS;
+		}
+	}
+	
+	/**
+	 * Accept new connections again after the pause
+	 */
+	private void resumeAcceptIfNeeded() {
+		if(acceptResumeTime == 0 || System.currentTimeMillis() < acceptResumeTime) {
+			return;
+		}
+		
+		acceptResumeTime = 0;
+		
+		if(acceptKey.isValid()) {
+			acceptKey.interestOps(SelectionKey.OP_ACCEPT);
+		}
+	}
 
-		threadPool.submit(task);
+	/**
+	 * Register the new connection on the selector
+	 * @param socketChannel
+	 * @throws IOException 
+	 */
+	private void registerConnection(final SocketChannel socketChannel) throws IOException {
+		logger.debug("Got new connection from: {}", socketChannel.socket().getInetAddress());
+
+		socketChannel.configureBlocking(false);
+
+		final ClientConnectionHandler connection = new ClientConnectionHandler(storageRegistry,
+				socketChannel, lockManager, workerPool, this);
+
+		final SelectionKey selectionKey = socketChannel.register(selector, SelectionKey.OP_READ, connection);
+		connection.setSelectionKey(selectionKey);
+		connections.add(connection);
+	}
+
+	/**
+	 * Update the interest operations of the connection. The update is performed
+	 * by the selector thread.
+	 * 
+	 * @param connection
+	 */
+	public void updateInterestOps(final ClientConnectionHandler connection) {
+		pendingInterestUpdates.add(connection);
+
+		if(selector != null) {
+			selector.wakeup();
+		}
+	}
+
+	/**
+	 * Remove a closed connection
+	 * @param connection
+	 */
+	public void removeConnection(final ClientConnectionHandler connection) {
+		connections.remove(connection);
+	}
+
+	/**
+	 * Get the open connections
+	 * @return
+	 */
+	public Collection<ClientConnectionHandler> getConnections() {
+		return Collections.unmodifiableCollection(connections);
 	}
-}
\ No newline at end of file
+}
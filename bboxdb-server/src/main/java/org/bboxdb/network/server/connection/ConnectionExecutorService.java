@@ -0,0 +1,155 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.server.connection;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executor of one connection. The tasks are executed on the shared 
+ * worker pool of the server, the executor tracks the running tasks of 
+ * the connection and can be shut down independently of the worker pool.
+ */
+public class ConnectionExecutorService extends AbstractExecutorService {
+
+	/**
+	 * The shared worker pool
+	 */
+	private final ExecutorService workerPool;
+	
+	/**
+	 * The callback that is executed when a queued task is started
+	 */
+	private final Runnable taskStartedCallback;
+	
+	/**
+	 * The number of submitted but not finished tasks
+	 */
+	private int runningTasks = 0;
+	
+	/**
+	 * The number of submitted but not started tasks
+	 */
+	private final AtomicInteger queuedTasks = new AtomicInteger(0);
+	
+	/**
+	 * Is the executor shut down
+	 */
+	private volatile boolean shutdown = false;
+
+	public ConnectionExecutorService(final ExecutorService workerPool, 
+			final Runnable taskStartedCallback) {
+		
+		this.workerPool = workerPool;
+		this.taskStartedCallback = taskStartedCallback;
+	}
+
+	@Override
+	public void execute(final Runnable command) {
+		
+		synchronized (this) {
+			if(shutdown) {
+				throw new RejectedExecutionException("Executor is shut down");
+			}
+			
+			runningTasks++;
+		}
+		
+		queuedTasks.incrementAndGet();
+		
+		try {
+			workerPool.execute(() -> {
+				try {
+					queuedTasks.decrementAndGet();
+					taskStartedCallback.run();
+					command.run();
+				} finally {
+					taskFinished();
+				}
+			});
+		} catch(RejectedExecutionException e) {
+			queuedTasks.decrementAndGet();
+			taskFinished();
+			throw e;
+		}
+	}
+
+	/**
+	 * A task is finished
+	 */
+	private synchronized void taskFinished() {
+		runningTasks--;
+		notifyAll();
+	}
+	
+	/**
+	 * Get the number of submitted but not started tasks
+	 * @return
+	 */
+	public int getQueuedTasks() {
+		return queuedTasks.get();
+	}
+
+	@Override
+	public synchronized void shutdown() {
+		shutdown = true;
+	}
+
+	/**
+	 * The tasks are owned by the shared pool and can not be returned
+	 */
+	@Override
+	public List<Runnable> shutdownNow() {
+		shutdown();
+		return Collections.emptyList();
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown;
+	}
+
+	@Override
+	public synchronized boolean isTerminated() {
+		return shutdown && runningTasks == 0;
+	}
+
+	@Override
+	public synchronized boolean awaitTermination(final long timeout, final TimeUnit unit) 
+			throws InterruptedException {
+		
+		final long waitUntil = System.nanoTime() + unit.toNanos(timeout);
+		
+		while(! isTerminated()) {
+			final long waitNanos = waitUntil - System.nanoTime();
+			
+			if(waitNanos <= 0) {
+				return false;
+			}
+			
+			TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+		}
+		
+		return true;
+	}
+}
@@ -17,21 +17,22 @@
  *******************************************************************************/
 package org.bboxdb.network.server.connection;
 
-import java.util.Map;
+import java.util.Collection;
 
 import org.bboxdb.commons.concurrent.ExceptionSafeRunnable;
-import org.bboxdb.commons.service.ServiceState;
 import org.bboxdb.network.NetworkConst;
-import org.bboxdb.network.server.ClientQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Performs the maintenance tasks of all connections of the server
+ */
 public class ConnectionMaintenanceRunnable extends ExceptionSafeRunnable {
 
 	/**
-	 * The connection
+	 * The connection dispatcher
 	 */
-	private final ClientConnectionHandler clientConnectionHandler;
+	private final ConnectionDispatcherRunable connectionDispatcher;
 
 	/**
 	 * The Logger
@@ -39,34 +40,34 @@ public class ConnectionMaintenanceRunnable extends ExceptionSafeRunnable {
 	private final static Logger logger = LoggerFactory.getLogger(ConnectionMaintenanceRunnable.class);
 
 
-	public ConnectionMaintenanceRunnable(final ClientConnectionHandler clientConnectionHandler) {
-		this.clientConnectionHandler = clientConnectionHandler;
+	public ConnectionMaintenanceRunnable(final ConnectionDispatcherRunable connectionDispatcher) {
+		this.connectionDispatcher = connectionDispatcher;
 	}
 
 	@Override
 	protected void beginHook() {
-		logger.debug("Starting connection mainteinance thread for: {}", clientConnectionHandler.getConnectionName());
+		logger.debug("Starting connection mainteinance thread");
 	}
 
 	@Override
 	protected void endHook() {
-		logger.debug("Mainteinance thread for {} has terminated", clientConnectionHandler.getConnectionName());
+		logger.debug("Mainteinance thread has terminated");
 	}
 
 	@Override
 	protected void runThread() throws Exception {
-		final ServiceState serviceState = clientConnectionHandler.getConnectionState();
+		while(! Thread.currentThread().isInterrupted()) {
 
-		while(serviceState.isInStartingState() || serviceState.isInRunningState()) {
-
-			// Perform maintenance tasks for the queries
-			final Map<Short, ClientQuery> queries = clientConnectionHandler.getActiveQueries();
-			for(ClientQuery query : queries.values()) {
-				query.maintenanceCallback();
-			}
+			final Collection<ClientConnectionHandler> connections = connectionDispatcher.getConnections();
 			
-			// Write all waiting for compression packages
-			clientConnectionHandler.flushPendingCompressionPackages();
+			for(final ClientConnectionHandler connection : connections) {
+				try {
+					connection.performMaintenance();
+				} catch(Exception e) {
+					logger.error("Got exception while performing maintenance for: " 
+							+ connection.getConnectionName(), e);
+				}
+			}
 
 			try {
 				Thread.sleep(NetworkConst.MAX_COMPRESSION_DELAY_MS);
@@ -77,4 +78,3 @@ public class ConnectionMaintenanceRunnable extends ExceptionSafeRunnable {
 		}
 	}
 }
-
@@ -19,6 +19,7 @@ package org.bboxdb.network.server.connection;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.bboxdb.commons.service.ServiceState;
 import org.bboxdb.misc.BBoxDBConfiguration;
@@ -29,6 +30,8 @@ import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 public class NetworkConnectionService implements BBoxDBService {
 	
 	/**
@@ -37,7 +40,7 @@ public class NetworkConnectionService implements BBoxDBService {
 	private final BBoxDBConfiguration configuration = BBoxDBConfigurationManager.getConfiguration();
 
 	/**
-	 * Our thread pool to handle connections
+	 * The shared worker pool to handle the requests of all connections
 	 */
 	private ExecutorService threadPool;
 	
@@ -57,6 +60,11 @@ public class NetworkConnectionService implements BBoxDBService {
 	 */
 	private Thread serverSocketDispatchThread;
 	
+	/**
+	 * The thread that performs the maintenance tasks of the connections
+	 */
+	private Thread maintenanceThread;
+	
 	/**
 	 * The storage reference
 	 */
@@ -95,7 +103,13 @@ public class NetworkConnectionService implements BBoxDBService {
 			logger.info("Start the network connection handler on port: {}", port);
 			
 			if(threadPool == null) {
-				threadPool = Executors.newFixedThreadPool(configuration.getNetworkConnectionThreads());
+				final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+						.setNameFormat("Network worker thread %d")
+						.setDaemon(true)
+						.build();
+				
+				threadPool = Executors.newFixedThreadPool(configuration.getNetworkConnectionThreads(), 
+						threadFactory);
 			}
 						
 			serverSocketDispatcher = new ConnectionDispatcherRunable(port, threadPool, 
@@ -104,6 +118,11 @@ public class NetworkConnectionService implements BBoxDBService {
 			serverSocketDispatchThread = new Thread(serverSocketDispatcher);
 			serverSocketDispatchThread.start();
 			serverSocketDispatchThread.setName("Connection dispatcher thread");
+			
+			maintenanceThread = new Thread(new ConnectionMaintenanceRunnable(serverSocketDispatcher));
+			maintenanceThread.setName("Connection maintenance thread");
+			maintenanceThread.setDaemon(true);
+			maintenanceThread.start();
 						
 			state.dispatchToRunning();
 		} catch(Exception e) {
@@ -126,6 +145,11 @@ public class NetworkConnectionService implements BBoxDBService {
 		logger.info("Shutdown the network connection handler");
 		state.dispatchToStopping();
 		
+		if(maintenanceThread != null) {
+			maintenanceThread.interrupt();
+			maintenanceThread = null;
+		}
+		
 		if(serverSocketDispatchThread != null) {
 			serverSocketDispatcher.closeSocketNE();
 			serverSocketDispatchThread.interrupt();	
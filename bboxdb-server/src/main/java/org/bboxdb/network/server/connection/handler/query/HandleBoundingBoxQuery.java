@@ -27,6 +27,7 @@ import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.request.QueryHyperrectangleRequest;
 import org.bboxdb.network.packages.response.ErrorResponse;
 import org.bboxdb.network.query.filter.UserDefinedFilter;
+import org.bboxdb.network.query.filter.UserDefinedFilterRegistry;
 import org.bboxdb.network.server.ErrorMessages;
 import org.bboxdb.network.server.QueryHelper;
 import org.bboxdb.network.server.StreamClientQuery;
@@ -87,16 +88,11 @@ public class HandleBoundingBoxQuery implements QueryHandler {
 
 					// Add the user defined filter operator
 					if(! userdefinedFilterName.equals("")) {
-						try {
-							final Class<?> customFilterClass = Class.forName(userdefinedFilterName);
-							final UserDefinedFilter userDefinedFilter
-								= (UserDefinedFilter) customFilterClass.newInstance();
-
-							return new UserDefinedFilterOperator(userDefinedFilter,
-									userDefinedFilterValue, indexReadOperator);
-						} catch (Exception e) {
-							throw new IllegalArgumentException("Unable to load user defined filter", e);
-						}
+						final UserDefinedFilter userDefinedFilter = UserDefinedFilterRegistry.getInstance()
+								.getFilter(userdefinedFilterName, userDefinedFilterValue);
+
+						return new UserDefinedFilterOperator(userDefinedFilter,
+								userDefinedFilterValue, indexReadOperator);
 					} else {
 						return indexReadOperator;
 					}
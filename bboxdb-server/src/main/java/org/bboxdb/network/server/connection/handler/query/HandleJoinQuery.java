@@ -34,6 +34,7 @@ import org.bboxdb.storage.queryprocessor.OperatorTreeBuilder;
 import org.bboxdb.storage.queryprocessor.operator.Operator;
 import org.bboxdb.storage.queryprocessor.operator.SpatialIndexReadOperator;
 import org.bboxdb.storage.queryprocessor.operator.join.IndexedSpatialJoinOperator;
+import org.bboxdb.storage.queryprocessor.operator.join.PlaneSweepSpatialJoinOperator;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -85,10 +86,11 @@ public class HandleJoinQuery implements QueryHandler {
 						throw new IllegalArgumentException("Unable to use user defined filter on muti-join");
 					}
 					
+					// Both tables are read from the spatial index, join them in one sweep
 					if(storageManager.size() == 2) {
 						final Operator operator1 = new SpatialIndexReadOperator(storageManager.get(0), boundingBox);
 						final SpatialIndexReadOperator indexReader = new SpatialIndexReadOperator(storageManager.get(1), boundingBox);
-						return new IndexedSpatialJoinOperator(operator1, indexReader, 
+						return new PlaneSweepSpatialJoinOperator(operator1, indexReader, 
 								userDefinedFilterName, userDefinedFilterValue);			
 					}
 					
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.server.connection.handler.request;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.network.packages.request.AdoptSSTablesRequest;
+import org.bboxdb.network.packages.response.ErrorResponse;
+import org.bboxdb.network.packages.response.SuccessResponse;
+import org.bboxdb.network.server.ErrorMessages;
+import org.bboxdb.network.server.connection.ClientConnectionHandler;
+import org.bboxdb.storage.sstable.transfer.SSTableTransferReceiver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class AdoptSSTablesHandler implements RequestHandler {
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(AdoptSSTablesHandler.class);
+	
+
+	@Override
+	/**
+	 * Prepare, adopt, abort or roll back the transferred SSTables
+	 */
+	public boolean handleRequest(final ByteBuffer encodedPackage, 
+			final short packageSequence, final ClientConnectionHandler clientConnectionHandler) 
+					throws IOException, PackageEncodeException {
+		
+		try {
+			final AdoptSSTablesRequest request = AdoptSSTablesRequest.decodeTuple(encodedPackage);
+			
+			logger.info("Executing {} for {} transferred SSTables", request.getOperation(), 
+					request.getTransfers().size());
+			
+			final SSTableTransferReceiver receiver 
+				= new SSTableTransferReceiver(clientConnectionHandler.getStorageRegistry());
+			
+			switch(request.getOperation()) {
+				case PREPARE:
+					receiver.prepare(request.getTransfers());
+					break;
+				case COMMIT:
+					receiver.commit(request.getTransfers());
+					break;
+				case ABORT:
+					receiver.abort(request.getTransfers());
+					break;
+				case ROLLBACK:
+					receiver.rollback(request.getTransfers());
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown operation: " + request.getOperation());
+			}
+			
+			clientConnectionHandler.writeResultPackage(new SuccessResponse(packageSequence));
+		} catch (Exception e) {
+			logger.warn("Error while adopting SSTables", e);
+
+			final ErrorResponse responsePackage = new ErrorResponse(packageSequence, ErrorMessages.ERROR_EXCEPTION);
+			clientConnectionHandler.writeResultPackage(responsePackage);
+		}
+		
+		return true;
+	}
+}
@@ -55,6 +55,7 @@ public class CancelRequestHandler implements RequestHandler {
 			final Map<Short, ClientQuery> activeQueries = clientConnectionHandler.getActiveQueries();
 			
 			if(activeQueries.containsKey(queryToCancel)) {
+				clientConnectionHandler.markQueryAsFinished(queryToCancel);
 				final ClientQuery clientQuery = activeQueries.remove(queryToCancel);
 				clientQuery.close();
 			} 
@@ -19,6 +19,8 @@ package org.bboxdb.network.server.connection.handler.request;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.EnumSet;
 import java.util.List;
@@ -30,6 +32,7 @@ import org.bboxdb.distribution.DistributionGroupConfigurationCache;
 import org.bboxdb.distribution.partitioner.SpacePartitioner;
 import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
 import org.bboxdb.distribution.region.DistributionRegionIdMapper;
+import org.bboxdb.distribution.region.DistributionRegionIdSnapshot;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.request.InsertOption;
@@ -95,19 +98,12 @@ public class InsertTupleHandler implements RequestHandler {
 			final DistributionGroupConfiguration groupConfiguration = DistributionGroupConfigurationCache
 					.getInstance().getDistributionGroupConfiguration(distributionGroup);
 
-			final Hyperrectangle boundingBox = insertTupleRequest.getTuple().getBoundingBox();
+			final String dimensionError = checkDimensions(insertTupleRequest.getTuple(), groupConfiguration);
 
-			if(! boundingBox.equals(Hyperrectangle.FULL_SPACE)) {
-				final int groupDimensions = groupConfiguration.getDimensions();
-				final int tupleDimensions = boundingBox.getDimension();
-
-				if(groupDimensions != tupleDimensions) {
-					final String errorMessage = ErrorMessages.ERROR_TUPLE_HAS_WRONG_DIMENSION
-							+ " Group " + groupDimensions + " tuple " + tupleDimensions;
-					final ErrorResponse responsePackage = new ErrorResponse(packageSequence, errorMessage);
-					clientConnectionHandler.writeResultPackage(responsePackage);
-					return true;
-				}
+			if(dimensionError != null) {
+				final ErrorResponse responsePackage = new ErrorResponse(packageSequence, dimensionError);
+				clientConnectionHandler.writeResultPackage(responsePackage);
+				return true;
 			}
 
 			final RoutingHeader routingHeader = insertTupleRequest.getRoutingHeader();
@@ -136,13 +132,39 @@ public class InsertTupleHandler implements RequestHandler {
 		return true;
 	}
 
+	/**
+	 * Check that the tuple has the dimensions of the distribution group
+	 * @param tuple
+	 * @param groupConfiguration
+	 * @return the error message or null if the dimensions match
+	 */
+	protected String checkDimensions(final Tuple tuple, 
+			final DistributionGroupConfiguration groupConfiguration) {
+		
+		final Hyperrectangle boundingBox = tuple.getBoundingBox();
+
+		if(boundingBox.equals(Hyperrectangle.FULL_SPACE)) {
+			return null;
+		}
+		
+		final int groupDimensions = groupConfiguration.getDimensions();
+		final int tupleDimensions = boundingBox.getDimension();
+
+		if(groupDimensions == tupleDimensions) {
+			return null;
+		}
+		
+		return ErrorMessages.ERROR_TUPLE_HAS_WRONG_DIMENSION
+				+ " Group " + groupDimensions + " tuple " + tupleDimensions;
+	}
+	
 	/**
 	 * Build the error message
 	 * @param message
 	 * @param e
 	 * @return
 	 */
-	private String buildErrorMessage(final String message, final Throwable e) {
+	protected String buildErrorMessage(final String message, final Throwable e) {
 		final StringBuilder sb = new StringBuilder(message);
 
 		sb.append(" ");
@@ -187,7 +209,7 @@ public class InsertTupleHandler implements RequestHandler {
 		lockManager.removeLockForConnectionAndKey(clientConnectionHandler, table, key);
 
 		final List<Long> distributionRegions = localHop.getDistributionRegions();
-		processInsertPackage(tuple, requestTable, storageRegistry, distributionRegions, insertOptions);
+		processInsertPackage(Arrays.asList(tuple), requestTable, storageRegistry, distributionRegions, insertOptions);
 		forwardRoutedPackage(packageSequence, clientConnectionHandler, insertTupleRequest);
 	}
 
@@ -207,17 +229,15 @@ public class InsertTupleHandler implements RequestHandler {
 	}
 
 	/**
-	 * Insert the table into the local storage
-	 * @param tuple
+	 * Insert the tuples into the local storage
+	 * @param tuples
 	 * @param requestTable
 	 * @param storageRegistry
+	 * @param distributionRegions
 	 * @param insertOptions 
-	 * @param routingHeader
-	 * @throws StorageManagerException
 	 * @throws RejectedException
-	 * @throws BBoxDBException
 	 */
-	protected void processInsertPackage(final Tuple tuple, final TupleStoreName requestTable,
+	protected void processInsertPackage(final List<Tuple> tuples, final TupleStoreName requestTable,
 			final TupleStoreManagerRegistry storageRegistry, final List<Long> distributionRegions, 
 			final EnumSet<InsertOption> insertOptions) throws RejectedException {
 		
@@ -229,6 +249,9 @@ public class InsertTupleHandler implements RequestHandler {
 			final DistributionRegionIdMapper regionIdMapper = spacePartitioner
 					.getDistributionRegionIdMapper();
 			
+			// Use one version of the mappings for the whole package
+			final DistributionRegionIdSnapshot regionSnapshot = regionIdMapper.getSnapshot();
+			
 			final Collection<TupleStoreName> localTables = regionIdMapper.convertRegionIdToTableNames(
 						requestTable, distributionRegions);
 
@@ -239,6 +262,8 @@ public class InsertTupleHandler implements RequestHandler {
 			// Are some tables unknown and needs to be created?
 			TupleStoreManagerRegistryHelper.createMissingTables(requestTable, storageRegistry,
 					localTables);
+			
+			final boolean storeOnDisk = ! insertOptions.contains(InsertOption.STREAMING_ONLY);
 
 			// Insert tuples
 			for(final TupleStoreName tupleStoreName : localTables) {
@@ -246,23 +271,29 @@ public class InsertTupleHandler implements RequestHandler {
 				final long regionid = tupleStoreName.getRegionId().getAsLong();
 				
 				final Optional<Hyperrectangle> space 
-					= regionIdMapper.getSpaceForRegionId(regionid);
+					= regionSnapshot.getSpaceForRegionId(regionid);
 				
 				if(! space.isPresent()) {
 					throw new IllegalArgumentException("Unable to get space for region: " + regionid);
 				}
 				
-				final Hyperrectangle tupleBBox = tuple.getBoundingBox();
-				final boolean storeOnDisk = ! insertOptions.contains(InsertOption.STREAMING_ONLY);
+				final List<Tuple> regionTuples = new ArrayList<>(tuples.size());
 				
-				if(space.get().intersects(tupleBBox)) {
-					final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(tupleStoreName);
-					storageManager.put(tuple, storeOnDisk, true);
-				} else { 
-					logger.debug("Not inserting into region {} because {} not insertect {}", regionid, 
-							tupleBBox, space);
+				for(final Tuple tuple : tuples) {
+					final Hyperrectangle tupleBBox = tuple.getBoundingBox();
+					
+					if(space.get().intersects(tupleBBox)) {
+						regionTuples.add(tuple);
+					} else { 
+						logger.debug("Not inserting into region {} because {} not insertect {}", regionid, 
+								tupleBBox, space);
+					}
 				}
 				
+				if(! regionTuples.isEmpty()) {
+					final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(tupleStoreName);
+					storageManager.put(regionTuples, storeOnDisk, true);
+				}
 			}
 		} catch (RejectedException e) {
 			throw e;
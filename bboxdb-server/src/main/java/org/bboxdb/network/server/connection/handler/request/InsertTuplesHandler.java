@@ -0,0 +1,135 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.server.connection.handler.request;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.bboxdb.commons.RejectedException;
+import org.bboxdb.distribution.DistributionGroupConfigurationCache;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.network.packages.request.InsertOption;
+import org.bboxdb.network.packages.request.InsertTuplesRequest;
+import org.bboxdb.network.packages.response.ErrorResponse;
+import org.bboxdb.network.routing.PackageRouter;
+import org.bboxdb.network.routing.RoutingHeader;
+import org.bboxdb.network.routing.RoutingHop;
+import org.bboxdb.network.server.ErrorMessages;
+import org.bboxdb.network.server.connection.ClientConnectionHandler;
+import org.bboxdb.network.server.connection.lock.LockManager;
+import org.bboxdb.storage.entity.DistributionGroupConfiguration;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.prometheus.client.Gauge;
+
+public class InsertTuplesHandler extends InsertTupleHandler {
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(InsertTuplesHandler.class);
+	
+	/**
+	 * The number of read tuples in insert batches
+	 */
+	private final static Gauge readBatchTuplesTotal = Gauge.build()
+			.name("bboxdb_network_read_batch_tuples_total")
+			.help("Total amount of tuples read in insert batches").register();
+
+	@Override
+	/**
+	 * Handle the insert tuples request
+	 */
+	public boolean handleRequest(final ByteBuffer encodedPackage,
+			final short packageSequence, final ClientConnectionHandler clientConnectionHandler)
+					throws IOException, PackageEncodeException {
+
+		if(logger.isDebugEnabled()) {
+			logger.debug("Got insert tuples request");
+		}
+
+		try {
+			final InsertTuplesRequest insertTuplesRequest = InsertTuplesRequest.decodeTuple(encodedPackage);
+			final List<Tuple> tuples = insertTuplesRequest.getTuples();
+			readBatchTuplesTotal.inc(tuples.size());
+
+			// Do the tuples have the right dimension?
+			final String distributionGroup = insertTuplesRequest.getTable().getDistributionGroup();
+			final DistributionGroupConfiguration groupConfiguration = DistributionGroupConfigurationCache
+					.getInstance().getDistributionGroupConfiguration(distributionGroup);
+
+			for(final Tuple tuple : tuples) {
+				final String dimensionError = checkDimensions(tuple, groupConfiguration);
+				
+				if(dimensionError != null) {
+					final ErrorResponse responsePackage = new ErrorResponse(packageSequence, dimensionError);
+					clientConnectionHandler.writeResultPackage(responsePackage);
+					return true;
+				}
+			}
+
+			final RoutingHeader routingHeader = insertTuplesRequest.getRoutingHeader();
+
+			if(! routingHeader.isRoutedPackage()) {
+				final String errorMessage = ErrorMessages.ERROR_PACKAGE_NOT_ROUTED;
+				logger.error(errorMessage);
+				final ErrorResponse responsePackage = new ErrorResponse(packageSequence, errorMessage);
+				clientConnectionHandler.writeResultPackage(responsePackage);
+				return true;
+			}
+
+			final RoutingHop localHop = routingHeader.getRoutingHop();
+			PackageRouter.checkLocalSystemNameMatchesAndThrowException(localHop);
+
+			// Remove old locks
+			final LockManager lockManager = clientConnectionHandler.getLockManager();
+			final String table = insertTuplesRequest.getTable().getFullnameWithoutPrefix();
+			
+			for(final Tuple tuple : tuples) {
+				lockManager.removeLockForConnectionAndKey(clientConnectionHandler, table, tuple.getKey());
+			}
+			
+			final TupleStoreName requestTable = insertTuplesRequest.getTable();
+			final TupleStoreManagerRegistry storageRegistry = clientConnectionHandler.getStorageRegistry();
+			final EnumSet<InsertOption> insertOptions = insertTuplesRequest.getInsertOptions();
+			final List<Long> distributionRegions = localHop.getDistributionRegions();
+			
+			processInsertPackage(tuples, requestTable, storageRegistry, distributionRegions, insertOptions);
+
+			final PackageRouter packageRouter = clientConnectionHandler.getPackageRouter();
+			packageRouter.performInsertTuplesRoutingAsync(packageSequence, insertTuplesRequest);
+		} catch(RejectedException e) {
+			final String errorMessage = buildErrorMessage(ErrorMessages.ERROR_LOCAL_OPERATION_REJECTED_RETRY, e);
+			final ErrorResponse responsePackage = new ErrorResponse(packageSequence, errorMessage);
+			clientConnectionHandler.writeResultPackage(responsePackage);
+		} catch (Throwable e) {
+			logger.error("Error while inserting tuples", e);
+			final String errorMessage = buildErrorMessage(ErrorMessages.ERROR_EXCEPTION, e);
+			final ErrorResponse responsePackage = new ErrorResponse(packageSequence, errorMessage);
+			clientConnectionHandler.writeResultPackage(responsePackage);
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.server.connection.handler.request;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.network.packages.request.TransferSSTableRequest;
+import org.bboxdb.network.packages.response.ErrorResponse;
+import org.bboxdb.network.packages.response.SuccessResponse;
+import org.bboxdb.network.server.ErrorMessages;
+import org.bboxdb.network.server.connection.ClientConnectionHandler;
+import org.bboxdb.storage.sstable.transfer.SSTableTransferReceiver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class TransferSSTableHandler implements RequestHandler {
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(TransferSSTableHandler.class);
+	
+
+	@Override
+	/**
+	 * Handle a chunk of a SSTable transfer, the body of the response 
+	 * contains the amount of received bytes of the file
+	 */
+	public boolean handleRequest(final ByteBuffer encodedPackage, 
+			final short packageSequence, final ClientConnectionHandler clientConnectionHandler) 
+					throws IOException, PackageEncodeException {
+		
+		try {
+			final TransferSSTableRequest request = TransferSSTableRequest.decodeTuple(encodedPackage);
+			
+			final SSTableTransferReceiver receiver 
+				= new SSTableTransferReceiver(clientConnectionHandler.getStorageRegistry());
+			
+			if(request.isCommit()) {
+				logger.info("Commit SSTable transfer {} for table {}", 
+						request.getTransferId(), request.getTable());
+				
+				receiver.commit(request.getTable(), request.getTransferId());
+				clientConnectionHandler.writeResultPackage(new SuccessResponse(packageSequence));
+				return true;
+			}
+			
+			final long receivedBytes = receiver.receiveChunk(request.getTable(), request.getTransferId(), 
+					request.getFileType(), request.getOffset(), request.getFileLength(), 
+					request.getChecksum(), request.getData());
+			
+			clientConnectionHandler.writeResultPackage(
+					new SuccessResponse(packageSequence, Long.toString(receivedBytes)));
+		} catch (Exception e) {
+			logger.warn("Error while handling SSTable transfer", e);
+
+			final ErrorResponse responsePackage = new ErrorResponse(packageSequence, ErrorMessages.ERROR_EXCEPTION);
+			clientConnectionHandler.writeResultPackage(responsePackage);
+		}
+		
+		return true;
+	}
+}
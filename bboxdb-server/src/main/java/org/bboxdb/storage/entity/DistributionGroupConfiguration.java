@@ -60,6 +60,11 @@ public class DistributionGroupConfiguration {
 	 * The space partitioner config
 	 */
 	protected String spacePartitionerConfig = Const.DEFAULT_SPACE_PARTITIONER_CONFIG;
+	
+	/**
+	 * The number of replicas that need to acknowledge a write
+	 */
+	protected WriteConsistencyLevel writeConsistencyLevel = WriteConsistencyLevel.ALL;
 
 	public DistributionGroupConfiguration() {
 	}
@@ -124,6 +129,14 @@ public class DistributionGroupConfiguration {
 		this.spacePartitionerConfig = spacePartitionerConfig;
 	}
 
+	public WriteConsistencyLevel getWriteConsistencyLevel() {
+		return writeConsistencyLevel;
+	}
+
+	public void setWriteConsistencyLevel(final WriteConsistencyLevel writeConsistencyLevel) {
+		this.writeConsistencyLevel = writeConsistencyLevel;
+	}
+
 	public int getDimensions() {
 		return dimensions;
 	}
@@ -137,7 +150,8 @@ public class DistributionGroupConfiguration {
 		return "DistributionGroupConfiguration [dimensions=" + dimensions + ", replicationFactor=" + replicationFactor
 				+ ", maximumRegionSize=" + maximumRegionSizeMB + ", minimumRegionSize=" + minimumRegionSizeMB
 				+ ", placementStrategy=" + placementStrategy + ", placementStrategyConfig=" + placementStrategyConfig
-				+ ", spacePartitioner=" + spacePartitioner + ", spacePartitionerConfig=" + spacePartitionerConfig + "]";
+				+ ", spacePartitioner=" + spacePartitioner + ", spacePartitionerConfig=" + spacePartitionerConfig
+				+ ", writeConsistencyLevel=" + writeConsistencyLevel + "]";
 	}
 
 	@Override
@@ -152,6 +166,7 @@ public class DistributionGroupConfiguration {
 		result = prime * result + replicationFactor;
 		result = prime * result + ((spacePartitioner == null) ? 0 : spacePartitioner.hashCode());
 		result = prime * result + ((spacePartitionerConfig == null) ? 0 : spacePartitionerConfig.hashCode());
+		result = prime * result + ((writeConsistencyLevel == null) ? 0 : writeConsistencyLevel.hashCode());
 		return result;
 	}
 
@@ -192,6 +207,8 @@ public class DistributionGroupConfiguration {
 				return false;
 		} else if (!spacePartitionerConfig.equals(other.spacePartitionerConfig))
 			return false;
+		if (writeConsistencyLevel != other.writeConsistencyLevel)
+			return false;
 		return true;
 	}
 
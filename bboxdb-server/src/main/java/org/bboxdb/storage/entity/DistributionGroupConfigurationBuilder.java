@@ -96,6 +96,18 @@ public class DistributionGroupConfigurationBuilder {
 		return this;
 	}
 	
+	/**
+	 * Set the write consistency level
+	 * @param writeConsistencyLevel
+	 * @return
+	 */
+	public DistributionGroupConfigurationBuilder withWriteConsistencyLevel(
+			final WriteConsistencyLevel writeConsistencyLevel) {
+		
+		distributionGroupConfiguration.setWriteConsistencyLevel(writeConsistencyLevel);
+		return this;
+	}
+	
 	/**
 	 * Return the resulting configuration object
 	 * @return
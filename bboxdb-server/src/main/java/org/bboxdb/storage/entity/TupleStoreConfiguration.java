@@ -25,7 +25,10 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.compact.MergeStrategyType;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
@@ -56,6 +59,26 @@ public class TupleStoreConfiguration {
 	 * The spatial index reader
 	 */
 	protected String spatialIndexReader = "org.bboxdb.storage.sstable.spatialindex.rtree.mmf.RTreeMMFReader";
+	
+	/**
+	 * The sync policy of the write ahead log
+	 */
+	protected WriteAheadLogSyncPolicy walSyncPolicy = WriteAheadLogSyncPolicy.NONE;
+	
+	/**
+	 * The sync interval of the write ahead log in milliseconds
+	 */
+	protected long walSyncInterval = 1000;
+	
+	/**
+	 * The merge strategy of the sstables
+	 */
+	protected MergeStrategyType mergeStrategy = MergeStrategyType.BASIC;
+	
+	/**
+	 * The compression of the sstables
+	 */
+	protected SSTableCompression compression = SSTableCompression.NONE;
 
 	/**
 	 * The logger
@@ -109,6 +132,38 @@ public class TupleStoreConfiguration {
 		this.spatialIndexReader = spatialIndexReader;
 	}
 
+	public WriteAheadLogSyncPolicy getWalSyncPolicy() {
+		return walSyncPolicy;
+	}
+
+	public void setWalSyncPolicy(final WriteAheadLogSyncPolicy walSyncPolicy) {
+		this.walSyncPolicy = walSyncPolicy;
+	}
+
+	public long getWalSyncInterval() {
+		return walSyncInterval;
+	}
+
+	public void setWalSyncInterval(final long walSyncInterval) {
+		this.walSyncInterval = walSyncInterval;
+	}
+
+	public MergeStrategyType getMergeStrategy() {
+		return mergeStrategy;
+	}
+
+	public void setMergeStrategy(final MergeStrategyType mergeStrategy) {
+		this.mergeStrategy = mergeStrategy;
+	}
+
+	public SSTableCompression getCompression() {
+		return compression;
+	}
+
+	public void setCompression(final SSTableCompression compression) {
+		this.compression = compression;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -118,6 +173,10 @@ public class TupleStoreConfiguration {
 		result = prime * result + ((spatialIndexWriter == null) ? 0 : spatialIndexWriter.hashCode());
 		result = prime * result + (int) (ttl ^ (ttl >>> 32));
 		result = prime * result + versions;
+		result = prime * result + ((walSyncPolicy == null) ? 0 : walSyncPolicy.hashCode());
+		result = prime * result + (int) (walSyncInterval ^ (walSyncInterval >>> 32));
+		result = prime * result + ((mergeStrategy == null) ? 0 : mergeStrategy.hashCode());
+		result = prime * result + ((compression == null) ? 0 : compression.hashCode());
 		return result;
 	}
 
@@ -146,6 +205,14 @@ public class TupleStoreConfiguration {
 			return false;
 		if (versions != other.versions)
 			return false;
+		if (walSyncPolicy != other.walSyncPolicy)
+			return false;
+		if (walSyncInterval != other.walSyncInterval)
+			return false;
+		if (mergeStrategy != other.mergeStrategy)
+			return false;
+		if (compression != other.compression)
+			return false;
 		return true;
 	}
 
@@ -153,7 +220,8 @@ public class TupleStoreConfiguration {
 	public String toString() {
 		return "TupleStoreConfiguration [allowDuplicates=" + allowDuplicates + ", ttl=" + ttl + ", versions=" + versions
 				+ ", spatialIndexWriter=" + spatialIndexWriter + ", spatialIndexReader=" + spatialIndexReader
-				+ "]";
+				+ ", walSyncPolicy=" + walSyncPolicy + ", walSyncInterval=" + walSyncInterval
+				+ ", mergeStrategy=" + mergeStrategy + ", compression=" + compression + "]";
 	}
 
 	/**
@@ -194,6 +262,10 @@ public class TupleStoreConfiguration {
 	    data.put("spatialIndexWriter", spatialIndexWriter);
 	    data.put("ttl", ttl);
 		data.put("versions", versions);
+		data.put("walSyncPolicy", walSyncPolicy.name());
+		data.put("walSyncInterval", walSyncInterval);
+		data.put("mergeStrategy", mergeStrategy.name());
+		data.put("compression", compression.name());
 		return data;
 	}
 	
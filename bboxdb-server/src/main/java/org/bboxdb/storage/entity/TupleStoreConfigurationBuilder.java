@@ -19,6 +19,10 @@ package org.bboxdb.storage.entity;
 
 import java.util.concurrent.TimeUnit;
 
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.compact.MergeStrategyType;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
+
 public class TupleStoreConfigurationBuilder {
 
 	protected final TupleStoreConfiguration ssTableConfiguration;
@@ -85,6 +89,47 @@ public class TupleStoreConfigurationBuilder {
 		return this;
 	}
 	
+	/**
+	 * Use the write ahead log sync policy
+	 * @param syncPolicy
+	 * @return
+	 */
+	public TupleStoreConfigurationBuilder withWalSyncPolicy(final WriteAheadLogSyncPolicy syncPolicy) {
+		ssTableConfiguration.setWalSyncPolicy(syncPolicy);
+		return this;
+	}
+	
+	/**
+	 * Set the sync interval of the write ahead log (used by the INTERVAL policy)
+	 * @param interval
+	 * @param timeUnit
+	 * @return
+	 */
+	public TupleStoreConfigurationBuilder withWalSyncInterval(final long interval, final TimeUnit timeUnit) {
+		ssTableConfiguration.setWalSyncInterval(timeUnit.toMillis(interval));
+		return this;
+	}
+	
+	/**
+	 * Use the merge strategy for the sstables
+	 * @param mergeStrategy
+	 * @return
+	 */
+	public TupleStoreConfigurationBuilder withMergeStrategy(final MergeStrategyType mergeStrategy) {
+		ssTableConfiguration.setMergeStrategy(mergeStrategy);
+		return this;
+	}
+	
+	/**
+	 * Store the sstables in compressed blocks
+	 * @param compression
+	 * @return
+	 */
+	public TupleStoreConfigurationBuilder withCompression(final SSTableCompression compression) {
+		ssTableConfiguration.setCompression(compression);
+		return this;
+	}
+	
 	/**
 	 * Return the resulting configuration object
 	 * @return
@@ -69,6 +69,26 @@ public class TupleStoreMetaData {
 	 */
 	protected String sstableCreator = SSTableCreator.UNKNOWN.getCreatorString();
 	
+	/**
+	 * The level of the SSTable (used by the leveled merge strategy)
+	 */
+	protected int level = 0;
+	
+	/**
+	 * The first key of the SSTable
+	 */
+	protected String firstKey;
+	
+	/**
+	 * The last key of the SSTable
+	 */
+	protected String lastKey;
+	
+	/**
+	 * The uniform sample of the bounding boxes (all boxes are stored one after another)
+	 */
+	protected double[] sampleData = {};
+	
 	/**
 	 * The logger
 	 */
@@ -141,6 +161,18 @@ public class TupleStoreMetaData {
 		data.put("dimensions", dimensions);
 	    data.put("boundingBoxData", boundingBoxData);
 	    data.put("sstableCreator", sstableCreator);
+	    data.put("level", level);
+	    
+	    if(firstKey != null) {
+	    	data.put("firstKey", firstKey);
+	    }
+	    
+	    if(lastKey != null) {
+	    	data.put("lastKey", lastKey);
+	    }
+	    
+	    data.put("sampleData", sampleData);
+	    
 		return data;
 	}
 	
@@ -231,6 +263,38 @@ public class TupleStoreMetaData {
 	public void setSstableCreator(final String sstableCreator) {
 		this.sstableCreator = sstableCreator;
 	}
+	
+	public int getLevel() {
+		return level;
+	}
+	
+	public void setLevel(final int level) {
+		this.level = level;
+	}
+	
+	public String getFirstKey() {
+		return firstKey;
+	}
+	
+	public void setFirstKey(final String firstKey) {
+		this.firstKey = firstKey;
+	}
+	
+	public String getLastKey() {
+		return lastKey;
+	}
+	
+	public void setLastKey(final String lastKey) {
+		this.lastKey = lastKey;
+	}
+	
+	public double[] getSampleData() {
+		return sampleData;
+	}
+	
+	public void setSampleData(final double[] sampleData) {
+		this.sampleData = sampleData;
+	}
 
 	@Override
 	public int hashCode() {
@@ -243,6 +307,10 @@ public class TupleStoreMetaData {
 		result = prime * result + (int) (oldestTupleVersionTimestamp ^ (oldestTupleVersionTimestamp >>> 32));
 		result = prime * result + ((sstableCreator == null) ? 0 : sstableCreator.hashCode());
 		result = prime * result + (int) (tuples ^ (tuples >>> 32));
+		result = prime * result + level;
+		result = prime * result + ((firstKey == null) ? 0 : firstKey.hashCode());
+		result = prime * result + ((lastKey == null) ? 0 : lastKey.hashCode());
+		result = prime * result + Arrays.hashCode(sampleData);
 		return result;
 	}
 
@@ -272,6 +340,20 @@ public class TupleStoreMetaData {
 			return false;
 		if (tuples != other.tuples)
 			return false;
+		if (level != other.level)
+			return false;
+		if (firstKey == null) {
+			if (other.firstKey != null)
+				return false;
+		} else if (!firstKey.equals(other.firstKey))
+			return false;
+		if (lastKey == null) {
+			if (other.lastKey != null)
+				return false;
+		} else if (!lastKey.equals(other.lastKey))
+			return false;
+		if (!Arrays.equals(sampleData, other.sampleData))
+			return false;
 		return true;
 	}
 
@@ -280,7 +362,9 @@ public class TupleStoreMetaData {
 		return "TupleStoreMetaData [tuples=" + tuples + ", oldestTupleVersionTimestamp=" + oldestTupleVersionTimestamp
 				+ ", newestTupleVersionTimestamp=" + newestTupleVersionTimestamp + ", newestTupleInsertedTimstamp="
 				+ newestTupleInsertedTimstamp + ", boundingBoxData=" + Arrays.toString(boundingBoxData)
-				+ ", dimensions=" + dimensions + ", sstableCreator=" + sstableCreator + "]";
+				+ ", dimensions=" + dimensions + ", sstableCreator=" + sstableCreator 
+				+ ", level=" + level + ", firstKey=" + firstKey + ", lastKey=" + lastKey 
+				+ ", samples=" + (sampleData.length / Math.max(1, dimensions * 2)) + "]";
 	}
 	
 }
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.entity;
+
+public enum WriteConsistencyLevel {
+	
+	ONE("one", (byte) 0x00),
+	QUORUM("quorum", (byte) 0x01),
+	ALL("all", (byte) 0x02);
+
+	/**
+	 * The string representation
+	 */
+	protected final String stringValue;
+	
+	/**
+	 * The network representation
+	 */
+	protected final byte byteValue;
+		
+	private WriteConsistencyLevel(final String stringValue, final byte byteValue) {
+		this.stringValue = stringValue;
+		this.byteValue = byteValue;
+	}
+	
+	/**
+	 * Get the string representation
+	 * @return
+	 */
+	public String getStringValue() {
+		return stringValue;
+	}
+	
+	/**
+	 * Get the network representation
+	 * @return
+	 */
+	public byte getByteValue() {
+		return byteValue;
+	}
+	
+	/**
+	 * Get the number of replicas that need to acknowledge a write
+	 * @param replicas
+	 * @return
+	 */
+	public int getRequiredAcknowledgements(final int replicas) {
+		switch(this) {
+			case ONE:
+				return Math.min(1, replicas);
+			case QUORUM:
+				return (replicas / 2) + 1;
+			case ALL:
+				return replicas;
+			default:
+				throw new IllegalArgumentException("Unknown consistency level: " + this);
+		}
+	}
+	
+	/**
+	 * Convert the string value into an enum
+	 * @param stringValue
+	 * @return
+	 */
+	public static WriteConsistencyLevel fromString(final String stringValue) {
+		if (stringValue == null) {
+			throw new IllegalArgumentException("stringValue is null");
+		}
+    
+		for(final WriteConsistencyLevel level : WriteConsistencyLevel.values()) {
+			if(stringValue.equalsIgnoreCase(level.getStringValue())) {
+				return level;
+			}
+		}
+
+		throw new IllegalArgumentException("Unable to convert " + stringValue + " into enum");
+	}
+	
+	/**
+	 * Convert the network value into an enum
+	 * @param byteValue
+	 * @return
+	 */
+	public static WriteConsistencyLevel fromByte(final byte byteValue) {
+		for(final WriteConsistencyLevel level : WriteConsistencyLevel.values()) {
+			if(byteValue == level.getByteValue()) {
+				return level;
+			}
+		}
+
+		throw new IllegalArgumentException("Unable to convert " + byteValue + " into enum");
+	}
+}
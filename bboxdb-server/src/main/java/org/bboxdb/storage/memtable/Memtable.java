@@ -19,13 +19,15 @@ package org.bboxdb.storage.memtable;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.BBoxDBService;
@@ -33,11 +35,13 @@ import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
-import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilder;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilderFactory;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.StripedSpatialIndexBuilder;
 import org.bboxdb.storage.tuplestore.ReadWriteTupleStore;
 import org.bboxdb.storage.util.TupleHelper;
+import org.bboxdb.storage.util.TupleStoreSampleHelper;
 import org.bboxdb.storage.wal.WriteAheadLogWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,17 +56,17 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	/**
 	 * The memtable
 	 */
-	private final Tuple[] data;
+	private final AtomicReferenceArray<Tuple> data;
 
 	/**
 	 * The spatial index
 	 */
-	private final SpatialIndexBuilder spatialIndexBuilder;
+	private final StripedSpatialIndexBuilder spatialIndexBuilder;
 
 	/**
 	 * The next free position in the data array
 	 */
-	private int freePos;
+	private final AtomicInteger freePos;
 
 	/**
 	 * Maximal number of entries keep in memory
@@ -77,7 +81,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	/**
 	 * Current memory size in bytes
 	 */
-	private long sizeInMemory;
+	private final AtomicLong sizeInMemory;
 
 	/**
 	 * The timestamp when the memtable is created
@@ -87,22 +91,37 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	/**
 	 * The oldest tuple
 	 */
-	private long oldestTupleTimestamp;
+	private final AtomicLong oldestTupleTimestamp;
 
 	/**
 	 * The newest tuple
 	 */
-	private long newestTupleTimestamp;
+	private final AtomicLong newestTupleTimestamp;
+
+	/**
+	 * The newest received timestamp
+	 */
+	private final AtomicLong newestInsertedTimestamp;
 
 	/**
 	 * The reference counter
 	 */
 	private final AtomicInteger usage;
 
+	/**
+	 * The number of put operations in progress
+	 */
+	private final AtomicInteger pendingPuts;
+
+	/**
+	 * Is the memtable sealed (no further puts are accepted)
+	 */
+	private volatile boolean sealed;
+
 	/**
 	 * Is a deletion performed after (usage == 0)
 	 */
-	private boolean pendingDelete;
+	private volatile boolean pendingDelete;
 
 	/**
 	 * The write ahead log writer
@@ -110,9 +129,9 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	private final WriteAheadLogWriter walWriter;
 
 	/**
-	 * The key position map
+	 * The key position map, ordered by key
 	 */
-	private final Map<String, Set<Integer>> keyPositions;
+	private final ConcurrentSkipListMap<String, Queue<Integer>> keyPositions;
 
 	/**
 	 * The Logger
@@ -127,30 +146,34 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 		this.maxSizeInMemory = maxSizeInMemory;
 		this.walWriter = walWriter;
 
-		this.data = new Tuple[entries];
-		this.freePos = -1;
-		this.sizeInMemory = 0;
+		this.data = new AtomicReferenceArray<>(entries);
+		this.freePos = new AtomicInteger(-1);
+		this.sizeInMemory = new AtomicLong(0);
 
-		this.spatialIndexBuilder = SpatialIndexBuilderFactory.getInstance();
+		final int stripes = Runtime.getRuntime().availableProcessors();
+		this.spatialIndexBuilder = new StripedSpatialIndexBuilder(stripes,
+				SpatialIndexBuilderFactory::getInstance);
 
 		this.createdTimestamp = System.currentTimeMillis();
-		this.oldestTupleTimestamp = -1;
-		this.newestTupleTimestamp = -1;
+		this.oldestTupleTimestamp = new AtomicLong(-1);
+		this.newestTupleTimestamp = new AtomicLong(-1);
+		this.newestInsertedTimestamp = new AtomicLong(-1);
 
 		this.usage = new AtomicInteger(0);
+		this.pendingPuts = new AtomicInteger(0);
+		this.sealed = false;
 		this.pendingDelete = false;
-		this.keyPositions = new HashMap<>();
+		this.keyPositions = new ConcurrentSkipListMap<>();
 	}
 
 	@Override
 	public void init() {
-		if(freePos != -1) {
+		if(! freePos.compareAndSet(-1, 0)) {
 			logger.error("init() called on an initalized memtable");
 			return;
 		}
 
 		logger.debug("Initializing a new memtable for table: {}", table.getFullname());
-		freePos = 0;
 	}
 
 	@Override
@@ -160,42 +183,158 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 
 	@Override
 	public void put(final Tuple tuple) throws StorageManagerException {
+		final boolean stored = tryPut(tuple);
 
-		assert (usage.get() > 0);
-
-		if(freePos >= maxEntries) {
+		if(! stored) {
 			throw new StorageManagerException("Unable to store a new tuple, all memtable slots are full");
 		}
+	}
+
+	/**
+	 * Store the tuple, this method can be called by multiple threads concurrently
+	 *
+	 * @param tuple
+	 * @return false if the memtable is full or sealed
+	 * @throws StorageManagerException
+	 */
+	public boolean tryPut(final Tuple tuple) throws StorageManagerException {
+		return tryPut(Collections.singletonList(tuple), 0) == 1;
+	}
 
-		if(walWriter != null) {
-			walWriter.addTuple(tuple);
+	/**
+	 * Store the tuples, starting at the given offset. The tuples are stored 
+	 * until the memtable is full. All stored tuples are written to the WAL 
+	 * with one append. This method can be called by multiple threads concurrently.
+	 *
+	 * @param tuples
+	 * @param offset
+	 * @return the number of stored tuples, 0 if the memtable is full or sealed
+	 * @throws StorageManagerException
+	 */
+	public int tryPut(final List<Tuple> tuples, final int offset) throws StorageManagerException {
+
+		assert (usage.get() > 0);
+
+		// The sealed flag has to be read after the pending put is announced,
+		// this ensures that seal() waits for all puts that have passed the check
+		pendingPuts.incrementAndGet();
+
+		try {
+			if(sealed) {
+				return 0;
+			}
+
+			final int requestedTuples = getTuplesForAvailableMemory(tuples, offset);
+			final int position = freePos.getAndAdd(requestedTuples);
+
+			if(position >= maxEntries) {
+				return 0;
+			}
+
+			final int storedTuples = Math.min(requestedTuples, maxEntries - position);
+			final List<Tuple> storedTupleList = tuples.subList(offset, offset + storedTuples);
+
+			if(walWriter != null) {
+				walWriter.addTuples(storedTupleList);
+			}
+
+			for(int i = 0; i < storedTuples; i++) {
+				storeTuple(storedTupleList.get(i), position + i);
+			}
+
+			return storedTuples;
+		} finally {
+			
+			// The last running put of a sealed memtable wakes up seal()
+			if(pendingPuts.decrementAndGet() == 0 && sealed) {
+				synchronized (pendingPuts) {
+					pendingPuts.notifyAll();
+				}
+			}
 		}
+	}
 
-		data[freePos] = tuple;
+	/**
+	 * Get the number of tuples, starting at the offset, that fit into the 
+	 * available memory. At least one tuple is returned.
+	 * 
+	 * @param tuples
+	 * @param offset
+	 * @return
+	 */
+	private int getTuplesForAvailableMemory(final List<Tuple> tuples, final int offset) {
+		long availableMemory = maxSizeInMemory - sizeInMemory.get();
+		int numberOfTuples = 0;
 		
+		for(int i = offset; i < tuples.size(); i++) {
+			numberOfTuples++;
+			availableMemory = availableMemory - tuples.get(i).getSize();
+			
+			if(availableMemory <= 0) {
+				break;
+			}
+		}
+		
+		return numberOfTuples;
+	}
+
+	/**
+	 * Store the tuple at the given position
+	 * @param tuple
+	 * @param position
+	 */
+	private void storeTuple(final Tuple tuple, final int position) {
+		data.set(position, tuple);
+
 		if(! TupleHelper.isDeletedTuple(tuple)) {
-			final SpatialIndexEntry indexEntry = new SpatialIndexEntry(tuple.getBoundingBox(), freePos);
+			final SpatialIndexEntry indexEntry = new SpatialIndexEntry(tuple.getBoundingBox(), position);
 			spatialIndexBuilder.insert(indexEntry);
 		}
 
-		keyPositions.computeIfAbsent(tuple.getKey(), (e) -> new HashSet<>()).add(freePos);
+		keyPositions.computeIfAbsent(tuple.getKey(), (e) -> new ConcurrentLinkedQueue<>()).add(position);
+
+		sizeInMemory.addAndGet(tuple.getSize());
 
-		freePos++;
-		sizeInMemory = sizeInMemory + tuple.getSize();
+		final long versionTimestamp = tuple.getVersionTimestamp();
+		oldestTupleTimestamp.accumulateAndGet(versionTimestamp,
+				(current, value) -> current == -1 ? value : Math.min(current, value));
+		newestTupleTimestamp.accumulateAndGet(versionTimestamp, Math::max);
+		newestInsertedTimestamp.accumulateAndGet(tuple.getReceivedTimestamp(), Math::max);
+	}
 
-		if(oldestTupleTimestamp == -1) {
-			oldestTupleTimestamp = tuple.getVersionTimestamp();
-		} else {
-			oldestTupleTimestamp = Math.min(oldestTupleTimestamp, tuple.getVersionTimestamp());
+	/**
+	 * Seal the memtable. No further puts are accepted and all
+	 * running puts are finished when the method returns. The wait 
+	 * is not interruptible, the interrupt flag is restored afterwards.
+	 */
+	public void seal() {
+		sealed = true;
+
+		boolean interrupted = false;
+
+		synchronized (pendingPuts) {
+			while(pendingPuts.get() > 0) {
+				try {
+					pendingPuts.wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
 		}
 
-		if(newestTupleTimestamp == -1) {
-			newestTupleTimestamp = tuple.getVersionTimestamp();
-		} else {
-			newestTupleTimestamp = Math.max(newestTupleTimestamp, tuple.getVersionTimestamp());
+		if(interrupted) {
+			Thread.currentThread().interrupt();
 		}
 	}
 
+	/**
+	 * Is the memtable sealed
+	 * @return
+	 */
+	public boolean isSealed() {
+		return sealed;
+	}
+
 	/**
 	 * Get the most recent version of the tuple for key
 	 *
@@ -206,14 +345,14 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 		assert (usage.get() > 0) : "Usage is 0";
 
 		final List<Tuple> resultList = new ArrayList<>();
-		final Set<Integer> positions = keyPositions.get(key);
+		final Queue<Integer> positions = keyPositions.get(key);
 
 		if(positions == null || positions.isEmpty()) {
 			return resultList;
 		}
 
 		for(final int pos : positions) {
-			resultList.add(data[pos]);
+			resultList.add(data.get(pos));
 		}
 
 		return resultList;
@@ -239,13 +378,22 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	public List<Tuple> getSortedTupleList() {
 		assert (usage.get() > 0);
 
-		final List<Tuple> resultList = new ArrayList<>(freePos + 1);
+		final List<Tuple> resultList = new ArrayList<>((int) getNumberOfTuples());
 
-		for(int i = 0; i < freePos; i++) {
-			resultList.add(data[i]);
-		}
+		// The keys are already ordered by the skip list, only the
+		// versions of each key have to be sorted
+		for(final Queue<Integer> positions : keyPositions.values()) {
+			final int start = resultList.size();
 
-		resultList.sort(TupleHelper.TUPLE_KEY_AND_VERSION_COMPARATOR);
+			for(final int pos : positions) {
+				resultList.add(data.get(pos));
+			}
+
+			if(resultList.size() - start > 1) {
+				resultList.subList(start, resultList.size())
+					.sort(TupleHelper.TUPLE_KEY_AND_VERSION_COMPARATOR);
+			}
+		}
 
 		return resultList;
 	}
@@ -258,12 +406,15 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	public void clear() {
 		logger.debug("Clear on memtable {} called", table);
 
-		for(int i = 0; i < data.length; i++) {
-			data[i] = null;
+		for(int i = 0; i < data.length(); i++) {
+			data.set(i, null);
 		}
 
-		this.freePos = 0;
-		this.sizeInMemory = 0;
+		keyPositions.clear();
+		spatialIndexBuilder.clear();
+
+		freePos.set(0);
+		sizeInMemory.set(0);
 	}
 
 	/**
@@ -274,12 +425,12 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	public boolean isFull() {
 
 		// Check size of the table
-		if(sizeInMemory >= maxSizeInMemory) {
+		if(sizeInMemory.get() >= maxSizeInMemory) {
 			return true;
 		}
 
 		// Check number of entries
-		if(freePos + 1 > maxEntries) {
+		if(freePos.get() + 1 > maxEntries) {
 			return true;
 		}
 
@@ -290,7 +441,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 * Is this memtable empty?
 	 */
 	public boolean isEmpty() {
-		if(freePos <= 0) {
+		if(freePos.get() <= 0) {
 			return true;
 		}
 
@@ -311,7 +462,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 */
 	@Override
 	public long getSize() {
-		return sizeInMemory;
+		return sizeInMemory.get();
 	}
 
 	/**
@@ -335,22 +486,30 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 		return new Iterator<Tuple>() {
 
 			private int entry = 0;
-			private int lastEntry = freePos;
+			private final int lastEntry = (int) getNumberOfTuples();
+			private Tuple nextTuple = null;
 
 			@Override
 			public boolean hasNext() {
-				return entry < lastEntry;
+
+				// Skip positions that are reserved by a running put
+				while(nextTuple == null && entry < lastEntry) {
+					nextTuple = data.get(entry);
+					entry++;
+				}
+
+				return nextTuple != null;
 			}
 
 			@Override
 			public Tuple next() {
 
-				if(entry > lastEntry) {
+				if(! hasNext()) {
 					throw new IllegalStateException("Requesting wrong position: " + entry + " of " + lastEntry);
 				}
 
-				final Tuple tuple = data[entry];
-				entry++;
+				final Tuple tuple = nextTuple;
+				nextTuple = null;
 				return tuple;
 			}
 
@@ -363,12 +522,13 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 
 	@Override
 	public long getNewestTupleInsertedTimestamp() {
-		if(freePos == 0) {
+		final long newestInserted = newestInsertedTimestamp.get();
+
+		if(newestInserted == -1) {
 			return System.currentTimeMillis();
 		}
 
-		final Tuple mostRecentTuple = data[freePos - 1];
-		return mostRecentTuple.getReceivedTimestamp();
+		return newestInserted;
 	}
 
 	/**
@@ -377,7 +537,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 */
 	@Override
 	public long getOldestTupleVersionTimestamp() {
-		return oldestTupleTimestamp;
+		return oldestTupleTimestamp.get();
 	}
 
 	/**
@@ -386,7 +546,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 */
 	@Override
 	public long getNewestTupleVersionTimestamp() {
-		return newestTupleTimestamp;
+		return newestTupleTimestamp.get();
 	}
 
 	@Override
@@ -451,14 +611,20 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 
 	@Override
 	public long getNumberOfTuples() {
-		return freePos;
+		return Math.max(0, Math.min(freePos.get(), maxEntries));
 	}
 
 	@Override
 	public Tuple getTupleAtPosition(final long position) {
 		assert (usage.get() > 0);
 
-		return data[(int) position];
+		return data.get((int) position);
+	}
+
+	@Override
+	public List<Hyperrectangle> getBoundingBoxSamples() throws StorageManagerException {
+		// The data is stored in memory, reading the positions is cheap
+		return TupleStoreSampleHelper.getPositionSamples(this, SSTableConst.METADATA_SAMPLES);
 	}
 
 	@Override
@@ -489,11 +655,19 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 			public Tuple next() {
 				final SpatialIndexEntry entry = keyIterator.next();
 				final int pos = (int) entry.getValue();
-				return data[pos];
+				return data.get(pos);
 			}
 		};
 	}
 
+	@Override
+	public Iterator<Tuple> getSortedIterator() {
+		assert (usage.get() > 0);
+		
+		// The sorted list is a snapshot of the memtable
+		return getSortedTupleList().iterator();
+	}
+
 	@Override
 	public boolean isPersistent() {
 		return false;
@@ -508,7 +682,15 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 * Get the spatial index builder
 	 * @return
 	 */
-	public SpatialIndexBuilder getSpatialIndexBuilder() {
+	public StripedSpatialIndexBuilder getSpatialIndexBuilder() {
 		return spatialIndexBuilder;
 	}
+	
+	/**
+	 * Get the write ahead log writer (null if the WAL is disabled)
+	 * @return
+	 */
+	public WriteAheadLogWriter getWriteAheadLogWriter() {
+		return walWriter;
+	}
 }
@@ -104,6 +104,9 @@ public class MemtableWriterRunnable extends ExceptionSafeRunnable {
 		
 		SSTableFacade facade = null;
 
+		// Wait for concurrent writers, no tuple is accepted after this point
+		memtable.seal();
+
 		try {				
 			// Don't write empty memtables to disk
 			if (! memtable.isEmpty()) {
@@ -201,7 +204,8 @@ public class MemtableWriterRunnable extends ExceptionSafeRunnable {
 				tableNumber, tupleStoreName, numberOfEntries, sizeString);
 
 		try (final SSTableWriter ssTableWriter = new SSTableWriter(
-				dataDirectory, tupleStoreName, tableNumber, numberOfEntries, SSTableCreator.MEMTABLE)) {
+				dataDirectory, tupleStoreName, tableNumber, numberOfEntries, SSTableCreator.MEMTABLE,
+				sstableManager.getSSTableCompression())) {
 
 			ssTableWriter.open();
 			ssTableWriter.addTuples(memtable.getSortedTupleList());
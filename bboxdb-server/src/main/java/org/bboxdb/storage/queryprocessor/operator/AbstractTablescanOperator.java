@@ -17,123 +17,121 @@
  *******************************************************************************/
 package org.bboxdb.storage.queryprocessor.operator;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
-import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.bboxdb.commons.DuplicateResolver;
+import org.bboxdb.commons.SortedIteratorMerger;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.JoinedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.duplicateresolver.TupleDuplicateResolverFactory;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreAquirer;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.util.TupleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public abstract class AbstractTablescanOperator implements Operator {
 	
-	private final class TablescanIterator implements Iterator<JoinedTuple> {
+	private final class MergeTablescanIterator implements Iterator<JoinedTuple> {
+		
 		/**
-		 * The active iterator
+		 * The merged and duplicate resolved tuples of all tuple stores
 		 */
-		protected Iterator<Tuple> activeIterator = null;
+		private final Iterator<Tuple> mergedIterator;
 		
 		/**
-		 * The next precomputed tuple
+		 * The first tuple of the next key
 		 */
-		protected final Queue<JoinedTuple> nextTuples = new LinkedList<>();
-
+		private Tuple lookaheadTuple = null;
+		
+		/**
+		 * The next precomputed tuples
+		 */
+		private final Queue<JoinedTuple> nextTuples = new LinkedList<>();
+		
 		/**
-		 * Setup the next iterator
+		 * The name of the tuple store
 		 */
-		protected void setupNewIterator() {
-			activeIterator = null;
+		private final String tupleStorename;
 
-			// Find next iterator 
-			while(! unprocessedStorages.isEmpty()) {
-				
-				final ReadOnlyTupleStore nextStorage = unprocessedStorages.remove(0);
-				activeIterator = setupNewTuplestore(nextStorage);
-				
-				if(activeIterator == null) {
-					continue;
-				}
-				
-				if(activeIterator.hasNext()) {
-					return;
-				}
-			}
+		public MergeTablescanIterator() {
 			
-			activeIterator = null;
-		}
+			// The SSTables are sorted by key, the memtables are 
+			// sorted during the iterator creation
+			final List<Iterator<Tuple>> iterators = unprocessedStorages
+					.stream()
+					.map(s -> s.getSortedIterator())
+					.collect(Collectors.toList());
+			
+			unprocessedStorages.clear();
+			
+			final DuplicateResolver<Tuple> resolver = TupleDuplicateResolverFactory.build(
+					tupleStoreManager.getTupleStoreConfiguration());
+			
+			final SortedIteratorMerger<Tuple> sortedIteratorMerger = new SortedIteratorMerger<>(
+					iterators, TupleHelper.TUPLE_KEY_COMPARATOR, resolver);
 
+			this.mergedIterator = sortedIteratorMerger.iterator();
+			this.tupleStorename = tupleStoreManager.getTupleStoreName().getFullnameWithoutPrefix();
+		}
+		
 		/**
-		 * Fetch the next tuple from the iterator
-		 * @throws StorageManagerException
+		 * Read the resolved versions of the next key
 		 */
-		protected void setupNextTuples() throws StorageManagerException {
+		private void setupNextTuples() {
+			
 			if(ready == false) {
 				throw new IllegalStateException("Iterator is not ready");
 			}
 			
-			final TupleStoreName tupleStoreName = tupleStoreManager.getTupleStoreName();
-			final String tupleStorename = tupleStoreName.getFullnameWithoutPrefix();
-			
 			while(nextTuples.isEmpty()) {
-				if(activeIterator == null || ! activeIterator.hasNext()) {
-					setupNewIterator();
+				
+				if(lookaheadTuple == null) {
+					if(! mergedIterator.hasNext()) {
+						return;
+					}
+					
+					lookaheadTuple = mergedIterator.next();
 				}
 				
-				// All iterators are exhausted
-				if(activeIterator == null) {
-					return;
+				// The versions of one key are returned consecutively by the merger
+				final List<Tuple> tupleVersions = new ArrayList<>();
+				tupleVersions.add(lookaheadTuple);
+				lookaheadTuple = null;
+				
+				while(mergedIterator.hasNext()) {
+					final Tuple tuple = mergedIterator.next();
+					
+					if(! tuple.getKey().equals(tupleVersions.get(0).getKey())) {
+						lookaheadTuple = tuple;
+						break;
+					}
+					
+					tupleVersions.add(tuple);
 				}
-
-				final Tuple possibleTuple = activeIterator.next();
 				
-				final String key = possibleTuple.getKey();
+				filterTupleVersions(tupleVersions);
 				
-				if(! seenTuples.contains(key)) {
-					addTuplesForKey(tupleStorename, key);
-				}	
+				tupleVersions
+					.stream()
+					.map(t -> new JoinedTuple(t, tupleStorename))
+					.forEach(t -> nextTuples.add(t));
 			}
 		}
 
-		/**
-		 * Add the tuples for the given key
-		 * 
-		 * @param tupleStorename
-		 * @param key
-		 * @return
-		 * @throws StorageManagerException
-		 */
-		private void addTuplesForKey(final String tupleStorename, final String key)
-				throws StorageManagerException {
-			
-			final List<Tuple> tupleVersions = tupleStoreManager.getVersionsForTuple(key);
-									
-			filterTupleVersions(tupleVersions);
-			
-			tupleVersions
-				.stream()
-				.map(t -> new JoinedTuple(t, tupleStorename))
-				.forEach(t -> nextTuples.add(t));
-			
-			seenTuples.add(key);
-		}
-
 		@Override
 		public boolean hasNext() {
-			try {
-				if(nextTuples.isEmpty()) {
-					setupNextTuples();
-				}
-			} catch (StorageManagerException e) {
-				logger.error("Got an exception while locating next tuple", e);
+			if(nextTuples.isEmpty()) {
+				setupNextTuples();
 			}
 			
 			return (! nextTuples.isEmpty());
@@ -141,7 +139,7 @@ public abstract class AbstractTablescanOperator implements Operator {
 
 		@Override
 		public JoinedTuple next() {
-
+			
 			if(ready == false) {
 				throw new IllegalStateException("Iterator is not ready");
 			}
@@ -169,15 +167,16 @@ public abstract class AbstractTablescanOperator implements Operator {
 	 */
 	protected final TupleStoreManager tupleStoreManager;
 	
-	/**
-	 * The seen tuples
-	 */
-	protected final Set<String> seenTuples;
-
 	/**
 	 * Is the iterator ready?
 	 */
 	protected boolean ready;
+	
+	/**
+	 * Perform a merge based scan over all tuple stores instead
+	 * of a lookup of the versions for each key
+	 */
+	protected boolean mergeScan;
 
 	/**
 	 * The Logger
@@ -188,7 +187,7 @@ public abstract class AbstractTablescanOperator implements Operator {
 		this.tupleStoreManager = tupleStoreManager;
 		this.ready = false;
 		this.unprocessedStorages = new LinkedList<ReadOnlyTupleStore>();
-		this.seenTuples = new HashSet<>();
+		this.mergeScan = false;
 	}
 	
 	/**
@@ -203,7 +202,6 @@ public abstract class AbstractTablescanOperator implements Operator {
 		}
 		
 		unprocessedStorages.clear();
-		seenTuples.clear();
 	}
 
 	/**
@@ -231,7 +229,7 @@ public abstract class AbstractTablescanOperator implements Operator {
 	}
 	
 	/**
-	 * Setup the next tuplestore
+	 * Get the candidates of the tuple store
 	 * @param nextStorage 
 	 * @return
 	 */
@@ -243,10 +241,55 @@ public abstract class AbstractTablescanOperator implements Operator {
 	 */
 	protected abstract void filterTupleVersions(final List<Tuple> tupleVersions);
 	
+	/**
+	 * Enable or disable the merge based scan. 
+	 * 
+	 * The scan merges the key sorted tuple stores and resolves the tuple versions 
+	 * during the merge. The scan needs linear time in the size of the data and 
+	 * constant memory. A newer version of a key can be stored in a tuple store
+	 * without a candidate for the key, so all tuple stores are merged. When the 
+	 * merge based scan is disabled, the candidates of the tuple stores are checked 
+	 * first and the merge is skipped when no tuple store contains a candidate.
+	 * 
+	 * @param mergeScan
+	 */
+	public void setMergeScan(final boolean mergeScan) {
+		this.mergeScan = mergeScan;
+	}
+	
+	/**
+	 * Is the merge based scan enabled
+	 * @return
+	 */
+	public boolean isMergeScan() {
+		return mergeScan;
+	}
+	
+	/**
+	 * Contains one of the unprocessed tuple stores a candidate
+	 * @return
+	 */
+	private boolean hasCandidates() {
+		for(final ReadOnlyTupleStore tupleStore : unprocessedStorages) {
+			final Iterator<Tuple> candidates = setupNewTuplestore(tupleStore);
+			
+			if(candidates != null && candidates.hasNext()) {
+				return true;
+			}
+		}
+		
+		return false;
+	}
+	
 	public Iterator<JoinedTuple> iterator() {
 
 		aquireStorage();
 		
-		return new TablescanIterator();
+		if(! isMergeScan() && ! hasCandidates()) {
+			unprocessedStorages.clear();
+			return Collections.emptyIterator();
+		}
+		
+		return new MergeTablescanIterator();
 	}
 }
@@ -28,6 +28,9 @@ public class FullTablescanOperator extends AbstractTablescanOperator {
 	
 	public FullTablescanOperator(final TupleStoreManager tupleStoreManager) {
 		super(tupleStoreManager);
+		
+		// All tuples are read, so merge the sorted tuple stores
+		setMergeScan(true);
 	}
 
 	@Override
@@ -47,6 +47,15 @@ public class SpatialIndexReadOperator extends AbstractTablescanOperator {
 		this.boundingBox = boundingBox;
 	}
 
+	/**
+	 * The spatial index can not restrict a query on the full space, 
+	 * so all tuple stores are merged in this case
+	 */
+	@Override
+	public boolean isMergeScan() {
+		return super.isMergeScan() || boundingBox == Hyperrectangle.FULL_SPACE;
+	}
+
 	@Override
 	protected Iterator<Tuple> setupNewTuplestore(final ReadOnlyTupleStore nextStorage) {
 		return nextStorage.getAllTuplesInBoundingBox(boundingBox);
@@ -56,9 +65,9 @@ public class SpatialIndexReadOperator extends AbstractTablescanOperator {
 	protected void filterTupleVersions(final List<Tuple> tupleVersions) {
 		
 		/**
-		 * We read the tuples from the index. Than the newest tuple for
-		 * the key is read from storage. This new tuple can have a bounding 
-		 * box outside of our search range. These tuples needs to be removed.
+		 * We merge the tuples of all tuple stores. The newest tuple for
+		 * the key can have a bounding box outside of our search range. 
+		 * These tuples needs to be removed.
 		 */
 		tupleVersions.removeIf(t -> isNotCovered(t));
 	}
@@ -21,6 +21,7 @@ import java.util.Iterator;
 
 import org.bboxdb.commons.CloseableHelper;
 import org.bboxdb.network.query.filter.UserDefinedFilter;
+import org.bboxdb.network.query.filter.UserDefinedFilterRegistry;
 import org.bboxdb.storage.entity.JoinedTuple;
 import org.bboxdb.storage.queryprocessor.operator.Operator;
 import org.bboxdb.storage.queryprocessor.operator.SpatialIndexReadOperator;
@@ -82,14 +83,10 @@ public class IndexedSpatialJoinOperator implements Operator {
 			return new SpatialIterator(iterator, indexReader);
 		}
 		
-		try {
-			final Class<?> filterClass = Class.forName(userDefinedFilterClass);
-			final UserDefinedFilter userDefinedFilter = (UserDefinedFilter) filterClass.newInstance();
+		final UserDefinedFilter userDefinedFilter = UserDefinedFilterRegistry.getInstance()
+				.getFilter(userDefinedFilterClass, userDefinedFilterValue);
 			
-			return new FilterSpatialOperator(iterator, indexReader, 
-					userDefinedFilter, userDefinedFilterValue);
-		} catch (Exception e) {
-			throw new IllegalArgumentException("Unable to load user defined filter", e);
-		} 
+		return new FilterSpatialOperator(iterator, indexReader, 
+				userDefinedFilter, userDefinedFilterValue);
 	}
 }
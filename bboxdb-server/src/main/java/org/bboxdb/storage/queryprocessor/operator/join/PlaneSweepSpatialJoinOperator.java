@@ -0,0 +1,497 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.queryprocessor.operator.join;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.bboxdb.commons.CloseableHelper;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.network.query.filter.UserDefinedFilter;
+import org.bboxdb.network.query.filter.UserDefinedFilterRegistry;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.JoinedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.queryprocessor.operator.Operator;
+import org.bboxdb.storage.queryprocessor.operator.SpatialIndexReadOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Spatial join that reads both inputs only once and joins them with a 
+ * plane sweep on the first dimension. In contrast to the 
+ * IndexedSpatialJoinOperator, no index scan is executed for each tuple 
+ * of the stream source.
+ * 
+ * The sweep keeps both inputs in memory. When the inputs exceed the memory 
+ * bound, the join falls back to the streaming indexed nested loop join 
+ * (the already read stream tuples are joined first).
+ */
+public class PlaneSweepSpatialJoinOperator implements Operator {
+
+	/**
+	 * The left operator
+	 */
+	private final Operator leftOperator;
+	
+	/**
+	 * The right operator
+	 */
+	private final SpatialIndexReadOperator rightOperator;
+	
+	/**
+	 * The user defined filter class
+	 */
+	private final String userDefinedFilterClass;
+
+	/**
+	 * The user defined filter value
+	 */
+	private final byte[] userDefinedFilterValue;
+	
+	/**
+	 * The max amount of bytes of the buffered tuples
+	 */
+	private final long maxBufferedBytes;
+	
+	/**
+	 * The default max amount of buffered bytes (256 MB)
+	 */
+	public final static long DEFAULT_MAX_BUFFERED_BYTES = 256 * 1024 * 1024;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(PlaneSweepSpatialJoinOperator.class);
+	
+	public PlaneSweepSpatialJoinOperator(final Operator leftOperator, 
+			final SpatialIndexReadOperator rightOperator) {
+		
+		this(leftOperator, rightOperator, "", "".getBytes());
+	}
+	
+	public PlaneSweepSpatialJoinOperator(final Operator leftOperator, 
+			final SpatialIndexReadOperator rightOperator, final String userDefinedFilterClass,
+			final byte[] userDefinedFilterValue) {
+		
+		this(leftOperator, rightOperator, userDefinedFilterClass, userDefinedFilterValue, 
+				DEFAULT_MAX_BUFFERED_BYTES);
+	}
+	
+	public PlaneSweepSpatialJoinOperator(final Operator leftOperator, 
+			final SpatialIndexReadOperator rightOperator, final String userDefinedFilterClass,
+			final byte[] userDefinedFilterValue, final long maxBufferedBytes) {
+		
+		this.leftOperator = leftOperator;
+		this.rightOperator = rightOperator;
+		this.userDefinedFilterClass = userDefinedFilterClass;
+		this.userDefinedFilterValue = userDefinedFilterValue;
+		this.maxBufferedBytes = maxBufferedBytes;
+	}
+
+	/**
+	 * Close all iterators
+	 */
+	@Override
+	public void close() {
+		CloseableHelper.closeWithoutException(leftOperator);
+		CloseableHelper.closeWithoutException(rightOperator);
+	}
+
+	/**
+	 * Get the query processing result
+	 * @return
+	 */
+	@Override
+	public Iterator<JoinedTuple> iterator() {
+		
+		UserDefinedFilter userDefinedFilter = null;
+		
+		if(! userDefinedFilterClass.equals("")) {
+			userDefinedFilter = UserDefinedFilterRegistry.getInstance()
+					.getFilter(userDefinedFilterClass, userDefinedFilterValue);
+		}
+		
+		return new PlaneSweepIterator(userDefinedFilter);
+	}
+	
+	/**
+	 * A join input with the bounding box used for the sweep
+	 */
+	private static class SweepEntry {
+		
+		/**
+		 * The joined tuple
+		 */
+		private final JoinedTuple joinedTuple;
+		
+		/**
+		 * The bounding box to join
+		 */
+		private final Hyperrectangle boundingBox;
+
+		public SweepEntry(final JoinedTuple joinedTuple, final Hyperrectangle boundingBox) {
+			this.joinedTuple = joinedTuple;
+			this.boundingBox = boundingBox;
+		}
+		
+		/**
+		 * Is the bounding box unbounded (and can not be sorted)
+		 * @return
+		 */
+		public boolean isUnbounded() {
+			return boundingBox.getDimension() == 0;
+		}
+		
+		public double getLow() {
+			return boundingBox.getCoordinateLow(0);
+		}
+		
+		public double getHigh() {
+			return boundingBox.getCoordinateHigh(0);
+		}
+	}
+	
+	private class PlaneSweepIterator implements Iterator<JoinedTuple> {
+		
+		/**
+		 * The user defined filter, null if not used
+		 */
+		private final UserDefinedFilter userDefinedFilter;
+		
+		/**
+		 * The sorted left entries
+		 */
+		private final List<SweepEntry> left = new ArrayList<>();
+		
+		/**
+		 * The sorted right entries
+		 */
+		private final List<SweepEntry> right = new ArrayList<>();
+		
+		/**
+		 * The unbounded left entries, they are joined with all right entries
+		 */
+		private final List<SweepEntry> leftUnbounded = new ArrayList<>();
+		
+		/**
+		 * The unbounded right entries, they are joined with all bounded left entries
+		 */
+		private final List<SweepEntry> rightUnbounded = new ArrayList<>();
+		
+		/**
+		 * The position of the sweep line in the left entries
+		 */
+		private int leftPos = 0;
+		
+		/**
+		 * The position of the sweep line in the right entries
+		 */
+		private int rightPos = 0;
+		
+		/**
+		 * The position in the unbounded entries
+		 */
+		private int unboundedPos = 0;
+		
+		/**
+		 * The produced but not consumed results
+		 */
+		private final Deque<JoinedTuple> results = new ArrayDeque<>();
+		
+		/**
+		 * Are the inputs read
+		 */
+		private boolean inputRead = false;
+		
+		/**
+		 * The amount of bytes of the buffered tuples
+		 */
+		private long bufferedBytes = 0;
+		
+		/**
+		 * The indexed nested loop join, if the inputs exceed the memory bound
+		 */
+		private Iterator<JoinedTuple> indexedJoinIterator = null;
+		
+		public PlaneSweepIterator(final UserDefinedFilter userDefinedFilter) {
+			this.userDefinedFilter = userDefinedFilter;
+		}
+
+		@Override
+		public boolean hasNext() {
+			
+			if(! inputRead) {
+				readInput();
+				inputRead = true;
+			}
+			
+			if(indexedJoinIterator != null) {
+				return indexedJoinIterator.hasNext();
+			}
+			
+			while(results.isEmpty()) {
+				if(! performStep()) {
+					return false;
+				}
+			}
+			
+			return true;
+		}
+
+		@Override
+		public JoinedTuple next() {
+			
+			if(! hasNext()) {
+				throw new NoSuchElementException("No more tuples available");
+			}
+			
+			if(indexedJoinIterator != null) {
+				return indexedJoinIterator.next();
+			}
+			
+			return results.poll();
+		}
+		
+		/**
+		 * Read and sort both inputs. If the memory bound is exceeded, 
+		 * the indexed nested loop join is started.
+		 */
+		private void readInput() {
+			final Hyperrectangle queryBox = rightOperator.getBoundingBox();
+			final Iterator<JoinedTuple> leftIterator = leftOperator.iterator();
+			
+			while(leftIterator.hasNext()) {
+				final JoinedTuple joinedTuple = leftIterator.next();
+				
+				if(containsDeletedTuple(joinedTuple)) {
+					continue;
+				}
+				
+				// Limit the join to the intersection of the query range and the tuple. 
+				// Otherwise intersections in other areas are detected.
+				final Hyperrectangle boundingBox = joinedTuple.getBoundingBox();
+				
+				if(queryBox != Hyperrectangle.FULL_SPACE) {
+					addEntry(new SweepEntry(joinedTuple, boundingBox.getIntersection(queryBox)), 
+							left, leftUnbounded);
+				} else {
+					addEntry(new SweepEntry(joinedTuple, boundingBox), left, leftUnbounded);
+				}
+				
+				if(bufferedBytes > maxBufferedBytes) {
+					startIndexedJoin(Iterators.concat(getBufferedLeftTuples(), leftIterator));
+					return;
+				}
+			}
+			
+			final Iterator<JoinedTuple> rightIterator = rightOperator.iterator();
+			
+			while(rightIterator.hasNext()) {
+				final JoinedTuple joinedTuple = rightIterator.next();
+				final Tuple tuple = joinedTuple.convertToSingleTupleIfPossible();
+				
+				if(tuple instanceof DeletedTuple || tuple.getBoundingBox() == null) {
+					continue;
+				}
+				
+				addEntry(new SweepEntry(joinedTuple, tuple.getBoundingBox()), right, rightUnbounded);
+				
+				if(bufferedBytes > maxBufferedBytes) {
+					right.clear();
+					rightUnbounded.clear();
+					startIndexedJoin(getBufferedLeftTuples());
+					return;
+				}
+			}
+			
+			final Comparator<SweepEntry> comparator = Comparator.comparingDouble(SweepEntry::getLow);
+			left.sort(comparator);
+			right.sort(comparator);
+		}
+
+		/**
+		 * Add the entry to the bounded or unbounded list
+		 * @param entry
+		 * @param bounded
+		 * @param unbounded
+		 */
+		private void addEntry(final SweepEntry entry, final List<SweepEntry> bounded, 
+				final List<SweepEntry> unbounded) {
+			
+			if(entry.isUnbounded()) {
+				unbounded.add(entry);
+			} else {
+				bounded.add(entry);
+			}
+			
+			for(final Tuple tuple : entry.joinedTuple.getTuples()) {
+				bufferedBytes = bufferedBytes + tuple.getSize();
+			}
+		}
+		
+		/**
+		 * Get the buffered tuples of the left input
+		 * @return
+		 */
+		private Iterator<JoinedTuple> getBufferedLeftTuples() {
+			return Iterators.transform(Iterators.concat(left.iterator(), leftUnbounded.iterator()), 
+					e -> e.joinedTuple);
+		}
+		
+		/**
+		 * Join the tuples with the indexed nested loop join
+		 * @param tupleStream
+		 */
+		private void startIndexedJoin(final Iterator<JoinedTuple> tupleStream) {
+			logger.info("The join input exceeds {} bytes, using the indexed join", maxBufferedBytes);
+			
+			if(userDefinedFilter == null) {
+				indexedJoinIterator = new SpatialIterator(tupleStream, rightOperator);
+			} else {
+				indexedJoinIterator = new FilterSpatialOperator(tupleStream, rightOperator, 
+						userDefinedFilter, userDefinedFilterValue);
+			}
+		}
+		
+		/**
+		 * Does the joined tuple contains a deleted tuple
+		 * @param joinedTuple
+		 * @return
+		 */
+		private boolean containsDeletedTuple(final JoinedTuple joinedTuple) {
+			for(final Tuple tuple : joinedTuple.getTuples()) {
+				if(tuple instanceof DeletedTuple) {
+					return true;
+				}
+			}
+			
+			return false;
+		}
+		
+		/**
+		 * Perform the next step of the join
+		 * @return false if the join is done
+		 */
+		private boolean performStep() {
+			
+			// Unbounded left entries are joined with all right entries
+			if(unboundedPos < leftUnbounded.size()) {
+				final SweepEntry leftEntry = leftUnbounded.get(unboundedPos++);
+				
+				for(final SweepEntry rightEntry : right) {
+					testAndJoin(leftEntry, rightEntry);
+				}
+				
+				for(final SweepEntry rightEntry : rightUnbounded) {
+					testAndJoin(leftEntry, rightEntry);
+				}
+				
+				return true;
+			}
+			
+			// Unbounded right entries are joined with all bounded left entries
+			final int rightUnboundedPos = unboundedPos - leftUnbounded.size();
+			
+			if(rightUnboundedPos < rightUnbounded.size()) {
+				final SweepEntry rightEntry = rightUnbounded.get(rightUnboundedPos);
+				unboundedPos++;
+				
+				for(final SweepEntry leftEntry : left) {
+					testAndJoin(leftEntry, rightEntry);
+				}
+				
+				return true;
+			}
+			
+			if(leftPos >= left.size() || rightPos >= right.size()) {
+				return false;
+			}
+			
+			// Move the sweep line to the next entry and join it with all
+			// entries of the other input that starts before the entry ends
+			final SweepEntry leftEntry = left.get(leftPos);
+			final SweepEntry rightEntry = right.get(rightPos);
+			
+			if(leftEntry.getLow() <= rightEntry.getLow()) {
+				leftPos++;
+				
+				for(int i = rightPos; i < right.size(); i++) {
+					final SweepEntry candidate = right.get(i);
+					
+					if(candidate.getLow() > leftEntry.getHigh()) {
+						break;
+					}
+					
+					testAndJoin(leftEntry, candidate);
+				}
+			} else {
+				rightPos++;
+				
+				for(int i = leftPos; i < left.size(); i++) {
+					final SweepEntry candidate = left.get(i);
+					
+					if(candidate.getLow() > rightEntry.getHigh()) {
+						break;
+					}
+					
+					testAndJoin(candidate, rightEntry);
+				}
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Test the entries for intersection and add the result
+		 * @param leftEntry
+		 * @param rightEntry
+		 */
+		private void testAndJoin(final SweepEntry leftEntry, final SweepEntry rightEntry) {
+			
+			if(! leftEntry.boundingBox.intersects(rightEntry.boundingBox)) {
+				return;
+			}
+			
+			final JoinedTuple leftTuple = leftEntry.joinedTuple;
+			final JoinedTuple rightTuple = rightEntry.joinedTuple;
+			
+			final List<String> tupleStoreNames = new ArrayList<>(leftTuple.getTupleStoreNames());
+			tupleStoreNames.addAll(rightTuple.getTupleStoreNames());
+
+			final List<Tuple> tuples = new ArrayList<>(leftTuple.getTuples());
+			tuples.addAll(rightTuple.getTuples());
+			
+			if(userDefinedFilter != null) {
+				if(! userDefinedFilter.filterJoinCandidate(tuples.get(0), tuples.get(1), 
+						userDefinedFilterValue)) {
+					return;
+				}
+			}
+			
+			results.add(new JoinedTuple(tuples, tupleStoreNames));
+		}
+	}
+}
@@ -26,25 +26,51 @@ public class SSTableConst {
 	 */
 	public final static byte[] MAGIC_BYTES_SSTABLE = "bboxdb".getBytes();
 	
+	/**
+	 * The magic bytes at the beginning of every block compressed SSTable file 
+	 * (no common prefix with the magic bytes of the uncompressed SSTable)
+	 */
+	public final static byte[] MAGIC_BYTES_SSTABLE_BLOCK = "bbox-block".getBytes();
+	
 	/**
 	 * The magic bytes at the beginning of every write ahead log file
 	 */
 	public final static byte[] MAGIC_BYTES_WAL = "bboxdb-wal".getBytes();
 	
 	/**
-	 * The magic bytes at the beginning of every SSTable index file
+	 * The magic bytes at the beginning of every write ahead log file with framed records
+	 */
+	public final static byte[] MAGIC_BYTES_WAL_FRAMED = "bboxdb-wa2".getBytes();
+	
+	/**
+	 * The magic bytes at the beginning of every SSTable index file (prefix compressed keys)
+	 */
+	public final static byte[] MAGIC_BYTES_INDEX = "bboxdb-ix3".getBytes();
+	
+	/**
+	 * The magic bytes at the beginning of a SSTable index file of version 2 (long positions)
 	 */
-	public final static byte[] MAGIC_BYTES_INDEX = "bboxdb-idx".getBytes();
+	public final static byte[] MAGIC_BYTES_INDEX_V2 = "bboxdb-ix2".getBytes();
 	
 	/**
-	 * The magic bytes at the beginning of every spatial index file
+	 * The magic bytes at the beginning of a SSTable index file of version 1 (int positions)
 	 */
-	public final static byte[] MAGIC_BYTES_SPATIAL_RTREE_INDEX = "bboxdb-sidx".getBytes();
+	public final static byte[] MAGIC_BYTES_INDEX_V1 = "bboxdb-idx".getBytes();
+	
+	/**
+	 * The magic bytes at the beginning of every spatial index file (long positions)
+	 */
+	public final static byte[] MAGIC_BYTES_SPATIAL_RTREE_INDEX = "bboxdb-sid2".getBytes();
+	
+	/**
+	 * The magic bytes at the beginning of a spatial index file of version 1 (int positions)
+	 */
+	public final static byte[] MAGIC_BYTES_SPATIAL_RTREE_INDEX_V1 = "bboxdb-sidx".getBytes();
 	
 	/**
 	 * The current version of the SSTable layout format
 	 */
-	public final static short SST_VERSION = 1;
+	public final static short SST_VERSION = 2;
 	
 	/**
 	 * The prefix for every SSTable file
@@ -81,6 +107,16 @@ public class SSTableConst {
 	 */
 	public final static String MEMTABLE_WAL_SUFFIX = ".wal";
 	
+	/**
+	 * The directory for SSTables that are transferred to another table
+	 */
+	public final static String TRANSFER_DIR = "transfer";
+	
+	/**
+	 * The suffix for partial transferred files
+	 */
+	public final static String TRANSFER_PART_SUFFIX = ".part";
+	
 	/**
 	 * Distribution group medata data file
 	 */
@@ -92,14 +128,24 @@ public class SSTableConst {
 	public static final String TUPLE_STORE_METADATA = "tuplestore.meta";
 
 	/**
-	 * Format of the index file:
+	 * Format of a version 2 index file:
 	 * 
 	 * -------------------------------------------------
 	 * | Tuple-Position | Tuple-Position |  .........  |
-	 * |     4 Byte     |     4 Byte     |  .........  |
+	 * |     8 Byte     |     8 Byte     |  .........  |
 	 * -------------------------------------------------
 	 */
-	public final static int INDEX_ENTRY_BYTES = 4;
+	public final static int INDEX_ENTRY_BYTES = 8;
+	
+	/**
+	 * The size of an index entry in a version 1 index file
+	 */
+	public final static int INDEX_ENTRY_BYTES_V1 = 4;
+	
+	/**
+	 * The amount of keys in one block of the prefix compressed index
+	 */
+	public final static int INDEX_BLOCK_ENTRIES = 64;
 	
 	/**
 	 * Marker for deleted tuples
@@ -137,10 +183,10 @@ public class SSTableConst {
 	
 	
 	/**
-	 * The maximal size for one SSTable. SStables are mapped into memory, the JVM can only
-	 * map files up to 2 GB. Therefore the limit is set to 1.9 GB.
+	 * The maximal size for one SSTable. SStables are mapped into memory in segments, 
+	 * so the size is not limited by the 2 GB limit of a single mapping. 
 	 */
-	public final static int MAX_SSTABLE_SIZE = 2040109465;
+	public final static long MAX_SSTABLE_SIZE = 16L * 1024 * 1024 * 1024;
 	
 	/**
 	 * The maximal amount of unflushed memtables per SSTable
@@ -151,4 +197,14 @@ public class SSTableConst {
 	 * Elements in key cache
 	 */
 	public final static int KEY_CACHE_ELEMENTS = 1000;
+	
+	/**
+	 * The amount of bounding box samples that are stored in the metadata of a SSTable
+	 */
+	public final static int METADATA_SAMPLES = 256;
+	
+	/**
+	 * The uncompressed size of a block in a block compressed SSTable
+	 */
+	public final static int SSTABLE_BLOCK_SIZE = 64 * 1024;
 }
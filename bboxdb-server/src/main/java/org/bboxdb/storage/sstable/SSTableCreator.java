@@ -22,7 +22,9 @@ public enum SSTableCreator {
 	UNKNOWN("unkown"), 
 	MEMTABLE("memtable"), 
 	MINOR_COMPACT("minor_compact"), 
-	MAJOR_COMPACT("major_compact");
+	MAJOR_COMPACT("major_compact"),
+	TRANSFER("transfer"),
+	BULK_LOAD("bulk_load");
 
 	private final String creator;
 
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable;
+
+import org.bboxdb.storage.entity.TupleStoreName;
+
+public enum SSTableFileType {
+
+	SSTABLE((byte) 0x00),
+	KEY_INDEX((byte) 0x01),
+	BLOOM_FILTER((byte) 0x02),
+	SPATIAL_INDEX((byte) 0x03),
+	METADATA((byte) 0x04);
+
+	/**
+	 * The byte value (used in network packages)
+	 */
+	private final byte byteValue;
+
+	SSTableFileType(final byte byteValue) {
+		this.byteValue = byteValue;
+	}
+
+	/**
+	 * Get the byte value
+	 * @return
+	 */
+	public byte getByteValue() {
+		return byteValue;
+	}
+
+	/**
+	 * Get the filename of the file type for the given SSTable
+	 * @param directory
+	 * @param name
+	 * @param tablenumber
+	 * @return
+	 */
+	public String getFilename(final String directory, final TupleStoreName name, final int tablenumber) {
+		switch(this) {
+		case SSTABLE:
+			return SSTableHelper.getSSTableFilename(directory, name, tablenumber);
+		case KEY_INDEX:
+			return SSTableHelper.getSSTableIndexFilename(directory, name, tablenumber);
+		case BLOOM_FILTER:
+			return SSTableHelper.getSSTableBloomFilterFilename(directory, name, tablenumber);
+		case SPATIAL_INDEX:
+			return SSTableHelper.getSSTableSpatialIndexFilename(directory, name, tablenumber);
+		case METADATA:
+			return SSTableHelper.getSSTableMetadataFilename(directory, name, tablenumber);
+		default:
+			throw new IllegalArgumentException("Unknown file type: " + this);
+		}
+	}
+
+	/**
+	 * Get the file type from the byte value
+	 * @param byteValue
+	 * @return
+	 */
+	public static SSTableFileType fromByte(final byte byteValue) {
+		for(final SSTableFileType fileType : SSTableFileType.values()) {
+			if(fileType.getByteValue() == byteValue) {
+				return fileType;
+			}
+		}
+
+		throw new IllegalArgumentException("Unknown file type: " + byteValue);
+	}
+}
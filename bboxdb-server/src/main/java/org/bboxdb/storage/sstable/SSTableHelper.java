@@ -115,6 +115,22 @@ public class SSTableHelper {
 				+ regionSuffix.toString();
 	}
 	
+	/**
+	 * The directory for a SSTable transfer
+	 * 
+	 * @param directory
+	 * @param transferId
+	 * 
+	 * @return e.g. /tmp/bboxdb/transfer/transferid
+	 */
+	public static String getTransferDir(final String directory, final String transferId) {
+		return directory 
+				+ File.separator 
+				+ SSTableConst.TRANSFER_DIR
+				+ File.separator 
+				+ transferId;
+	}
+	
 	/**
 	 * The base name of the SSTable file for a given relation
 	 * 
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Writes the key index of a SSTable. The keys are stored in sorted blocks, 
+ * each key shares a prefix with the previous key of the block. A summary with 
+ * the first key of every block is stored at the end of the file.
+ * 
+ * Format of the index file:
+ * 
+ * ----------------------------------------------------------------
+ * | Magic bytes | Block 0 | Block 1 | ... | Summary | Footer |
+ * ----------------------------------------------------------------
+ * 
+ * Entry of a block:
+ * 
+ * -------------------------------------------------------------------------
+ * | Shared prefix length | Suffix length |  Suffix  | Tuple-Position |
+ * |        2 Byte        |    2 Byte     | n Byte   |     8 Byte     |
+ * -------------------------------------------------------------------------
+ * 
+ * Entry of the summary:
+ * 
+ * ----------------------------------------------------
+ * | Block position | Key length |  First key  |
+ * |     8 Byte     |   2 Byte   |   n Byte    |
+ * ----------------------------------------------------
+ * 
+ * Footer:
+ * 
+ * ----------------------------------------------------------------------
+ * | Summary position | Number of blocks | Entries | Entries per block |
+ * |      8 Byte      |      4 Byte      | 4 Byte  |      4 Byte       |
+ * ----------------------------------------------------------------------
+ */
+public class SSTableKeyIndexWriter {
+	
+	/**
+	 * The output stream of the index file
+	 */
+	private final CountingOutputStream outputStream;
+	
+	/**
+	 * The amount of entries per block
+	 */
+	private final int entriesPerBlock;
+	
+	/**
+	 * The summary (written at the end of the file)
+	 */
+	private final ByteArrayOutputStream summary;
+	
+	/**
+	 * The key of the last entry
+	 */
+	private byte[] lastKey;
+	
+	/**
+	 * The number of written entries
+	 */
+	private int entries;
+	
+	/**
+	 * The number of blocks
+	 */
+	private int blocks;
+	
+	/**
+	 * The size of the footer
+	 */
+	public final static int FOOTER_BYTES = DataEncoderHelper.LONG_BYTES + 3 * DataEncoderHelper.INT_BYTES;
+	
+	/**
+	 * The max length of a key
+	 */
+	private final static int MAX_KEY_LENGTH = 0xFFFF;
+
+	public SSTableKeyIndexWriter(final CountingOutputStream outputStream, final int entriesPerBlock) {
+		
+		if(entriesPerBlock <= 0) {
+			throw new IllegalArgumentException("Invalid entries per block: " + entriesPerBlock);
+		}
+		
+		this.outputStream = outputStream;
+		this.entriesPerBlock = entriesPerBlock;
+		this.summary = new ByteArrayOutputStream();
+		this.lastKey = new byte[0];
+		this.entries = 0;
+		this.blocks = 0;
+	}
+	
+	/**
+	 * Add a new entry, the entries have to be added in key order
+	 * @param key
+	 * @param tuplePosition
+	 * @throws IOException
+	 */
+	public void addEntry(final String key, final long tuplePosition) throws IOException {
+		final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		
+		if(keyBytes.length > MAX_KEY_LENGTH) {
+			throw new IOException("Key is too long for the index: " + keyBytes.length);
+		}
+		
+		int sharedBytes = 0;
+		
+		if(entries % entriesPerBlock == 0) {
+			addSummaryEntry(keyBytes);
+		} else {
+			sharedBytes = getSharedPrefixLength(lastKey, keyBytes);
+		}
+		
+		final int suffixLength = keyBytes.length - sharedBytes;
+		
+		final ByteBuffer buffer = ByteBuffer.allocate(2 * DataEncoderHelper.SHORT_BYTES 
+				+ suffixLength + DataEncoderHelper.LONG_BYTES);
+		
+		buffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		buffer.putShort((short) sharedBytes);
+		buffer.putShort((short) suffixLength);
+		buffer.put(keyBytes, sharedBytes, suffixLength);
+		buffer.putLong(tuplePosition);
+		outputStream.write(buffer.array());
+		
+		lastKey = keyBytes;
+		entries++;
+	}
+
+	/**
+	 * Add the first key of a new block to the summary
+	 * @param keyBytes
+	 */
+	private void addSummaryEntry(final byte[] keyBytes) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate(DataEncoderHelper.LONG_BYTES 
+				+ DataEncoderHelper.SHORT_BYTES + keyBytes.length);
+		
+		buffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		buffer.putLong(outputStream.getCount());
+		buffer.putShort((short) keyBytes.length);
+		buffer.put(keyBytes);
+		summary.write(buffer.array());
+		
+		blocks++;
+	}
+	
+	/**
+	 * Get the length of the shared prefix
+	 * @param key1
+	 * @param key2
+	 * @return
+	 */
+	private static int getSharedPrefixLength(final byte[] key1, final byte[] key2) {
+		final int maxLength = Math.min(key1.length, key2.length);
+		
+		for(int i = 0; i < maxLength; i++) {
+			if(key1[i] != key2[i]) {
+				return i;
+			}
+		}
+		
+		return maxLength;
+	}
+	
+	/**
+	 * Write the summary and the footer
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		final long summaryPosition = outputStream.getCount();
+		summary.writeTo(outputStream);
+		
+		final ByteBuffer footer = ByteBuffer.allocate(FOOTER_BYTES);
+		footer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		footer.putLong(summaryPosition);
+		footer.putInt(blocks);
+		footer.putInt(entries);
+		footer.putInt(entriesPerBlock);
+		outputStream.write(footer.array());
+	}
+	
+	/**
+	 * Get the number of written entries
+	 * @return
+	 */
+	public int getEntries() {
+		return entries;
+	}
+}
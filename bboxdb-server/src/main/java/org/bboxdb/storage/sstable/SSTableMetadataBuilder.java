@@ -17,6 +17,9 @@
  *******************************************************************************/
 package org.bboxdb.storage.sstable;
 
+import java.util.Arrays;
+
+import org.bboxdb.commons.ReservoirSampler;
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreMetaData;
@@ -53,8 +56,29 @@ public class SSTableMetadataBuilder {
 	 */
 	private final SSTableCreator creator;
 	
+	/**
+	 * The level of the SSTable
+	 */
+	private int level = 0;
+	
+	/**
+	 * The first seen key
+	 */
+	private String firstKey;
+	
+	/**
+	 * The last seen key
+	 */
+	private String lastKey;
+	
+	/**
+	 * The sample of the bounding boxes
+	 */
+	private final ReservoirSampler<Hyperrectangle> boxSampler;
+	
 	public SSTableMetadataBuilder(final SSTableCreator creator) {
 		this.creator = creator;
+		this.boxSampler = new ReservoirSampler<>(SSTableConst.METADATA_SAMPLES);
 	}
 
 	/**
@@ -63,6 +87,13 @@ public class SSTableMetadataBuilder {
 	public void updateWithTuple(final Tuple tuple) {
 		tuples++;
 		
+		// The tuples are added in key order
+		if(firstKey == null) {
+			firstKey = tuple.getKey();
+		}
+		
+		lastKey = tuple.getKey();
+		
 		if(boundingBox == null) {
 			boundingBox = tuple.getBoundingBox();
 		} else {
@@ -70,6 +101,12 @@ public class SSTableMetadataBuilder {
 			// the bounding box of the tuple
 			boundingBox = Hyperrectangle.getCoveringBox(boundingBox, tuple.getBoundingBox());
 		}
+		
+		// Deleted tuples have no bounding box
+		final Hyperrectangle tupleBox = tuple.getBoundingBox();
+		if(tupleBox != null && ! tupleBox.equals(Hyperrectangle.FULL_SPACE)) {
+			boxSampler.add(tupleBox);
+		}
 				
 		// Update the newest and the oldest tuple
 		newestTupleVersionTimstamp = Math.max(newestTupleVersionTimstamp, tuple.getVersionTimestamp());
@@ -88,7 +125,47 @@ public class SSTableMetadataBuilder {
 			boundingBoxArray = boundingBox.toDoubleArray();
 		}
 		
-		return new TupleStoreMetaData(creator.getCreatorString(), tuples, oldestTupleVersionTimestamp, 
-				newestTupleVersionTimstamp, newestTupleInsertedTimstamp, boundingBoxArray);
+		final TupleStoreMetaData metaData = new TupleStoreMetaData(creator.getCreatorString(), tuples, 
+				oldestTupleVersionTimestamp, newestTupleVersionTimstamp, newestTupleInsertedTimstamp, 
+				boundingBoxArray);
+		
+		metaData.setLevel(level);
+		metaData.setFirstKey(firstKey);
+		metaData.setLastKey(lastKey);
+		metaData.setSampleData(getSampleData(boundingBoxArray.length));
+		
+		return metaData;
+	}
+	
+	/**
+	 * Get the samples as array
+	 * @param valuesPerBox
+	 * @return
+	 */
+	private double[] getSampleData(final int valuesPerBox) {
+		final double[] sampleData = new double[boxSampler.getSamples().size() * valuesPerBox];
+		int pos = 0;
+		
+		for(final Hyperrectangle sample : boxSampler.getSamples()) {
+			final double[] values = sample.toDoubleArray();
+			
+			// Skip samples with a different dimension
+			if(values.length != valuesPerBox) {
+				continue;
+			}
+			
+			System.arraycopy(values, 0, sampleData, pos, valuesPerBox);
+			pos = pos + valuesPerBox;
+		}
+		
+		return Arrays.copyOf(sampleData, pos);
+	}
+	
+	/**
+	 * Set the level of the SSTable
+	 * @param level
+	 */
+	public void setLevel(final int level) {
+		this.level = level;
 	}
 }
@@ -24,18 +24,18 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
-import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
-import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.BloomFilterBuilder;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreMetaData;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.block.SSTableBlockWriter;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilder;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilderFactory;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
@@ -76,6 +76,11 @@ public class SSTableWriter implements AutoCloseable {
 	 */
 	private OutputStream sstableIndexOutputStream;
 	
+	/**
+	 * The key index writer
+	 */
+	private SSTableKeyIndexWriter keyIndexWriter;
+	
 	/**
 	 * The SSTable file object
 	 */
@@ -116,6 +121,16 @@ public class SSTableWriter implements AutoCloseable {
 	 */
 	private final SpatialIndexBuilder spatialIndex;
 	
+	/**
+	 * The compression of the SSTable
+	 */
+	private final SSTableCompression compression;
+	
+	/**
+	 * The block writer (block compressed SSTables only)
+	 */
+	private SSTableBlockWriter blockWriter;
+	
 	/**
 	 * The error flag
 	 */
@@ -146,10 +161,18 @@ public class SSTableWriter implements AutoCloseable {
 	public SSTableWriter(final String directory, final TupleStoreName name, 
 			final int tablenumber, final long estimatedNumberOfTuples, final SSTableCreator creator) {
 		
+		this(directory, name, tablenumber, estimatedNumberOfTuples, creator, SSTableCompression.NONE);
+	}
+	
+	public SSTableWriter(final String directory, final TupleStoreName name, 
+			final int tablenumber, final long estimatedNumberOfTuples, final SSTableCreator creator,
+			final SSTableCompression compression) {
+		
 		this.directory = directory;
 		this.name = name;
 		this.tablenumber = tablenumber;
 		this.metadataBuilder = new SSTableMetadataBuilder(creator);
+		this.compression = compression;
 		this.exceptionDuringWrite = false;
 		
 		// Bloom Filter
@@ -160,7 +183,7 @@ public class SSTableWriter implements AutoCloseable {
 		// Spatial index
 		final String spatialIndexFilename =  SSTableHelper.getSSTableSpatialIndexFilename(directory, name, tablenumber);
 		this.spatialIndexFile = new File(spatialIndexFilename);
-		this.spatialIndex = SpatialIndexBuilderFactory.getInstance();
+		this.spatialIndex = SpatialIndexBuilderFactory.getSSTableInstance();
 		
 		// Metadata
 		final String ssTableMetadataFilename = SSTableHelper.getSSTableMetadataFilename(directory, name, tablenumber);
@@ -204,10 +227,21 @@ public class SSTableWriter implements AutoCloseable {
 			logger.debug("Writing new SSTable for relation: {} file: {}", name.getFullname(), sstableOutputFileName);
 			final BufferedOutputStream sstableFileOutputStream = new BufferedOutputStream(new FileOutputStream(sstableFile));
 			sstableOutputStream = new CountingOutputStream(sstableFileOutputStream);
-			sstableOutputStream.write(SSTableConst.MAGIC_BYTES_SSTABLE);
 			
-			sstableIndexOutputStream = new BufferedOutputStream(new FileOutputStream(sstableIndexFile));
+			if(compression == SSTableCompression.NONE) {
+				sstableOutputStream.write(SSTableConst.MAGIC_BYTES_SSTABLE);
+			} else {
+				sstableOutputStream.write(SSTableConst.MAGIC_BYTES_SSTABLE_BLOCK);
+				blockWriter = new SSTableBlockWriter(sstableOutputStream, compression, 
+						SSTableConst.SSTABLE_BLOCK_SIZE);
+				blockWriter.writeHeader();
+			}
+			
+			final CountingOutputStream indexOutputStream = new CountingOutputStream(
+					new BufferedOutputStream(new FileOutputStream(sstableIndexFile)));
+			sstableIndexOutputStream = indexOutputStream;
 			sstableIndexOutputStream.write(SSTableConst.MAGIC_BYTES_INDEX);
+			keyIndexWriter = new SSTableKeyIndexWriter(indexOutputStream, SSTableConst.INDEX_BLOCK_ENTRIES);
 		} catch (FileNotFoundException e) {
 			exceptionDuringWrite = true;
 			throw new StorageManagerException("Unable to open output file", e);
@@ -226,11 +260,19 @@ public class SSTableWriter implements AutoCloseable {
 					name.getFullname(), tablenumber, sstableFile.getName());
 
 			if(sstableOutputStream != null) {
+				if(blockWriter != null && ! exceptionDuringWrite) {
+					blockWriter.finish();
+				}
+				
 				sstableOutputStream.close();
 				sstableOutputStream = null;
 			}
 			
 			if(sstableIndexOutputStream != null) {
+				if(! exceptionDuringWrite) {
+					keyIndexWriter.finish();
+				}
+				
 				sstableIndexOutputStream.close();
 				sstableIndexOutputStream = null;
 			}
@@ -326,7 +368,7 @@ public class SSTableWriter implements AutoCloseable {
 	 * @throws StorageManagerException 
 	 */
 	public void addTuple(final Tuple tuple) throws StorageManagerException {
-		final int tuplePosition = addTupleWithoutSpatialIndex(tuple);
+		final long tuplePosition = addTupleWithoutSpatialIndex(tuple);
 		
 		// Don't add deleted tuples to the index
 		if(tuple instanceof DeletedTuple) {
@@ -367,17 +409,24 @@ public class SSTableWriter implements AutoCloseable {
 	 * @return
 	 * @throws StorageManagerException
 	 */
-	public int addTupleWithoutSpatialIndex(final Tuple tuple) throws StorageManagerException {
+	public long addTupleWithoutSpatialIndex(final Tuple tuple) throws StorageManagerException {
 		try {
-			// Add Tuple to the index
-			final int tuplePosition = (int) sstableOutputStream.getCount();
-			writeIndexEntry(tuplePosition);
+			final long tuplePosition;
+			final long writtenBytes;
 			
-			final int newPosition = (int) sstableOutputStream.getCount();
-			final int writtenBytes = newPosition - tuplePosition;
+			if(blockWriter == null) {
+				// Add Tuple to the index and the SSTable file
+				tuplePosition = sstableOutputStream.getCount();
+				writeIndexEntry(tuple.getKey(), tuplePosition);
+				TupleHelper.writeTupleToStream(tuple, sstableOutputStream);
+				writtenBytes = sstableOutputStream.getCount() - tuplePosition;
+			} else {
+				// Add Tuple to the index and the active block
+				tuplePosition = blockWriter.getNextTuplePosition();
+				writeIndexEntry(tuple.getKey(), tuplePosition);
+				writtenBytes = blockWriter.writeTuple(tuple);
+			}
 			
-			// Add Tuple to the SSTable file
-			TupleHelper.writeTupleToStream(tuple, sstableOutputStream);
 			metadataBuilder.updateWithTuple(tuple);
 			
 			// Add tuple to the bloom filter
@@ -394,22 +443,15 @@ public class SSTableWriter implements AutoCloseable {
 	}
 
 	/** 
-	 * Append an entry to the index file.
-	 * 
-	 * Format of the index file:
+	 * Append an entry to the key index. In block compressed SSTables, the 
+	 * tuple position contains the block and the offset in the block.
 	 * 
-	 * -------------------------------------------------
-	 * | Tuple-Position | Tuple-Position |  .........  |
- 	 * |     4 Byte     |     4 Byte     |  .........  |
-	 * -------------------------------------------------
-	 * 
-	 * @param keyLengthBytes
-	 * @param keyPosition
+	 * @param key
+	 * @param tuplePosition
 	 * @throws IOException
 	 */
-	private void writeIndexEntry(final int tuplePosition) throws IOException {
-		final ByteBuffer tuplePositionBytes = DataEncoderHelper.intToByteBuffer(tuplePosition);
-		sstableIndexOutputStream.write(tuplePositionBytes.array());
+	private void writeIndexEntry(final String key, final long tuplePosition) throws IOException {
+		keyIndexWriter.addEntry(key, tuplePosition);
 	}
 
 	/**
@@ -449,9 +491,29 @@ public class SSTableWriter implements AutoCloseable {
 	 * @return
 	 */
 	public long getWrittenBytes() {
+		if(blockWriter != null) {
+			return blockWriter.getWrittenBytes();
+		}
+		
 		return sstableOutputStream.getCount();
 	}
 	
+	/**
+	 * Get the compression of the SSTable
+	 * @return
+	 */
+	public SSTableCompression getCompression() {
+		return compression;
+	}
+	
+	/**
+	 * Set the level of the SSTable (stored in the metadata)
+	 * @param level
+	 */
+	public void setLevel(final int level) {
+		metadataBuilder.setLevel(level);
+	}
+	
 	/**
 	 * Get the sstable name
 	 */
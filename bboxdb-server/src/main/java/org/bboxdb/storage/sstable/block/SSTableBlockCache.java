@@ -0,0 +1,237 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.block;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.bboxdb.misc.BBoxDBConfigurationManager;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+
+import io.prometheus.client.Counter;
+
+/**
+ * A LRU cache for the decompressed blocks of all block compressed SSTables.
+ * The size of the cache is limited by the uncompressed bytes of the blocks.
+ */
+public class SSTableBlockCache {
+
+	/**
+	 * The cached blocks
+	 */
+	private final Cache<BlockKey, ByteBuffer> cache;
+	
+	/**
+	 * The cached block numbers per cache id
+	 */
+	private final ConcurrentHashMap<Long, Set<Integer>> cachedBlocksById;
+	
+	/**
+	 * The next id for a cache user
+	 */
+	private final AtomicLong nextCacheId;
+
+	/**
+	 * The cache hits
+	 */
+	private final static Counter cacheHitsTotal = Counter.build()
+			.name("bboxdb_sstable_block_cache_hits_total")
+			.help("Total block cache hits").register();
+
+	/**
+	 * The cache misses (decompressed blocks)
+	 */
+	private final static Counter cacheMissesTotal = Counter.build()
+			.name("bboxdb_sstable_block_cache_misses_total")
+			.help("Total block cache misses").register();
+
+	public SSTableBlockCache(final long maxBytes) {
+		this.nextCacheId = new AtomicLong();
+		this.cachedBlocksById = new ConcurrentHashMap<>();
+		this.cache = CacheBuilder.newBuilder()
+				.maximumWeight(maxBytes)
+				.weigher((BlockKey k, ByteBuffer v) -> v.capacity())
+				.removalListener(this::handleRemoval)
+				.build();
+	}
+	
+	/**
+	 * Get the instance, the instance is created on the first access
+	 * @return
+	 */
+	public static SSTableBlockCache getInstance() {
+		return InstanceHolder.INSTANCE;
+	}
+	
+	/**
+	 * Get a new id for the blocks of a file
+	 * @return
+	 */
+	public long getNextCacheId() {
+		return nextCacheId.incrementAndGet();
+	}
+	
+	/**
+	 * Get the block, the loader is called if the block is not cached. The returned 
+	 * buffer is shared and must not be modified.
+	 * 
+	 * @param cacheId
+	 * @param block
+	 * @param loader
+	 * @return
+	 * @throws ExecutionException 
+	 */
+	public ByteBuffer getBlock(final long cacheId, final int block, final Callable<ByteBuffer> loader) 
+			throws ExecutionException {
+		
+		final BlockKey key = new BlockKey(cacheId, block);
+		final ByteBuffer cachedBlock = cache.getIfPresent(key);
+		
+		if(cachedBlock != null) {
+			cacheHitsTotal.inc();
+			return cachedBlock;
+		}
+		
+		cacheMissesTotal.inc();
+		
+		return cache.get(key, () -> {
+			final ByteBuffer loadedBlock = loader.call();
+			cachedBlocksById.computeIfAbsent(cacheId, (i) -> ConcurrentHashMap.newKeySet()).add(block);
+			return loadedBlock;
+		});
+	}
+	
+	/**
+	 * Remove the block from the cached blocks of the cache id
+	 * @param notification
+	 */
+	private void handleRemoval(final RemovalNotification<BlockKey, ByteBuffer> notification) {
+		
+		// The block is still cached
+		if(notification.getCause() == RemovalCause.REPLACED) {
+			return;
+		}
+		
+		final BlockKey key = notification.getKey();
+		
+		cachedBlocksById.computeIfPresent(key.cacheId, (i, blocks) -> {
+			blocks.remove(key.block);
+			return blocks.isEmpty() ? null : blocks;
+		});
+	}
+	
+	/**
+	 * Remove all blocks of the cache id. A block that is loaded concurrently 
+	 * stays in the cache until it is evicted, the cache ids are not reused.
+	 * 
+	 * @param cacheId
+	 */
+	public void invalidate(final long cacheId) {
+		final Set<Integer> blocks = cachedBlocksById.remove(cacheId);
+		
+		if(blocks == null) {
+			return;
+		}
+		
+		final Set<BlockKey> keys = blocks.stream()
+				.map(b -> new BlockKey(cacheId, b))
+				.collect(Collectors.toSet());
+		
+		cache.invalidateAll(keys);
+	}
+	
+	/**
+	 * Remove all blocks
+	 */
+	public void clear() {
+		cache.invalidateAll();
+		cachedBlocksById.clear();
+	}
+	
+	/**
+	 * Get the number of cached blocks
+	 * @return
+	 */
+	public long getCachedBlocks() {
+		return cache.size();
+	}
+	
+	/**
+	 * Holder of the instance, the instance is created when the holder class is initialized
+	 */
+	private static final class InstanceHolder {
+		
+		/**
+		 * The instance
+		 */
+		private final static SSTableBlockCache INSTANCE = new SSTableBlockCache(
+				BBoxDBConfigurationManager.getConfiguration().getSstableBlockCacheSize());
+	}
+	
+	private static final class BlockKey {
+		
+		/**
+		 * The id of the file
+		 */
+		private final long cacheId;
+		
+		/**
+		 * The block number
+		 */
+		private final int block;
+
+		public BlockKey(final long cacheId, final int block) {
+			this.cacheId = cacheId;
+			this.block = block;
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = prime * result + block;
+			result = prime * result + (int) (cacheId ^ (cacheId >>> 32));
+			return result;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			BlockKey other = (BlockKey) obj;
+			if (block != other.block)
+				return false;
+			if (cacheId != other.cacheId)
+				return false;
+			return true;
+		}
+	}
+}
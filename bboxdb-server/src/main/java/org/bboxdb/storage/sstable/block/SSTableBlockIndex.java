@@ -0,0 +1,245 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.block;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.commons.io.SegmentedMappedFile;
+
+/**
+ * The block index of a block compressed SSTable. The index is stored at the end
+ * of the SSTable file:
+ * 
+ * ------------------------------------------------------------------------------------
+ * | Block 0 position | Compressed length | Uncompressed length | ... | Index position | Blocks |
+ * |      8 Byte      |      4 Byte       |       4 Byte        | ... |     8 Byte     | 4 Byte |
+ * ------------------------------------------------------------------------------------
+ * 
+ * A tuple position in a block compressed SSTable contains the block number in 
+ * the upper and the offset in the uncompressed block in the lower 32 bits.
+ */
+public class SSTableBlockIndex {
+	
+	/**
+	 * The position of the blocks in the file
+	 */
+	private long[] positions;
+	
+	/**
+	 * The compressed length of the blocks
+	 */
+	private int[] compressedLengths;
+	
+	/**
+	 * The uncompressed length of the blocks
+	 */
+	private int[] uncompressedLengths;
+	
+	/**
+	 * The number of blocks
+	 */
+	private int blocks;
+	
+	/**
+	 * The size of one index entry
+	 */
+	public final static int INDEX_ENTRY_BYTES = DataEncoderHelper.LONG_BYTES 
+			+ DataEncoderHelper.INT_BYTES + DataEncoderHelper.INT_BYTES;
+	
+	/**
+	 * The size of the footer (index position and number of blocks)
+	 */
+	public final static int FOOTER_BYTES = DataEncoderHelper.LONG_BYTES + DataEncoderHelper.INT_BYTES;
+
+	public SSTableBlockIndex() {
+		this.positions = new long[16];
+		this.compressedLengths = new int[16];
+		this.uncompressedLengths = new int[16];
+		this.blocks = 0;
+	}
+	
+	/**
+	 * Add a new block
+	 * @param position
+	 * @param compressedLength
+	 * @param uncompressedLength
+	 */
+	public void addBlock(final long position, final int compressedLength, final int uncompressedLength) {
+		if(blocks == positions.length) {
+			final int newSize = positions.length * 2;
+			positions = Arrays.copyOf(positions, newSize);
+			compressedLengths = Arrays.copyOf(compressedLengths, newSize);
+			uncompressedLengths = Arrays.copyOf(uncompressedLengths, newSize);
+		}
+		
+		positions[blocks] = position;
+		compressedLengths[blocks] = compressedLength;
+		uncompressedLengths[blocks] = uncompressedLength;
+		blocks++;
+	}
+	
+	/**
+	 * Get the number of blocks
+	 * @return
+	 */
+	public int getNumberOfBlocks() {
+		return blocks;
+	}
+	
+	/**
+	 * Get the file position of the block
+	 * @param block
+	 * @return
+	 */
+	public long getPosition(final int block) {
+		checkBlock(block);
+		return positions[block];
+	}
+	
+	/**
+	 * Get the compressed length of the block
+	 * @param block
+	 * @return
+	 */
+	public int getCompressedLength(final int block) {
+		checkBlock(block);
+		return compressedLengths[block];
+	}
+	
+	/**
+	 * Get the uncompressed length of the block
+	 * @param block
+	 * @return
+	 */
+	public int getUncompressedLength(final int block) {
+		checkBlock(block);
+		return uncompressedLengths[block];
+	}
+
+	/**
+	 * Check the block number
+	 * @param block
+	 */
+	private void checkBlock(final int block) {
+		if(block < 0 || block >= blocks) {
+			throw new IllegalArgumentException("Invalid block " + block + " (blocks: " + blocks + ")");
+		}
+	}
+	
+	/**
+	 * Write the index and the footer
+	 * @param outputStream
+	 * @param indexPosition - the file position of the index
+	 * @throws IOException
+	 */
+	public void writeToStream(final OutputStream outputStream, final long indexPosition) 
+			throws IOException {
+		
+		final ByteBuffer buffer = ByteBuffer.allocate(blocks * INDEX_ENTRY_BYTES + FOOTER_BYTES);
+		buffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		
+		for(int block = 0; block < blocks; block++) {
+			buffer.putLong(positions[block]);
+			buffer.putInt(compressedLengths[block]);
+			buffer.putInt(uncompressedLengths[block]);
+		}
+		
+		buffer.putLong(indexPosition);
+		buffer.putInt(blocks);
+		
+		outputStream.write(buffer.array());
+	}
+	
+	/**
+	 * Read the index from the end of the memory
+	 * @param memory
+	 * @param firstBlockPosition - the position of the first block
+	 * @return
+	 * @throws IOException
+	 */
+	public static SSTableBlockIndex readFromMemory(final SegmentedMappedFile memory, 
+			final long firstBlockPosition) throws IOException {
+		
+		final long size = memory.size();
+		
+		if(size < firstBlockPosition + FOOTER_BYTES) {
+			throw new IOException("File is too small to contain a block index: " + size);
+		}
+		
+		final long indexPosition = memory.getLong(size - FOOTER_BYTES);
+		final int blocks = memory.getInt(size - FOOTER_BYTES + DataEncoderHelper.LONG_BYTES);
+		
+		if(blocks < 0 || indexPosition < firstBlockPosition 
+				|| indexPosition + (long) blocks * INDEX_ENTRY_BYTES != size - FOOTER_BYTES) {
+			
+			throw new IOException("Invalid block index at position " + indexPosition 
+					+ " with " + blocks + " blocks");
+		}
+		
+		final SSTableBlockIndex index = new SSTableBlockIndex();
+		
+		for(int block = 0; block < blocks; block++) {
+			final long entryPosition = indexPosition + (long) block * INDEX_ENTRY_BYTES;
+			final long position = memory.getLong(entryPosition);
+			final int compressedLength = memory.getInt(entryPosition + DataEncoderHelper.LONG_BYTES);
+			final int uncompressedLength = memory.getInt(entryPosition + DataEncoderHelper.LONG_BYTES 
+					+ DataEncoderHelper.INT_BYTES);
+			
+			if(position < firstBlockPosition || compressedLength < 0 || uncompressedLength < 0
+					|| position + compressedLength > indexPosition) {
+				throw new IOException("Invalid block " + block + " at position " + position);
+			}
+			
+			index.addBlock(position, compressedLength, uncompressedLength);
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Build a tuple position
+	 * @param block
+	 * @param offset
+	 * @return
+	 */
+	public static long toTuplePosition(final int block, final int offset) {
+		return ((long) block << 32) | (offset & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Get the block of the tuple position
+	 * @param tuplePosition
+	 * @return
+	 */
+	public static int getBlock(final long tuplePosition) {
+		return (int) (tuplePosition >>> 32);
+	}
+	
+	/**
+	 * Get the offset in the uncompressed block of the tuple position
+	 * @param tuplePosition
+	 * @return
+	 */
+	public static int getOffset(final long tuplePosition) {
+		return (int) tuplePosition;
+	}
+}
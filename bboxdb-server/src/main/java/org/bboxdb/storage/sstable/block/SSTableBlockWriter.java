@@ -0,0 +1,154 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.block;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.util.TupleHelper;
+
+import com.google.common.io.CountingOutputStream;
+
+/**
+ * Writes the tuples of a SSTable into compressed blocks. 
+ * 
+ * Format of the block compressed SSTable:
+ * 
+ * ---------------------------------------------------------------------------
+ * | Magic bytes | Compression | Block 0 | Block 1 | ... | Index | Footer |
+ * |   10 Byte   |   1 Byte    |         |         | ... |       |        |
+ * ---------------------------------------------------------------------------
+ */
+public class SSTableBlockWriter {
+
+	/**
+	 * The output stream of the SSTable
+	 */
+	private final CountingOutputStream outputStream;
+	
+	/**
+	 * The compression
+	 */
+	private final SSTableCompression compression;
+	
+	/**
+	 * The size of a uncompressed block
+	 */
+	private final int blockSize;
+	
+	/**
+	 * The block index
+	 */
+	private final SSTableBlockIndex blockIndex;
+	
+	/**
+	 * The uncompressed data of the active block
+	 */
+	private final ByteArrayOutputStream blockBuffer;
+
+	public SSTableBlockWriter(final CountingOutputStream outputStream, 
+			final SSTableCompression compression, final int blockSize) {
+		
+		if(compression == SSTableCompression.NONE) {
+			throw new IllegalArgumentException("The block writer needs a compression");
+		}
+		
+		this.outputStream = outputStream;
+		this.compression = compression;
+		this.blockSize = blockSize;
+		this.blockIndex = new SSTableBlockIndex();
+		this.blockBuffer = new ByteArrayOutputStream(blockSize + blockSize / 4);
+	}
+	
+	/**
+	 * Write the header (the magic bytes are written by the SSTable writer)
+	 * @throws IOException 
+	 */
+	public void writeHeader() throws IOException {
+		outputStream.write(compression.ordinal());
+	}
+	
+	/**
+	 * Get the position of the next written tuple
+	 * @return
+	 */
+	public long getNextTuplePosition() {
+		return SSTableBlockIndex.toTuplePosition(blockIndex.getNumberOfBlocks(), blockBuffer.size());
+	}
+	
+	/**
+	 * Add the tuple to the active block
+	 * @param tuple
+	 * @return the uncompressed bytes of the tuple
+	 * @throws IOException
+	 */
+	public int writeTuple(final Tuple tuple) throws IOException {
+		final int blockPosition = blockBuffer.size();
+		TupleHelper.writeTupleToStream(tuple, blockBuffer);
+		final int writtenBytes = blockBuffer.size() - blockPosition;
+		
+		if(blockBuffer.size() >= blockSize) {
+			flushBlock();
+		}
+		
+		return writtenBytes;
+	}
+	
+	/**
+	 * Compress and write the active block
+	 * @throws IOException
+	 */
+	private void flushBlock() throws IOException {
+		if(blockBuffer.size() == 0) {
+			return;
+		}
+		
+		final byte[] uncompressed = blockBuffer.toByteArray();
+		final byte[] compressed = compression.compress(uncompressed, uncompressed.length);
+		
+		blockIndex.addBlock(outputStream.getCount(), compressed.length, uncompressed.length);
+		outputStream.write(compressed);
+		blockBuffer.reset();
+	}
+	
+	/**
+	 * Write the last block, the block index and the footer
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		flushBlock();
+		blockIndex.writeToStream(outputStream, outputStream.getCount());
+	}
+	
+	/**
+	 * Get the written and the buffered bytes
+	 * @return
+	 */
+	public long getWrittenBytes() {
+		return outputStream.getCount() + blockBuffer.size();
+	}
+	
+	/**
+	 * Get the number of written blocks
+	 * @return
+	 */
+	public int getNumberOfBlocks() {
+		return blockIndex.getNumberOfBlocks();
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.block;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdException;
+
+public enum SSTableCompression {
+
+	/**
+	 * The tuples are stored uncompressed (no blocks)
+	 */
+	NONE {
+		@Override
+		public byte[] compress(final byte[] data, final int length) {
+			return Arrays.copyOf(data, length);
+		}
+
+		@Override
+		public byte[] decompress(final byte[] data, final int uncompressedLength) throws IOException {
+			if(data.length != uncompressedLength) {
+				throw new IOException("Invalid block length " + data.length + " expected " 
+						+ uncompressedLength);
+			}
+			
+			return data;
+		}
+	},
+	
+	/**
+	 * The tuples are stored in zstd compressed blocks
+	 */
+	ZSTD {
+		@Override
+		public byte[] compress(final byte[] data, final int length) {
+			final byte[] compressed = new byte[(int) Zstd.compressBound(length)];
+			
+			final long compressedLength = Zstd.compressByteArray(compressed, 0, compressed.length, 
+					data, 0, length, ZSTD_LEVEL);
+			
+			if(Zstd.isError(compressedLength)) {
+				throw new IllegalStateException("Unable to compress block: " 
+						+ Zstd.getErrorName(compressedLength));
+			}
+			
+			return Arrays.copyOf(compressed, (int) compressedLength);
+		}
+
+		@Override
+		public byte[] decompress(final byte[] data, final int uncompressedLength) throws IOException {
+			try {
+				final byte[] uncompressed = Zstd.decompress(data, uncompressedLength);
+				
+				if(uncompressed.length != uncompressedLength) {
+					throw new IOException("Invalid block length " + uncompressed.length 
+							+ " expected " + uncompressedLength);
+				}
+				
+				return uncompressed;
+			} catch(ZstdException e) {
+				throw new IOException(e);
+			}
+		}
+	};
+	
+	/**
+	 * The zstd compression level
+	 */
+	private final static int ZSTD_LEVEL = 3;
+
+	/**
+	 * Compress the first length bytes of the data
+	 * @param data
+	 * @param length
+	 * @return
+	 */
+	public abstract byte[] compress(final byte[] data, final int length);
+	
+	/**
+	 * Decompress the data
+	 * @param data
+	 * @param uncompressedLength
+	 * @return
+	 * @throws IOException
+	 */
+	public abstract byte[] decompress(final byte[] data, final int uncompressedLength) throws IOException;
+
+}
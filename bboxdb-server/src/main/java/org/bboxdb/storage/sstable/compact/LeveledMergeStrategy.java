@@ -0,0 +1,255 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.compact;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.bboxdb.misc.BBoxDBConfiguration;
+import org.bboxdb.misc.BBoxDBConfigurationManager;
+import org.bboxdb.storage.entity.TupleStoreMetaData;
+import org.bboxdb.storage.sstable.SSTableConst;
+import org.bboxdb.storage.sstable.reader.SSTableFacade;
+
+/**
+ * The leveled merge strategy organizes the tables in levels. Level 0 contains 
+ * the flushed memtables, which can have overlapping key ranges. All other levels 
+ * contain tables with non overlapping key ranges, each level can store 
+ * LEVEL_FANOUT times more tuples than the previous level. 
+ * 
+ * A key is stored in at most one table per level (>= 1), so the read 
+ * amplification is bounded by the number of level 0 tables plus the number 
+ * of levels.
+ */
+public class LeveledMergeStrategy implements MergeStrategy {
+	
+	/**
+	 * The number of level 0 tables that trigger a merge into level 1
+	 */
+	protected final static int LEVEL0_MERGE_TRIGGER = 4;
+	
+	/**
+	 * The size factor between two levels
+	 */
+	protected final static int LEVEL_FANOUT = 10;
+	
+	/**
+	 * The max number of tables in level 1
+	 */
+	protected final static int LEVEL1_MAX_TABLES = 10;
+
+	@Override
+	public MergeTask getMergeTask(final List<SSTableFacade> sstables) {
+		
+		final MergeTask mergeTask = new MergeTask();
+		
+		final List<SSTableFacade> level0Tables = getTablesForLevel(sstables, 0);
+		
+		if(level0Tables.size() >= LEVEL0_MERGE_TRIGGER) {
+			return createMergeTask(sstables, level0Tables, 1);
+		}
+		
+		final int maxLevel = getMaxLevel(sstables);
+		
+		for(int level = 1; level <= maxLevel; level++) {
+			final List<SSTableFacade> levelTables = getTablesForLevel(sstables, level);
+			
+			final long levelTuples = levelTables
+					.stream()
+					.mapToLong(f -> f.getSsTableMetadata().getTuples())
+					.sum();
+			
+			if(levelTuples <= getMaxTuplesForLevel(level)) {
+				continue;
+			}
+			
+			// Move the oldest table of the level into the next level
+			final Optional<SSTableFacade> oldestTable = levelTables
+					.stream()
+					.min(Comparator.comparingInt(SSTableFacade::getTablebumber));
+			
+			final List<SSTableFacade> inputTables = new ArrayList<>();
+			inputTables.add(oldestTable.get());
+			
+			return createMergeTask(sstables, inputTables, level + 1);
+		}
+		
+		return mergeTask;
+	}
+
+	/**
+	 * Create a merge task for the input tables and the overlapping tables 
+	 * of the output level
+	 * 
+	 * @param sstables
+	 * @param inputTables
+	 * @param outputLevel
+	 * @return
+	 */
+	protected MergeTask createMergeTask(final List<SSTableFacade> sstables, 
+			final List<SSTableFacade> inputTables, final int outputLevel) {
+		
+		final String firstKey = inputTables
+				.stream()
+				.map(f -> f.getSsTableMetadata().getFirstKey())
+				.min(LeveledMergeStrategy::compareFirstKeys)
+				.orElse(null);
+		
+		final String lastKey = inputTables
+				.stream()
+				.map(f -> f.getSsTableMetadata().getLastKey())
+				.max(LeveledMergeStrategy::compareLastKeys)
+				.orElse(null);
+		
+		final List<SSTableFacade> overlappingTables = getTablesForLevel(sstables, outputLevel)
+				.stream()
+				.filter(f -> isOverlapping(f.getSsTableMetadata(), firstKey, lastKey))
+				.collect(Collectors.toList());
+		
+		final List<SSTableFacade> compactTables = new ArrayList<>(inputTables);
+		compactTables.addAll(overlappingTables);
+		
+		final MergeTask mergeTask = new MergeTask();
+		mergeTask.setCompactTables(compactTables);
+		mergeTask.setOutputLevel(outputLevel);
+		mergeTask.setMaxTuplesPerTable(getMaxTuplesPerTable());
+		
+		// Deleted tuples can be removed, when no older data exists in a deeper level
+		if(outputLevel >= getMaxLevel(sstables)) {
+			mergeTask.setTaskType(MergeTaskType.MAJOR);
+		} else {
+			mergeTask.setTaskType(MergeTaskType.MINOR);
+		}
+		
+		return mergeTask;
+	}
+	
+	/**
+	 * Is the key range of the table overlapping with the given key range. A null 
+	 * key is treated as an unbounded range. 
+	 * 
+	 * @param metaData
+	 * @param firstKey
+	 * @param lastKey
+	 * @return
+	 */
+	protected static boolean isOverlapping(final TupleStoreMetaData metaData, 
+			final String firstKey, final String lastKey) {
+		
+		final String tableFirstKey = metaData.getFirstKey();
+		final String tableLastKey = metaData.getLastKey();
+		
+		// Table starts after the range
+		if(lastKey != null && tableFirstKey != null && tableFirstKey.compareTo(lastKey) > 0) {
+			return false;
+		}
+		
+		// Table ends before the range
+		if(firstKey != null && tableLastKey != null && tableLastKey.compareTo(firstKey) < 0) {
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Compare two first keys, null is smaller than all other keys
+	 * @param key1
+	 * @param key2
+	 * @return
+	 */
+	private static int compareFirstKeys(final String key1, final String key2) {
+		if(key1 == null || key2 == null) {
+			return key1 == key2 ? 0 : (key1 == null ? -1 : 1);
+		}
+		
+		return key1.compareTo(key2);
+	}
+	
+	/**
+	 * Compare two last keys, null is bigger than all other keys
+	 * @param key1
+	 * @param key2
+	 * @return
+	 */
+	private static int compareLastKeys(final String key1, final String key2) {
+		if(key1 == null || key2 == null) {
+			return key1 == key2 ? 0 : (key1 == null ? 1 : -1);
+		}
+		
+		return key1.compareTo(key2);
+	}
+
+	/**
+	 * Get the tables of the given level
+	 * @param sstables
+	 * @param level
+	 * @return
+	 */
+	protected List<SSTableFacade> getTablesForLevel(final List<SSTableFacade> sstables, final int level) {
+		return sstables
+				.stream()
+				.filter(f -> f.getSsTableMetadata().getLevel() == level)
+				.collect(Collectors.toList());
+	}
+	
+	/**
+	 * Get the deepest level
+	 * @param sstables
+	 * @return
+	 */
+	protected int getMaxLevel(final List<SSTableFacade> sstables) {
+		return sstables
+				.stream()
+				.mapToInt(f -> f.getSsTableMetadata().getLevel())
+				.max()
+				.orElse(0);
+	}
+	
+	/**
+	 * Get the max number of tuples for the level
+	 * @param level
+	 * @return
+	 */
+	protected long getMaxTuplesForLevel(final int level) {
+		long maxTuples = LEVEL1_MAX_TABLES * getMaxTuplesPerTable();
+		
+		for(int i = 1; i < level; i++) {
+			maxTuples = maxTuples * LEVEL_FANOUT;
+		}
+		
+		return maxTuples;
+	}
+	
+	/**
+	 * Get the max number of tuples per table
+	 * @return
+	 */
+	protected long getMaxTuplesPerTable() {
+		final BBoxDBConfiguration configuration = BBoxDBConfigurationManager.getConfiguration();
+		return configuration.getMemtableEntriesMax() * 5L;
+	}
+
+	@Override
+	public long getCompactorDelay() {
+		return SSTableConst.COMPACT_THREAD_DELAY;
+	}
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.compact;
+
+import org.bboxdb.storage.entity.TupleStoreConfiguration;
+
+public class MergeStrategyFactory {
+	
+	/**
+	 * The basic merge strategy
+	 */
+	private final static MergeStrategy BASIC_MERGE_STRATEGY = new BasicMergeStrategy();
+	
+	/**
+	 * The size tiered merge strategy
+	 */
+	private final static MergeStrategy SIZE_TIERED_MERGE_STRATEGY = new SizeTieredMergeStrategy();
+	
+	/**
+	 * The leveled merge strategy
+	 */
+	private final static MergeStrategy LEVELED_MERGE_STRATEGY = new LeveledMergeStrategy();
+
+	/**
+	 * Get the merge strategy for the tuple store configuration
+	 * @param tupleStoreConfiguration
+	 * @return
+	 */
+	public static MergeStrategy getMergeStrategy(final TupleStoreConfiguration tupleStoreConfiguration) {
+		
+		if(tupleStoreConfiguration == null) {
+			return BASIC_MERGE_STRATEGY;
+		}
+		
+		return getMergeStrategy(tupleStoreConfiguration.getMergeStrategy());
+	}
+	
+	/**
+	 * Get the merge strategy for the type
+	 * @param mergeStrategyType
+	 * @return
+	 */
+	public static MergeStrategy getMergeStrategy(final MergeStrategyType mergeStrategyType) {
+		
+		if(mergeStrategyType == null) {
+			return BASIC_MERGE_STRATEGY;
+		}
+		
+		switch(mergeStrategyType) {
+		case SIZE_TIERED:
+			return SIZE_TIERED_MERGE_STRATEGY;
+		case LEVELED:
+			return LEVELED_MERGE_STRATEGY;
+		default:
+			return BASIC_MERGE_STRATEGY;
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.compact;
+
+public enum MergeStrategyType {
+	
+	/**
+	 * Merge small tables and perform major compactions on old big tables
+	 */
+	BASIC,
+	
+	/**
+	 * Merge tables of a similar size
+	 */
+	SIZE_TIERED,
+	
+	/**
+	 * Organize the tables in levels with non overlapping key ranges
+	 */
+	LEVELED;
+
+}
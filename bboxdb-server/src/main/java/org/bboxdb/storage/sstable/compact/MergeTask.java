@@ -32,6 +32,16 @@ public class MergeTask {
 
 	public MergeTaskType taskType = MergeTaskType.UNKNOWN;
 	
+	/**
+	 * The level of the resulting tables
+	 */
+	protected int outputLevel = 0;
+	
+	/**
+	 * The max number of tuples per resulting table (0 = unlimited)
+	 */
+	protected long maxTuplesPerTable = 0;
+	
 	public List<SSTableFacade> getCompactTables() {
 		return compactTables;
 	}
@@ -48,8 +58,25 @@ public class MergeTask {
 		this.taskType = taskType;
 	}
 
+	public int getOutputLevel() {
+		return outputLevel;
+	}
+
+	public void setOutputLevel(final int outputLevel) {
+		this.outputLevel = outputLevel;
+	}
+
+	public long getMaxTuplesPerTable() {
+		return maxTuplesPerTable;
+	}
+
+	public void setMaxTuplesPerTable(final long maxTuplesPerTable) {
+		this.maxTuplesPerTable = maxTuplesPerTable;
+	}
+
 	@Override
 	public String toString() {
-		return "MergeTask [compactTables=" + compactTables + ", taskType=" + taskType + "]";
+		return "MergeTask [compactTables=" + compactTables + ", taskType=" + taskType 
+				+ ", outputLevel=" + outputLevel + ", maxTuplesPerTable=" + maxTuplesPerTable + "]";
 	}
 }
@@ -38,6 +38,8 @@ import org.bboxdb.storage.util.TupleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.RateLimiter;
+
 public class SSTableCompactor {
 
 	/**
@@ -80,6 +82,46 @@ public class SSTableCompactor {
 	 * Was the compactification successfully
 	 */
 	private boolean successfully = true;
+	
+	/**
+	 * The level of the output tables
+	 */
+	private int outputLevel = 0;
+	
+	/**
+	 * The max tuples per output table (0 = unlimited)
+	 */
+	private long maxTuplesPerTable = 0;
+	
+	/**
+	 * The max bytes per output table
+	 */
+	private long maxBytesPerTable = SSTableConst.MAX_SSTABLE_SIZE;
+	
+	/**
+	 * The IO rate limiter (null = unlimited)
+	 */
+	private RateLimiter rateLimiter = null;
+	
+	/**
+	 * The bytes written since the last rate limiter acquire
+	 */
+	private int unthrottledBytes = 0;
+	
+	/**
+	 * The key of the last written tuple
+	 */
+	private String lastWrittenKey = null;
+	
+	/**
+	 * The amount of tuples written to the current writer
+	 */
+	private long writerTuples = 0;
+	
+	/**
+	 * The amount of bytes that are acquired at once from the rate limiter
+	 */
+	private final static int RATE_LIMIT_CHUNK_SIZE = 64 * 1024;
 
 	/**
 	 * The logger
@@ -191,6 +233,27 @@ public class SSTableCompactor {
 		openNewWriterIfNeeded(tuple);
 		sstableWriter.addTuple(tuple);
 		writtenTuples++;
+		writerTuples++;
+		lastWrittenKey = tuple.getKey();
+		
+		throttleIO(tuple.getSize());
+	}
+	
+	/**
+	 * Throttle the IO according to the rate limiter
+	 * @param bytes
+	 */
+	private void throttleIO(final int bytes) {
+		if(rateLimiter == null) {
+			return;
+		}
+		
+		unthrottledBytes = unthrottledBytes + bytes;
+		
+		if(unthrottledBytes >= RATE_LIMIT_CHUNK_SIZE) {
+			rateLimiter.acquire(unthrottledBytes);
+			unthrottledBytes = 0;
+		}
 	}
 
 	/**
@@ -252,8 +315,22 @@ public class SSTableCompactor {
 			return;
 		}
 
+		// All versions of a key are stored in the same table to get non 
+		// overlapping key ranges (a key is stored in at most one table per level). 
+		// So a table can exceed the limits by the versions of its last key.
+		if(tuple.getKey().equals(lastWrittenKey)) {
+			return;
+		}
+
 		// Check max table size limit
-		if(sstableWriter.getWrittenBytes() + tuple.getSize() > SSTableConst.MAX_SSTABLE_SIZE) {
+		final boolean sizeLimitReached 
+			= sstableWriter.getWrittenBytes() + tuple.getSize() > maxBytesPerTable;
+		
+		// Check max tuples limit
+		final boolean tupleLimitReached 
+			= maxTuplesPerTable > 0 && writerTuples >= maxTuplesPerTable;
+		
+		if(sizeLimitReached || tupleLimitReached) {
 			sstableWriter.close();
 			sstableWriter = openNewSSTableWriter();
 		}
@@ -276,9 +353,12 @@ public class SSTableCompactor {
 		final SSTableCreator creatorType = getCreatorType();
 		
 		final SSTableWriter sstableWriter = new SSTableWriter(directory, tupleStoreName,
-				tablenumber, estimatedMaxNumberOfEntries, creatorType);
+				tablenumber, estimatedMaxNumberOfEntries, creatorType, 
+				tupleStoreManager.getSSTableCompression());
 
+		sstableWriter.setLevel(outputLevel);
 		sstableWriter.open();
+		writerTuples = 0;
 		resultList.add(sstableWriter);
 		logger.info("Output file for compact: {}", sstableWriter.getSstableFile());
 		return sstableWriter;
@@ -313,6 +393,38 @@ public class SSTableCompactor {
 		this.majorCompaction = majorCompaction;
 	}
 
+	/**
+	 * Set the level of the output tables
+	 * @param outputLevel
+	 */
+	public void setOutputLevel(final int outputLevel) {
+		this.outputLevel = outputLevel;
+	}
+	
+	/**
+	 * Set the max number of tuples per output table (0 = unlimited)
+	 * @param maxTuplesPerTable
+	 */
+	public void setMaxTuplesPerTable(final long maxTuplesPerTable) {
+		this.maxTuplesPerTable = maxTuplesPerTable;
+	}
+	
+	/**
+	 * Set the max number of bytes per output table
+	 * @param maxBytesPerTable
+	 */
+	public void setMaxBytesPerTable(final long maxBytesPerTable) {
+		this.maxBytesPerTable = maxBytesPerTable;
+	}
+	
+	/**
+	 * Set the IO rate limiter (null = unlimited)
+	 * @param rateLimiter
+	 */
+	public void setRateLimiter(final RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
 	/**
 	 * Get the amount of read tuples
 	 * @return
@@ -20,10 +20,16 @@ package org.bboxdb.storage.sstable.compact;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.bboxdb.commons.RejectedException;
 import org.bboxdb.commons.concurrent.ExceptionSafeRunnable;
+import org.bboxdb.commons.concurrent.ThreadHelper;
 import org.bboxdb.distribution.membership.BBoxDBInstance;
 import org.bboxdb.distribution.partitioner.SpacePartitioner;
 import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
@@ -39,6 +45,7 @@ import org.bboxdb.misc.BBoxDBConfiguration;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableWriter;
 import org.bboxdb.storage.sstable.reader.SSTableFacade;
 import org.bboxdb.storage.sstable.reader.SSTableKeyIndexReader;
@@ -50,19 +57,26 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 public class SSTableServiceRunnable extends ExceptionSafeRunnable {
-	
-	/**
-	 * The merge strategy
-	 */
-	protected final MergeStrategy mergeStrategy;
 
 	/**
 	 * The storage
 	 */
 	protected final DiskStorage storage;
 	
+	/**
+	 * The compact thread pool, tables of different tuple stores are compacted in parallel
+	 */
+	private ExecutorService compactPool;
+	
+	/**
+	 * The IO rate limiter for all compact threads of the storage (null = unlimited)
+	 */
+	private RateLimiter rateLimiter;
+	
 	/**
 	 * The logger
 	 */
@@ -70,7 +84,6 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 
 	public SSTableServiceRunnable(final DiskStorage storage) {
 		this.storage = storage;
-		this.mergeStrategy = new BasicMergeStrategy();
 	}
 
 	@Override
@@ -80,16 +93,61 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 	
 	@Override
 	protected void endHook() {
+		shutdownCompactPool();
 		logger.info("SSTable service thread for {} is DONE", storage.getBasedir());
 	}
 	
+	/**
+	 * Shutdown the compact pool and wait for the running compact tasks
+	 */
+	private synchronized void shutdownCompactPool() {
+		if(compactPool == null) {
+			return;
+		}
+		
+		compactPool.shutdownNow();
+		
+		try {
+			compactPool.awaitTermination(ThreadHelper.THREAD_WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			logger.warn("Interrupted while waiting for compact pool termination");
+			Thread.currentThread().interrupt();
+		}
+		
+		compactPool = null;
+	}
+	
+	/**
+	 * Create the compact pool and the rate limiter if needed
+	 */
+	private void initCompactPool() {
+		if(compactPool != null) {
+			return;
+		}
+		
+		final BBoxDBConfiguration configuration = storage.getTupleStoreManagerRegistry().getConfiguration();
+		
+		final ThreadFactoryBuilder threadFactoryBuilder = new ThreadFactoryBuilder()
+				.setNameFormat("Compact thread for: " + storage.getBasedir() + " - %d")
+				.setDaemon(true);
+		
+		final int compactThreads = Math.max(1, configuration.getCompactThreadsPerStorage());
+		compactPool = Executors.newFixedThreadPool(compactThreads, threadFactoryBuilder.build());
+		
+		final long compactRateLimit = configuration.getCompactRateLimit();
+		
+		if(compactRateLimit > 0) {
+			rateLimiter = RateLimiter.create(compactRateLimit);
+		}
+	}
+	
 	/**
 	 * Execute the compactor thread
 	 */
 	protected void runThread() {			
 		while(! Thread.currentThread().isInterrupted()) {
 			try {	
-				Thread.sleep(mergeStrategy.getCompactorDelay());
+				Thread.sleep(SSTableConst.COMPACT_THREAD_DELAY);
 				logger.debug("Executing compact thread");
 				execute(); 
 			} catch (InterruptedException e) {
@@ -108,13 +166,15 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 		final TupleStoreManagerRegistry storageRegistry = storage.getTupleStoreManagerRegistry();
 		final String location = storage.getBasedir().getAbsolutePath();
 		final List<TupleStoreName> tupleStores = storageRegistry.getTupleStoresForLocation(location);
-				
+		
+		initCompactPool();
 		processTupleStores(storageRegistry, tupleStores);
 		processRegionMerges();
 	}
 
 	/**
-	 * Process the tuple stores
+	 * Process the tuple stores. The tuple stores are compacted in parallel, 
+	 * the region overflow is tested afterwards in this thread.
 	 * 
 	 * @param storageRegistry
 	 * @param tupleStores
@@ -123,6 +183,9 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 	private void processTupleStores(final TupleStoreManagerRegistry storageRegistry,
 			final List<TupleStoreName> tupleStores) throws InterruptedException {
 		
+		final List<TupleStoreManager> compactedManager = new ArrayList<>();
+		final List<Future<?>> futures = new ArrayList<>();
+		
 		for(final TupleStoreName tupleStoreName: tupleStores) {
 			try {
 				logger.debug("Running compact for: {}", tupleStoreName);
@@ -137,16 +200,60 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 					logger.info("Skipping compact run, because region is not active {}", tupleStoreName);
 					continue;
 				}
-			
-				final List<SSTableFacade> facades = getAllTupleStores(tupleStoreManager);
-				final MergeTask mergeTask = mergeStrategy.getMergeTask(facades);
-				executeCompactTask(mergeTask, tupleStoreManager);
-				testForRegionOverflow(tupleStoreManager);
 				
-			} catch (StorageManagerException | BBoxDBException e) {
+				compactedManager.add(tupleStoreManager);
+				futures.add(compactPool.submit(() -> compactTupleStore(tupleStoreManager)));
+			} catch (StorageManagerException e) {
 				logger.error("Error while merging tables", e);	
 			} 
-		}		
+		}
+		
+		waitForCompactTasks(futures);
+		
+		for(final TupleStoreManager tupleStoreManager : compactedManager) {
+			try {
+				testForRegionOverflow(tupleStoreManager);
+			} catch (BBoxDBException e) {
+				logger.error("Error while testing for region overflow", e);	
+			} 
+		}
+	}
+
+	/**
+	 * Compact the tables of the tuple store 
+	 * @param tupleStoreManager
+	 */
+	private void compactTupleStore(final TupleStoreManager tupleStoreManager) {
+		try {
+			final MergeStrategy mergeStrategy = MergeStrategyFactory.getMergeStrategy(
+					tupleStoreManager.getTupleStoreConfiguration());
+			
+			final List<SSTableFacade> facades = getAllTupleStores(tupleStoreManager);
+			final MergeTask mergeTask = mergeStrategy.getMergeTask(facades);
+			executeCompactTask(mergeTask, tupleStoreManager);
+		} catch (StorageManagerException | BBoxDBException e) {
+			logger.error("Error while merging tables", e);	
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Wait for the compact tasks
+	 * @param futures
+	 * @throws InterruptedException
+	 */
+	private void waitForCompactTasks(final List<Future<?>> futures) throws InterruptedException {
+		try {
+			for(final Future<?> future : futures) {
+				future.get();
+			}
+		} catch (ExecutionException e) {
+			logger.error("Got exception in compact task", e);
+		} catch (InterruptedException e) {
+			futures.forEach(f -> f.cancel(true));
+			throw e;
+		}
 	}
 	
 	/**
@@ -263,6 +370,9 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 		// Run the compact process
 		final SSTableCompactor ssTableCompactor = new SSTableCompactor(sstableManager, reader);
 		ssTableCompactor.setMajorCompaction(majorCompaction);
+		ssTableCompactor.setOutputLevel(mergeTask.getOutputLevel());
+		ssTableCompactor.setMaxTuplesPerTable(mergeTask.getMaxTuplesPerTable());
+		ssTableCompactor.setRateLimiter(rateLimiter);
 		ssTableCompactor.executeCompactation();
 		final List<SSTableWriter> newTables = ssTableCompactor.getResultList();
 
@@ -396,9 +506,19 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 		
 		logger.info("Force major compact for {}", sstableManager.getTupleStoreName().getFullname());
 		
+		final List<SSTableFacade> facades = getAllTupleStores(sstableManager);
+		
+		// All tables are merged into the deepest level
+		final int outputLevel = facades
+				.stream()
+				.mapToInt(f -> f.getSsTableMetadata().getLevel())
+				.max()
+				.orElse(0);
+		
 		final MergeTask mergeTask = new MergeTask();
 		mergeTask.setTaskType(MergeTaskType.MAJOR);
-		mergeTask.setCompactTables(getAllTupleStores(sstableManager));
+		mergeTask.setCompactTables(facades);
+		mergeTask.setOutputLevel(outputLevel);
 		executeCompactTask(mergeTask, sstableManager);
 	}
 
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.compact;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bboxdb.misc.BBoxDBConfiguration;
+import org.bboxdb.misc.BBoxDBConfigurationManager;
+import org.bboxdb.storage.sstable.SSTableConst;
+import org.bboxdb.storage.sstable.reader.SSTableFacade;
+
+/**
+ * The size tiered merge strategy groups the tables into buckets of tables 
+ * with a similar size. When a bucket contains enough tables, the tables 
+ * of the bucket are merged into one bigger table. 
+ */
+public class SizeTieredMergeStrategy implements MergeStrategy {
+
+	/**
+	 * The min number of tables in a bucket to trigger a merge
+	 */
+	protected final static int MIN_TABLES_PER_BUCKET = 4;
+	
+	/**
+	 * The max number of tables per merge task
+	 */
+	protected final static int MAX_TABLES_PER_TASK = 32;
+	
+	/**
+	 * A table belongs to a bucket, if the size is >= BUCKET_LOW * average bucket size
+	 */
+	protected final static double BUCKET_LOW = 0.5;
+	
+	/**
+	 * A table belongs to a bucket, if the size is <= BUCKET_HIGH * average bucket size
+	 */
+	protected final static double BUCKET_HIGH = 1.5;
+	
+	@Override
+	public MergeTask getMergeTask(final List<SSTableFacade> sstables) {
+		
+		final MergeTask mergeTask = new MergeTask();
+		final List<SSTableFacade> bucket = getBucketToMerge(getBuckets(sstables));
+		
+		if(bucket.size() < 2) {
+			return mergeTask;
+		}
+		
+		if(bucket.size() == sstables.size()) {
+			// All tables are included, handle as major compact
+			mergeTask.setTaskType(MergeTaskType.MAJOR);
+		} else {
+			mergeTask.setTaskType(MergeTaskType.MINOR);
+		}
+		
+		mergeTask.setCompactTables(bucket);
+		
+		return mergeTask;
+	}
+
+	/**
+	 * Group the tables into buckets of a similar size
+	 * @param sstables
+	 * @return
+	 */
+	protected List<List<SSTableFacade>> getBuckets(final List<SSTableFacade> sstables) {
+		
+		final long smallTableThreshold = getSmallTableThreshold();
+		
+		final List<SSTableFacade> sortedTables = sstables
+				.stream()
+				.sorted(Comparator.comparingLong(f -> getTableSize(f)))
+				.collect(Collectors.toList());
+		
+		final List<List<SSTableFacade>> buckets = new ArrayList<>();
+		
+		List<SSTableFacade> currentBucket = new ArrayList<>();
+		long currentBucketSize = 0;
+		
+		for(final SSTableFacade facade : sortedTables) {
+			final long tableSize = getTableSize(facade);
+			
+			if(! currentBucket.isEmpty()) {
+				final double averageSize = (double) currentBucketSize / (double) currentBucket.size();
+				
+				final boolean similarSize = tableSize >= averageSize * BUCKET_LOW 
+						&& tableSize <= averageSize * BUCKET_HIGH;
+				
+				// All small tables are placed in the same bucket
+				final boolean smallTables = tableSize < smallTableThreshold 
+						&& averageSize < smallTableThreshold;
+				
+				if(! similarSize && ! smallTables) {
+					buckets.add(currentBucket);
+					currentBucket = new ArrayList<>();
+					currentBucketSize = 0;
+				}
+			}
+			
+			currentBucket.add(facade);
+			currentBucketSize = currentBucketSize + tableSize;
+		}
+		
+		if(! currentBucket.isEmpty()) {
+			buckets.add(currentBucket);
+		}
+		
+		return buckets;
+	}
+	
+	/**
+	 * Get the bucket to merge. The bucket with the smallest tables is preferred, 
+	 * merging this tables reduces the number of tables at the lowest costs. 
+	 * 
+	 * @param buckets
+	 * @return
+	 */
+	protected List<SSTableFacade> getBucketToMerge(final List<List<SSTableFacade>> buckets) {
+		
+		for(final List<SSTableFacade> bucket : buckets) {
+			if(bucket.size() >= MIN_TABLES_PER_BUCKET) {
+				return bucket
+						.stream()
+						.limit(MAX_TABLES_PER_TASK)
+						.collect(Collectors.toList());
+			}
+		}
+		
+		return new ArrayList<>();
+	}
+	
+	/**
+	 * Get the size of the table
+	 * @param facade
+	 * @return
+	 */
+	protected long getTableSize(final SSTableFacade facade) {
+		return facade.getSsTableMetadata().getTuples();
+	}
+	
+	/**
+	 * The small table threshold
+	 * @return
+	 */
+	protected long getSmallTableThreshold() {
+		final BBoxDBConfiguration configuration = BBoxDBConfigurationManager.getConfiguration();
+		return configuration.getMemtableEntriesMax();
+	}
+
+	@Override
+	public long getCompactorDelay() {
+		return SSTableConst.COMPACT_THREAD_DELAY;
+	}
+}
@@ -20,15 +20,14 @@ package org.bboxdb.storage.sstable.reader;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
 
 import org.bboxdb.commons.concurrent.AcquirableResource;
+import org.bboxdb.commons.io.SegmentedMappedFile;
 import org.bboxdb.commons.io.UnsafeMemoryHelper;
 import org.bboxdb.commons.service.AcquirableService;
 import org.bboxdb.misc.BBoxDBService;
-import org.bboxdb.misc.Const;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.slf4j.Logger;
@@ -59,7 +58,7 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 	/**
 	 * The memory region
 	 */
-	protected MappedByteBuffer memory;
+	protected SegmentedMappedFile memory;
 
 	/**
 	 * The file to read
@@ -126,7 +125,11 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 		// Validate file - read the magic from the beginning
 		final byte[] magicBytes = new byte[expectedMagicBytes.length];
 
-		memory.get(magicBytes, 0, expectedMagicBytes.length);
+		if(memory.size() < expectedMagicBytes.length) {
+			throw new StorageManagerException("File " + file + " is too small to contain the magic bytes");
+		}
+
+		memory.get(0, magicBytes, 0, expectedMagicBytes.length);
 
 		if(! Arrays.equals(magicBytes, expectedMagicBytes)) {
 			throw new StorageManagerException("File " + file + " does not contain the magic bytes");
@@ -140,11 +143,11 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 	protected abstract byte[] getMagicBytes();
 
 	/**
-	 * Reset the position to the first element
+	 * Get the position of the first element
 	 */
-	protected void resetPosition() {
+	protected long getFirstElementPosition() {
 		final byte[] magicBytes = getMagicBytes();
-		memory.position(magicBytes.length);
+		return magicBytes.length;
 	}
 
 	/**
@@ -161,8 +164,7 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 
 			randomAccessFile = new RandomAccessFile(file, "r");
 			fileChannel = randomAccessFile.getChannel();
-			memory = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
-			memory.order(Const.APPLICATION_BYTE_ORDER);
+			memory = new SegmentedMappedFile(fileChannel);
 			validateFile();
 
 			serviceState.dispatchToRunning();
@@ -203,7 +205,8 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 			return;
 		}
 
-		UnsafeMemoryHelper.unmapMemory(memory);
+		memory.close();
+		memory = null;
 	}
 
 	/**
@@ -314,7 +317,7 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 	 * Get the memory buffer
 	 * @return
 	 */
-	public MappedByteBuffer getMemory() {
+	public SegmentedMappedFile getMemory() {
 		return memory;
 	}
 
@@ -23,6 +23,7 @@ import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bboxdb.commons.math.Hyperrectangle;
@@ -33,11 +34,13 @@ import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreMetaData;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableHelper;
-import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexCursor;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexReader;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexReaderFactory;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+import org.bboxdb.storage.util.TupleStoreSampleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -367,6 +370,21 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		return ssTableMetadata;
 	}
 
+	@Override
+	public List<Hyperrectangle> getBoundingBoxSamples() throws StorageManagerException {
+		
+		assert (usage.get() > 0);
+		
+		final double[] sampleData = ssTableMetadata.getSampleData();
+		
+		if(sampleData != null && sampleData.length > 0) {
+			return TupleStoreSampleHelper.getSamplesFromArray(sampleData, ssTableMetadata.getDimensions());
+		}
+		
+		// SSTable written without samples, read the samples from the SSTable
+		return TupleStoreSampleHelper.getPositionSamples(this, SSTableConst.METADATA_SAMPLES);
+	}
+
 	@Override
 	public long getOldestTupleVersionTimestamp() {
 		return ssTableMetadata.getOldestTupleVersionTimestamp();
@@ -398,9 +416,9 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		}
 		
 		final List<Tuple> resultList = new ArrayList<>();
-		final List<Integer> positions = ssTableKeyIndexReader.getPositionsForTuple(key);
+		final List<Long> positions = ssTableKeyIndexReader.getPositionsForTuple(key);
 		
-		for(final Integer position : positions) {
+		for(final Long position : positions) {
 			resultList.add(ssTableReader.getTupleAtPosition(position));
 		}
 		
@@ -447,27 +465,44 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 	public Iterator<Tuple> getAllTuplesInBoundingBox(final Hyperrectangle boundingBox) {
 		assert (usage.get() > 0);
 
-		List<SpatialIndexEntry> entries;
+		final SpatialIndexCursor cursor;
 		
 		try {
-			entries = spatialIndex.getEntriesForRegion(boundingBox);
+			cursor = spatialIndex.getCursorForRegion(boundingBox);
 		} catch (StorageManagerException e) {
 			throw new RuntimeException(e);
 		}
 		
-		final Iterator<SpatialIndexEntry> entryIterator = entries.iterator();
-		
 		return new Iterator<Tuple>() {
+			
+			/**
+			 * Is the cursor positioned on a not consumed entry
+			 */
+			private boolean entryAvailable = false;
+			
+			/**
+			 * Is the cursor exhausted
+			 */
+			private boolean done = false;
 
 			@Override
 			public boolean hasNext() {
-				return entryIterator.hasNext();
+				if(! entryAvailable && ! done) {
+					entryAvailable = cursor.next();
+					done = ! entryAvailable;
+				}
+				
+				return entryAvailable;
 			}
 
 			@Override
 			public Tuple next() {
-				final SpatialIndexEntry entry = entryIterator.next();
-				final int tuplePosition = entry.getValue();
+				if(! hasNext()) {
+					throw new NoSuchElementException();
+				}
+				
+				entryAvailable = false;
+				final long tuplePosition = cursor.getValue();
 				
 				try {
 					return ssTableReader.getTupleAtPosition(tuplePosition);
@@ -478,6 +513,14 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		};
 	}
 
+	@Override
+	public Iterator<Tuple> getSortedIterator() {
+		assert (usage.get() > 0);
+		
+		// The key index is sorted by key
+		return ssTableKeyIndexReader.iterator();
+	}
+
 	@Override
 	public boolean isPersistent() {
 		return true;
@@ -19,15 +19,19 @@ package org.bboxdb.storage.sstable.reader;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableHelper;
+import org.bboxdb.storage.sstable.SSTableKeyIndexWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +51,51 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 */
 	protected LoadingCache<Long, String> keyCache;
 
+	/**
+	 * The size of one index entry (depends on the version of the index file)
+	 */
+	protected int indexEntryBytes = SSTableConst.INDEX_ENTRY_BYTES;
+
+	/**
+	 * Is the index stored in prefix compressed blocks (version 3)
+	 */
+	protected boolean blockIndex = false;
+
+	/**
+	 * The first key of each index block (version 3)
+	 */
+	protected String[] blockFirstKeys;
+
+	/**
+	 * The file position of each index block (version 3)
+	 */
+	protected long[] blockPositions;
+
+	/**
+	 * The position of the summary (version 3)
+	 */
+	protected long summaryPosition;
+
+	/**
+	 * The total number of entries (version 3)
+	 */
+	protected int blockIndexEntries;
+
+	/**
+	 * The number of entries per index block (version 3)
+	 */
+	protected int entriesPerBlock;
+
+	/**
+	 * The recently decoded index blocks <Block Number, Block> (version 3)
+	 */
+	protected LoadingCache<Integer, IndexBlock> indexBlockCache;
+
+	/**
+	 * The max number of cached index blocks
+	 */
+	private final static int INDEX_BLOCK_CACHE_SIZE = 16;
+
 	/**
 	 * The Logger
 	 */
@@ -96,9 +145,13 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @return
 	 * @throws StorageManagerException
 	 */
-	public List<Integer> getPositionsForTuple(final String key) throws StorageManagerException {
+	public List<Long> getPositionsForTuple(final String key) throws StorageManagerException {
 
 		try {
+			if(blockIndex) {
+				return getPositionsFromBlockIndex(key);
+			}
+
 			int firstEntry = 0;
 			int lastEntry = getNumberOfEntries() - 1;
 
@@ -154,6 +207,52 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 		return new ArrayList<>();
 	}
 
+	/**
+	 * Search the key in the block index. The summary is used to determine the
+	 * first block that can contain the key, so only the needed index blocks
+	 * are decoded. The blocks are decoded during the scan and not cached.
+	 *
+	 * @param key
+	 * @return
+	 * @throws IOException
+	 */
+	protected List<Long> getPositionsFromBlockIndex(final String key) throws IOException {
+		final List<Long> positions = new ArrayList<>();
+
+		if(blockFirstKeys.length == 0 || blockFirstKeys[0].compareTo(key) > 0) {
+			return positions;
+		}
+
+		// Find the last block with a first key < the key (duplicates can span blocks)
+		int firstBlock = 0;
+		int low = 0;
+		int high = blockFirstKeys.length - 1;
+
+		while(low <= high) {
+			final int mid = (low + high) >>> 1;
+
+			if(blockFirstKeys[mid].compareTo(key) < 0) {
+				firstBlock = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+
+		for(int block = firstBlock; block < blockFirstKeys.length; block++) {
+			if(! scanIndexBlock(block, key, positions)) {
+				return positions;
+			}
+
+			final int nextBlock = block + 1;
+			if(nextBlock < blockFirstKeys.length && blockFirstKeys[nextBlock].compareTo(key) > 0) {
+				break;
+			}
+		}
+
+		return positions;
+	}
+
 	/**
 	 * The SSTable can contain duplicates, so we nee to scan up and down from
 	 * the given position to retrive all keys
@@ -162,7 +261,7 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @throws StorageManagerException
 	 * @throws IOException
 	 */
-	protected List<Integer> fillKeyPositionArrayFromIndexEntry(final String key, final int indexEntry)
+	protected List<Long> fillKeyPositionArrayFromIndexEntry(final String key, final int indexEntry)
 			throws IOException, StorageManagerException {
 
 		final List<Integer> resultList = new ArrayList<>();
@@ -200,7 +299,7 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 		}
 
 		// Convert index positions
-		final List<Integer> positions = new ArrayList<>();
+		final List<Long> positions = new ArrayList<>();
 		for(final int pos : resultList) {
 			positions.add(convertEntryToPosition(pos));
 		}
@@ -235,7 +334,14 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @throws IOException
 	 */
 	protected String readKeyFromBytePos(final long entry) throws IOException {
-		final int position = convertEntryToPosition(entry);
+
+		// The keys are stored in the index, no access to the sstable is needed
+		if(blockIndex) {
+			final IndexBlock indexBlock = getIndexBlock((int) (entry / entriesPerBlock));
+			return indexBlock.keys[(int) (entry % entriesPerBlock)];
+		}
+
+		final long position = convertEntryToPosition(entry);
 		return sstableReader.decodeOnlyKeyFromTupleAtPosition(position);
 	}
 
@@ -247,7 +353,7 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @throws StorageManagerException
 	 */
 	public Tuple getTupleForIndexEntry(final long entry) throws IOException, StorageManagerException {
-		final int position = convertEntryToPosition(entry);
+		final long position = convertEntryToPosition(entry);
 		return sstableReader.getTupleAtPosition(position);
 	}
 
@@ -257,24 +363,249 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @return
 	 * @throws IOException
 	 */
-	protected synchronized int convertEntryToPosition(final long entry) throws IOException {
+	protected long convertEntryToPosition(final long entry) throws IOException {
+		if(blockIndex) {
+			final IndexBlock indexBlock = getIndexBlock((int) (entry / entriesPerBlock));
+			return indexBlock.positions[(int) (entry % entriesPerBlock)];
+		}
+
+		if(! acquire()) {
+			throw new IOException("Unable to aquire");
+		}
+
+		try {
+			// Memory was unmapped
+			if(! serviceState.isInRunningState()) {
+				throw new IOException("Not in running state");
+			}
+
+			final long indexPosition = (entry * indexEntryBytes) + getFirstElementPosition();
+
+			if(indexEntryBytes == SSTableConst.INDEX_ENTRY_BYTES_V1) {
+				return memory.getInt(indexPosition);
+			}
+
+			return memory.getLong(indexPosition);
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Scan the index block for the positions of the key. The entries are 
+	 * decoded one by one until a bigger key is found.
+	 *
+	 * @param block
+	 * @param key
+	 * @param positions
+	 * @return false if the block contains a bigger key
+	 * @throws IOException
+	 */
+	protected boolean scanIndexBlock(final int block, final String key, 
+			final List<Long> positions) throws IOException {
+
+		if(! acquire()) {
+			throw new IOException("Unable to aquire");
+		}
+
+		try {
+			// Memory was unmapped
+			if(! serviceState.isInRunningState()) {
+				throw new IOException("Not in running state");
+			}
+
+			final int entries = getEntriesOfIndexBlock(block);
+
+			long position = blockPositions[block];
+			byte[] lastKey = new byte[0];
+
+			for(int i = 0; i < entries; i++) {
+				final int sharedBytes = memory.getShort(position) & 0xFFFF;
+				position += DataEncoderHelper.SHORT_BYTES;
+				final int suffixLength = memory.getShort(position) & 0xFFFF;
+				position += DataEncoderHelper.SHORT_BYTES;
+
+				final byte[] entryKey = new byte[sharedBytes + suffixLength];
+				System.arraycopy(lastKey, 0, entryKey, 0, sharedBytes);
+				memory.get(position, entryKey, sharedBytes, suffixLength);
+				position += suffixLength;
+
+				final int result = new String(entryKey, StandardCharsets.UTF_8).compareTo(key);
+
+				if(result == 0) {
+					positions.add(memory.getLong(position));
+				} else if(result > 0) {
+					return false;
+				}
+
+				position += DataEncoderHelper.LONG_BYTES;
+				lastKey = entryKey;
+			}
+
+			return true;
+		} finally {
+			release();
+		}
+	}
+
+	/**
+	 * Get the decoded index block
+	 * @param block
+	 * @return
+	 * @throws IOException
+	 */
+	protected IndexBlock getIndexBlock(final int block) throws IOException {
+		try {
+			return indexBlockCache.get(block);
+		} catch (ExecutionException e) {
+			throw new IOException("Unable to read index block " + block, e.getCause());
+		}
+	}
+
+	/**
+	 * Decode the given index block
+	 * @param block
+	 * @return
+	 * @throws IOException
+	 */
+	protected IndexBlock decodeIndexBlock(final int block) throws IOException {
+
 		if(! acquire()) {
 			throw new IOException("Unable to aquire");
 		}
 
-		// Memory was unmapped
-		if(! serviceState.isInRunningState()) {
-			throw new IOException("Not in running state");
+		try {
+			// Memory was unmapped
+			if(! serviceState.isInRunningState()) {
+				throw new IOException("Not in running state");
+			}
+
+			final int entries = getEntriesOfIndexBlock(block);
+			final IndexBlock indexBlock = new IndexBlock(entries);
+
+			long position = blockPositions[block];
+			byte[] lastKey = new byte[0];
+
+			for(int i = 0; i < entries; i++) {
+				final int sharedBytes = memory.getShort(position) & 0xFFFF;
+				position += DataEncoderHelper.SHORT_BYTES;
+				final int suffixLength = memory.getShort(position) & 0xFFFF;
+				position += DataEncoderHelper.SHORT_BYTES;
+
+				final byte[] key = new byte[sharedBytes + suffixLength];
+				System.arraycopy(lastKey, 0, key, 0, sharedBytes);
+				memory.get(position, key, sharedBytes, suffixLength);
+				position += suffixLength;
+
+				indexBlock.keys[i] = new String(key, StandardCharsets.UTF_8);
+				indexBlock.positions[i] = memory.getLong(position);
+				position += DataEncoderHelper.LONG_BYTES;
+
+				lastKey = key;
+			}
+
+			return indexBlock;
+		} finally {
+			release();
 		}
+	}
 
-		final byte[] magicBytes = getMagicBytes();
+	/**
+	 * Get the number of entries of the given index block
+	 * @param block
+	 * @return
+	 * @throws IOException
+	 */
+	private int getEntriesOfIndexBlock(final int block) throws IOException {
+		if(block < 0 || block >= blockPositions.length) {
+			throw new IOException("Unable to read index block " + block + " of " + blockPositions.length);
+		}
 
-		memory.position((int) ((entry * SSTableConst.INDEX_ENTRY_BYTES) + magicBytes.length));
-		final int position = memory.getInt();
+		return Math.min(entriesPerBlock, blockIndexEntries - (block * entriesPerBlock));
+	}
+
+	/**
+	 * Read the summary of a version 3 index file
+	 * @throws StorageManagerException
+	 */
+	protected void readSummary() throws StorageManagerException {
+		final long footerPosition = memory.size() - SSTableKeyIndexWriter.FOOTER_BYTES;
+
+		if(footerPosition < SSTableConst.MAGIC_BYTES_INDEX.length) {
+			throw new StorageManagerException("File " + file + " is too small to contain the index footer");
+		}
+
+		summaryPosition = memory.getLong(footerPosition);
+		final int blocks = memory.getInt(footerPosition + DataEncoderHelper.LONG_BYTES);
+		blockIndexEntries = memory.getInt(footerPosition + DataEncoderHelper.LONG_BYTES
+				+ DataEncoderHelper.INT_BYTES);
+		entriesPerBlock = memory.getInt(footerPosition + DataEncoderHelper.LONG_BYTES
+				+ 2 * DataEncoderHelper.INT_BYTES);
+
+		if(summaryPosition < SSTableConst.MAGIC_BYTES_INDEX.length || summaryPosition > footerPosition
+				|| blocks < 0 || blockIndexEntries < 0 || entriesPerBlock <= 0) {
+			throw new StorageManagerException("File " + file + " contains an invalid index footer");
+		}
+
+		blockFirstKeys = new String[blocks];
+		blockPositions = new long[blocks];
 
-		release();
+		long position = summaryPosition;
 
-		return position;
+		for(int block = 0; block < blocks; block++) {
+			blockPositions[block] = memory.getLong(position);
+			position += DataEncoderHelper.LONG_BYTES;
+			final int keyLength = memory.getShort(position) & 0xFFFF;
+			position += DataEncoderHelper.SHORT_BYTES;
+			final byte[] key = new byte[keyLength];
+			memory.get(position, key, 0, keyLength);
+			position += keyLength;
+			blockFirstKeys[block] = new String(key, StandardCharsets.UTF_8);
+		}
+
+		if(position != footerPosition) {
+			throw new StorageManagerException("File " + file + " contains an invalid index summary");
+		}
+
+		// Readers of different blocks (e.g., the compaction and queries) 
+		// don't evict each other's blocks
+		indexBlockCache = CacheBuilder.newBuilder()
+				.maximumSize(INDEX_BLOCK_CACHE_SIZE)
+				.build(new CacheLoader<Integer, IndexBlock>() {
+
+			@Override
+			public IndexBlock load(final Integer block) throws Exception {
+				return decodeIndexBlock(block);
+			}
+
+		});
+	}
+
+	/**
+	 * Validate the magic bytes and determine the version of the index file
+	 */
+	@Override
+	protected void validateFile() throws StorageManagerException {
+		final byte[] magicBytes = new byte[SSTableConst.MAGIC_BYTES_INDEX.length];
+
+		if(memory.size() < magicBytes.length) {
+			throw new StorageManagerException("File " + file + " is too small to contain the magic bytes");
+		}
+
+		memory.get(0, magicBytes, 0, magicBytes.length);
+
+		blockIndex = false;
+
+		if(Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_INDEX)) {
+			blockIndex = true;
+			readSummary();
+		} else if(Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_INDEX_V2)) {
+			indexEntryBytes = SSTableConst.INDEX_ENTRY_BYTES;
+		} else if(Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_INDEX_V1)) {
+			indexEntryBytes = SSTableConst.INDEX_ENTRY_BYTES_V1;
+		} else {
+			throw new StorageManagerException("File " + file + " does not contain the magic bytes");
+		}
 	}
 
 	/**
@@ -288,9 +619,13 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 				return 0;
 			}
 
+			if(blockIndex) {
+				return blockIndexEntries;
+			}
+
 			final byte[] magicBytes = getMagicBytes();
 
-			return (int) ((fileChannel.size() - magicBytes.length) / SSTableConst.INDEX_ENTRY_BYTES);
+			return (int) ((fileChannel.size() - magicBytes.length) / indexEntryBytes);
 		} catch (IOException e) {
 			logger.error("IO Exception while reading from index", e);
 		}
@@ -371,4 +706,25 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	protected byte[] getMagicBytes() {
 		return SSTableConst.MAGIC_BYTES_INDEX;
 	}
+
+	/**
+	 * A decoded block of the index
+	 */
+	protected static class IndexBlock {
+
+		/**
+		 * The keys of the block
+		 */
+		protected final String[] keys;
+
+		/**
+		 * The tuple positions of the block
+		 */
+		protected final long[] positions;
+
+		public IndexBlock(final int entries) {
+			this.keys = new String[entries];
+			this.positions = new long[entries];
+		}
+	}
 }
\ No newline at end of file
@@ -19,6 +19,9 @@ package org.bboxdb.storage.sstable.reader;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
 
 import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
@@ -26,10 +29,15 @@ import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableHelper;
+import org.bboxdb.storage.sstable.block.SSTableBlockCache;
+import org.bboxdb.storage.sstable.block.SSTableBlockIndex;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
 import org.bboxdb.storage.util.TupleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
 import io.prometheus.client.Counter;
 
 public class SSTableReader extends AbstractFileReader {
@@ -55,6 +63,30 @@ public class SSTableReader extends AbstractFileReader {
 			.name("bboxdb_read_tuple_bytes")
 			.help("Total read tuple bytes").register();
 	
+	/**
+	 * The size of the tuple header (key length, box length, data length, version and received timestamp)
+	 */
+	protected final static int TUPLE_HEADER_BYTES = DataEncoderHelper.SHORT_BYTES
+			+ DataEncoderHelper.INT_BYTES 
+			+ DataEncoderHelper.INT_BYTES 
+			+ DataEncoderHelper.LONG_BYTES 
+			+ DataEncoderHelper.LONG_BYTES;
+	
+	/**
+	 * The block index (block compressed SSTables only)
+	 */
+	protected SSTableBlockIndex blockIndex;
+	
+	/**
+	 * The compression of the blocks
+	 */
+	protected SSTableCompression compression = SSTableCompression.NONE;
+	
+	/**
+	 * The id of the blocks of this reader in the block cache
+	 */
+	protected long blockCacheId;
+	
 	/**
 	 * The Logger
 	 */
@@ -67,22 +99,32 @@ public class SSTableReader extends AbstractFileReader {
 	
 	/**
 	 * Scan the whole SSTable for the Tuple
+	 * 
+	 * The read methods of the reader use only absolute positions on the mapped 
+	 * memory, so they can be called by multiple threads without locking.
+	 * 
 	 * @param key
 	 * @return the tuple or null	
 	 * @throws StorageManagerException 
 	 */
-	public synchronized Tuple scanForTuple(final String key) throws StorageManagerException {
+	public Tuple scanForTuple(final String key) throws StorageManagerException {
 		logger.info("Scanning table " + tablenumber + " for " + key);
 
+		if(! acquire()) {
+			throw new StorageManagerException("Unable to aquire");
+		}
+		
 		try {
-			if(! acquire()) {
-				throw new IOException("Unable to aquire");
+			if(blockIndex != null) {
+				return scanBlocksForTuple(key);
 			}
 			
-			resetPosition();
+			long position = getFirstElementPosition();
 			
-			while(memory.hasRemaining()) {
-				final Tuple tuple = TupleHelper.decodeTuple(memory);
+			while(position < memory.size()) {
+				final int tupleSize = getEncodedTupleSize(position);
+				final Tuple tuple = TupleHelper.decodeTuple(memory.slice(position, tupleSize));
+				position = position + tupleSize;
 
 				// The keys are stored in lexicographical order. If the
 				// next key of the sstable is greater then our search key,
@@ -105,6 +147,35 @@ public class SSTableReader extends AbstractFileReader {
 		return null;
 	}
 	
+	/**
+	 * Scan the blocks of a block compressed SSTable for the tuple
+	 * @param key
+	 * @return the tuple or null
+	 * @throws IOException
+	 */
+	private Tuple scanBlocksForTuple(final String key) throws IOException {
+		for(int block = 0; block < blockIndex.getNumberOfBlocks(); block++) {
+			final ByteBuffer blockBuffer = getBlock(block);
+			int offset = 0;
+			
+			while(offset < blockBuffer.limit()) {
+				final ByteBuffer tupleBuffer = sliceTupleFromBlock(blockBuffer, offset);
+				offset = tupleBuffer.limit();
+				final Tuple tuple = TupleHelper.decodeTuple(tupleBuffer);
+				
+				if(tuple.getKey().compareTo(key) > 0) {
+					return null;
+				}
+				
+				if(tuple.getKey().equals(key)) {
+					return tuple;
+				}
+			}
+		}
+		
+		return null;
+	}
+	
 	/**
 	 * Get tuple at the given position
 	 * 
@@ -112,24 +183,21 @@ public class SSTableReader extends AbstractFileReader {
 	 * @return The tuple
 	 * @throws StorageManagerException
 	 */
-	public synchronized Tuple getTupleAtPosition(final int position) throws StorageManagerException {
+	public Tuple getTupleAtPosition(final long position) throws StorageManagerException {
+		
+		// The memory was unmapped
+		if(! acquire()) {
+			logger.warn("Read request to unmapped memory for relation: " + name);
+			return null;
+		}
 		
 		try {
-			// The memory was unmapped
-			if(! serviceState.isInRunningState()) {
-				logger.warn("Read request to unmapped memory for relation: " + name);
-				return null;
-			}
-			
-			acquire();
-			memory.position(position);
-			
-			final Tuple tuple = TupleHelper.decodeTuple(memory);
-			final int newPosition = memory.position();
-			final int readBytes = newPosition - position;
+			final ByteBuffer tupleBuffer = getTupleBuffer(position);
+			final int tupleSize = tupleBuffer.remaining();
+			final Tuple tuple = TupleHelper.decodeTuple(tupleBuffer);
 
 			readTuplesTotal.inc();
-			readTuplesBytes.inc(readBytes);
+			readTuplesBytes.inc(tupleSize);
 			
 			return tuple;
 		} catch (Exception e) {
@@ -148,26 +216,30 @@ public class SSTableReader extends AbstractFileReader {
 	 * @return
 	 * @throws IOException 
 	 */
-	public synchronized String decodeOnlyKeyFromTupleAtPosition(final int position) throws IOException {
+	public String decodeOnlyKeyFromTupleAtPosition(final long position) throws IOException {
 		
 		if(! acquire()) {
 			throw new IOException("Unable to aquire");
 		}
 		
 		try {
-			memory.position(position);
+			final byte[] keyBytes;
 			
-			final short keyLength = memory.getShort();
-	
-			final int sizeToSkip = DataEncoderHelper.INT_BYTES			// BBOX-Length
-					+ DataEncoderHelper.INT_BYTES 						// Data-Length
-					+ DataEncoderHelper.LONG_BYTES						// Version Timestamp
-					+ DataEncoderHelper.LONG_BYTES;						// Received Timetamp		
-			
-			memory.position(memory.position() + sizeToSkip);
-			
-			final byte[] keyBytes = new byte[keyLength];
-			memory.get(keyBytes, 0, keyBytes.length);
+			if(blockIndex == null) {
+				final short keyLength = memory.getShort(position);
+				
+				// The key follows the tuple header
+				keyBytes = new byte[keyLength];
+				memory.get(position + TUPLE_HEADER_BYTES, keyBytes, 0, keyBytes.length);
+			} else {
+				final ByteBuffer tupleBuffer = getTupleBuffer(position);
+				final int tupleStart = tupleBuffer.position();
+				final short keyLength = tupleBuffer.getShort(tupleStart);
+				
+				keyBytes = new byte[keyLength];
+				tupleBuffer.position(tupleStart + TUPLE_HEADER_BYTES);
+				tupleBuffer.get(keyBytes, 0, keyBytes.length);
+			}
 			
 			readTupleKeysTotal.inc();
 			
@@ -179,6 +251,102 @@ public class SSTableReader extends AbstractFileReader {
 		}
 	}
 	
+	/**
+	 * Get a buffer with the encoded tuple at the given position
+	 * @param position
+	 * @return
+	 * @throws IOException 
+	 */
+	protected ByteBuffer getTupleBuffer(final long position) throws IOException {
+		if(blockIndex == null) {
+			final int tupleSize = getEncodedTupleSize(position);
+			return memory.slice(position, tupleSize);
+		}
+		
+		final ByteBuffer blockBuffer = getBlock(SSTableBlockIndex.getBlock(position));
+		return sliceTupleFromBlock(blockBuffer, SSTableBlockIndex.getOffset(position));
+	}
+	
+	/**
+	 * Get a view on the tuple at the offset of the uncompressed block
+	 * @param blockBuffer
+	 * @param offset
+	 * @return
+	 * @throws IOException 
+	 */
+	protected ByteBuffer sliceTupleFromBlock(final ByteBuffer blockBuffer, final int offset) 
+			throws IOException {
+		
+		if(offset < 0 || offset + TUPLE_HEADER_BYTES > blockBuffer.limit()) {
+			throw new IOException("Invalid offset " + offset + " in block of size " + blockBuffer.limit());
+		}
+		
+		final short keyLength = blockBuffer.getShort(offset);
+		final int boxLength = blockBuffer.getInt(offset + DataEncoderHelper.SHORT_BYTES);
+		final int dataLength = blockBuffer.getInt(offset + DataEncoderHelper.SHORT_BYTES 
+				+ DataEncoderHelper.INT_BYTES);
+		
+		final long tupleEnd = (long) offset + TUPLE_HEADER_BYTES + keyLength + boxLength + dataLength;
+		
+		if(tupleEnd > blockBuffer.limit()) {
+			throw new IOException("Tuple at offset " + offset + " exceeds the block of size " 
+					+ blockBuffer.limit());
+		}
+		
+		final ByteBuffer view = blockBuffer.duplicate();
+		view.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		view.limit((int) tupleEnd);
+		view.position(offset);
+		return view;
+	}
+	
+	/**
+	 * Get the uncompressed block, the blocks are cached in the block cache
+	 * @param block
+	 * @return
+	 * @throws IOException
+	 */
+	protected ByteBuffer getBlock(final int block) throws IOException {
+		try {
+			return SSTableBlockCache.getInstance().getBlock(blockCacheId, block, () -> readBlock(block));
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			throw new IOException("Unable to read block " + block + " of " + file, e.getCause());
+		}
+	}
+	
+	/**
+	 * Read and decompress the block
+	 * @param block
+	 * @return
+	 * @throws IOException
+	 */
+	private ByteBuffer readBlock(final int block) throws IOException {
+		final long blockPosition = blockIndex.getPosition(block);
+		final byte[] compressedBytes = new byte[blockIndex.getCompressedLength(block)];
+		memory.get(blockPosition, compressedBytes, 0, compressedBytes.length);
+		
+		final byte[] uncompressedBytes = compression.decompress(compressedBytes, 
+				blockIndex.getUncompressedLength(block));
+		
+		final ByteBuffer blockBuffer = ByteBuffer.wrap(uncompressedBytes);
+		blockBuffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		return blockBuffer;
+	}
+	
+	/**
+	 * Get the size of the encoded tuple at the given position
+	 * @param position
+	 * @return
+	 */
+	protected int getEncodedTupleSize(final long position) {
+		final short keyLength = memory.getShort(position);
+		final int boxLength = memory.getInt(position + DataEncoderHelper.SHORT_BYTES);
+		final int dataLength = memory.getInt(position + DataEncoderHelper.SHORT_BYTES 
+				+ DataEncoderHelper.INT_BYTES);
+		
+		return TUPLE_HEADER_BYTES + keyLength + boxLength + dataLength;
+	}
+	
 	/**
 	 * Convert to string
 	 */
@@ -206,4 +374,65 @@ public class SSTableReader extends AbstractFileReader {
 	protected byte[] getMagicBytes() {
 		return SSTableConst.MAGIC_BYTES_SSTABLE;
 	}
+	
+	/**
+	 * Validate the magic bytes and read the block index of block compressed SSTables
+	 */
+	@Override
+	protected void validateFile() throws StorageManagerException {
+		final byte[] blockMagicBytes = SSTableConst.MAGIC_BYTES_SSTABLE_BLOCK;
+		
+		if(memory.size() >= blockMagicBytes.length + 1) {
+			final byte[] magicBytes = new byte[blockMagicBytes.length];
+			memory.get(0, magicBytes, 0, magicBytes.length);
+			
+			if(Arrays.equals(magicBytes, blockMagicBytes)) {
+				readBlockIndex();
+				return;
+			}
+		}
+		
+		blockIndex = null;
+		compression = SSTableCompression.NONE;
+		super.validateFile();
+	}
+
+	/**
+	 * Read the compression and the block index
+	 * @throws StorageManagerException
+	 */
+	private void readBlockIndex() throws StorageManagerException {
+		final int compressionPosition = SSTableConst.MAGIC_BYTES_SSTABLE_BLOCK.length;
+		final byte compressionOrdinal = memory.get(compressionPosition);
+		
+		if(compressionOrdinal <= 0 || compressionOrdinal >= SSTableCompression.values().length) {
+			throw new StorageManagerException("File " + file + " has an unknown compression: " 
+					+ compressionOrdinal);
+		}
+		
+		try {
+			compression = SSTableCompression.values()[compressionOrdinal];
+			blockIndex = SSTableBlockIndex.readFromMemory(memory, compressionPosition + 1);
+			blockCacheId = SSTableBlockCache.getInstance().getNextCacheId();
+		} catch (IOException e) {
+			throw new StorageManagerException("Unable to read the block index of " + file, e);
+		}
+	}
+	
+	@Override
+	public void shutdown() throws InterruptedException {
+		super.shutdown();
+		
+		if(blockIndex != null) {
+			SSTableBlockCache.getInstance().invalidate(blockCacheId);
+		}
+	}
+	
+	/**
+	 * Get the compression of the SSTable
+	 * @return
+	 */
+	public SSTableCompression getCompression() {
+		return compression;
+	}
 }
@@ -34,9 +34,25 @@ public class SpatialIndexBuilderFactory {
 	 * @return
 	 */
 	public static SpatialIndexBuilder getInstance() {
-
 		final BBoxDBConfiguration configuration = BBoxDBConfigurationManager.getConfiguration();
-		final String factoryClass = configuration.getStorageSpatialIndexBuilder();
+		return getInstance(configuration.getStorageSpatialIndexBuilder());
+	}
+	
+	/**
+	 * Get an instance of the configured factory for SSTables
+	 * @return
+	 */
+	public static SpatialIndexBuilder getSSTableInstance() {
+		final BBoxDBConfiguration configuration = BBoxDBConfigurationManager.getConfiguration();
+		return getInstance(configuration.getStorageSSTableSpatialIndexBuilder());
+	}
+
+	/**
+	 * Get an instance of the given class
+	 * @param factoryClass
+	 * @return
+	 */
+	private static SpatialIndexBuilder getInstance(final String factoryClass) {
 		
 		// Instance the classname
 		try {
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.spatialindex;
+
+/**
+ * A forward only cursor over the entries of a spatial index that 
+ * intersect a query region. The cursor is evaluated lazily; the 
+ * bounding box of an entry is only decoded when requested.
+ * 
+ * A cursor is not thread safe, but several cursors can be used 
+ * concurrently on one index.
+ */
+public interface SpatialIndexCursor {
+
+	/**
+	 * Move the cursor to the next matching entry
+	 * @return false if no further entry exists
+	 */
+	public boolean next();
+	
+	/**
+	 * Get the value (the tuple position) of the current entry
+	 * @return
+	 */
+	public long getValue();
+	
+	/**
+	 * Get the current entry. Creates a new object for each call.
+	 * @return
+	 */
+	public SpatialIndexEntry getEntry();
+}
@@ -29,14 +29,14 @@ public class SpatialIndexEntry implements BoundingBoxEntity {
 	/**
 	 * The key
 	 */
-	protected final int value;
+	protected final long value;
 	
 	/**
 	 * The bounding box
 	 */
 	protected final Hyperrectangle boundingBox;
 
-	public SpatialIndexEntry(final Hyperrectangle boundingBox, final int value) {
+	public SpatialIndexEntry(final Hyperrectangle boundingBox, final long value) {
 		this.value = value;
 		this.boundingBox = boundingBox;
 	}
@@ -45,7 +45,7 @@ public class SpatialIndexEntry implements BoundingBoxEntity {
 	 * Get the value
 	 * @return
 	 */
-	public int getValue() {
+	public long getValue() {
 		return value;
 	}
 	
@@ -96,7 +96,7 @@ public class SpatialIndexEntry implements BoundingBoxEntity {
 	 * @throws IOException
 	 */
 	public void writeToFile(final RandomAccessFile randomAccessFile) throws IOException {
-		final ByteBuffer keyBytes = DataEncoderHelper.intToByteBuffer(value);
+		final ByteBuffer keyBytes = DataEncoderHelper.longToByteBuffer(value);
 		randomAccessFile.write(keyBytes.array());
 
 		final byte[] boundingBoxBytes = boundingBox.toByteArray();		
@@ -113,14 +113,26 @@ public class SpatialIndexEntry implements BoundingBoxEntity {
 	 * @throws IOException 
 	 */
 	public static SpatialIndexEntry readFromFile(final RandomAccessFile randomAccessFile) throws IOException {
+		return readFromFile(randomAccessFile, DataEncoderHelper.LONG_BYTES);
+	}
+	
+	/**
+	 * Read the entry from the file
+	 * @param randomAccessFile
+	 * @param valueBytes - the size of the value (int for version 1 files, long otherwise)
+	 * @return
+	 * @throws IOException
+	 */
+	public static SpatialIndexEntry readFromFile(final RandomAccessFile randomAccessFile, 
+			final int valueBytes) throws IOException {
 
-		final byte[] keyBytes = new byte[DataEncoderHelper.INT_BYTES];
+		final byte[] keyBytes = new byte[valueBytes];
 		final byte[] boxLengthBytes = new byte[DataEncoderHelper.INT_BYTES];
 		
 		randomAccessFile.readFully(keyBytes, 0, keyBytes.length);
 		randomAccessFile.readFully(boxLengthBytes, 0, boxLengthBytes.length);
 
-		final int key = DataEncoderHelper.readIntFromByte(keyBytes);
+		final long key = decodeValue(keyBytes);
 		final int bboxLength = DataEncoderHelper.readIntFromByte(boxLengthBytes);
 
 		final byte[] bboxBytes = new byte[bboxLength];		
@@ -138,13 +150,26 @@ public class SpatialIndexEntry implements BoundingBoxEntity {
 	 * @throws IOException 
 	 */
 	public static SpatialIndexEntry readFromByteBuffer(final ByteBuffer buffer) throws IOException {
-		final byte[] keyBytes = new byte[DataEncoderHelper.INT_BYTES];
+		return readFromByteBuffer(buffer, DataEncoderHelper.LONG_BYTES);
+	}
+	
+	/**
+	 * Read the entry from the byte buffer
+	 * @param buffer
+	 * @param valueBytes - the size of the value (int for version 1 files, long otherwise)
+	 * @return
+	 * @throws IOException
+	 */
+	public static SpatialIndexEntry readFromByteBuffer(final ByteBuffer buffer, 
+			final int valueBytes) throws IOException {
+		
+		final byte[] keyBytes = new byte[valueBytes];
 		final byte[] boxLengthBytes = new byte[DataEncoderHelper.INT_BYTES];
 		
 		buffer.get(keyBytes, 0, keyBytes.length);
 		buffer.get(boxLengthBytes, 0, boxLengthBytes.length);
 
-		final int key = DataEncoderHelper.readIntFromByte(keyBytes);
+		final long key = decodeValue(keyBytes);
 		final int bboxLength = DataEncoderHelper.readIntFromByte(boxLengthBytes);
 
 		final byte[] bboxBytes = new byte[bboxLength];		
@@ -155,4 +180,16 @@ public class SpatialIndexEntry implements BoundingBoxEntity {
 		return new SpatialIndexEntry(boundingBox, key);
 	}
 
+	/**
+	 * Decode the value (int or long encoded)
+	 * @param valueBytes
+	 * @return
+	 */
+	private static long decodeValue(final byte[] valueBytes) {
+		if(valueBytes.length == DataEncoderHelper.INT_BYTES) {
+			return DataEncoderHelper.readIntFromByte(valueBytes);
+		}
+		
+		return DataEncoderHelper.readLongFromByte(valueBytes);
+	}
 }
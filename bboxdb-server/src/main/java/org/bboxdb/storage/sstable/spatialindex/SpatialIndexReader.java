@@ -19,6 +19,7 @@ package org.bboxdb.storage.sstable.spatialindex;
 
 import java.io.Closeable;
 import java.io.RandomAccessFile;
+import java.util.Iterator;
 import java.util.List;
 
 import org.bboxdb.commons.math.Hyperrectangle;
@@ -44,4 +45,42 @@ public interface SpatialIndexReader extends Closeable {
 	 * @return
 	 */
 	public List<SpatialIndexEntry> getEntriesForRegion(final Hyperrectangle boundingBox) throws StorageManagerException;
+	
+	/**
+	 * Get a lazy cursor over the entries for the given region
+	 * @param boundingBox
+	 * @return
+	 * @throws StorageManagerException
+	 */
+	public default SpatialIndexCursor getCursorForRegion(final Hyperrectangle boundingBox) 
+			throws StorageManagerException {
+		
+		final Iterator<SpatialIndexEntry> iterator = getEntriesForRegion(boundingBox).iterator();
+		
+		return new SpatialIndexCursor() {
+			
+			private SpatialIndexEntry entry;
+			
+			@Override
+			public boolean next() {
+				if(! iterator.hasNext()) {
+					entry = null;
+					return false;
+				}
+				
+				entry = iterator.next();
+				return true;
+			}
+			
+			@Override
+			public long getValue() {
+				return entry.getValue();
+			}
+			
+			@Override
+			public SpatialIndexEntry getEntry() {
+				return entry;
+			}
+		};
+	}
 }
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.spatialindex;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.StorageManagerException;
+
+/**
+ * A thread safe spatial index builder. The entries are distributed over
+ * several independent index stripes. Each stripe is guarded by its own
+ * lock, so concurrent inserts from different threads rarely contend.
+ */
+public class StripedSpatialIndexBuilder implements SpatialIndexBuilder {
+
+	/**
+	 * The index stripes
+	 */
+	private final SpatialIndexBuilder[] stripes;
+
+	/**
+	 * The locks of the stripes
+	 */
+	private final Object[] locks;
+
+	/**
+	 * The supplier for new stripes
+	 */
+	private final Supplier<SpatialIndexBuilder> stripeSupplier;
+
+	public StripedSpatialIndexBuilder(final int numberOfStripes,
+			final Supplier<SpatialIndexBuilder> stripeSupplier) {
+
+		if(numberOfStripes <= 0) {
+			throw new IllegalArgumentException("Unable to create an index with stripes: "
+					+ numberOfStripes);
+		}
+
+		this.stripeSupplier = stripeSupplier;
+		this.stripes = new SpatialIndexBuilder[numberOfStripes];
+		this.locks = new Object[numberOfStripes];
+
+		for(int i = 0; i < numberOfStripes; i++) {
+			stripes[i] = stripeSupplier.get();
+			locks[i] = new Object();
+		}
+	}
+
+	@Override
+	public boolean bulkInsert(final List<SpatialIndexEntry> elements) {
+		boolean result = true;
+
+		for(final SpatialIndexEntry entry : elements) {
+			final boolean insertResult = insert(entry);
+
+			if(! insertResult) {
+				result = false;
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Insert the entry into the stripe of the current thread
+	 */
+	@Override
+	public boolean insert(final SpatialIndexEntry element) {
+		final int stripe = (int) (Thread.currentThread().getId() % stripes.length);
+
+		synchronized (locks[stripe]) {
+			return stripes[stripe].insert(element);
+		}
+	}
+
+	/**
+	 * Merge all stripes into one index and write it
+	 */
+	@Override
+	public void writeToFile(final RandomAccessFile randomAccessFile) throws StorageManagerException {
+		final List<SpatialIndexEntry> allEntries = getEntriesForRegion(Hyperrectangle.FULL_SPACE);
+
+		final SpatialIndexBuilder mergedIndex = stripeSupplier.get();
+		mergedIndex.bulkInsert(allEntries);
+		mergedIndex.writeToFile(randomAccessFile);
+	}
+
+	@Override
+	public List<SpatialIndexEntry> getEntriesForRegion(final Hyperrectangle boundingBox) {
+		final List<SpatialIndexEntry> result = new ArrayList<>();
+
+		for(int i = 0; i < stripes.length; i++) {
+			synchronized (locks[i]) {
+				result.addAll(stripes[i].getEntriesForRegion(boundingBox));
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Remove all entries from the index
+	 */
+	public void clear() {
+		for(int i = 0; i < stripes.length; i++) {
+			synchronized (locks[i]) {
+				stripes[i] = stripeSupplier.get();
+			}
+		}
+	}
+
+	/**
+	 * Get the number of stripes
+	 * @return
+	 */
+	public int getNumberOfStripes() {
+		return stripes.length;
+	}
+}
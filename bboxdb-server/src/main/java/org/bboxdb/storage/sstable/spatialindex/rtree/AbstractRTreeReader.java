@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.Arrays;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexReader;
@@ -32,6 +33,11 @@ public abstract class AbstractRTreeReader implements SpatialIndexReader {
 	 */
 	protected int maxNodeSize;
 	
+	/**
+	 * The size of the child pointers and entry values (int for version 1 files, long otherwise)
+	 */
+	protected int pointerBytes = DataEncoderHelper.LONG_BYTES;
+	
 	/**
 	 * Get the max node size for the index
 	 * @return
@@ -53,9 +59,31 @@ public abstract class AbstractRTreeReader implements SpatialIndexReader {
 		final byte[] magicBytes = new byte[SSTableConst.MAGIC_BYTES_SPATIAL_RTREE_INDEX.length];
 		randomAccessFile.readFully(magicBytes, 0, SSTableConst.MAGIC_BYTES_SPATIAL_RTREE_INDEX.length);
 
-		if(! Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_SPATIAL_RTREE_INDEX)) {
+		if(Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_SPATIAL_RTREE_INDEX)) {
+			pointerBytes = DataEncoderHelper.LONG_BYTES;
+		} else if(Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_SPATIAL_RTREE_INDEX_V1)) {
+			pointerBytes = DataEncoderHelper.INT_BYTES;
+		} else {
 			throw new StorageManagerException("Spatial index file does not contain the magic bytes");
 		}
 	}
 	
+	/**
+	 * Decode a child pointer. Returns CHILD_NODE_POINTER_NOT_EXISTING if the 
+	 * pointer does not reference a child node.
+	 * 
+	 * @param pointerBytes
+	 * @return
+	 */
+	public static long decodeChildPointer(final byte[] pointerBytes) {
+		if(pointerBytes.length == DataEncoderHelper.INT_BYTES) {
+			if(Arrays.equals(pointerBytes, RTreeBuilder.MAGIC_CHILD_NODE_NOT_EXISTING)) {
+				return RTreeBuilder.CHILD_NODE_POINTER_NOT_EXISTING;
+			}
+			
+			return DataEncoderHelper.readIntFromByte(pointerBytes);
+		}
+		
+		return DataEncoderHelper.readLongFromByte(pointerBytes);
+	}
 }
@@ -60,6 +60,11 @@ public class RTreeBuilder implements SpatialIndexBuilder {
 	 */
 	public final static byte[] MAGIC_CHILD_NODE_FOLLOWING = {1, 0, 0, 0};
 
+	/**
+	 * The pointer value for a non existing child node
+	 */
+	public final static long CHILD_NODE_POINTER_NOT_EXISTING = -1;
+
 	/**
 	 * The size of the magic nodes in bytes
 	 */
@@ -348,6 +353,14 @@ public class RTreeBuilder implements SpatialIndexBuilder {
 		}
 	}
 
+	/**
+	 * Get the root node of the tree
+	 * @return
+	 */
+	public RTreeDirectoryNode getRootNode() {
+		return rootNode;
+	}
+
 	/**
 	 * Get the maximal node size
 	 * @return
@@ -43,7 +43,7 @@ public class RTreeMemoryReader extends AbstractRTreeReader {
 	 * 
 	 * Parent node -> Child Pointer
 	 */
-	protected Queue<Entry<RTreeDirectoryNode, Integer>> childToReadQueue = new LinkedTransferQueue<>();
+	protected Queue<Entry<RTreeDirectoryNode, Long>> childToReadQueue = new LinkedTransferQueue<>();
 	
 	
 	public RTreeMemoryReader() {
@@ -68,7 +68,7 @@ public class RTreeMemoryReader extends AbstractRTreeReader {
 			readDirectoryNode(randomAccessFile, null);
 						
 			while(! childToReadQueue.isEmpty()) {
-				final Entry<RTreeDirectoryNode, Integer> element = childToReadQueue.remove();
+				final Entry<RTreeDirectoryNode, Long> element = childToReadQueue.remove();
 				readDirectoryNode(randomAccessFile, element.getKey());
 			}
 			
@@ -126,17 +126,17 @@ public class RTreeMemoryReader extends AbstractRTreeReader {
 	protected void readDirectoryNodes(final RandomAccessFile randomAccessFile, final RTreeDirectoryNode node)
 			throws IOException {
 
-		final byte[] followingByte = new byte[RTreeBuilder.MAGIC_VALUE_SIZE];
+		final byte[] pointerBytes = new byte[this.pointerBytes];
 
 		for(int i = 0; i < maxNodeSize; i++) {
-			randomAccessFile.readFully(followingByte, 0, followingByte.length);
+			randomAccessFile.readFully(pointerBytes, 0, pointerBytes.length);
+			
+			final long childPointer = decodeChildPointer(pointerBytes);
 			
-			if(! Arrays.equals(followingByte, RTreeBuilder.MAGIC_CHILD_NODE_NOT_EXISTING)) {
-				final int childPointer = DataEncoderHelper.readIntFromByte(followingByte);
-				
+			if(childPointer != RTreeBuilder.CHILD_NODE_POINTER_NOT_EXISTING) {
 				// Add the pointer for later decoding
 				childToReadQueue.add(
-						new AbstractMap.SimpleImmutableEntry<RTreeDirectoryNode, Integer>(node, childPointer)
+						new AbstractMap.SimpleImmutableEntry<RTreeDirectoryNode, Long>(node, childPointer)
 				);
 			} 
 		}
@@ -155,7 +155,8 @@ public class RTreeMemoryReader extends AbstractRTreeReader {
 			randomAccessFile.readFully(followingByte, 0, followingByte.length);
 			
 			if(Arrays.equals(followingByte, RTreeBuilder.MAGIC_CHILD_NODE_FOLLOWING)) {
-				final SpatialIndexEntry spatialIndexEntry = SpatialIndexEntry.readFromFile(randomAccessFile);
+				final SpatialIndexEntry spatialIndexEntry 
+					= SpatialIndexEntry.readFromFile(randomAccessFile, pointerBytes);
 				rootNode.indexEntries.add(spatialIndexEntry);
 			} else if(! Arrays.equals(followingByte, RTreeBuilder.MAGIC_CHILD_NODE_NOT_EXISTING)) {
 				throw new IllegalArgumentException("Unknown node type following: " + followingByte);
@@ -47,12 +47,12 @@ public class RTreeSerializer {
 	/**
 	 * The node start position
 	 */
-	protected final Map<RTreeDirectoryNode, Integer> nodeStartPosition = new HashMap<>();
+	protected final Map<RTreeDirectoryNode, Long> nodeStartPosition = new HashMap<>();
 
 	/**
 	 * The node start child nodes position
 	 */
-	protected final Map<RTreeDirectoryNode, Integer> nodeFixedEndPosition = new HashMap<>();
+	protected final Map<RTreeDirectoryNode, Long> nodeFixedEndPosition = new HashMap<>();
 
 	/**
 	 * The nodes queue
@@ -103,16 +103,16 @@ public class RTreeSerializer {
 	 */
 	protected void updateIndexNodePointer(final RandomAccessFile randomAccessFile) throws IOException {
 		
-		for(final Entry<RTreeDirectoryNode, Integer> entry : nodeFixedEndPosition.entrySet()) {
+		for(final Entry<RTreeDirectoryNode, Long> entry : nodeFixedEndPosition.entrySet()) {
 			final RTreeDirectoryNode node = entry.getKey();
-			final int bytePos = entry.getValue();
+			final long bytePos = entry.getValue();
 			
 			// Seek to the first pointer
 			randomAccessFile.seek(bytePos);
 			
 			for(final RTreeDirectoryNode child : node.getDirectoryNodeChilds()) {
-				final Integer childNodePosition = nodeStartPosition.get(child);
-				final ByteBuffer childNodePointer = DataEncoderHelper.intToByteBuffer(childNodePosition);
+				final Long childNodePosition = nodeStartPosition.get(child);
+				final ByteBuffer childNodePointer = DataEncoderHelper.longToByteBuffer(childNodePosition);
 				
 				// Override node pointer placeholder
 				randomAccessFile.write(childNodePointer.array());
@@ -131,7 +131,7 @@ public class RTreeSerializer {
 			throws IOException {
 
 		// Node data
-		nodeStartPosition.put(node, (int) randomAccessFile.getFilePointer());
+		nodeStartPosition.put(node, randomAccessFile.getFilePointer());
 		final ByteBuffer nodeIdBytes = DataEncoderHelper.intToByteBuffer(node.getNodeId());
 		randomAccessFile.write(nodeIdBytes.array());
 		
@@ -143,7 +143,7 @@ public class RTreeSerializer {
 
 		// Write entry nodes
 		writeEntryNodes(randomAccessFile, node);
-		nodeFixedEndPosition.put(node, (int) randomAccessFile.getFilePointer());
+		nodeFixedEndPosition.put(node, randomAccessFile.getFilePointer());
 
 		// Write directory nodes
 		addDirectoryNodesToQueue(randomAccessFile, node);		
@@ -185,7 +185,9 @@ public class RTreeSerializer {
 			}
 			
 			// Existing pointer will be written in a second step
-			randomAccessFile.write(RTreeBuilder.MAGIC_CHILD_NODE_NOT_EXISTING);
+			final ByteBuffer pointerPlaceholder 
+				= DataEncoderHelper.longToByteBuffer(RTreeBuilder.CHILD_NODE_POINTER_NOT_EXISTING);
+			randomAccessFile.write(pointerPlaceholder.array());
 		}
 	}
 	
@@ -0,0 +1,217 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.spatialindex.rtree;
+
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+
+import com.google.common.collect.Lists;
+
+/**
+ * A packed R-tree that is built with the Sort-Tile-Recursive (STR) algorithm. 
+ * 
+ * The entries are collected and the tree is built bottom up when it is 
+ * written or queried. All nodes except the last node of each level are full 
+ * and the nodes of one level do not overlap for point data. The builder is 
+ * intended for write once structures like SSTables; frequent queries 
+ * between inserts cause the tree to be rebuilt.
+ */
+public class STRTreeBuilder extends RTreeBuilder {
+
+	/**
+	 * The entries of the tree
+	 */
+	protected final List<SpatialIndexEntry> entries;
+
+	/**
+	 * Is the tree built from all entries
+	 */
+	protected boolean treeValid;
+
+	public STRTreeBuilder() {
+		this(DEFAULT_NODE_SIZE);
+	}
+
+	public STRTreeBuilder(final int maxNodeSize) {
+		super(maxNodeSize);
+
+		if(maxNodeSize < 2) {
+			throw new IllegalArgumentException("Unable to construct an index with max node size: "
+					+ maxNodeSize);
+		}
+
+		this.entries = new ArrayList<>();
+		this.treeValid = true;
+	}
+
+	@Override
+	public boolean insert(final SpatialIndexEntry entry) {
+
+		if(entry.getBoundingBox() == null) {
+			return false;
+		}
+
+		entries.add(entry);
+		treeValid = false;
+
+		return true;
+	}
+
+	@Override
+	public void writeToFile(final RandomAccessFile randomAccessFile) throws StorageManagerException {
+		buildTree();
+		super.writeToFile(randomAccessFile);
+	}
+
+	@Override
+	public List<? extends SpatialIndexEntry> getEntriesForRegion(final Hyperrectangle boundingBox) {
+		buildTree();
+		return super.getEntriesForRegion(boundingBox);
+	}
+
+	@Override
+	public RTreeDirectoryNode getRootNode() {
+		buildTree();
+		return super.getRootNode();
+	}
+
+	@Override
+	public void testCovering() {
+		buildTree();
+		super.testCovering();
+	}
+
+	/**
+	 * Build the tree bottom up from the collected entries
+	 */
+	protected void buildTree() {
+
+		if(treeValid) {
+			return;
+		}
+
+		List<RTreeDirectoryNode> level = new ArrayList<>();
+
+		for(final List<SpatialIndexEntry> group : tile(entries, SpatialIndexEntry::getBoundingBox)) {
+			final RTreeDirectoryNode node = nodeFactory.buildDirectoryNode();
+			node.getIndexEntries().addAll(group);
+			node.updateBoundingBox();
+			level.add(node);
+		}
+
+		while(level.size() > 1) {
+			final List<RTreeDirectoryNode> nextLevel = new ArrayList<>();
+
+			for(final List<RTreeDirectoryNode> group : tile(level, RTreeDirectoryNode::getBoundingBox)) {
+				final RTreeDirectoryNode node = nodeFactory.buildDirectoryNode();
+
+				for(final RTreeDirectoryNode child : group) {
+					node.addDirectoryNodeChild(child);
+					child.setParentNode(node);
+				}
+
+				node.updateBoundingBox();
+				nextLevel.add(node);
+			}
+
+			level = nextLevel;
+		}
+
+		if(level.isEmpty()) {
+			rootNode = nodeFactory.buildDirectoryNode();
+			rootNode.updateBoundingBox();
+		} else {
+			rootNode = level.get(0);
+		}
+
+		treeValid = true;
+	}
+
+	/**
+	 * Group the elements into nodes with the Sort-Tile-Recursive algorithm
+	 * 
+	 * @param elements
+	 * @param boxFunction
+	 * @return
+	 */
+	protected <T> List<List<T>> tile(final List<T> elements, final Function<T, Hyperrectangle> boxFunction) {
+		final int dimensions = elements.stream()
+				.mapToInt(e -> boxFunction.apply(e).getDimension())
+				.max()
+				.orElse(0);
+
+		final List<T> elementsToTile = new ArrayList<>(elements);
+		final List<List<T>> result = new ArrayList<>();
+		tile(elementsToTile, 0, Math.max(1, dimensions), boxFunction, result);
+
+		return result;
+	}
+
+	/**
+	 * Sort the elements by the given dimension, cut them into slices and 
+	 * tile each slice by the next dimension
+	 * 
+	 * @param elements
+	 * @param dimension
+	 * @param dimensions
+	 * @param boxFunction
+	 * @param result
+	 */
+	private <T> void tile(final List<T> elements, final int dimension, final int dimensions,
+			final Function<T, Hyperrectangle> boxFunction, final List<List<T>> result) {
+
+		elements.sort(Comparator.comparingDouble(e -> getCenter(boxFunction.apply(e), dimension)));
+
+		// Last dimension, build the nodes
+		if(dimension == dimensions - 1) {
+			result.addAll(Lists.partition(elements, maxNodeSize));
+			return;
+		}
+
+		final int nodes = (int) Math.ceil((double) elements.size() / maxNodeSize);
+		final int slices = (int) Math.ceil(Math.pow(nodes, 1.0 / (dimensions - dimension)));
+		final int sliceSize = (int) Math.ceil((double) nodes / slices) * maxNodeSize;
+
+		for(int start = 0; start < elements.size(); start += sliceSize) {
+			final int end = Math.min(start + sliceSize, elements.size());
+			tile(elements.subList(start, end), dimension + 1, dimensions, boxFunction, result);
+		}
+	}
+
+	/**
+	 * Get the center of the bounding box in the given dimension
+	 * @param boundingBox
+	 * @param dimension
+	 * @return
+	 */
+	private static double getCenter(final Hyperrectangle boundingBox, final int dimension) {
+
+		if(dimension >= boundingBox.getDimension()) {
+			return 0;
+		}
+
+		return (boundingBox.getCoordinateLow(dimension) + boundingBox.getCoordinateHigh(dimension)) / 2.0;
+	}
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.spatialindex.rtree.mmf;
+
+import java.util.Arrays;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.commons.io.SegmentedMappedFile;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexCursor;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
+
+/**
+ * A cursor that traverses the R-tree directly on the mapped index file. 
+ * 
+ * The bounding boxes of the nodes and entries are stored as a flat 
+ * sequence of doubles (low, high for each dimension), so the intersection 
+ * is tested on the primitive values in the mapped memory. No objects are 
+ * created per visited node or per matching entry. 
+ */
+public class RTreeMMFCursor implements SpatialIndexCursor {
+	
+	/**
+	 * The mapped memory
+	 */
+	private final SegmentedMappedFile memory;
+	
+	/**
+	 * The max node size
+	 */
+	private final int maxNodeSize;
+	
+	/**
+	 * The size of the child pointers and entry values
+	 */
+	private final int pointerBytes;
+	
+	/**
+	 * The dimension of the query box (0 = full space)
+	 */
+	private final int queryDimension;
+	
+	/**
+	 * The low coordinates of the query box
+	 */
+	private final double[] queryLow;
+	
+	/**
+	 * The high coordinates of the query box
+	 */
+	private final double[] queryHigh;
+	
+	/**
+	 * Are the low points of the query box included
+	 */
+	private final boolean[] queryLowIncluded;
+	
+	/**
+	 * Are the high points of the query box included
+	 */
+	private final boolean[] queryHighIncluded;
+	
+	/**
+	 * The positions of the nodes to read
+	 */
+	private long[] nodeStack;
+	
+	/**
+	 * The number of nodes on the stack
+	 */
+	private int nodeStackSize;
+	
+	/**
+	 * The position of the next entry slot in the current node
+	 */
+	private long entryPosition;
+	
+	/**
+	 * The remaining entry slots of the current node
+	 */
+	private int remainingSlots;
+	
+	/**
+	 * Is a node open (the child pointers are not processed)
+	 */
+	private boolean nodeOpen;
+	
+	/**
+	 * The value of the current entry
+	 */
+	private long currentValue;
+	
+	/**
+	 * The position of the bounding box of the current entry
+	 */
+	private long currentBoxPosition;
+	
+	/**
+	 * The length of the bounding box of the current entry
+	 */
+	private int currentBoxLength;
+	
+	/**
+	 * The magic value for a following entry
+	 */
+	private final static int MAGIC_CHILD_NODE_FOLLOWING 
+		= DataEncoderHelper.readIntFromByte(RTreeBuilder.MAGIC_CHILD_NODE_FOLLOWING);
+	
+	/**
+	 * The magic value for a not existing entry (and a not existing v1 pointer)
+	 */
+	private final static int MAGIC_CHILD_NODE_NOT_EXISTING 
+		= DataEncoderHelper.readIntFromByte(RTreeBuilder.MAGIC_CHILD_NODE_NOT_EXISTING);
+
+	public RTreeMMFCursor(final SegmentedMappedFile memory, final long rootNodePosition, 
+			final int maxNodeSize, final int pointerBytes, final Hyperrectangle queryBox) {
+		
+		this.memory = memory;
+		this.maxNodeSize = maxNodeSize;
+		this.pointerBytes = pointerBytes;
+		this.queryDimension = queryBox.getDimension();
+		this.queryLow = new double[queryDimension];
+		this.queryHigh = new double[queryDimension];
+		this.queryLowIncluded = new boolean[queryDimension];
+		this.queryHighIncluded = new boolean[queryDimension];
+		
+		for(int d = 0; d < queryDimension; d++) {
+			queryLow[d] = queryBox.getCoordinateLow(d);
+			queryHigh[d] = queryBox.getCoordinateHigh(d);
+			queryLowIncluded[d] = queryBox.isLowPointIncluded(d);
+			queryHighIncluded[d] = queryBox.isHighPointIncluded(d);
+		}
+		
+		this.nodeStack = new long[16];
+		this.nodeStack[0] = rootNodePosition;
+		this.nodeStackSize = 1;
+		this.remainingSlots = 0;
+		this.nodeOpen = false;
+	}
+
+	@Override
+	public boolean next() {
+		
+		while(true) {
+			
+			// Scan the entries of the current node
+			while(remainingSlots > 0) {
+				remainingSlots--;
+				
+				final int magic = memory.getInt(entryPosition);
+				entryPosition += RTreeBuilder.MAGIC_VALUE_SIZE;
+				
+				if(magic == MAGIC_CHILD_NODE_NOT_EXISTING) {
+					continue;
+				}
+				
+				if(magic != MAGIC_CHILD_NODE_FOLLOWING) {
+					throw new IllegalArgumentException("Unknown node type following: " + magic);
+				}
+				
+				// Entry: value, bounding box length, bounding box
+				final long valuePosition = entryPosition;
+				final int boxLength = memory.getInt(valuePosition + pointerBytes);
+				final long boxPosition = valuePosition + pointerBytes + DataEncoderHelper.INT_BYTES;
+				entryPosition = boxPosition + boxLength;
+				
+				if(intersects(boxPosition, boxLength)) {
+					currentValue = readValue(valuePosition);
+					currentBoxPosition = boxPosition;
+					currentBoxLength = boxLength;
+					return true;
+				}
+			}
+			
+			// The entry slots are followed by the child pointers
+			if(nodeOpen) {
+				pushChildNodes(entryPosition);
+				nodeOpen = false;
+			}
+			
+			if(nodeStackSize == 0) {
+				return false;
+			}
+			
+			nodeStackSize--;
+			openNode(nodeStack[nodeStackSize]);
+		}
+	}
+
+	/**
+	 * Open the node, if the bounding box intersects the query box
+	 * @param nodePosition
+	 */
+	private void openNode(final long nodePosition) {
+		// Node id, bounding box length, bounding box
+		final int boxLength = memory.getInt(nodePosition + DataEncoderHelper.INT_BYTES);
+		final long boxPosition = nodePosition + 2 * DataEncoderHelper.INT_BYTES;
+		
+		if(! intersects(boxPosition, boxLength)) {
+			return;
+		}
+		
+		entryPosition = boxPosition + boxLength;
+		remainingSlots = maxNodeSize;
+		nodeOpen = true;
+	}
+	
+	/**
+	 * Push the child nodes of the current node onto the stack
+	 * @param pointerPosition
+	 */
+	private void pushChildNodes(final long pointerPosition) {
+		
+		for(int i = 0; i < maxNodeSize; i++) {
+			final long childPointer = readPointer(pointerPosition + i * pointerBytes);
+			
+			if(childPointer == RTreeBuilder.CHILD_NODE_POINTER_NOT_EXISTING) {
+				continue;
+			}
+			
+			assert (childPointer > 0) : "Child pointer needs to be > 0 " + childPointer;
+			
+			if(nodeStackSize == nodeStack.length) {
+				nodeStack = Arrays.copyOf(nodeStack, nodeStack.length * 2);
+			}
+			
+			nodeStack[nodeStackSize] = childPointer;
+			nodeStackSize++;
+		}
+	}
+	
+	/**
+	 * Test the stored bounding box for an intersection with the query box
+	 * @param boxPosition
+	 * @param boxLength
+	 * @return
+	 */
+	private boolean intersects(final long boxPosition, final int boxLength) {
+		
+		// The full space intersects everything
+		if(queryDimension == 0 || boxLength == 0) {
+			return true;
+		}
+		
+		final int dimension = boxLength / (2 * DataEncoderHelper.DOUBLE_BYTES);
+		
+		if(dimension != queryDimension) {
+			return false;
+		}
+		
+		long position = boxPosition;
+		
+		for(int d = 0; d < dimension; d++) {
+			final double low = memory.getDouble(position);
+			final double high = memory.getDouble(position + DataEncoderHelper.DOUBLE_BYTES);
+			position += 2 * DataEncoderHelper.DOUBLE_BYTES;
+			
+			// Stored boxes always include their end points
+			if(queryLowIncluded[d] ? high < queryLow[d] : high <= queryLow[d]) {
+				return false;
+			}
+			
+			if(queryHighIncluded[d] ? low > queryHigh[d] : low >= queryHigh[d]) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Read a entry value (int for version 1 files, long otherwise)
+	 * @param position
+	 * @return
+	 */
+	private long readValue(final long position) {
+		if(pointerBytes == DataEncoderHelper.INT_BYTES) {
+			return memory.getInt(position);
+		}
+		
+		return memory.getLong(position);
+	}
+	
+	/**
+	 * Read a child pointer (int for version 1 files, long otherwise)
+	 * @param position
+	 * @return
+	 */
+	private long readPointer(final long position) {
+		if(pointerBytes == DataEncoderHelper.INT_BYTES) {
+			final int pointer = memory.getInt(position);
+			
+			if(pointer == MAGIC_CHILD_NODE_NOT_EXISTING) {
+				return RTreeBuilder.CHILD_NODE_POINTER_NOT_EXISTING;
+			}
+			
+			return pointer;
+		}
+		
+		return memory.getLong(position);
+	}
+
+	@Override
+	public long getValue() {
+		return currentValue;
+	}
+
+	@Override
+	public SpatialIndexEntry getEntry() {
+		final byte[] boxBytes = new byte[currentBoxLength];
+		memory.get(currentBoxPosition, boxBytes, 0, boxBytes.length);
+		return new SpatialIndexEntry(Hyperrectangle.fromByteArray(boxBytes), currentValue);
+	}
+}
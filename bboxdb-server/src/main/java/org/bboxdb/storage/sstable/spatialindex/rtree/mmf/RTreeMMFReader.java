@@ -19,19 +19,15 @@ package org.bboxdb.storage.sstable.spatialindex.rtree.mmf;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.LinkedTransferQueue;
-import java.util.stream.Collectors;
 
 import org.bboxdb.commons.io.DataEncoderHelper;
-import org.bboxdb.commons.io.UnsafeMemoryHelper;
+import org.bboxdb.commons.io.SegmentedMappedFile;
 import org.bboxdb.commons.math.Hyperrectangle;
-import org.bboxdb.misc.Const;
 import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexCursor;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
 import org.bboxdb.storage.sstable.spatialindex.rtree.AbstractRTreeReader;
 import org.slf4j.Logger;
@@ -42,7 +38,7 @@ public class RTreeMMFReader extends AbstractRTreeReader {
 	/**
 	 * The mapped memory
 	 */
-	private MappedByteBuffer memory;
+	private SegmentedMappedFile memory;
 	
 	/**
 	 * The file channel
@@ -52,7 +48,7 @@ public class RTreeMMFReader extends AbstractRTreeReader {
 	/**
 	 * The position of the first node
 	 */
-	private int firstNodePos;
+	private long firstNodePos;
 	
 	/**
 	 * The Logger
@@ -67,12 +63,10 @@ public class RTreeMMFReader extends AbstractRTreeReader {
 			validateStream(randomAccessFile);
 			maxNodeSize = DataEncoderHelper.readIntFromDataInput(randomAccessFile);
 			
-			firstNodePos = (int) randomAccessFile.getFilePointer();
+			firstNodePos = randomAccessFile.getFilePointer();
 			
 			fileChannel = randomAccessFile.getChannel();
-			final long size = fileChannel.size();
-			memory = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
-			memory.order(Const.APPLICATION_BYTE_ORDER);
+			memory = new SegmentedMappedFile(fileChannel);
 		} catch (IOException e) {
 			throw new StorageManagerException(e);
 		}
@@ -82,7 +76,7 @@ public class RTreeMMFReader extends AbstractRTreeReader {
 	public void close() {
 		
 		if(memory != null) {
-			UnsafeMemoryHelper.unmapMemory(memory);
+			memory.close();
 			memory = null;
 		}
 		
@@ -97,39 +91,28 @@ public class RTreeMMFReader extends AbstractRTreeReader {
 	}
 
 	@Override
-	public synchronized List<SpatialIndexEntry> getEntriesForRegion(final Hyperrectangle boundingBox) 
+	public List<SpatialIndexEntry> getEntriesForRegion(final Hyperrectangle boundingBox) 
 			throws StorageManagerException {
 		
 		final List<SpatialIndexEntry> resultList = new ArrayList<>();
-		final Queue<Integer> readTasks = new LinkedTransferQueue<>();
-		readTasks.add(firstNodePos);
+		final SpatialIndexCursor cursor = getCursorForRegion(boundingBox);
 		
-		try {
-			
-			while(! readTasks.isEmpty()) {
-			
-				final int position = readTasks.remove();
-				memory.position(position);
-				final DirectoryNode directoryNode = new DirectoryNode();
-				directoryNode.initFromByteBuffer(memory, maxNodeSize);
-				
-				if(directoryNode.getBoundingBox().intersects(boundingBox)) {
-					readTasks.addAll(directoryNode.getChildNodes());
-					
-					final List<SpatialIndexEntry> foundEntries = 
-						directoryNode.getIndexEntries()
-						.stream()
-						.filter(e -> e.getBoundingBox().intersects(boundingBox))
-						.collect(Collectors.toList());
-					
-					resultList.addAll(foundEntries);
-				}
-			}
-			
-			return resultList;
-		} catch (IOException e) {
-			throw new StorageManagerException(e);
+		while(cursor.next()) {
+			resultList.add(cursor.getEntry());
 		}
+		
+		return resultList;
+	}
+	
+	@Override
+	public SpatialIndexCursor getCursorForRegion(final Hyperrectangle boundingBox) 
+			throws StorageManagerException {
+		
+		if(memory == null) {
+			throw new StorageManagerException("The spatial index is not open");
+		}
+		
+		return new RTreeMMFCursor(memory, firstNodePos, maxNodeSize, pointerBytes, boundingBox);
 	}
 
 }
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.transfer;
+
+import org.bboxdb.storage.entity.TupleStoreName;
+
+public class SSTableTransfer {
+
+	/**
+	 * The destination table
+	 */
+	private final TupleStoreName table;
+	
+	/**
+	 * The id of the transfer
+	 */
+	private final String transferId;
+
+	public SSTableTransfer(final TupleStoreName table, final String transferId) {
+		this.table = table;
+		this.transferId = transferId;
+	}
+
+	/**
+	 * Get the destination table
+	 * @return
+	 */
+	public TupleStoreName getTable() {
+		return table;
+	}
+
+	/**
+	 * Get the id of the transfer
+	 * @return
+	 */
+	public String getTransferId() {
+		return transferId;
+	}
+
+	@Override
+	public String toString() {
+		return "SSTableTransfer [table=" + table + ", transferId=" + transferId + "]";
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((table == null) ? 0 : table.hashCode());
+		result = prime * result + ((transferId == null) ? 0 : transferId.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SSTableTransfer other = (SSTableTransfer) obj;
+		if (table == null) {
+			if (other.table != null)
+				return false;
+		} else if (!table.equals(other.table))
+			return false;
+		if (transferId == null) {
+			if (other.transferId != null)
+				return false;
+		} else if (!transferId.equals(other.transferId))
+			return false;
+		return true;
+	}
+}
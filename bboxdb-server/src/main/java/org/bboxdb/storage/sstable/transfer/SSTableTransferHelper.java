@@ -0,0 +1,67 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+public class SSTableTransferHelper {
+	
+	/**
+	 * The table number of a SSTable in a transfer directory
+	 */
+	public final static int TRANSFER_TABLE_NUMBER = 0;
+	
+	/**
+	 * The valid transfer ids (the id is used as directory name)
+	 */
+	private final static Pattern TRANSFER_ID_PATTERN = Pattern.compile("[a-zA-Z0-9_\\-]{1,128}");
+	
+	/**
+	 * Is the given transfer id valid
+	 * @param transferId
+	 * @return
+	 */
+	public static boolean isTransferIdValid(final String transferId) {
+		return TRANSFER_ID_PATTERN.matcher(transferId).matches();
+	}
+
+	/**
+	 * Calculate the CRC32 checksum of the given file
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public static long calculateChecksum(final File file) throws IOException {
+		final CRC32 crc32 = new CRC32();
+		final byte[] buffer = new byte[64 * 1024];
+		
+		try(final InputStream inputStream = new FileInputStream(file)) {
+			int read = 0;
+			while((read = inputStream.read(buffer)) != -1) {
+				crc32.update(buffer, 0, read);
+			}
+		}
+		
+		return crc32.getValue();
+	}
+}
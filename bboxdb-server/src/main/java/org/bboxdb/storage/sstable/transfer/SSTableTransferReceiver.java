@@ -0,0 +1,476 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.transfer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+
+import org.bboxdb.commons.RejectedException;
+import org.bboxdb.commons.io.FileUtil;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableConst;
+import org.bboxdb.storage.sstable.SSTableFileType;
+import org.bboxdb.storage.sstable.reader.SSTableFacade;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistryHelper;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+
+public class SSTableTransferReceiver {
+	
+	/**
+	 * The storage registry
+	 */
+	private final TupleStoreManagerRegistry storageRegistry;
+	
+	/**
+	 * The locks for the transfers
+	 */
+	private final static Striped<Lock> transferLocks = Striped.lock(64);
+	
+	/**
+	 * The SSTables of the recently committed transfers. The SSTables are 
+	 * removed when the commit is rolled back (e.g., a bulk load failed on 
+	 * another system).
+	 */
+	private final static Cache<String, SSTableFacade> adoptedTransfers = CacheBuilder.newBuilder()
+			.expireAfterWrite(1, TimeUnit.HOURS)
+			.build();
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(SSTableTransferReceiver.class);
+
+	public SSTableTransferReceiver(final TupleStoreManagerRegistry storageRegistry) {
+		this.storageRegistry = storageRegistry;
+	}
+	
+	/**
+	 * Receive a chunk of a file. The chunk is only written, if it starts at the end of 
+	 * the already received data. Otherwise, it is ignored, so a sender can resume a 
+	 * transfer at the returned position.
+	 * 
+	 * @param table
+	 * @param transferId
+	 * @param fileType
+	 * @param offset
+	 * @param fileLength
+	 * @param checksum
+	 * @param data
+	 * @return The amount of received bytes of the file
+	 * @throws StorageManagerException
+	 */
+	public long receiveChunk(final TupleStoreName table, final String transferId, 
+			final SSTableFileType fileType, final long offset, final long fileLength, 
+			final long checksum, final byte[] data) throws StorageManagerException {
+		
+		final String transferDir = getTransferDirectory(table, transferId);
+		
+		final File file = new File(fileType.getFilename(transferDir, table, 
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER));
+		
+		final File partFile = new File(file.getAbsolutePath() + SSTableConst.TRANSFER_PART_SUFFIX);
+		
+		final Lock lock = transferLocks.get(transferId);
+		lock.lock();
+		
+		try {
+			if(file.exists()) {
+				return file.length();
+			}
+			
+			final File parentDir = partFile.getParentFile();
+			
+			if(! parentDir.isDirectory() && ! parentDir.mkdirs()) {
+				throw new StorageManagerException("Unable to create transfer dir: " + parentDir);
+			}
+			
+			final long receivedBytes = partFile.exists() ? partFile.length() : 0;
+			
+			if(offset != receivedBytes) {
+				logger.debug("Ignoring chunk for {} at {}, received bytes are {}", 
+						partFile, offset, receivedBytes);
+				return receivedBytes;
+			}
+			
+			if(receivedBytes + data.length > fileLength) {
+				partFile.delete();
+				throw new StorageManagerException("Got more data than expected for " + partFile);
+			}
+			
+			try(final OutputStream outputStream = new FileOutputStream(partFile, true)) {
+				outputStream.write(data);
+			}
+			
+			final long totalBytes = receivedBytes + data.length;
+			
+			if(totalBytes == fileLength) {
+				finishFile(partFile, file, checksum);
+			}
+			
+			return totalBytes;
+		} catch (IOException e) {
+			throw new StorageManagerException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Verify the checksum and finish the file
+	 * 
+	 * @param partFile
+	 * @param file
+	 * @param checksum
+	 * @throws IOException
+	 * @throws StorageManagerException
+	 */
+	private void finishFile(final File partFile, final File file, final long checksum) 
+			throws IOException, StorageManagerException {
+		
+		final long fileChecksum = SSTableTransferHelper.calculateChecksum(partFile);
+		
+		if(fileChecksum != checksum) {
+			partFile.delete();
+			throw new StorageManagerException("Checksum mismatch for " + file 
+					+ " expected " + checksum + " got " + fileChecksum);
+		}
+		
+		if(! partFile.renameTo(file)) {
+			throw new StorageManagerException("Unable to rename " + partFile + " to " + file);
+		}
+	}
+	
+	/**
+	 * Commit the transfer and adopt the received SSTable
+	 * 
+	 * @param table
+	 * @param transferId
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 */
+	public void commit(final TupleStoreName table, final String transferId) 
+			throws StorageManagerException, RejectedException {
+		
+		commit(Arrays.asList(new SSTableTransfer(table, transferId)));
+	}
+	
+	/**
+	 * Commit the transfers and adopt the received SSTables. All transfers are 
+	 * checked and staged before the SSTables are published together. When a 
+	 * transfer can not be staged or a tuple store rejects the SSTables, the staged 
+	 * SSTables are moved back into the transfer directories and no tuple store 
+	 * is changed. So, the commit can be repeated.
+	 * 
+	 * @param transfers
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 */
+	public void commit(final List<SSTableTransfer> transfers) 
+			throws StorageManagerException, RejectedException {
+		
+		final List<Lock> locks = lockTransfers(transfers);
+		
+		try {
+			final List<SSTableTransfer> pendingTransfers = getPendingTransfers(transfers);
+			
+			final Map<SSTableFacade, SSTableTransfer> stagedTransfers = new LinkedHashMap<>();
+			final Map<TupleStoreManager, List<SSTableFacade>> stagedSSTables = new HashMap<>();
+			
+			try {
+				for(final SSTableTransfer transfer : pendingTransfers) {
+					final TupleStoreName table = transfer.getTable();
+					final String transferDir = getTransferDirectory(table, transfer.getTransferId());
+					
+					final TupleStoreManager tupleStoreManager = storageRegistry.getTupleStoreManager(table);
+					final SSTableFacade facade = tupleStoreManager.stageSSTable(transferDir, 
+							SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+					
+					stagedTransfers.put(facade, transfer);
+					stagedSSTables.computeIfAbsent(tupleStoreManager, m -> new ArrayList<>()).add(facade);
+				}
+				
+				TupleStoreManager.publishStagedSSTables(stagedSSTables);
+			} catch(StorageManagerException | RejectedException e) {
+				unstageTransfers(stagedTransfers);
+				throw e;
+			}
+			
+			stagedTransfers.forEach((f, t) -> adoptedTransfers.put(t.getTransferId(), f));
+			
+			for(final SSTableTransfer transfer : pendingTransfers) {
+				final String transferDir = getTransferDirectory(transfer.getTable(), transfer.getTransferId());
+				FileUtil.deleteRecursive(Paths.get(transferDir));
+			}
+		} finally {
+			locks.forEach(Lock::unlock);
+		}
+	}
+	
+	/**
+	 * Prepare the commit of the transfers. All files of the transfers have to be 
+	 * received and the tuple stores have to be writable. The transfers are 
+	 * not changed.
+	 * 
+	 * @param transfers
+	 * @throws StorageManagerException
+	 * @throws RejectedException
+	 */
+	public void prepare(final List<SSTableTransfer> transfers) 
+			throws StorageManagerException, RejectedException {
+		
+		final List<Lock> locks = lockTransfers(transfers);
+		
+		try {
+			for(final SSTableTransfer transfer : transfers) {
+				final String transferId = transfer.getTransferId();
+				final String transferDir = getTransferDirectory(transfer.getTable(), transferId);
+				
+				if(! new File(transferDir).exists() && adoptedTransfers.getIfPresent(transferId) == null) {
+					throw new StorageManagerException("Unable to prepare transfer " + transferId 
+							+ ", no files are received");
+				}
+			}
+			
+			getPendingTransfers(transfers);
+		} finally {
+			locks.forEach(Lock::unlock);
+		}
+	}
+	
+	/**
+	 * Abort the transfers. The received files of the transfers that are 
+	 * not committed are deleted.
+	 * 
+	 * @param transfers
+	 * @throws StorageManagerException
+	 */
+	public void abort(final List<SSTableTransfer> transfers) throws StorageManagerException {
+		
+		final List<Lock> locks = lockTransfers(transfers);
+		
+		try {
+			for(final SSTableTransfer transfer : transfers) {
+				deleteTransferDirectory(transfer);
+			}
+		} finally {
+			locks.forEach(Lock::unlock);
+		}
+	}
+	
+	/**
+	 * Roll back the transfers. The adopted SSTables of the committed transfers 
+	 * are removed from the tuple stores and the files of the not committed 
+	 * transfers are deleted. A SSTable can only be removed until it is merged
+	 * by a compaction.
+	 * 
+	 * @param transfers
+	 * @throws StorageManagerException
+	 */
+	public void rollback(final List<SSTableTransfer> transfers) throws StorageManagerException {
+		
+		final List<Lock> locks = lockTransfers(transfers);
+		final List<String> failedTransfers = new ArrayList<>();
+		
+		try {
+			for(final SSTableTransfer transfer : transfers) {
+				final String transferId = transfer.getTransferId();
+				final SSTableFacade facade = adoptedTransfers.getIfPresent(transferId);
+				
+				if(facade == null) {
+					if(! deleteTransferDirectory(transfer)) {
+						logger.error("Unable to roll back transfer {}, the adopted SSTable is unknown", 
+								transferId);
+						failedTransfers.add(transferId);
+					}
+					
+					continue;
+				}
+				
+				try {
+					final TupleStoreManager tupleStoreManager 
+						= storageRegistry.getTupleStoreManager(transfer.getTable());
+					tupleStoreManager.removeSSTable(facade);
+					adoptedTransfers.invalidate(transferId);
+				} catch (StorageManagerException e) {
+					logger.error("Unable to roll back transfer " + transferId, e);
+					failedTransfers.add(transferId);
+				}
+			}
+		} finally {
+			locks.forEach(Lock::unlock);
+		}
+		
+		if(! failedTransfers.isEmpty()) {
+			throw new StorageManagerException("Unable to roll back the transfers " + failedTransfers);
+		}
+	}
+	
+	/**
+	 * Delete the directory of the transfer
+	 * 
+	 * @param transfer
+	 * @return true if the transfer was not committed
+	 * @throws StorageManagerException
+	 */
+	private boolean deleteTransferDirectory(final SSTableTransfer transfer) 
+			throws StorageManagerException {
+		
+		final String transferId = transfer.getTransferId();
+		final String transferDir = getTransferDirectory(transfer.getTable(), transferId);
+		
+		if(! new File(transferDir).exists()) {
+			return false;
+		}
+		
+		logger.info("Deleting the received files of transfer {}", transferId);
+		FileUtil.deleteRecursive(Paths.get(transferDir));
+		
+		return true;
+	}
+	
+	/**
+	 * Lock the given transfers
+	 * 
+	 * @param transfers
+	 * @return the locks of the transfers
+	 */
+	private List<Lock> lockTransfers(final List<SSTableTransfer> transfers) {
+		final List<String> transferIds = transfers.stream()
+				.map(SSTableTransfer::getTransferId)
+				.collect(Collectors.toList());
+		
+		// The locks are returned in a fixed order, no deadlocks with concurrent requests
+		final List<Lock> locks = Lists.newArrayList(transferLocks.bulkGet(transferIds));
+		locks.forEach(Lock::lock);
+		
+		return locks;
+	}
+	
+	/**
+	 * Check the transfers and return the transfers that are not already adopted
+	 * 
+	 * @param transfers
+	 * @return
+	 * @throws StorageManagerException
+	 * @throws RejectedException
+	 */
+	private List<SSTableTransfer> getPendingTransfers(final List<SSTableTransfer> transfers) 
+			throws StorageManagerException, RejectedException {
+		
+		final List<SSTableTransfer> pendingTransfers = new ArrayList<>();
+		
+		for(final SSTableTransfer transfer : transfers) {
+			final TupleStoreName table = transfer.getTable();
+			final String transferId = transfer.getTransferId();
+			final String transferDir = getTransferDirectory(table, transferId);
+
+			if(! new File(transferDir).exists()) {
+				// The commit is repeated after the transfer was already adopted
+				logger.info("Transfer {} is unknown, ignoring commit", transferId);
+				continue;
+			}
+			
+			final boolean allFilesReceived = Arrays.stream(SSTableFileType.values())
+				.map(t -> new File(t.getFilename(transferDir, table, SSTableTransferHelper.TRANSFER_TABLE_NUMBER)))
+				.allMatch(f -> f.exists());
+			
+			if(! allFilesReceived) {
+				throw new StorageManagerException("Unable to commit transfer " + transferId 
+						+ ", not all files are received");
+			}
+			
+			final TupleStoreManager tupleStoreManager = storageRegistry.getTupleStoreManager(table);
+			
+			if(tupleStoreManager.getSstableManagerState() == TupleStoreManagerState.READ_ONLY) {
+				throw new RejectedException("Storage manager is in read only state: " + table);
+			}
+			
+			pendingTransfers.add(transfer);
+		}
+		
+		return pendingTransfers;
+	}
+	
+	/**
+	 * Move the staged SSTables back into the transfer directories
+	 * 
+	 * @param stagedTransfers
+	 */
+	private void unstageTransfers(final Map<SSTableFacade, SSTableTransfer> stagedTransfers) {
+		
+		for(final Entry<SSTableFacade, SSTableTransfer> entry : stagedTransfers.entrySet()) {
+			final SSTableTransfer transfer = entry.getValue();
+			
+			try {
+				final TupleStoreName table = transfer.getTable();
+				final String transferDir = getTransferDirectory(table, transfer.getTransferId());
+				final TupleStoreManager tupleStoreManager = storageRegistry.getTupleStoreManager(table);
+				tupleStoreManager.unstageSSTable(entry.getKey(), transferDir, 
+						SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+			} catch (StorageManagerException e) {
+				logger.error("Unable to unstage transfer " + transfer.getTransferId(), e);
+			}
+		}
+	}
+	
+	/**
+	 * Get the transfer directory, the table is created if needed
+	 * 
+	 * @param table
+	 * @param transferId
+	 * @return
+	 * @throws StorageManagerException
+	 */
+	private String getTransferDirectory(final TupleStoreName table, final String transferId) 
+			throws StorageManagerException {
+		
+		if(! SSTableTransferHelper.isTransferIdValid(transferId)) {
+			throw new StorageManagerException("Invalid transfer id: " + transferId);
+		}
+		
+		TupleStoreManagerRegistryHelper.createMissingTables(table, storageRegistry, 
+				Arrays.asList(table));
+		
+		final TupleStoreManager tupleStoreManager = storageRegistry.getTupleStoreManager(table);
+		
+		return tupleStoreManager.getTransferDirectory(transferId);
+	}
+}
@@ -0,0 +1,199 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.UUID;
+
+import org.bboxdb.network.client.BBoxDBClient;
+import org.bboxdb.network.client.BBoxDBConnection;
+import org.bboxdb.network.client.future.client.EmptyResultFuture;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableFileType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class SSTableTransferSender {
+	
+	/**
+	 * The connection
+	 */
+	private final BBoxDBConnection connection;
+	
+	/**
+	 * The size of a chunk
+	 */
+	private final int chunkSize;
+	
+	/**
+	 * The default size of a chunk
+	 */
+	public final static int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+	
+	/**
+	 * The max amount of failed chunks per file
+	 */
+	private final static int MAX_FAILED_CHUNKS = 5;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(SSTableTransferSender.class);
+
+	public SSTableTransferSender(final BBoxDBConnection connection) {
+		this(connection, DEFAULT_CHUNK_SIZE);
+	}
+	
+	public SSTableTransferSender(final BBoxDBConnection connection, final int chunkSize) {
+		this.connection = connection;
+		this.chunkSize = chunkSize;
+	}
+	
+	/**
+	 * Transfer the SSTable into the given table of the remote system
+	 * 
+	 * @param table - the name of the table (the SSTable has to be written for this name)
+	 * @param directory - the base directory of the SSTable
+	 * @param tableNumber - the number of the SSTable
+	 * @throws StorageManagerException
+	 */
+	public void transfer(final TupleStoreName table, final String directory, final int tableNumber) 
+			throws StorageManagerException {
+		
+		final String transferId = sendFiles(table, directory, tableNumber);
+		
+		try {
+			final BBoxDBClient client = connection.getBboxDBClient();
+			final EmptyResultFuture future = client.commitSSTableTransfer(table, transferId);
+			future.waitForCompletion();
+			
+			if(future.isFailed()) {
+				throw new StorageManagerException("Unable to commit transfer " + transferId 
+						+ " " + future.getAllMessages());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new StorageManagerException(e);
+		}
+	}
+	
+	/**
+	 * Send the files of the SSTable to the remote system without committing the 
+	 * transfer. The transfer can be committed together with other transfers 
+	 * (see BBoxDBClient.adoptSSTables).
+	 * 
+	 * @param table - the name of the table (the SSTable has to be written for this name)
+	 * @param directory - the base directory of the SSTable
+	 * @param tableNumber - the number of the SSTable
+	 * @return the id of the transfer
+	 * @throws StorageManagerException
+	 */
+	public String sendFiles(final TupleStoreName table, final String directory, final int tableNumber) 
+			throws StorageManagerException {
+		
+		final String transferId = UUID.randomUUID().toString();
+		sendFiles(table, directory, tableNumber, transferId);
+		return transferId;
+	}
+	
+	/**
+	 * Send the files of the SSTable with the given transfer id. The id is known 
+	 * before the transfer starts, so a failed transfer can be aborted.
+	 * 
+	 * @param table - the name of the table (the SSTable has to be written for this name)
+	 * @param directory - the base directory of the SSTable
+	 * @param tableNumber - the number of the SSTable
+	 * @param transferId - the id of the transfer
+	 * @throws StorageManagerException
+	 */
+	public void sendFiles(final TupleStoreName table, final String directory, final int tableNumber, 
+			final String transferId) throws StorageManagerException {
+		
+		logger.info("Transferring SSTable {} of {} to {} (transfer {})", tableNumber, 
+				table.getFullname(), connection.getConnectionName(), transferId);
+		
+		try {
+			for(final SSTableFileType fileType : SSTableFileType.values()) {
+				final File file = new File(fileType.getFilename(directory, table, tableNumber));
+				transferFile(table, transferId, fileType, file);
+			}
+		} catch (IOException e) {
+			throw new StorageManagerException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new StorageManagerException(e);
+		}
+	}
+
+	/**
+	 * Transfer the given file. After a failed chunk, the chunk is sent again. The 
+	 * server answers with the amount of received bytes, so the transfer is resumed
+	 * at the right position.
+	 * 
+	 * @param table
+	 * @param transferId
+	 * @param fileType
+	 * @param file
+	 * @throws IOException
+	 * @throws InterruptedException
+	 * @throws StorageManagerException
+	 */
+	private void transferFile(final TupleStoreName table, final String transferId, 
+			final SSTableFileType fileType, final File file) 
+					throws IOException, InterruptedException, StorageManagerException {
+		
+		final long fileLength = file.length();
+		final long checksum = SSTableTransferHelper.calculateChecksum(file);
+		final BBoxDBClient client = connection.getBboxDBClient();
+
+		long offset = 0;
+		int failedChunks = 0;
+		
+		try(final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			do {
+				final int length = (int) Math.min(chunkSize, fileLength - offset);
+				final byte[] data = new byte[length];
+				randomAccessFile.seek(offset);
+				randomAccessFile.readFully(data);
+				
+				final EmptyResultFuture future = client.transferSSTableChunk(table, transferId, 
+						fileType, offset, fileLength, checksum, data);
+				
+				future.waitForCompletion();
+				
+				if(future.isFailed()) {
+					failedChunks++;
+					
+					logger.warn("Transfer of chunk {} of {} failed ({} / {})", offset, file, 
+							failedChunks, future.getAllMessages());
+					
+					if(failedChunks >= MAX_FAILED_CHUNKS) {
+						throw new StorageManagerException("Unable to transfer " + file);
+					}
+					
+					continue;
+				}
+				
+				offset = Long.parseLong(future.getMessage(0));
+			} while(offset < fileLength);
+		}
+	}
+}
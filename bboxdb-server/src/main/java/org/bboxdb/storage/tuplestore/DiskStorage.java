@@ -24,6 +24,7 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 
 import org.bboxdb.commons.concurrent.ThreadHelper;
+import org.bboxdb.commons.io.FileUtil;
 import org.bboxdb.commons.service.ServiceState;
 import org.bboxdb.misc.BBoxDBConfiguration;
 import org.bboxdb.misc.BBoxDBService;
@@ -116,6 +117,7 @@ public class DiskStorage implements BBoxDBService {
 		
 		serviceState.dipatchToStarting();
 		memtablesToFlush.clear();
+		deleteUnfinishedTransfers();
 	
 		startFlushThreads();
 		startCompactThread();
@@ -124,6 +126,18 @@ public class DiskStorage implements BBoxDBService {
 		serviceState.dispatchToRunning();
 	}
 
+	/**
+	 * Delete the data of unfinished SSTable transfers
+	 */
+	private void deleteUnfinishedTransfers() {
+		final File transferDir = new File(basedir, SSTableConst.TRANSFER_DIR);
+		
+		if(transferDir.exists()) {
+			logger.info("Deleting unfinished SSTable transfers in {}", transferDir);
+			FileUtil.deleteRecursive(transferDir.toPath());
+		}
+	}
+	
 	/**
 	 * Start the flush threads
 	 */
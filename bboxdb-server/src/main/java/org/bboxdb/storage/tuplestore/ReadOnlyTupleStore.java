@@ -55,6 +55,13 @@ public interface ReadOnlyTupleStore extends Iterable<Tuple>, AcquirableResource
 	 */
 	public Iterator<Tuple> getAllTuplesInBoundingBox(final Hyperrectangle boundingBox);
 	
+	/**
+	 * Get all tuples ordered by key (tuples with the same key can be 
+	 * returned in any order)
+	 * @return
+	 */
+	public Iterator<Tuple> getSortedIterator();
+	
 	/**
 	 * Get the number of tuples in the storage
 	 * @return
@@ -69,6 +76,13 @@ public interface ReadOnlyTupleStore extends Iterable<Tuple>, AcquirableResource
 	 */
 	public Tuple getTupleAtPosition(final long position) throws StorageManagerException;
 	
+	/**
+	 * Get a sample of the bounding boxes of the stored tuples
+	 * @return
+	 * @throws StorageManagerException
+	 */
+	public List<Hyperrectangle> getBoundingBoxSamples() throws StorageManagerException;
+	
 	/**
 	 * Get the version timestamp of the oldest tuple (in microseconds)
 	 * @return
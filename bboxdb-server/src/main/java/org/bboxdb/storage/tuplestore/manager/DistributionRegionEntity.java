@@ -17,7 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.storage.tuplestore.manager;
 
-class DistributionRegionEntity {
+public class DistributionRegionEntity {
 	
 	/**
 	 * The distribution group name
@@ -0,0 +1,240 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.tuplestore.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.concurrent.ThreadHelper;
+import org.bboxdb.misc.BBoxDBService;
+import org.bboxdb.storage.entity.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import io.prometheus.client.Gauge;
+
+/**
+ * Execute the insert callbacks outside of the insert thread. The tuples are 
+ * assigned by the key to a dispatcher thread, so the callbacks for the 
+ * versions of one key are executed in the insert order.
+ * 
+ * The callbacks are never executed in the insert thread, since this would 
+ * overtake the queued callbacks of the same key. When the queue of a dispatcher 
+ * thread is full, the insert thread is blocked until space is available. When 
+ * the dispatcher is not running, the tuples are dropped. Dropped tuples are 
+ * logged, exported as metric and reported to the caller.
+ */
+public class InsertCallbackDispatcher implements BBoxDBService {
+	
+	/**
+	 * The number of dispatcher threads
+	 */
+	private final int dispatcherThreads;
+	
+	/**
+	 * The dispatcher executors, one thread per executor
+	 */
+	private volatile List<ExecutorService> executors;
+	
+	/**
+	 * The number of tuples that are dropped, because the dispatcher was not running
+	 */
+	private final AtomicLong droppedTuples = new AtomicLong(0);
+	
+	/**
+	 * The total number of tuples with dropped insert callbacks
+	 */
+	private final static Gauge droppedTuplesTotal = Gauge.build()
+			.name("bboxdb_insert_callbacks_dropped_tuples_total")
+			.help("Total amount of tuples with dropped insert callbacks").register();
+	
+	/**
+	 * The max number of pending tuples per dispatcher thread. When the queue is full, 
+	 * the insert thread is blocked (back pressure).
+	 */
+	private final static int MAX_PENDING_TUPLES = 10000;
+	
+	/**
+	 * The logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(InsertCallbackDispatcher.class);
+
+	public InsertCallbackDispatcher(final int dispatcherThreads) {
+		this.dispatcherThreads = Math.max(1, dispatcherThreads);
+		this.executors = Collections.emptyList();
+	}
+
+	@Override
+	public synchronized void init() {
+		if(! executors.isEmpty()) {
+			return;
+		}
+		
+		final List<ExecutorService> newExecutors = new ArrayList<>();
+		
+		for(int i = 0; i < dispatcherThreads; i++) {
+			final ThreadFactoryBuilder threadFactoryBuilder = new ThreadFactoryBuilder()
+					.setNameFormat("Insert callback dispatcher " + i)
+					.setDaemon(true);
+			
+			final ExecutorService executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, 
+					new ArrayBlockingQueue<>(MAX_PENDING_TUPLES), threadFactoryBuilder.build(),
+					new BlockingEnqueuePolicy());
+			
+			newExecutors.add(executor);
+		}
+		
+		executors = Collections.unmodifiableList(newExecutors);
+	}
+
+	@Override
+	public synchronized void shutdown() {
+		final List<ExecutorService> oldExecutors = executors;
+		executors = Collections.emptyList();
+		
+		oldExecutors.forEach(e -> e.shutdown());
+		
+		for(final ExecutorService executor : oldExecutors) {
+			try {
+				executor.awaitTermination(ThreadHelper.THREAD_WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Dispatch the tuple to the callbacks
+	 * @param tuple
+	 * @param callbacks
+	 * @return false if the callbacks are dropped
+	 */
+	public boolean dispatch(final Tuple tuple, final List<Consumer<Tuple>> callbacks) {
+		
+		if(callbacks.isEmpty()) {
+			return true;
+		}
+		
+		final ExecutorService executor = getExecutorForKey(tuple.getKey());
+		
+		final Runnable task = () -> {
+			for(final Consumer<Tuple> callback : callbacks) {
+				try {
+					callback.accept(tuple);
+				} catch(Exception e) {
+					logger.error("Got exception while executing insert callback", e);
+				}
+			}
+		};
+		
+		if(executor == null) {
+			handleDroppedTuple(tuple, callbacks);
+			return false;
+		}
+		
+		try {
+			executor.execute(task);
+			return true;
+		} catch(RejectedExecutionException e) {
+			handleDroppedTuple(tuple, callbacks);
+			return false;
+		}
+	}
+	
+	/**
+	 * Handle a tuple that could not be dispatched
+	 * @param tuple
+	 * @param callbacks
+	 */
+	private void handleDroppedTuple(final Tuple tuple, final List<Consumer<Tuple>> callbacks) {
+		final long dropped = droppedTuples.incrementAndGet();
+		droppedTuplesTotal.inc();
+		logger.error("Dispatcher is not running, dropping {} insert callbacks for tuple {} "
+				+ "(total dropped {})", callbacks.size(), tuple.getKey(), dropped);
+	}
+	
+	/**
+	 * Get the number of tuples that are dropped, because the dispatcher was not running
+	 * @return
+	 */
+	@VisibleForTesting
+	public long getDroppedTuples() {
+		return droppedTuples.get();
+	}
+	
+	/**
+	 * Get the executor for the given key
+	 * @param key
+	 * @return
+	 */
+	private ExecutorService getExecutorForKey(final String key) {
+		final List<ExecutorService> executorList = executors;
+		
+		if(executorList.isEmpty()) {
+			return null;
+		}
+		
+		final int executorIndex = Math.floorMod(key.hashCode(), executorList.size());
+		return executorList.get(executorIndex);
+	}
+
+	@Override
+	public String getServicename() {
+		return "Insert callback dispatcher";
+	}
+	
+	/**
+	 * Block the submitting thread until the task can be queued. The task is 
+	 * rejected when the executor is shut down or the thread is interrupted.
+	 */
+	private static class BlockingEnqueuePolicy implements RejectedExecutionHandler {
+
+		@Override
+		public void rejectedExecution(final Runnable task, final ThreadPoolExecutor executor) {
+			
+			if(executor.isShutdown()) {
+				throw new RejectedExecutionException("Executor is shut down");
+			}
+			
+			try {
+				executor.getQueue().put(task);
+				
+				// The executor might be terminated while we are waiting
+				if(executor.isShutdown() && executor.getQueue().remove(task)) {
+					throw new RejectedExecutionException("Executor is shut down");
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted while waiting for queue space", e);
+			}
+		}
+	}
+}
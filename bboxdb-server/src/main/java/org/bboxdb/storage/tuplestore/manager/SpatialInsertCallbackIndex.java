@@ -0,0 +1,356 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.storage.tuplestore.manager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
+
+/**
+ * A spatial index over the regions of the registered insert callbacks. For an
+ * inserted tuple, only the callbacks with a region intersecting the tuple
+ * are returned.
+ *
+ * The index is maintained incrementally. A new callback is inserted into the
+ * R-tree of its dimension. A removed callback is only removed from the callback
+ * map, the R-tree entry is skipped during lookups. The R-tree of a dimension
+ * is rebuilt when more than half of its entries are removed. The new tree is
+ * built beside the old one, so lookups never wait for a rebuild.
+ */
+public class SpatialInsertCallbackIndex {
+
+	/**
+	 * The registered callbacks and their registration
+	 */
+	private final Map<Consumer<Tuple>, Registration> registrations;
+
+	/**
+	 * The callbacks with a region, by the value of the R-tree entry
+	 */
+	private final Map<Long, Consumer<Tuple>> indexedCallbacks;
+
+	/**
+	 * The callbacks without a region, called for every tuple
+	 */
+	private final List<Consumer<Tuple>> unindexedCallbacks;
+
+	/**
+	 * One spatial index per dimension
+	 */
+	private final Map<Integer, DimensionIndex> spatialIndex;
+
+	/**
+	 * The value of the next R-tree entry
+	 */
+	private long nextEntryValue = 0;
+
+	public SpatialInsertCallbackIndex() {
+		this.registrations = new HashMap<>();
+		this.indexedCallbacks = new ConcurrentHashMap<>();
+		this.unindexedCallbacks = new CopyOnWriteArrayList<>();
+		this.spatialIndex = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Register a new callback for the given region. Hyperrectangle.FULL_SPACE
+	 * registers the callback for all tuples.
+	 *
+	 * @param region
+	 * @param callback
+	 */
+	public synchronized void registerCallback(final Hyperrectangle region, final Consumer<Tuple> callback) {
+
+		// Replace the region of an already registered callback
+		removeCallback(callback);
+
+		if(region == null || region.getDimension() == 0) {
+			registrations.put(callback, new Registration(region, -1));
+			unindexedCallbacks.add(callback);
+			return;
+		}
+
+		final long entryValue = nextEntryValue++;
+		registrations.put(callback, new Registration(region, entryValue));
+		indexedCallbacks.put(entryValue, callback);
+
+		final DimensionIndex dimensionIndex = spatialIndex.computeIfAbsent(region.getDimension(),
+				(d) -> new DimensionIndex());
+
+		dimensionIndex.insert(new SpatialIndexEntry(region, entryValue));
+	}
+
+	/**
+	 * Remove the given callback
+	 * @param callback
+	 * @return
+	 */
+	public synchronized boolean removeCallback(final Consumer<Tuple> callback) {
+		final Registration registration = registrations.remove(callback);
+
+		if(registration == null) {
+			return false;
+		}
+
+		if(registration.entryValue < 0) {
+			unindexedCallbacks.remove(callback);
+			return true;
+		}
+
+		indexedCallbacks.remove(registration.entryValue);
+
+		final int dimension = registration.region.getDimension();
+		final DimensionIndex dimensionIndex = spatialIndex.get(dimension);
+		dimensionIndex.removedEntries++;
+
+		if(dimensionIndex.removedEntries > dimensionIndex.getLiveEntries()) {
+			rebuildIndex(dimension, dimensionIndex);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Rebuild the R-tree of the dimension from the registered callbacks
+	 * @param dimension
+	 * @param dimensionIndex
+	 */
+	private void rebuildIndex(final int dimension, final DimensionIndex dimensionIndex) {
+		final List<SpatialIndexEntry> entries = new ArrayList<>();
+
+		for(final Registration registration : registrations.values()) {
+			if(registration.entryValue >= 0 && registration.region.getDimension() == dimension) {
+				entries.add(new SpatialIndexEntry(registration.region, registration.entryValue));
+			}
+		}
+
+		final RTreeBuilder rtree = new RTreeBuilder();
+		rtree.bulkInsert(entries);
+		dimensionIndex.replace(rtree, entries.size());
+	}
+
+	/**
+	 * Get the callbacks for the given tuple
+	 * @param tuple
+	 * @return
+	 */
+	public List<Consumer<Tuple>> getCallbacksForTuple(final Tuple tuple) {
+		final Hyperrectangle region = tuple.getBoundingBox();
+
+		if(indexedCallbacks.isEmpty()) {
+			return Collections.unmodifiableList(unindexedCallbacks);
+		}
+
+		// The full space intersects all regions
+		if(region == null || region.getDimension() == 0) {
+			final List<Consumer<Tuple>> result = new ArrayList<>(unindexedCallbacks);
+			result.addAll(indexedCallbacks.values());
+			return Collections.unmodifiableList(result);
+		}
+
+		final DimensionIndex dimensionIndex = spatialIndex.get(region.getDimension());
+
+		if(dimensionIndex == null) {
+			return Collections.unmodifiableList(unindexedCallbacks);
+		}
+
+		final List<? extends SpatialIndexEntry> entries = dimensionIndex.getEntriesForRegion(region);
+
+		if(entries.isEmpty()) {
+			return Collections.unmodifiableList(unindexedCallbacks);
+		}
+
+		final List<Consumer<Tuple>> result = new ArrayList<>(unindexedCallbacks.size() + entries.size());
+		result.addAll(unindexedCallbacks);
+
+		for(final SpatialIndexEntry entry : entries) {
+			final Consumer<Tuple> callback = indexedCallbacks.get(entry.getValue());
+
+			// Removed callback, the entry is removed on the next rebuild
+			if(callback != null) {
+				result.add(callback);
+			}
+		}
+
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Is the index empty
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return indexedCallbacks.isEmpty() && unindexedCallbacks.isEmpty();
+	}
+
+	/**
+	 * Get the number of registered callbacks
+	 * @return
+	 */
+	public int size() {
+		return indexedCallbacks.size() + unindexedCallbacks.size();
+	}
+
+	/**
+	 * Get the number of R-tree entries of the given dimension, including
+	 * the entries of removed callbacks
+	 * @param dimension
+	 * @return
+	 */
+	public synchronized int getIndexedEntries(final int dimension) {
+		final DimensionIndex dimensionIndex = spatialIndex.get(dimension);
+
+		if(dimensionIndex == null) {
+			return 0;
+		}
+
+		return dimensionIndex.indexedEntries;
+	}
+
+	@Override
+	public synchronized String toString() {
+		final StringBuilder sb = new StringBuilder("SpatialInsertCallbackIndex [callbacks=");
+		sb.append(registrations.size());
+
+		for(final Entry<Integer, DimensionIndex> entry : spatialIndex.entrySet()) {
+			sb.append(", dimension ").append(entry.getKey()).append("=");
+			sb.append(entry.getValue().getLiveEntries());
+		}
+
+		sb.append("]");
+		return sb.toString();
+	}
+
+	/**
+	 * The registration of a callback
+	 */
+	private static class Registration {
+
+		/**
+		 * The region of the callback
+		 */
+		private final Hyperrectangle region;
+
+		/**
+		 * The value of the R-tree entry, -1 for unindexed callbacks
+		 */
+		private final long entryValue;
+
+		public Registration(final Hyperrectangle region, final long entryValue) {
+			this.region = region;
+			this.entryValue = entryValue;
+		}
+	}
+
+	/**
+	 * The R-tree of one dimension. The tree is read under the read lock and
+	 * modified under the write lock. The entry counters are guarded by the
+	 * monitor of the index.
+	 */
+	private static class DimensionIndex {
+
+		/**
+		 * The lock for the R-tree
+		 */
+		private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+		/**
+		 * The R-tree
+		 */
+		private RTreeBuilder rtree = new RTreeBuilder();
+
+		/**
+		 * The number of entries in the R-tree
+		 */
+		private int indexedEntries = 0;
+
+		/**
+		 * The number of entries of removed callbacks in the R-tree
+		 */
+		private int removedEntries = 0;
+
+		/**
+		 * Insert a new entry into the R-tree
+		 * @param entry
+		 */
+		public void insert(final SpatialIndexEntry entry) {
+			lock.writeLock().lock();
+
+			try {
+				rtree.insert(entry);
+			} finally {
+				lock.writeLock().unlock();
+			}
+
+			indexedEntries++;
+		}
+
+		/**
+		 * Replace the R-tree with a rebuilt one
+		 * @param newRtree
+		 * @param entries
+		 */
+		public void replace(final RTreeBuilder newRtree, final int entries) {
+			lock.writeLock().lock();
+
+			try {
+				rtree = newRtree;
+			} finally {
+				lock.writeLock().unlock();
+			}
+
+			indexedEntries = entries;
+			removedEntries = 0;
+		}
+
+		/**
+		 * Get the entries for the region
+		 * @param region
+		 * @return
+		 */
+		public List<? extends SpatialIndexEntry> getEntriesForRegion(final Hyperrectangle region) {
+			lock.readLock().lock();
+
+			try {
+				return rtree.getEntriesForRegion(region);
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+
+		/**
+		 * Get the number of entries of registered callbacks
+		 * @return
+		 */
+		public int getLiveEntries() {
+			return indexedEntries - removedEntries;
+		}
+	}
+}
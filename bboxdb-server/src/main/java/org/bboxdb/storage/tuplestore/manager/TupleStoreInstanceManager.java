@@ -39,7 +39,7 @@ public class TupleStoreInstanceManager {
 	/**
 	 * The active memtable
 	 */
-	private Memtable memtable;
+	private volatile Memtable memtable;
 	
 	/**
 	 * The unflushed memtables
@@ -115,13 +115,19 @@ public class TupleStoreInstanceManager {
 	}
 	
 	/**
-	 * Replace some compaced and merged sstables
+	 * Replace some compaced and merged sstables. The sstables are not replaced, 
+	 * when one of the old sstables was removed during the compaction.
 	 * @param newSStable
 	 * @param oldFacades
+	 * @return
 	 */
-	public synchronized void replaceCompactedSStables(final List<SSTableFacade> newFacedes, 
+	public synchronized boolean replaceCompactedSStables(final List<SSTableFacade> newFacedes, 
 			final List<SSTableFacade> oldFacades) {
 		
+		if(! sstableFacades.containsAll(oldFacades)) {
+			return false;
+		}
+		
 		assert(newFacedes != null) : "New facades is null";
 		assert(oldFacades != null) : "Old facades is null";
 		// New facades can be empty, e.g., a compact task removed all data
@@ -134,6 +140,17 @@ public class TupleStoreInstanceManager {
 		
 		assert (removeResult == true) : "Unable to remove old facades in replaceCompactedSStables: " 
 			+ oldFacades;
+		
+		return true;
+	}
+	
+	/**
+	 * Remove a sstable
+	 * @param sstable
+	 * @return
+	 */
+	public synchronized boolean removeSSTable(final SSTableFacade sstable) {
+		return sstableFacades.remove(sstable);
 	}
 	
 	/**
@@ -206,7 +223,10 @@ public class TupleStoreInstanceManager {
 	}
 	
 	/**
-	 * Wait until the memtable is flushed to disk
+	 * Wait until the memtable and all older memtables are flushed to disk. The 
+	 * memtables are written by multiple threads, so a newer memtable can be 
+	 * flushed before an older one.
+	 * 
 	 * @param memtable
 	 * @param queue 
 	 * @throws InterruptedException 
@@ -217,7 +237,16 @@ public class TupleStoreInstanceManager {
 		
 		//logger.info("Waiting for flush {} / {}", memtable.getInternalName(), unflushedMemtables);
 		
-		while(unflushedMemtables.contains(memtable)) {
+		final int position = unflushedMemtables.indexOf(memtable);
+		
+		if(position == -1) {
+			return;
+		}
+		
+		final List<Memtable> memtablesToWaitFor 
+			= new ArrayList<>(unflushedMemtables.subList(0, position + 1));
+		
+		while(memtablesToWaitFor.stream().anyMatch(m -> unflushedMemtables.contains(m))) {
 			wait();
 		}
 		
@@ -19,14 +19,23 @@ package org.bboxdb.storage.tuplestore.manager;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.bboxdb.commons.DuplicateResolver;
 import org.bboxdb.commons.RejectedException;
+import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.commons.service.ServiceState;
 import org.bboxdb.commons.service.ServiceState.State;
 import org.bboxdb.distribution.DistributionGroupMetadataHelper;
@@ -40,6 +49,7 @@ import org.bboxdb.misc.BBoxDBConfiguration;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.misc.BBoxDBService;
 import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.DistributionGroupMetadata;
 import org.bboxdb.storage.entity.MemtableAndTupleStoreManagerPair;
 import org.bboxdb.storage.entity.Tuple;
@@ -47,6 +57,8 @@ import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.memtable.Memtable;
 import org.bboxdb.storage.sstable.SSTableConst;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.SSTableFileType;
 import org.bboxdb.storage.sstable.SSTableHelper;
 import org.bboxdb.storage.sstable.duplicateresolver.TupleDuplicateResolverFactory;
 import org.bboxdb.storage.sstable.reader.SSTableFacade;
@@ -101,6 +113,11 @@ public class TupleStoreManager implements BBoxDBService {
 	 * The insert callbacks
 	 */
 	protected final List<Consumer<Tuple>> insertCallbacks;
+	
+	/**
+	 * The spatial insert callbacks, executed by the insert callback dispatcher
+	 */
+	protected final SpatialInsertCallbackIndex spatialInsertCallbacks;
 
 	/**
 	 * The get performance counter
@@ -122,7 +139,8 @@ public class TupleStoreManager implements BBoxDBService {
 		this.tupleStoreName = sstablename;
 		this.nextFreeTableNumber = new AtomicInteger();
 		this.tupleStoreInstances = new TupleStoreInstanceManager();
-		this.insertCallbacks = new ArrayList<>();
+		this.insertCallbacks = new CopyOnWriteArrayList<>();
+		this.spatialInsertCallbacks = new SpatialInsertCallbackIndex();
 
 		// Close open resources when the failed state is entered
 		this.serviceState = new ServiceState();
@@ -152,9 +170,10 @@ public class TupleStoreManager implements BBoxDBService {
 
 			tupleStoreInstances.clear();
 
+			// The WAL of the first memtable uses the sync policy of the configuration
+			loadTuplstoreMetaData();
 			initNewMemtable();
 			scanForExistingTables();
-			loadTuplstoreMetaData();
 
 			nextFreeTableNumber.set(getLastSequencenumberFromReader() + 1);
 			tupleStoreInstances.setReadWrite();
@@ -343,7 +362,16 @@ public class TupleStoreManager implements BBoxDBService {
 
 		assert (metadataFile.exists()) : "Tuple store metadata file don't exist: " + metadataFile;
 
-		tupleStoreConfiguration = TupleStoreConfiguration.importFromYamlFile(metadataFile);
+		final TupleStoreConfiguration loadedConfiguration 
+			= TupleStoreConfiguration.importFromYamlFile(metadataFile);
+		
+		if(loadedConfiguration == null) {
+			logger.warn("Unable to load the metadata of {}, using the default configuration", 
+					tupleStoreName.getFullname());
+			tupleStoreConfiguration = new TupleStoreConfiguration();
+		} else {
+			tupleStoreConfiguration = loadedConfiguration;
+		}
 	}
 
 	/**
@@ -449,6 +477,7 @@ public class TupleStoreManager implements BBoxDBService {
 							configuration.getSstableKeyCacheEntries());
 					facade.init();
 					tupleStoreInstances.addNewDetectedSSTable(facade);
+					notifyStorageChanged();
 				} catch(BBoxDBException e) {
 					logger.error("Unable to load intance " + filename, e);
 				}
@@ -656,7 +685,8 @@ public class TupleStoreManager implements BBoxDBService {
 		final String ssTableDir = SSTableHelper.getSSTableDir(storageDir, tupleStoreName);
 
 		try {
-			return new WriteAheadLogWriter(new File(ssTableDir), System.currentTimeMillis());
+			return new WriteAheadLogWriter(new File(ssTableDir), System.currentTimeMillis(),
+					tupleStoreConfiguration.getWalSyncPolicy(), tupleStoreConfiguration.getWalSyncInterval());
 		} catch (IOException e) {
 			logger.error("Unable to create write ahead log writer", e);
 			return null;
@@ -682,6 +712,21 @@ public class TupleStoreManager implements BBoxDBService {
 	public void put(final Tuple tuple, final boolean storeOnDisk,
 			final boolean runCallbacks) throws StorageManagerException, RejectedException {
 
+		put(Collections.singletonList(tuple), storeOnDisk, runCallbacks);
+	}
+
+	/**
+	 * Store a batch of tuples. The state of the tuple store is checked only 
+	 * once and the tuples of a memtable are written with one WAL append.
+	 * @param tuples
+	 * @param storeOnDisk
+	 * @param runCallbacks
+	 * @throws StorageManagerException
+	 * @throws RejectedException
+	 */
+	public void put(final List<Tuple> tuples, final boolean storeOnDisk,
+			final boolean runCallbacks) throws StorageManagerException, RejectedException {
+
 		if(! serviceState.isInRunningState()) {
 			throw new StorageManagerException("Storage manager is not ready: "
 					+ tupleStoreName.getFullname()
@@ -693,22 +738,17 @@ public class TupleStoreManager implements BBoxDBService {
 		}
 
 		try {
-			// Ensure that only one memtable is newly created
 			if(storeOnDisk) {
-				synchronized (this) {
-					if(getMemtable().isFull()) {
-						initNewMemtable();
-					}
-	
-					getMemtable().put(tuple);
-				}
+				putIntoMemtable(tuples);
 			}
 
 			// Notify callbacks
 			if(runCallbacks) {
-				insertCallbacks.forEach(c -> c.accept(tuple));
+				for(final Tuple tuple : tuples) {
+					insertCallbacks.forEach(c -> c.accept(tuple));
+					dispatchSpatialInsertCallbacks(tuple);
+				}
 			}
-			
 		} catch (StorageManagerException e) {
 			serviceState.dispatchToFailed(e);
 			throw e;
@@ -733,21 +773,44 @@ public class TupleStoreManager implements BBoxDBService {
 			throw new RejectedException("Storage manager is in read only state: " + tupleStoreName);
 		}
 
-		// Ensure that only one memtable is newly created
 		try {
-			synchronized (this) {
-				if(getMemtable().isFull()) {
-					initNewMemtable();
-				}
-
-				getMemtable().delete(key, timestamp);
-			}
+			putIntoMemtable(Collections.singletonList(new DeletedTuple(key, timestamp)));
 		} catch (StorageManagerException e) {
 			serviceState.dispatchToFailed(e);
 			throw e;
 		}
 	}
 
+	/**
+	 * Store the tuples in the active memtable. The memtable accepts concurrent
+	 * writers, only the replacement of a full memtable is synchronized.
+	 *
+	 * @param tuples
+	 * @throws StorageManagerException
+	 */
+	private void putIntoMemtable(final List<Tuple> tuples) throws StorageManagerException {
+		int offset = 0;
+		
+		while(offset < tuples.size()) {
+			final Memtable memtable = getMemtable();
+
+			if(! memtable.isFull()) {
+				final int storedTuples = memtable.tryPut(tuples, offset);
+				
+				if(storedTuples > 0) {
+					offset = offset + storedTuples;
+					continue;
+				}
+			}
+
+			// Ensure that only one memtable is newly created
+			synchronized (this) {
+				if(getMemtable() == memtable) {
+					initNewMemtable();
+				}
+			}
+		}
+	}
 
 	/**
 	 * Replace memtable delegate
@@ -763,6 +826,7 @@ public class TupleStoreManager implements BBoxDBService {
 		}
 
 		tupleStoreInstances.replaceMemtableWithSSTable(memtable, sstableFacade);
+		notifyStorageChanged();
 	}
 
 	/**
@@ -778,7 +842,266 @@ public class TupleStoreManager implements BBoxDBService {
 			throw new RejectedException("Storage manager is in read only state: " + tupleStoreName);
 		}
 
-		tupleStoreInstances.replaceCompactedSStables(newFacedes, oldFacades);
+		if(! tupleStoreInstances.replaceCompactedSStables(newFacedes, oldFacades)) {
+			throw new RejectedException("Compacted SSTables were removed during the compaction: " 
+					+ tupleStoreName);
+		}
+		
+		notifyStorageChanged();
+	}
+
+	/**
+	 * Notify the storage registry about the changed tuple stores
+	 */
+	private void notifyStorageChanged() {
+		if(storage != null && storage.getTupleStoreManagerRegistry() != null) {
+			storage.getTupleStoreManagerRegistry().notifyStorageChanged(tupleStoreName);
+		}
+	}
+
+	/**
+	 * Get the directory for a SSTable transfer into this tuple store. The directory
+	 * is located on the same storage as the tuple store, so the adopted files can be
+	 * moved without copying them.
+	 * 
+	 * @param transferId
+	 * @return
+	 */
+	public String getTransferDirectory(final String transferId) {
+		final String storageDir = storage.getBasedir().getAbsolutePath();
+		return SSTableHelper.getTransferDir(storageDir, transferId);
+	}
+
+	/**
+	 * Adopt a completely written SSTable. The SSTable is staged and published.
+	 * 
+	 * @param sourceDirectory - the base directory of the SSTable
+	 * @param sourceTableNumber - the table number of the SSTable
+	 * @return
+	 * @throws StorageManagerException
+	 * @throws RejectedException
+	 */
+	public SSTableFacade adoptSSTable(final String sourceDirectory, final int sourceTableNumber) 
+			throws StorageManagerException, RejectedException {
+
+		final SSTableFacade facade = stageSSTable(sourceDirectory, sourceTableNumber);
+		
+		try {
+			publishStagedSSTables(Collections.singletonMap(this, Arrays.asList(facade)));
+		} catch(RejectedException e) {
+			unstageSSTable(facade, sourceDirectory, sourceTableNumber);
+			throw e;
+		}
+		
+		return facade;
+	}
+	
+	/**
+	 * Stage a completely written SSTable. The files of the SSTable are moved
+	 * into the directory of this tuple store and a new table number is assigned. 
+	 * The SSTable is opened, but it is not visible until it is published.
+	 * 
+	 * @param sourceDirectory - the base directory of the SSTable
+	 * @param sourceTableNumber - the table number of the SSTable
+	 * @return
+	 * @throws StorageManagerException
+	 * @throws RejectedException
+	 */
+	public SSTableFacade stageSSTable(final String sourceDirectory, final int sourceTableNumber) 
+			throws StorageManagerException, RejectedException {
+
+		if(tupleStoreInstances.getState() == TupleStoreManagerState.READ_ONLY) {
+			throw new RejectedException("Storage manager is in read only state: " + tupleStoreName);
+		}
+
+		final String storageDir = storage.getBasedir().getAbsolutePath();
+		final int tableNumber = increaseTableNumber();
+		final List<SSTableFileType> movedFiles = new ArrayList<>();
+		SSTableFacade facade = null;
+
+		try {
+			for(final SSTableFileType fileType : SSTableFileType.values()) {
+				moveSSTableFile(fileType, sourceDirectory, sourceTableNumber, storageDir, tableNumber);
+				movedFiles.add(fileType);
+			}
+
+			facade = new SSTableFacade(storageDir, tupleStoreName, tableNumber,
+					configuration.getSstableKeyCacheEntries());
+			facade.init();
+
+			logger.info("Staged SSTable {} of {} as table number {}", sourceDirectory, 
+					tupleStoreName.getFullname(), tableNumber);
+
+			return facade;
+		} catch (IOException | BBoxDBException e) {
+			restoreStagedFiles(facade, movedFiles, sourceDirectory, sourceTableNumber, tableNumber);
+			throw new StorageManagerException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			restoreStagedFiles(facade, movedFiles, sourceDirectory, sourceTableNumber, tableNumber);
+			throw new StorageManagerException(e);
+		}
+	}
+	
+	/**
+	 * Remove a staged but not published SSTable. The files are moved back 
+	 * into the source directory.
+	 * 
+	 * @param facade
+	 * @param sourceDirectory
+	 * @param sourceTableNumber
+	 * @throws StorageManagerException
+	 */
+	public void unstageSSTable(final SSTableFacade facade, final String sourceDirectory, 
+			final int sourceTableNumber) throws StorageManagerException {
+		
+		final List<SSTableFileType> stagedFiles = Arrays.asList(SSTableFileType.values());
+		
+		if(! restoreStagedFiles(facade, stagedFiles, sourceDirectory, sourceTableNumber, 
+				facade.getTablebumber())) {
+			
+			throw new StorageManagerException("Unable to unstage SSTable " 
+					+ facade.getTablebumber() + " of " + tupleStoreName.getFullname());
+		}
+		
+		logger.info("Unstaged SSTable {} of {}", facade.getTablebumber(), tupleStoreName.getFullname());
+	}
+	
+	/**
+	 * Close the staged SSTable and move the files back into the source directory
+	 * 
+	 * @param facade - the facade of the staged table or null
+	 * @param stagedFiles
+	 * @param sourceDirectory
+	 * @param sourceTableNumber
+	 * @param tableNumber
+	 * @return
+	 */
+	private boolean restoreStagedFiles(final SSTableFacade facade, final List<SSTableFileType> stagedFiles,
+			final String sourceDirectory, final int sourceTableNumber, final int tableNumber) {
+		
+		final String storageDir = storage.getBasedir().getAbsolutePath();
+
+		try {
+			if(facade != null) {
+				facade.shutdown();
+			}
+			
+			for(final SSTableFileType fileType : stagedFiles) {
+				moveSSTableFile(fileType, storageDir, tableNumber, sourceDirectory, sourceTableNumber);
+			}
+			
+			return true;
+		} catch (IOException e) {
+			logger.error("Unable to restore the staged SSTable " + tableNumber, e);
+			return false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.error("Interrupted while restoring the staged SSTable " + tableNumber, e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Move a file of a SSTable
+	 * 
+	 * @param fileType
+	 * @param sourceDirectory
+	 * @param sourceTableNumber
+	 * @param destinationDirectory
+	 * @param destinationTableNumber
+	 * @throws IOException
+	 */
+	private void moveSSTableFile(final SSTableFileType fileType, final String sourceDirectory, 
+			final int sourceTableNumber, final String destinationDirectory, 
+			final int destinationTableNumber) throws IOException {
+		
+		final Path source = Paths.get(fileType.getFilename(sourceDirectory, tupleStoreName,
+				sourceTableNumber));
+		final Path destination = Paths.get(fileType.getFilename(destinationDirectory, tupleStoreName,
+				destinationTableNumber));
+		
+		Files.move(source, destination);
+	}
+	
+	/**
+	 * Publish the staged SSTables of one or more tuple stores. The state of the 
+	 * tuple stores can not change while the SSTables are published. So, either 
+	 * all SSTables are published or none (e.g., a tuple store is switched to read 
+	 * only by a region split).
+	 * 
+	 * @param stagedSSTables
+	 * @throws RejectedException
+	 */
+	public static void publishStagedSSTables(final Map<TupleStoreManager, List<SSTableFacade>> stagedSSTables) 
+			throws RejectedException {
+		
+		final List<TupleStoreManager> tupleStoreManager = new ArrayList<>(stagedSSTables.keySet());
+		
+		// Lock the tuple stores in a fixed order, no deadlocks with concurrent publishes
+		tupleStoreManager.sort(Comparator.comparing(m -> m.getTupleStoreName().getFullname()));
+		
+		publishStagedSSTables(stagedSSTables, tupleStoreManager, 0);
+		
+		for(final TupleStoreManager manager : tupleStoreManager) {
+			logger.info("Published {} SSTables of {}", stagedSSTables.get(manager).size(), 
+					manager.getTupleStoreName().getFullname());
+			
+			manager.notifyStorageChanged();
+		}
+	}
+
+	/**
+	 * Lock the state of the tuple store at the position and publish the 
+	 * SSTables when all tuple stores are locked
+	 * 
+	 * @param stagedSSTables
+	 * @param tupleStoreManager
+	 * @param position
+	 * @throws RejectedException
+	 */
+	private static void publishStagedSSTables(final Map<TupleStoreManager, List<SSTableFacade>> stagedSSTables, 
+			final List<TupleStoreManager> tupleStoreManager, final int position) throws RejectedException {
+		
+		if(position == tupleStoreManager.size()) {
+			for(final TupleStoreManager manager : tupleStoreManager) {
+				stagedSSTables.get(manager).forEach(f -> manager.tupleStoreInstances.addNewDetectedSSTable(f));
+			}
+			return;
+		}
+		
+		final TupleStoreManager manager = tupleStoreManager.get(position);
+		
+		// The state of the tuple store is changed while holding this lock
+		synchronized (manager.tupleStoreInstances) {
+			if(manager.tupleStoreInstances.getState() == TupleStoreManagerState.READ_ONLY) {
+				throw new RejectedException("Storage manager is in read only state: " 
+						+ manager.getTupleStoreName());
+			}
+			
+			publishStagedSSTables(stagedSSTables, tupleStoreManager, position + 1);
+		}
+	}
+
+	/**
+	 * Remove a published SSTable (e.g., an adopted SSTable of an aborted bulk load).
+	 * The SSTable is deleted when it is no longer used. An SSTable that is already 
+	 * merged by a compaction can not be removed.
+	 * 
+	 * @param facade
+	 * @throws StorageManagerException
+	 */
+	public void removeSSTable(final SSTableFacade facade) throws StorageManagerException {
+		
+		if(! tupleStoreInstances.removeSSTable(facade)) {
+			throw new StorageManagerException("SSTable " + facade.getTablebumber() + " of " 
+					+ tupleStoreName.getFullname() + " is unknown, it may be compacted");
+		}
+		
+		facade.deleteOnClose();
+		notifyStorageChanged();
+		
+		logger.info("Removed SSTable {} of {}", facade.getTablebumber(), tupleStoreName.getFullname());
 	}
 
 	/**
@@ -864,6 +1187,18 @@ public class TupleStoreManager implements BBoxDBService {
 	public TupleStoreConfiguration getTupleStoreConfiguration() {
 		return tupleStoreConfiguration;
 	}
+	
+	/**
+	 * Get the compression for new written SSTables
+	 * @return
+	 */
+	public SSTableCompression getSSTableCompression() {
+		if(tupleStoreConfiguration == null || tupleStoreConfiguration.getCompression() == null) {
+			return SSTableCompression.NONE;
+		}
+		
+		return tupleStoreConfiguration.getCompression();
+	}
 
 	/**
 	 * Register a new insert callback
@@ -880,6 +1215,65 @@ public class TupleStoreManager implements BBoxDBService {
 	public boolean removeInsertCallback(final Consumer<Tuple> callback) {
 		return insertCallbacks.remove(callback);
 	}
+	
+	/**
+	 * Register a new insert callback for the given region. The callback is only 
+	 * executed for tuples that intersect the region (Hyperrectangle.FULL_SPACE = all 
+	 * tuples) and is executed asynchronously by the insert callback dispatcher.
+	 * 
+	 * @param region
+	 * @param callback
+	 */
+	public void registerSpatialInsertCallback(final Hyperrectangle region, final Consumer<Tuple> callback) {
+		spatialInsertCallbacks.registerCallback(region, callback);
+	}
+	
+	/**
+	 * Remove a spatial insert callback
+	 * @param callback
+	 * @return
+	 */
+	public boolean removeSpatialInsertCallback(final Consumer<Tuple> callback) {
+		return spatialInsertCallbacks.removeCallback(callback);
+	}
+	
+	/**
+	 * Dispatch the tuple to the matching spatial insert callbacks
+	 * @param tuple
+	 */
+	private void dispatchSpatialInsertCallbacks(final Tuple tuple) {
+		
+		if(spatialInsertCallbacks.isEmpty()) {
+			return;
+		}
+		
+		final List<Consumer<Tuple>> callbacks = spatialInsertCallbacks.getCallbacksForTuple(tuple);
+		
+		if(callbacks.isEmpty()) {
+			return;
+		}
+		
+		final InsertCallbackDispatcher dispatcher = getInsertCallbackDispatcher();
+		
+		if(dispatcher == null) {
+			callbacks.forEach(c -> c.accept(tuple));
+		} else {
+			dispatcher.dispatch(tuple, callbacks);
+		}
+	}
+
+	/**
+	 * Get the insert callback dispatcher
+	 * @return
+	 */
+	private InsertCallbackDispatcher getInsertCallbackDispatcher() {
+		
+		if(storage == null || storage.getTupleStoreManagerRegistry() == null) {
+			return null;
+		}
+		
+		return storage.getTupleStoreManagerRegistry().getInsertCallbackDispatcher();
+	}
 
 	/**
 	 * Get the most recent version of the tuple
@@ -28,6 +28,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -75,6 +76,11 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 	 */
 	private final List<BiConsumer<TupleStoreName, Long>> flushCallbacks;
 
+	/**
+	 * The callbacks for changed tuple stores (flush, compaction, creation, deletion)
+	 */
+	private final List<Consumer<TupleStoreName>> storageChangedCallbacks;
+
 	/**
 	 * The service state
 	 */
@@ -84,6 +90,11 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 	 * The zookeeper observer
 	 */
 	private final TupleStoreZookeeperObserver zookeeperObserver;
+	
+	/**
+	 * The dispatcher for the insert callbacks
+	 */
+	private final InsertCallbackDispatcher insertCallbackDispatcher;
 
 	/**
 	 * The logger
@@ -100,8 +111,11 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 		this.tupleStoreLocations = new ConcurrentHashMap<>();
 		this.storages = new ConcurrentHashMap<>();
 		this.flushCallbacks = new CopyOnWriteArrayList<>();
+		this.storageChangedCallbacks = new CopyOnWriteArrayList<>();
 		this.serviceState = new ServiceState();
 		this.zookeeperObserver = new TupleStoreZookeeperObserver(this);
+		this.insertCallbackDispatcher = new InsertCallbackDispatcher(
+				configuration.getContinuousQueryThreads());
 	}
 
 	/**
@@ -145,6 +159,8 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 			}
 		}
 
+		insertCallbackDispatcher.init();
+
 		serviceState.dispatchToRunning();
 	}
 
@@ -229,6 +245,8 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 
 		logger.info("Shutting down storages");
 		storages.values().forEach(s -> s.shutdown());
+		
+		insertCallbackDispatcher.shutdown();
 
 		synchronized (this) {
 			managerInstances.clear();
@@ -289,6 +307,7 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 
 		logger.info("Deleting table {}", table.getFullname());
 		TupleStoreManager.deletePersistentTableData(storageDirectory, table);
+		notifyStorageChanged(table);
 	}
 
 	/**
@@ -318,6 +337,7 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 
 		tupleStoreManager.init();
 		managerInstances.put(tupleStoreName, tupleStoreManager);
+		notifyStorageChanged(tupleStoreName);
 
 		return tupleStoreManager;
 	}
@@ -506,6 +526,37 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 		return Collections.unmodifiableList(flushCallbacks);
 	}
 
+	/**
+	 * Register a new callback for changed tuple stores
+	 * @param callback
+	 */
+	public void registerStorageChangedCallback(final Consumer<TupleStoreName> callback) {
+		storageChangedCallbacks.add(callback);
+	}
+
+	/**
+	 * Remove a callback for changed tuple stores
+	 * @param callback
+	 * @return
+	 */
+	public boolean removeStorageChangedCallback(final Consumer<TupleStoreName> callback) {
+		return storageChangedCallbacks.remove(callback);
+	}
+
+	/**
+	 * The tuple stores of the table are changed (e.g., by a flush or a compaction)
+	 * @param tupleStoreName
+	 */
+	public void notifyStorageChanged(final TupleStoreName tupleStoreName) {
+		for(final Consumer<TupleStoreName> callback : storageChangedCallbacks) {
+			try {
+				callback.accept(tupleStoreName);
+			} catch(Exception e) {
+				logger.error("Got exception while executing callback", e);
+			}
+		}
+	}
+
 	/**
 	 * Get all sstables for the given location
 	 * @param basedir
@@ -533,6 +584,14 @@ public class TupleStoreManagerRegistry implements BBoxDBService {
 	public BBoxDBConfiguration getConfiguration() {
 		return configuration;
 	}
+	
+	/**
+	 * Get the insert callback dispatcher
+	 * @return
+	 */
+	public InsertCallbackDispatcher getInsertCallbackDispatcher() {
+		return insertCallbackDispatcher;
+	}
 
 	@Override
 	public String getServicename() {
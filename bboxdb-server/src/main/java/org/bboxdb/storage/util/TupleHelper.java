@@ -24,6 +24,7 @@ import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.List;
 
 import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.commons.math.Hyperrectangle;
@@ -215,6 +216,29 @@ public class TupleHelper {
 		return new Tuple(keyString, boundingBox, dataBytes, versionTimestamp, receivedTimestamp);
 	}
 	
+	/**
+	 * Get the box that covers all tuples. Tuples without a bounding 
+	 * box (e.g., deleted tuples) cover the full space.
+	 * @param tuples
+	 * @return
+	 */
+	public static Hyperrectangle getCoveringBox(final List<Tuple> tuples) {
+		Hyperrectangle coveringBox = null;
+		
+		for(final Tuple tuple : tuples) {
+			final Hyperrectangle boundingBox = tuple.getBoundingBox();
+			
+			if(boundingBox.equals(Hyperrectangle.FULL_SPACE)) {
+				return Hyperrectangle.FULL_SPACE;
+			}
+			
+			coveringBox = (coveringBox == null) ? boundingBox 
+					: Hyperrectangle.getCoveringBox(coveringBox, boundingBox);
+		}
+		
+		return (coveringBox == null) ? Hyperrectangle.FULL_SPACE : coveringBox;
+	}
+	
 	/**
 	 * Is this a deleted tuple?
 	 * @param tuple
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+
+public class TupleStoreSampleHelper {
+
+	/**
+	 * Read samples at evenly spaced positions of the tuple store
+	 * 
+	 * @param tupleStore
+	 * @param maxSamples
+	 * @return
+	 * @throws StorageManagerException
+	 */
+	public static List<Hyperrectangle> getPositionSamples(final ReadOnlyTupleStore tupleStore, 
+			final int maxSamples) throws StorageManagerException {
+		
+		final List<Hyperrectangle> samples = new ArrayList<>();
+		final long numberOfTuples = tupleStore.getNumberOfTuples();
+		final long sampleOffset = Math.max(1, numberOfTuples / maxSamples);
+		
+		for (long position = 0; position < numberOfTuples; position = position + sampleOffset) {
+			final Tuple tuple = tupleStore.getTupleAtPosition(position);
+			
+			// Tuple is not completely written (memtable)
+			if(tuple == null) {
+				continue;
+			}
+			
+			final Hyperrectangle tupleBoundingBox = tuple.getBoundingBox();
+		
+			// Ignore tuples with an empty box (e.g. deleted tuples)
+			if(tupleBoundingBox == null || tupleBoundingBox.equals(Hyperrectangle.FULL_SPACE)) {
+				continue;
+			}
+			
+			samples.add(tupleBoundingBox);
+		}
+		
+		return samples;
+	}
+	
+	/**
+	 * Convert the sample data of the metadata into bounding boxes
+	 * 
+	 * @param sampleData
+	 * @param dimensions
+	 * @return
+	 */
+	public static List<Hyperrectangle> getSamplesFromArray(final double[] sampleData, 
+			final int dimensions) {
+		
+		final List<Hyperrectangle> samples = new ArrayList<>();
+		
+		if(sampleData == null || dimensions <= 0) {
+			return samples;
+		}
+		
+		final int valuesPerBox = dimensions * 2;
+		
+		for(int pos = 0; pos + valuesPerBox <= sampleData.length; pos = pos + valuesPerBox) {
+			samples.add(new Hyperrectangle(Arrays.copyOfRange(sampleData, pos, pos + valuesPerBox)));
+		}
+		
+		return samples;
+	}
+}
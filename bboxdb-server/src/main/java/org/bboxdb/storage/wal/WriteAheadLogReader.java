@@ -22,9 +22,12 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.zip.CRC32;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.sstable.SSTableConst;
@@ -46,6 +49,11 @@ public class WriteAheadLogReader implements Closeable, Iterable<Tuple> {
 	 */
 	private final File file;
 
+	/**
+	 * Does the file contain framed records
+	 */
+	private final boolean framedRecords;
+
 	/**
 	 * The Logger
 	 */
@@ -76,6 +84,11 @@ public class WriteAheadLogReader implements Closeable, Iterable<Tuple> {
 					return false;
 				}
 
+				if(framedRecords) {
+					nextTuple = readFramedRecord();
+					return nextTuple != null;
+				}
+
 				nextTuple = TupleHelper.decodeTuple(inputStream);
 
 				return true;
@@ -99,6 +112,49 @@ public class WriteAheadLogReader implements Closeable, Iterable<Tuple> {
 		}
 	}
 
+	/**
+	 * Read the next framed record. A truncated or corrupted record
+	 * marks the end of the log (e.g., a crash during the write).
+	 *
+	 * @return the tuple or null
+	 * @throws IOException
+	 */
+	private Tuple readFramedRecord() throws IOException {
+		final byte[] header = new byte[WriteAheadLogWriter.FRAME_HEADER_BYTES];
+
+		if(ByteStreams.read(inputStream, header, 0, header.length) != header.length) {
+			logger.warn("Found truncated record header in WAL {}", file);
+			return null;
+		}
+
+		final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+		headerBuffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		final int length = headerBuffer.getInt();
+		final int expectedChecksum = headerBuffer.getInt();
+
+		if(length < 0 || length > file.length()) {
+			logger.warn("Found invalid record length {} in WAL {}", length, file);
+			return null;
+		}
+
+		final byte[] tupleBytes = new byte[length];
+
+		if(ByteStreams.read(inputStream, tupleBytes, 0, length) != length) {
+			logger.warn("Found truncated record in WAL {}", file);
+			return null;
+		}
+
+		final CRC32 crc = new CRC32();
+		crc.update(tupleBytes);
+
+		if((int) crc.getValue() != expectedChecksum) {
+			logger.warn("Found record with invalid checksum in WAL {}", file);
+			return null;
+		}
+
+		return TupleHelper.decodeTuple(ByteBuffer.wrap(tupleBytes));
+	}
+
 	public WriteAheadLogReader(final File basedir, final int memtableNumber) throws IOException, StorageManagerException {
 		this(WriteAheadLogManager.getFileForWal(basedir, memtableNumber));
 	}
@@ -118,7 +174,11 @@ public class WriteAheadLogReader implements Closeable, Iterable<Tuple> {
 
 		ByteStreams.readFully(inputStream, magicBytes, 0, expectedMagic.length);
 
-		if(! Arrays.equals(magicBytes, expectedMagic)) {
+		if(Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_WAL_FRAMED)) {
+			framedRecords = true;
+		} else if(Arrays.equals(magicBytes, expectedMagic)) {
+			framedRecords = false;
+		} else {
 			throw new StorageManagerException("File " + file + " does not contain the magic bytes");
 		}
 	}
@@ -0,0 +1,37 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.wal;
+
+public enum WriteAheadLogSyncPolicy {
+	
+	/**
+	 * The data is written to the operating system, no fsync is performed
+	 */
+	NONE,
+	
+	/**
+	 * The WAL is synced to disk, when the sync interval is elapsed
+	 */
+	INTERVAL,
+	
+	/**
+	 * The WAL is synced to disk after each written batch
+	 */
+	BATCH;
+
+}
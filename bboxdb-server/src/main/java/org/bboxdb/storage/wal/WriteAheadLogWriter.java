@@ -1,81 +1,448 @@
 /*******************************************************************************
  *
  *    Copyright (C) 2015-2020 the BBoxDB project
- *
+ *  
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
  *    You may obtain a copy of the License at
- *
+ *  
  *      http://www.apache.org/licenses/LICENSE-2.0
- *
+ *  
  *    Unless required by applicable law or agreed to in writing, software
  *    distributed under the License is distributed on an "AS IS" BASIS,
  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  *    See the License for the specific language governing permissions and
- *    limitations under the License.
- *
+ *    limitations under the License. 
+ *    
  *******************************************************************************/
 package org.bboxdb.storage.wal;
 
-import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.util.TupleHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
+/**
+ * The WAL writer uses a group commit. Concurrent writers append their records
+ * to a pending batch. One of the waiting threads writes the whole batch with
+ * one sequential write and performs the fsync required by the sync policy.
+ * 
+ * Each record is framed: [length][crc32][tuple bytes]
+ * 
+ * With the INTERVAL policy, a batch is synced when the interval is elapsed. 
+ * Data that is written without a sync is synced by a timer, so it becomes 
+ * durable within the interval even when no further batch is written.
+ */
 public class WriteAheadLogWriter implements Closeable {
 
 	/**
-	 * The file writer
+	 * The file channel
 	 */
-	private BufferedOutputStream os;
+	private FileChannel channel;
 
 	/**
 	 * The file
 	 */
 	private final File file;
+	
+	/**
+	 * The sync policy
+	 */
+	private final WriteAheadLogSyncPolicy syncPolicy;
+	
+	/**
+	 * The sync interval in milliseconds (used by the INTERVAL policy)
+	 */
+	private final long syncInterval;
+	
+	/**
+	 * The records waiting to be written
+	 */
+	private List<ByteBuffer> pendingRecords;
+	
+	/**
+	 * The sequence number of the last added records
+	 */
+	private long addedSequence;
+	
+	/**
+	 * The sequence number of the last written records
+	 */
+	private long writtenSequence;
+	
+	/**
+	 * Is a batch written at the moment
+	 */
+	private boolean writeInProgress;
+	
+	/**
+	 * The last sync timestamp
+	 */
+	private volatile long lastSyncTimestamp;
+	
+	/**
+	 * Is data written that is not synced
+	 */
+	private volatile boolean unsyncedData;
+	
+	/**
+	 * The interval sync task (INTERVAL policy)
+	 */
+	private ScheduledFuture<?> syncTask;
+	
+	/**
+	 * The exception of a failed write
+	 */
+	private IOException writeException;
+	
+	/**
+	 * The size of the frame header
+	 */
+	public final static int FRAME_HEADER_BYTES = 2 * DataEncoderHelper.INT_BYTES;
+	
+	/**
+	 * The scheduler for the interval syncs
+	 */
+	private final static ScheduledExecutorService syncScheduler;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(WriteAheadLogWriter.class);
+	
+	static {
+		final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+				.setNameFormat("WAL sync thread %d")
+				.setDaemon(true)
+				.build();
+		
+		syncScheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+	}
 
 	public WriteAheadLogWriter(final File basedir, final long memtableNumber) throws IOException {
+		this(basedir, memtableNumber, WriteAheadLogSyncPolicy.NONE, 0);
+	}
+	
+	public WriteAheadLogWriter(final File basedir, final long memtableNumber, 
+			final WriteAheadLogSyncPolicy syncPolicy, final long syncInterval) throws IOException {
 
 		this.file = WriteAheadLogManager.getFileForWal(basedir, memtableNumber);
+		this.syncPolicy = syncPolicy;
+		this.syncInterval = syncInterval;
 
 		if(file.exists()) {
 			throw new RuntimeException("File " + file + " does already exist");
 		}
 
-		this.os = new BufferedOutputStream(new FileOutputStream(file));
-
-		os.write(SSTableConst.MAGIC_BYTES_WAL);
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, 
+				StandardOpenOption.WRITE);
+		
+		writeFully(ByteBuffer.wrap(SSTableConst.MAGIC_BYTES_WAL_FRAMED));
+		
+		this.pendingRecords = new ArrayList<>();
+		this.addedSequence = 0;
+		this.writtenSequence = 0;
+		this.writeInProgress = false;
+		this.lastSyncTimestamp = System.currentTimeMillis();
+		this.unsyncedData = false;
+		
+		if(syncPolicy == WriteAheadLogSyncPolicy.INTERVAL) {
+			final long period = Math.max(1, syncInterval);
+			this.syncTask = syncScheduler.scheduleWithFixedDelay(this::syncIfNeeded, 
+					period, period, TimeUnit.MILLISECONDS);
+		}
 	}
 
 	/**
-	 * Add a tuple to the WAL
+	 * Add a tuple to the WAL. The method returns when the tuple has reached
+	 * the durability point of the sync policy.
+	 * 
 	 * @param tuple
-	 * @throws IOException
+	 * @throws StorageManagerException
 	 */
 	public void addTuple(final Tuple tuple) throws StorageManagerException {
+		addTuples(Collections.singletonList(tuple));
+	}
+	
+	/**
+	 * Add the tuples to the WAL. The tuples are added to the same batch, so 
+	 * they are written with one write and one sync. The method returns when 
+	 * the tuples have reached the durability point of the sync policy.
+	 * 
+	 * @param tuples
+	 * @throws StorageManagerException
+	 */
+	public void addTuples(final List<Tuple> tuples) throws StorageManagerException {
+		
+		if(tuples.isEmpty()) {
+			return;
+		}
+		
+		// Encoding is done outside of the lock
+		final List<ByteBuffer> records = new ArrayList<>(tuples.size());
+		
+		for(final Tuple tuple : tuples) {
+			records.add(encodeRecord(tuple));
+		}
+		
+		final long sequence;
+		
+		synchronized (this) {
+			if(channel == null) {
+				throw new StorageManagerException("The WAL " + file + " is already closed");
+			}
+			
+			pendingRecords.addAll(records);
+			addedSequence++;
+			sequence = addedSequence;
+		}
+		
+		waitUntilWritten(sequence);
+	}
+
+	/**
+	 * Encode the tuple into a framed record
+	 * @param tuple
+	 * @return
+	 * @throws StorageManagerException
+	 */
+	private ByteBuffer encodeRecord(final Tuple tuple) throws StorageManagerException {
 		try {
-			assert (os != null) : "Writer can not be null";
-			TupleHelper.writeTupleToStream(tuple, os);
-			os.flush();
+			final byte[] tupleBytes = TupleHelper.tupleToBytes(tuple);
+			
+			final CRC32 crc = new CRC32();
+			crc.update(tupleBytes);
+			
+			final ByteBuffer record = ByteBuffer.allocate(FRAME_HEADER_BYTES + tupleBytes.length);
+			record.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+			record.putInt(tupleBytes.length);
+			record.putInt((int) crc.getValue());
+			record.put(tupleBytes);
+			record.flip();
+			
+			return record;
 		} catch (IOException e) {
 			throw new StorageManagerException(e);
 		}
 	}
+	
+	/**
+	 * Wait until the record with the sequence is written. If no other thread 
+	 * is writing, the current thread writes the pending batch. 
+	 * 
+	 * @param sequence
+	 * @throws StorageManagerException
+	 */
+	private void waitUntilWritten(final long sequence) throws StorageManagerException {
+		
+		while(true) {
+			final List<ByteBuffer> batch;
+			final long batchSequence;
+			
+			synchronized (this) {
+				while(writtenSequence < sequence && writeInProgress && writeException == null) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new StorageManagerException(e);
+					}
+				}
+				
+				if(writeException != null) {
+					throw new StorageManagerException(writeException);
+				}
+				
+				if(writtenSequence >= sequence) {
+					return;
+				}
+				
+				// Become the writer of the pending batch
+				writeInProgress = true;
+				batch = pendingRecords;
+				batchSequence = addedSequence;
+				pendingRecords = new ArrayList<>();
+			}
+			
+			IOException exception = null;
+			
+			try {
+				writeBatch(batch);
+			} catch (IOException e) {
+				exception = e;
+			} finally {
+				synchronized (this) {
+					if(exception != null) {
+						writeException = exception;
+					} else {
+						writtenSequence = batchSequence;
+					}
+					
+					writeInProgress = false;
+					notifyAll();
+				}
+			}
+		}
+	}
 
 	/**
-	 * Close the WAL writer
+	 * Write the batch and sync the channel according to the policy
+	 * @param batch
+	 * @throws IOException
+	 */
+	private void writeBatch(final List<ByteBuffer> batch) throws IOException {
+		final ByteBuffer[] buffers = batch.toArray(new ByteBuffer[batch.size()]);
+		
+		long remaining = 0;
+		for(final ByteBuffer buffer : buffers) {
+			remaining = remaining + buffer.remaining();
+		}
+		
+		while(remaining > 0) {
+			remaining = remaining - channel.write(buffers);
+		}
+		
+		switch(syncPolicy) {
+			case BATCH:
+				channel.force(false);
+				break;
+			case INTERVAL:
+				final long now = System.currentTimeMillis();
+				if(now - lastSyncTimestamp >= syncInterval) {
+					sync(channel, now);
+				} else {
+					unsyncedData = true;
+				}
+				break;
+			default:
+				break;
+		}
+	}
+	
+	/**
+	 * Sync the written data, called by the timer of the INTERVAL policy
+	 */
+	private void syncIfNeeded() {
+		final long now = System.currentTimeMillis();
+		
+		if(! unsyncedData || now - lastSyncTimestamp < syncInterval) {
+			return;
+		}
+		
+		final FileChannel syncChannel;
+		
+		synchronized (this) {
+			if(channel == null) {
+				return;
+			}
+			
+			syncChannel = channel;
+		}
+		
+		try {
+			sync(syncChannel, now);
+		} catch (IOException e) {
+			// A closed channel is synced by close()
+			logger.debug("Unable to sync WAL " + file, e);
+		}
+	}
+	
+	/**
+	 * Sync the channel. The flag is reset before the sync, so data that is 
+	 * written during the sync is synced again. 
+	 * 
+	 * @param syncChannel
+	 * @param now
+	 * @throws IOException
+	 */
+	private void sync(final FileChannel syncChannel, final long now) throws IOException {
+		unsyncedData = false;
+		syncChannel.force(false);
+		lastSyncTimestamp = now;
+	}
+	
+	/**
+	 * Is all written data synced
+	 * @return
+	 */
+	@VisibleForTesting
+	public boolean isSynced() {
+		return ! unsyncedData;
+	}
+
+	/**
+	 * Write the buffer to the channel
+	 * @param buffer
+	 * @throws IOException
+	 */
+	private void writeFully(final ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Close the WAL writer, pending records are written before
 	 */
 	@Override
 	public void close() throws IOException {
-		if(os != null) {
-			os.close();
-			os = null;
+		
+		synchronized (this) {
+			if(channel == null) {
+				return;
+			}
+			
+			if(syncTask != null) {
+				syncTask.cancel(false);
+			}
+			
+			// Wait for the running batch
+			while(writeInProgress) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException(e);
+				}
+			}
+		
+			try {
+				if(writeException == null && ! pendingRecords.isEmpty()) {
+					writeBatch(pendingRecords);
+					pendingRecords.clear();
+					writtenSequence = addedSequence;
+				}
+				
+				if(syncPolicy != WriteAheadLogSyncPolicy.NONE) {
+					sync(channel, System.currentTimeMillis());
+				}
+			} finally {
+				channel.close();
+				channel = null;
+				notifyAll();
+			}
 		}
 	}
 
@@ -86,6 +453,14 @@ public class WriteAheadLogWriter implements Closeable {
 	public File getFile() {
 		return file;
 	}
+	
+	/**
+	 * Get the sync policy
+	 * @return
+	 */
+	public WriteAheadLogSyncPolicy getSyncPolicy() {
+		return syncPolicy;
+	}
 
 	/**
 	 * Delete the base file
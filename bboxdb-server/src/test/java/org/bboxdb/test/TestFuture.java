@@ -19,8 +19,11 @@ package org.bboxdb.test;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Supplier;
 
+import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.client.BBoxDBConnection;
 import org.bboxdb.network.client.future.client.FutureRetryPolicy;
 import org.bboxdb.network.client.future.client.OperationFutureImpl;
@@ -151,6 +154,38 @@ public class TestFuture {
 		Assert.assertTrue(executions1 == totalRetries || executions2 == totalRetries);
 	}
 
+	@Test(timeout=60000)
+	public void testCompletableFuture1() throws InterruptedException {
+		final NetworkOperationFuture networkFuture = getReadyNetworkFuture();
+
+		final OperationFutureImpl<Boolean> future = new OperationFutureImpl<>(() -> Arrays.asList(networkFuture),
+				FutureRetryPolicy.RETRY_POLICY_NONE);
+
+		final CompletableFuture<Void> completableFuture = future.getCompletableFuture();
+		completableFuture.join();
+		Assert.assertTrue(future.isDone());
+		Assert.assertFalse(completableFuture.isCompletedExceptionally());
+	}
+
+	@Test(timeout=60000)
+	public void testCompletableFuture2() throws InterruptedException {
+		final NetworkOperationFutureImpl networkFuture = getFailingNetworkFuture();
+
+		final OperationFutureImpl<Boolean> future = new OperationFutureImpl<>(() -> Arrays.asList(networkFuture),
+				FutureRetryPolicy.RETRY_POLICY_ONE_FUTURE);
+
+		try {
+			future.getCompletableFuture().join();
+			Assert.fail("Exception expected");
+		} catch (CompletionException e) {
+			Assert.assertTrue(e.getCause() instanceof BBoxDBException);
+		}
+
+		Assert.assertTrue(future.isDone());
+		Assert.assertTrue(future.isFailed());
+		Assert.assertEquals(networkFuture.getTotalRetries() + 1, networkFuture.getExecutions());
+	}
+
 	/**
 	 * Get a failing network future
 	 *
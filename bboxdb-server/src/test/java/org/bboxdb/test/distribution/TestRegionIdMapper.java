@@ -17,14 +17,20 @@
  *******************************************************************************/
 package org.bboxdb.test.distribution;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.DistributionGroupConfigurationCache;
 import org.bboxdb.distribution.region.DistributionRegionIdMapper;
+import org.bboxdb.distribution.region.DistributionRegionIdSnapshot;
 import org.bboxdb.storage.entity.DistributionGroupConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.junit.Assert;
@@ -283,4 +289,183 @@ public class TestRegionIdMapper {
 		
 		regionIdMapper.waitUntilMappingDisappears(3, 5, TimeUnit.SECONDS);
 	}
+	
+	/**
+	 * Test the snapshot versions
+	 */
+	@Test(timeout=60000)
+	public void testSnapshotVersion() {
+		final DistributionRegionIdMapper regionIdMapper = new DistributionRegionIdMapper(DISTRIBUTION_REGION_NAME);
+		final DistributionRegionIdSnapshot snapshot1 = regionIdMapper.getSnapshot();
+		
+		Assert.assertTrue(regionIdMapper.addMapping(1, new Hyperrectangle(1d, 2d, 1d, 2d)));
+		Assert.assertFalse(regionIdMapper.addMapping(1, new Hyperrectangle(1d, 2d, 1d, 2d)));
+		final DistributionRegionIdSnapshot snapshot2 = regionIdMapper.getSnapshot();
+		
+		Assert.assertEquals(snapshot1.getVersion() + 1, snapshot2.getVersion());
+		Assert.assertEquals(0, snapshot1.size());
+		Assert.assertEquals(1, snapshot2.size());
+		
+		Assert.assertFalse(regionIdMapper.removeMapping(2));
+		Assert.assertEquals(snapshot2, regionIdMapper.getSnapshot());
+		
+		Assert.assertTrue(regionIdMapper.removeMapping(1));
+		Assert.assertEquals(snapshot2.getVersion() + 1, regionIdMapper.getSnapshot().getVersion());
+		Assert.assertTrue(snapshot2.getSpaceForRegionId(1).isPresent());
+		Assert.assertFalse(regionIdMapper.getSpaceForRegionId(1).isPresent());
+	}
+	
+	/**
+	 * Test the batch update of the mappings
+	 */
+	@Test(timeout=60000)
+	public void testUpdateMappings() {
+		final DistributionRegionIdMapper regionIdMapper = new DistributionRegionIdMapper(DISTRIBUTION_REGION_NAME);
+		regionIdMapper.addMapping(1, new Hyperrectangle(1d, 2d, 1d, 2d));
+		final long version = regionIdMapper.getSnapshot().getVersion();
+		
+		final Map<Long, Hyperrectangle> added = new HashMap<>();
+		added.put(2l, new Hyperrectangle(10d, 20d, 10d, 20d));
+		added.put(3l, new Hyperrectangle(15d, 18d, 15d, 18d));
+		
+		final Set<Long> removed = new HashSet<>();
+		removed.add(1l);
+		
+		Assert.assertTrue(regionIdMapper.updateMappings(added, removed));
+		Assert.assertEquals(version + 1, regionIdMapper.getSnapshot().getVersion());
+		Assert.assertEquals(2, regionIdMapper.getAllRegionIds().size());
+		Assert.assertFalse(regionIdMapper.getAllRegionIds().contains(1l));
+		
+		Assert.assertFalse(regionIdMapper.updateMappings(added, removed));
+		Assert.assertEquals(version + 1, regionIdMapper.getSnapshot().getVersion());
+	}
+	
+	/**
+	 * Compare the indexed search with a full scan on a grid of regions
+	 */
+	@Test(timeout=60000)
+	public void testIndexedSearch() {
+		final DistributionRegionIdMapper regionIdMapper = new DistributionRegionIdMapper(DISTRIBUTION_REGION_NAME);
+		final Map<Long, Hyperrectangle> regions = new HashMap<>();
+		
+		for(int x = 0; x < 100; x++) {
+			for(int y = 0; y < 100; y++) {
+				final Hyperrectangle box = new Hyperrectangle((double) x, (double) x + 1, 
+						(double) y, (double) y + 1);
+				regions.put((long) (x * 100 + y), box);
+			}
+		}
+		
+		regionIdMapper.updateMappings(regions, new HashSet<>());
+		
+		final List<Hyperrectangle> queries = Arrays.asList(
+				new Hyperrectangle(1.5d, 1.5d, 1.5d, 1.5d),
+				new Hyperrectangle(10.5d, 20.5d, 50.5d, 52.5d),
+				new Hyperrectangle(-10d, -5d, -10d, -5d),
+				new Hyperrectangle(99.5d, 200d, -20d, 0.5d),
+				Hyperrectangle.FULL_SPACE);
+		
+		for(final Hyperrectangle query : queries) {
+			final Set<Long> expected = new HashSet<>();
+			
+			regions.forEach((k, v) -> {
+				if(v.intersects(query)) {
+					expected.add(k);
+				}
+			});
+			
+			Assert.assertEquals(expected, regionIdMapper.getRegionIdsForRegion(query));
+		}
+		
+		Assert.assertEquals(10000, regionIdMapper.getRegionIdsForRegion(Hyperrectangle.FULL_SPACE).size());
+	}
+	
+	/**
+	 * Compare the indexed search with a full scan after incremental changes
+	 */
+	@Test(timeout=60000)
+	public void testIndexedSearchAfterChanges() {
+		final DistributionRegionIdMapper regionIdMapper = new DistributionRegionIdMapper(DISTRIBUTION_REGION_NAME);
+		final Map<Long, Hyperrectangle> regions = new HashMap<>();
+		
+		for(int x = 0; x < 50; x++) {
+			for(int y = 0; y < 50; y++) {
+				final Hyperrectangle box = new Hyperrectangle((double) x, (double) x + 1, 
+						(double) y, (double) y + 1);
+				regions.put((long) (x * 50 + y), box);
+			}
+		}
+		
+		regionIdMapper.updateMappings(regions, new HashSet<>());
+		
+		// Remove, move, re-add and unbound regions one by one
+		for(long regionId = 0; regionId < 1000; regionId = regionId + 7) {
+			Assert.assertTrue(regionIdMapper.removeMapping(regionId));
+			regions.remove(regionId);
+			
+			final Hyperrectangle movedBox = new Hyperrectangle(100d + regionId, 101d + regionId, 0d, 1d);
+			moveRegion(regionIdMapper, regions, regionId + 1, movedBox);
+			
+			if(regionId % 3 == 0) {
+				final Hyperrectangle readdedBox = new Hyperrectangle(5d, 6d, 5d, 6d);
+				Assert.assertTrue(regionIdMapper.addMapping(regionId, readdedBox));
+				regions.put(regionId, readdedBox);
+			}
+			
+			if(regionId % 5 == 0) {
+				moveRegion(regionIdMapper, regions, regionId + 2, Hyperrectangle.FULL_SPACE);
+			}
+			
+			if(regionId % 10 == 0) {
+				assertSearchResults(regionIdMapper, regions);
+			}
+		}
+		
+		assertSearchResults(regionIdMapper, regions);
+	}
+	
+	/**
+	 * Move the region to the new space
+	 * @param regionIdMapper
+	 * @param regions
+	 * @param regionId
+	 * @param box
+	 */
+	private void moveRegion(final DistributionRegionIdMapper regionIdMapper, 
+			final Map<Long, Hyperrectangle> regions, final long regionId, final Hyperrectangle box) {
+		
+		regionIdMapper.removeMapping(regionId);
+		Assert.assertTrue(regionIdMapper.addMapping(regionId, box));
+		regions.put(regionId, box);
+	}
+	
+	/**
+	 * Compare the indexed search with a full scan
+	 * @param regionIdMapper
+	 * @param regions
+	 */
+	private void assertSearchResults(final DistributionRegionIdMapper regionIdMapper, 
+			final Map<Long, Hyperrectangle> regions) {
+		
+		final List<Hyperrectangle> queries = Arrays.asList(
+				new Hyperrectangle(1.5d, 1.5d, 1.5d, 1.5d),
+				new Hyperrectangle(5.5d, 5.5d, 5.5d, 5.5d),
+				new Hyperrectangle(10.5d, 20.5d, 30.5d, 32.5d),
+				new Hyperrectangle(100d, 600d, 0d, 0.5d),
+				new Hyperrectangle(-10d, -5d, -10d, -5d));
+		
+		for(final Hyperrectangle query : queries) {
+			final Set<Long> expected = new HashSet<>();
+			
+			regions.forEach((k, v) -> {
+				if(v.getDimension() == 0 || v.intersects(query)) {
+					expected.add(k);
+				}
+			});
+			
+			Assert.assertEquals(expected, regionIdMapper.getRegionIdsForRegion(query));
+		}
+		
+		Assert.assertEquals(regions.keySet(), regionIdMapper.getRegionIdsForRegion(Hyperrectangle.FULL_SPACE));
+	}
 }
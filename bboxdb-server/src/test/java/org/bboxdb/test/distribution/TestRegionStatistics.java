@@ -0,0 +1,45 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.distribution;
+
+import org.bboxdb.distribution.statistics.RegionStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestRegionStatistics {
+
+	@Test(timeout=60000)
+	public void testSignificantChange() {
+		final RegionStatistics statistics = new RegionStatistics(10, 1000);
+		
+		Assert.assertFalse(statistics.isChangedSignificantly(statistics, 0.05));
+		Assert.assertFalse(new RegionStatistics(10, 1049).isChangedSignificantly(statistics, 0.05));
+		Assert.assertTrue(new RegionStatistics(10, 1050).isChangedSignificantly(statistics, 0.05));
+		Assert.assertTrue(new RegionStatistics(10, 900).isChangedSignificantly(statistics, 0.05));
+		Assert.assertTrue(new RegionStatistics(11, 1000).isChangedSignificantly(statistics, 0.05));
+	}
+	
+	@Test(timeout=60000)
+	public void testSignificantChangeEmptyRegion() {
+		final RegionStatistics statistics = new RegionStatistics(0, 0);
+		
+		Assert.assertFalse(new RegionStatistics(0, 0).isChangedSignificantly(statistics, 0.05));
+		Assert.assertTrue(new RegionStatistics(0, 1).isChangedSignificantly(statistics, 0.05));
+		Assert.assertTrue(statistics.isChangedSignificantly(new RegionStatistics(0, 1), 0.05));
+	}
+}
@@ -219,6 +219,45 @@ public class TestSampling {
 		Assert.assertTrue(coveringBox.isCoveringPointInDimension(splitPoint1, 1));	
 	}
 	
+	/**
+	 * Test the sampling of a flushed and a unflushed tuple store
+	 * @throws RejectedException 
+	 * @throws StorageManagerException 
+	 * @throws BBoxDBException 
+	 */
+	@Test(timeout=60000)
+	public void testSamplingUniform() throws StorageManagerException, RejectedException, BBoxDBException {
+		
+		final TupleStoreManager table 
+			= storageRegistry.createTable(TEST_RELATION, new TupleStoreConfiguration());
+	
+		for(int i = 0; i < 5000; i++) {
+			table.put(new Tuple(Integer.toString(i), new Hyperrectangle(1d, 2d, 1d, 2d), "".getBytes()));
+		}
+		
+		table.flush();
+		
+		for(int i = 0; i < 100; i++) {
+			table.put(new Tuple("a" + i, new Hyperrectangle(10d, 11d, 10d, 11d), "".getBytes()));
+		}
+		
+		final DistributionRegion rootNode 
+			= SpacePartitionerCache.getInstance().getSpacePartitionerForGroupName(TEST_GROUP).getRootNode();
+		
+		final Collection<Hyperrectangle> samples 
+			= SamplingHelper.getSamplesForRegion(rootNode, storageRegistry);
+		
+		final long samplesInMemtable = samples.stream()
+				.filter(s -> s.getCoordinateLow(0) == 10d)
+				.count();
+		
+		// The memtable contains 2 % of the tuples, the samples are not skewed 
+		// by the number of tuple stores
+		Assert.assertTrue(samples.size() > 100);
+		Assert.assertTrue(samplesInMemtable > 0);
+		Assert.assertTrue(samplesInMemtable < samples.size() / 10);
+	}
+	
 	/**
 	 * Test the simple splitpoint strategy
 	 * @throws StorageManagerException 
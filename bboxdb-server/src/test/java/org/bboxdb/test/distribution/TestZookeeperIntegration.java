@@ -20,6 +20,7 @@ package org.bboxdb.test.distribution;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.OptionalDouble;
@@ -36,6 +37,7 @@ import org.bboxdb.distribution.partitioner.regionsplit.RegionMergeHelper;
 import org.bboxdb.distribution.partitioner.regionsplit.StatisticsHelper;
 import org.bboxdb.distribution.placement.ResourceAllocationException;
 import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.distribution.statistics.RegionStatistics;
 import org.bboxdb.distribution.zookeeper.DistributionGroupAdapter;
 import org.bboxdb.distribution.zookeeper.DistributionRegionAdapter;
 import org.bboxdb.distribution.zookeeper.TupleStoreAdapter;
@@ -51,6 +53,7 @@ import org.bboxdb.storage.entity.DistributionGroupConfigurationBuilder;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.bboxdb.storage.util.EnvironmentHelper;
 import org.bboxdb.test.BBoxDBTestHelper;
@@ -326,6 +329,40 @@ public class TestZookeeperIntegration {
 		Assert.assertEquals(33, size3.getAsDouble(), DELTA);
 	}
 
+	/**
+	 * Test the batch update of the region statistics
+	 * @throws ZookeeperException
+	 * @throws ZookeeperNotFoundException
+	 * @throws BBoxDBException
+	 */
+	@Test(timeout=60000)
+	public void testStatisticsBatchUpdate() throws ZookeeperException, ZookeeperNotFoundException, BBoxDBException {
+		
+		System.out.println("====> Executing testStatisticsBatchUpdate()");
+		
+		final BBoxDBInstance system1 = new BBoxDBInstance("192.168.1.10:5050");
+		final DistributionRegion region = getSpacePartitioner().getRootNode();
+		
+		final Map<DistributionRegion, RegionStatistics> statistics = new HashMap<>();
+		statistics.put(region, new RegionStatistics(42, 4711));
+		
+		// The statistics nodes are not created by the batch update
+		try {
+			distributionRegionAdapter.updateRegionStatistics(statistics, system1);
+			Assert.fail("Exception expected");
+		} catch(ZookeeperException e) {
+			// Expected
+		}
+		
+		distributionRegionAdapter.updateRegionStatistics(region, system1, 12, 999);
+		distributionRegionAdapter.updateRegionStatistics(statistics, system1);
+		
+		final Map<BBoxDBInstance, Map<String, Long>> statistics1 = distributionRegionAdapter.getRegionStatistics(region);
+		Assert.assertEquals(1, statistics1.size());
+		Assert.assertEquals(42, statistics1.get(system1).get(ZookeeperNodeNames.NAME_STATISTICS_TOTAL_SIZE).longValue());
+		Assert.assertEquals(4711, statistics1.get(system1).get(ZookeeperNodeNames.NAME_STATISTICS_TOTAL_TUPLES).longValue());
+	}
+
 	/**
 	 * Test the statistics of child regions
 	 * @throws Exception
@@ -713,6 +750,7 @@ public class TestZookeeperIntegration {
 		configuration.setReplicationFactor((short) 1);
 		configuration.setSpacePartitioner(Const.DEFAULT_SPACE_PARTITIONER);
 		configuration.setSpacePartitionerConfig("xyz");
+		configuration.setWriteConsistencyLevel(WriteConsistencyLevel.ONE);
 
 		distributionGroupZookeeperAdapter.deleteDistributionGroup(TEST_GROUP);
 		distributionGroupZookeeperAdapter.createDistributionGroup(TEST_GROUP, configuration);
@@ -296,6 +296,46 @@ public class NetworkQueryHelper {
 		System.out.println("=== End testBoundingBoxQueryContinous 2");
 	}
 
+	/**
+	 * Insert a batch of tuples and read them back
+	 * @param bboxDBClient
+	 * @param distributionGroup
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	public static void testInsertTuples(final BBoxDB bboxDBClient, final String distributionGroup)
+			throws BBoxDBException, InterruptedException {
+
+		final String table = distributionGroup + "_relation12335";
+
+		// Create table
+		final EmptyResultFuture resultCreateTable = bboxDBClient.createTable(table, new TupleStoreConfiguration());
+		resultCreateTable.waitForCompletion();
+		Assert.assertFalse(resultCreateTable.isFailed());
+
+		final List<Tuple> tuples = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			tuples.add(new Tuple("key" + i, new Hyperrectangle((double) i, i + 1d, 0d, 1d), "abc".getBytes()));
+		}
+		
+		final EmptyResultFuture insertResult = bboxDBClient.insertTuples(table, tuples);
+		insertResult.waitForCompletion();
+		Assert.assertFalse(insertResult.isFailed());
+		Assert.assertTrue(insertResult.isDone());
+
+		final TupleListFuture keyFuture = bboxDBClient.queryKey(table, "key42");
+		keyFuture.waitForCompletion();
+		final List<Tuple> keyResult = Lists.newArrayList(keyFuture.iterator());
+		Assert.assertEquals(1, keyResult.size());
+		Assert.assertEquals(tuples.get(42), keyResult.get(0));
+		
+		final TupleListFuture bboxFuture = bboxDBClient.queryRectangle(table, 
+				new Hyperrectangle(-1d, 200d, -1d, 2d), "", "".getBytes());
+		bboxFuture.waitForCompletion();
+		Assert.assertEquals(100, Lists.newArrayList(bboxFuture.iterator()).size());
+	}
+
 	/**
 	 * Insert and delete tuple
 	 * @param bboxDBConnection
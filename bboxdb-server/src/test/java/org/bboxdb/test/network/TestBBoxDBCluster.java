@@ -143,6 +143,23 @@ public class TestBBoxDBCluster {
 		disconnect(bboxdbClient);
 	}
 
+	/**
+	 * Insert a batch of tuples
+	 * @throws InterruptedException
+	 * @throws BBoxDBException
+	 */
+	@Test(timeout=60000)
+	public void testInsertTuples() throws InterruptedException, BBoxDBException {
+		System.out.println("=== Running cluster testInsertTuples");
+
+		final BBoxDB bboxdbClient = EnvironmentHelper.connectToServer();
+
+		NetworkQueryHelper.testInsertTuples(bboxdbClient, DISTRIBUTION_GROUP);
+		System.out.println("=== End cluster testInsertTuples");
+
+		disconnect(bboxdbClient);
+	}
+
 	/**
 	 * Test the tuple join
 	 * @throws ExecutionException
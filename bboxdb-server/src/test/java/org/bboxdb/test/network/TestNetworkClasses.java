@@ -36,6 +36,8 @@ import org.bboxdb.network.capabilities.PeerCapabilities;
 import org.bboxdb.network.client.SequenceNumberGenerator;
 import org.bboxdb.network.packages.NetworkPackage;
 import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.network.packages.request.AdoptSSTablesOperation;
+import org.bboxdb.network.packages.request.AdoptSSTablesRequest;
 import org.bboxdb.network.packages.request.CancelRequest;
 import org.bboxdb.network.packages.request.CompressionEnvelopeRequest;
 import org.bboxdb.network.packages.request.CreateDistributionGroupRequest;
@@ -46,6 +48,7 @@ import org.bboxdb.network.packages.request.DisconnectRequest;
 import org.bboxdb.network.packages.request.HelloRequest;
 import org.bboxdb.network.packages.request.InsertOption;
 import org.bboxdb.network.packages.request.InsertTupleRequest;
+import org.bboxdb.network.packages.request.InsertTuplesRequest;
 import org.bboxdb.network.packages.request.KeepAliveRequest;
 import org.bboxdb.network.packages.request.LockTupleRequest;
 import org.bboxdb.network.packages.request.NextPageRequest;
@@ -56,6 +59,7 @@ import org.bboxdb.network.packages.request.QueryInsertTimeRequest;
 import org.bboxdb.network.packages.request.QueryJoinRequest;
 import org.bboxdb.network.packages.request.QueryKeyRequest;
 import org.bboxdb.network.packages.request.QueryVersionTimeRequest;
+import org.bboxdb.network.packages.request.TransferSSTableRequest;
 import org.bboxdb.network.packages.response.CompressionEnvelopeResponse;
 import org.bboxdb.network.packages.response.HelloResponse;
 import org.bboxdb.network.packages.response.JoinedTupleResponse;
@@ -74,7 +78,13 @@ import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableFileType;
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.compact.MergeStrategyType;
+import org.bboxdb.storage.sstable.transfer.SSTableTransfer;
 import org.bboxdb.storage.util.TupleHelper;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -243,6 +253,134 @@ public class TestNetworkClasses {
 		Assert.assertTrue(insertPackage.toString().length() > 10);
 	}
 	
+	/**
+	 * The the encoding and decoding of an insert tuples package
+	 * @throws IOException 
+	 * @throws PackageEncodeException 
+	 */
+	@Test(timeout=60000)
+	public void encodeAndDecodeInsertTuples() throws IOException, PackageEncodeException {
+		final Tuple tuple1 = new Tuple("key1", new Hyperrectangle(1.3244343224, 232.232333343, 34324.343, 343243.0), "abc".getBytes(), 12);
+		final Tuple tuple2 = new Tuple("key2", Hyperrectangle.FULL_SPACE, "def".getBytes(), 13);
+		final Tuple tuple3 = new DeletedTuple("key3", 14);
+		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+		
+		final RoutingHop hop = new RoutingHop(new BBoxDBInstance("host1:50500"), Arrays.asList(1l, 2l));
+		final RoutingHeader routingHeader = new RoutingHeader((short) 0, Arrays.asList(hop));
+
+		final InsertTuplesRequest insertPackage = new InsertTuplesRequest(sequenceNumber, 
+				routingHeader, new TupleStoreName("test_table"), Arrays.asList(tuple1, tuple2, tuple3), 
+				INSERT_OPTIONS_STREAMING);
+		
+		byte[] encodedVersion = networkPackageToByte(insertPackage);
+		Assert.assertNotNull(encodedVersion);
+
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedVersion);
+		final InsertTuplesRequest decodedPackage = InsertTuplesRequest.decodeTuple(bb);
+				
+		Assert.assertEquals(insertPackage.getTuples(), decodedPackage.getTuples());
+		Assert.assertEquals(insertPackage.getTable(), decodedPackage.getTable());
+		Assert.assertEquals(INSERT_OPTIONS_STREAMING, decodedPackage.getInsertOptions());
+		Assert.assertEquals(routingHeader, decodedPackage.getRoutingHeader());
+		Assert.assertEquals(insertPackage, decodedPackage);
+		Assert.assertEquals(insertPackage.hashCode(), decodedPackage.hashCode());
+		Assert.assertTrue(insertPackage.toString().length() > 10);
+	}
+	
+	/**
+	 * Test the decoding and the encoding of a SSTable transfer chunk
+	 * @throws IOException
+	 * @throws PackageEncodeException
+	 */
+	@Test(timeout=60000)
+	public void encodeAndDecodeTransferSSTableChunk() throws IOException, PackageEncodeException {
+		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+		
+		final TransferSSTableRequest transferPackage = TransferSSTableRequest.createChunkRequest(
+				sequenceNumber, new TupleStoreName("test_table_1"), "abc-123", SSTableFileType.SPATIAL_INDEX, 
+				100, 2000, 4711, "data".getBytes());
+		
+		byte[] encodedVersion = networkPackageToByte(transferPackage);
+		Assert.assertNotNull(encodedVersion);
+
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedVersion);
+		final TransferSSTableRequest decodedPackage = TransferSSTableRequest.decodeTuple(bb);
+		
+		Assert.assertEquals(transferPackage.getTable(), decodedPackage.getTable());
+		Assert.assertEquals("abc-123", decodedPackage.getTransferId());
+		Assert.assertEquals(SSTableFileType.SPATIAL_INDEX, decodedPackage.getFileType());
+		Assert.assertEquals(100, decodedPackage.getOffset());
+		Assert.assertEquals(2000, decodedPackage.getFileLength());
+		Assert.assertEquals(4711, decodedPackage.getChecksum());
+		Assert.assertArrayEquals("data".getBytes(), decodedPackage.getData());
+		Assert.assertFalse(decodedPackage.isCommit());
+		Assert.assertEquals(transferPackage, decodedPackage);
+		Assert.assertEquals(transferPackage.hashCode(), decodedPackage.hashCode());
+		Assert.assertTrue(transferPackage.toString().length() > 10);
+	}
+	
+	/**
+	 * Test the decoding and the encoding of a SSTable transfer commit
+	 * @throws IOException
+	 * @throws PackageEncodeException
+	 */
+	@Test(timeout=60000)
+	public void encodeAndDecodeTransferSSTableCommit() throws IOException, PackageEncodeException {
+		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+		
+		final TransferSSTableRequest transferPackage = TransferSSTableRequest.createCommitRequest(
+				sequenceNumber, new TupleStoreName("test_table_1"), "abc-123");
+		
+		byte[] encodedVersion = networkPackageToByte(transferPackage);
+		Assert.assertNotNull(encodedVersion);
+
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedVersion);
+		final TransferSSTableRequest decodedPackage = TransferSSTableRequest.decodeTuple(bb);
+		
+		Assert.assertTrue(decodedPackage.isCommit());
+		Assert.assertEquals(0, decodedPackage.getData().length);
+		Assert.assertEquals(transferPackage, decodedPackage);
+	}
+	
+	/**
+	 * Test the decoding and the encoding of a adopt SSTables request
+	 * @throws IOException
+	 * @throws PackageEncodeException
+	 */
+	@Test(timeout=60000)
+	public void encodeAndDecodeAdoptSSTables() throws IOException, PackageEncodeException {
+		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+		
+		final List<SSTableTransfer> transfers = Arrays.asList(
+				new SSTableTransfer(new TupleStoreName("test_table_1"), "abc-123"),
+				new SSTableTransfer(new TupleStoreName("test_table_2"), "def-456"));
+		
+		final AdoptSSTablesRequest adoptPackage = new AdoptSSTablesRequest(sequenceNumber, transfers);
+		
+		byte[] encodedVersion = networkPackageToByte(adoptPackage);
+		Assert.assertNotNull(encodedVersion);
+
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedVersion);
+		final AdoptSSTablesRequest decodedPackage = AdoptSSTablesRequest.decodeTuple(bb);
+		
+		Assert.assertEquals(transfers, decodedPackage.getTransfers());
+		Assert.assertEquals(adoptPackage, decodedPackage);
+		Assert.assertEquals(adoptPackage.hashCode(), decodedPackage.hashCode());
+		Assert.assertTrue(adoptPackage.toString().length() > 10);
+		
+		for(final AdoptSSTablesOperation operation : AdoptSSTablesOperation.values()) {
+			final AdoptSSTablesRequest operationPackage = new AdoptSSTablesRequest(sequenceNumber, 
+					operation, transfers);
+			
+			final ByteBuffer operationBuffer = NetworkPackageDecoder.encapsulateBytes(
+					networkPackageToByte(operationPackage));
+			
+			final AdoptSSTablesRequest decodedOperationPackage = AdoptSSTablesRequest.decodeTuple(operationBuffer);
+			Assert.assertEquals(operation, decodedOperationPackage.getOperation());
+			Assert.assertEquals(operationPackage, decodedOperationPackage);
+		}
+	}
+	
 	/**
 	 * Test the decoding and the encoding of a joined tuple
 	 * @throws PackageEncodeException 
@@ -326,6 +464,7 @@ public class TestNetworkClasses {
 				.withMaximumRegionSizeInMB(33333)
 				.withMinimumRegionSizeInMB(1111)
 				.withReplicationFactor((short) 11)
+				.withWriteConsistencyLevel(WriteConsistencyLevel.QUORUM)
 				.build();
 				
 		final CreateDistributionGroupRequest groupPackage = new CreateDistributionGroupRequest(sequenceNumber, 
@@ -339,6 +478,7 @@ public class TestNetworkClasses {
 				
 		Assert.assertEquals(groupPackage.getDistributionGroup(), decodedPackage.getDistributionGroup());
 		Assert.assertEquals(groupPackage.getDistributionGroupConfiguration(), distributionGroupConfiguration);
+		Assert.assertEquals(distributionGroupConfiguration, decodedPackage.getDistributionGroupConfiguration());
 	
 		Assert.assertEquals(groupPackage.hashCode(), decodedPackage.hashCode());
 		Assert.assertEquals(groupPackage.toString(), decodedPackage.toString());
@@ -479,6 +619,10 @@ public class TestNetworkClasses {
 				.withVersions(666)
 				.withSpatialIndexReader("reader")
 				.withSpatialIndexWriter("writer")
+				.withWalSyncPolicy(WriteAheadLogSyncPolicy.INTERVAL)
+				.withWalSyncInterval(5, TimeUnit.SECONDS)
+				.withMergeStrategy(MergeStrategyType.LEVELED)
+				.withCompression(SSTableCompression.ZSTD)
 				.build();
 		
 		final CreateTableRequest createPackage = new CreateTableRequest(sequenceNumber, "test", ssTableConfiguration);
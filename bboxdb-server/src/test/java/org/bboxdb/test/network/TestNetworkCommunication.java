@@ -18,8 +18,13 @@
 package org.bboxdb.test.network;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
 import org.bboxdb.BBoxDBMain;
@@ -478,6 +483,46 @@ public class TestNetworkCommunication {
 		Assert.assertEquals(0, resultList.size());
 	}
 
+	/**
+	 * Test the non-blocking insert and query methods
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testInsertAndQueryAsync() throws Exception {
+		final BBoxDBConnection bboxdbConnection = connectToServer();
+		final BBoxDBClient bboxdbClient = bboxdbConnection.getBboxDBClient();
+
+		final String table = DISTRIBUTION_GROUP + "_insertandqueryasync";
+
+		// Create table
+		final EmptyResultFuture resultCreateTable = bboxdbClient.createTable(table, new TupleStoreConfiguration());
+		resultCreateTable.waitForCompletion();
+		Assert.assertFalse(resultCreateTable.isFailed());
+
+		final List<CompletableFuture<EmptyResultFuture>> insertFutures = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			final Tuple tuple = new Tuple("key" + i, Hyperrectangle.FULL_SPACE, "abc".getBytes());
+			insertFutures.add(bboxdbClient.insertTupleAsync(table, tuple));
+		}
+		
+		CompletableFuture.allOf(insertFutures.toArray(new CompletableFuture[0])).join();
+		
+		final List<Tuple> keyResult = bboxdbClient.queryKeyAsync(table, "key5")
+				.thenApplyAsync(f -> Lists.newArrayList(f.iterator()))
+				.join();
+		
+		Assert.assertEquals(1, keyResult.size());
+		Assert.assertEquals("key5", keyResult.get(0).getKey());
+		
+		final List<Tuple> rectangleResult = bboxdbClient.queryRectangleAsync(table, 
+				Hyperrectangle.FULL_SPACE, "", "".getBytes())
+				.thenApplyAsync(f -> Lists.newArrayList(f.iterator()))
+				.join();
+		
+		Assert.assertEquals(100, rectangleResult.size());
+	}
+
 	/**
 	 * Test insert tuple and read with custom filter
 	 * @throws Exception
@@ -927,6 +972,54 @@ public class TestNetworkCommunication {
 		disconnect(bboxDBClient);
 	}
 
+	/**
+	 * Insert some tuples and request it via paging with requested ahead pages
+	 * @throws ExecutionException
+	 * @throws InterruptedException
+	 * @throws BBoxDBException
+	 */
+	@Test(timeout=60000)
+	public void testPagingPrefetch() throws InterruptedException, ExecutionException, BBoxDBException {
+		System.out.println("=== Running testPagingPrefetch");
+		final String table = DISTRIBUTION_GROUP + "_relation9998";
+		final int tuples = 100;
+
+		final BBoxDBConnection bboxdbConnection = connectToServer();
+		final BBoxDBClient bboxDBClient = bboxdbConnection.getBboxDBClient();
+
+		// Create table
+		final EmptyResultFuture resultCreateTable = bboxDBClient.createTable(table, new TupleStoreConfiguration());
+		resultCreateTable.waitForCompletion();
+		Assert.assertFalse(resultCreateTable.isFailed());
+
+		for(int i = 0; i < tuples; i++) {
+			final Tuple tuple = new Tuple(Integer.toString(i), new Hyperrectangle(0d, 1d, 0d, 1d), "abc".getBytes());
+			final EmptyResultFuture result = bboxDBClient.insertTuple(table, tuple);
+			result.waitForCompletion();
+			Assert.assertFalse(result.isFailed());
+		}
+
+		bboxDBClient.setPagingEnabled(true);
+		bboxDBClient.setTuplesPerPage((short) 7);
+
+		for(final int prefetchPages : Arrays.asList(1, 3, 15, 30)) {
+			System.out.println("Prefetch pages = " + prefetchPages);
+			bboxDBClient.setPrefetchPages(prefetchPages);
+
+			final TupleListFuture future = bboxDBClient.queryRectangle(table,
+					new Hyperrectangle(-10d, 10d, -10d, 10d), "", "".getBytes());
+			future.waitForCompletion();
+			Assert.assertFalse(future.isFailed());
+
+			final Set<String> keys = new HashSet<>();
+			future.iterator().forEachRemaining(t -> keys.add(t.getKey()));
+			Assert.assertEquals(tuples, keys.size());
+		}
+
+		System.out.println("=== End testPagingPrefetch");
+		disconnect(bboxDBClient);
+	}
+
 	/**
 	 * Insert a tuple and request it via key
 	 * @throws ExecutionException
@@ -962,6 +1055,25 @@ public class TestNetworkCommunication {
 		disconnect(bboxDBClient);
 	}
 
+	/**
+	 * Insert a batch of tuples and read them back
+	 * @throws ExecutionException
+	 * @throws InterruptedException
+	 * @throws BBoxDBException
+	 */
+	@Test(timeout=60000)
+	public void testInsertTuples() throws InterruptedException, ExecutionException, BBoxDBException {
+		System.out.println("=== Running testInsertTuples");
+
+		final BBoxDBConnection bboxdbConnection = connectToServer();
+		final BBoxDBClient bboxDBClient = bboxdbConnection.getBboxDBClient();
+
+		NetworkQueryHelper.testInsertTuples(bboxDBClient, DISTRIBUTION_GROUP);
+
+		System.out.println("=== End testInsertTuples");
+		disconnect(bboxDBClient);
+	}
+
 	/**
 	 * Insert a tuple and request it via key
 	 * @throws ExecutionException
@@ -1038,6 +1150,39 @@ public class TestNetworkCommunication {
 		disconnect(bboxDBClient);
 	}
 
+	/**
+	 * Open multiple connections in parallel, the connections are
+	 * handled by the shared worker pool of the server
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 */
+	@Test(timeout=60000)
+	public void testMultipleConnections() throws InterruptedException, ExecutionException {
+		final List<BBoxDBConnection> connections = new ArrayList<>();
+		
+		for(int i = 0; i < 50; i++) {
+			connections.add(connectToServer());
+		}
+		
+		final List<EmptyResultFuture> futures = new ArrayList<>();
+		
+		for(final BBoxDBConnection connection : connections) {
+			for(int i = 0; i < 10; i++) {
+				futures.add(connection.getBboxDBClient().sendKeepAlivePackage());
+			}
+		}
+		
+		for(final EmptyResultFuture future : futures) {
+			future.waitForCompletion();
+			Assert.assertFalse(future.isFailed());
+		}
+		
+		for(final BBoxDBConnection connection : connections) {
+			Assert.assertTrue(connection.getConnectionState().isInRunningState());
+			disconnect(connection.getBboxDBClient());
+		}
+	}
+
 	/**
 	 * Build a new connection to the bboxdb server
 	 *
@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.membership.BBoxDBInstance;
@@ -36,6 +37,8 @@ import org.bboxdb.network.routing.RoutingHeader;
 import org.bboxdb.network.routing.RoutingHeaderParser;
 import org.bboxdb.network.routing.RoutingHop;
 import org.bboxdb.network.routing.RoutingHopHelper;
+import org.bboxdb.network.routing.WriteAcknowledgementTracker;
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -307,4 +310,107 @@ public class TestRoutingHeader {
 				DistributionRegionHelper.PREDICATE_REGIONS_FOR_READ);
 		Assert.assertEquals(2, read5.size());
 	}
+	
+	/**
+	 * Test the write consistency levels
+	 */
+	@Test(timeout=60000)
+	public void testWriteConsistencyLevel() {
+		Assert.assertEquals(1, WriteConsistencyLevel.ONE.getRequiredAcknowledgements(3));
+		Assert.assertEquals(2, WriteConsistencyLevel.QUORUM.getRequiredAcknowledgements(3));
+		Assert.assertEquals(3, WriteConsistencyLevel.QUORUM.getRequiredAcknowledgements(4));
+		Assert.assertEquals(1, WriteConsistencyLevel.QUORUM.getRequiredAcknowledgements(1));
+		Assert.assertEquals(3, WriteConsistencyLevel.ALL.getRequiredAcknowledgements(3));
+		
+		for(final WriteConsistencyLevel level : WriteConsistencyLevel.values()) {
+			Assert.assertEquals(level, WriteConsistencyLevel.fromString(level.getStringValue()));
+			Assert.assertEquals(level, WriteConsistencyLevel.fromByte(level.getByteValue()));
+		}
+	}
+	
+	/**
+	 * Test the acknowledgement tracker with a quorum
+	 */
+	@Test(timeout=60000)
+	public void testWriteAcknowledgementQuorum() {
+		final RoutingHop hop1 = new RoutingHop(new BBoxDBInstance("host1:50500"), Arrays.asList(1l));
+		final RoutingHop hop2 = new RoutingHop(new BBoxDBInstance("host2:50500"), Arrays.asList(1l));
+		final RoutingHop hop3 = new RoutingHop(new BBoxDBInstance("host3:50500"), Arrays.asList(1l));
+		
+		final AtomicInteger success = new AtomicInteger(0);
+		final AtomicInteger failed = new AtomicInteger(0);
+		
+		final WriteAcknowledgementTracker tracker = new WriteAcknowledgementTracker(
+				Arrays.asList(hop1, hop2, hop3), WriteConsistencyLevel.QUORUM, 
+				() -> success.incrementAndGet(), () -> failed.incrementAndGet());
+		
+		tracker.handleSuccess(hop1);
+		Assert.assertFalse(tracker.isCompleted());
+		tracker.handleFailure(hop2);
+		Assert.assertFalse(tracker.isCompleted());
+		tracker.handleSuccess(hop3);
+		Assert.assertTrue(tracker.isCompleted());
+		
+		// Late answers are ignored
+		tracker.handleTimeout();
+		Assert.assertEquals(1, success.get());
+		Assert.assertEquals(0, failed.get());
+	}
+	
+	/**
+	 * Test the acknowledgement tracker with failed replicas
+	 */
+	@Test(timeout=60000)
+	public void testWriteAcknowledgementFailed() {
+		final RoutingHop hop1 = new RoutingHop(new BBoxDBInstance("host1:50500"), Arrays.asList(1l));
+		final RoutingHop hop2 = new RoutingHop(new BBoxDBInstance("host2:50500"), Arrays.asList(1l));
+		
+		final AtomicInteger success = new AtomicInteger(0);
+		final AtomicInteger failed = new AtomicInteger(0);
+		
+		final WriteAcknowledgementTracker tracker = new WriteAcknowledgementTracker(
+				Arrays.asList(hop1, hop2), WriteConsistencyLevel.ALL, 
+				() -> success.incrementAndGet(), () -> failed.incrementAndGet());
+		
+		tracker.handleSuccess(hop1);
+		tracker.handleFailure(hop2);
+		Assert.assertTrue(tracker.isCompleted());
+		Assert.assertEquals(0, success.get());
+		Assert.assertEquals(1, failed.get());
+		
+		final WriteAcknowledgementTracker timeoutTracker = new WriteAcknowledgementTracker(
+				Arrays.asList(hop1, hop2), WriteConsistencyLevel.ALL, 
+				() -> success.incrementAndGet(), () -> failed.incrementAndGet());
+		
+		timeoutTracker.handleSuccess(hop1);
+		timeoutTracker.handleTimeout();
+		timeoutTracker.handleSuccess(hop2);
+		Assert.assertEquals(0, success.get());
+		Assert.assertEquals(2, failed.get());
+	}
+	
+	/**
+	 * The consistency level is applied per region
+	 */
+	@Test(timeout=60000)
+	public void testWriteAcknowledgementPerRegion() {
+		final RoutingHop hop1 = new RoutingHop(new BBoxDBInstance("host1:50500"), Arrays.asList(1l));
+		final RoutingHop hop2 = new RoutingHop(new BBoxDBInstance("host2:50500"), Arrays.asList(1l, 2l));
+		final RoutingHop hop3 = new RoutingHop(new BBoxDBInstance("host3:50500"), Arrays.asList(2l));
+		
+		final AtomicInteger success = new AtomicInteger(0);
+		final AtomicInteger failed = new AtomicInteger(0);
+		
+		final WriteAcknowledgementTracker tracker = new WriteAcknowledgementTracker(
+				Arrays.asList(hop1, hop2, hop3), WriteConsistencyLevel.ONE, 
+				() -> success.incrementAndGet(), () -> failed.incrementAndGet());
+		
+		// Region 2 is not acknowledged yet
+		tracker.handleSuccess(hop1);
+		Assert.assertFalse(tracker.isCompleted());
+		tracker.handleSuccess(hop3);
+		Assert.assertTrue(tracker.isCompleted());
+		Assert.assertEquals(1, success.get());
+		Assert.assertEquals(0, failed.get());
+	}
 }
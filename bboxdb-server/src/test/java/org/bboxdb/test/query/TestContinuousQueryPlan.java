@@ -179,6 +179,32 @@ public class TestContinuousQueryPlan {
 		serializeAndDeserialize(continuousQueryPlan);
 	}
 
+	@Test(timeout=60_000)
+	public void testTransformationInputRegion() {
+		final Hyperrectangle region = new Hyperrectangle(10d, 20d, 10d, 20d);
+		
+		final Hyperrectangle enlargedRegion = new EnlargeBoundingBoxByAmountTransformation(2).getInputRegion(region);
+		Assert.assertEquals(new Hyperrectangle(8d, 22d, 8d, 22d), enlargedRegion);
+		
+		Assert.assertEquals(region, new KeyFilterTransformation("abc").getInputRegion(region));
+		Assert.assertEquals(region, new BoundingBoxFilterTransformation(
+				new Hyperrectangle(0d, 1d, 0d, 1d)).getInputRegion(region));
+		
+		Assert.assertEquals(Hyperrectangle.FULL_SPACE, 
+				new EnlargeBoundingBoxByFactorTransformation(2).getInputRegion(region));
+		Assert.assertEquals(Hyperrectangle.FULL_SPACE, 
+				new EnlargeBoundingBoxByWGS84Transformation(3.2, 1.0).getInputRegion(region));
+		
+		// The transformed box intersects the region only if the box intersects the input region
+		final EnlargeBoundingBoxByAmountTransformation transformation = new EnlargeBoundingBoxByAmountTransformation(2);
+		final Hyperrectangle box1 = new Hyperrectangle(21d, 21.5d, 21d, 21.5d);
+		final Hyperrectangle box2 = new Hyperrectangle(22.5d, 23d, 22.5d, 23d);
+		Assert.assertTrue(box1.enlargeByAmount(2).intersects(region));
+		Assert.assertTrue(box1.intersects(enlargedRegion));
+		Assert.assertFalse(box2.enlargeByAmount(2).intersects(region));
+		Assert.assertFalse(box2.intersects(transformation.getInputRegion(region)));
+	}
+
 	/**
 	 * Serialize and desierialize the given query plan
 	 * @param continuousQueryPlan
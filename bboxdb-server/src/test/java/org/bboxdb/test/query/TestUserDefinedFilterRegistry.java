@@ -0,0 +1,86 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.query;
+
+import org.bboxdb.network.query.filter.UserDefinedFilter;
+import org.bboxdb.network.query.filter.UserDefinedFilterRegistry;
+import org.bboxdb.network.query.filter.UserDefinedGeoJsonSpatialFilter;
+import org.bboxdb.network.query.filter.UserDefinedStringFilter;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestUserDefinedFilterRegistry {
+	
+	@Before
+	public void before() {
+		UserDefinedFilterRegistry.getInstance().clear();
+	}
+
+	/**
+	 * Thread safe filters are shared
+	 */
+	@Test(timeout=60000)
+	public void testThreadSafeFilter() {
+		final UserDefinedFilterRegistry registry = UserDefinedFilterRegistry.getInstance();
+		final String className = UserDefinedStringFilter.class.getName();
+		
+		final UserDefinedFilter filter1 = registry.getFilter(className, "abc".getBytes());
+		final UserDefinedFilter filter2 = registry.getFilter(className, "abc".getBytes());
+		final UserDefinedFilter filter3 = registry.getFilter(className, "def".getBytes());
+		
+		Assert.assertTrue(filter1 instanceof UserDefinedStringFilter);
+		Assert.assertTrue(filter1 == filter2);
+		Assert.assertFalse(filter1 == filter3);
+		
+		registry.clear();
+		final UserDefinedFilter filter4 = registry.getFilter(className, "abc".getBytes());
+		Assert.assertFalse(filter1 == filter4);
+	}
+	
+	/**
+	 * Not thread safe filters are created on each call
+	 */
+	@Test(timeout=60000)
+	public void testNotThreadSafeFilter() {
+		final UserDefinedFilterRegistry registry = UserDefinedFilterRegistry.getInstance();
+		final String className = UserDefinedGeoJsonSpatialFilter.class.getName();
+		
+		final UserDefinedFilter filter1 = registry.getFilter(className, "abc".getBytes());
+		final UserDefinedFilter filter2 = registry.getFilter(className, "abc".getBytes());
+		
+		Assert.assertTrue(filter1 instanceof UserDefinedGeoJsonSpatialFilter);
+		Assert.assertFalse(filter1 == filter2);
+	}
+	
+	/**
+	 * Unknown filter classes
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testUnknownFilter() {
+		UserDefinedFilterRegistry.getInstance().getFilter("org.bboxdb.unknown.Filter", new byte[] {});
+	}
+	
+	/**
+	 * Classes that are not filters
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testNoFilterClass() {
+		UserDefinedFilterRegistry.getInstance().getFilter(String.class.getName(), new byte[] {});
+	}
+}
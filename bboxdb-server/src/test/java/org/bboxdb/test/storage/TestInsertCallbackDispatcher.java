@@ -0,0 +1,107 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.tuplestore.manager.InsertCallbackDispatcher;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestInsertCallbackDispatcher {
+	
+	/**
+	 * More tuples than the dispatcher queue can hold
+	 */
+	private final static int TUPLES = 15000;
+
+	@Test(timeout=60000)
+	public void testBackpressureKeepsOrder() throws InterruptedException {
+		final InsertCallbackDispatcher dispatcher = new InsertCallbackDispatcher(1);
+		dispatcher.init();
+		
+		final CountDownLatch blockLatch = new CountDownLatch(1);
+		final CountDownLatch doneLatch = new CountDownLatch(TUPLES);
+		final List<Long> versions = Collections.synchronizedList(new ArrayList<>());
+		final List<Thread> callbackThreads = Collections.synchronizedList(new ArrayList<>());
+		
+		final Consumer<Tuple> callback = (t) -> {
+			try {
+				blockLatch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			
+			versions.add(t.getVersionTimestamp());
+			callbackThreads.add(Thread.currentThread());
+			doneLatch.countDown();
+		};
+		
+		final Thread producer = new Thread(() -> {
+			for(int i = 0; i < TUPLES; i++) {
+				final Tuple tuple = new Tuple("key", Hyperrectangle.FULL_SPACE, "".getBytes(), i);
+				dispatcher.dispatch(tuple, Arrays.asList(callback));
+			}
+		});
+		
+		producer.start();
+		
+		// The queue is full, the producer has to wait
+		while(producer.getState() != Thread.State.WAITING) {
+			Thread.sleep(10);
+		}
+		
+		Assert.assertTrue(producer.isAlive());
+		Assert.assertTrue(versions.isEmpty());
+		
+		blockLatch.countDown();
+		producer.join();
+		doneLatch.await();
+		
+		Assert.assertFalse(callbackThreads.contains(producer));
+		Assert.assertEquals(TUPLES, versions.size());
+		
+		for(int i = 0; i < TUPLES; i++) {
+			Assert.assertEquals(i, versions.get(i).longValue());
+		}
+		
+		Assert.assertEquals(0, dispatcher.getDroppedTuples());
+		dispatcher.shutdown();
+	}
+	
+	@Test(timeout=60000)
+	public void testDropAfterShutdown() {
+		final InsertCallbackDispatcher dispatcher = new InsertCallbackDispatcher(2);
+		dispatcher.init();
+		dispatcher.shutdown();
+		
+		final List<Tuple> calledTuples = new ArrayList<>();
+		final Tuple tuple = new Tuple("key", Hyperrectangle.FULL_SPACE, "".getBytes());
+		Assert.assertFalse(dispatcher.dispatch(tuple, Arrays.asList((t) -> calledTuples.add(t))));
+		
+		Assert.assertTrue(calledTuples.isEmpty());
+		Assert.assertEquals(1, dispatcher.getDroppedTuples());
+	}
+}
@@ -18,8 +18,12 @@
 package org.bboxdb.test.storage;
 
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.bboxdb.commons.MicroSecondTimestampProvider;
 import org.bboxdb.commons.ObjectSerializer;
@@ -559,6 +563,119 @@ public class TestMemtable {
 		Assert.assertTrue(memtable.isFull());
 	}
 
+	/**
+	 * Insert tuples from multiple threads
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testConcurrentInsert() throws Exception {
+		final int threads = 8;
+		final int tuplesPerThread = 1000;
+
+		final Memtable memtable = new Memtable(MEMTABLE_TABLE_NAME, threads * tuplesPerThread,
+				Long.MAX_VALUE, null);
+		memtable.init();
+		memtable.acquire();
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<Void>> futures = new ArrayList<>();
+
+		for(int thread = 0; thread < threads; thread++) {
+			final int threadNumber = thread;
+
+			futures.add(executor.submit(() -> {
+				for(int i = 0; i < tuplesPerThread; i++) {
+					final String key = threadNumber + "_" + i;
+					final Hyperrectangle bbox = new Hyperrectangle((double) i, (double) i + 1, 1d, 2d);
+					memtable.put(new Tuple(key, bbox, "abc".getBytes()));
+				}
+				return null;
+			}));
+		}
+
+		for(final Future<Void> future : futures) {
+			future.get();
+		}
+
+		executor.shutdown();
+
+		Assert.assertEquals(threads * tuplesPerThread, memtable.getNumberOfTuples());
+		Assert.assertTrue(memtable.isFull());
+		Assert.assertEquals(1, memtable.get("3_500").size());
+
+		final List<Tuple> sortedList = memtable.getSortedTupleList();
+		Assert.assertEquals(threads * tuplesPerThread, sortedList.size());
+
+		final long expectedSize = sortedList.stream().mapToLong(t -> t.getSize()).sum();
+		Assert.assertEquals(expectedSize, memtable.getSize());
+
+		for(int i = 1; i < sortedList.size(); i++) {
+			Assert.assertTrue(sortedList.get(i - 1).getKey().compareTo(sortedList.get(i).getKey()) < 0);
+		}
+
+		final Iterator<Tuple> bboxIterator = memtable.getAllTuplesInBoundingBox(
+				new Hyperrectangle(0d, 10d, 0d, 10d));
+		Assert.assertEquals(threads * 11, Lists.newArrayList(bboxIterator).size());
+		Assert.assertEquals(threads * tuplesPerThread, Lists.newArrayList(memtable.iterator()).size());
+
+		memtable.release();
+	}
+
+	/**
+	 * Test the seal of the memtable
+	 * @throws StorageManagerException
+	 */
+	@Test(timeout=60000)
+	public void testSeal() throws StorageManagerException {
+		Assert.assertFalse(memtable.isSealed());
+		Assert.assertTrue(memtable.tryPut(new Tuple("1", null, "abc".getBytes())));
+
+		memtable.seal();
+
+		Assert.assertTrue(memtable.isSealed());
+		Assert.assertFalse(memtable.tryPut(new Tuple("2", null, "abc".getBytes())));
+		Assert.assertEquals(1, memtable.getNumberOfTuples());
+		Assert.assertTrue(memtable.get("2").isEmpty());
+	}
+
+	/**
+	 * Test the seal of the memtable during concurrent puts
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testSealConcurrentPuts() throws Exception {
+		final int threads = 4;
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<Void>> futures = new ArrayList<>();
+
+		for(int thread = 0; thread < threads; thread++) {
+			final int threadNumber = thread;
+
+			futures.add(executor.submit(() -> {
+				for(int i = 0; i < MEMTABLE_MAX_ENTRIES; i++) {
+					if(! memtable.tryPut(new Tuple(threadNumber + "_" + i, null, "abc".getBytes()))) {
+						break;
+					}
+				}
+				return null;
+			}));
+		}
+
+		memtable.seal();
+
+		// No put is running after the seal
+		final long storedTuples = memtable.getNumberOfTuples();
+		Assert.assertEquals(storedTuples, memtable.getSortedTupleList().size());
+
+		for(final Future<Void> future : futures) {
+			future.get();
+		}
+
+		executor.shutdown();
+
+		Assert.assertEquals(storedTuples, memtable.getNumberOfTuples());
+	}
+
 	/**
 	 * Test the reinit
 	 */
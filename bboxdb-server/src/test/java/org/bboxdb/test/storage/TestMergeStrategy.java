@@ -0,0 +1,180 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bboxdb.misc.BBoxDBConfigurationManager;
+import org.bboxdb.storage.entity.TupleStoreConfiguration;
+import org.bboxdb.storage.entity.TupleStoreMetaData;
+import org.bboxdb.storage.sstable.compact.BasicMergeStrategy;
+import org.bboxdb.storage.sstable.compact.LeveledMergeStrategy;
+import org.bboxdb.storage.sstable.compact.MergeStrategyFactory;
+import org.bboxdb.storage.sstable.compact.MergeStrategyType;
+import org.bboxdb.storage.sstable.compact.MergeTask;
+import org.bboxdb.storage.sstable.compact.MergeTaskType;
+import org.bboxdb.storage.sstable.compact.SizeTieredMergeStrategy;
+import org.bboxdb.storage.sstable.reader.SSTableFacade;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TestMergeStrategy {
+	
+	/**
+	 * The memtable size
+	 */
+	private final static long MEMTABLE_ENTRIES 
+		= BBoxDBConfigurationManager.getConfiguration().getMemtableEntriesMax();
+
+	/**
+	 * Test the merge strategy factory
+	 */
+	@Test(timeout=60000)
+	public void testMergeStrategyFactory() {
+		Assert.assertTrue(MergeStrategyFactory.getMergeStrategy((TupleStoreConfiguration) null) 
+				instanceof BasicMergeStrategy);
+		
+		final TupleStoreConfiguration configuration = new TupleStoreConfiguration();
+		Assert.assertTrue(MergeStrategyFactory.getMergeStrategy(configuration) instanceof BasicMergeStrategy);
+		
+		configuration.setMergeStrategy(MergeStrategyType.SIZE_TIERED);
+		Assert.assertTrue(MergeStrategyFactory.getMergeStrategy(configuration) instanceof SizeTieredMergeStrategy);
+
+		configuration.setMergeStrategy(MergeStrategyType.LEVELED);
+		Assert.assertTrue(MergeStrategyFactory.getMergeStrategy(configuration) instanceof LeveledMergeStrategy);
+	}
+	
+	/**
+	 * Test the size tiered merge strategy
+	 */
+	@Test(timeout=60000)
+	public void testSizeTiered() {
+		final SizeTieredMergeStrategy mergeStrategy = new SizeTieredMergeStrategy();
+		
+		// Not enough tables
+		final List<SSTableFacade> tables = new ArrayList<>();
+		tables.add(createFacade(1, 0, MEMTABLE_ENTRIES * 100, null, null));
+		tables.add(createFacade(2, 0, 10, null, null));
+		tables.add(createFacade(3, 0, 10, null, null));
+		Assert.assertEquals(MergeTaskType.UNKNOWN, mergeStrategy.getMergeTask(tables).getTaskType());
+		
+		// The small tables are merged
+		tables.add(createFacade(4, 0, 20, null, null));
+		tables.add(createFacade(5, 0, 30, null, null));
+		final MergeTask mergeTask = mergeStrategy.getMergeTask(tables);
+		Assert.assertEquals(MergeTaskType.MINOR, mergeTask.getTaskType());
+		Assert.assertEquals(4, mergeTask.getCompactTables().size());
+		Assert.assertFalse(mergeTask.getCompactTables().contains(tables.get(0)));
+		
+		// All tables have a similar size
+		final List<SSTableFacade> similarTables = Arrays.asList(
+				createFacade(1, 0, MEMTABLE_ENTRIES * 100, null, null),
+				createFacade(2, 0, MEMTABLE_ENTRIES * 110, null, null),
+				createFacade(3, 0, MEMTABLE_ENTRIES * 90, null, null),
+				createFacade(4, 0, MEMTABLE_ENTRIES * 105, null, null));
+		
+		final MergeTask majorTask = mergeStrategy.getMergeTask(similarTables);
+		Assert.assertEquals(MergeTaskType.MAJOR, majorTask.getTaskType());
+		Assert.assertEquals(4, majorTask.getCompactTables().size());
+	}
+	
+	/**
+	 * Test the leveled merge strategy - level 0 to level 1
+	 */
+	@Test(timeout=60000)
+	public void testLeveledLevel0() {
+		final LeveledMergeStrategy mergeStrategy = new LeveledMergeStrategy();
+		
+		final List<SSTableFacade> tables = new ArrayList<>();
+		tables.add(createFacade(1, 1, 100, "a", "c"));
+		tables.add(createFacade(2, 1, 100, "d", "f"));
+		tables.add(createFacade(3, 1, 100, "x", "z"));
+		tables.add(createFacade(4, 0, 10, "e", "m"));
+		tables.add(createFacade(5, 0, 10, "g", "h"));
+		tables.add(createFacade(6, 0, 10, "e", "f"));
+		Assert.assertEquals(MergeTaskType.UNKNOWN, mergeStrategy.getMergeTask(tables).getTaskType());
+		
+		tables.add(createFacade(7, 0, 10, "k", "p"));
+		final MergeTask mergeTask = mergeStrategy.getMergeTask(tables);
+		
+		// All level 0 tables and the overlapping level 1 table
+		Assert.assertEquals(MergeTaskType.MAJOR, mergeTask.getTaskType());
+		Assert.assertEquals(1, mergeTask.getOutputLevel());
+		Assert.assertEquals(5, mergeTask.getCompactTables().size());
+		Assert.assertTrue(mergeTask.getCompactTables().contains(tables.get(1)));
+		Assert.assertFalse(mergeTask.getCompactTables().contains(tables.get(0)));
+		Assert.assertFalse(mergeTask.getCompactTables().contains(tables.get(2)));
+		Assert.assertTrue(mergeTask.getMaxTuplesPerTable() > 0);
+	}
+	
+	/**
+	 * Test the leveled merge strategy - level 1 to level 2
+	 */
+	@Test(timeout=60000)
+	public void testLeveledLevel1() {
+		final LeveledMergeStrategy mergeStrategy = new LeveledMergeStrategy();
+		final long tableSize = MEMTABLE_ENTRIES * 5;
+		
+		final List<SSTableFacade> tables = new ArrayList<>();
+		tables.add(createFacade(1, 2, tableSize, "a", "f"));
+		tables.add(createFacade(2, 2, tableSize, "g", "m"));
+		
+		for(int i = 0; i < 10; i++) {
+			final String key = Character.toString((char) ('a' + i));
+			tables.add(createFacade(10 + i, 1, tableSize, key, key));
+		}
+		
+		Assert.assertEquals(MergeTaskType.UNKNOWN, mergeStrategy.getMergeTask(tables).getTaskType());
+		
+		// Level 1 is full, the oldest table is merged into level 2
+		tables.add(createFacade(20, 1, tableSize, "y", "z"));
+		final MergeTask mergeTask = mergeStrategy.getMergeTask(tables);
+		Assert.assertEquals(MergeTaskType.MAJOR, mergeTask.getTaskType());
+		Assert.assertEquals(2, mergeTask.getOutputLevel());
+		Assert.assertEquals(2, mergeTask.getCompactTables().size());
+		Assert.assertTrue(mergeTask.getCompactTables().contains(tables.get(0)));
+		Assert.assertTrue(mergeTask.getCompactTables().contains(tables.get(2)));
+	}
+	
+	/**
+	 * Create a mocked facade
+	 * @param tablenumber
+	 * @param level
+	 * @param tuples
+	 * @param firstKey
+	 * @param lastKey
+	 * @return
+	 */
+	private SSTableFacade createFacade(final int tablenumber, final int level, final long tuples, 
+			final String firstKey, final String lastKey) {
+		
+		final TupleStoreMetaData metaData = new TupleStoreMetaData();
+		metaData.setLevel(level);
+		metaData.setTuples(tuples);
+		metaData.setFirstKey(firstKey);
+		metaData.setLastKey(lastKey);
+		
+		final SSTableFacade facade = Mockito.mock(SSTableFacade.class);
+		Mockito.when(facade.getSsTableMetadata()).thenReturn(metaData);
+		Mockito.when(facade.getTablebumber()).thenReturn(tablenumber);
+		return facade;
+	}
+}
@@ -18,8 +18,10 @@
 package org.bboxdb.test.storage;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 
 import org.bboxdb.commons.RejectedException;
@@ -35,6 +37,7 @@ import org.bboxdb.storage.queryprocessor.operator.FullTablescanOperator;
 import org.bboxdb.storage.queryprocessor.operator.Operator;
 import org.bboxdb.storage.queryprocessor.operator.SpatialIndexReadOperator;
 import org.bboxdb.storage.queryprocessor.operator.join.IndexedSpatialJoinOperator;
+import org.bboxdb.storage.queryprocessor.operator.join.PlaneSweepSpatialJoinOperator;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.junit.AfterClass;
@@ -178,6 +181,58 @@ public class TestQueryProcessing {
 		Assert.assertTrue(resultTupleList2.contains(tuple3));
 	}
 
+	/**
+	 * Compare the merge based and the key lookup based scan
+	 * @throws StorageManagerException
+	 * @throws RejectedException
+	 */
+	@Test(timeout=60000)
+	public void testMergeScan() throws StorageManagerException, RejectedException {
+		final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(TABLE_1);
+
+		final Tuple tuple1 = new Tuple("1", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value1".getBytes());
+		final Tuple tuple2 = new Tuple("2", new Hyperrectangle(1.5, 2.5, 1.5, 2.5), "value2".getBytes());
+		final Tuple tuple3 = new Tuple("1", new Hyperrectangle(10.0, 20.0, 10.0, 20.0), "value3".getBytes());
+		final Tuple tuple4 = new Tuple("3", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value4".getBytes());
+		final Tuple tuple5 = new Tuple("2", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value5".getBytes());
+
+		storageManager.put(tuple1);
+		storageManager.put(tuple2);
+		storageManager.flush();
+		storageManager.put(tuple3);
+		storageManager.put(tuple4);
+		storageManager.flush();
+		storageManager.put(tuple5);
+
+		final Hyperrectangle queryBox = new Hyperrectangle(0.0, 5.0, 0.0, 5.0);
+
+		for(final boolean mergeScan : new boolean[] {true, false}) {
+			final SpatialIndexReadOperator operator = new SpatialIndexReadOperator(storageManager, queryBox);
+			operator.setMergeScan(mergeScan);
+			Assert.assertEquals(mergeScan, operator.isMergeScan());
+
+			final List<JoinedTuple> resultList = Lists.newArrayList(operator.iterator());
+			final List<Tuple> resultTupleList = resultList.stream().map(t -> t.convertToSingleTupleIfPossible()).collect(Collectors.toList());
+			operator.close();
+
+			Assert.assertEquals(2, resultTupleList.size());
+			Assert.assertTrue(resultTupleList.contains(tuple4));
+			Assert.assertTrue(resultTupleList.contains(tuple5));
+		}
+
+		final FullTablescanOperator tablescanOperator = new FullTablescanOperator(storageManager);
+		Assert.assertTrue(tablescanOperator.isMergeScan());
+
+		final List<JoinedTuple> resultList = Lists.newArrayList(tablescanOperator.iterator());
+		final List<Tuple> resultTupleList = resultList.stream().map(t -> t.convertToSingleTupleIfPossible()).collect(Collectors.toList());
+		tablescanOperator.close();
+
+		Assert.assertEquals(3, resultTupleList.size());
+		Assert.assertEquals(tuple3, resultTupleList.get(0));
+		Assert.assertEquals(tuple5, resultTupleList.get(1));
+		Assert.assertEquals(tuple4, resultTupleList.get(2));
+	}
+
 	/**
 	 * Simple BBox query - across multiple tables
 	 * @throws StorageManagerException
@@ -615,4 +670,72 @@ public class TestQueryProcessing {
 		Assert.assertEquals(2, resultList.get(0).getBoundingBox().getDimension());
 		Assert.assertEquals(new Hyperrectangle(2.5d, 5.5d, 2.5d, 5.5d), resultList.get(0).getBoundingBox());
 	}
+	
+	/**
+	 * The plane sweep join and the indexed join return the same result
+	 * @throws StorageManagerException
+	 * @throws RejectedException
+	 */
+	@Test(timeout=60000)
+	public void testPlaneSweepJoin() throws StorageManagerException, RejectedException {
+		final TupleStoreManager storageManager1 = storageRegistry.getTupleStoreManager(TABLE_1);
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TABLE_2);
+
+		final Random random = new Random(42);
+		
+		for(int i = 0; i < 500; i++) {
+			final double x1 = random.nextDouble() * 100;
+			final double y1 = random.nextDouble() * 100;
+			final Hyperrectangle box1 = new Hyperrectangle(x1, x1 + random.nextDouble() * 5, 
+					y1, y1 + random.nextDouble() * 5);
+			storageManager1.put(new Tuple("a" + i, box1, "value".getBytes()));
+
+			final double x2 = random.nextDouble() * 100;
+			final double y2 = random.nextDouble() * 100;
+			final Hyperrectangle box2 = new Hyperrectangle(x2, x2 + random.nextDouble() * 5, 
+					y2, y2 + random.nextDouble() * 5);
+			storageManager2.put(new Tuple("b" + i, box2, "value".getBytes()));
+		}
+		
+		// Delete and update some tuples
+		storageManager1.delete("a1", System.currentTimeMillis());
+		storageManager2.put(new Tuple("b2", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value".getBytes()));
+		
+		final List<Hyperrectangle> queryBoxes = Arrays.asList(Hyperrectangle.FULL_SPACE, 
+				new Hyperrectangle(10.0, 50.0, 20.0, 70.0));
+		
+		for(final Hyperrectangle queryBox : queryBoxes) {
+			final IndexedSpatialJoinOperator indexedJoin = new IndexedSpatialJoinOperator(
+					new SpatialIndexReadOperator(storageManager1, queryBox),
+					new SpatialIndexReadOperator(storageManager2, queryBox));
+			
+			final List<String> expected = Lists.newArrayList(indexedJoin.iterator()).stream()
+					.map(t -> t.getTuple(0).getKey() + "/" + t.getTuple(1).getKey())
+					.sorted().collect(Collectors.toList());
+			indexedJoin.close();
+			
+			// The small memory bounds are exceeded while the left or the right input is read
+			final List<Long> memoryBounds = Arrays.asList(
+					PlaneSweepSpatialJoinOperator.DEFAULT_MAX_BUFFERED_BYTES, 1L, 20000L, 40000L);
+			
+			for(final long memoryBound : memoryBounds) {
+				final PlaneSweepSpatialJoinOperator sweepJoin = new PlaneSweepSpatialJoinOperator(
+						new SpatialIndexReadOperator(storageManager1, queryBox),
+						new SpatialIndexReadOperator(storageManager2, queryBox), 
+						"", "".getBytes(), memoryBound);
+				
+				final List<JoinedTuple> result = Lists.newArrayList(sweepJoin.iterator());
+				sweepJoin.close();
+				
+				final List<String> resultKeys = result.stream()
+						.map(t -> t.getTuple(0).getKey() + "/" + t.getTuple(1).getKey())
+						.sorted().collect(Collectors.toList());
+				
+				Assert.assertFalse(expected.isEmpty());
+				Assert.assertEquals(expected, resultKeys);
+				Assert.assertEquals(Arrays.asList(TABLE_1.getFullnameWithoutPrefix(), 
+						TABLE_2.getFullnameWithoutPrefix()), result.get(0).getTupleStoreNames());
+			}
+		}
+	}
 }
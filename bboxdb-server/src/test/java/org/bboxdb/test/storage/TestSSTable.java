@@ -17,16 +17,23 @@
  *******************************************************************************/
 package org.bboxdb.test.storage;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.commons.io.FileUtil;
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.BBoxDBConfigurationManager;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableCreator;
 import org.bboxdb.storage.sstable.SSTableHelper;
 import org.bboxdb.storage.sstable.SSTableWriter;
@@ -34,6 +41,7 @@ import org.bboxdb.storage.sstable.reader.SSTableFacade;
 import org.bboxdb.storage.sstable.reader.SSTableKeyIndexReader;
 import org.bboxdb.storage.sstable.reader.SSTableReader;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+import org.bboxdb.storage.util.TupleHelper;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -158,6 +166,313 @@ public class TestSSTable {
 		Assert.assertEquals(tupleList.size(), tupleCounter);
 	}
 
+	/**
+	 * Test concurrent reads on the same sstable
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testConcurrentRead() throws Exception {
+		final String relationDirectory = SSTableHelper.getSSTableDir(STORAGE_DIRECTORY, TEST_RELATION);
+		final File relationDirectoryFile = new File(relationDirectory);
+		FileUtil.deleteRecursive(relationDirectoryFile.toPath());
+		relationDirectoryFile.mkdirs();
+	
+		final List<Tuple> tupleList = new ArrayList<>();
+		for(int i = 0; i < 1000; i++) {
+			final String key = String.format("%04d", i);
+			tupleList.add(new Tuple(key, new Hyperrectangle((double) i, i + 1.0), key.getBytes()));
+		}
+		
+		final SSTableWriter ssTableWriter = new SSTableWriter(STORAGE_DIRECTORY, TEST_RELATION, 1, tupleList.size(), SSTableCreator.MEMTABLE);
+		ssTableWriter.open();
+		ssTableWriter.addTuples(tupleList);
+		ssTableWriter.close();
+		
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1);
+		sstableReader.init();
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		final AtomicInteger errors = new AtomicInteger(0);
+		final List<Thread> threads = new ArrayList<>();
+		
+		for(int thread = 0; thread < 8; thread++) {
+			threads.add(new Thread(() -> {
+				try {
+					for(int round = 0; round < 5; round++) {
+						for(int i = 0; i < tupleList.size(); i++) {
+							final Tuple expected = tupleList.get(i);
+							final List<Long> positions = ssTableIndexReader.getPositionsForTuple(expected.getKey());
+							final Tuple tuple = sstableReader.getTupleAtPosition(positions.get(0));
+							final String key = sstableReader.decodeOnlyKeyFromTupleAtPosition(positions.get(0));
+							
+							if(! expected.equals(tuple) || ! expected.getKey().equals(key)) {
+								errors.incrementAndGet();
+							}
+						}
+					}
+				} catch (Exception e) {
+					errors.incrementAndGet();
+				}
+			}));
+		}
+		
+		threads.forEach(t -> t.start());
+		
+		for(final Thread thread : threads) {
+			thread.join();
+		}
+		
+		Assert.assertEquals(0, errors.get());
+		Assert.assertEquals(tupleList.get(500), sstableReader.scanForTuple("0500"));
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+	
+	/**
+	 * Test the reading of a version 1 index file (int positions)
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testReadVersion1Index() throws Exception {
+		final String relationDirectory = SSTableHelper.getSSTableDir(STORAGE_DIRECTORY, TEST_RELATION);
+		final File relationDirectoryFile = new File(relationDirectory);
+		FileUtil.deleteRecursive(relationDirectoryFile.toPath());
+		relationDirectoryFile.mkdirs();
+	
+		final List<Tuple> tupleList = createTupleList();
+		
+		final SSTableWriter ssTableWriter = new SSTableWriter(STORAGE_DIRECTORY, TEST_RELATION, 1, EXPECTED_TUPLES, SSTableCreator.MEMTABLE);
+		ssTableWriter.open();
+		ssTableWriter.addTuples(tupleList);
+		final File sstableIndexFile = ssTableWriter.getSstableIndexFile();
+		ssTableWriter.close();
+		
+		// Convert the index into the version 1 format
+		writeLegacyIndex(sstableIndexFile, tupleList, SSTableConst.MAGIC_BYTES_INDEX_V1);
+		
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1);
+		sstableReader.init();
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		Assert.assertEquals(tupleList.size(), ssTableIndexReader.getNumberOfEntries());
+		Assert.assertEquals(2, ssTableIndexReader.getPositionsForTuple("4").size());
+		
+		int tupleCounter = 0;
+		
+		for(Tuple tuple : ssTableIndexReader) {
+			Assert.assertEquals(tupleList.get(tupleCounter), tuple);
+			tupleCounter++;
+		}
+		
+		Assert.assertEquals(tupleList.size(), tupleCounter);
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+
+	/**
+	 * Test the reading of a version 2 index file (long positions)
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testReadVersion2Index() throws Exception {
+		final String relationDirectory = SSTableHelper.getSSTableDir(STORAGE_DIRECTORY, TEST_RELATION);
+		final File relationDirectoryFile = new File(relationDirectory);
+		FileUtil.deleteRecursive(relationDirectoryFile.toPath());
+		relationDirectoryFile.mkdirs();
+	
+		final List<Tuple> tupleList = createTupleList();
+		
+		final SSTableWriter ssTableWriter = new SSTableWriter(STORAGE_DIRECTORY, TEST_RELATION, 1, EXPECTED_TUPLES, SSTableCreator.MEMTABLE);
+		ssTableWriter.open();
+		ssTableWriter.addTuples(tupleList);
+		final File sstableIndexFile = ssTableWriter.getSstableIndexFile();
+		ssTableWriter.close();
+		
+		writeLegacyIndex(sstableIndexFile, tupleList, SSTableConst.MAGIC_BYTES_INDEX_V2);
+		
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1);
+		sstableReader.init();
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		Assert.assertEquals(tupleList.size(), ssTableIndexReader.getNumberOfEntries());
+		Assert.assertEquals(2, ssTableIndexReader.getPositionsForTuple("4").size());
+		Assert.assertEquals(1, ssTableIndexReader.getPositionsForTuple("2").size());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("5").isEmpty());
+		
+		int tupleCounter = 0;
+		
+		for(Tuple tuple : ssTableIndexReader) {
+			Assert.assertEquals(tupleList.get(tupleCounter), tuple);
+			tupleCounter++;
+		}
+		
+		Assert.assertEquals(tupleList.size(), tupleCounter);
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+	
+	/**
+	 * Test the block index with keys in multiple index blocks
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testBlockIndex() throws Exception {
+		final String relationDirectory = SSTableHelper.getSSTableDir(STORAGE_DIRECTORY, TEST_RELATION);
+		final File relationDirectoryFile = new File(relationDirectory);
+		FileUtil.deleteRecursive(relationDirectoryFile.toPath());
+		relationDirectoryFile.mkdirs();
+		
+		// Key 'key0510' is stored 3 times, the entries span an index block boundary
+		final List<Tuple> tupleList = new ArrayList<>();
+		for(int i = 0; i < 1000; i++) {
+			final String key = String.format("key%04d", i);
+			tupleList.add(new Tuple(key, Hyperrectangle.FULL_SPACE, ("value" + i).getBytes()));
+			
+			if(i == 510) {
+				tupleList.add(new Tuple(key, Hyperrectangle.FULL_SPACE, "value1".getBytes()));
+				tupleList.add(new DeletedTuple(key));
+			}
+		}
+		
+		final int boundary = tupleList.indexOf(tupleList.stream()
+				.filter(t -> t.getKey().equals("key0510")).findFirst().get());
+		Assert.assertEquals(510, boundary);
+		Assert.assertTrue(boundary / SSTableConst.INDEX_BLOCK_ENTRIES 
+				!= (boundary + 2) / SSTableConst.INDEX_BLOCK_ENTRIES);
+		
+		final SSTableWriter ssTableWriter = new SSTableWriter(STORAGE_DIRECTORY, TEST_RELATION, 1, tupleList.size(), SSTableCreator.MEMTABLE);
+		ssTableWriter.open();
+		ssTableWriter.addTuples(tupleList);
+		ssTableWriter.close();
+		
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1);
+		sstableReader.init();
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		Assert.assertEquals(tupleList.size(), ssTableIndexReader.getNumberOfEntries());
+		Assert.assertEquals(3, ssTableIndexReader.getPositionsForTuple("key0510").size());
+		
+		for(final long position : ssTableIndexReader.getPositionsForTuple("key0510")) {
+			Assert.assertEquals("key0510", sstableReader.getTupleAtPosition(position).getKey());
+		}
+		
+		for(int i = 0; i < 1000; i += 17) {
+			final String key = String.format("key%04d", i);
+			final List<Long> positions = ssTableIndexReader.getPositionsForTuple(key);
+			Assert.assertEquals(i == 510 ? 3 : 1, positions.size());
+			Assert.assertEquals(key, sstableReader.getTupleAtPosition(positions.get(0)).getKey());
+			Assert.assertEquals(key, ssTableIndexReader.getKeyForIndexEntry(tupleList.indexOf(
+					tupleList.stream().filter(t -> t.getKey().equals(key)).findFirst().get())));
+		}
+		
+		// Missing keys before, inside and after the key range
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("a").isEmpty());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("key0063a").isEmpty());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("key0064a").isEmpty());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("zzz").isEmpty());
+		
+		int tupleCounter = 0;
+		
+		for(Tuple tuple : ssTableIndexReader) {
+			Assert.assertEquals(tupleList.get(tupleCounter), tuple);
+			tupleCounter++;
+		}
+		
+		Assert.assertEquals(tupleList.size(), tupleCounter);
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+	
+	/**
+	 * Iterate over the block index and lookup keys in other blocks at the same time
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testBlockIndexInterleavedReads() throws Exception {
+		final String relationDirectory = SSTableHelper.getSSTableDir(STORAGE_DIRECTORY, TEST_RELATION);
+		final File relationDirectoryFile = new File(relationDirectory);
+		FileUtil.deleteRecursive(relationDirectoryFile.toPath());
+		relationDirectoryFile.mkdirs();
+		
+		// Keys with multi byte characters
+		final List<Tuple> tupleList = new ArrayList<>();
+		for(int i = 0; i < 1000; i++) {
+			final String key = String.format("k\u00e4y%04d", i);
+			tupleList.add(new Tuple(key, Hyperrectangle.FULL_SPACE, ("value" + i).getBytes()));
+		}
+		
+		final SSTableWriter ssTableWriter = new SSTableWriter(STORAGE_DIRECTORY, TEST_RELATION, 1, tupleList.size(), SSTableCreator.MEMTABLE);
+		ssTableWriter.open();
+		ssTableWriter.addTuples(tupleList);
+		ssTableWriter.close();
+		
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1);
+		sstableReader.init();
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		int tupleCounter = 0;
+		
+		// The index keys are UTF-8 encoded, the tuple keys use the default charset. 
+		// So, the index keys are compared with the written keys and the tuples by the data.
+		for(Tuple tuple : ssTableIndexReader) {
+			Assert.assertArrayEquals(tupleList.get(tupleCounter).getDataBytes(), tuple.getDataBytes());
+			
+			final int otherEntry = tupleList.size() - 1 - tupleCounter;
+			final Tuple otherTuple = tupleList.get(otherEntry);
+			final String otherKey = otherTuple.getKey();
+			Assert.assertEquals(otherKey, ssTableIndexReader.getKeyForIndexEntry(otherEntry));
+			
+			final List<Long> positions = ssTableIndexReader.getPositionsForTuple(otherKey);
+			Assert.assertEquals(1, positions.size());
+			Assert.assertArrayEquals(otherTuple.getDataBytes(), 
+					sstableReader.getTupleAtPosition(positions.get(0)).getDataBytes());
+			
+			tupleCounter++;
+		}
+		
+		Assert.assertEquals(tupleList.size(), tupleCounter);
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+	
+	/**
+	 * Replace the index file with an index in the legacy format
+	 * @param sstableIndexFile
+	 * @param tupleList
+	 * @param magicBytes
+	 * @throws IOException
+	 */
+	protected void writeLegacyIndex(final File sstableIndexFile, final List<Tuple> tupleList, 
+			final byte[] magicBytes) throws IOException {
+		
+		final ByteArrayOutputStream legacyIndex = new ByteArrayOutputStream();
+		legacyIndex.write(magicBytes);
+		
+		long position = SSTableConst.MAGIC_BYTES_SSTABLE.length;
+		
+		for(final Tuple tuple : tupleList) {
+			if(Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_INDEX_V1)) {
+				legacyIndex.write(DataEncoderHelper.intToByteBuffer((int) position).array());
+			} else {
+				legacyIndex.write(DataEncoderHelper.longToByteBuffer(position).array());
+			}
+			
+			position += TupleHelper.tupleToBytes(tuple).length;
+		}
+		
+		Files.write(sstableIndexFile.toPath(), legacyIndex.toByteArray());
+	}
+
 	/**
 	 * Helper method for creating some test tuples
 	 * 
@@ -0,0 +1,280 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bboxdb.commons.io.FileUtil;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.misc.BBoxDBConfigurationManager;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableCreator;
+import org.bboxdb.storage.sstable.SSTableHelper;
+import org.bboxdb.storage.sstable.SSTableWriter;
+import org.bboxdb.storage.sstable.block.SSTableBlockCache;
+import org.bboxdb.storage.sstable.block.SSTableBlockIndex;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.reader.SSTableFacade;
+import org.bboxdb.storage.sstable.reader.SSTableKeyIndexReader;
+import org.bboxdb.storage.sstable.reader.SSTableReader;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestSSTableCompression {
+	
+	/**
+	 * The directory for the output
+	 */
+	private static final String STORAGE_DIRECTORY = BBoxDBConfigurationManager.getConfiguration().getStorageDirectories().get(0);
+	
+	/**
+	 * The name of the test relation
+	 */
+	private final static TupleStoreName TEST_RELATION = new TupleStoreName("testgroup1_relation4");
+	
+	/**
+	 * The amount of tuples in the tests
+	 */
+	private final static int TUPLES = 5000;
+	
+	@Before
+	public void before() throws Exception {
+		final String relationDirectory = SSTableHelper.getSSTableDir(STORAGE_DIRECTORY, TEST_RELATION);
+		final File relationDirectoryFile = new File(relationDirectory);
+		FileUtil.deleteRecursive(relationDirectoryFile.toPath());
+		relationDirectoryFile.mkdirs();
+	}
+	
+	@Test(timeout=60000)
+	public void testCompressionRoundtrip() throws Exception {
+		final byte[] data = createTupleList().get(0).getDataBytes();
+		
+		for(final SSTableCompression compression : SSTableCompression.values()) {
+			final byte[] compressed = compression.compress(data, data.length);
+			Assert.assertArrayEquals(data, compression.decompress(compressed, data.length));
+		}
+	}
+	
+	@Test(timeout=60000)
+	public void testTuplePosition() {
+		final long position = SSTableBlockIndex.toTuplePosition(12, 65535);
+		Assert.assertEquals(12, SSTableBlockIndex.getBlock(position));
+		Assert.assertEquals(65535, SSTableBlockIndex.getOffset(position));
+		
+		final long position2 = SSTableBlockIndex.toTuplePosition(Integer.MAX_VALUE, Integer.MAX_VALUE);
+		Assert.assertEquals(Integer.MAX_VALUE, SSTableBlockIndex.getBlock(position2));
+		Assert.assertEquals(Integer.MAX_VALUE, SSTableBlockIndex.getOffset(position2));
+	}
+	
+	/**
+	 * Write and read a block compressed SSTable
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testReadCompressedSSTable() throws Exception {
+		final List<Tuple> tupleList = createTupleList();
+		
+		final File uncompressedFile = writeSSTable(1, tupleList, SSTableCompression.NONE);
+		final File compressedFile = writeSSTable(2, tupleList, SSTableCompression.ZSTD);
+		Assert.assertTrue(compressedFile.length() * 3 < uncompressedFile.length());
+
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 2);
+		sstableReader.init();
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		Assert.assertEquals(SSTableCompression.ZSTD, sstableReader.getCompression());
+		Assert.assertEquals(tupleList.size(), ssTableIndexReader.getNumberOfEntries());
+		
+		// Iterate over all tuples
+		int tupleCounter = 0;
+		for(final Tuple tuple : ssTableIndexReader) {
+			Assert.assertEquals(tupleList.get(tupleCounter), tuple);
+			tupleCounter++;
+		}
+		Assert.assertEquals(tupleList.size(), tupleCounter);
+		
+		// Point reads
+		for(final int tupleNumber : new int[] {0, 1, 2500, TUPLES - 1}) {
+			final Tuple expectedTuple = tupleList.get(tupleNumber);
+			final List<Long> positions = ssTableIndexReader.getPositionsForTuple(expectedTuple.getKey());
+			Assert.assertEquals(1, positions.size());
+			
+			final long position = positions.get(0);
+			Assert.assertEquals(expectedTuple, sstableReader.getTupleAtPosition(position));
+			Assert.assertEquals(expectedTuple.getKey(), 
+					sstableReader.decodeOnlyKeyFromTupleAtPosition(position));
+		}
+		
+		// Tuples in the last block
+		final List<Long> lastPositions = ssTableIndexReader.getPositionsForTuple(
+				tupleList.get(TUPLES - 1).getKey());
+		Assert.assertTrue(SSTableBlockIndex.getBlock(lastPositions.get(0)) > 1);
+		
+		// Scan
+		Assert.assertEquals(tupleList.get(1234), sstableReader.scanForTuple(tupleList.get(1234).getKey()));
+		Assert.assertNull(sstableReader.scanForTuple("zzz"));
+		
+		// Deleted tuples
+		Assert.assertTrue(sstableReader.scanForTuple(key(TUPLES)) instanceof DeletedTuple);
+		
+		final long cachedBlocks = SSTableBlockCache.getInstance().getCachedBlocks();
+		Assert.assertTrue(cachedBlocks > 0);
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+		
+		Assert.assertTrue(SSTableBlockCache.getInstance().getCachedBlocks() < cachedBlocks);
+	}
+	
+	/**
+	 * Invalidate the blocks of one cache id
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testBlockCacheInvalidate() throws Exception {
+		final SSTableBlockCache blockCache = new SSTableBlockCache(1024 * 1024);
+		final long cacheId1 = blockCache.getNextCacheId();
+		final long cacheId2 = blockCache.getNextCacheId();
+		
+		for(int block = 0; block < 10; block++) {
+			blockCache.getBlock(cacheId1, block, () -> ByteBuffer.allocate(100));
+			blockCache.getBlock(cacheId2, block, () -> ByteBuffer.allocate(100));
+		}
+		
+		Assert.assertEquals(20, blockCache.getCachedBlocks());
+		
+		blockCache.invalidate(cacheId1);
+		Assert.assertEquals(10, blockCache.getCachedBlocks());
+		
+		// Cached blocks are not loaded again
+		final ByteBuffer cachedBlock = blockCache.getBlock(cacheId2, 0, () -> ByteBuffer.allocate(100));
+		Assert.assertSame(cachedBlock, blockCache.getBlock(cacheId2, 0, () -> ByteBuffer.allocate(100)));
+		
+		blockCache.invalidate(cacheId2);
+		Assert.assertEquals(0, blockCache.getCachedBlocks());
+	}
+	
+	/**
+	 * Read a compressed SSTable with the facade (key and spatial index)
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testCompressedSSTableFacade() throws Exception {
+		final List<Tuple> tupleList = createTupleList();
+		writeSSTable(1, tupleList, SSTableCompression.ZSTD);
+		
+		final SSTableFacade facade = new SSTableFacade(STORAGE_DIRECTORY, TEST_RELATION, 1, 100);
+		facade.init();
+		Assert.assertTrue(facade.acquire());
+		
+		try {
+			Assert.assertEquals(tupleList.get(42), facade.get(key(42)).get(0));
+			Assert.assertTrue(facade.get("unknown").isEmpty());
+			
+			final Hyperrectangle queryBox = new Hyperrectangle(100.0, 110.0, 100.0, 110.0);
+			final Iterator<Tuple> iterator = facade.getAllTuplesInBoundingBox(queryBox);
+			
+			int results = 0;
+			while(iterator.hasNext()) {
+				final Tuple tuple = iterator.next();
+				Assert.assertTrue(tuple.getBoundingBox().intersects(queryBox));
+				results++;
+			}
+			
+			Assert.assertEquals(11, results);
+		} finally {
+			facade.release();
+			facade.shutdown();
+		}
+	}
+	
+	/**
+	 * A SSTable with a broken block index can not be opened
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testBrokenBlockIndex() throws Exception {
+		final File compressedFile = writeSSTable(1, createTupleList(), SSTableCompression.ZSTD);
+		
+		try(final RandomAccessFile file = new RandomAccessFile(compressedFile, "rw")) {
+			file.setLength(file.length() - 4);
+		}
+		
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1);
+		sstableReader.init();
+		Assert.assertFalse(sstableReader.isReady());
+	}
+	
+	/**
+	 * Write the SSTable
+	 * @param tablenumber
+	 * @param tupleList
+	 * @param compression
+	 * @return
+	 * @throws Exception
+	 */
+	private File writeSSTable(final int tablenumber, final List<Tuple> tupleList, 
+			final SSTableCompression compression) throws Exception {
+		
+		try(final SSTableWriter ssTableWriter = new SSTableWriter(STORAGE_DIRECTORY, TEST_RELATION, 
+				tablenumber, tupleList.size(), SSTableCreator.MEMTABLE, compression)) {
+			
+			ssTableWriter.open();
+			ssTableWriter.addTuples(tupleList);
+			return ssTableWriter.getSstableFile();
+		}
+	}
+	
+	/**
+	 * Get the key of the tuple
+	 * @param tupleNumber
+	 * @return
+	 */
+	private static String key(final int tupleNumber) {
+		return String.format("key%05d", tupleNumber);
+	}
+	
+	/**
+	 * Create the tuples (GeoJSON like payload) and a deleted tuple
+	 * @return
+	 */
+	private List<Tuple> createTupleList() {
+		final List<Tuple> tupleList = new ArrayList<>();
+		
+		for(int i = 0; i < TUPLES; i++) {
+			final String data = "{\"type\": \"Feature\", \"geometry\": {\"type\": \"Point\", \"coordinates\": [" 
+					+ i + ".0, " + i + ".0]}, \"properties\": {\"name\": \"Point " + i + "\"}}";
+			
+			final Hyperrectangle box = new Hyperrectangle((double) i, (double) i, (double) i, (double) i);
+			tupleList.add(new Tuple(key(i), box, data.getBytes()));
+		}
+		
+		tupleList.add(new DeletedTuple(key(TUPLES)));
+		
+		return tupleList;
+	}
+}
@@ -19,14 +19,17 @@ package org.bboxdb.test.storage;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreMetaData;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableCreator;
 import org.bboxdb.storage.sstable.SSTableMetadataBuilder;
+import org.bboxdb.storage.util.TupleStoreSampleHelper;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -265,6 +268,31 @@ public class TestSSTableMetadataBuilder {
 		Assert.assertEquals(metaData, metaDataRead);
 	}
 
+	/**
+	 * Dump the key range and the level to yaml and reread the data
+	 */
+	@Test(timeout=60000)
+	public void testKeyRangeAndLevel() {
+		final SSTableMetadataBuilder ssTableIndexBuilder = new SSTableMetadataBuilder(SSTableCreator.MAJOR_COMPACT);
+		
+		final TupleStoreMetaData emptyMetaData = ssTableIndexBuilder.getMetaData();
+		Assert.assertNull(emptyMetaData.getFirstKey());
+		Assert.assertNull(emptyMetaData.getLastKey());
+		Assert.assertEquals(0, emptyMetaData.getLevel());
+		Assert.assertEquals(emptyMetaData, TupleStoreMetaData.importFromYaml(emptyMetaData.exportToYaml()));
+
+		addTwoTuples(ssTableIndexBuilder);
+		ssTableIndexBuilder.setLevel(3);
+
+		final TupleStoreMetaData metaData = ssTableIndexBuilder.getMetaData();
+		Assert.assertEquals("abc", metaData.getFirstKey());
+		Assert.assertEquals("def", metaData.getLastKey());
+		Assert.assertEquals(3, metaData.getLevel());
+		
+		final TupleStoreMetaData metaDataRead = TupleStoreMetaData.importFromYaml(metaData.exportToYaml());
+		Assert.assertEquals(metaData, metaDataRead);
+	}
+
 	/**
 	 * Read from non existing file
 	 * @throws StorageManagerException 
@@ -330,5 +358,48 @@ public class TestSSTableMetadataBuilder {
 		ssTableIndexBuilder.updateWithTuple(tuple1);
 		ssTableIndexBuilder.updateWithTuple(tuple2);
 	}
-
+	
+	/**
+	 * Test the bounding box samples of the metadata
+	 */
+	@Test(timeout=60000)
+	public void testSamples() {
+		final SSTableMetadataBuilder ssTableIndexBuilder = new SSTableMetadataBuilder(SSTableCreator.MEMTABLE);
+		
+		for(int i = 0; i < 10000; i++) {
+			final Hyperrectangle boundingBox = new Hyperrectangle((double) i, (double) i + 1, 1d, 2d);
+			ssTableIndexBuilder.updateWithTuple(new Tuple(Integer.toString(i), boundingBox, "".getBytes()));
+			ssTableIndexBuilder.updateWithTuple(new DeletedTuple(Integer.toString(i)));
+		}
+		
+		final TupleStoreMetaData metaData = ssTableIndexBuilder.getMetaData();
+		final List<Hyperrectangle> samples = TupleStoreSampleHelper.getSamplesFromArray(
+				metaData.getSampleData(), metaData.getDimensions());
+		
+		Assert.assertEquals(SSTableConst.METADATA_SAMPLES, samples.size());
+		
+		// Deleted tuples are not sampled
+		for(final Hyperrectangle sample : samples) {
+			Assert.assertEquals(2, sample.getDimension());
+			Assert.assertEquals(1.0, sample.getCoordinateLow(1), 0.0001);
+		}
+		
+		final TupleStoreMetaData metaDataRead = TupleStoreMetaData.importFromYaml(metaData.exportToYaml());
+		Assert.assertArrayEquals(metaData.getSampleData(), metaDataRead.getSampleData(), 0.0001);
+	}
+	
+	/**
+	 * Read metadata without samples
+	 */
+	@Test(timeout=60000)
+	public void testReadMetadataWithoutSamples() {
+		// Metadata written by older versions
+		final String yamlData = "tuples: 1\ndimensions: 2\nboundingBoxData: [1.0, 2.0, 1.0, 2.0]\n";
+		
+		final TupleStoreMetaData metaDataRead = TupleStoreMetaData.importFromYaml(yamlData);
+		Assert.assertEquals(0, metaDataRead.getSampleData().length);
+		Assert.assertEquals(1, metaDataRead.getTuples());
+		Assert.assertTrue(TupleStoreSampleHelper.getSamplesFromArray(metaDataRead.getSampleData(), 
+				metaDataRead.getDimensions()).isEmpty());
+	}
 }
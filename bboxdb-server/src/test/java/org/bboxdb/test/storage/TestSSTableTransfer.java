@@ -0,0 +1,551 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.bboxdb.commons.RejectedException;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.distribution.partitioner.regionsplit.tuplesink.SSTableTransferTupleSink;
+import org.bboxdb.distribution.partitioner.regionsplit.tuplesink.TupleRedistributor;
+import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreConfiguration;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.memtable.Memtable;
+import org.bboxdb.storage.sstable.SSTableCreator;
+import org.bboxdb.storage.sstable.SSTableFileType;
+import org.bboxdb.storage.sstable.SSTableHelper;
+import org.bboxdb.storage.sstable.SSTableWriter;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.reader.SSTableFacade;
+import org.bboxdb.storage.sstable.transfer.SSTableTransfer;
+import org.bboxdb.storage.sstable.transfer.SSTableTransferHelper;
+import org.bboxdb.storage.sstable.transfer.SSTableTransferReceiver;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestSSTableTransfer {
+
+	/**
+	 * The name of the test relation
+	 */
+	private final static TupleStoreName TEST_RELATION = new TupleStoreName("testgroup1_transfer_1");
+	
+	/**
+	 * The name of the second test relation
+	 */
+	private final static TupleStoreName TEST_RELATION_2 = new TupleStoreName("testgroup1_transfer_2");
+	
+	/**
+	 * The amount of tuples in the transferred SSTable
+	 */
+	private final static int TUPLES = 100;
+
+	/**
+	 * The storage registry
+	 */
+	private static TupleStoreManagerRegistry storageRegistry;
+	
+	/**
+	 * The storage manager
+	 */
+	private TupleStoreManager storageManager;
+
+	@BeforeClass
+	public static void beforeClass() throws InterruptedException, BBoxDBException {
+		storageRegistry = new TupleStoreManagerRegistry();
+		storageRegistry.init();
+	}
+
+	@AfterClass
+	public static void afterClass() {
+		if(storageRegistry != null) {
+			storageRegistry.shutdown();
+			storageRegistry = null;
+		}
+	}
+
+	@Before
+	public void init() throws StorageManagerException {
+		storageRegistry.deleteTable(TEST_RELATION);
+		storageRegistry.deleteTable(TEST_RELATION_2);
+
+		final TupleStoreConfiguration tupleStoreConfiguration = TupleStoreConfigurationBuilder.create().build();
+		storageRegistry.createTable(TEST_RELATION, tupleStoreConfiguration);
+		storageRegistry.createTable(TEST_RELATION_2, tupleStoreConfiguration);
+		storageManager = storageRegistry.getTupleStoreManager(TEST_RELATION);
+	}
+	
+	/**
+	 * Transfer a SSTable in chunks and adopt it
+	 */
+	@Test(timeout=60000)
+	public void testTransferAndAdopt() throws Exception {
+		final String directory = writeSSTable();
+		final String transferId = UUID.randomUUID().toString();
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		
+		for(final SSTableFileType fileType : SSTableFileType.values()) {
+			sendFile(receiver, transferId, fileType, directory, 100);
+		}
+		
+		Assert.assertTrue(storageManager.get("key_42").isEmpty());
+
+		receiver.commit(TEST_RELATION, transferId);
+		
+		for(int i = 0; i < TUPLES; i++) {
+			Assert.assertEquals(1, storageManager.get(getKey(i)).size());
+		}
+		
+		Assert.assertFalse(new File(storageManager.getTransferDirectory(transferId)).exists());
+		
+		// Repeated commit
+		receiver.commit(TEST_RELATION, transferId);
+		Assert.assertEquals(1, storageManager.get("key_42").size());
+	}
+	
+	/**
+	 * Test the resume of a transfer
+	 */
+	@Test(timeout=60000)
+	public void testResume() throws Exception {
+		final String directory = writeSSTable();
+		final String transferId = UUID.randomUUID().toString();
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		
+		final File file = new File(SSTableFileType.SSTABLE.getFilename(directory, TEST_RELATION, 
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER));
+		final byte[] data = Files.readAllBytes(file.toPath());
+		final long checksum = SSTableTransferHelper.calculateChecksum(file);
+		
+		final byte[] chunk1 = Arrays.copyOfRange(data, 0, 10);
+		final byte[] chunk2 = Arrays.copyOfRange(data, 10, data.length);
+
+		Assert.assertEquals(10, receiver.receiveChunk(TEST_RELATION, transferId, SSTableFileType.SSTABLE, 
+				0, data.length, checksum, chunk1));
+		
+		// Chunk is sent again
+		Assert.assertEquals(10, receiver.receiveChunk(TEST_RELATION, transferId, SSTableFileType.SSTABLE, 
+				0, data.length, checksum, chunk1));
+		
+		// Chunk after a missing chunk
+		Assert.assertEquals(10, receiver.receiveChunk(TEST_RELATION, transferId, SSTableFileType.SSTABLE, 
+				20, data.length, checksum, chunk1));
+		
+		Assert.assertEquals(data.length, receiver.receiveChunk(TEST_RELATION, transferId, 
+				SSTableFileType.SSTABLE, 10, data.length, checksum, chunk2));
+		
+		// File is complete
+		Assert.assertEquals(data.length, receiver.receiveChunk(TEST_RELATION, transferId, 
+				SSTableFileType.SSTABLE, 0, data.length, checksum, chunk1));
+	}
+	
+	/**
+	 * Test a wrong checksum
+	 */
+	@Test(timeout=60000)
+	public void testChecksumMismatch() throws Exception {
+		final String directory = writeSSTable();
+		final String transferId = UUID.randomUUID().toString();
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		
+		final File file = new File(SSTableFileType.SSTABLE.getFilename(directory, TEST_RELATION, 
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER));
+		final byte[] data = Files.readAllBytes(file.toPath());
+		final long checksum = SSTableTransferHelper.calculateChecksum(file);
+		
+		try {
+			receiver.receiveChunk(TEST_RELATION, transferId, SSTableFileType.SSTABLE, 
+					0, data.length, checksum + 1, data);
+			Assert.fail("Exception expected");
+		} catch (StorageManagerException e) {
+			// Expected
+		}
+		
+		// The file is received again
+		Assert.assertEquals(data.length, receiver.receiveChunk(TEST_RELATION, transferId, 
+				SSTableFileType.SSTABLE, 0, data.length, checksum, data));
+	}
+	
+	/**
+	 * Commit an incomplete transfer
+	 */
+	@Test(timeout=60000, expected=StorageManagerException.class)
+	public void testCommitIncomplete() throws Exception {
+		final String directory = writeSSTable();
+		final String transferId = UUID.randomUUID().toString();
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		
+		sendFile(receiver, transferId, SSTableFileType.SSTABLE, directory, 100);
+		receiver.commit(TEST_RELATION, transferId);
+	}
+	
+	/**
+	 * Test an invalid transfer id
+	 */
+	@Test(timeout=60000, expected=StorageManagerException.class)
+	public void testInvalidTransferId() throws StorageManagerException {
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		receiver.receiveChunk(TEST_RELATION, "../abc", SSTableFileType.SSTABLE, 0, 0, 0, new byte[0]);
+	}
+	
+	/**
+	 * Commit the transfers of two tables with one request
+	 */
+	@Test(timeout=60000)
+	public void testCommitMultiple() throws Exception {
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		final String transferId1 = transferAllFiles(receiver, TEST_RELATION);
+		final String transferId2 = transferAllFiles(receiver, TEST_RELATION_2);
+		
+		receiver.commit(Arrays.asList(new SSTableTransfer(TEST_RELATION, transferId1), 
+				new SSTableTransfer(TEST_RELATION_2, transferId2)));
+		
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TEST_RELATION_2);
+		
+		for(int i = 0; i < TUPLES; i++) {
+			Assert.assertEquals(1, storageManager.get(getKey(i)).size());
+			Assert.assertEquals(1, storageManager2.get(getKey(i)).size());
+		}
+	}
+	
+	/**
+	 * An incomplete transfer rejects the commit of all transfers
+	 */
+	@Test(timeout=60000)
+	public void testCommitMultipleIncomplete() throws Exception {
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		final String transferId1 = transferAllFiles(receiver, TEST_RELATION);
+		
+		final String directory = writeSSTable(TEST_RELATION_2);
+		final String transferId2 = UUID.randomUUID().toString();
+		sendFile(receiver, TEST_RELATION_2, transferId2, SSTableFileType.SSTABLE, directory, 100);
+		
+		try {
+			receiver.commit(Arrays.asList(new SSTableTransfer(TEST_RELATION, transferId1), 
+					new SSTableTransfer(TEST_RELATION_2, transferId2)));
+			Assert.fail("Exception expected");
+		} catch (StorageManagerException e) {
+			// Expected
+		}
+		
+		Assert.assertTrue(storageManager.get("key_42").isEmpty());
+		Assert.assertTrue(new File(storageManager.getTransferDirectory(transferId1)).exists());
+		
+		// The complete transfer can be committed
+		receiver.commit(TEST_RELATION, transferId1);
+		Assert.assertEquals(1, storageManager.get("key_42").size());
+	}
+	
+	/**
+	 * Prepare complete and incomplete transfers
+	 */
+	@Test(timeout=60000)
+	public void testPrepare() throws Exception {
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		final String transferId1 = transferAllFiles(receiver, TEST_RELATION);
+		
+		final String directory = writeSSTable(TEST_RELATION_2);
+		final String transferId2 = UUID.randomUUID().toString();
+		sendFile(receiver, TEST_RELATION_2, transferId2, SSTableFileType.SSTABLE, directory, 100);
+		
+		final SSTableTransfer transfer1 = new SSTableTransfer(TEST_RELATION, transferId1);
+		receiver.prepare(Arrays.asList(transfer1));
+		
+		try {
+			receiver.prepare(Arrays.asList(transfer1, new SSTableTransfer(TEST_RELATION_2, transferId2)));
+			Assert.fail("Exception expected");
+		} catch (StorageManagerException e) {
+			// Expected
+		}
+		
+		try {
+			final String unknownTransferId = UUID.randomUUID().toString();
+			receiver.prepare(Arrays.asList(new SSTableTransfer(TEST_RELATION, unknownTransferId)));
+			Assert.fail("Exception expected");
+		} catch (StorageManagerException e) {
+			// Expected
+		}
+		
+		// Prepare does not adopt the SSTable
+		Assert.assertTrue(storageManager.get("key_42").isEmpty());
+		Assert.assertTrue(new File(storageManager.getTransferDirectory(transferId1)).exists());
+		
+		receiver.commit(TEST_RELATION, transferId1);
+		Assert.assertEquals(1, storageManager.get("key_42").size());
+		
+		// An adopted transfer can be prepared again
+		receiver.prepare(Arrays.asList(transfer1));
+	}
+	
+	/**
+	 * Abort a transfer
+	 */
+	@Test(timeout=60000)
+	public void testAbort() throws Exception {
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		final String transferId = transferAllFiles(receiver, TEST_RELATION);
+		
+		receiver.abort(Arrays.asList(new SSTableTransfer(TEST_RELATION, transferId)));
+		Assert.assertFalse(new File(storageManager.getTransferDirectory(transferId)).exists());
+		
+		// The aborted transfer is unknown
+		receiver.commit(TEST_RELATION, transferId);
+		Assert.assertTrue(storageManager.get("key_42").isEmpty());
+	}
+	
+	/**
+	 * Roll back a committed and a not committed transfer
+	 */
+	@Test(timeout=60000)
+	public void testRollback() throws Exception {
+		final SSTableTransferReceiver receiver = new SSTableTransferReceiver(storageRegistry);
+		final String transferId1 = transferAllFiles(receiver, TEST_RELATION);
+		final String transferId2 = transferAllFiles(receiver, TEST_RELATION_2);
+		
+		receiver.commit(TEST_RELATION, transferId1);
+		Assert.assertEquals(1, storageManager.get("key_42").size());
+		final int sstables = storageManager.getSstableFacades().size();
+		
+		receiver.rollback(Arrays.asList(new SSTableTransfer(TEST_RELATION, transferId1), 
+				new SSTableTransfer(TEST_RELATION_2, transferId2)));
+		
+		Assert.assertTrue(storageManager.get("key_42").isEmpty());
+		Assert.assertEquals(sstables - 1, storageManager.getSstableFacades().size());
+		
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TEST_RELATION_2);
+		Assert.assertFalse(new File(storageManager2.getTransferDirectory(transferId2)).exists());
+		
+		// The rolled back transfer is unknown
+		try {
+			receiver.rollback(Arrays.asList(new SSTableTransfer(TEST_RELATION, transferId1)));
+			Assert.fail("Exception expected");
+		} catch (StorageManagerException e) {
+			// Expected
+		}
+	}
+	
+	/**
+	 * Adopt a SSTable into a read only tuple store
+	 */
+	@Test(timeout=60000, expected=RejectedException.class)
+	public void testAdoptReadOnly() throws Exception {
+		final String directory = writeSSTable();
+		storageManager.setToReadOnly();
+		storageManager.adoptSSTable(directory, SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+	}
+
+	/**
+	 * The staged SSTables are published to all tuple stores or to none
+	 */
+	@Test(timeout=60000)
+	public void testPublishStagedReadOnly() throws Exception {
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TEST_RELATION_2);
+		final String directory1 = writeSSTable(TEST_RELATION);
+		final String directory2 = writeSSTable(TEST_RELATION_2);
+		
+		final SSTableFacade facade1 = storageManager.stageSSTable(directory1, 
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+		final SSTableFacade facade2 = storageManager2.stageSSTable(directory2, 
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+		
+		// Staged tables are not visible
+		Assert.assertTrue(storageManager.get("key_42").isEmpty());
+		Assert.assertTrue(storageManager2.get("key_42").isEmpty());
+		
+		// E.g., a region split after the transfer was staged
+		storageManager2.setToReadOnly();
+		
+		final Map<TupleStoreManager, List<SSTableFacade>> stagedSSTables = new HashMap<>();
+		stagedSSTables.put(storageManager, Arrays.asList(facade1));
+		stagedSSTables.put(storageManager2, Arrays.asList(facade2));
+
+		try {
+			TupleStoreManager.publishStagedSSTables(stagedSSTables);
+			Assert.fail("Exception expected");
+		} catch (RejectedException e) {
+			// Expected
+		}
+		
+		Assert.assertTrue(storageManager.get("key_42").isEmpty());
+		
+		// The files are moved back
+		storageManager.unstageSSTable(facade1, directory1, SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+		storageManager2.unstageSSTable(facade2, directory2, SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+
+		for(final SSTableFileType fileType : SSTableFileType.values()) {
+			Assert.assertTrue(new File(fileType.getFilename(directory1, TEST_RELATION, 
+					SSTableTransferHelper.TRANSFER_TABLE_NUMBER)).exists());
+			Assert.assertTrue(new File(fileType.getFilename(directory2, TEST_RELATION_2, 
+					SSTableTransferHelper.TRANSFER_TABLE_NUMBER)).exists());
+		}
+		
+		// The table can be adopted into the writable tuple store
+		storageManager.adoptSSTable(directory1, SSTableTransferHelper.TRANSFER_TABLE_NUMBER);
+		Assert.assertEquals(1, storageManager.get("key_42").size());
+	}
+
+	/**
+	 * Split a memtable with unsorted inserts and several versions of a key 
+	 * with the SSTable transfer sink. All tuples have to be written into one SSTable.
+	 */
+	@Test(timeout=60000)
+	public void testSplitUnflushedMemtable() throws Exception {
+		final Hyperrectangle boundingBox = new Hyperrectangle(0.0, 1.0);
+		final Memtable memtable = new Memtable(TEST_RELATION_2, 1000, 1024 * 1024, null);
+		memtable.init();
+		memtable.acquire();
+		
+		// The insert order is not the key order
+		for(int i = TUPLES - 1; i >= 0; i--) {
+			memtable.put(new Tuple(getKey(i), boundingBox, "value1".getBytes(), 1));
+		}
+		
+		memtable.put(new Tuple("key_42", boundingBox, "value2".getBytes(), 2));
+		
+		final SSTableTransferTupleSink tupleSink = new SSTableTransferTupleSink(TEST_RELATION_2, 
+				TEST_RELATION, Optional.of(storageManager), new ArrayList<>(), 
+				storageRegistry.getLocationLowestUtilizedDataLocation(), true, 1000, 
+				SSTableCompression.NONE);
+		
+		final DistributionRegion region = new DistributionRegion("testgroup1", boundingBox);
+		final TupleRedistributor tupleRedistributor = new TupleRedistributor(storageRegistry, TEST_RELATION_2);
+		tupleRedistributor.registerRegion(region, Arrays.asList(tupleSink));
+		
+		try {
+			tupleRedistributor.redistributeTupleStore(memtable);
+		} finally {
+			memtable.release();
+		}
+		
+		Assert.assertEquals(TUPLES + 1, tupleSink.getSinkedTuples());
+		Assert.assertEquals(1, tupleSink.getTransferredTables());
+		
+		for(int i = 0; i < TUPLES; i++) {
+			Assert.assertEquals(1, storageManager.get(getKey(i)).size());
+		}
+		
+		Assert.assertArrayEquals("value2".getBytes(), storageManager.get("key_42").get(0).getDataBytes());
+	}
+
+	/**
+	 * Write a SSTable for the table and send all files
+	 * @return the transfer id
+	 */
+	private String transferAllFiles(final SSTableTransferReceiver receiver, final TupleStoreName table) 
+			throws IOException, StorageManagerException {
+		
+		final String directory = writeSSTable(table);
+		final String transferId = UUID.randomUUID().toString();
+		
+		for(final SSTableFileType fileType : SSTableFileType.values()) {
+			sendFile(receiver, table, transferId, fileType, directory, 100);
+		}
+		
+		return transferId;
+	}
+
+	/**
+	 * Send the file in chunks
+	 */
+	private void sendFile(final SSTableTransferReceiver receiver, final String transferId, 
+			final SSTableFileType fileType, final String directory, final int chunkSize) 
+					throws IOException, StorageManagerException {
+		
+		sendFile(receiver, TEST_RELATION, transferId, fileType, directory, chunkSize);
+	}
+	
+	/**
+	 * Send the file of the table in chunks
+	 */
+	private void sendFile(final SSTableTransferReceiver receiver, final TupleStoreName table,
+			final String transferId, final SSTableFileType fileType, final String directory, 
+			final int chunkSize) throws IOException, StorageManagerException {
+		
+		final File file = new File(fileType.getFilename(directory, table, 
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER));
+		final byte[] data = Files.readAllBytes(file.toPath());
+		final long checksum = SSTableTransferHelper.calculateChecksum(file);
+		
+		int offset = 0;
+		do {
+			final int end = Math.min(offset + chunkSize, data.length);
+			final byte[] chunk = Arrays.copyOfRange(data, offset, end);
+			
+			offset = (int) receiver.receiveChunk(table, transferId, fileType, offset, 
+					data.length, checksum, chunk);
+		} while(offset < data.length);
+	}
+	
+	/**
+	 * Write a SSTable into a new directory
+	 * @return
+	 */
+	private String writeSSTable() throws IOException, StorageManagerException {
+		return writeSSTable(TEST_RELATION);
+	}
+	
+	/**
+	 * Write a SSTable of the table into a new directory
+	 * @return
+	 */
+	private String writeSSTable(final TupleStoreName table) throws IOException, StorageManagerException {
+		final String directory = Files.createTempDirectory("transfer").toString();
+		new File(SSTableHelper.getSSTableDir(directory, table)).mkdirs();
+		
+		try(final SSTableWriter writer = new SSTableWriter(directory, table, 
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER, TUPLES, SSTableCreator.TRANSFER)) {
+			
+			writer.open();
+			
+			for(int i = 0; i < TUPLES; i++) {
+				final Hyperrectangle box = new Hyperrectangle((double) i, (double) i + 1);
+				writer.addTuple(new Tuple(getKey(i), box, ("value" + i).getBytes()));
+			}
+		}
+		
+		return directory;
+	}
+	
+	/**
+	 * Get the key for the tuple
+	 * @param i
+	 * @return
+	 */
+	private static String getKey(final int i) {
+		return String.format("key_%02d", i);
+	}
+}
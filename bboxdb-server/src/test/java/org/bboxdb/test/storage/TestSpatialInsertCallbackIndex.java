@@ -0,0 +1,144 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.tuplestore.manager.SpatialInsertCallbackIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSpatialInsertCallbackIndex {
+
+	@Test(timeout=60000)
+	public void testEmptyIndex() {
+		final SpatialInsertCallbackIndex index = new SpatialInsertCallbackIndex();
+		Assert.assertTrue(index.isEmpty());
+		
+		final Tuple tuple = new Tuple("1", new Hyperrectangle(1d, 2d), "".getBytes());
+		Assert.assertTrue(index.getCallbacksForTuple(tuple).isEmpty());
+	}
+	
+	@Test(timeout=60000)
+	public void testRegionLookup() {
+		final SpatialInsertCallbackIndex index = new SpatialInsertCallbackIndex();
+		
+		final Consumer<Tuple> callback1 = (t) -> {};
+		final Consumer<Tuple> callback2 = (t) -> {};
+		final Consumer<Tuple> callback3 = (t) -> {};
+		final Consumer<Tuple> callback4 = (t) -> {};
+
+		index.registerCallback(new Hyperrectangle(0d, 10d, 0d, 10d), callback1);
+		index.registerCallback(new Hyperrectangle(5d, 15d, 5d, 15d), callback2);
+		index.registerCallback(Hyperrectangle.FULL_SPACE, callback3);
+		index.registerCallback(new Hyperrectangle(0d, 10d), callback4);
+		Assert.assertEquals(4, index.size());
+		
+		final List<Consumer<Tuple>> result1 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(1d, 2d, 1d, 2d), "".getBytes()));
+		Assert.assertEquals(2, result1.size());
+		Assert.assertTrue(result1.contains(callback1));
+		Assert.assertTrue(result1.contains(callback3));
+
+		final List<Consumer<Tuple>> result2 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(7d, 8d, 7d, 8d), "".getBytes()));
+		Assert.assertEquals(3, result2.size());
+		
+		final List<Consumer<Tuple>> result3 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(70d, 80d, 70d, 80d), "".getBytes()));
+		Assert.assertEquals(1, result3.size());
+		Assert.assertTrue(result3.contains(callback3));
+		
+		// One dimensional tuple
+		final List<Consumer<Tuple>> result4 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(1d, 2d), "".getBytes()));
+		Assert.assertEquals(2, result4.size());
+		Assert.assertTrue(result4.contains(callback4));
+
+		// The full space intersects all callbacks
+		final List<Consumer<Tuple>> result5 = index.getCallbacksForTuple(
+				new Tuple("1", Hyperrectangle.FULL_SPACE, "".getBytes()));
+		Assert.assertEquals(4, result5.size());
+		
+		Assert.assertTrue(index.removeCallback(callback1));
+		Assert.assertFalse(index.removeCallback(callback1));
+		
+		final List<Consumer<Tuple>> result6 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(1d, 2d, 1d, 2d), "".getBytes()));
+		Assert.assertEquals(1, result6.size());
+		Assert.assertTrue(result6.contains(callback3));
+	}
+	
+	@Test(timeout=60000)
+	public void testRegisterAndRemoveMany() {
+		final SpatialInsertCallbackIndex index = new SpatialInsertCallbackIndex();
+		final List<Consumer<Tuple>> callbacks = new ArrayList<>();
+		
+		for(int i = 0; i < 1000; i++) {
+			final List<Tuple> calledTuples = new ArrayList<>();
+			final Consumer<Tuple> callback = (t) -> calledTuples.add(t);
+			index.registerCallback(new Hyperrectangle((double) i, i + 0.5, 0d, 1d), callback);
+			callbacks.add(callback);
+		}
+		
+		Assert.assertEquals(1000, index.size());
+		Assert.assertEquals(1000, index.getIndexedEntries(2));
+		
+		// Removed entries stay in the R-tree until the next rebuild
+		for(int i = 0; i < 500; i++) {
+			Assert.assertTrue(index.removeCallback(callbacks.get(i)));
+		}
+		
+		Assert.assertEquals(500, index.size());
+		Assert.assertEquals(1000, index.getIndexedEntries(2));
+		
+		Assert.assertTrue(index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(10d, 10.2d, 0d, 1d), "".getBytes())).isEmpty());
+		
+		final List<Consumer<Tuple>> result1 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(600d, 600.2d, 0d, 1d), "".getBytes()));
+		Assert.assertEquals(1, result1.size());
+		Assert.assertTrue(result1.contains(callbacks.get(600)));
+		
+		// More removed than live entries, the R-tree is rebuilt
+		Assert.assertTrue(index.removeCallback(callbacks.get(500)));
+		Assert.assertEquals(499, index.getIndexedEntries(2));
+		
+		final List<Consumer<Tuple>> result2 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(0d, 1000d, 0d, 1d), "".getBytes()));
+		Assert.assertEquals(499, result2.size());
+		Assert.assertFalse(result2.contains(callbacks.get(500)));
+		
+		// Register a callback again with a new region
+		index.registerCallback(new Hyperrectangle(2000d, 2001d, 0d, 1d), callbacks.get(600));
+		Assert.assertEquals(499, index.size());
+		
+		final List<Consumer<Tuple>> result3 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(600d, 600.2d, 0d, 1d), "".getBytes()));
+		Assert.assertTrue(result3.isEmpty());
+		
+		final List<Consumer<Tuple>> result4 = index.getCallbacksForTuple(
+				new Tuple("1", new Hyperrectangle(2000d, 2000.2d, 0d, 1d), "".getBytes()));
+		Assert.assertEquals(1, result4.size());
+		Assert.assertTrue(result4.contains(callbacks.get(600)));
+	}
+}
@@ -19,6 +19,7 @@ package org.bboxdb.test.storage;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -27,6 +28,7 @@ import org.bboxdb.commons.ObjectSerializer;
 import org.bboxdb.commons.RejectedException;
 import org.bboxdb.commons.entity.PersonEntity;
 import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.misc.BBoxDBConfiguration;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.DeletedTuple;
@@ -36,6 +38,7 @@ import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Before;
@@ -172,6 +175,40 @@ public class TestStorageManager {
 		Assert.assertEquals(2, receivedTuples.size());
 	}
 
+	@Test(timeout=60000)
+	public void testSpatialInsertCallbacks() throws StorageManagerException, RejectedException, 
+		InterruptedException {
+		
+		final List<Tuple> receivedTuples1 = new CopyOnWriteArrayList<>();
+		final List<Tuple> receivedTuples2 = new CopyOnWriteArrayList<>();
+		final Consumer<Tuple> callback1 = ((t) -> receivedTuples1.add(t));
+		final Consumer<Tuple> callback2 = ((t) -> receivedTuples2.add(t));
+
+		storageManager.registerSpatialInsertCallback(new Hyperrectangle(0d, 10d, 0d, 10d), callback1);
+		storageManager.registerSpatialInsertCallback(Hyperrectangle.FULL_SPACE, callback2);
+
+		final Tuple createdTuple1 = new Tuple("1", new Hyperrectangle(1d, 2d, 1d, 2d), "abc".getBytes());
+		final Tuple createdTuple2 = new Tuple("2", new Hyperrectangle(20d, 22d, 1d, 2d), "abc".getBytes());
+		final Tuple createdTuple3 = new Tuple("3", Hyperrectangle.FULL_SPACE, "abc".getBytes());
+
+		storageManager.put(createdTuple1);
+		storageManager.put(createdTuple2);
+		storageManager.put(createdTuple3);
+		
+		// Callbacks are executed asynchronously
+		while(receivedTuples1.size() < 2 || receivedTuples2.size() < 3) {
+			Thread.sleep(10);
+		}
+		
+		Assert.assertTrue(receivedTuples1.contains(createdTuple1));
+		Assert.assertFalse(receivedTuples1.contains(createdTuple2));
+		Assert.assertTrue(receivedTuples1.contains(createdTuple3));
+
+		Assert.assertTrue(storageManager.removeSpatialInsertCallback(callback1));
+		Assert.assertFalse(storageManager.removeSpatialInsertCallback(callback1));
+		Assert.assertTrue(storageManager.removeSpatialInsertCallback(callback2));
+	}
+
 	@Test(timeout=60000)
 	public void testTupleDelete() throws Exception {
 		final Tuple createdTuple = new Tuple("1", Hyperrectangle.FULL_SPACE, "abc".getBytes());
@@ -458,4 +495,38 @@ public class TestStorageManager {
 		final List<Tuple> readTuples2 = storageManager.get("abc");
 		Assert.assertTrue(readTuples2.isEmpty());
 	}
+
+	/**
+	 * The WAL of the first memtable has to use the sync policy of the table, 
+	 * also after a restart of the storage manager
+	 * @throws StorageManagerException
+	 */
+	@Test(timeout=60000)
+	public void testWalSyncPolicyAfterRestart() throws StorageManagerException {
+		final BBoxDBConfiguration configuration = storageRegistry.getConfiguration();
+		final boolean writeAheadLog = configuration.isStorageWriteAheadLog();
+		configuration.setStorageWriteAheadLog(true);
+		
+		try {
+			storageRegistry.deleteTable(TEST_RELATION);
+			
+			final TupleStoreConfiguration tupleStoreConfiguration = TupleStoreConfigurationBuilder
+					.create()
+					.withWalSyncPolicy(WriteAheadLogSyncPolicy.BATCH)
+					.build();
+			
+			storageManager = storageRegistry.createTable(TEST_RELATION, tupleStoreConfiguration);
+			Assert.assertEquals(WriteAheadLogSyncPolicy.BATCH, 
+					storageManager.getMemtable().getWriteAheadLogWriter().getSyncPolicy());
+			
+			storageManager.shutdown();
+			storageManager.init();
+			
+			Assert.assertTrue(storageManager.getServiceState().isInRunningState());
+			Assert.assertEquals(WriteAheadLogSyncPolicy.BATCH, 
+					storageManager.getMemtable().getWriteAheadLogWriter().getSyncPolicy());
+		} finally {
+			configuration.setStorageWriteAheadLog(writeAheadLog);
+		}
+	}
 }
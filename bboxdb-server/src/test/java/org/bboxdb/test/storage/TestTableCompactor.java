@@ -33,6 +33,8 @@ import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.entity.TupleStoreMetaData;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.sstable.SSTableCreator;
 import org.bboxdb.storage.sstable.SSTableHelper;
@@ -129,6 +131,90 @@ public class TestTableCompactor {
 		
 	}
 	
+	@Test(timeout=60000)
+	public void testCompactTestMaxTuplesAndLevel() throws StorageManagerException, InterruptedException {
+		final List<Tuple> tupleList1 = new ArrayList<Tuple>();
+		tupleList1.add(new Tuple("1", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		tupleList1.add(new Tuple("3", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		tupleList1.add(new Tuple("5", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		final SSTableKeyIndexReader reader1 = addTuplesToFileAndGetReader(tupleList1, 1);
+		
+		final List<Tuple> tupleList2 = new ArrayList<Tuple>();
+		tupleList2.add(new Tuple("2", Hyperrectangle.FULL_SPACE, "def".getBytes()));
+		tupleList2.add(new Tuple("4", Hyperrectangle.FULL_SPACE, "def".getBytes()));
+		final SSTableKeyIndexReader reader2 = addTuplesToFileAndGetReader(tupleList2, 2);
+				
+		storageRegistry.deleteTable(TEST_RELATION);
+		storageRegistry.createTable(TEST_RELATION, new TupleStoreConfiguration());
+		final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(TEST_RELATION);
+		
+		final SSTableCompactor compactor = new SSTableCompactor(storageManager, Arrays.asList(reader1, reader2));
+		compactor.setMaxTuplesPerTable(2);
+		compactor.setOutputLevel(1);
+		compactor.executeCompactation();
+		final List<SSTableWriter> resultWriter = compactor.getResultList();
+		
+		Assert.assertEquals(3, resultWriter.size());
+		Assert.assertEquals(5, compactor.getWrittenTuples());
+		
+		final List<String> firstKeys = new ArrayList<>();
+		
+		for(final SSTableWriter writer : resultWriter) {
+			final TupleStoreMetaData metaData = TupleStoreMetaData.importFromYamlFile(writer.getMetadataFile());
+			Assert.assertEquals(1, metaData.getLevel());
+			firstKeys.add(metaData.getFirstKey());
+			writer.close();
+		}
+		
+		Assert.assertEquals(Arrays.asList("1", "3", "5"), firstKeys);
+	}
+	
+	@Test(timeout=60000)
+	public void testCompactTestMaxBytesKeepsVersions() throws StorageManagerException, InterruptedException {
+		final List<Tuple> tupleList1 = new ArrayList<Tuple>();
+		tupleList1.add(new Tuple("1", Hyperrectangle.FULL_SPACE, "abc".getBytes(), 1));
+		tupleList1.add(new Tuple("2", Hyperrectangle.FULL_SPACE, "abc".getBytes(), 1));
+		tupleList1.add(new Tuple("3", Hyperrectangle.FULL_SPACE, "abc".getBytes(), 1));
+		final SSTableKeyIndexReader reader1 = addTuplesToFileAndGetReader(tupleList1, 1);
+		
+		final List<Tuple> tupleList2 = new ArrayList<Tuple>();
+		tupleList2.add(new Tuple("1", Hyperrectangle.FULL_SPACE, "def".getBytes(), 2));
+		tupleList2.add(new Tuple("2", Hyperrectangle.FULL_SPACE, "def".getBytes(), 2));
+		tupleList2.add(new Tuple("3", Hyperrectangle.FULL_SPACE, "def".getBytes(), 2));
+		final SSTableKeyIndexReader reader2 = addTuplesToFileAndGetReader(tupleList2, 2);
+				
+		final TupleStoreConfiguration configuration = TupleStoreConfigurationBuilder
+				.create()
+				.allowDuplicates(true)
+				.build();
+		
+		storageRegistry.deleteTable(TEST_RELATION);
+		storageRegistry.createTable(TEST_RELATION, configuration);
+		final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(TEST_RELATION);
+		
+		// Every tuple exceeds the size limit, the versions of a key have to stay together
+		final SSTableCompactor compactor = new SSTableCompactor(storageManager, Arrays.asList(reader1, reader2));
+		compactor.setMaxBytesPerTable(1);
+		compactor.setOutputLevel(1);
+		compactor.executeCompactation();
+		final List<SSTableWriter> resultWriter = compactor.getResultList();
+		
+		Assert.assertEquals(3, resultWriter.size());
+		Assert.assertEquals(6, compactor.getWrittenTuples());
+		
+		final List<String> firstKeys = new ArrayList<>();
+		
+		for(final SSTableWriter writer : resultWriter) {
+			final TupleStoreMetaData metaData = TupleStoreMetaData.importFromYamlFile(writer.getMetadataFile());
+			Assert.assertEquals(metaData.getFirstKey(), metaData.getLastKey());
+			Assert.assertEquals(2, metaData.getTuples());
+			firstKeys.add(metaData.getFirstKey());
+			writer.close();
+		}
+		
+		Assert.assertEquals(Arrays.asList("1", "2", "3"), firstKeys);
+	}
+	
 	@Test(timeout=60000)
 	public void testCompactTestMerge() throws StorageManagerException, InterruptedException {
 		final List<Tuple> tupleList1 = new ArrayList<Tuple>();
@@ -181,7 +267,7 @@ public class TestTableCompactor {
 		
 		// Check the consistency of the index
 		for(int i = 1; i < 500; i++) {
-			final List<Integer> positions = ssTableIndexReader.getPositionsForTuple(Integer.toString(i));
+			final List<Long> positions = ssTableIndexReader.getPositionsForTuple(Integer.toString(i));
 			Assert.assertTrue(positions.size() == 1);
 		}
 		
@@ -18,8 +18,13 @@
 package org.bboxdb.test.storage;
 
 import java.io.File;
+import java.util.concurrent.TimeUnit;
 
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.sstable.block.SSTableCompression;
+import org.bboxdb.storage.sstable.compact.MergeStrategyType;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -36,6 +41,55 @@ public class TestTuplestoreConfiguration {
 		Assert.assertTrue(configuration1.toString().length() > 10);
 	}
 
+	@Test(timeout=60000)
+	public void testWriteAndReadWalConfiguration() {
+		final TupleStoreConfiguration configuration1 = TupleStoreConfigurationBuilder
+				.create()
+				.withWalSyncPolicy(WriteAheadLogSyncPolicy.BATCH)
+				.withWalSyncInterval(10, TimeUnit.SECONDS)
+				.build();
+		
+		final String yamlString = configuration1.exportToYaml();
+		final TupleStoreConfiguration configuration2 = TupleStoreConfiguration.importFromYaml(yamlString);
+		
+		Assert.assertEquals(configuration1, configuration2);
+		Assert.assertEquals(WriteAheadLogSyncPolicy.BATCH, configuration2.getWalSyncPolicy());
+		Assert.assertEquals(10000, configuration2.getWalSyncInterval());
+		Assert.assertNotEquals(new TupleStoreConfiguration(), configuration2);
+	}
+
+	@Test(timeout=60000)
+	public void testWriteAndReadMergeStrategy() {
+		final TupleStoreConfiguration configuration1 = TupleStoreConfigurationBuilder
+				.create()
+				.withMergeStrategy(MergeStrategyType.SIZE_TIERED)
+				.build();
+		
+		final String yamlString = configuration1.exportToYaml();
+		final TupleStoreConfiguration configuration2 = TupleStoreConfiguration.importFromYaml(yamlString);
+		
+		Assert.assertEquals(configuration1, configuration2);
+		Assert.assertEquals(MergeStrategyType.SIZE_TIERED, configuration2.getMergeStrategy());
+		Assert.assertEquals(MergeStrategyType.BASIC, new TupleStoreConfiguration().getMergeStrategy());
+		Assert.assertNotEquals(new TupleStoreConfiguration(), configuration2);
+	}
+
+	@Test(timeout=60000)
+	public void testWriteAndReadCompression() {
+		final TupleStoreConfiguration configuration1 = TupleStoreConfigurationBuilder
+				.create()
+				.withCompression(SSTableCompression.ZSTD)
+				.build();
+		
+		final String yamlString = configuration1.exportToYaml();
+		final TupleStoreConfiguration configuration2 = TupleStoreConfiguration.importFromYaml(yamlString);
+		
+		Assert.assertEquals(configuration1, configuration2);
+		Assert.assertEquals(SSTableCompression.ZSTD, configuration2.getCompression());
+		Assert.assertEquals(SSTableCompression.NONE, new TupleStoreConfiguration().getCompression());
+		Assert.assertNotEquals(new TupleStoreConfiguration(), configuration2);
+	}
+
 	@Test(timeout=60000)
 	public void testReadNonExistingFile() {
 		final File tmpFile = new File("/tmp/tuplestore.nonexisting");
@@ -22,7 +22,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.bboxdb.commons.io.FileUtil;
 import org.bboxdb.commons.math.Hyperrectangle;
@@ -31,9 +36,11 @@ import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.memtable.Memtable;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.util.TupleHelper;
 import org.bboxdb.storage.wal.WriteAheadLogManager;
 import org.bboxdb.storage.wal.WriteAheadLogReader;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.bboxdb.storage.wal.WriteAheadLogWriter;
 import org.junit.After;
 import org.junit.Assert;
@@ -250,4 +257,153 @@ public class TestWriteAheadLog {
 		
 		Assert.assertFalse(walFile.exists());
 	}
+	
+	@Test(timeout=60000)
+	public void testMemtableBatchWithWAL() throws IOException, StorageManagerException {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.BATCH, 0);
+		
+		final Memtable memtable = new Memtable(new TupleStoreName("abc_def"), 3, 1000, walWriter);
+		memtable.init();
+		memtable.acquire();
+		
+		final List<Tuple> tuples = new ArrayList<>();
+		
+		for(int i = 0; i < 5; i++) {
+			tuples.add(new Tuple(Integer.toString(i), new Hyperrectangle(1d, 2d), "abc".getBytes()));
+		}
+		
+		// Only 3 tuples fit into the memtable
+		Assert.assertEquals(3, memtable.tryPut(tuples, 0));
+		Assert.assertEquals(0, memtable.tryPut(tuples, 3));
+		Assert.assertTrue(walWriter.isSynced());
+		
+		final WriteAheadLogReader reader = new WriteAheadLogReader(walWriter.getFile());
+		final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+		Assert.assertEquals(tuples.subList(0, 3), myList);
+		reader.close();
+		
+		Assert.assertEquals(3, memtable.getNumberOfTuples());
+		Assert.assertEquals(1, memtable.get("2").size());
+		Assert.assertTrue(memtable.get("3").isEmpty());
+		
+		memtable.deleteOnClose();
+		memtable.release();
+	}
+	
+	@Test(timeout=60000)
+	public void testConcurrentWriters() throws Exception {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.BATCH, 0);
+		
+		final int threads = 8;
+		final int tuplesPerThread = 200;
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final List<Future<Void>> futures = new ArrayList<>();
+
+		for(int thread = 0; thread < threads; thread++) {
+			final int threadNumber = thread;
+			
+			futures.add(executor.submit(() -> {
+				for(int i = 0; i < tuplesPerThread; i++) {
+					walWriter.addTuple(new Tuple(threadNumber + "_" + i, 
+							new Hyperrectangle(1d, 2d), "abc".getBytes()));
+				}
+				return null;
+			}));
+		}
+		
+		for(final Future<Void> future : futures) {
+			future.get();
+		}
+		
+		executor.shutdown();
+		
+		// All tuples are readable before the writer is closed
+		final WriteAheadLogReader reader = new WriteAheadLogReader(walWriter.getFile());
+		final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+		Assert.assertEquals(threads * tuplesPerThread, myList.size());
+		reader.close();
+		
+		walWriter.close();
+	}
+	
+	@Test
+	public void testReadLegacyFormat() throws IOException, StorageManagerException {
+		final File writtenFile = new File(tempDir + File.separator + "test");
+		
+		final BufferedOutputStream os = new BufferedOutputStream(new FileOutputStream(writtenFile));
+		os.write(SSTableConst.MAGIC_BYTES_WAL);
+		TupleHelper.writeTupleToStream(TUPLE_A, os);
+		TupleHelper.writeTupleToStream(TUPLE_B, os);
+		os.close();
+
+		final WriteAheadLogReader reader = new WriteAheadLogReader(writtenFile);
+		final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+		Assert.assertEquals(2, myList.size());
+		Assert.assertEquals(TUPLE_A, myList.get(0));
+		Assert.assertEquals(TUPLE_B, myList.get(1));
+		reader.close();
+	}
+	
+	@Test
+	public void testWriteReadInvalidChecksum() throws IOException, StorageManagerException {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1);
+		walWriter.addTuple(TUPLE_A);
+		walWriter.addTuple(TUPLE_B);
+		walWriter.close();
+		
+		// Change the last byte of the file
+		final File file = walWriter.getFile();
+		try(final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+			randomAccessFile.seek(file.length() - 1);
+			final byte lastByte = randomAccessFile.readByte();
+			randomAccessFile.seek(file.length() - 1);
+			randomAccessFile.writeByte(lastByte + 1);
+		}
+		
+		final WriteAheadLogReader reader = new WriteAheadLogReader(file);
+		final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+		Assert.assertEquals(1, myList.size());
+		Assert.assertEquals(TUPLE_A, myList.get(0));
+		reader.close();
+	}
+	
+	@Test(expected=StorageManagerException.class)
+	public void testWriteAfterClose() throws IOException, StorageManagerException {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.INTERVAL, 1000);
+		walWriter.close();
+		walWriter.addTuple(TUPLE_A);
+	}
+	
+	@Test(timeout=60000)
+	public void testIntervalSyncWithoutFurtherWrites() throws IOException, 
+		StorageManagerException, InterruptedException {
+		
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.INTERVAL, 200);
+		
+		// The interval is not elapsed after the creation of the writer
+		walWriter.addTuple(TUPLE_A);
+		Assert.assertFalse(walWriter.isSynced());
+		
+		// No further write, the timer has to sync the WAL
+		while(! walWriter.isSynced()) {
+			Thread.sleep(50);
+		}
+		
+		walWriter.close();
+	}
+	
+	@Test(timeout=60000)
+	public void testBatchSync() throws IOException, StorageManagerException {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.BATCH, 0);
+		
+		walWriter.addTuple(TUPLE_A);
+		Assert.assertTrue(walWriter.isSynced());
+		walWriter.close();
+	}
 }
@@ -73,7 +73,7 @@ public class RTreeTestHelper {
 	private static void checkResult(final SpatialIndexEntry entry, 
 			final List<? extends SpatialIndexEntry> resultList) {
 		
-		final List<Integer> keyResult = resultList
+		final List<Long> keyResult = resultList
 				.stream()
 				.map(e -> e.getValue())
 				.filter(k -> k.equals(entry.getValue()))
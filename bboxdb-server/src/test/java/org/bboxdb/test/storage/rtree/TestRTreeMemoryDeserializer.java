@@ -21,11 +21,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilder;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexCursor;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
 import org.bboxdb.storage.sstable.spatialindex.rtree.AbstractRTreeReader;
 import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
@@ -168,4 +174,128 @@ public class TestRTreeMemoryDeserializer {
 		
 		RTreeTestHelper.queryIndex(tupleList, indexRead);
 	}
+
+	/**
+	 * Test the decoding of a version 1 index (int pointer)
+	 * @throws StorageManagerException 
+	 * @throws IOException 
+	 * @throws InterruptedException 
+	 */
+	@Test(timeout=60000)
+	public void testReadVersion1Index() throws StorageManagerException, IOException, InterruptedException {
+		final int maxNodeSize = 3;
+		final Hyperrectangle entryBox1 = new Hyperrectangle(1.0, 2.0);
+		final Hyperrectangle entryBox2 = new Hyperrectangle(5.0, 6.0);
+		
+		final File tempFile = File.createTempFile("rtree-", "-test");
+		tempFile.deleteOnExit();
+		
+		// Root node with two entries and without child nodes
+		try(final RandomAccessFile raf = new RandomAccessFile(tempFile, "rw")) {
+			raf.write(SSTableConst.MAGIC_BYTES_SPATIAL_RTREE_INDEX_V1);
+			raf.write(DataEncoderHelper.intToByteBuffer(maxNodeSize).array());
+			raf.write(DataEncoderHelper.intToByteBuffer(0).array());
+			
+			final byte[] nodeBox = new Hyperrectangle(1.0, 6.0).toByteArray();
+			raf.write(DataEncoderHelper.intToByteBuffer(nodeBox.length).array());
+			raf.write(nodeBox);
+			
+			writeVersion1Entry(raf, entryBox1, 10);
+			writeVersion1Entry(raf, entryBox2, 20);
+			raf.write(RTreeBuilder.MAGIC_CHILD_NODE_NOT_EXISTING);
+			
+			for(int i = 0; i < maxNodeSize; i++) {
+				raf.write(RTreeBuilder.MAGIC_CHILD_NODE_NOT_EXISTING);
+			}
+		}
+		
+		final AbstractRTreeReader indexRead = getRTreeReader();
+		final RandomAccessFile rafRead = new RandomAccessFile(tempFile, "r");
+		indexRead.readFromFile(rafRead);
+		rafRead.close();
+		
+		Assert.assertEquals(maxNodeSize, indexRead.getMaxNodeSize());
+
+		final List<? extends SpatialIndexEntry> resultList 
+			= indexRead.getEntriesForRegion(new Hyperrectangle(5.5, 5.6));
+		
+		Assert.assertEquals(1, resultList.size());
+		Assert.assertEquals(20, resultList.get(0).getValue());
+		Assert.assertEquals(entryBox2, resultList.get(0).getBoundingBox());
+		
+		Assert.assertEquals(2, indexRead.getEntriesForRegion(Hyperrectangle.FULL_SPACE).size());
+		
+		indexRead.close();
+	}
+
+	/**
+	 * Test the cursor based query
+	 * @throws StorageManagerException 
+	 * @throws IOException 
+	 * @throws InterruptedException 
+	 */
+	@Test(timeout=60000)
+	public void testCursorQuery() throws StorageManagerException, IOException, InterruptedException {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(2, 5000);
+		
+		final SpatialIndexBuilder index = new RTreeBuilder();
+		index.bulkInsert(tupleList);
+		
+		final File tempFile = File.createTempFile("rtree-", "-test");
+		tempFile.deleteOnExit();
+		final RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");		
+		index.writeToFile(raf);
+		raf.close();
+		
+		final AbstractRTreeReader indexRead = getRTreeReader();
+		final RandomAccessFile rafRead = new RandomAccessFile(tempFile, "r");
+		indexRead.readFromFile(rafRead);
+		rafRead.close();
+		
+		for(final SpatialIndexEntry entry : tupleList.subList(0, 100)) {
+			final Set<Long> expected = indexRead.getEntriesForRegion(entry.getBoundingBox())
+					.stream()
+					.map(e -> e.getValue())
+					.collect(Collectors.toSet());
+			
+			final Set<Long> cursorResult = new HashSet<>();
+			final SpatialIndexCursor cursor = indexRead.getCursorForRegion(entry.getBoundingBox());
+			
+			while(cursor.next()) {
+				Assert.assertTrue(cursor.getEntry().getBoundingBox().intersects(entry.getBoundingBox()));
+				cursorResult.add(cursor.getValue());
+			}
+			
+			Assert.assertTrue(cursorResult.contains(entry.getValue()));
+			Assert.assertEquals(expected, cursorResult);
+		}
+		
+		final SpatialIndexCursor fullCursor = indexRead.getCursorForRegion(Hyperrectangle.FULL_SPACE);
+		int entries = 0;
+		
+		while(fullCursor.next()) {
+			entries++;
+		}
+		
+		Assert.assertEquals(tupleList.size(), entries);
+		
+		indexRead.close();
+	}
+
+	/**
+	 * Write a version 1 index entry (int value)
+	 * @param raf
+	 * @param boundingBox
+	 * @param value
+	 * @throws IOException
+	 */
+	private void writeVersion1Entry(final RandomAccessFile raf, final Hyperrectangle boundingBox, 
+			final int value) throws IOException {
+		
+		raf.write(RTreeBuilder.MAGIC_CHILD_NODE_FOLLOWING);
+		raf.write(DataEncoderHelper.intToByteBuffer(value).array());
+		final byte[] boxBytes = boundingBox.toByteArray();
+		raf.write(DataEncoderHelper.intToByteBuffer(boxBytes.length).array());
+		raf.write(boxBytes);
+	}
 }
@@ -0,0 +1,187 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage.rtree;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilder;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.AbstractRTreeReader;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeDirectoryNode;
+import org.bboxdb.storage.sstable.spatialindex.rtree.STRTreeBuilder;
+import org.bboxdb.storage.sstable.spatialindex.rtree.mmf.RTreeMMFReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestSTRTreeIndex {
+
+	@Test(timeout=60_000)
+	public void testQueryOnEmptytree() {
+		final SpatialIndexBuilder index = new STRTreeBuilder();
+		final List<? extends SpatialIndexEntry> result = index.getEntriesForRegion(new Hyperrectangle(1d, 1d, 2d, 2d));
+		Assert.assertTrue(result.isEmpty());
+		Assert.assertTrue(index.getEntriesForRegion(Hyperrectangle.FULL_SPACE).isEmpty());
+	}
+	
+	/**
+	 * Test to query the index
+	 */
+	@Test(timeout=60_000)
+	public void testBoxQuery1d() {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.getEntryList();
+		
+		final SpatialIndexBuilder index = new STRTreeBuilder(4);
+		index.bulkInsert(tupleList);
+		RTreeTestHelper.queryIndex(tupleList, index);
+	}
+	
+	/**
+	 * Test to query the index
+	 */
+	@Test(timeout=60_000)
+	public void testBoxQuery2d() {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(2, 25_000);
+		
+		final SpatialIndexBuilder index = new STRTreeBuilder();
+		index.bulkInsert(tupleList);
+		RTreeTestHelper.queryIndex(tupleList, index);
+	}
+	
+	/**
+	 * Test to query the index
+	 */
+	@Test(timeout=60_000)
+	public void testBoxQuery3d() {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(3, 5000);
+		
+		final SpatialIndexBuilder index = new STRTreeBuilder(12);
+		index.bulkInsert(tupleList);
+		RTreeTestHelper.queryIndex(tupleList, index);
+	}
+	
+	/**
+	 * Entries without a dimension (full space) can be mixed with other entries
+	 */
+	@Test(timeout=60_000)
+	public void testFullSpaceEntries() {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(2, 1000);
+		tupleList.add(new SpatialIndexEntry(Hyperrectangle.FULL_SPACE, 5000));
+		
+		final SpatialIndexBuilder index = new STRTreeBuilder();
+		index.bulkInsert(tupleList);
+		RTreeTestHelper.queryIndex(tupleList, index);
+	}
+	
+	/**
+	 * Inserts after a query rebuild the tree
+	 */
+	@Test(timeout=60_000)
+	public void testInsertAfterQuery() {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(2, 1000);
+		
+		final SpatialIndexBuilder index = new STRTreeBuilder();
+		index.bulkInsert(tupleList.subList(0, 500));
+		RTreeTestHelper.queryIndex(tupleList.subList(0, 500), index);
+		
+		index.bulkInsert(tupleList.subList(500, 1000));
+		RTreeTestHelper.queryIndex(tupleList, index);
+	}
+	
+	/**
+	 * Test the covering and the fill grade of the nodes
+	 */
+	@Test(timeout=60_000)
+	public void testCoveringAndPacking() {
+		final int maxNodeSize = 16;
+		final int elements = 5000;
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(3, elements);
+		
+		final STRTreeBuilder index = new STRTreeBuilder(maxNodeSize);
+		index.bulkInsert(tupleList);
+		index.testCovering();
+		
+		// Count the leaf nodes
+		int leafNodes = 0;
+		int indexEntries = 0;
+		final Deque<RTreeDirectoryNode> nodes = new ArrayDeque<>();
+		nodes.push(index.getRootNode());
+		
+		while(! nodes.isEmpty()) {
+			final RTreeDirectoryNode node = nodes.pop();
+			
+			Assert.assertTrue(node.getSize() <= maxNodeSize);
+			
+			if(node.isLeafNode()) {
+				leafNodes++;
+				indexEntries += node.getIndexEntries().size();
+			} else {
+				node.getDirectoryNodeChilds().forEach(n -> nodes.push(n));
+			}
+		}
+		
+		Assert.assertEquals(elements, indexEntries);
+		
+		// A few partly filled nodes at the end of the slices are allowed
+		final int minimalLeafNodes = (int) Math.ceil((double) elements / maxNodeSize);
+		Assert.assertTrue(leafNodes < minimalLeafNodes * 1.1);
+	}
+	
+	/**
+	 * Test the creation of a tree with a invalid max node size
+	 */
+	@Test(timeout=60_000, expected=IllegalArgumentException.class)
+	public void testWrongNodeSize() {
+		new STRTreeBuilder(1);
+	}
+	
+	/**
+	 * Write the tree and read it with the memory mapped reader
+	 * @throws StorageManagerException 
+	 * @throws IOException 
+	 * @throws InterruptedException 
+	 */
+	@Test(timeout=60_000)
+	public void testSerializeIndex() throws StorageManagerException, IOException, InterruptedException {
+		final List<SpatialIndexEntry> tupleList = new ArrayList<>(RTreeTestHelper.generateRandomTupleList(2, 5000));
+		
+		final SpatialIndexBuilder index = new STRTreeBuilder();
+		index.bulkInsert(tupleList);
+		
+		final File tempFile = File.createTempFile("rtree-", "-test");
+		tempFile.deleteOnExit();
+		final RandomAccessFile raf = new RandomAccessFile(tempFile, "rw");		
+		index.writeToFile(raf);
+		raf.close();
+		
+		final AbstractRTreeReader indexRead = new RTreeMMFReader();
+		final RandomAccessFile rafRead = new RandomAccessFile(tempFile, "r");
+		indexRead.readFromFile(rafRead);
+		rafRead.close();
+		
+		RTreeTestHelper.queryIndex(tupleList, indexRead);
+		indexRead.close();
+	}
+}
@@ -143,4 +143,56 @@ public class TestESRIGeometryUserDefinedFilter {
 		Assert.assertFalse(filter2.filterTuple(tuple3, tuple2.getDataBytes()));
 	}
 	
+	@Test
+	public void testGeometryJoinReuse() {
+		final UserDefinedGeoJsonSpatialFilter filter = new UserDefinedGeoJsonSpatialFilter();
+		filter.init("".getBytes());
+		
+		// Same instance, the geometries are served from the cache
+		for(int i = 0; i < 3; i++) {
+			Assert.assertTrue(filter.filterJoinCandidate(tuple1, tuple3, "".getBytes()));
+			Assert.assertFalse(filter.filterJoinCandidate(tuple1, tuple2, "".getBytes()));
+		}
+		
+		final UserDefinedGeoJsonSpatialFilter filterWithText = new UserDefinedGeoJsonSpatialFilter();
+		filterWithText.init("wood".getBytes());
+		Assert.assertTrue(filterWithText.filterJoinCandidate(tuple4, tuple4, "wood".getBytes()));
+		Assert.assertFalse(filterWithText.filterJoinCandidate(tuple1, tuple3, "wood".getBytes()));
+	}
+	
+	@Test
+	public void testGeometryFilterInit() {
+		final UserDefinedGeoJsonSpatialFilter filter = new UserDefinedGeoJsonSpatialFilter();
+		filter.init(tuple1.getDataBytes());
+		
+		// The custom data is parsed in init
+		Assert.assertTrue(filter.filterTuple(tuple1, tuple1.getDataBytes()));
+		Assert.assertTrue(filter.filterTuple(tuple3, tuple1.getDataBytes()));
+		Assert.assertFalse(filter.filterTuple(tuple2, tuple1.getDataBytes()));
+	}
+	
+	@Test
+	public void testGeometryFilterCustomDataChange() {
+		final UserDefinedGeoJsonSpatialFilter filter = new UserDefinedGeoJsonSpatialFilter();
+		
+		// Not initialized, the geometry is parsed for the custom data of the call
+		Assert.assertTrue(filter.filterTuple(tuple1, tuple1.getDataBytes()));
+		Assert.assertFalse(filter.filterTuple(tuple1, tuple2.getDataBytes()));
+		Assert.assertTrue(filter.filterTuple(tuple2, tuple2.getDataBytes()));
+	}
+	
+	@Test
+	public void testGeometryJoinSameKeyAndVersion() {
+		final UserDefinedGeoJsonSpatialFilter filter = new UserDefinedGeoJsonSpatialFilter();
+		filter.init("".getBytes());
+		
+		// Tuples of two tables with the same key and version, but different geometries
+		final Tuple tupleTable1 = new Tuple("1", Hyperrectangle.FULL_SPACE, tuple1.getDataBytes(), 1);
+		final Tuple tupleTable2 = new Tuple("1", Hyperrectangle.FULL_SPACE, tuple2.getDataBytes(), 1);
+		
+		Assert.assertTrue(filter.filterJoinCandidate(tupleTable1, tuple3, "".getBytes()));
+		Assert.assertFalse(filter.filterJoinCandidate(tupleTable1, tupleTable2, "".getBytes()));
+		Assert.assertFalse(filter.filterJoinCandidate(tuple3, tupleTable2, "".getBytes()));
+		Assert.assertTrue(filter.filterJoinCandidate(tupleTable1, tuple3, "".getBytes()));
+	}
 }
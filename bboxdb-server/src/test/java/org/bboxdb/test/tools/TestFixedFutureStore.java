@@ -25,10 +25,12 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
 import org.bboxdb.network.client.future.client.EmptyResultFuture;
+import org.bboxdb.network.client.future.network.NetworkOperationFuture;
 import org.bboxdb.network.client.future.network.NetworkOperationFutureImpl;
 import org.bboxdb.network.client.tools.FixedSizeFutureStore;
 import org.bboxdb.test.TestFuture;
@@ -100,6 +102,57 @@ public class TestFixedFutureStore {
 		Assert.assertEquals(20, atomicInteger.get());
 	}
 
+	/**
+	 * The producer is blocked until the pending futures are completed
+	 * @throws InterruptedException
+	 */
+	@Test(timeout=30_000)
+	public void testBlockOnPendingFutures() throws InterruptedException {
+		final FixedSizeFutureStore futureStore = new FixedSizeFutureStore(10);
+		final ArrayList<NetworkOperationFuture> networkFutures = new ArrayList<>();
+		
+		// Network futures that are not completed on execute
+		for(int i = 0; i < 11; i++) {
+			final NetworkOperationFuture networkFuture = new NetworkOperationFutureImpl(null, () -> null) {
+				@Override
+				public void execute() {
+				}
+			};
+			networkFutures.add(networkFuture);
+		}
+		
+		for(int i = 0; i < 10; i++) {
+			final NetworkOperationFuture networkFuture = networkFutures.get(i);
+			futureStore.put(new EmptyResultFuture(() -> Arrays.asList(networkFuture)));
+		}
+		
+		Assert.assertEquals(10, futureStore.getPendingFutureCount());
+		
+		final CountDownLatch putLatch = new CountDownLatch(1);
+		final Thread producer = new Thread(() -> {
+			final NetworkOperationFuture networkFuture = networkFutures.get(10);
+			futureStore.put(new EmptyResultFuture(() -> Arrays.asList(networkFuture)));
+			putLatch.countDown();
+		});
+		
+		producer.start();
+		
+		// The store contains more than 80% pending futures
+		Thread.sleep(100);
+		Assert.assertEquals(1, putLatch.getCount());
+		
+		// Complete the futures and release the producer
+		networkFutures.subList(0, 10).forEach(f -> f.fireCompleteEvent());
+		putLatch.await();
+		producer.join();
+		
+		Assert.assertEquals(1, futureStore.getPendingFutureCount());
+		networkFutures.get(10).fireCompleteEvent();
+		
+		futureStore.waitForCompletion();
+		Assert.assertEquals(0, futureStore.getPendingFutureCount());
+	}
+
 	/**
 	 * Test statistics write
 	 * @throws InterruptedException
@@ -17,6 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.tools.cli;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -26,6 +27,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -46,7 +48,9 @@ import org.bboxdb.distribution.partitioner.AbstractTreeSpacePartitoner;
 import org.bboxdb.distribution.partitioner.DistributionRegionState;
 import org.bboxdb.distribution.partitioner.SpacePartitioner;
 import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
+import org.bboxdb.distribution.partitioner.SpacePartitionerHelper;
 import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.distribution.region.DistributionRegionHelper;
 import org.bboxdb.distribution.zookeeper.DistributionGroupAdapter;
 import org.bboxdb.distribution.zookeeper.DistributionRegionAdapter;
 import org.bboxdb.distribution.zookeeper.ZookeeperClientFactory;
@@ -61,15 +65,19 @@ import org.bboxdb.network.client.future.client.JoinedTupleListFuture;
 import org.bboxdb.network.client.future.client.TupleListFuture;
 import org.bboxdb.network.client.tools.FixedSizeFutureStore;
 import org.bboxdb.network.query.ContinuousConstQueryPlan;
+import org.bboxdb.network.routing.RoutingHopHelper;
 import org.bboxdb.storage.entity.DistributionGroupConfiguration;
 import org.bboxdb.storage.entity.DistributionGroupConfigurationBuilder;
 import org.bboxdb.storage.entity.JoinedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
 import org.bboxdb.tools.RandomSamplesReader;
-import org.bboxdb.tools.TupleFileReader;
 import org.bboxdb.tools.converter.tuple.TupleBuilderFactory;
+import org.bboxdb.tools.importer.ImportStatistics;
+import org.bboxdb.tools.importer.ParallelTupleFileImporter;
+import org.bboxdb.tools.importer.SSTableBulkLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -210,6 +218,10 @@ public class CLI implements Runnable, AutoCloseable {
 			actionImportData(line);
 			break;
 
+		case CLIAction.BULK_LOAD:
+			actionBulkLoad(line);
+			break;
+
 		case CLIAction.QUERY_KEY:
 			actionExecuteKeyQuery(line);
 			break;
@@ -1025,29 +1037,37 @@ public class CLI implements Runnable, AutoCloseable {
 		final double padding = MathUtil.tryParseDoubleOrExit(paddingString,
 				() -> "Untable to parse: " + paddingString);
 
-		System.out.format("Importing file: %s with padding %f%n", filename, padding);
+		final int threads = MathUtil.tryParseIntOrExit(CLIHelper.getParameterOrDefault(line,
+				CLIParameter.THREADS, Integer.toString(Runtime.getRuntime().availableProcessors())));
 
-		final TupleFileReader tupleFile = new TupleFileReader(filename, format, padding);
-		tupleFile.addTupleListener(t -> {
+		final int batchSize = MathUtil.tryParseIntOrExit(CLIHelper.getParameterOrDefault(line,
+				CLIParameter.BATCH_SIZE, Integer.toString(ParallelTupleFileImporter.DEFAULT_BATCH_SIZE)));
 
-			if(tupleFile.getProcessedLines() % 1000 == 0) {
-				System.out.format("Read %d lines%n", tupleFile.getProcessedLines());
-			}
+		System.out.format("Importing file: %s with padding %f, %d threads and batch size %d%n",
+				filename, padding, threads, batchSize);
+
+		final ParallelTupleFileImporter importer
+			= new ParallelTupleFileImporter(filename, format, padding, threads);
 
+		importer.setBatchSize(batchSize);
+		importer.setGroupFunction(getRegionGroupFunction(table));
+		importer.addProgressListener(s -> System.out.println(s));
+
+		importer.addBatchListener(b -> {
 			try {
-				final EmptyResultFuture result = bboxDbConnection.insertTuple(table, t);
+				final EmptyResultFuture result = bboxDbConnection.insertTuples(table, b);
 				pendingFutures.put(result);
-
 			} catch (BBoxDBException e) {
-				logger.error("Got exception while inserting tuple", e);
+				logger.error("Got exception while inserting tuples", e);
 			}
 		});
 
 		try {
-			tupleFile.processFile();
+			importer.processFile();
 			pendingFutures.waitForCompletion();
-			final long skippedLines = tupleFile.getSkippedLines();
-			final long processedLines = tupleFile.getProcessedLines();
+			final ImportStatistics statistics = importer.getStatistics();
+			final long skippedLines = statistics.getSkippedLines();
+			final long processedLines = statistics.getReadLines();
 
 			System.out.format("Successfully imported %d lines (and skipped %d invalid lines) %n",
 					processedLines - skippedLines, skippedLines);
@@ -1060,6 +1080,88 @@ public class CLI implements Runnable, AutoCloseable {
 		}
 	}
 
+	/**
+	 * Write SSTables for the data and let the servers adopt them
+	 * @param line
+	 */
+	private void actionBulkLoad(final CommandLine line) {
+
+		final List<String> requiredArgs = Arrays.asList(CLIParameter.FILE,
+				CLIParameter.FORMAT, CLIParameter.TABLE);
+
+		checkRequiredArgs(requiredArgs);
+
+		final String filename = line.getOptionValue(CLIParameter.FILE);
+		final String format = line.getOptionValue(CLIParameter.FORMAT);
+		final String table = line.getOptionValue(CLIParameter.TABLE);
+
+		final String paddingString
+			= CLIHelper.getParameterOrDefault(line, CLIParameter.BOUNDING_BOX_PADDING, "0.0");
+
+		final double padding = MathUtil.tryParseDoubleOrExit(paddingString,
+				() -> "Untable to parse: " + paddingString);
+
+		final int threads = MathUtil.tryParseIntOrExit(CLIHelper.getParameterOrDefault(line,
+				CLIParameter.THREADS, Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+		final String workDirectory = CLIHelper.getParameterOrDefault(line,
+				CLIParameter.WORK_DIRECTORY, System.getProperty("java.io.tmpdir"));
+
+		System.out.format("Bulk loading file: %s with padding %f and %d threads (work directory %s)%n",
+				filename, padding, threads, workDirectory);
+
+		final SSTableBulkLoader bulkLoader = new SSTableBulkLoader(filename, format, table,
+				new File(workDirectory), padding, threads);
+
+		try {
+			bulkLoader.load();
+
+			final ImportStatistics statistics = bulkLoader.getImportStatistics();
+			final long skippedLines = statistics.getSkippedLines();
+			final long processedLines = statistics.getReadLines();
+
+			System.out.format("Successfully loaded %d lines into %d SSTables "
+					+ "(and skipped %d invalid lines, %d tuples without region) %n",
+					processedLines - skippedLines, bulkLoader.getWrittenSSTables(),
+					skippedLines, bulkLoader.getTuplesWithoutRegion());
+		} catch (BBoxDBException | IOException e) {
+			logger.error("Got exception while loading data", e);
+			System.exit(-1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+	}
+
+	/**
+	 * Group the tuples by the regions they are written to. Tuples of the
+	 * same group can be sent to the same systems in one batch.
+	 *
+	 * @param table
+	 * @return
+	 */
+	private Function<Tuple, String> getRegionGroupFunction(final String table) {
+		try {
+			final DistributionRegion rootNode = SpacePartitionerHelper.getRootNode(table);
+
+			if(rootNode == null) {
+				return (t) -> "";
+			}
+
+			return (t) -> RoutingHopHelper.getRegionsForPredicate(rootNode, t.getBoundingBox(),
+					DistributionRegionHelper.PREDICATE_REGIONS_FOR_WRITE)
+					.stream()
+					.mapToLong(r -> r.getRegionId())
+					.sorted()
+					.mapToObj(Long::toString)
+					.collect(Collectors.joining(","));
+
+		} catch (BBoxDBException e) {
+			logger.warn("Unable to read the distribution regions, tuples are not grouped", e);
+			return (t) -> "";
+		}
+	}
+
 	/**
 	 * Delete a distribution group
 	 * @param line
@@ -1137,6 +1239,8 @@ public class CLI implements Runnable, AutoCloseable {
 			final short replicationFactor = config.getReplicationFactor();
 
 			System.out.println("Replication factor is: " + replicationFactor);
+			System.out.println("Write consistency level is: " 
+					+ config.getWriteConsistencyLevel().getStringValue());
 
 			printDistributionRegionRecursive(spacePartitioner.getRootNode());
 
@@ -1210,6 +1314,18 @@ public class CLI implements Runnable, AutoCloseable {
 		final String spacePartitionerConfig = CLIHelper.getParameterOrDefault(
 				line, CLIParameter.SPACE_PARTITIONER_CONFIG, Const.DEFAULT_SPACE_PARTITIONER_CONFIG);
 
+		final String writeConsistencyString = CLIHelper.getParameterOrDefault(
+				line, CLIParameter.WRITE_CONSISTENCY, WriteConsistencyLevel.ALL.getStringValue());
+
+		WriteConsistencyLevel writeConsistencyLevel = null;
+
+		try {
+			writeConsistencyLevel = WriteConsistencyLevel.fromString(writeConsistencyString);
+		} catch(IllegalArgumentException e) {
+			System.err.println("This is not a valid write consistency level: " + writeConsistencyString);
+			System.exit(-1);
+		}
+
 		final String distributionGroup = line.getOptionValue(CLIParameter.DISTRIBUTION_GROUP);
 
 		final String replicationFactorString = line.getOptionValue(CLIParameter.REPLICATION_FACTOR);
@@ -1232,6 +1348,7 @@ public class CLI implements Runnable, AutoCloseable {
 					.withMinimumRegionSizeInMB(minRegionSize)
 					.withPlacementStrategy(resourcePlacement, resourcePlacementConfig)
 					.withSpacePartitioner(spacePartitioner, spacePartitionerConfig)
+					.withWriteConsistencyLevel(writeConsistencyLevel)
 					.build();
 
 			final EmptyResultFuture future = bboxDbConnection.createDistributionGroup(
@@ -102,12 +102,17 @@ public class CLIAction {
 	 */
 	public static final String PREPARTITION = "prepartition";
 	
+	/**
+	 * Write SSTables on the client and let the servers adopt them
+	 */
+	public static final String BULK_LOAD = "bulkload";
+	
 	/**
 	 * All known actions
 	 */
 	public static List<String> ALL_ACTIONS 
 		= Arrays.asList(IMPORT, QUERY_KEY, QUERY_RANGE, QUERY_RANGE_TIME, QUERY_TIME, QUERY_JOIN, 
 				DELETE, INSERT, CREATE_DGROUP, DELETE_DGROUP, SHOW_DGROUP, SHOW_INSTANCES, 
-				CREATE_TABLE, DELETE_TABLE, PREPARTITION);
+				CREATE_TABLE, DELETE_TABLE, PREPARTITION, BULK_LOAD);
 
 }
@@ -89,6 +89,11 @@ public class CLIParameter {
 	 */
 	public static final String SPACE_PARTITIONER_CONFIG = "spacepconfig";
 	
+	/**
+	 * Write consistency level
+	 */
+	public static final String WRITE_CONSISTENCY = "writeconsistency";
+	
 	/**
 	 * Custom filer class
 	 */
@@ -168,4 +173,19 @@ public class CLIParameter {
 	 * The number of partitions in the prepartitioning step
 	 */
 	public static final String PARTITIONS = "partitions";
+	
+	/**
+	 * The number of threads for the import
+	 */
+	public static final String THREADS = "threads";
+	
+	/**
+	 * The number of tuples per batch in the import
+	 */
+	public static final String BATCH_SIZE = "batchsize";
+	
+	/**
+	 * The directory for temporary files
+	 */
+	public static final String WORK_DIRECTORY = "workdir";
 }
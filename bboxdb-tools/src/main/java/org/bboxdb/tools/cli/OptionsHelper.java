@@ -20,6 +20,7 @@ package org.bboxdb.tools.cli;
 import org.apache.commons.cli.Option;
 import org.apache.commons.cli.Options;
 import org.bboxdb.misc.Const;
+import org.bboxdb.storage.entity.WriteConsistencyLevel;
 
 public class OptionsHelper {
 	
@@ -138,6 +139,14 @@ public class OptionsHelper {
 				.build();
 		options.addOption(spacePartitionerConfig);
 
+		// Write consistency level
+		final Option writeConsistency = Option.builder(CLIParameter.WRITE_CONSISTENCY)
+				.hasArg()
+				.argName("one|quorum|all")
+				.desc("Default: " + WriteConsistencyLevel.ALL.getStringValue())
+				.build();
+		options.addOption(writeConsistency);
+
 		// Table duplicates
 		final Option duplplicatesInTable = Option.builder(CLIParameter.DUPLICATES)
 				.hasArg()
@@ -250,6 +259,30 @@ public class OptionsHelper {
 				.desc("The number of partitions in the prepartitions")
 				.build();
 		options.addOption(partitions);
+		
+		// Number of import threads
+		final Option threads = Option.builder(CLIParameter.THREADS)
+				.hasArg()
+				.argName("threads")
+				.desc("The number of threads for the import (default: number of cores)")
+				.build();
+		options.addOption(threads);
+		
+		// Import batch size
+		final Option batchSize = Option.builder(CLIParameter.BATCH_SIZE)
+				.hasArg()
+				.argName("batchsize")
+				.desc("The number of tuples per batch in the import")
+				.build();
+		options.addOption(batchSize);
+		
+		// Work directory
+		final Option workDirectory = Option.builder(CLIParameter.WORK_DIRECTORY)
+				.hasArg()
+				.argName("directory")
+				.desc("The directory for temporary files of the bulk load")
+				.build();
+		options.addOption(workDirectory);
 
 		return options;
 	}
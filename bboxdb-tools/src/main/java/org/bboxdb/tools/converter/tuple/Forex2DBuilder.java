@@ -35,9 +35,10 @@ public class Forex2DBuilder extends TupleBuilder {
 	private final static Logger logger = LoggerFactory.getLogger(Forex2DBuilder.class);
 	
 	/**
-	 * The date parser for  20151201 000005720
+	 * The date parser for  20151201 000005720 (not thread safe, 
+	 * one builder is used per thread)
 	 */
-	private final static SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd HHmmss");
+	private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyyMMdd HHmmss");
 	
 	@Override
 	public Tuple buildTuple(final String valueData, final String keyData) {
@@ -112,6 +112,13 @@ public class TupleBuilderFactory {
 			Name.ROME_TAXI_RANGE, Name.NARI_DYNAMIC,
 			Name.FOREX_1D, Name.FOREX_2D, Name.BERLINMOD_GEOJSON,
 			Name.ADSB);
+	
+	/**
+	 * The builder that keep a state between the lines of a file. The lines
+	 * of these formats have to be processed in order by one builder.
+	 */
+	public static final List<String> STATEFUL_BUILDER = Arrays.asList(
+			Name.ROME_TAXI_RANGE, Name.ADSB);
 
 	/**
 	 * Return the parser for the tuple format
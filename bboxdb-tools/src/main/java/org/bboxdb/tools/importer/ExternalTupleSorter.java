@@ -0,0 +1,401 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.tools.importer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.util.TupleHelper;
+
+public class ExternalTupleSorter implements Closeable {
+
+	/**
+	 * The directory for the sorted runs
+	 */
+	private final File directory;
+
+	/**
+	 * The tuples that are not written to a run
+	 */
+	private final List<Tuple> bufferedTuples;
+
+	/**
+	 * The sorted runs
+	 */
+	private final List<SortedRun> runs;
+
+	/**
+	 * The open run readers
+	 */
+	private final List<RunReader> runReaders;
+
+	/**
+	 * The total amount of tuples
+	 */
+	private long numberOfTuples;
+	
+	/**
+	 * The max number of runs that are merged at once
+	 */
+	private final int maxMergeFanIn;
+
+	/**
+	 * The size of the read and write buffers
+	 */
+	private final static int BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * The default max number of runs that are merged at once. Each run needs an 
+	 * open file and a read buffer during the merge.
+	 */
+	public final static int DEFAULT_MAX_MERGE_FAN_IN = 64;
+
+	public ExternalTupleSorter(final File directory) {
+		this(directory, DEFAULT_MAX_MERGE_FAN_IN);
+	}
+	
+	public ExternalTupleSorter(final File directory, final int maxMergeFanIn) {
+		
+		if(maxMergeFanIn < 2) {
+			throw new IllegalArgumentException("The merge fan in has to be at least 2: " + maxMergeFanIn);
+		}
+		
+		this.directory = directory;
+		this.maxMergeFanIn = maxMergeFanIn;
+		this.bufferedTuples = new ArrayList<>();
+		this.runs = new ArrayList<>();
+		this.runReaders = new ArrayList<>();
+		this.numberOfTuples = 0;
+	}
+
+	/**
+	 * Add a tuple
+	 * @param tuple
+	 */
+	public void add(final Tuple tuple) {
+		bufferedTuples.add(tuple);
+		numberOfTuples++;
+	}
+
+	/**
+	 * Sort the buffered tuples and write them into a new run
+	 * @throws IOException
+	 */
+	public void spill() throws IOException {
+		if(bufferedTuples.isEmpty()) {
+			return;
+		}
+
+		Collections.sort(bufferedTuples);
+
+		final File runFile = File.createTempFile("run", ".tmp", directory);
+
+		try(final OutputStream outputStream
+				= new BufferedOutputStream(new FileOutputStream(runFile), BUFFER_SIZE)) {
+
+			for(final Tuple tuple : bufferedTuples) {
+				TupleHelper.writeTupleToStream(tuple, outputStream);
+			}
+		}
+
+		runs.add(new SortedRun(runFile, bufferedTuples.size()));
+		bufferedTuples.clear();
+	}
+
+	/**
+	 * Get the tuples sorted by key. The sorted runs are merged, the buffered
+	 * tuples are merged without writing them to disk. When there are more runs 
+	 * than the max merge fan in, the runs are merged in several passes.
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public Iterator<Tuple> getSortedTuples() throws IOException {
+		Collections.sort(bufferedTuples);
+		
+		// One reader is needed for the buffered tuples
+		while(runs.size() >= maxMergeFanIn) {
+			mergeRuns(maxMergeFanIn);
+		}
+
+		final List<RunReader> readers = new ArrayList<>();
+
+		for(final SortedRun run : runs) {
+			final RunReader reader = new RunReader(run);
+			runReaders.add(reader);
+			readers.add(reader);
+		}
+
+		readers.add(new RunReader(bufferedTuples.iterator()));
+		
+		final PriorityQueue<RunReader> queue = createMergeQueue(readers);
+
+		return new Iterator<Tuple>() {
+
+			@Override
+			public boolean hasNext() {
+				return ! queue.isEmpty();
+			}
+
+			@Override
+			public Tuple next() {
+				if(queue.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+
+				try {
+					return getNextTuple(queue);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+	}
+	
+	/**
+	 * Merge the first runs into a new run
+	 * @param numberOfRuns
+	 * @throws IOException
+	 */
+	private void mergeRuns(final int numberOfRuns) throws IOException {
+		final List<SortedRun> mergedRuns = new ArrayList<>(runs.subList(0, numberOfRuns));
+		final List<RunReader> readers = new ArrayList<>();
+		final File runFile = File.createTempFile("run", ".tmp", directory);
+		long mergedTuples = 0;
+		
+		try {
+			for(final SortedRun run : mergedRuns) {
+				readers.add(new RunReader(run));
+			}
+			
+			final PriorityQueue<RunReader> queue = createMergeQueue(readers);
+			
+			try(final OutputStream outputStream
+					= new BufferedOutputStream(new FileOutputStream(runFile), BUFFER_SIZE)) {
+				
+				while(! queue.isEmpty()) {
+					TupleHelper.writeTupleToStream(getNextTuple(queue), outputStream);
+					mergedTuples++;
+				}
+			}
+		} catch(IOException e) {
+			runFile.delete();
+			throw e;
+		} finally {
+			for(final RunReader reader : readers) {
+				reader.close();
+			}
+		}
+		
+		runs.removeAll(mergedRuns);
+		runs.add(new SortedRun(runFile, mergedTuples));
+		
+		for(final SortedRun run : mergedRuns) {
+			run.getFile().delete();
+		}
+	}
+	
+	/**
+	 * Create the merge queue for the readers
+	 * @param readers
+	 * @return
+	 * @throws IOException
+	 */
+	private static PriorityQueue<RunReader> createMergeQueue(final List<RunReader> readers) 
+			throws IOException {
+		
+		final PriorityQueue<RunReader> queue = new PriorityQueue<>(
+				(r1, r2) -> r1.getTuple().compareTo(r2.getTuple()));
+		
+		for(final RunReader reader : readers) {
+			if(reader.next()) {
+				queue.add(reader);
+			}
+		}
+		
+		return queue;
+	}
+	
+	/**
+	 * Get the next tuple of the merge queue
+	 * @param queue
+	 * @return
+	 * @throws IOException
+	 */
+	private static Tuple getNextTuple(final PriorityQueue<RunReader> queue) throws IOException {
+		final RunReader reader = queue.poll();
+		final Tuple tuple = reader.getTuple();
+
+		if(reader.next()) {
+			queue.add(reader);
+		}
+
+		return tuple;
+	}
+
+	/**
+	 * Get the total amount of tuples
+	 * @return
+	 */
+	public long getNumberOfTuples() {
+		return numberOfTuples;
+	}
+
+	/**
+	 * Get the amount of tuples that are not written into a run
+	 * @return
+	 */
+	public int getNumberOfBufferedTuples() {
+		return bufferedTuples.size();
+	}
+
+	/**
+	 * Get the amount of sorted runs
+	 * @return
+	 */
+	public int getNumberOfRuns() {
+		return runs.size();
+	}
+
+	/**
+	 * Close the readers and delete the runs
+	 */
+	@Override
+	public void close() throws IOException {
+		for(final RunReader reader : runReaders) {
+			reader.close();
+		}
+
+		runReaders.clear();
+
+		for(final SortedRun run : runs) {
+			run.getFile().delete();
+		}
+
+		runs.clear();
+		bufferedTuples.clear();
+	}
+
+	private static class SortedRun {
+
+		/**
+		 * The file of the run
+		 */
+		private final File file;
+
+		/**
+		 * The amount of tuples in the run
+		 */
+		private final long numberOfTuples;
+
+		public SortedRun(final File file, final long numberOfTuples) {
+			this.file = file;
+			this.numberOfTuples = numberOfTuples;
+		}
+
+		public File getFile() {
+			return file;
+		}
+
+		public long getNumberOfTuples() {
+			return numberOfTuples;
+		}
+	}
+
+	private static class RunReader implements Closeable {
+
+		/**
+		 * The input stream of a run on disk
+		 */
+		private final InputStream inputStream;
+
+		/**
+		 * The tuples of the in memory run
+		 */
+		private final Iterator<Tuple> iterator;
+
+		/**
+		 * The amount of unread tuples of the run on disk
+		 */
+		private long remainingTuples;
+
+		/**
+		 * The current tuple
+		 */
+		private Tuple tuple;
+
+		public RunReader(final SortedRun run) throws IOException {
+			this.inputStream = new BufferedInputStream(new FileInputStream(run.getFile()), BUFFER_SIZE);
+			this.remainingTuples = run.getNumberOfTuples();
+			this.iterator = null;
+		}
+
+		public RunReader(final Iterator<Tuple> iterator) {
+			this.inputStream = null;
+			this.iterator = iterator;
+		}
+
+		/**
+		 * Read the next tuple
+		 * @return
+		 * @throws IOException
+		 */
+		public boolean next() throws IOException {
+			if(iterator != null) {
+				tuple = iterator.hasNext() ? iterator.next() : null;
+			} else if(remainingTuples > 0) {
+				tuple = TupleHelper.decodeTuple(inputStream);
+				remainingTuples--;
+			} else {
+				tuple = null;
+			}
+
+			return tuple != null;
+		}
+
+		/**
+		 * Get the current tuple
+		 * @return
+		 */
+		public Tuple getTuple() {
+			return tuple;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if(inputStream != null) {
+				inputStream.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.tools.importer;
+
+public class FileChunk {
+
+	/**
+	 * The byte position of the first line
+	 */
+	private final long start;
+	
+	/**
+	 * The byte position after the last line
+	 */
+	private final long end;
+	
+	/**
+	 * The number of the first line (1 based)
+	 */
+	private long firstLine;
+
+	public FileChunk(final long start, final long end) {
+		this.start = start;
+		this.end = end;
+		this.firstLine = -1;
+	}
+
+	/**
+	 * Get the byte position of the first line
+	 * @return
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * Get the byte position after the last line
+	 * @return
+	 */
+	public long getEnd() {
+		return end;
+	}
+	
+	/**
+	 * Get the size of the chunk in bytes
+	 * @return
+	 */
+	public long getSize() {
+		return end - start;
+	}
+
+	/**
+	 * Get the number of the first line
+	 * @return
+	 */
+	public long getFirstLine() {
+		return firstLine;
+	}
+
+	/**
+	 * Set the number of the first line
+	 * @param firstLine
+	 */
+	public void setFirstLine(final long firstLine) {
+		this.firstLine = firstLine;
+	}
+
+	@Override
+	public String toString() {
+		return "FileChunk [start=" + start + ", end=" + end + ", firstLine=" + firstLine + "]";
+	}
+}
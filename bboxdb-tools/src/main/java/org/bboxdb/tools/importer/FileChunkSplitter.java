@@ -0,0 +1,171 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.tools.importer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.io.ByteStreams;
+
+public class FileChunkSplitter {
+	
+	/**
+	 * The size of the read buffer
+	 */
+	private final static int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Split the file into chunks of roughly the given size. Each chunk starts at 
+	 * the beginning of a line and ends after a line break (or at the end of the file).
+	 * 
+	 * Unlike the FileLineIndex, the file is not read completely. Only the bytes 
+	 * after each split position are read until the next line break is found.
+	 * 
+	 * @param file
+	 * @param chunkSize
+	 * @return
+	 * @throws IOException
+	 */
+	public static List<FileChunk> splitFile(final File file, final long chunkSize) throws IOException {
+		
+		if(chunkSize <= 0) {
+			throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+		}
+		
+		final List<FileChunk> chunks = new ArrayList<>();
+		
+		try(final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+			final long fileSize = randomAccessFile.length();
+			long chunkStart = 0;
+			
+			while(chunkStart < fileSize) {
+				final long chunkEnd = findNextLineStart(randomAccessFile, 
+						Math.min(fileSize, chunkStart + chunkSize), fileSize);
+				
+				chunks.add(new FileChunk(chunkStart, chunkEnd));
+				chunkStart = chunkEnd;
+			}
+		}
+		
+		return chunks;
+	}
+
+	/**
+	 * Find the start of the next line at or after the given position
+	 * @param randomAccessFile
+	 * @param position
+	 * @param fileSize
+	 * @return
+	 * @throws IOException
+	 */
+	private static long findNextLineStart(final RandomAccessFile randomAccessFile, 
+			final long position, final long fileSize) throws IOException {
+		
+		if(position >= fileSize) {
+			return fileSize;
+		}
+		
+		// The previous byte is a line break, the position is a line start
+		randomAccessFile.seek(position - 1);
+		long currentPosition = position - 1;
+		
+		final byte[] buffer = new byte[BUFFER_SIZE];
+		
+		while(currentPosition < fileSize) {
+			final int read = randomAccessFile.read(buffer);
+			
+			if(read < 0) {
+				break;
+			}
+			
+			for(int i = 0; i < read; i++) {
+				if(buffer[i] == '\n') {
+					return currentPosition + i + 1;
+				}
+			}
+			
+			currentPosition += read;
+		}
+		
+		return fileSize;
+	}
+	
+	/**
+	 * Count the lines of the chunk. A last line without a line break is counted. 
+	 * @param file
+	 * @param chunk
+	 * @return
+	 * @throws IOException
+	 */
+	public static long countLines(final File file, final FileChunk chunk) throws IOException {
+		
+		long lines = 0;
+		byte lastByte = '\n';
+		
+		try(final InputStream inputStream = openChunk(file, chunk)) {
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			
+			while((read = inputStream.read(buffer)) > 0) {
+				for(int i = 0; i < read; i++) {
+					if(buffer[i] == '\n') {
+						lines++;
+					}
+				}
+				
+				lastByte = buffer[read - 1];
+			}
+		}
+		
+		if(lastByte != '\n') {
+			lines++;
+		}
+		
+		return lines;
+	}
+	
+	/**
+	 * Open a input stream that contains the bytes of the chunk
+	 * @param file
+	 * @param chunk
+	 * @return
+	 * @throws IOException
+	 */
+	public static InputStream openChunk(final File file, final FileChunk chunk) throws IOException {
+		final SeekableByteChannel channel = Files.newByteChannel(file.toPath(), StandardOpenOption.READ);
+		
+		try {
+			channel.position(chunk.getStart());
+		} catch(IOException e) {
+			channel.close();
+			throw e;
+		}
+		
+		final InputStream limitedStream = ByteStreams.limit(Channels.newInputStream(channel), chunk.getSize());
+		return new BufferedInputStream(limitedStream, BUFFER_SIZE);
+	}
+}
@@ -0,0 +1,202 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.tools.importer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.base.Stopwatch;
+
+public class ImportStatistics {
+	
+	/**
+	 * The read lines
+	 */
+	private final LongAdder readLines = new LongAdder();
+	
+	/**
+	 * The skipped (invalid) lines
+	 */
+	private final LongAdder skippedLines = new LongAdder();
+	
+	/**
+	 * The read bytes
+	 */
+	private final LongAdder readBytes = new LongAdder();
+	
+	/**
+	 * The amount of sent batches
+	 */
+	private final LongAdder sentBatches = new LongAdder();
+	
+	/**
+	 * The amount of sent tuples
+	 */
+	private final LongAdder sentTuples = new LongAdder();
+	
+	/**
+	 * The amount of times a parser waited for the sender (backpressure)
+	 */
+	private final LongAdder backpressureWaits = new LongAdder();
+	
+	/**
+	 * The time the parsers waited for the sender
+	 */
+	private final LongAdder backpressureWaitNanos = new LongAdder();
+	
+	/**
+	 * The time the sender spent in the batch listeners
+	 */
+	private final LongAdder sendNanos = new LongAdder();
+	
+	/**
+	 * The runtime of the import
+	 */
+	private final Stopwatch stopwatch = Stopwatch.createUnstarted();
+	
+	/**
+	 * Start the runtime measurement
+	 */
+	public void start() {
+		stopwatch.start();
+	}
+	
+	/**
+	 * Stop the runtime measurement
+	 */
+	public void stop() {
+		if(stopwatch.isRunning()) {
+			stopwatch.stop();
+		}
+	}
+	
+	/**
+	 * A line is read
+	 */
+	public void lineRead() {
+		readLines.increment();
+	}
+	
+	/**
+	 * A file chunk is completely read
+	 * @param bytes
+	 */
+	public void chunkRead(final long bytes) {
+		readBytes.add(bytes);
+	}
+	
+	/**
+	 * A invalid line is skipped
+	 */
+	public void lineSkipped() {
+		skippedLines.increment();
+	}
+	
+	/**
+	 * A batch was sent
+	 * @param tuples
+	 * @param nanos - the time needed to send the batch
+	 */
+	public void batchSent(final int tuples, final long nanos) {
+		sentBatches.increment();
+		sentTuples.add(tuples);
+		sendNanos.add(nanos);
+	}
+	
+	/**
+	 * A parser waited for the sender
+	 * @param nanos
+	 */
+	public void backpressureWait(final long nanos) {
+		backpressureWaits.increment();
+		backpressureWaitNanos.add(nanos);
+	}
+	
+	public long getReadLines() {
+		return readLines.sum();
+	}
+	
+	public long getSkippedLines() {
+		return skippedLines.sum();
+	}
+	
+	public long getReadBytes() {
+		return readBytes.sum();
+	}
+	
+	public long getSentBatches() {
+		return sentBatches.sum();
+	}
+	
+	public long getSentTuples() {
+		return sentTuples.sum();
+	}
+	
+	public long getBackpressureWaits() {
+		return backpressureWaits.sum();
+	}
+	
+	public long getBackpressureWaitTime(final TimeUnit timeUnit) {
+		return timeUnit.convert(backpressureWaitNanos.sum(), TimeUnit.NANOSECONDS);
+	}
+	
+	public long getSendTime(final TimeUnit timeUnit) {
+		return timeUnit.convert(sendNanos.sum(), TimeUnit.NANOSECONDS);
+	}
+	
+	public long getRuntime(final TimeUnit timeUnit) {
+		return stopwatch.elapsed(timeUnit);
+	}
+	
+	/**
+	 * Get the amount of sent tuples per second
+	 * @return
+	 */
+	public double getTuplesPerSecond() {
+		final long runtime = getRuntime(TimeUnit.MILLISECONDS);
+		
+		if(runtime == 0) {
+			return 0;
+		}
+		
+		return getSentTuples() * 1000.0 / runtime;
+	}
+	
+	/**
+	 * Get the read MB per second
+	 * @return
+	 */
+	public double getMegabytesPerSecond() {
+		final long runtime = getRuntime(TimeUnit.MILLISECONDS);
+		
+		if(runtime == 0) {
+			return 0;
+		}
+		
+		return (getReadBytes() / (1024.0 * 1024.0)) * 1000.0 / runtime;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("Read %d lines (%d skipped), sent %d tuples in %d batches, "
+				+ "%.0f tuples/s, %.2f MB/s, send time %d ms, backpressure waits %d (%d ms)", 
+				getReadLines(), getSkippedLines(), getSentTuples(), getSentBatches(), 
+				getTuplesPerSecond(), getMegabytesPerSecond(), getSendTime(TimeUnit.MILLISECONDS), 
+				getBackpressureWaits(), getBackpressureWaitTime(TimeUnit.MILLISECONDS));
+	}
+}
@@ -0,0 +1,448 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.tools.importer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.tools.converter.tuple.TupleBuilder;
+import org.bboxdb.tools.converter.tuple.TupleBuilderFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ParallelTupleFileImporter {
+
+	/**
+	 * The filename to read
+	 */
+	private final String filename;
+
+	/**
+	 * The input format
+	 */
+	private final String format;
+
+	/**
+	 * The bounding box padding
+	 */
+	private final double boxPadding;
+
+	/**
+	 * The amount of parser threads
+	 */
+	private final int threads;
+
+	/**
+	 * The size of the file chunks
+	 */
+	private long chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * The maximal amount of tuples per batch
+	 */
+	private int batchSize = DEFAULT_BATCH_SIZE;
+
+	/**
+	 * The maximal amount of parsed but not sent batches
+	 */
+	private int maxPendingBatches;
+
+	/**
+	 * The function that determines the group (e.g., the target region) of a tuple.
+	 * A batch contains only tuples of the same group.
+	 */
+	private Function<Tuple, String> groupFunction = (t) -> "";
+
+	/**
+	 * The batch callbacks
+	 */
+	private final List<Consumer<List<Tuple>>> batchListeners;
+
+	/**
+	 * The progress callbacks
+	 */
+	private final List<Consumer<ImportStatistics>> progressListeners;
+
+	/**
+	 * The import statistics
+	 */
+	private final ImportStatistics statistics;
+
+	/**
+	 * The parsed batches
+	 */
+	private BlockingQueue<List<Tuple>> batchQueue;
+
+	/**
+	 * The tuple builder of the parser threads
+	 */
+	private final ThreadLocal<TupleBuilder> tupleBuilder;
+
+	/**
+	 * The default chunk size (64 MB)
+	 */
+	public final static long DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * The default batch size
+	 */
+	public final static int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * The interval for the progress callbacks
+	 */
+	private final static long PROGRESS_INTERVAL_MS = TimeUnit.SECONDS.toMillis(5);
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(ParallelTupleFileImporter.class);
+
+	public ParallelTupleFileImporter(final String filename, final String format,
+			final double boxPadding, final int threads) {
+
+		if(threads <= 0) {
+			throw new IllegalArgumentException("Invalid amount of threads: " + threads);
+		}
+
+		this.filename = filename;
+		this.format = format;
+		this.boxPadding = boxPadding;
+		this.threads = threads;
+		this.maxPendingBatches = 4 * threads;
+		this.batchListeners = new ArrayList<>();
+		this.progressListeners = new ArrayList<>();
+		this.statistics = new ImportStatistics();
+
+		// Fail fast on unknown formats
+		TupleBuilderFactory.getBuilderForFormat(format);
+
+		this.tupleBuilder = ThreadLocal.withInitial(() -> {
+			final TupleBuilder builder = TupleBuilderFactory.getBuilderForFormat(format);
+			builder.setPadding(boxPadding);
+			return builder;
+		});
+	}
+
+	/**
+	 * Add a listener for the created batches. The listeners are called
+	 * from the thread that executes processFile().
+	 *
+	 * @param listener
+	 */
+	public void addBatchListener(final Consumer<List<Tuple>> listener) {
+		batchListeners.add(listener);
+	}
+
+	/**
+	 * Add a listener that is periodically called with the import statistics
+	 * @param listener
+	 */
+	public void addProgressListener(final Consumer<ImportStatistics> listener) {
+		progressListeners.add(listener);
+	}
+
+	/**
+	 * Process the file
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void processFile() throws IOException, InterruptedException {
+		final File file = new File(filename);
+
+		if(! file.exists()) {
+			throw new IOException("Unable to open file: " + file);
+		}
+
+		final boolean stateful = TupleBuilderFactory.STATEFUL_BUILDER.contains(format);
+
+		if(stateful) {
+			logger.info("Format {} keeps a state between the lines, reading file in one chunk", format);
+		}
+
+		final List<FileChunk> chunks = FileChunkSplitter.splitFile(file,
+				stateful ? Long.MAX_VALUE : chunkSize);
+
+		batchQueue = new ArrayBlockingQueue<>(maxPendingBatches);
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		statistics.start();
+
+		try {
+			assignLineNumbers(file, chunks, executor);
+
+			final List<Future<Void>> parserFutures = new ArrayList<>();
+
+			for(final FileChunk chunk : chunks) {
+				parserFutures.add(executor.submit(() -> parseChunk(file, chunk)));
+			}
+
+			sendBatches(parserFutures);
+		} finally {
+			executor.shutdownNow();
+			statistics.stop();
+		}
+
+		progressListeners.forEach(l -> l.accept(statistics));
+	}
+
+	/**
+	 * Count the lines of the chunks in parallel and assign the line numbers
+	 * @param file
+	 * @param chunks
+	 * @param executor
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void assignLineNumbers(final File file, final List<FileChunk> chunks,
+			final ExecutorService executor) throws IOException, InterruptedException {
+
+		final List<Future<Long>> lineCounts = new ArrayList<>();
+
+		for(final FileChunk chunk : chunks) {
+			lineCounts.add(executor.submit(() -> FileChunkSplitter.countLines(file, chunk)));
+		}
+
+		long lineNumber = 1;
+
+		for(int i = 0; i < chunks.size(); i++) {
+			chunks.get(i).setFirstLine(lineNumber);
+			lineNumber = lineNumber + getResult(lineCounts.get(i));
+		}
+	}
+
+	/**
+	 * Parse the lines of the chunk and put the batches into the queue
+	 * @param file
+	 * @param chunk
+	 * @return
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private Void parseChunk(final File file, final FileChunk chunk)
+			throws IOException, InterruptedException {
+
+		final TupleBuilder builder = tupleBuilder.get();
+		final Map<String, List<Tuple>> pendingBatches = new HashMap<>();
+		long lineNumber = chunk.getFirstLine();
+
+		try(final BufferedReader reader = new BufferedReader(new InputStreamReader(
+				FileChunkSplitter.openChunk(file, chunk), StandardCharsets.UTF_8))) {
+
+			String line;
+			while((line = reader.readLine()) != null) {
+				final Tuple tuple = builder.buildTuple(line, Long.toString(lineNumber));
+				statistics.lineRead();
+				lineNumber++;
+
+				if(tuple == null) {
+					statistics.lineSkipped();
+					continue;
+				}
+
+				final String group = groupFunction.apply(tuple);
+				final List<Tuple> batch = pendingBatches.computeIfAbsent(group,
+						(g) -> new ArrayList<>(batchSize));
+
+				batch.add(tuple);
+
+				if(batch.size() >= batchSize) {
+					pendingBatches.remove(group);
+					enqueueBatch(batch);
+				}
+			}
+		}
+
+		for(final List<Tuple> batch : pendingBatches.values()) {
+			enqueueBatch(batch);
+		}
+
+		statistics.chunkRead(chunk.getSize());
+
+		return null;
+	}
+
+	/**
+	 * Put the batch into the queue, wait if the sender is too slow
+	 * @param batch
+	 * @throws InterruptedException
+	 */
+	private void enqueueBatch(final List<Tuple> batch) throws InterruptedException {
+		if(batchQueue.offer(batch)) {
+			return;
+		}
+
+		final long waitStart = System.nanoTime();
+		batchQueue.put(batch);
+		statistics.backpressureWait(System.nanoTime() - waitStart);
+	}
+
+	/**
+	 * Pass the batches to the listeners until all parsers are done
+	 * @param parserFutures
+	 * @throws InterruptedException
+	 * @throws IOException
+	 */
+	private void sendBatches(final List<Future<Void>> parserFutures)
+			throws InterruptedException, IOException {
+
+		long lastProgress = System.currentTimeMillis();
+
+		while(true) {
+			final List<Tuple> batch = batchQueue.poll(100, TimeUnit.MILLISECONDS);
+
+			if(batch != null) {
+				sendBatch(batch);
+			} else if(isParsingDone(parserFutures)) {
+				final List<List<Tuple>> remainingBatches = new ArrayList<>();
+				batchQueue.drainTo(remainingBatches);
+
+				for(final List<Tuple> remainingBatch : remainingBatches) {
+					sendBatch(remainingBatch);
+				}
+
+				return;
+			}
+
+			if(System.currentTimeMillis() - lastProgress > PROGRESS_INTERVAL_MS) {
+				progressListeners.forEach(l -> l.accept(statistics));
+				lastProgress = System.currentTimeMillis();
+			}
+		}
+	}
+
+	/**
+	 * Pass the batch to the listeners
+	 * @param batch
+	 */
+	private void sendBatch(final List<Tuple> batch) {
+		final long sendStart = System.nanoTime();
+		batchListeners.forEach(l -> l.accept(batch));
+		statistics.batchSent(batch.size(), System.nanoTime() - sendStart);
+	}
+
+	/**
+	 * Are all parsers done? Failed parsers are reported as exception.
+	 * @param parserFutures
+	 * @return
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private boolean isParsingDone(final List<Future<Void>> parserFutures)
+			throws IOException, InterruptedException {
+
+		boolean done = true;
+
+		for(final Future<Void> future : parserFutures) {
+			if(future.isDone()) {
+				getResult(future);
+			} else {
+				done = false;
+			}
+		}
+
+		return done;
+	}
+
+	/**
+	 * Get the result of the future, the exceptions of the task are
+	 * converted into a IOException
+	 * @param future
+	 * @return
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private static <T> T getResult(final Future<T> future) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+
+			if(cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+
+			throw new IOException("Unable to read file", cause);
+		}
+	}
+
+	/**
+	 * Get the import statistics
+	 * @return
+	 */
+	public ImportStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Get the bounding box padding
+	 * @return
+	 */
+	public double getBoxPadding() {
+		return boxPadding;
+	}
+
+	/**
+	 * Set the size of the file chunks
+	 * @param chunkSize
+	 */
+	public void setChunkSize(final long chunkSize) {
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Set the maximal amount of tuples per batch
+	 * @param batchSize
+	 */
+	public void setBatchSize(final int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Set the maximal amount of parsed but not sent batches
+	 * @param maxPendingBatches
+	 */
+	public void setMaxPendingBatches(final int maxPendingBatches) {
+		this.maxPendingBatches = maxPendingBatches;
+	}
+
+	/**
+	 * Set the group function of the tuples
+	 * @param groupFunction
+	 */
+	public void setGroupFunction(final Function<Tuple, String> groupFunction) {
+		this.groupFunction = groupFunction;
+	}
+}
@@ -0,0 +1,523 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.tools.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.bboxdb.commons.io.FileUtil;
+import org.bboxdb.distribution.membership.BBoxDBInstance;
+import org.bboxdb.distribution.membership.MembershipConnectionService;
+import org.bboxdb.distribution.partitioner.SpacePartitionerHelper;
+import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.distribution.region.DistributionRegionHelper;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.client.BBoxDBConnection;
+import org.bboxdb.network.client.future.client.EmptyResultFuture;
+import org.bboxdb.network.packages.request.AdoptSSTablesOperation;
+import org.bboxdb.network.routing.RoutingHopHelper;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableCreator;
+import org.bboxdb.storage.sstable.SSTableHelper;
+import org.bboxdb.storage.sstable.SSTableWriter;
+import org.bboxdb.storage.sstable.transfer.SSTableTransfer;
+import org.bboxdb.storage.sstable.transfer.SSTableTransferHelper;
+import org.bboxdb.storage.sstable.transfer.SSTableTransferSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Load a file into a table without the network insert path. The tuples
+ * are partitioned by the distribution regions of the table and sorted by key
+ * on the client. For each region, one SSTable is written and transferred to
+ * the systems of the region. At the end, each system adopts all its SSTables
+ * with one request.
+ *
+ * The SSTables are adopted in two phases. First, all systems check that their
+ * transfers are complete and their tuple stores are writable. Afterwards, the
+ * systems adopt the SSTables. When a system fails, the transfers of the other
+ * systems are aborted and the already adopted SSTables are rolled back. So,
+ * the SSTables of a region are adopted by all or none of its systems. The
+ * rollback is not possible when an adopted SSTable is already merged by a
+ * compaction or the system was restarted. In this case, the error is logged
+ * and the table has to be loaded again.
+ */
+public class SSTableBulkLoader {
+
+	/**
+	 * The filename to read
+	 */
+	private final String filename;
+
+	/**
+	 * The input format
+	 */
+	private final String format;
+
+	/**
+	 * The table to load
+	 */
+	private final TupleStoreName table;
+
+	/**
+	 * The directory for the sorted runs and the written SSTables
+	 */
+	private final File workDirectory;
+
+	/**
+	 * The bounding box padding
+	 */
+	private final double boxPadding;
+
+	/**
+	 * The amount of parser threads
+	 */
+	private final int threads;
+
+	/**
+	 * The max amount of tuples that are kept in memory before a run is written
+	 */
+	private long maxBufferedTuples = DEFAULT_MAX_BUFFERED_TUPLES;
+
+	/**
+	 * The sorters of the regions
+	 */
+	private final Map<Long, ExternalTupleSorter> sorters;
+
+	/**
+	 * The regions of the table
+	 */
+	private final Map<Long, DistributionRegion> regions;
+
+	/**
+	 * The tuples in memory of all sorters
+	 */
+	private long bufferedTuples;
+
+	/**
+	 * The amount of tuples without a region
+	 */
+	private long tuplesWithoutRegion;
+
+	/**
+	 * The amount of written SSTables
+	 */
+	private long writtenSSTables;
+
+	/**
+	 * The import statistics
+	 */
+	private ImportStatistics importStatistics;
+
+	/**
+	 * The default amount of tuples that are kept in memory
+	 */
+	public final static long DEFAULT_MAX_BUFFERED_TUPLES = 1_000_000;
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(SSTableBulkLoader.class);
+
+	public SSTableBulkLoader(final String filename, final String format, final String table,
+			final File workDirectory, final double boxPadding, final int threads) {
+
+		this.filename = filename;
+		this.format = format;
+		this.table = new TupleStoreName(table);
+		this.workDirectory = workDirectory;
+		this.boxPadding = boxPadding;
+		this.threads = threads;
+		this.sorters = new HashMap<>();
+		this.regions = new HashMap<>();
+	}
+
+	/**
+	 * Load the file into the table
+	 *
+	 * @throws BBoxDBException
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	public void load() throws BBoxDBException, IOException, InterruptedException {
+
+		if(! table.isValid()) {
+			throw new BBoxDBException("Invalid tablename: " + table);
+		}
+
+		final DistributionRegion rootNode = SpacePartitionerHelper.getRootNode(table.getFullname());
+
+		if(rootNode == null) {
+			throw new BBoxDBException("Unable to get the distribution regions of " + table);
+		}
+
+		final File loadDirectory = new File(workDirectory, "bulkload-" + UUID.randomUUID().toString());
+
+		if(! loadDirectory.mkdirs()) {
+			throw new IOException("Unable to create directory: " + loadDirectory);
+		}
+
+		final Map<BBoxDBConnection, List<SSTableTransfer>> transfers = new LinkedHashMap<>();
+
+		try {
+			readTuples(rootNode, loadDirectory);
+			writeAndSendSSTables(loadDirectory, transfers);
+			adoptSSTables(transfers);
+		} catch (StorageManagerException e) {
+			throw new BBoxDBException(e);
+		} finally {
+			for(final ExternalTupleSorter sorter : sorters.values()) {
+				sorter.close();
+			}
+
+			sorters.clear();
+			FileUtil.deleteRecursive(Paths.get(loadDirectory.getAbsolutePath()));
+		}
+	}
+
+	/**
+	 * Read the file and pass the tuples to the sorters of their regions
+	 *
+	 * @param rootNode
+	 * @param loadDirectory
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void readTuples(final DistributionRegion rootNode, final File loadDirectory)
+			throws IOException, InterruptedException {
+
+		final ParallelTupleFileImporter importer
+			= new ParallelTupleFileImporter(filename, format, boxPadding, threads);
+
+		// A batch contains only tuples of the same regions
+		importer.setGroupFunction(t -> getRegions(rootNode, t).stream()
+				.map(r -> Long.toString(r.getRegionId()))
+				.collect(Collectors.joining(",")));
+
+		importer.addProgressListener(s -> logger.info("Bulk load: {}", s));
+
+		final Consumer<List<Tuple>> batchListener = (b) -> {
+			final List<DistributionRegion> tupleRegions = getRegions(rootNode, b.get(0));
+
+			if(tupleRegions.isEmpty()) {
+				tuplesWithoutRegion = tuplesWithoutRegion + b.size();
+				return;
+			}
+
+			for(final DistributionRegion region : tupleRegions) {
+				final long regionId = region.getRegionId();
+				regions.putIfAbsent(regionId, region);
+
+				final ExternalTupleSorter sorter = sorters.computeIfAbsent(regionId,
+						(r) -> new ExternalTupleSorter(loadDirectory));
+
+				b.forEach(t -> sorter.add(t));
+				bufferedTuples = bufferedTuples + b.size();
+			}
+
+			try {
+				spillIfNeeded();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		};
+
+		importer.addBatchListener(batchListener);
+
+		try {
+			importer.processFile();
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		importStatistics = importer.getStatistics();
+
+		if(tuplesWithoutRegion > 0) {
+			logger.warn("Skipped {} tuples without a writable region", tuplesWithoutRegion);
+		}
+	}
+
+	/**
+	 * Get the writable regions of the tuple
+	 * @param rootNode
+	 * @param tuple
+	 * @return
+	 */
+	private List<DistributionRegion> getRegions(final DistributionRegion rootNode, final Tuple tuple) {
+		return RoutingHopHelper.getRegionsForPredicate(rootNode, tuple.getBoundingBox(),
+				DistributionRegionHelper.PREDICATE_REGIONS_FOR_WRITE);
+	}
+
+	/**
+	 * Write the tuples of the largest sorters into sorted runs, until
+	 * the buffered tuples fit into memory
+	 * @throws IOException
+	 */
+	private void spillIfNeeded() throws IOException {
+		while(bufferedTuples > maxBufferedTuples) {
+			final ExternalTupleSorter largestSorter = sorters.values().stream()
+				.max((s1, s2) -> Integer.compare(s1.getNumberOfBufferedTuples(), s2.getNumberOfBufferedTuples()))
+				.get();
+
+			bufferedTuples = bufferedTuples - largestSorter.getNumberOfBufferedTuples();
+			largestSorter.spill();
+		}
+	}
+
+	/**
+	 * Write one SSTable per region and send it to the systems of the region.
+	 * When a SSTable can not be sent, the started transfers are aborted.
+	 *
+	 * @param loadDirectory
+	 * @param transfers - the transfers per system
+	 * @throws StorageManagerException
+	 * @throws IOException
+	 * @throws BBoxDBException
+	 */
+	private void writeAndSendSSTables(final File loadDirectory,
+			final Map<BBoxDBConnection, List<SSTableTransfer>> transfers)
+			throws StorageManagerException, IOException, BBoxDBException {
+
+		try {
+			for(final Entry<Long, ExternalTupleSorter> entry : sorters.entrySet()) {
+				final long regionId = entry.getKey();
+				final ExternalTupleSorter sorter = entry.getValue();
+				final DistributionRegion region = regions.get(regionId);
+				final TupleStoreName regionTable = table.cloneWithDifferntRegionId(regionId);
+
+				final String sstableDirectory = SSTableHelper.getTransferDir(
+						loadDirectory.getAbsolutePath(), UUID.randomUUID().toString());
+
+				writeSSTable(regionTable, sorter, sstableDirectory);
+				sorter.close();
+
+				for(final BBoxDBInstance system : region.getSystems()) {
+					final BBoxDBConnection connection = MembershipConnectionService.getInstance()
+							.getConnectionForInstance(system);
+
+					if(connection == null) {
+						throw new BBoxDBException("No connection to system " + system
+								+ " of region " + regionId);
+					}
+
+					// Register the transfer before it starts, so a partial transfer is aborted
+					final String transferId = UUID.randomUUID().toString();
+					transfers.computeIfAbsent(connection, (c) -> new ArrayList<>())
+						.add(new SSTableTransfer(regionTable, transferId));
+
+					final SSTableTransferSender sender = new SSTableTransferSender(connection);
+					sender.sendFiles(regionTable, sstableDirectory,
+							SSTableTransferHelper.TRANSFER_TABLE_NUMBER, transferId);
+				}
+
+				FileUtil.deleteRecursive(Paths.get(sstableDirectory));
+			}
+		} catch(StorageManagerException | IOException | BBoxDBException e) {
+			rollbackTransfers(transfers, 0);
+			throw e;
+		}
+	}
+
+	/**
+	 * Write the sorted tuples into a new SSTable
+	 *
+	 * @param regionTable
+	 * @param sorter
+	 * @param sstableDirectory
+	 * @throws StorageManagerException
+	 * @throws IOException
+	 */
+	private void writeSSTable(final TupleStoreName regionTable, final ExternalTupleSorter sorter,
+			final String sstableDirectory) throws StorageManagerException, IOException {
+
+		final File directory = new File(SSTableHelper.getSSTableDir(sstableDirectory, regionTable));
+
+		if(! directory.mkdirs()) {
+			throw new IOException("Unable to create directory: " + directory);
+		}
+
+		logger.info("Writing {} tuples ({} sorted runs) for {}", sorter.getNumberOfTuples(),
+				sorter.getNumberOfRuns(), regionTable.getFullname());
+
+		try(final SSTableWriter writer = new SSTableWriter(sstableDirectory, regionTable,
+				SSTableTransferHelper.TRANSFER_TABLE_NUMBER, sorter.getNumberOfTuples(),
+				SSTableCreator.BULK_LOAD)) {
+
+			writer.open();
+
+			for(final Iterator<Tuple> iterator = sorter.getSortedTuples(); iterator.hasNext(); ) {
+				writer.addTuple(iterator.next());
+			}
+		} catch(UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		writtenSSTables++;
+	}
+
+	/**
+	 * Adopt the transferred SSTables. Each system adopts all its SSTables at once.
+	 * The transfers are prepared on all systems before the first system adopts
+	 * its SSTables.
+	 *
+	 * @param transfers
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	private void adoptSSTables(final Map<BBoxDBConnection, List<SSTableTransfer>> transfers)
+			throws BBoxDBException, InterruptedException {
+
+		try {
+			for(final Entry<BBoxDBConnection, List<SSTableTransfer>> entry : transfers.entrySet()) {
+				executeOperation(entry.getKey(), AdoptSSTablesOperation.PREPARE, entry.getValue());
+			}
+		} catch(BBoxDBException | InterruptedException e) {
+			rollbackTransfers(transfers, 0);
+			throw e;
+		}
+
+		int startedCommits = 0;
+
+		try {
+			for(final Entry<BBoxDBConnection, List<SSTableTransfer>> entry : transfers.entrySet()) {
+				final BBoxDBConnection connection = entry.getKey();
+
+				logger.info("Adopting {} SSTables on {}", entry.getValue().size(),
+						connection.getConnectionName());
+
+				startedCommits++;
+				executeOperation(connection, AdoptSSTablesOperation.COMMIT, entry.getValue());
+			}
+		} catch(BBoxDBException | InterruptedException e) {
+			rollbackTransfers(transfers, startedCommits);
+			throw e;
+		}
+	}
+
+	/**
+	 * Roll back the transfers of the first systems, which may have adopted their
+	 * SSTables, and abort the transfers of the other systems. Errors are logged,
+	 * the transfers of the remaining systems are handled anyway.
+	 *
+	 * @param transfers
+	 * @param committedSystems - the number of systems that may have adopted their SSTables
+	 */
+	private void rollbackTransfers(final Map<BBoxDBConnection, List<SSTableTransfer>> transfers,
+			final int committedSystems) {
+
+		// Clear the interrupted flag, so the requests can be completed
+		final boolean interrupted = Thread.interrupted();
+		int system = 0;
+
+		for(final Entry<BBoxDBConnection, List<SSTableTransfer>> entry : transfers.entrySet()) {
+			final BBoxDBConnection connection = entry.getKey();
+
+			final AdoptSSTablesOperation operation = (system < committedSystems)
+					? AdoptSSTablesOperation.ROLLBACK : AdoptSSTablesOperation.ABORT;
+
+			system++;
+
+			try {
+				logger.info("Executing {} for {} SSTables on {}", operation, entry.getValue().size(),
+						connection.getConnectionName());
+
+				executeOperation(connection, operation, entry.getValue());
+			} catch (BBoxDBException e) {
+				logger.error("Unable to clean up the bulk load on " + connection.getConnectionName()
+					+ ", transfers " + entry.getValue(), e);
+			} catch (InterruptedException e) {
+				logger.error("Interrupted while cleaning up the bulk load on {}, transfers {}",
+						connection.getConnectionName(), entry.getValue());
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+
+		if(interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Execute the operation for the transfers on the system
+	 *
+	 * @param connection
+	 * @param operation
+	 * @param transfers
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	private void executeOperation(final BBoxDBConnection connection,
+			final AdoptSSTablesOperation operation, final List<SSTableTransfer> transfers)
+			throws BBoxDBException, InterruptedException {
+
+		final EmptyResultFuture future = connection.getBboxDBClient().adoptSSTables(operation, transfers);
+		future.waitForCompletion();
+
+		if(future.isFailed()) {
+			throw new BBoxDBException("Unable to execute " + operation + " for SSTables on "
+					+ connection.getConnectionName() + " " + future.getAllMessages());
+		}
+	}
+
+	/**
+	 * Set the max amount of tuples that are kept in memory
+	 * @param maxBufferedTuples
+	 */
+	public void setMaxBufferedTuples(final long maxBufferedTuples) {
+		this.maxBufferedTuples = maxBufferedTuples;
+	}
+
+	/**
+	 * Get the statistics of the file import
+	 * @return
+	 */
+	public ImportStatistics getImportStatistics() {
+		return importStatistics;
+	}
+
+	/**
+	 * Get the amount of written SSTables
+	 * @return
+	 */
+	public long getWrittenSSTables() {
+		return writtenSSTables;
+	}
+
+	/**
+	 * Get the amount of tuples without a writable region
+	 * @return
+	 */
+	public long getTuplesWithoutRegion() {
+		return tuplesWithoutRegion;
+	}
+}
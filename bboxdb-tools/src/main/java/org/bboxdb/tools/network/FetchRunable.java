@@ -206,7 +206,7 @@ public class FetchRunable extends ExceptionSafeRunnable {
 			// Merge entries
 			final List<? extends SpatialIndexEntry> entries = index.getEntriesForRegion(polygon.getBoundingBox());
 			for(SpatialIndexEntry entry : entries) {
-				processedElements.add(entry.getValue());
+				processedElements.add((int) entry.getValue());
 			}
 			
 			consumer.accept(polygon);
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.tools.importer.ExternalTupleSorter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestExternalTupleSorter {
+
+	/**
+	 * Sort tuples in memory
+	 * @throws IOException
+	 */
+	@Test(timeout=60000)
+	public void testSortInMemory() throws IOException {
+		final File directory = Files.createTempDirectory("sorter").toFile();
+		
+		try(final ExternalTupleSorter sorter = new ExternalTupleSorter(directory)) {
+			final List<Tuple> tuples = addRandomTuples(sorter, 1000, 0);
+			
+			Assert.assertEquals(0, sorter.getNumberOfRuns());
+			assertSorted(tuples, sorter.getSortedTuples());
+		}
+	}
+	
+	/**
+	 * Sort tuples with several runs on disk
+	 * @throws IOException
+	 */
+	@Test(timeout=60000)
+	public void testSortWithRuns() throws IOException {
+		final File directory = Files.createTempDirectory("sorter").toFile();
+		
+		try(final ExternalTupleSorter sorter = new ExternalTupleSorter(directory)) {
+			final List<Tuple> tuples = addRandomTuples(sorter, 1000, 100);
+			
+			Assert.assertEquals(1000, sorter.getNumberOfTuples());
+			Assert.assertEquals(10, sorter.getNumberOfRuns());
+			Assert.assertEquals(0, sorter.getNumberOfBufferedTuples());
+			
+			// Tuples in memory and on disk
+			final Tuple tuple = new Tuple("zzz", new Hyperrectangle(1.0, 2.0), "zzz".getBytes());
+			sorter.add(tuple);
+			tuples.add(tuple);
+			
+			assertSorted(tuples, sorter.getSortedTuples());
+		}
+		
+		// The runs are deleted
+		Assert.assertEquals(0, directory.list().length);
+	}
+	
+	/**
+	 * Sort tuples with more runs than the merge fan in
+	 * @throws IOException
+	 */
+	@Test(timeout=60000)
+	public void testSortWithMultiPassMerge() throws IOException {
+		final File directory = Files.createTempDirectory("sorter").toFile();
+		
+		try(final ExternalTupleSorter sorter = new ExternalTupleSorter(directory, 3)) {
+			final List<Tuple> tuples = addRandomTuples(sorter, 1000, 50);
+			
+			final Tuple tuple = new Tuple("zzz", new Hyperrectangle(1.0, 2.0), "zzz".getBytes());
+			sorter.add(tuple);
+			tuples.add(tuple);
+			
+			Assert.assertEquals(20, sorter.getNumberOfRuns());
+			
+			final Iterator<Tuple> iterator = sorter.getSortedTuples();
+			
+			// Two runs and the buffered tuples are merged at the end
+			Assert.assertTrue(sorter.getNumberOfRuns() < 3);
+			Assert.assertEquals(sorter.getNumberOfRuns(), directory.list().length);
+			
+			assertSorted(tuples, iterator);
+		}
+		
+		// The runs are deleted
+		Assert.assertEquals(0, directory.list().length);
+	}
+	
+	/**
+	 * Sort without tuples
+	 * @throws IOException
+	 */
+	@Test(timeout=60000)
+	public void testSortEmpty() throws IOException {
+		final File directory = Files.createTempDirectory("sorter").toFile();
+		
+		try(final ExternalTupleSorter sorter = new ExternalTupleSorter(directory)) {
+			sorter.spill();
+			Assert.assertEquals(0, sorter.getNumberOfRuns());
+			Assert.assertFalse(sorter.getSortedTuples().hasNext());
+		}
+	}
+	
+	/**
+	 * Add random tuples to the sorter
+	 * @param sorter
+	 * @param numberOfTuples
+	 * @param spillInterval
+	 * @return
+	 * @throws IOException
+	 */
+	private List<Tuple> addRandomTuples(final ExternalTupleSorter sorter, final int numberOfTuples, 
+			final int spillInterval) throws IOException {
+		
+		final List<Tuple> tuples = new ArrayList<>();
+		
+		for(int i = 0; i < numberOfTuples; i++) {
+			final double begin = ThreadLocalRandom.current().nextDouble(0, 100);
+			final String key = ThreadLocalRandom.current().nextInt() + "_" + i;
+			final Tuple tuple = new Tuple(key, new Hyperrectangle(begin, begin + 1), ("value" + i).getBytes());
+			
+			sorter.add(tuple);
+			tuples.add(tuple);
+			
+			if(spillInterval > 0 && (i + 1) % spillInterval == 0) {
+				sorter.spill();
+			}
+		}
+		
+		return tuples;
+	}
+	
+	/**
+	 * Compare the sorted tuples with the expected tuples
+	 * @param tuples
+	 * @param iterator
+	 */
+	private void assertSorted(final List<Tuple> tuples, final Iterator<Tuple> iterator) {
+		tuples.sort((t1, t2) -> t1.compareTo(t2));
+		
+		for(final Tuple expectedTuple : tuples) {
+			Assert.assertTrue(iterator.hasNext());
+			final Tuple tuple = iterator.next();
+			Assert.assertEquals(expectedTuple.getKey(), tuple.getKey());
+			Assert.assertEquals(expectedTuple.getBoundingBox(), tuple.getBoundingBox());
+			Assert.assertArrayEquals(expectedTuple.getDataBytes(), tuple.getDataBytes());
+		}
+		
+		Assert.assertFalse(iterator.hasNext());
+	}
+}
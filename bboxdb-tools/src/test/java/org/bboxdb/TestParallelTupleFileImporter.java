@@ -0,0 +1,253 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2020 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.tools.TupleFileReader;
+import org.bboxdb.tools.converter.tuple.TupleBuilderFactory;
+import org.bboxdb.tools.importer.FileChunk;
+import org.bboxdb.tools.importer.FileChunkSplitter;
+import org.bboxdb.tools.importer.ImportStatistics;
+import org.bboxdb.tools.importer.ParallelTupleFileImporter;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestParallelTupleFileImporter {
+
+	/**
+	 * Test the splitting of a file into chunks
+	 * @throws IOException
+	 */
+	@Test(timeout=60000)
+	public void testSplitFile() throws IOException {
+		final File tempFile = writeSyntheticFile(1000, true);
+
+		final List<FileChunk> chunks = FileChunkSplitter.splitFile(tempFile, 1024);
+		Assert.assertTrue(chunks.size() > 1);
+		Assert.assertEquals(0, chunks.get(0).getStart());
+		Assert.assertEquals(tempFile.length(), chunks.get(chunks.size() - 1).getEnd());
+
+		long lines = 0;
+		for(int i = 0; i < chunks.size(); i++) {
+			if(i > 0) {
+				Assert.assertEquals(chunks.get(i - 1).getEnd(), chunks.get(i).getStart());
+			}
+
+			lines = lines + FileChunkSplitter.countLines(tempFile, chunks.get(i));
+		}
+
+		Assert.assertEquals(1000, lines);
+	}
+
+	/**
+	 * Test the line count of a file without a line break at the end
+	 * @throws IOException
+	 */
+	@Test(timeout=60000)
+	public void testCountLinesWithoutLineBreak() throws IOException {
+		final File tempFile = writeSyntheticFile(100, false);
+
+		final List<FileChunk> chunks = FileChunkSplitter.splitFile(tempFile, 100);
+
+		final long lines = chunks.stream()
+				.mapToLong(c -> countLines(tempFile, c))
+				.sum();
+
+		Assert.assertEquals(100, lines);
+	}
+
+	/**
+	 * Test the splitting of an empty file
+	 * @throws IOException
+	 */
+	@Test(timeout=60000)
+	public void testSplitEmptyFile() throws IOException {
+		final File tempFile = writeSyntheticFile(0, true);
+		Assert.assertTrue(FileChunkSplitter.splitFile(tempFile, 100).isEmpty());
+	}
+
+	/**
+	 * The parallel importer has to create the same tuples as the sequential reader
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	@Test(timeout=60000)
+	public void testParallelImport() throws IOException, InterruptedException {
+		final File tempFile = writeSyntheticFile(10000, true);
+
+		final Map<String, Tuple> expectedTuples = new HashMap<>();
+		final TupleFileReader tupleFileReader = new TupleFileReader(tempFile.getAbsolutePath(),
+				TupleBuilderFactory.Name.SYNTHETIC);
+		tupleFileReader.addTupleListener(t -> expectedTuples.put(t.getKey(), t));
+		tupleFileReader.processFile();
+
+		final List<List<Tuple>> batches = new ArrayList<>();
+		final ParallelTupleFileImporter importer = new ParallelTupleFileImporter(
+				tempFile.getAbsolutePath(), TupleBuilderFactory.Name.SYNTHETIC, 0.0, 4);
+
+		importer.setChunkSize(4096);
+		importer.setBatchSize(100);
+		importer.setMaxPendingBatches(2);
+		importer.setGroupFunction(t -> t.getBoundingBox().getCoordinateLow(0) < 50 ? "a" : "b");
+		importer.addBatchListener(b -> batches.add(b));
+		importer.processFile();
+
+		final Map<String, Tuple> readTuples = new HashMap<>();
+
+		for(final List<Tuple> batch : batches) {
+			Assert.assertTrue(batch.size() <= 100);
+
+			final long groups = batch.stream()
+					.map(t -> t.getBoundingBox().getCoordinateLow(0) < 50)
+					.distinct()
+					.count();
+
+			Assert.assertEquals(1, groups);
+
+			batch.forEach(t -> Assert.assertNull(readTuples.put(t.getKey(), t)));
+		}
+
+		Assert.assertEquals(expectedTuples.size(), readTuples.size());
+
+		for(final Tuple expectedTuple : expectedTuples.values()) {
+			final Tuple readTuple = readTuples.get(expectedTuple.getKey());
+			Assert.assertNotNull(readTuple);
+			Assert.assertEquals(expectedTuple.getBoundingBox(), readTuple.getBoundingBox());
+			Assert.assertArrayEquals(expectedTuple.getDataBytes(), readTuple.getDataBytes());
+		}
+
+		final ImportStatistics statistics = importer.getStatistics();
+		Assert.assertEquals(10000, statistics.getReadLines());
+		Assert.assertEquals(10, statistics.getSkippedLines());
+		Assert.assertEquals(9990, statistics.getSentTuples());
+		Assert.assertEquals(tempFile.length(), statistics.getReadBytes());
+	}
+
+	/**
+	 * The builders of formats with date parsers are used by several threads
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	@Test(timeout=60000)
+	public void testParallelImportWithDates() throws IOException, InterruptedException {
+		final File tempFile = File.createTempFile("temp",".txt");
+		tempFile.deleteOnExit();
+		
+		try(final BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile))) {
+			for(int i = 0; i < 20000; i++) {
+				final int seconds = i % 86400;
+				final String time = String.format("201512%02d %02d%02d%02d", (i % 28) + 1, 
+						seconds / 3600, (seconds / 60) % 60, seconds % 60);
+				writer.write(time + "," + (1 + i / 100000.0) + ",1.0,0\n");
+			}
+		}
+		
+		final Map<String, Tuple> expectedTuples = new HashMap<>();
+		final TupleFileReader tupleFileReader = new TupleFileReader(tempFile.getAbsolutePath(),
+				TupleBuilderFactory.Name.FOREX_2D);
+		tupleFileReader.addTupleListener(t -> expectedTuples.put(t.getKey(), t));
+		tupleFileReader.processFile();
+		
+		final Map<String, Tuple> readTuples = new HashMap<>();
+		final ParallelTupleFileImporter importer = new ParallelTupleFileImporter(
+				tempFile.getAbsolutePath(), TupleBuilderFactory.Name.FOREX_2D, 0.0, 8);
+		
+		importer.setChunkSize(4096);
+		importer.addBatchListener(b -> b.forEach(t -> readTuples.put(t.getKey(), t)));
+		importer.processFile();
+		
+		Assert.assertEquals(0, importer.getStatistics().getSkippedLines());
+		Assert.assertEquals(20000, expectedTuples.size());
+		Assert.assertEquals(expectedTuples.size(), readTuples.size());
+		
+		for(final Tuple expectedTuple : expectedTuples.values()) {
+			final Tuple readTuple = readTuples.get(expectedTuple.getKey());
+			Assert.assertEquals(expectedTuple.getBoundingBox(), readTuple.getBoundingBox());
+		}
+	}
+	
+	/**
+	 * Test the import of a non existing file
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	@Test(expected=IOException.class)
+	public void testNonExistingFile() throws IOException, InterruptedException {
+		final File tempFile = File.createTempFile("temp",".txt");
+		tempFile.delete();
+
+		final ParallelTupleFileImporter importer = new ParallelTupleFileImporter(
+				tempFile.getAbsolutePath(), TupleBuilderFactory.Name.SYNTHETIC, 0.0, 2);
+
+		importer.processFile();
+	}
+
+	/**
+	 * Count the lines of the chunk
+	 * @param file
+	 * @param chunk
+	 * @return
+	 */
+	private static long countLines(final File file, final FileChunk chunk) {
+		try {
+			return FileChunkSplitter.countLines(file, chunk);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Write a file with synthetic tuples, every 1000th line is invalid
+	 * @param lines
+	 * @param lastLineBreak
+	 * @return
+	 * @throws IOException
+	 */
+	private static File writeSyntheticFile(final int lines, final boolean lastLineBreak)
+			throws IOException {
+
+		final File tempFile = File.createTempFile("temp",".txt");
+		tempFile.deleteOnExit();
+
+		try(final BufferedWriter writer = new BufferedWriter(new FileWriter(tempFile))) {
+			for(int i = 0; i < lines; i++) {
+				if(i % 1000 == 999) {
+					writer.write("invalid");
+				} else {
+					final double begin = i % 100;
+					writer.write(begin + "," + (begin + 1) + "," + i + "," + (i + 1) + " value" + i);
+				}
+
+				if(lastLineBreak || i < lines - 1) {
+					writer.write("\n");
+				}
+			}
+		}
+
+		return tempFile;
+	}
+}